@@ -41,6 +41,9 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
   protected volatile String remoteSlaveServerName;
   private ReadWriteLock lock;
 
+  protected volatile RowSetSignal consumerSignal;
+  protected volatile RowSetSignal producerSignal;
+
   public BaseRowSet() {
     // not done putting data into this RowSet
     done = new AtomicBoolean( false );
@@ -127,6 +130,7 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
   @Override
   public void setDone() {
     done.set( true );
+    signalConsumer();
   }
 
   /*
@@ -283,6 +287,46 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
     this.remoteSlaveServerName = remoteSlaveServerName;
   }
 
+  @Override
+  public void setConsumerSignal( RowSetSignal signal ) {
+    this.consumerSignal = signal;
+  }
+
+  @Override
+  public RowSetSignal getConsumerSignal() {
+    return consumerSignal;
+  }
+
+  @Override
+  public void setProducerSignal( RowSetSignal signal ) {
+    this.producerSignal = signal;
+  }
+
+  @Override
+  public RowSetSignal getProducerSignal() {
+    return producerSignal;
+  }
+
+  /**
+   * Wake up the step reading from this row set, if it is waiting for rows.
+   */
+  protected void signalConsumer() {
+    RowSetSignal signal = consumerSignal;
+    if ( signal != null ) {
+      signal.signal();
+    }
+  }
+
+  /**
+   * Wake up the step writing to this row set, if it is waiting for room.
+   */
+  protected void signalProducer() {
+    RowSetSignal signal = producerSignal;
+    if ( signal != null ) {
+      signal.signal();
+    }
+  }
+
   /**
    * By default we don't report blocking, only for monitored transformations.
    *
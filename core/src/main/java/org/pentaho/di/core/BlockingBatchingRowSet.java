@@ -97,6 +97,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<Row
       try {
         getArray.offer( inputBuffer, time, tu );
         inputBuffer = null;
+        signalConsumer();
       } catch ( InterruptedException e ) {
         return false;
       }
@@ -147,6 +148,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<Row
     if ( getIndex == size ) {
       putArray.offer( outputBuffer );
       outputBuffer = null;
+      signalProducer();
     }
 
     return row;
@@ -170,6 +172,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<Row
       getArray.offer( inputBuffer );
     }
     putArray.clear();
+    signalConsumer();
   }
 
   @Override
@@ -71,6 +71,9 @@ public class BlockingListeningRowSet extends BaseRowSet implements Comparable<Ro
       blocking.set( true );
       boolean b = queArray.offer( rowData, time, tu );
       blocking.set( false );
+      if ( b ) {
+        signalConsumer();
+      }
       return b;
     } catch ( InterruptedException e ) {
       blocking.set( false );
@@ -108,6 +111,9 @@ public class BlockingListeningRowSet extends BaseRowSet implements Comparable<Ro
     blocking.set( true );
     Object[] row = queArray.poll();
     blocking.set( false );
+    if ( row != null ) {
+      signalProducer();
+    }
     return row;
   }
 
@@ -123,6 +129,9 @@ public class BlockingListeningRowSet extends BaseRowSet implements Comparable<Ro
       blocking.set( true );
       Object[] row = queArray.poll( timeout, tu );
       blocking.set( false );
+      if ( row != null ) {
+        signalProducer();
+      }
       return row;
     } catch ( InterruptedException e ) {
       blocking.set( false );
@@ -13,6 +13,7 @@
 
 package org.pentaho.di.core;
 
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -69,7 +70,11 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
     this.rowMeta = rowMeta;
     try {
 
-      return queArray.offer( rowData, time, tu );
+      if ( queArray.offer( rowData, time, tu ) ) {
+        signalConsumer();
+        return true;
+      }
+      return false;
     } catch ( InterruptedException e ) {
       return false;
     } catch ( NullPointerException e ) {
@@ -78,6 +83,23 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
 
   }
 
+  @Override
+  public int putRowsImmediate( RowMetaInterface rowMeta, List<Object[]> rows, int offset ) {
+    this.rowMeta = rowMeta;
+    int added = 0;
+    for ( int i = offset; i < rows.size(); i++ ) {
+      Object[] rowData = rows.get( i );
+      if ( rowData == null || !queArray.offer( rowData ) ) {
+        break;
+      }
+      added++;
+    }
+    if ( added > 0 ) {
+      signalConsumer();
+    }
+    return added;
+  }
+
   // default getRow with wait time = 100ms
   //
   /*
@@ -98,7 +120,7 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
   @Override
   public Object[] getRowImmediate() {
 
-    return queArray.poll();
+    return signalIfTaken( queArray.poll() );
   }
 
   /*
@@ -110,12 +132,30 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
   public Object[] getRowWait( long timeout, TimeUnit tu ) {
 
     try {
-      return queArray.poll( timeout, tu );
+      return signalIfTaken( queArray.poll( timeout, tu ) );
     } catch ( InterruptedException e ) {
       return null;
     }
   }
 
+  @Override
+  public int getRowsImmediate( List<Object[]> rows, int max ) {
+    // Takes the rows under a single lock
+    //
+    int taken = queArray.drainTo( rows, max );
+    if ( taken > 0 ) {
+      signalProducer();
+    }
+    return taken;
+  }
+
+  private Object[] signalIfTaken( Object[] row ) {
+    if ( row != null ) {
+      signalProducer();
+    }
+    return row;
+  }
+
   @Override
   public int size() {
     return queArray.size();
@@ -125,6 +165,7 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
   public void clear() {
     queArray.clear();
     done.set( false );
+    signalProducer();
   }
 
 }
@@ -23,6 +23,7 @@ import java.util.regex.Pattern;
 
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.exception.KettleXMLException;
+import org.pentaho.di.core.row.ColumnarRowBatch;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaAndData;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -563,6 +564,199 @@ public class Condition implements Cloneable, XMLInterface {
     return retval;
   }
 
+  /**
+   * Checks whether this condition can be evaluated on the vectors of a {@link ColumnarRowBatch}. That is the case for
+   * (composites of) null checks and comparisons of Integer or Number fields with a constant or another field of the
+   * same type.
+   *
+   * @param rowMeta
+   *          the row metadata
+   * @return true if {@link #evaluate(ColumnarRowBatch, boolean[])} can be used for rows of this layout
+   */
+  public boolean isVectorizable( RowMetaInterface rowMeta ) {
+    if ( isComposite() ) {
+      for ( Condition condition : list ) {
+        if ( !condition.isVectorizable( rowMeta ) ) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if ( function == FUNC_TRUE ) {
+      return true;
+    }
+    int leftIndex = Utils.isEmpty( leftValuename ) ? -1 : rowMeta.indexOfValue( leftValuename );
+    if ( leftIndex < 0 ) {
+      return false;
+    }
+    ValueMetaInterface leftMeta = rowMeta.getValueMeta( leftIndex );
+    if ( !ColumnarRowBatch.isVectorizable( leftMeta ) || leftMeta.isSortedDescending() ) {
+      return false;
+    }
+    switch ( function ) {
+      case FUNC_NULL:
+      case FUNC_NOT_NULL:
+        return true;
+      case FUNC_EQUAL:
+      case FUNC_NOT_EQUAL:
+      case FUNC_SMALLER:
+      case FUNC_SMALLER_EQUAL:
+      case FUNC_LARGER:
+      case FUNC_LARGER_EQUAL:
+        ValueMetaInterface rightMeta;
+        if ( rightExact != null && rightExact.getValueData() != null ) {
+          rightMeta = rightExact.getValueMeta();
+        } else {
+          int rightIndex = Utils.isEmpty( rightValuename ) ? -1 : rowMeta.indexOfValue( rightValuename );
+          rightMeta = rightIndex < 0 ? null : rowMeta.getValueMeta( rightIndex );
+        }
+        return ColumnarRowBatch.isVectorizable( rightMeta ) && rightMeta.getType() == leftMeta.getType();
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Evaluate the condition for all the rows of a batch at once, working on the vectors of the fields. The result is
+   * the same as calling {@link #evaluate(RowMetaInterface, Object[])} for each row. Only use this method if
+   * {@link #isVectorizable(RowMetaInterface)} returns true for the layout of the batch and the batch holds the used
+   * fields in vectors.
+   *
+   * @param batch
+   *          the rows to evaluate
+   * @param result
+   *          receives the outcome for each row of the batch, needs to be at least as large as the batch
+   */
+  public void evaluate( ColumnarRowBatch batch, boolean[] result ) {
+    int size = batch.size();
+    try {
+      if ( isAtomic() ) {
+        evaluateAtomic( batch, result );
+      } else {
+        list.get( 0 ).evaluate( batch, result );
+        boolean[] other = new boolean[ size ];
+        for ( int i = 1; i < list.size(); i++ ) {
+          Condition cb = list.get( i );
+          cb.evaluate( batch, other );
+          for ( int r = 0; r < size; r++ ) {
+            switch ( cb.getOperator() ) {
+              case Condition.OPERATOR_OR:
+                result[ r ] = result[ r ] || other[ r ];
+                break;
+              case Condition.OPERATOR_AND:
+                result[ r ] = result[ r ] && other[ r ];
+                break;
+              case Condition.OPERATOR_OR_NOT:
+                result[ r ] = result[ r ] || !other[ r ];
+                break;
+              case Condition.OPERATOR_AND_NOT:
+                result[ r ] = result[ r ] && !other[ r ];
+                break;
+              case Condition.OPERATOR_XOR:
+                result[ r ] = result[ r ] ^ other[ r ];
+                break;
+              default:
+                break;
+            }
+          }
+        }
+      }
+    } catch ( Exception e ) {
+      throw new RuntimeException( "Unexpected error evaluation condition [" + toString() + "]", e );
+    }
+
+    if ( isNegated() ) {
+      for ( int r = 0; r < size; r++ ) {
+        result[ r ] = !result[ r ];
+      }
+    }
+  }
+
+  private void evaluateAtomic( ColumnarRowBatch batch, boolean[] result ) throws KettleValueException {
+    int size = batch.size();
+    if ( function == FUNC_TRUE ) {
+      Arrays.fill( result, 0, size, true );
+      return;
+    }
+    RowMetaInterface rowMeta = batch.getRowMeta();
+    leftFieldnr = rowMeta.indexOfValue( leftValuename );
+
+    if ( function == FUNC_NULL || function == FUNC_NOT_NULL ) {
+      for ( int r = 0; r < size; r++ ) {
+        result[ r ] = batch.isNull( leftFieldnr, r ) == ( function == FUNC_NULL );
+      }
+      return;
+    }
+
+    // The right hand side is either a constant or a field of the same type
+    //
+    Object exact = rightExact != null ? rightExact.getValueData() : null;
+    long exactLong = 0L;
+    double exactDouble = 0.0;
+    if ( exact != null ) {
+      rightFieldnr = -1;
+      if ( batch.isLongVector( leftFieldnr ) ) {
+        exactLong = rightExact.getValueMeta().getInteger( exact );
+      } else {
+        exactDouble = rightExact.getValueMeta().getNumber( exact );
+      }
+    } else {
+      rightFieldnr = rowMeta.indexOfValue( rightValuename );
+    }
+
+    // Added this to accommodate for CUST-270, see evaluate()
+    //
+    boolean nullIsFalse = ( function == FUNC_SMALLER || function == FUNC_SMALLER_EQUAL )
+      && "Y".equalsIgnoreCase( System.getProperty( Const.KETTLE_FILTER_TREAT_NULLS_AS_NOT_ZERO, "N" ) );
+
+    boolean longs = batch.isLongVector( leftFieldnr );
+    for ( int r = 0; r < size; r++ ) {
+      boolean leftNull = batch.isNull( leftFieldnr, r );
+      boolean rightNull = exact == null && batch.isNull( rightFieldnr, r );
+      if ( leftNull && nullIsFalse ) {
+        result[ r ] = false;
+        continue;
+      }
+
+      // Nulls sort before any other value, just like ValueMetaInterface.compare()
+      //
+      int cmp;
+      if ( leftNull || rightNull ) {
+        cmp = leftNull == rightNull ? 0 : ( leftNull ? -1 : 1 );
+      } else if ( longs ) {
+        cmp = Long.compare( batch.getLong( leftFieldnr, r ),
+          exact != null ? exactLong : batch.getLong( rightFieldnr, r ) );
+      } else {
+        cmp = Double.compare( batch.getDouble( leftFieldnr, r ),
+          exact != null ? exactDouble : batch.getDouble( rightFieldnr, r ) );
+      }
+
+      switch ( function ) {
+        case FUNC_EQUAL:
+          result[ r ] = cmp == 0;
+          break;
+        case FUNC_NOT_EQUAL:
+          result[ r ] = cmp != 0;
+          break;
+        case FUNC_SMALLER:
+          result[ r ] = cmp < 0;
+          break;
+        case FUNC_SMALLER_EQUAL:
+          result[ r ] = cmp <= 0;
+          break;
+        case FUNC_LARGER:
+          result[ r ] = cmp > 0;
+          break;
+        case FUNC_LARGER_EQUAL:
+          result[ r ] = cmp >= 0;
+          break;
+        default:
+          result[ r ] = false;
+          break;
+      }
+    }
+  }
+
   public void addCondition( Condition cb ) {
     if ( isAtomic() && getLeftValuename() != null ) {
       /*
@@ -1042,6 +1042,88 @@ public class Const {
    */
   public static final String KETTLE_BATCHING_ROWSET = "KETTLE_BATCHING_ROWSET";
 
+  /**
+   * Set this variable to N if you want to use the blocking row set instead of the lock-free single producer/single
+   * consumer row set on 1:1 hops. (default = Y)
+   */
+  public static final String KETTLE_SPSC_ROWSET = "KETTLE_SPSC_ROWSET";
+
+  /**
+   * Set this variable to "virtual" to run the steps of a transformation on virtual threads instead of one platform
+   * thread per step copy. Requires a Java runtime with virtual threads. (default = platform)
+   */
+  public static final String KETTLE_STEP_THREAD_TYPE = "KETTLE_STEP_THREAD_TYPE";
+
+  /**
+   * Set this variable to Y to write the temporary files of Sort rows and Group by and the rows sent between Socket
+   * writer and Socket reader in the compact binary row format. Both ends of a socket need the same setting.
+   * (default = N)
+   */
+  public static final String KETTLE_COMPACT_ROW_FORMAT = "KETTLE_COMPACT_ROW_FORMAT";
+
+  /**
+   * The name of the compression provider (None, GZip, Snappy, Zstd) for compressed Sort rows temporary files and
+   * compressed cluster socket streams, unless the step names another one. (default = GZip)
+   */
+  public static final String KETTLE_DEFAULT_COMPRESSION_PROVIDER = "KETTLE_DEFAULT_COMPRESSION_PROVIDER";
+
+  /**
+   * Set this variable to the maximum number of temporary files the Sort rows step merges at once. When there are more,
+   * some of them are merged into bigger files first. (default = 256)
+   */
+  public static final String KETTLE_SORT_MAX_OPEN_FILES = "KETTLE_SORT_MAX_OPEN_FILES";
+
+  /**
+   * Set this variable to the precision (4 to 18) of the sketches of approximate count distinct aggregates in the Group
+   * By and Memory Group By steps, unless the aggregate sets its own. A sketch takes 2^precision bytes. (default = 14)
+   */
+  public static final String KETTLE_APPROX_DISTINCT_PRECISION = "KETTLE_APPROX_DISTINCT_PRECISION";
+
+  /**
+   * Set this variable to the compression of the digests of approximate median and percentile aggregates in the Group
+   * By and Memory Group By steps. A digest keeps at most about this many centroids. (default = 100)
+   */
+  public static final String KETTLE_APPROX_PERCENTILE_COMPRESSION = "KETTLE_APPROX_PERCENTILE_COMPRESSION";
+
+  /**
+   * Set this variable to the number of megabytes of direct memory a Stream Lookup step storing its lookup data outside
+   * of the Java heap allocates. Beyond that, the data is kept in a memory mapped temporary file. (default = 512)
+   */
+  public static final String KETTLE_STREAM_LOOKUP_MAX_DIRECT_MEMORY = "KETTLE_STREAM_LOOKUP_MAX_DIRECT_MEMORY";
+
+  /**
+   * Set this variable to the number of seconds the entries of a lookup cache shared by Database Lookup, Dimension Lookup
+   * and Combination Lookup steps are kept. With 0, entries are kept until the last step using the cache finishes.
+   * (default = 0)
+   */
+  public static final String KETTLE_SHARED_LOOKUP_CACHE_TTL = "KETTLE_SHARED_LOOKUP_CACHE_TTL";
+
+  /**
+   * Set this variable to the number of batches of keys a Database Lookup step looking up in batches queries at the same
+   * time, each on a connection of its own. With 1, batches are queried one after the other. (default = 2)
+   */
+  public static final String KETTLE_DATABASE_LOOKUP_BATCHES_IN_FLIGHT = "KETTLE_DATABASE_LOOKUP_BATCHES_IN_FLIGHT";
+
+  /**
+   * Set this variable to the number of rows of a group of equal keys a Merge Join step keeps in memory. The rows of
+   * larger groups of the second stream are written to a temporary file. (default = 100000)
+   */
+  public static final String KETTLE_MERGE_JOIN_GROUP_ROWS_IN_MEMORY = "KETTLE_MERGE_JOIN_GROUP_ROWS_IN_MEMORY";
+
+  /**
+   * Set this variable to the number of rows of a partition an Analytic Query step keeps in memory when a window frame
+   * extends to the end of the partition. The rows of larger partitions are written to a temporary file.
+   * (default = 100000)
+   */
+  public static final String KETTLE_ANALYTIC_QUERY_PARTITION_ROWS_IN_MEMORY =
+    "KETTLE_ANALYTIC_QUERY_PARTITION_ROWS_IN_MEMORY";
+
+  /**
+   * Set this variable to the number of workers that run the steps of fork/join transformations. (default = the number
+   * of available processors)
+   */
+  public static final String KETTLE_FORK_JOIN_WORKERS = "KETTLE_FORK_JOIN_WORKERS";
+
   /**
    * Set this variable to limit max number of files the Text File Output step can have open at one time.
    */
@@ -13,6 +13,7 @@
 
 package org.pentaho.di.core;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -69,6 +70,48 @@ public interface RowSet {
    */
   Object[] getRowWait( long timeout, TimeUnit tu );
 
+  /**
+   * Offer a batch of rows to this rowset without waiting: rows are added from the given offset onwards for as long as
+   * there is room in the buffer.
+   *
+   * @param rowMeta
+   *          The description of the row data
+   * @param rows
+   *          the rows of data
+   * @param offset
+   *          the index of the first row in the list to add
+   * @return the number of rows that were added, 0 if this buffer was full.
+   */
+  default int putRowsImmediate( RowMetaInterface rowMeta, List<Object[]> rows, int offset ) {
+    int added = 0;
+    for ( int i = offset; i < rows.size(); i++ ) {
+      if ( !putRowWait( rowMeta, rows.get( i ), 0, TimeUnit.MILLISECONDS ) ) {
+        break;
+      }
+      added++;
+    }
+    return added;
+  }
+
+  /**
+   * Get the rows that are immediately available in this rowset, up to a maximum.
+   *
+   * @param rows
+   *          the list to add the rows to
+   * @param max
+   *          the maximum number of rows to get
+   * @return the number of rows added to the list, 0 if no row is available.
+   */
+  default int getRowsImmediate( List<Object[]> rows, int max ) {
+    int taken = 0;
+    Object[] row;
+    while ( taken < max && ( row = getRowImmediate() ) != null ) {
+      rows.add( row );
+      taken++;
+    }
+    return taken;
+  }
+
   /**
    * @return Set indication that there is no more input
    */
@@ -145,4 +188,37 @@ public interface RowSet {
    * Clear this rowset: remove all rows and remove the "done" flag.
    */
   void clear();
+
+  /**
+   * Set the signal to raise when rows are put into this row set or when it is marked done. Row sets that don't support
+   * signalling ignore this: waiting steps will then fall back to their maximum wait time.
+   *
+   * @param signal
+   *          the signal of the step reading from this row set or null to stop signalling
+   */
+  default void setConsumerSignal( RowSetSignal signal ) {
+  }
+
+  /**
+   * @return the signal raised when rows are put into this row set or null if there is none
+   */
+  default RowSetSignal getConsumerSignal() {
+    return null;
+  }
+
+  /**
+   * Set the signal to raise when rows are taken from this row set.
+   *
+   * @param signal
+   *          the signal of the step writing to this row set or null to stop signalling
+   */
+  default void setProducerSignal( RowSetSignal signal ) {
+  }
+
+  /**
+   * @return the signal raised when rows are taken from this row set or null if there is none
+   */
+  default RowSetSignal getProducerSignal() {
+    return null;
+  }
 }
@@ -0,0 +1,124 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Wakes up a thread waiting for a state change in one or more row sets. A step owns one signal for its input row sets
+ * and one for its output row sets. The row sets call {@link #signal()} when rows are put (consumer signal), taken
+ * (producer signal) or when the row set is marked done.
+ *
+ * The waiting thread must {@link #arm()} the signal, re-check the row sets and only then {@link #await(long)}. Since
+ * the waiter registration and the row set state are both published through volatile writes, a state change between
+ * the re-check and the wait is never lost: it either shows up in the re-check or it unparks the waiter.
+ *
+ * Signalling is cheap when nobody is waiting: a single volatile read.
+ */
+public class RowSetSignal {
+
+  private static final int SPIN_TRIES = 256;
+
+  private final RowSetWaitStrategy strategy;
+
+  private volatile Thread waiter;
+  private volatile boolean signalled;
+
+  public RowSetSignal( RowSetWaitStrategy strategy ) {
+    this.strategy = strategy;
+  }
+
+  /**
+   * @return the strategy used by {@link #await(long)}
+   */
+  public RowSetWaitStrategy getStrategy() {
+    return strategy;
+  }
+
+  /**
+   * Notify the waiting thread (if any) that a row set changed state.
+   */
+  public void signal() {
+    Thread thread = waiter;
+    if ( thread != null ) {
+      signalled = true;
+      LockSupport.unpark( thread );
+    }
+  }
+
+  /**
+   * Register the current thread as the waiter. Re-check the row set state after this call and before calling
+   * {@link #await(long)}.
+   */
+  public void arm() {
+    signalled = false;
+    waiter = Thread.currentThread();
+  }
+
+  /**
+   * Unregister the current thread as the waiter.
+   */
+  public void disarm() {
+    waiter = null;
+  }
+
+  /**
+   * @return true if a row set signalled a state change since the last call to {@link #arm()}
+   */
+  public boolean isSignalled() {
+    return signalled;
+  }
+
+  /**
+   * Wait for a state change using the configured strategy. Returns when signalled, when the thread is interrupted or at
+   * the latest after the given time. Spurious returns are possible: callers re-check the row sets in a loop.
+   *
+   * @param maxMillis
+   *          the maximum time to wait in milliseconds, a safety net for row sets that don't signal
+   * @return the time spent waiting in nanoseconds
+   */
+  public long await( long maxMillis ) {
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos( maxMillis );
+    switch ( strategy ) {
+      case SPIN_THEN_PARK:
+        for ( int i = 0; i < SPIN_TRIES && !signalled; i++ ) {
+          Thread.onSpinWait();
+        }
+        parkUntil( deadline );
+        break;
+      case YIELD:
+        while ( !signalled && System.nanoTime() - deadline < 0 && !Thread.currentThread().isInterrupted() ) {
+          Thread.yield();
+        }
+        break;
+      case BLOCKING:
+      default:
+        parkUntil( deadline );
+        break;
+    }
+    return System.nanoTime() - start;
+  }
+
+  private void parkUntil( long deadline ) {
+    while ( !signalled && !Thread.currentThread().isInterrupted() ) {
+      long remaining = deadline - System.nanoTime();
+      if ( remaining <= 0 ) {
+        return;
+      }
+      LockSupport.parkNanos( this, remaining );
+    }
+  }
+}
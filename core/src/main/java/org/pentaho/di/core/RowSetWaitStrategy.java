@@ -0,0 +1,98 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import org.pentaho.di.i18n.BaseMessages;
+
+/**
+ * Describes how a step waits when its input row sets are empty or its output row sets are full.
+ *
+ * {@link #TIMED} is the classic behavior: the step polls the row sets with short timeouts. The other strategies are
+ * event driven: the step registers itself with a {@link RowSetSignal} and is woken up by the row set as soon as rows
+ * are added, taken or the row set is marked done.
+ */
+public enum RowSetWaitStrategy {
+
+  /** Poll the row sets with short timeouts (default). */
+  TIMED( "Timed" ),
+
+  /** Park the step thread until a row set signals a state change. */
+  BLOCKING( "Blocking" ),
+
+  /** Spin for a short while, then park the step thread until a row set signals a state change. */
+  SPIN_THEN_PARK( "SpinThenPark" ),
+
+  /** Yield the processor until a row set signals a state change. Lowest latency, highest CPU usage. */
+  YIELD( "Yield" );
+
+  private static Class<?> PKG = RowSetWaitStrategy.class; // for i18n purposes, needed by Translator2!!
+
+  private final String code;
+
+  RowSetWaitStrategy( String code ) {
+    this.code = code;
+  }
+
+  /**
+   * @return the code used to store the wait strategy in XML and the repository
+   */
+  public String getCode() {
+    return code;
+  }
+
+  /**
+   * @return the localized description of the wait strategy
+   */
+  public String getDescription() {
+    return BaseMessages.getString( PKG, "RowSetWaitStrategy." + code );
+  }
+
+  /**
+   * @return true if the step is woken up by row set signals rather than polling with timeouts
+   */
+  public boolean isSignalled() {
+    return this != TIMED;
+  }
+
+  /**
+   * Gets the wait strategy by code.
+   *
+   * @param code
+   *          the code
+   * @return the wait strategy or {@link #TIMED} if the code is unknown
+   */
+  public static RowSetWaitStrategy getWaitStrategyByCode( String code ) {
+    if ( code != null ) {
+      for ( RowSetWaitStrategy strategy : values() ) {
+        if ( strategy.code.equalsIgnoreCase( code ) ) {
+          return strategy;
+        }
+      }
+    }
+    return TIMED;
+  }
+
+  /**
+   * Gets the wait strategy descriptions.
+   *
+   * @return the wait strategy descriptions
+   */
+  public static String[] getWaitStrategyDescriptions() {
+    String[] desc = new String[values().length];
+    for ( int i = 0; i < values().length; i++ ) {
+      desc[i] = values()[i].getDescription();
+    }
+    return desc;
+  }
+}
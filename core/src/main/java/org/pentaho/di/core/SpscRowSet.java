@@ -0,0 +1,292 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A lock-free buffer of rows for hops that have exactly one producer thread and one consumer thread. The rows are
+ * kept in a ring buffer indexed by two padded sequences: the producer only ever writes the tail, the consumer only
+ * ever writes the head. No locks are taken on either side; waiting for space or for rows is done by spinning briefly,
+ * then yielding and finally parking for short periods until the timeout expires.
+ *
+ * This row set is NOT safe for use with more than one thread putting rows or more than one thread getting rows. Use
+ * {@link BlockingRowSet} in those cases.
+ *
+ * @since 10.3
+ */
+public class SpscRowSet extends BaseRowSet implements Comparable<RowSet>, RowSet {
+
+  private static final int SPIN_TRIES = 64;
+  private static final int YIELD_TRIES = 128;
+  private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 500 );
+
+  private final Object[] buffer;
+  private final int mask;
+  private final int capacity;
+
+  /** Next slot to read, written by the consumer. Also caches the producer's tail as seen by the consumer. */
+  private final Sequence head;
+
+  /** Next slot to write, written by the producer. Also caches the consumer's head as seen by the producer. */
+  private final Sequence tail;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * Create a new lock-free single producer/single consumer row set with maxSize capacity.
+   *
+   * @param maxSize
+   */
+  public SpscRowSet( int maxSize ) {
+    super();
+
+    capacity = Math.max( 1, maxSize );
+    int ringSize = Integer.highestOneBit( capacity );
+    if ( ringSize < capacity ) {
+      ringSize <<= 1;
+    }
+    buffer = new Object[ ringSize ];
+    mask = ringSize - 1;
+
+    head = new Sequence();
+    tail = new Sequence();
+
+    timeoutGet = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+    timeoutPut = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_PUT_TIMEOUT ), Const.TIMEOUT_PUT_MILLIS );
+  }
+
+  @Override
+  public boolean putRow( RowMetaInterface rowMeta, Object[] rowData ) {
+    return putRowWait( rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    this.rowMeta = rowMeta;
+    if ( rowData == null ) {
+      return false;
+    }
+    if ( offer( rowData ) ) {
+      return true;
+    }
+
+    long deadline = System.nanoTime() + tu.toNanos( time );
+    int tries = 0;
+    while ( !offer( rowData ) ) {
+      if ( System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted() ) {
+        return false;
+      }
+      backOff( tries++, deadline );
+    }
+    return true;
+  }
+
+  /**
+   * Publishes all the rows that fit with a single write of the tail.
+   */
+  @Override
+  public int putRowsImmediate( RowMetaInterface rowMeta, List<Object[]> rows, int offset ) {
+    this.rowMeta = rowMeta;
+    long t = tail.get();
+    int wanted = rows.size() - offset;
+    if ( wanted <= 0 ) {
+      return 0;
+    }
+    if ( t - tail.cache + wanted > capacity ) {
+      tail.cache = head.get();
+    }
+    int added = (int) Math.min( wanted, capacity - ( t - tail.cache ) );
+    for ( int i = 0; i < added; i++ ) {
+      Object[] rowData = rows.get( offset + i );
+      if ( rowData == null ) {
+        added = i;
+        break;
+      }
+      buffer[ (int) ( ( t + i ) & mask ) ] = rowData;
+    }
+    if ( added > 0 ) {
+      publishTail( t + added );
+    }
+    return added;
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    return poll();
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    Object[] row = poll();
+    if ( row != null ) {
+      return row;
+    }
+
+    long deadline = System.nanoTime() + tu.toNanos( timeout );
+    int tries = 0;
+    while ( ( row = poll() ) == null ) {
+      if ( System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted() ) {
+        return null;
+      }
+      backOff( tries++, deadline );
+    }
+    return row;
+  }
+
+  /**
+   * Takes all the available rows, up to max, with a single write of the head.
+   */
+  @Override
+  public int getRowsImmediate( List<Object[]> rows, int max ) {
+    long h = head.get();
+    if ( h + max > head.cache ) {
+      head.cache = tail.get();
+    }
+    int taken = (int) Math.min( max, head.cache - h );
+    if ( taken <= 0 ) {
+      return 0;
+    }
+    for ( int i = 0; i < taken; i++ ) {
+      int index = (int) ( ( h + i ) & mask );
+      rows.add( (Object[]) buffer[ index ] );
+      buffer[ index ] = null; // prevent any hold-up to GC
+    }
+    publishHead( h + taken );
+    return taken;
+  }
+
+  @Override
+  public int size() {
+    // Read the head first: the tail can only grow in the meantime, never the other way around.
+    //
+    long h = head.get();
+    long t = tail.get();
+    return (int) Math.max( 0, Math.min( capacity, t - h ) );
+  }
+
+  /**
+   * Only called when no producer or consumer is active (single threaded engine, clearing errors).
+   */
+  @Override
+  public void clear() {
+    long t = tail.get();
+    for ( long h = head.get(); h < t; h++ ) {
+      buffer[ (int) ( h & mask ) ] = null;
+    }
+    head.set( t );
+    head.cache = t;
+    tail.cache = t;
+    done.set( false );
+    signalProducer();
+  }
+
+  /**
+   * Called by the producer thread only.
+   */
+  private boolean offer( Object[] rowData ) {
+    long t = tail.get();
+    if ( t - tail.cache >= capacity ) {
+      tail.cache = head.get();
+      if ( t - tail.cache >= capacity ) {
+        return false;
+      }
+    }
+    buffer[ (int) ( t & mask ) ] = rowData;
+    publishTail( t + 1 );
+    return true;
+  }
+
+  /**
+   * Called by the consumer thread only.
+   */
+  private Object[] poll() {
+    long h = head.get();
+    if ( h >= head.cache ) {
+      head.cache = tail.get();
+      if ( h >= head.cache ) {
+        return null;
+      }
+    }
+    int index = (int) ( h & mask );
+    Object[] row = (Object[]) buffer[ index ];
+    buffer[ index ] = null; // prevent any hold-up to GC
+    publishHead( h + 1 );
+    return row;
+  }
+
+  /**
+   * Called by the producer thread only.
+   */
+  private void publishTail( long t ) {
+    RowSetSignal signal = consumerSignal;
+    if ( signal == null ) {
+      tail.lazySet( t ); // publishes the slots to the consumer
+    } else {
+      // A full volatile write: a consumer arming its signal must either see the rows or be signalled.
+      tail.set( t );
+      signal.signal();
+    }
+  }
+
+  /**
+   * Called by the consumer thread only.
+   */
+  private void publishHead( long h ) {
+    RowSetSignal signal = producerSignal;
+    if ( signal == null ) {
+      head.lazySet( h ); // releases the slots to the producer
+    } else {
+      head.set( h );
+      signal.signal();
+    }
+  }
+
+  private static void backOff( int tries, long deadline ) {
+    if ( tries < SPIN_TRIES ) {
+      Thread.onSpinWait();
+    } else if ( tries < SPIN_TRIES + YIELD_TRIES ) {
+      Thread.yield();
+    } else {
+      long remaining = deadline - System.nanoTime();
+      if ( remaining > 0 ) {
+        LockSupport.parkNanos( Math.min( remaining, MAX_PARK_NANOS ) );
+      }
+    }
+  }
+
+  /**
+   * A sequence that sits on its own cache line. The padding after the value keeps the head and tail, which are written
+   * by different threads, from sharing a cache line with each other or with the ring buffer. The cached view of the
+   * opposite sequence is only ever touched by the thread owning this sequence.
+   */
+  @SuppressWarnings( "unused" )
+  private static final class Sequence extends AtomicLong {
+    private static final long serialVersionUID = 1L;
+
+    long cache;
+    private long p1, p2, p3, p4, p5, p6, p7;
+  }
+}
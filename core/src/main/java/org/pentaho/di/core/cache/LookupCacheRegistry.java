@@ -0,0 +1,159 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.pentaho.di.core.exception.KettleException;
+
+/**
+ * The named lookup caches shared by the steps of all transformations running in this JVM. Lookup steps attach to a
+ * cache by name, so that step copies and later runs of a transformation don't have to read the same rows from the
+ * database again.
+ * <p>
+ * The registry counts the steps attached to every cache. A cache without a time to live is dropped when the last step
+ * detaches from it. A cache with a time to live is kept after that, until all of its entries would have expired, so
+ * that the next run of a transformation can still use it.
+ * <p>
+ * The settings of a cache are those of the step that created it. Steps can only attach to a cache with the same
+ * layout: a description of the source, the keys and the values of the cache.
+ *
+ * @since 10.3
+ */
+public class LookupCacheRegistry {
+
+  private static final LookupCacheRegistry registry = new LookupCacheRegistry( System::nanoTime );
+
+  public static LookupCacheRegistry getInstance() {
+    return registry;
+  }
+
+  private final Map<String, SharedLookupCache> caches;
+  private final LongSupplier clock;
+
+  LookupCacheRegistry( LongSupplier clock ) {
+    this.caches = new HashMap<>();
+    this.clock = clock;
+  }
+
+  /**
+   * Attaches to a cache, creating it if it doesn't exist yet. Call {@link #detach(SharedLookupCache)} when done.
+   *
+   * @param name
+   *          the name of the cache
+   * @param layout
+   *          a description of the source, the keys and the values of the cache
+   * @param maxSize
+   *          the maximum number of entries of a new cache, 0 or less for no maximum
+   * @param timeToLiveMillis
+   *          how long the entries of a new cache are kept, 0 or less to keep them until the cache is dropped
+   * @return the cache
+   * @throws KettleException
+   *           in case the cache is used with another layout
+   */
+  public synchronized SharedLookupCache attach( String name, String layout, int maxSize, long timeToLiveMillis )
+    throws KettleException {
+    dropExpired();
+
+    SharedLookupCache cache = caches.get( name );
+    if ( cache != null && !cache.getLayout().equals( layout ) ) {
+      if ( cache.references > 0 ) {
+        throw new KettleException( "The shared lookup cache '" + name + "' is in use for other data: "
+          + cache.getLayout() );
+      }
+      drop( cache );
+      cache = null;
+    }
+    if ( cache == null ) {
+      cache = new SharedLookupCache( name, layout, maxSize, timeToLiveMillis, clock );
+      caches.put( name, cache );
+    }
+    cache.references++;
+    return cache;
+  }
+
+  /**
+   * Detaches from a cache, a step must not use the cache anymore afterwards.
+   *
+   * @param cache
+   *          the cache returned by {@link #attach(String, String, int, long)}
+   */
+  public synchronized void detach( SharedLookupCache cache ) {
+    if ( caches.get( cache.getName() ) != cache || --cache.references > 0 ) {
+      return;
+    }
+    if ( cache.getTimeToLiveMillis() > 0 ) {
+      cache.unusedSince = clock.getAsLong();
+    } else {
+      drop( cache );
+    }
+  }
+
+  /**
+   * Removes all the entries of a cache, for example because the source changed.
+   *
+   * @param name
+   *          the name of the cache
+   */
+  public synchronized void invalidate( String name ) {
+    SharedLookupCache cache = caches.get( name );
+    if ( cache != null ) {
+      cache.clear();
+      if ( cache.references <= 0 ) {
+        caches.remove( name );
+      }
+    }
+  }
+
+  /**
+   * @return the cache with the given name or null if there is none
+   */
+  public synchronized SharedLookupCache getCache( String name ) {
+    return caches.get( name );
+  }
+
+  /**
+   * @return the names of the caches, sorted
+   */
+  public synchronized List<String> getCacheNames() {
+    dropExpired();
+    List<String> names = new ArrayList<>( caches.keySet() );
+    Collections.sort( names );
+    return names;
+  }
+
+  private void drop( SharedLookupCache cache ) {
+    caches.remove( cache.getName() );
+    cache.clear();
+  }
+
+  /**
+   * Drops the caches nobody used since all of their entries expired.
+   */
+  private void dropExpired() {
+    for ( Iterator<SharedLookupCache> iterator = caches.values().iterator(); iterator.hasNext(); ) {
+      SharedLookupCache cache = iterator.next();
+      if ( cache.references <= 0 && cache.isExpiredSince( cache.unusedSince ) ) {
+        iterator.remove();
+        cache.clear();
+      }
+    }
+  }
+}
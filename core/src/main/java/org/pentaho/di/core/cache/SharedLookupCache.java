@@ -0,0 +1,255 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A lookup cache that is shared by the steps attached to it through the {@link LookupCacheRegistry}. Any number of
+ * threads can read and write it at the same time: reads never block.
+ * <p>
+ * Entries are evicted in the order they were stored, the way the private caches of the lookup steps do: the oldest
+ * ones go first when the cache holds more than its maximum number of entries, and entries older than the time to live
+ * are no longer returned. The keys must implement equals and hashCode, the values are handed out as they were stored
+ * and must not be modified.
+ * <p>
+ * A step that loaded all the rows of its source can mark the cache as complete, so that other steps know that a key
+ * that isn't in the cache doesn't exist. A cache stops being complete when an entry is evicted or expires.
+ *
+ * @since 10.3
+ */
+public class SharedLookupCache {
+
+  private final String name;
+  private final String layout;
+  private final int maxSize;
+  private final long timeToLiveNanos;
+  private final LongSupplier clock;
+
+  private final ConcurrentHashMap<Object, Entry> map;
+  /** The entries in the order they were stored, including some that were replaced or removed since */
+  private final ConcurrentLinkedQueue<Entry> order;
+  private final AtomicInteger queued;
+
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+
+  private volatile boolean complete;
+  private volatile long completeSince;
+
+  /** The number of steps attached, guarded by the registry */
+  int references;
+  /** When the last step was detached, guarded by the registry */
+  long unusedSince;
+
+  SharedLookupCache( String name, String layout, int maxSize, long timeToLiveMillis, LongSupplier clock ) {
+    this.name = name;
+    this.layout = layout;
+    this.maxSize = maxSize;
+    this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos( Math.max( 0L, timeToLiveMillis ) );
+    this.clock = clock;
+    this.map = new ConcurrentHashMap<>( maxSize > 0 ? (int) Math.min( maxSize * 1.5, 1 << 20 ) : 16 );
+    this.order = new ConcurrentLinkedQueue<>();
+    this.queued = new AtomicInteger();
+    this.hits = new AtomicLong();
+    this.misses = new AtomicLong();
+  }
+
+  /**
+   * @param key
+   *          the key
+   * @return the value stored for the key or null if the key isn't in the cache or its entry expired
+   */
+  public Object get( Object key ) {
+    Entry entry = map.get( key );
+    if ( entry != null ) {
+      if ( !isExpired( entry, clock.getAsLong() ) ) {
+        hits.incrementAndGet();
+        return entry.value;
+      }
+      evict( entry );
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Stores a value, replacing the value already stored for the key.
+   */
+  public void put( Object key, Object value ) {
+    Entry entry = new Entry( key, value, clock.getAsLong() );
+    Entry old = map.put( key, entry );
+    if ( old != null ) {
+      old.removed = true;
+    }
+    added( entry );
+  }
+
+  /**
+   * Stores a value unless the key is in the cache already.
+   *
+   * @return the value that was already stored for the key or null if the value was stored
+   */
+  public Object putIfAbsent( Object key, Object value ) {
+    long now = clock.getAsLong();
+    Entry entry = new Entry( key, value, now );
+    while ( true ) {
+      Entry old = map.putIfAbsent( key, entry );
+      if ( old == null ) {
+        added( entry );
+        return null;
+      }
+      if ( !isExpired( old, now ) ) {
+        return old.value;
+      }
+      evict( old );
+    }
+  }
+
+  public void remove( Object key ) {
+    Entry entry = map.remove( key );
+    if ( entry != null ) {
+      entry.removed = true;
+      complete = false;
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void clear() {
+    complete = false;
+    map.clear();
+    order.clear();
+    queued.set( 0 );
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  public boolean isEmpty() {
+    return map.isEmpty();
+  }
+
+  /**
+   * @return true if the cache holds all the rows of its source
+   */
+  public boolean isComplete() {
+    if ( !complete ) {
+      return false;
+    }
+    if ( timeToLiveNanos > 0 && clock.getAsLong() - completeSince >= timeToLiveNanos ) {
+      complete = false;
+    }
+    return complete;
+  }
+
+  /**
+   * @param complete
+   *          true if the cache holds all the rows of its source
+   */
+  public void setComplete( boolean complete ) {
+    this.completeSince = clock.getAsLong();
+    this.complete = complete;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return a description of the keys and values, steps with a different one can't attach to the cache
+   */
+  public String getLayout() {
+    return layout;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getTimeToLiveMillis() {
+    return TimeUnit.NANOSECONDS.toMillis( timeToLiveNanos );
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return true if all the entries stored before the given time have expired by now
+   */
+  boolean isExpiredSince( long since ) {
+    return timeToLiveNanos > 0 && clock.getAsLong() - since >= timeToLiveNanos;
+  }
+
+  private boolean isExpired( Entry entry, long now ) {
+    return timeToLiveNanos > 0 && now - entry.stored >= timeToLiveNanos;
+  }
+
+  private void evict( Entry entry ) {
+    if ( map.remove( entry.key, entry ) ) {
+      complete = false;
+    }
+    entry.removed = true;
+  }
+
+  /**
+   * Queues a new entry and evicts the oldest entries while there are too many or they expired.
+   */
+  private void added( Entry entry ) {
+    order.add( entry );
+    int nrQueued = queued.incrementAndGet();
+
+    long now = entry.stored;
+    for ( Entry oldest = order.peek(); oldest != null; oldest = order.peek() ) {
+      boolean stale = oldest.removed || isExpired( oldest, now ) || ( maxSize > 0 && map.size() > maxSize );
+      if ( !stale || !order.remove( oldest ) ) {
+        break;
+      }
+      nrQueued = queued.decrementAndGet();
+      evict( oldest );
+    }
+
+    // Replaced entries stay in the queue until they are the oldest, don't let them pile up
+    //
+    if ( nrQueued > 2 * map.size() + 1024 ) {
+      order.removeIf( e -> e.removed );
+      queued.set( order.size() );
+    }
+  }
+
+  private static final class Entry {
+    final Object key;
+    final Object value;
+    final long stored;
+    volatile boolean removed;
+
+    Entry( Object key, Object value, long stored ) {
+      this.key = key;
+      this.value = value;
+      this.stored = stored;
+    }
+  }
+}
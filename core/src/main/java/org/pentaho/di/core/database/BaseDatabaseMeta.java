@@ -1945,6 +1945,26 @@ public abstract class BaseDatabaseMeta implements Cloneable, DatabaseInterfaceEx
     return true;
   }
 
+  /**
+   * Appends the placeholders of a multi-row VALUES list: (?, ?), (?, ?), ...
+   *
+   * @param sql
+   *          The statement to append to
+   * @param nrColumns
+   *          The number of columns of a row
+   * @param nrRows
+   *          The number of rows
+   */
+  protected void appendRowPlaceholders( StringBuilder sql, int nrColumns, int nrRows ) {
+    for ( int r = 0; r < nrRows; r++ ) {
+      sql.append( r == 0 ? "(" : ", (" );
+      for ( int i = 0; i < nrColumns; i++ ) {
+        sql.append( i == 0 ? "?" : ", ?" );
+      }
+      sql.append( ')' );
+    }
+  }
+
   /**
    * @return true if the database is a MySQL variant, like MySQL 5.1, InfiniDB, InfoBright, and so on.
    */
@@ -3109,13 +3109,13 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
   }
 
   public Object[] getLookup( PreparedStatement ps ) throws KettleDatabaseException {
-    // we assume this is external PreparedStatement and we may need to re-create rowMeta
-    // so we just reset it to null and it will be re-created on processRow call
-    rowMeta = null;
     return getLookup( ps, false );
   }
 
   public Object[] getLookup( PreparedStatement ps, boolean failOnMultipleResults ) throws KettleDatabaseException {
+    // we assume this is external PreparedStatement and we may need to re-create rowMeta
+    // so we just reset it to null and it will be re-created on processRow call
+    rowMeta = null;
     return getLookup( ps, failOnMultipleResults, false );
   }
 
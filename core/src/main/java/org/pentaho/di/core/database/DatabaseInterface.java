@@ -1253,6 +1253,49 @@ public interface DatabaseInterface extends Cloneable {
     return "";
   }
 
+  /**
+   * @return the maximum number of rows in a single INSERT ... VALUES (...), (...) statement, 1 if the database only
+   *         inserts one row per statement
+   */
+  default int getMaxInsertRowsPerStatement() {
+    return 1;
+  }
+
+  /**
+   * @return the maximum number of parameters in a prepared statement
+   */
+  default int getMaxStatementParameters() {
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * @return true if rows can be streamed in with COPY ... FROM STDIN through the copy API of the PostgreSQL driver
+   */
+  default boolean supportsCopyFromStdin() {
+    return false;
+  }
+
+  /**
+   * Get the SQL to insert several rows at once, updating the existing rows with the same key instead of inserting
+   * them. The parameters are the values of the insert columns, row after row.
+   *
+   * @param schemaTable
+   *          The quoted schema and table name
+   * @param keyColumns
+   *          The quoted key columns, all of them are insert columns as well
+   * @param insertColumns
+   *          The quoted columns of the inserted rows
+   * @param updateColumns
+   *          The quoted columns to update in the existing rows, none to leave the existing rows alone
+   * @param nrRows
+   *          The number of rows of the statement
+   * @return the SQL or null if the database can't insert or update the rows in a single statement this way
+   */
+  default String getSQLUpsert( String schemaTable, String[] keyColumns, String[] insertColumns,
+                               String[] updateColumns, int nrRows ) {
+    return null;
+  }
+
   /**
    * Allows to get the column name for JDBC drivers with different behavior for aliases depending on the connector version.
    *
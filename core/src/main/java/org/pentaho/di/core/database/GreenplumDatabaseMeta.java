@@ -37,4 +37,13 @@ public class GreenplumDatabaseMeta extends PostgreSQLDatabaseMeta implements Dat
   public boolean supportsErrorHandlingOnBatchUpdates() {
     return false;
   }
+
+  /**
+   * INSERT ... ON CONFLICT is only available as of Greenplum 7.
+   */
+  @Override
+  public String getSQLUpsert( String schemaTable, String[] keyColumns, String[] insertColumns,
+                              String[] updateColumns, int nrRows ) {
+    return null;
+  }
 }
@@ -267,4 +267,30 @@ public class H2DatabaseMeta extends BaseDatabaseMeta implements DatabaseInterfac
     return false;
   }
 
+  @Override
+  public int getMaxInsertRowsPerStatement() {
+    return 1000;
+  }
+
+  /**
+   * MERGE ... KEY updates all the columns that aren't keys, other columns to update aren't possible.
+   */
+  @Override
+  public String getSQLUpsert( String schemaTable, String[] keyColumns, String[] insertColumns,
+                              String[] updateColumns, int nrRows ) {
+    if ( updateColumns.length + keyColumns.length != insertColumns.length ) {
+      return null;
+    }
+    for ( String updateColumn : updateColumns ) {
+      if ( Const.indexOfString( updateColumn, keyColumns ) >= 0 ) {
+        return null;
+      }
+    }
+    StringBuilder sql = new StringBuilder( "MERGE INTO " ).append( schemaTable );
+    sql.append( " (" ).append( String.join( ", ", insertColumns ) ).append( ") KEY (" );
+    sql.append( String.join( ", ", keyColumns ) ).append( ") VALUES " );
+    appendRowPlaceholders( sql, insertColumns.length, nrRows );
+    return sql.toString();
+  }
+
 }
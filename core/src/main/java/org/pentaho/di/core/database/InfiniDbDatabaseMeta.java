@@ -17,4 +17,12 @@ public class InfiniDbDatabaseMeta extends MySQLDatabaseMeta implements DatabaseI
 
   // Only has a different ID to catch exceptions here and there.
 
+  /**
+   * There are no unique keys to detect duplicates with.
+   */
+  @Override
+  public String getSQLUpsert( String schemaTable, String[] keyColumns, String[] insertColumns,
+                              String[] updateColumns, int nrRows ) {
+    return null;
+  }
 }
@@ -28,4 +28,13 @@ public class InfobrightDatabaseMeta extends MySQLDatabaseMeta implements Databas
     addExtraOption( getPluginId(), "characterEncoding", "UTF-8" );
   }
 
+  /**
+   * There are no unique keys to detect duplicates with.
+   */
+  @Override
+  public String getSQLUpsert( String schemaTable, String[] keyColumns, String[] insertColumns,
+                              String[] updateColumns, int nrRows ) {
+    return null;
+  }
+
 }
@@ -518,6 +518,55 @@ public class MSSQLServerDatabaseMeta extends BaseDatabaseMeta implements Databas
     return true;
   }
 
+  /**
+   * A table value constructor takes up to 1000 rows.
+   */
+  @Override
+  public int getMaxInsertRowsPerStatement() {
+    return 1000;
+  }
+
+  /**
+   * The limit is 2100, the driver can use a few parameters of its own.
+   */
+  @Override
+  public int getMaxStatementParameters() {
+    return 2000;
+  }
+
+  @Override
+  public String getSQLUpsert( String schemaTable, String[] keyColumns, String[] insertColumns,
+                              String[] updateColumns, int nrRows ) {
+    StringBuilder sql = new StringBuilder( "MERGE INTO " ).append( schemaTable ).append( " AS t USING (VALUES " );
+    appendRowPlaceholders( sql, insertColumns.length, nrRows );
+    sql.append( ") AS s (" ).append( String.join( ", ", insertColumns ) ).append( ") ON " );
+    for ( int i = 0; i < keyColumns.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( " AND " );
+      }
+      sql.append( "t." ).append( keyColumns[i] ).append( " = s." ).append( keyColumns[i] );
+    }
+    if ( updateColumns.length > 0 ) {
+      sql.append( " WHEN MATCHED THEN UPDATE SET " );
+      for ( int i = 0; i < updateColumns.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( "t." ).append( updateColumns[i] ).append( " = s." ).append( updateColumns[i] );
+      }
+    }
+    sql.append( " WHEN NOT MATCHED THEN INSERT (" ).append( String.join( ", ", insertColumns ) ).append( ") VALUES (" );
+    for ( int i = 0; i < insertColumns.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( "s." ).append( insertColumns[i] );
+    }
+    // A MERGE statement has to be terminated by a semicolon
+    sql.append( ");" );
+    return sql.toString();
+  }
+
   @Override
   public int getMaxVARCHARLength() {
     return 8000;
@@ -466,6 +466,40 @@ public class MySQLDatabaseMeta extends BaseDatabaseMeta implements DatabaseInter
     return true;
   }
 
+  /**
+   * The rows are limited to keep a statement well below the default max_allowed_packet.
+   */
+  @Override public int getMaxInsertRowsPerStatement() {
+    return 1000;
+  }
+
+  @Override public int getMaxStatementParameters() {
+    return 65535;
+  }
+
+  /**
+   * ON DUPLICATE KEY UPDATE works on the primary key and every unique index of the table, not just the key columns.
+   * Without columns to update, a key is assigned to itself to leave the existing row alone.
+   */
+  @Override public String getSQLUpsert( String schemaTable, String[] keyColumns, String[] insertColumns,
+                                        String[] updateColumns, int nrRows ) {
+    StringBuilder sql = new StringBuilder( "INSERT INTO " ).append( schemaTable );
+    sql.append( " (" ).append( String.join( ", ", insertColumns ) ).append( ") VALUES " );
+    appendRowPlaceholders( sql, insertColumns.length, nrRows );
+    sql.append( " ON DUPLICATE KEY UPDATE " );
+    if ( updateColumns.length == 0 ) {
+      sql.append( keyColumns[0] ).append( " = " ).append( keyColumns[0] );
+    } else {
+      for ( int i = 0; i < updateColumns.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( updateColumns[i] ).append( " = VALUES(" ).append( updateColumns[i] ).append( ')' );
+      }
+    }
+    return sql.toString();
+  }
+
   @Override public boolean isRequiringTransactionsOnQueries() {
     return false;
   }
@@ -513,6 +513,48 @@ public class PostgreSQLDatabaseMeta extends BaseDatabaseMeta implements Database
     return false;
   }
 
+  @Override
+  public int getMaxInsertRowsPerStatement() {
+    return 1000;
+  }
+
+  /**
+   * The number of parameters is sent as a 16 bit value.
+   */
+  @Override
+  public int getMaxStatementParameters() {
+    return 32767;
+  }
+
+  @Override
+  public boolean supportsCopyFromStdin() {
+    return true;
+  }
+
+  /**
+   * INSERT ... ON CONFLICT needs a unique index or constraint on the key columns.
+   */
+  @Override
+  public String getSQLUpsert( String schemaTable, String[] keyColumns, String[] insertColumns,
+                              String[] updateColumns, int nrRows ) {
+    StringBuilder sql = new StringBuilder( "INSERT INTO " ).append( schemaTable );
+    sql.append( " (" ).append( String.join( ", ", insertColumns ) ).append( ") VALUES " );
+    appendRowPlaceholders( sql, insertColumns.length, nrRows );
+    sql.append( " ON CONFLICT (" ).append( String.join( ", ", keyColumns ) ).append( ')' );
+    if ( updateColumns.length == 0 ) {
+      sql.append( " DO NOTHING" );
+    } else {
+      sql.append( " DO UPDATE SET " );
+      for ( int i = 0; i < updateColumns.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( updateColumns[i] ).append( " = EXCLUDED." ).append( updateColumns[i] );
+      }
+    }
+    return sql.toString();
+  }
+
   /**
    * PG needs the extra E in front of the string before it allows you to quote it. Imagine that.
    *
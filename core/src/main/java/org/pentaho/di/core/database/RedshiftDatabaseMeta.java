@@ -131,6 +131,23 @@ public class RedshiftDatabaseMeta extends PostgreSQLDatabaseMeta {
     return "redshift";
   }
 
+  /**
+   * Redshift only copies from files in S3 and the like, not from the client.
+   */
+  @Override
+  public boolean supportsCopyFromStdin() {
+    return false;
+  }
+
+  /**
+   * Redshift has no INSERT ... ON CONFLICT.
+   */
+  @Override
+  public String getSQLUpsert( String schemaTable, String[] keyColumns, String[] insertColumns,
+                              String[] updateColumns, int nrRows ) {
+    return null;
+  }
+
   private String getParamIfSet( String param, String val ) {
     if ( !isEmpty( val ) ) {
       return "&" + param + "=" + val;
@@ -0,0 +1,374 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.CompactRowSerializer;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A hash map from row keys to rows that keeps its data outside of the Java heap, so that large lookup tables don't
+ * need large heaps and don't weigh on the garbage collector. The keys are serialized to normalized bytes, the same way
+ * as in a {@link RowKeyHashIndex}, so keys that compare as equal are the same key. The values are encoded with a
+ * {@link CompactRowSerializer}.
+ * <p>
+ * Every entry is stored as a record: the hash code of the key, the lengths of the key and the value as varints, and
+ * the bytes of both. The records are appended to segments of at most 64MB. The slots of the open addressing table are
+ * longs holding the address of a record and the top bits of the hash of its key, so that most collisions are resolved
+ * without reading the record. The segments and the table are allocated in direct memory up to a limit. After that
+ * they are mapped from a temporary file, leaving it to the operating system to decide what stays in memory.
+ * <p>
+ * Putting a key that is already in the map replaces its value; the old record stays in place, unused. This class is
+ * not thread safe.
+ *
+ * @since 10.3
+ */
+public class OffHeapRowMap implements Closeable {
+
+  static final int SEGMENT_SHIFT = 26;
+  private static final int OFFSET_MASK = ( 1 << SEGMENT_SHIFT ) - 1;
+  private static final int FIRST_SEGMENT_SIZE = 1 << 20;
+  /** A slot holds the address + 1 in its lower 40 bits, the segment number must leave room for the + 1 */
+  private static final int MAX_SEGMENTS = ( 1 << ( 40 - SEGMENT_SHIFT ) ) - 1;
+  private static final long ADDRESS_MASK = ( 1L << 40 ) - 1;
+  private static final long TAG_MASK = ~ADDRESS_MASK;
+
+  private static final int STANDARD_INDEX_SIZE = 1 << 12;
+  private static final int MAX_INDEX_SIZE = 1 << 27;
+  private static final float LOAD_FACTOR = 0.6f;
+
+  private final RowKeySerializer keySerializer;
+  private final CompactRowSerializer valueSerializer;
+  private final long maxDirectBytes;
+  private final String spillDirectory;
+  private final int segmentSize;
+
+  private LongBuffer slots;
+  private boolean directSlots;
+  private int mask;
+  private int resizeThreshold;
+  private long size;
+
+  private ByteBuffer[] segments = new ByteBuffer[16];
+  private int nrSegments;
+  private int segmentOffset;
+
+  private long directBytes;
+  private long mappedBytes;
+  private Path spillFile;
+  private FileChannel spillChannel;
+
+  private byte[] valueBytes = new byte[256];
+
+  /**
+   * @param keyMeta
+   *          the layout of the keys
+   * @param valueMeta
+   *          the layout of the values
+   * @param maxDirectBytes
+   *          the number of bytes to allocate in direct memory before mapping memory from a file
+   * @param spillDirectory
+   *          the directory of the file or null for the default temporary directory
+   */
+  public OffHeapRowMap( RowMetaInterface keyMeta, RowMetaInterface valueMeta, long maxDirectBytes,
+    String spillDirectory ) throws KettleException {
+    this( keyMeta, valueMeta, maxDirectBytes, spillDirectory, 1 << SEGMENT_SHIFT );
+  }
+
+  OffHeapRowMap( RowMetaInterface keyMeta, RowMetaInterface valueMeta, long maxDirectBytes,
+    String spillDirectory, int segmentSize ) throws KettleException {
+    this.keySerializer = new RowKeySerializer( keyMeta, null );
+    this.valueSerializer = new CompactRowSerializer( valueMeta );
+    this.maxDirectBytes = maxDirectBytes;
+    this.spillDirectory = spillDirectory;
+    this.segmentSize = Math.min( segmentSize, 1 << SEGMENT_SHIFT );
+    allocateSlots( STANDARD_INDEX_SIZE );
+  }
+
+  /**
+   * Adds a key and its value, replacing the value if the key is already in the map.
+   *
+   * @param key
+   *          the row holding the key fields
+   * @param value
+   *          the row holding the value fields
+   */
+  public void put( Object[] key, Object[] value ) throws KettleException {
+    keySerializer.serialize( key );
+    long hash = keySerializer.hash();
+    int slot = findSlot( hash );
+    long entry = slots.get( slot );
+    if ( entry == 0 && size >= resizeThreshold && mask + 1 >= MAX_INDEX_SIZE ) {
+      throw new KettleValueException( "Unable to store more than " + size + " keys" );
+    }
+
+    int valueLength = valueSerializer.encode( value );
+    long address = storeRecord( (int) hash, valueLength );
+    slots.put( slot, ( hash & TAG_MASK ) | ( address + 1 ) );
+    if ( entry == 0 && ++size > resizeThreshold ) {
+      resize();
+    }
+  }
+
+  /**
+   * @param key
+   *          the row holding the key fields
+   * @return the value of the key or null if the key isn't in the map
+   */
+  public Object[] get( Object[] key ) throws KettleException {
+    if ( size == 0 ) {
+      return null;
+    }
+    keySerializer.serialize( key );
+    long entry = slots.get( findSlot( keySerializer.hash() ) );
+    if ( entry == 0 ) {
+      return null;
+    }
+
+    ByteBuffer segment = moveToRecord( ( entry & ADDRESS_MASK ) - 1 );
+    int keyLength = getVarInt( segment );
+    int valueLength = getVarInt( segment );
+    segment.position( segment.position() + keyLength );
+    if ( valueLength > valueBytes.length ) {
+      valueBytes = new byte[Math.max( valueLength, valueBytes.length * 2 )];
+    }
+    segment.get( valueBytes, 0, valueLength );
+    return valueSerializer.decode( valueBytes, 0, valueLength );
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return the number of bytes allocated in direct memory
+   */
+  public long getDirectBytes() {
+    return directBytes;
+  }
+
+  /**
+   * @return the number of bytes mapped from the file
+   */
+  public long getMappedBytes() {
+    return mappedBytes;
+  }
+
+  /**
+   * Releases the memory and deletes the file. The map can't be used anymore afterwards.
+   */
+  @Override
+  public void close() {
+    slots = null;
+    Arrays.fill( segments, 0, nrSegments, null );
+    nrSegments = 0;
+    size = 0;
+    directBytes = 0;
+    mappedBytes = 0;
+    if ( spillChannel != null ) {
+      try {
+        spillChannel.close();
+        Files.deleteIfExists( spillFile );
+      } catch ( IOException e ) {
+        // The file is deleted on exit when it's still mapped and the platform doesn't allow to delete it now
+      }
+      spillChannel = null;
+    }
+  }
+
+  /**
+   * @return the slot holding the serialized key or the empty slot where it goes
+   */
+  private int findSlot( long hash ) {
+    long tag = hash & TAG_MASK;
+    for ( int slot = (int) hash & mask;; slot = ( slot + 1 ) & mask ) {
+      long entry = slots.get( slot );
+      if ( entry == 0 || ( ( entry & TAG_MASK ) == tag && equalsKey( ( entry & ADDRESS_MASK ) - 1 ) ) ) {
+        return slot;
+      }
+    }
+  }
+
+  private boolean equalsKey( long address ) {
+    ByteBuffer segment = moveToRecord( address );
+    int length = keySerializer.length;
+    if ( getVarInt( segment ) != length ) {
+      return false;
+    }
+    getVarInt( segment );
+    int position = segment.position();
+    byte[] key = keySerializer.buffer;
+    for ( int i = 0; i < length; i++ ) {
+      if ( segment.get( position + i ) != key[i] ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the segment of the record, positioned after the hash code
+   */
+  private ByteBuffer moveToRecord( long address ) {
+    ByteBuffer segment = segments[(int) ( address >>> SEGMENT_SHIFT )];
+    segment.position( ( (int) address & OFFSET_MASK ) + 4 );
+    return segment;
+  }
+
+  /**
+   * Appends a record with the serialized key and value.
+   *
+   * @return the address of the record
+   */
+  private long storeRecord( int hash, int valueLength ) throws KettleException {
+    int keyLength = keySerializer.length;
+    long recordLength = 4L + varIntSize( keyLength ) + varIntSize( valueLength ) + keyLength + valueLength;
+    if ( recordLength > segmentSize ) {
+      throw new KettleValueException( "Unable to store a key and value of " + recordLength + " bytes" );
+    }
+    if ( nrSegments == 0 || segmentOffset + recordLength > segments[nrSegments - 1].capacity() ) {
+      addSegment( (int) recordLength );
+    }
+
+    ByteBuffer segment = segments[nrSegments - 1];
+    segment.position( segmentOffset );
+    segment.putInt( hash );
+    putVarInt( segment, keyLength );
+    putVarInt( segment, valueLength );
+    segment.put( keySerializer.buffer, 0, keyLength );
+    segment.put( valueSerializer.getBuffer(), 0, valueLength );
+
+    long address = ( (long) ( nrSegments - 1 ) << SEGMENT_SHIFT ) | segmentOffset;
+    segmentOffset += (int) recordLength;
+    return address;
+  }
+
+  /**
+   * Adds a segment, twice the size of the last one up to the maximum size, so that small maps stay small.
+   */
+  private void addSegment( int recordLength ) throws KettleException {
+    if ( nrSegments == MAX_SEGMENTS ) {
+      throw new KettleValueException( "Unable to store more than " + size + " keys" );
+    }
+    int capacity = nrSegments == 0 ? FIRST_SEGMENT_SIZE : segments[nrSegments - 1].capacity() * 2;
+    capacity = Math.max( recordLength, Math.min( capacity, segmentSize ) );
+    if ( nrSegments == segments.length ) {
+      segments = Arrays.copyOf( segments, nrSegments * 2 );
+    }
+    segments[nrSegments++] = allocate( capacity );
+    segmentOffset = 0;
+  }
+
+  private void resize() throws KettleException {
+    LongBuffer oldSlots = slots;
+    boolean oldDirectSlots = directSlots;
+    allocateSlots( ( mask + 1 ) * 2 );
+    for ( int i = 0; i < oldSlots.capacity(); i++ ) {
+      long entry = oldSlots.get( i );
+      if ( entry == 0 ) {
+        continue;
+      }
+      long address = ( entry & ADDRESS_MASK ) - 1;
+      int hash = segments[(int) ( address >>> SEGMENT_SHIFT )].getInt( (int) address & OFFSET_MASK );
+      int slot = hash & mask;
+      while ( slots.get( slot ) != 0 ) {
+        slot = ( slot + 1 ) & mask;
+      }
+      slots.put( slot, entry );
+    }
+    if ( oldDirectSlots ) {
+      // Not released until it's garbage collected, but it no longer counts
+      directBytes -= oldSlots.capacity() * 8L;
+    }
+  }
+
+  private void allocateSlots( int nrSlots ) throws KettleException {
+    long before = directBytes;
+    slots = allocate( nrSlots * 8 ).order( ByteOrder.nativeOrder() ).asLongBuffer();
+    directSlots = directBytes > before;
+    mask = nrSlots - 1;
+    resizeThreshold = (int) ( nrSlots * LOAD_FACTOR );
+  }
+
+  /**
+   * Allocates zeroed memory: direct memory while there's room for it, mapped from the file after that.
+   */
+  private ByteBuffer allocate( int capacity ) throws KettleException {
+    if ( directBytes + capacity <= maxDirectBytes ) {
+      directBytes += capacity;
+      return ByteBuffer.allocateDirect( capacity );
+    }
+    try {
+      if ( spillChannel == null ) {
+        spillFile = spillDirectory == null
+          ? Files.createTempFile( "kettle-lookup-", ".tmp" )
+          : Files.createTempFile( Paths.get( spillDirectory ), "kettle-lookup-", ".tmp" );
+        spillFile.toFile().deleteOnExit();
+        spillChannel = FileChannel.open( spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE );
+      }
+      MappedByteBuffer buffer = spillChannel.map( FileChannel.MapMode.READ_WRITE, mappedBytes, capacity );
+      mappedBytes += capacity;
+      return buffer;
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to map " + capacity + " bytes from a temporary file", e );
+    }
+  }
+
+  private static void putVarInt( ByteBuffer buffer, int value ) {
+    while ( ( value & ~0x7F ) != 0 ) {
+      buffer.put( (byte) ( ( value & 0x7F ) | 0x80 ) );
+      value >>>= 7;
+    }
+    buffer.put( (byte) value );
+  }
+
+  private static int getVarInt( ByteBuffer buffer ) {
+    int value = 0;
+    for ( int shift = 0;; shift += 7 ) {
+      byte b = buffer.get();
+      value |= ( b & 0x7F ) << shift;
+      if ( b >= 0 ) {
+        return value;
+      }
+    }
+  }
+
+  private static int varIntSize( int value ) {
+    int size = 1;
+    while ( ( value & ~0x7F ) != 0 ) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+}
@@ -0,0 +1,322 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import java.util.Arrays;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * A hash index of row keys that doesn't keep any object per key. Every distinct key gets a number, counting from 0 in
+ * the order the keys are added, so that the caller can keep whatever it needs per key in lists or arrays.
+ * <p>
+ * A single Integer or Date key is stored as a primitive long. Other keys are serialized to normalized bytes which are
+ * stored back to back in large pages. Keys that compare as equal get the same bytes: strings are trimmed when
+ * whitespace is ignored, folded when they are case insensitive and turned into collation keys when a collator is used,
+ * trailing zeros are removed from big numbers, and so on. The slots of the open addressing table only hold key numbers,
+ * the hash codes are kept per key so that growing the table doesn't hash the keys again.
+ * <p>
+ * When the keys aren't stored, a key is represented by a 64 bit hash of its normalized bytes. Two different keys with
+ * the same hash are then taken to be the same key, which is very unlikely but not impossible.
+ *
+ * @since 10.3
+ */
+public class RowKeyHashIndex {
+
+  private static final int STANDARD_INDEX_SIZE = 512;
+  private static final float STANDARD_LOAD_FACTOR = 0.7f;
+  private static final int STANDARD_KEY_CAPACITY = 256;
+  private static final int PAGE_SIZE = 1 << 20;
+
+  private final RowKeySerializer serializer;
+  private final ValueMetaInterface[] valueMetas;
+  private final int[] keyIndexes;
+
+  /** True if the keys are represented by a long: the key itself or the hash of the key */
+  private final boolean longKeys;
+  /** True if the long is the key itself, a single Integer or Date */
+  private final boolean exactLongKeys;
+
+  /** Per slot: the key number + 1, 0 for an empty slot */
+  private int[] slots;
+  private int resizeThresHold;
+  private int size;
+
+  /** Per key number: the long key */
+  private long[] longs;
+  /** The number of the null key for exact long keys, -1 if there is none */
+  private int nullKey = -1;
+
+  /** Per key number: the hash code, the page and offset of the bytes and the number of bytes */
+  private int[] hashes;
+  private long[] addresses;
+  private int[] lengths;
+  private byte[][] pages = new byte[16][];
+  private int nrPages;
+  private int pageOffset;
+
+  /**
+   * Create an index storing the keys
+   *
+   * @param keyMeta
+   *          the layout of the keys
+   */
+  public RowKeyHashIndex( RowMetaInterface keyMeta ) {
+    this( keyMeta, null, true );
+  }
+
+  /**
+   * Create an index of keys taken from rows
+   *
+   * @param keyMeta
+   *          the layout of the key fields
+   * @param keyIndexes
+   *          the indexes of the key fields in the rows passed in or null if the rows only hold the key fields
+   * @param storeKeys
+   *          false to only keep a 64 bit hash of every key
+   */
+  public RowKeyHashIndex( RowMetaInterface keyMeta, int[] keyIndexes, boolean storeKeys ) {
+    serializer = new RowKeySerializer( keyMeta, keyIndexes );
+    valueMetas = serializer.valueMetas;
+    this.keyIndexes = serializer.keyIndexes;
+    int nrFields = valueMetas.length;
+
+    exactLongKeys = nrFields == 1 && ( valueMetas[0].getType() == ValueMetaInterface.TYPE_INTEGER
+      || valueMetas[0].getType() == ValueMetaInterface.TYPE_DATE );
+    longKeys = exactLongKeys || !storeKeys;
+
+    slots = new int[STANDARD_INDEX_SIZE];
+    resizeThresHold = (int) ( STANDARD_INDEX_SIZE * STANDARD_LOAD_FACTOR );
+    if ( longKeys ) {
+      longs = new long[STANDARD_KEY_CAPACITY];
+    } else {
+      hashes = new int[STANDARD_KEY_CAPACITY];
+      addresses = new long[STANDARD_KEY_CAPACITY];
+      lengths = new int[STANDARD_KEY_CAPACITY];
+    }
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @param row
+   *          the row holding the key fields
+   * @return the number of the key or -1 if the key isn't in the index
+   */
+  public int get( Object[] row ) throws KettleValueException {
+    if ( longKeys ) {
+      if ( exactLongKeys && isNullKey( row ) ) {
+        return nullKey;
+      }
+      long key = toLong( row );
+      int mask = slots.length - 1;
+      for ( int slot = hashCode( key ) & mask;; slot = ( slot + 1 ) & mask ) {
+        int number = slots[slot] - 1;
+        if ( number < 0 || longs[number] == key ) {
+          return number;
+        }
+      }
+    }
+
+    serializer.serialize( row );
+    int hashCode = hashCode( serializer.hash() );
+    int mask = slots.length - 1;
+    for ( int slot = hashCode & mask;; slot = ( slot + 1 ) & mask ) {
+      int number = slots[slot] - 1;
+      if ( number < 0 || ( hashes[number] == hashCode && equalsKey( number ) ) ) {
+        return number;
+      }
+    }
+  }
+
+  /**
+   * Adds the key of a row if it isn't in the index yet. A new key gets the number {@link #getSize()} had before.
+   *
+   * @param row
+   *          the row holding the key fields
+   * @return the number of the key
+   */
+  public int add( Object[] row ) throws KettleValueException {
+    if ( longKeys ) {
+      if ( exactLongKeys && isNullKey( row ) ) {
+        if ( nullKey < 0 ) {
+          ensureKeyCapacity();
+          nullKey = size++;
+        }
+        return nullKey;
+      }
+      long key = toLong( row );
+      int mask = slots.length - 1;
+      int slot = hashCode( key ) & mask;
+      for ( int number = slots[slot] - 1; number >= 0; number = slots[slot] - 1 ) {
+        if ( longs[number] == key ) {
+          return number;
+        }
+        slot = ( slot + 1 ) & mask;
+      }
+      ensureKeyCapacity();
+      longs[size] = key;
+      return addToSlot( slot );
+    }
+
+    serializer.serialize( row );
+    int hashCode = hashCode( serializer.hash() );
+    int mask = slots.length - 1;
+    int slot = hashCode & mask;
+    for ( int number = slots[slot] - 1; number >= 0; number = slots[slot] - 1 ) {
+      if ( hashes[number] == hashCode && equalsKey( number ) ) {
+        return number;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+    ensureKeyCapacity();
+    hashes[size] = hashCode;
+    addresses[size] = storeKey();
+    lengths[size] = serializer.length;
+    return addToSlot( slot );
+  }
+
+  /**
+   * Calculates the hash code of the key of a row. Keys that are the same in this index have the same hash code.
+   *
+   * @param row
+   *          the row holding the key fields
+   * @return the hash code
+   */
+  public int getHashCode( Object[] row ) throws KettleValueException {
+    if ( exactLongKeys && isNullKey( row ) ) {
+      return 0;
+    }
+    if ( longKeys ) {
+      return hashCode( toLong( row ) );
+    }
+    serializer.serialize( row );
+    return hashCode( serializer.hash() );
+  }
+
+  /**
+   * Removes all keys. The table keeps its size, the pages holding the key bytes are released.
+   */
+  public void clear() {
+    Arrays.fill( slots, 0 );
+    size = 0;
+    nullKey = -1;
+    Arrays.fill( pages, 0, nrPages, null );
+    nrPages = 0;
+    pageOffset = 0;
+  }
+
+  private int addToSlot( int slot ) {
+    int number = size++;
+    slots[slot] = number + 1;
+    if ( size >= resizeThresHold ) {
+      resize();
+    }
+    return number;
+  }
+
+  private void resize() {
+    int newSize = slots.length * 2;
+    int mask = newSize - 1;
+    int[] newSlots = new int[newSize];
+    for ( int number = 0; number < size; number++ ) {
+      if ( number == nullKey ) {
+        continue;
+      }
+      int slot = ( longKeys ? hashCode( longs[number] ) : hashes[number] ) & mask;
+      while ( newSlots[slot] != 0 ) {
+        slot = ( slot + 1 ) & mask;
+      }
+      newSlots[slot] = number + 1;
+    }
+    slots = newSlots;
+    resizeThresHold = (int) ( newSize * STANDARD_LOAD_FACTOR );
+  }
+
+  private void ensureKeyCapacity() {
+    int capacity = longKeys ? longs.length : hashes.length;
+    if ( size < capacity ) {
+      return;
+    }
+    int newCapacity = capacity * 2;
+    if ( longKeys ) {
+      longs = Arrays.copyOf( longs, newCapacity );
+    } else {
+      hashes = Arrays.copyOf( hashes, newCapacity );
+      addresses = Arrays.copyOf( addresses, newCapacity );
+      lengths = Arrays.copyOf( lengths, newCapacity );
+    }
+  }
+
+  /**
+   * Copies the serialized key to the pages.
+   *
+   * @return the page and offset the key was copied to
+   */
+  private long storeKey() {
+    int length = serializer.length;
+    if ( nrPages == 0 || pageOffset + length > pages[nrPages - 1].length ) {
+      if ( nrPages == pages.length ) {
+        pages = Arrays.copyOf( pages, nrPages * 2 );
+      }
+      pages[nrPages++] = new byte[Math.max( PAGE_SIZE, length )];
+      pageOffset = 0;
+    }
+    int page = nrPages - 1;
+    System.arraycopy( serializer.buffer, 0, pages[page], pageOffset, length );
+    long address = ( (long) page << 32 ) | pageOffset;
+    pageOffset += length;
+    return address;
+  }
+
+  private boolean equalsKey( int number ) {
+    int length = serializer.length;
+    if ( lengths[number] != length ) {
+      return false;
+    }
+    long address = addresses[number];
+    int offset = (int) address;
+    return Arrays.equals( pages[(int) ( address >>> 32 )], offset, offset + length, serializer.buffer, 0, length );
+  }
+
+  private boolean isNullKey( Object[] row ) throws KettleValueException {
+    return valueMetas[0].isNull( row[keyIndexes[0]] );
+  }
+
+  private long toLong( Object[] row ) throws KettleValueException {
+    if ( exactLongKeys ) {
+      ValueMetaInterface valueMeta = valueMetas[0];
+      Object value = row[keyIndexes[0]];
+      if ( valueMeta.getType() == ValueMetaInterface.TYPE_INTEGER ) {
+        return valueMeta.getInteger( value );
+      }
+      return valueMeta.getDate( value ).getTime();
+    }
+    serializer.serialize( row );
+    return serializer.hash();
+  }
+
+  private static int hashCode( long key ) {
+    long h = RowKeySerializer.mix( key );
+    return (int) ( h ^ ( h >>> 32 ) );
+  }
+}
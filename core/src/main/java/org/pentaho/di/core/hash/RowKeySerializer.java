@@ -0,0 +1,244 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Serializes the key fields of rows to normalized bytes: keys that compare as equal get the same bytes. Strings are
+ * trimmed when whitespace is ignored, folded when they are case insensitive and turned into collation keys when a
+ * collator is used, trailing zeros are removed from big numbers, and so on. The bytes of the last key serialized are
+ * kept in a buffer that is reused for the next key.
+ *
+ * @since 10.3
+ */
+final class RowKeySerializer {
+
+  final ValueMetaInterface[] valueMetas;
+  final int[] keyIndexes;
+  private final Collator[] collators;
+
+  /** The last key serialized */
+  byte[] buffer = new byte[256];
+  int length;
+
+  /**
+   * @param keyMeta
+   *          the layout of the key fields
+   * @param keyIndexes
+   *          the indexes of the key fields in the rows passed in or null if the rows only hold the key fields
+   */
+  RowKeySerializer( RowMetaInterface keyMeta, int[] keyIndexes ) {
+    int nrFields = keyMeta.size();
+    this.valueMetas = new ValueMetaInterface[nrFields];
+    this.keyIndexes = new int[nrFields];
+    this.collators = new Collator[nrFields];
+    for ( int i = 0; i < nrFields; i++ ) {
+      ValueMetaInterface valueMeta = keyMeta.getValueMeta( i );
+      valueMetas[i] = valueMeta;
+      this.keyIndexes[i] = keyIndexes == null ? i : keyIndexes[i];
+      if ( valueMeta.getType() == ValueMetaInterface.TYPE_STRING && !valueMeta.isCollatorDisabled() ) {
+        Collator collator = Collator.getInstance( valueMeta.getCollatorLocale() );
+        if ( valueMeta.getCollatorStrength() > 0 ) {
+          collator.setStrength( valueMeta.getCollatorStrength() );
+        }
+        collators[i] = collator;
+      }
+    }
+  }
+
+  /**
+   * @return a 64 bit hash of the last key serialized
+   */
+  long hash() {
+    return hash( buffer, length );
+  }
+
+  /**
+   * Serializes the key fields of a row to normalized bytes in the buffer.
+   */
+  void serialize( Object[] row ) throws KettleValueException {
+    length = 0;
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      ValueMetaInterface valueMeta = valueMetas[i];
+      Object value = row[keyIndexes[i]];
+      if ( valueMeta.isNull( value ) ) {
+        writeByte( 0 );
+        continue;
+      }
+      writeByte( 1 );
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_INTEGER:
+          writeLong( valueMeta.getInteger( value ) );
+          break;
+        case ValueMetaInterface.TYPE_NUMBER:
+          writeLong( Double.doubleToLongBits( valueMeta.getNumber( value ) ) );
+          break;
+        case ValueMetaInterface.TYPE_DATE:
+        case ValueMetaInterface.TYPE_TIMESTAMP:
+          Date date = valueMeta.getDate( value );
+          writeLong( date.getTime() );
+          if ( date instanceof Timestamp ) {
+            writeInt( ( (Timestamp) date ).getNanos() );
+          }
+          break;
+        case ValueMetaInterface.TYPE_BOOLEAN:
+          writeByte( valueMeta.getBoolean( value ) ? 1 : 0 );
+          break;
+        case ValueMetaInterface.TYPE_BIGNUMBER:
+          BigDecimal number = valueMeta.getBigNumber( value );
+          number = number.signum() == 0 ? BigDecimal.ZERO : number.stripTrailingZeros();
+          writeInt( number.scale() );
+          writeBytes( number.unscaledValue().toByteArray() );
+          break;
+        case ValueMetaInterface.TYPE_BINARY:
+          writeBytes( valueMeta.getBinary( value ) );
+          break;
+        case ValueMetaInterface.TYPE_STRING:
+          writeString( valueMeta, collators[i], valueMeta.getString( value ) );
+          break;
+        default:
+          writeString( valueMeta.getString( value ), false );
+          break;
+      }
+    }
+  }
+
+  private void writeString( ValueMetaInterface valueMeta, Collator collator, String string ) {
+    if ( valueMeta.isIgnoreWhitespace() ) {
+      string = string.trim();
+    }
+    if ( collator != null ) {
+      writeBytes( collator.getCollationKey( string ).toByteArray() );
+    } else {
+      writeString( string, valueMeta.isCaseInsensitive() );
+    }
+  }
+
+  /**
+   * Writes the number of characters followed by the characters in UTF-8. Case insensitive strings are folded the way
+   * {@link String#compareToIgnoreCase(String)} compares characters.
+   */
+  private void writeString( String string, boolean caseInsensitive ) {
+    int nrChars = string.length();
+    writeVarInt( nrChars );
+    ensureBuffer( nrChars * 3 );
+    byte[] b = buffer;
+    int pos = length;
+    for ( int i = 0; i < nrChars; i++ ) {
+      char c = string.charAt( i );
+      if ( caseInsensitive ) {
+        c = Character.toLowerCase( Character.toUpperCase( c ) );
+      }
+      if ( c < 0x80 ) {
+        b[pos++] = (byte) c;
+      } else if ( c < 0x800 ) {
+        b[pos++] = (byte) ( 0xC0 | ( c >> 6 ) );
+        b[pos++] = (byte) ( 0x80 | ( c & 0x3F ) );
+      } else {
+        b[pos++] = (byte) ( 0xE0 | ( c >> 12 ) );
+        b[pos++] = (byte) ( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+        b[pos++] = (byte) ( 0x80 | ( c & 0x3F ) );
+      }
+    }
+    length = pos;
+  }
+
+  private void writeBytes( byte[] bytes ) {
+    writeVarInt( bytes.length );
+    ensureBuffer( bytes.length );
+    System.arraycopy( bytes, 0, buffer, length, bytes.length );
+    length += bytes.length;
+  }
+
+  private void writeVarInt( int value ) {
+    ensureBuffer( 5 );
+    while ( ( value & ~0x7F ) != 0 ) {
+      buffer[length++] = (byte) ( ( value & 0x7F ) | 0x80 );
+      value >>>= 7;
+    }
+    buffer[length++] = (byte) value;
+  }
+
+  private void writeLong( long value ) {
+    ensureBuffer( 8 );
+    for ( int shift = 56; shift >= 0; shift -= 8 ) {
+      buffer[length++] = (byte) ( value >>> shift );
+    }
+  }
+
+  private void writeInt( int value ) {
+    ensureBuffer( 4 );
+    for ( int shift = 24; shift >= 0; shift -= 8 ) {
+      buffer[length++] = (byte) ( value >>> shift );
+    }
+  }
+
+  private void writeByte( int value ) {
+    ensureBuffer( 1 );
+    buffer[length++] = (byte) value;
+  }
+
+  private void ensureBuffer( int extra ) {
+    if ( length + extra > buffer.length ) {
+      buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, length + extra ) );
+    }
+  }
+
+  /**
+   * A 64 bit hash of bytes, 8 bytes at a time, in the style of MurmurHash3.
+   */
+  static long hash( byte[] bytes, int length ) {
+    long h = 0x9E3779B97F4A7C15L;
+    int i = 0;
+    for ( ; i + 8 <= length; i += 8 ) {
+      long k = 0;
+      for ( int j = i; j < i + 8; j++ ) {
+        k = ( k << 8 ) | ( bytes[j] & 0xFF );
+      }
+      h ^= mixKey( k );
+      h = Long.rotateLeft( h, 27 ) * 5 + 0x52DCE729;
+    }
+    if ( i < length ) {
+      long k = 0;
+      for ( ; i < length; i++ ) {
+        k = ( k << 8 ) | ( bytes[i] & 0xFF );
+      }
+      h ^= mixKey( k );
+    }
+    return mix( h ^ length );
+  }
+
+  private static long mixKey( long k ) {
+    k *= 0x87C37B91114253D5L;
+    k = Long.rotateLeft( k, 31 );
+    return k * 0x4CF5AD432745937FL;
+  }
+
+  static long mix( long h ) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    return h ^ ( h >>> 33 );
+  }
+}
@@ -0,0 +1,360 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.pentaho.di.core.exception.KettleValueException;
+
+/**
+ * A batch of rows where the Integer and Number fields are also held in primitive vectors: a long[] or double[] per
+ * field plus a bitmap of the null values. Steps doing arithmetic, comparisons or aggregations on these fields can work
+ * on the vectors without unboxing each value again or allocating a Long or Double per intermediate result.
+ *
+ * Rows are still exchanged between steps as Object[]. A batch is loaded from the rows a step reads and the values of
+ * the vectors are only boxed again for the fields that are actually written back into the output rows.
+ *
+ * A batch is meant to be re-used for consecutive sets of rows by a single step, it's not thread safe.
+ *
+ * @since 10.3
+ */
+public class ColumnarRowBatch {
+
+  private final RowMetaInterface rowMeta;
+  private final long[][] longs;
+  private final double[][] doubles;
+  private final long[][] nulls;
+  private final int[] columns;
+
+  private final List<Object[]> rows;
+  private int capacity;
+
+  /**
+   * Create a batch holding all the Integer and Number fields of the given row layout in vectors.
+   *
+   * @param rowMeta
+   *          the layout of the rows
+   * @param capacity
+   *          the initial number of rows, the batch grows when more rows are added
+   */
+  public ColumnarRowBatch( RowMetaInterface rowMeta, int capacity ) {
+    this( rowMeta, capacity, allColumns( rowMeta ) );
+  }
+
+  /**
+   * Create a batch holding the given fields in vectors, provided they are Integer or Number fields in normal storage.
+   * Only these fields are converted when rows are loaded.
+   *
+   * @param rowMeta
+   *          the layout of the rows
+   * @param capacity
+   *          the initial number of rows, the batch grows when more rows are added
+   * @param columns
+   *          the indexes of the fields to keep in vectors
+   */
+  public ColumnarRowBatch( RowMetaInterface rowMeta, int capacity, int[] columns ) {
+    this.rowMeta = rowMeta;
+    this.capacity = Math.max( 1, capacity );
+    this.rows = new ArrayList<>( this.capacity );
+
+    int nrFields = rowMeta.size();
+    longs = new long[ nrFields ][];
+    doubles = new double[ nrFields ][];
+    nulls = new long[ nrFields ][];
+
+    int[] vectorColumns = new int[ columns.length ];
+    int nrVectors = 0;
+    for ( int column : columns ) {
+      if ( column < 0 || column >= nrFields || nulls[ column ] != null ) {
+        continue;
+      }
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( column );
+      if ( !isVectorizable( valueMeta ) ) {
+        continue;
+      }
+      if ( valueMeta.getType() == ValueMetaInterface.TYPE_INTEGER ) {
+        longs[ column ] = new long[ this.capacity ];
+      } else {
+        doubles[ column ] = new double[ this.capacity ];
+      }
+      nulls[ column ] = new long[ bitmapSize( this.capacity ) ];
+      vectorColumns[ nrVectors++ ] = column;
+    }
+    this.columns = Arrays.copyOf( vectorColumns, nrVectors );
+  }
+
+  /**
+   * @param valueMeta
+   *          the field metadata
+   * @return true if values of this type can be kept in a vector: Integer and Number fields in normal storage
+   */
+  public static boolean isVectorizable( ValueMetaInterface valueMeta ) {
+    if ( valueMeta == null || !valueMeta.isStorageNormal() ) {
+      return false;
+    }
+    return valueMeta.getType() == ValueMetaInterface.TYPE_INTEGER
+      || valueMeta.getType() == ValueMetaInterface.TYPE_NUMBER;
+  }
+
+  /**
+   * Replace the content of this batch with the given rows.
+   *
+   * @param rows
+   *          the rows to load
+   * @throws KettleValueException
+   *           in case a value can't be converted to the type of its field
+   */
+  public void load( List<Object[]> rows ) throws KettleValueException {
+    load( rows, rowMeta.size() );
+  }
+
+  /**
+   * Replace the content of this batch with the given rows, only reading the first fields. The vectors of the other
+   * fields are left for the caller to fill in, for example with the results of calculations.
+   *
+   * @param rows
+   *          the rows to load
+   * @param nrFields
+   *          the number of fields to read from the rows
+   * @throws KettleValueException
+   *           in case a value can't be converted to the type of its field
+   */
+  public void load( List<Object[]> rows, int nrFields ) throws KettleValueException {
+    clear();
+    ensureCapacity( rows.size() );
+    for ( Object[] row : rows ) {
+      addRow( row, nrFields );
+    }
+  }
+
+  /**
+   * Add a row to the batch, converting the values of the vectorized fields.
+   *
+   * @param row
+   *          the row to add
+   * @throws KettleValueException
+   *           in case a value can't be converted to the type of its field
+   */
+  public void addRow( Object[] row ) throws KettleValueException {
+    addRow( row, rowMeta.size() );
+  }
+
+  private void addRow( Object[] row, int nrFields ) throws KettleValueException {
+    int index = rows.size();
+    ensureCapacity( index + 1 );
+    for ( int column : columns ) {
+      if ( column >= nrFields ) {
+        continue;
+      }
+      Object value = column < row.length ? row[ column ] : null;
+      if ( value == null ) {
+        setNull( column, index );
+        continue;
+      }
+      clearNull( column, index );
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( column );
+      if ( longs[ column ] != null ) {
+        longs[ column ][ index ] = valueMeta.getInteger( value );
+      } else {
+        doubles[ column ][ index ] = valueMeta.getNumber( value );
+      }
+    }
+    rows.add( row );
+  }
+
+  /**
+   * Remove all rows from the batch, keeping the allocated vectors.
+   */
+  public void clear() {
+    rows.clear();
+  }
+
+  /**
+   * @return the number of rows in the batch
+   */
+  public int size() {
+    return rows.size();
+  }
+
+  /**
+   * @return the layout of the rows
+   */
+  public RowMetaInterface getRowMeta() {
+    return rowMeta;
+  }
+
+  /**
+   * @return the rows as they were loaded, values written to the vectors afterwards are not reflected
+   */
+  public List<Object[]> getRows() {
+    return rows;
+  }
+
+  /**
+   * @param row
+   *          the row index in the batch
+   * @return the row as it was loaded
+   */
+  public Object[] getRow( int row ) {
+    return rows.get( row );
+  }
+
+  /**
+   * @return the indexes of the fields held in vectors
+   */
+  public int[] getVectorColumns() {
+    return columns;
+  }
+
+  /**
+   * @param column
+   *          the field index
+   * @return true if the field is held in a long[] vector
+   */
+  public boolean isLongVector( int column ) {
+    return longs[ column ] != null;
+  }
+
+  /**
+   * @param column
+   *          the field index
+   * @return true if the field is held in a double[] vector
+   */
+  public boolean isDoubleVector( int column ) {
+    return doubles[ column ] != null;
+  }
+
+  /**
+   * Direct access to the values of an Integer field, only the first size() entries are valid. The entries of null
+   * values are undefined, check them with isNull().
+   *
+   * @param column
+   *          the field index
+   * @return the vector or null if the field isn't held in a long[] vector
+   */
+  public long[] getLongVector( int column ) {
+    return longs[ column ];
+  }
+
+  /**
+   * Direct access to the values of a Number field, only the first size() entries are valid. The entries of null values
+   * are undefined, check them with isNull().
+   *
+   * @param column
+   *          the field index
+   * @return the vector or null if the field isn't held in a double[] vector
+   */
+  public double[] getDoubleVector( int column ) {
+    return doubles[ column ];
+  }
+
+  public boolean isNull( int column, int row ) {
+    return ( nulls[ column ][ row >>> 6 ] & ( 1L << row ) ) != 0;
+  }
+
+  public void setNull( int column, int row ) {
+    nulls[ column ][ row >>> 6 ] |= 1L << row;
+  }
+
+  private void clearNull( int column, int row ) {
+    nulls[ column ][ row >>> 6 ] &= ~( 1L << row );
+  }
+
+  /**
+   * @return true if the field contains at least one null value in this batch
+   */
+  public boolean hasNulls( int column ) {
+    long[] bitmap = nulls[ column ];
+    int size = rows.size();
+    int words = bitmapSize( size );
+    for ( int i = 0; i < words; i++ ) {
+      long word = bitmap[ i ];
+      if ( i == words - 1 && ( size & 63 ) != 0 ) {
+        word &= ( 1L << size ) - 1;
+      }
+      if ( word != 0 ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public long getLong( int column, int row ) {
+    return longs[ column ][ row ];
+  }
+
+  public double getDouble( int column, int row ) {
+    return doubles[ column ][ row ];
+  }
+
+  public void setLong( int column, int row, long value ) {
+    longs[ column ][ row ] = value;
+    clearNull( column, row );
+  }
+
+  public void setDouble( int column, int row, double value ) {
+    doubles[ column ][ row ] = value;
+    clearNull( column, row );
+  }
+
+  /**
+   * Get a value in its boxed form, as it would be stored in an Object[] row.
+   *
+   * @param column
+   *          the field index
+   * @param row
+   *          the row index in the batch
+   * @return the value: a Long, a Double or null for the vectorized fields, the value of the loaded row for the others
+   */
+  public Object getValue( int column, int row ) {
+    if ( nulls[ column ] == null ) {
+      Object[] data = rows.get( row );
+      return column < data.length ? data[ column ] : null;
+    }
+    if ( isNull( column, row ) ) {
+      return null;
+    }
+    return longs[ column ] != null ? (Object) longs[ column ][ row ] : (Object) doubles[ column ][ row ];
+  }
+
+  private void ensureCapacity( int minCapacity ) {
+    if ( minCapacity <= capacity ) {
+      return;
+    }
+    int newCapacity = Math.max( minCapacity, capacity + ( capacity >> 1 ) );
+    for ( int column : columns ) {
+      if ( longs[ column ] != null ) {
+        longs[ column ] = Arrays.copyOf( longs[ column ], newCapacity );
+      } else {
+        doubles[ column ] = Arrays.copyOf( doubles[ column ], newCapacity );
+      }
+      nulls[ column ] = Arrays.copyOf( nulls[ column ], bitmapSize( newCapacity ) );
+    }
+    capacity = newCapacity;
+  }
+
+  private static int bitmapSize( int capacity ) {
+    return ( capacity + 63 ) >>> 6;
+  }
+
+  private static int[] allColumns( RowMetaInterface rowMeta ) {
+    int[] columns = new int[ rowMeta.size() ];
+    for ( int i = 0; i < columns.length; i++ ) {
+      columns[ i ] = i;
+    }
+    return columns;
+  }
+}
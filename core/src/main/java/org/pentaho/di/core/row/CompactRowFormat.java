@@ -0,0 +1,107 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+/**
+ * Constants and field classification shared by {@link CompactRowWriter}, {@link CompactRowReader} and
+ * {@link CompactRowSerializer}.
+ *
+ * A stream starts with a header: the magic bytes 'K' 'R', the format version and the number of fields as a varint.
+ * It's followed by blocks of rows. A block starts with the number of rows and the length of the block in bytes, both
+ * varints; a block of 0 rows ends the stream. Every row starts with a bitmap of the null values, followed by the
+ * non-null values:
+ * <ul>
+ * <li>Integer: zig-zag varint</li>
+ * <li>Number: 8 bytes IEEE 754</li>
+ * <li>String: varint reference into the dictionary of the block, 0 for a new string followed by its length and UTF-8
+ * bytes. New strings are added to the dictionary until it's full.</li>
+ * <li>Date: zig-zag varint of the milliseconds, Timestamp: the same followed by a varint of the nanoseconds</li>
+ * <li>Boolean: 1 byte</li>
+ * <li>BigNumber: zig-zag varint of the scale, varint length and bytes of the unscaled value</li>
+ * <li>Binary and binary string storage: varint length and bytes</li>
+ * <li>Indexed storage: varint index</li>
+ * <li>Anything else: varint length and the bytes written by {@link ValueMetaInterface#writeData}</li>
+ * </ul>
+ */
+final class CompactRowFormat {
+
+  static final byte MAGIC_1 = 'K';
+  static final byte MAGIC_2 = 'R';
+  static final byte VERSION = 1;
+
+  /** The maximum number of rows in a block */
+  static final int BLOCK_ROWS = 1024;
+
+  /** A block is written as soon as it holds this many bytes */
+  static final int BLOCK_BYTES = 64 * 1024;
+
+  /** The maximum number of distinct strings in the dictionary of a block */
+  static final int DICTIONARY_SIZE = 4096;
+
+  static final int KIND_OTHER = 0;
+  static final int KIND_INTEGER = 1;
+  static final int KIND_NUMBER = 2;
+  static final int KIND_STRING = 3;
+  static final int KIND_DATE = 4;
+  static final int KIND_TIMESTAMP = 5;
+  static final int KIND_BOOLEAN = 6;
+  static final int KIND_BIGNUMBER = 7;
+  static final int KIND_BYTES = 8;
+  static final int KIND_INDEX = 9;
+
+  private CompactRowFormat() {
+  }
+
+  /**
+   * @return for every field of the row, how its values are encoded
+   */
+  static int[] getKinds( RowMetaInterface rowMeta ) {
+    int[] kinds = new int[ rowMeta.size() ];
+    for ( int i = 0; i < kinds.length; i++ ) {
+      kinds[ i ] = getKind( rowMeta.getValueMeta( i ) );
+    }
+    return kinds;
+  }
+
+  private static int getKind( ValueMetaInterface valueMeta ) {
+    switch ( valueMeta.getStorageType() ) {
+      case ValueMetaInterface.STORAGE_TYPE_BINARY_STRING:
+        return KIND_BYTES;
+      case ValueMetaInterface.STORAGE_TYPE_INDEXED:
+        return KIND_INDEX;
+      default:
+        break;
+    }
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return KIND_INTEGER;
+      case ValueMetaInterface.TYPE_NUMBER:
+        return KIND_NUMBER;
+      case ValueMetaInterface.TYPE_STRING:
+        return KIND_STRING;
+      case ValueMetaInterface.TYPE_DATE:
+        return KIND_DATE;
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        return KIND_TIMESTAMP;
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        return KIND_BOOLEAN;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        return KIND_BIGNUMBER;
+      case ValueMetaInterface.TYPE_BINARY:
+        return KIND_BYTES;
+      default:
+        return KIND_OTHER;
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleEOFException;
+import org.pentaho.di.core.exception.KettleFileException;
+
+/**
+ * Reads rows written by a {@link CompactRowWriter}. A block of rows is read from the stream in one go into a buffer
+ * that is reused for the following blocks, as is the string dictionary.
+ *
+ * @since 10.3
+ */
+public class CompactRowReader {
+
+  private final RowMetaInterface rowMeta;
+  private final int[] kinds;
+  private final InputStream inputStream;
+
+  private byte[] buffer;
+  private int position;
+  private int limit;
+  private int remainingRows;
+  private boolean headerRead;
+  private boolean finished;
+
+  private String[] dictionary;
+  private int dictionarySize;
+
+  /**
+   * @param rowMeta
+   *          the layout of the rows, the same as the one they were written with
+   * @param inputStream
+   *          the stream to read from
+   */
+  public CompactRowReader( RowMetaInterface rowMeta, InputStream inputStream ) {
+    this.rowMeta = rowMeta;
+    this.kinds = CompactRowFormat.getKinds( rowMeta );
+    this.inputStream = inputStream;
+    this.buffer = new byte[ 8192 ];
+    this.dictionary = new String[ 64 ];
+  }
+
+  /**
+   * Read the next row.
+   *
+   * @return the row, allocated with the size of the row metadata
+   * @throws KettleEOFException
+   *           when the end of the stream is reached
+   * @throws KettleFileException
+   *           in case the stream can't be read or is not in the expected format
+   */
+  public Object[] readRow() throws KettleFileException {
+    if ( remainingRows == 0 ) {
+      readBlock();
+    }
+
+    Object[] row = RowDataUtil.allocateRowData( kinds.length );
+    int nullsPosition = position;
+    position += ( kinds.length + 7 ) >>> 3;
+    try {
+      for ( int i = 0; i < kinds.length; i++ ) {
+        if ( ( buffer[ nullsPosition + ( i >>> 3 ) ] & ( 1 << ( i & 7 ) ) ) == 0 ) {
+          row[ i ] = readValue( kinds[ i ], rowMeta.getValueMeta( i ) );
+        }
+      }
+    } catch ( ArrayIndexOutOfBoundsException e ) {
+      throw new KettleFileException( "Corrupt block of rows for " + rowMeta.toStringMeta(), e );
+    }
+    if ( position > limit ) {
+      throw new KettleFileException( "Corrupt block of rows for " + rowMeta.toStringMeta() );
+    }
+    remainingRows--;
+    return row;
+  }
+
+  private Object readValue( int kind, ValueMetaInterface valueMeta ) throws KettleFileException {
+    switch ( kind ) {
+      case CompactRowFormat.KIND_INTEGER:
+        return unZigZag( readVarLong() );
+      case CompactRowFormat.KIND_NUMBER:
+        return Double.longBitsToDouble( readFixedLong() );
+      case CompactRowFormat.KIND_STRING:
+        return readString();
+      case CompactRowFormat.KIND_DATE:
+        return new Date( unZigZag( readVarLong() ) );
+      case CompactRowFormat.KIND_TIMESTAMP:
+        Timestamp timestamp = new Timestamp( unZigZag( readVarLong() ) );
+        timestamp.setNanos( (int) readVarLong() );
+        return timestamp;
+      case CompactRowFormat.KIND_BOOLEAN:
+        return buffer[ position++ ] != 0;
+      case CompactRowFormat.KIND_BIGNUMBER:
+        int scale = (int) unZigZag( readVarLong() );
+        return new BigDecimal( new BigInteger( readBytes() ), scale );
+      case CompactRowFormat.KIND_BYTES:
+        return readBytes();
+      case CompactRowFormat.KIND_INDEX:
+        return (int) readVarLong();
+      default:
+        return readOther( valueMeta );
+    }
+  }
+
+  private String readString() {
+    int reference = (int) readVarLong();
+    if ( reference > 0 ) {
+      return dictionary[ reference - 1 ];
+    }
+    int length = (int) readVarLong();
+    String string = new String( buffer, position, length, StandardCharsets.UTF_8 );
+    position += length;
+    if ( dictionarySize < CompactRowFormat.DICTIONARY_SIZE ) {
+      if ( dictionarySize == dictionary.length ) {
+        dictionary = Arrays.copyOf( dictionary, dictionary.length * 2 );
+      }
+      dictionary[ dictionarySize++ ] = string;
+    }
+    return string;
+  }
+
+  private Object readOther( ValueMetaInterface valueMeta ) throws KettleFileException {
+    byte[] bytes = readBytes();
+    try {
+      return valueMeta.readData( new DataInputStream( new ByteArrayInputStream( bytes ) ) );
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to read value " + valueMeta.toStringMeta(), e );
+    }
+  }
+
+  private byte[] readBytes() {
+    int length = (int) readVarLong();
+    byte[] bytes = Arrays.copyOfRange( buffer, position, position + length );
+    position += length;
+    return bytes;
+  }
+
+  private long readFixedLong() {
+    long value = 0;
+    for ( int i = 0; i < 8; i++ ) {
+      value = ( value << 8 ) | ( buffer[ position++ ] & 0xFF );
+    }
+    return value;
+  }
+
+  private long readVarLong() {
+    long value = 0;
+    for ( int shift = 0;; shift += 7 ) {
+      byte b = buffer[ position++ ];
+      value |= (long) ( b & 0x7F ) << shift;
+      if ( b >= 0 ) {
+        return value;
+      }
+    }
+  }
+
+  private void readBlock() throws KettleFileException {
+    if ( finished ) {
+      throw new KettleEOFException( "No more rows" );
+    }
+    try {
+      readHeader();
+      remainingRows = readVarInt();
+      if ( remainingRows == 0 ) {
+        finished = true;
+        throw new KettleEOFException( "No more rows" );
+      }
+      limit = readVarInt();
+      if ( remainingRows < 0 || limit < 0 ) {
+        throw new KettleFileException( "Corrupt block header for " + rowMeta.toStringMeta() );
+      }
+      if ( buffer.length < limit ) {
+        buffer = new byte[ Math.max( limit, buffer.length * 2 ) ];
+      }
+      readFully( limit );
+    } catch ( EOFException e ) {
+      finished = true;
+      throw new KettleEOFException( e );
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to read a block of rows", e );
+    }
+    position = 0;
+    dictionarySize = 0;
+  }
+
+  private void readHeader() throws IOException, KettleFileException {
+    if ( headerRead ) {
+      return;
+    }
+    int magic1 = inputStream.read();
+    if ( magic1 < 0 ) {
+      throw new EOFException();
+    }
+    int magic2 = inputStream.read();
+    int version = inputStream.read();
+    if ( magic1 != CompactRowFormat.MAGIC_1 || magic2 != CompactRowFormat.MAGIC_2 ) {
+      throw new KettleFileException( "The stream doesn't contain rows in the compact format" );
+    }
+    if ( version != CompactRowFormat.VERSION ) {
+      throw new KettleFileException( "Unsupported compact row format version " + version );
+    }
+    int nrFields = readVarInt();
+    if ( nrFields != kinds.length ) {
+      throw new KettleFileException( "The stream contains rows of "
+        + nrFields + " fields, expected " + kinds.length );
+    }
+    headerRead = true;
+  }
+
+  private void readFully( int length ) throws IOException {
+    int offset = 0;
+    while ( offset < length ) {
+      int read = inputStream.read( buffer, offset, length - offset );
+      if ( read < 0 ) {
+        throw new EOFException();
+      }
+      offset += read;
+    }
+  }
+
+  private int readVarInt() throws IOException {
+    int value = 0;
+    for ( int shift = 0; shift < 35; shift += 7 ) {
+      int b = inputStream.read();
+      if ( b < 0 ) {
+        throw new EOFException();
+      }
+      value |= ( b & 0x7F ) << shift;
+      if ( ( b & 0x80 ) == 0 ) {
+        return value;
+      }
+    }
+    throw new IOException( "Malformed varint" );
+  }
+
+  private static long unZigZag( long value ) {
+    return ( value >>> 1 ) ^ -( value & 1 );
+  }
+}
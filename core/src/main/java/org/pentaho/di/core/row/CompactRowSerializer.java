@@ -0,0 +1,288 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.exception.KettleValueException;
+
+/**
+ * Encodes single rows to bytes and back, with the values encoded the way a {@link CompactRowWriter} does. There is no
+ * string dictionary, so every row can be decoded on its own, which makes it suitable for rows that are stored apart
+ * and read back in any order. A row starts with a bitmap of the null values, followed by the non-null values.
+ *
+ * The buffer holding the encoded row is reused for the next row. This class is not thread safe.
+ *
+ * @since 10.3
+ */
+public class CompactRowSerializer {
+
+  private final RowMetaInterface rowMeta;
+  private final int[] kinds;
+
+  private byte[] buffer;
+  private int position;
+
+  private ByteArrayOutputStream otherBytes;
+  private DataOutputStream otherOutput;
+
+  /**
+   * @param rowMeta
+   *          the layout of the rows
+   */
+  public CompactRowSerializer( RowMetaInterface rowMeta ) {
+    this.rowMeta = rowMeta;
+    this.kinds = CompactRowFormat.getKinds( rowMeta );
+    this.buffer = new byte[ 256 ];
+  }
+
+  /**
+   * Encode a row to the buffer.
+   *
+   * @param row
+   *          the row to encode
+   * @return the number of bytes of the encoded row, starting at the beginning of {@link #getBuffer()}
+   * @throws KettleFileException
+   *           in case a value can't be encoded
+   */
+  public int encode( Object[] row ) throws KettleFileException {
+    int nullsSize = ( kinds.length + 7 ) >>> 3;
+    position = 0;
+    ensureCapacity( nullsSize );
+    Arrays.fill( buffer, 0, nullsSize, (byte) 0 );
+    position = nullsSize;
+
+    try {
+      for ( int i = 0; i < kinds.length; i++ ) {
+        Object value = i < row.length ? row[ i ] : null;
+        if ( value == null ) {
+          buffer[ i >>> 3 ] |= (byte) ( 1 << ( i & 7 ) );
+        } else {
+          writeValue( kinds[ i ], rowMeta.getValueMeta( i ), value );
+        }
+      }
+    } catch ( KettleValueException | ClassCastException e ) {
+      throw new KettleFileException( "Unable to encode row " + rowMeta.toStringMeta(), e );
+    }
+    return position;
+  }
+
+  /**
+   * @return the buffer holding the last row encoded
+   */
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Decode a row.
+   *
+   * @param bytes
+   *          the bytes holding the encoded row
+   * @param offset
+   *          where the row starts
+   * @param length
+   *          the number of bytes of the encoded row
+   * @return the row, with exactly as many values as there are fields in the row metadata
+   * @throws KettleFileException
+   *           in case the bytes don't hold a row in the expected format
+   */
+  public Object[] decode( byte[] bytes, int offset, int length ) throws KettleFileException {
+    Object[] row = new Object[ kinds.length ];
+    position = offset + ( ( kinds.length + 7 ) >>> 3 );
+    try {
+      for ( int i = 0; i < kinds.length; i++ ) {
+        if ( ( bytes[ offset + ( i >>> 3 ) ] & ( 1 << ( i & 7 ) ) ) == 0 ) {
+          row[ i ] = readValue( bytes, kinds[ i ], rowMeta.getValueMeta( i ) );
+        }
+      }
+    } catch ( ArrayIndexOutOfBoundsException e ) {
+      throw new KettleFileException( "Corrupt row for " + rowMeta.toStringMeta(), e );
+    }
+    if ( position > offset + length ) {
+      throw new KettleFileException( "Corrupt row for " + rowMeta.toStringMeta() );
+    }
+    return row;
+  }
+
+  private void writeValue( int kind, ValueMetaInterface valueMeta, Object value ) throws KettleValueException,
+    KettleFileException {
+    switch ( kind ) {
+      case CompactRowFormat.KIND_INTEGER:
+        writeVarLong( zigZag( valueMeta.getInteger( value ) ) );
+        break;
+      case CompactRowFormat.KIND_NUMBER:
+        writeFixedLong( Double.doubleToRawLongBits( valueMeta.getNumber( value ) ) );
+        break;
+      case CompactRowFormat.KIND_STRING:
+        String string = value instanceof String ? (String) value : valueMeta.getString( value );
+        writeBytes( string.getBytes( StandardCharsets.UTF_8 ) );
+        break;
+      case CompactRowFormat.KIND_DATE:
+        writeVarLong( zigZag( valueMeta.getDate( value ).getTime() ) );
+        break;
+      case CompactRowFormat.KIND_TIMESTAMP:
+        if ( value instanceof Timestamp ) {
+          writeVarLong( zigZag( ( (Timestamp) value ).getTime() ) );
+          writeVarLong( ( (Timestamp) value ).getNanos() );
+        } else {
+          writeVarLong( zigZag( valueMeta.getDate( value ).getTime() ) );
+          writeVarLong( 0 );
+        }
+        break;
+      case CompactRowFormat.KIND_BOOLEAN:
+        ensureCapacity( 1 );
+        buffer[ position++ ] = (byte) ( valueMeta.getBoolean( value ) ? 1 : 0 );
+        break;
+      case CompactRowFormat.KIND_BIGNUMBER:
+        BigDecimal bigNumber = valueMeta.getBigNumber( value );
+        writeVarLong( zigZag( bigNumber.scale() ) );
+        writeBytes( bigNumber.unscaledValue().toByteArray() );
+        break;
+      case CompactRowFormat.KIND_BYTES:
+        writeBytes( (byte[]) value );
+        break;
+      case CompactRowFormat.KIND_INDEX:
+        writeVarLong( (Integer) value );
+        break;
+      default:
+        writeOther( valueMeta, value );
+        break;
+    }
+  }
+
+  private Object readValue( byte[] bytes, int kind, ValueMetaInterface valueMeta ) throws KettleFileException {
+    switch ( kind ) {
+      case CompactRowFormat.KIND_INTEGER:
+        return unZigZag( readVarLong( bytes ) );
+      case CompactRowFormat.KIND_NUMBER:
+        return Double.longBitsToDouble( readFixedLong( bytes ) );
+      case CompactRowFormat.KIND_STRING:
+        int length = (int) readVarLong( bytes );
+        String string = new String( bytes, position, length, StandardCharsets.UTF_8 );
+        position += length;
+        return string;
+      case CompactRowFormat.KIND_DATE:
+        return new Date( unZigZag( readVarLong( bytes ) ) );
+      case CompactRowFormat.KIND_TIMESTAMP:
+        Timestamp timestamp = new Timestamp( unZigZag( readVarLong( bytes ) ) );
+        timestamp.setNanos( (int) readVarLong( bytes ) );
+        return timestamp;
+      case CompactRowFormat.KIND_BOOLEAN:
+        return bytes[ position++ ] != 0;
+      case CompactRowFormat.KIND_BIGNUMBER:
+        int scale = (int) unZigZag( readVarLong( bytes ) );
+        return new BigDecimal( new BigInteger( readBytes( bytes ) ), scale );
+      case CompactRowFormat.KIND_BYTES:
+        return readBytes( bytes );
+      case CompactRowFormat.KIND_INDEX:
+        return (int) readVarLong( bytes );
+      default:
+        try {
+          return valueMeta.readData( new DataInputStream( new ByteArrayInputStream( readBytes( bytes ) ) ) );
+        } catch ( IOException e ) {
+          throw new KettleFileException( "Unable to read value " + valueMeta.toStringMeta(), e );
+        }
+    }
+  }
+
+  private void writeOther( ValueMetaInterface valueMeta, Object value ) throws KettleFileException {
+    if ( otherBytes == null ) {
+      otherBytes = new ByteArrayOutputStream();
+      otherOutput = new DataOutputStream( otherBytes );
+    }
+    otherBytes.reset();
+    valueMeta.writeData( otherOutput, value );
+    try {
+      otherOutput.flush();
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+    writeBytes( otherBytes.toByteArray() );
+  }
+
+  private void writeBytes( byte[] bytes ) {
+    writeVarLong( bytes.length );
+    ensureCapacity( bytes.length );
+    System.arraycopy( bytes, 0, buffer, position, bytes.length );
+    position += bytes.length;
+  }
+
+  private void writeFixedLong( long value ) {
+    ensureCapacity( 8 );
+    for ( int shift = 56; shift >= 0; shift -= 8 ) {
+      buffer[ position++ ] = (byte) ( value >>> shift );
+    }
+  }
+
+  private void writeVarLong( long value ) {
+    ensureCapacity( 10 );
+    while ( ( value & ~0x7FL ) != 0 ) {
+      buffer[ position++ ] = (byte) ( ( value & 0x7F ) | 0x80 );
+      value >>>= 7;
+    }
+    buffer[ position++ ] = (byte) value;
+  }
+
+  private byte[] readBytes( byte[] bytes ) {
+    int length = (int) readVarLong( bytes );
+    byte[] value = Arrays.copyOfRange( bytes, position, position + length );
+    position += length;
+    return value;
+  }
+
+  private long readFixedLong( byte[] bytes ) {
+    long value = 0;
+    for ( int i = 0; i < 8; i++ ) {
+      value = ( value << 8 ) | ( bytes[ position++ ] & 0xFF );
+    }
+    return value;
+  }
+
+  private long readVarLong( byte[] bytes ) {
+    long value = 0;
+    for ( int shift = 0;; shift += 7 ) {
+      byte b = bytes[ position++ ];
+      value |= (long) ( b & 0x7F ) << shift;
+      if ( b >= 0 ) {
+        return value;
+      }
+    }
+  }
+
+  private void ensureCapacity( int extra ) {
+    if ( position + extra > buffer.length ) {
+      buffer = Arrays.copyOf( buffer, Math.max( position + extra, buffer.length * 2 ) );
+    }
+  }
+
+  private static long zigZag( long value ) {
+    return ( value << 1 ) ^ ( value >> 63 );
+  }
+
+  private static long unZigZag( long value ) {
+    return ( value >>> 1 ) ^ -( value & 1 );
+  }
+}
@@ -0,0 +1,303 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.exception.KettleValueException;
+
+import static org.pentaho.di.core.row.CompactRowFormat.BLOCK_BYTES;
+import static org.pentaho.di.core.row.CompactRowFormat.BLOCK_ROWS;
+import static org.pentaho.di.core.row.CompactRowFormat.DICTIONARY_SIZE;
+
+/**
+ * Writes rows in a compact binary format: varint integers, a null bitmap per row and strings that are dictionary
+ * coded within blocks of rows. This takes a lot less space and time than {@link RowMetaInterface#writeData}, which
+ * writes a header per value and every string in full. The rows are read back with a {@link CompactRowReader} using
+ * the same row metadata. See CompactRowFormat for the layout.
+ *
+ * Rows are buffered until a block is complete. Call {@link #flush()} to send the buffered rows on their way and
+ * {@link #finish()} or {@link #close()} after the last row to mark the end of the stream.
+ *
+ * @since 10.3
+ */
+public class CompactRowWriter {
+
+  private final RowMetaInterface rowMeta;
+  private final int[] kinds;
+  private final OutputStream outputStream;
+
+  private byte[] buffer;
+  private int position;
+  private int nrRows;
+  private boolean headerWritten;
+
+  private final Map<String, Integer> dictionary;
+
+  private ByteArrayOutputStream otherBytes;
+  private DataOutputStream otherOutput;
+
+  /**
+   * @param rowMeta
+   *          the layout of the rows to write
+   * @param outputStream
+   *          the stream to write to, preferably buffered
+   */
+  public CompactRowWriter( RowMetaInterface rowMeta, OutputStream outputStream ) {
+    this.rowMeta = rowMeta;
+    this.kinds = CompactRowFormat.getKinds( rowMeta );
+    this.outputStream = outputStream;
+    this.buffer = new byte[ 8192 ];
+    this.dictionary = new HashMap<>();
+  }
+
+  /**
+   * Encode a row. It's written to the stream once the current block is complete. A row that can't be encoded is left
+   * out of the block entirely, the rows before and after it can still be read back.
+   *
+   * @param row
+   *          the row to write
+   * @throws KettleFileException
+   *           in case a value can't be encoded or the stream can't be written to
+   */
+  public void writeRow( Object[] row ) throws KettleFileException {
+    int nullsPosition = position;
+    int dictionarySize = dictionary.size();
+    int nullsSize = ( kinds.length + 7 ) >>> 3;
+    ensureCapacity( nullsSize );
+    Arrays.fill( buffer, nullsPosition, nullsPosition + nullsSize, (byte) 0 );
+    position += nullsSize;
+
+    boolean encoded = false;
+    try {
+      for ( int i = 0; i < kinds.length; i++ ) {
+        Object value = i < row.length ? row[ i ] : null;
+        if ( value == null ) {
+          buffer[ nullsPosition + ( i >>> 3 ) ] |= (byte) ( 1 << ( i & 7 ) );
+        } else {
+          writeValue( kinds[ i ], rowMeta.getValueMeta( i ), value );
+        }
+      }
+      encoded = true;
+    } catch ( KettleValueException | ClassCastException e ) {
+      throw new KettleFileException( "Unable to encode row " + rowMeta.toStringMeta(), e );
+    } finally {
+      if ( !encoded ) {
+        // Drop the values written so far, and the strings they added to the dictionary: the reader never sees them
+        position = nullsPosition;
+        dictionary.values().removeIf( reference -> reference >= dictionarySize );
+      }
+    }
+
+    nrRows++;
+    if ( nrRows >= BLOCK_ROWS || position >= BLOCK_BYTES ) {
+      writeBlock();
+    }
+  }
+
+  /**
+   * Writes the buffered rows as a block and flushes the stream.
+   *
+   * @throws KettleFileException
+   */
+  public void flush() throws KettleFileException {
+    writeBlock();
+    try {
+      outputStream.flush();
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to flush the row stream", e );
+    }
+  }
+
+  /**
+   * Writes the buffered rows and marks the end of the stream. The stream itself is flushed but not closed.
+   *
+   * @throws KettleFileException
+   */
+  public void finish() throws KettleFileException {
+    writeBlock();
+    try {
+      writeHeader();
+      writeVarInt( outputStream, 0 );
+      outputStream.flush();
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to finish the row stream", e );
+    }
+  }
+
+  /**
+   * Finishes the stream and closes it.
+   *
+   * @throws KettleFileException
+   */
+  public void close() throws KettleFileException {
+    finish();
+    try {
+      outputStream.close();
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to close the row stream", e );
+    }
+  }
+
+  private void writeValue( int kind, ValueMetaInterface valueMeta, Object value ) throws KettleValueException,
+    KettleFileException {
+    switch ( kind ) {
+      case CompactRowFormat.KIND_INTEGER:
+        writeVarLong( zigZag( valueMeta.getInteger( value ) ) );
+        break;
+      case CompactRowFormat.KIND_NUMBER:
+        writeFixedLong( Double.doubleToRawLongBits( valueMeta.getNumber( value ) ) );
+        break;
+      case CompactRowFormat.KIND_STRING:
+        writeString( value instanceof String ? (String) value : valueMeta.getString( value ) );
+        break;
+      case CompactRowFormat.KIND_DATE:
+        writeVarLong( zigZag( valueMeta.getDate( value ).getTime() ) );
+        break;
+      case CompactRowFormat.KIND_TIMESTAMP:
+        if ( value instanceof Timestamp ) {
+          writeVarLong( zigZag( ( (Timestamp) value ).getTime() ) );
+          writeVarLong( ( (Timestamp) value ).getNanos() );
+        } else {
+          writeVarLong( zigZag( valueMeta.getDate( value ).getTime() ) );
+          writeVarLong( 0 );
+        }
+        break;
+      case CompactRowFormat.KIND_BOOLEAN:
+        ensureCapacity( 1 );
+        buffer[ position++ ] = (byte) ( valueMeta.getBoolean( value ) ? 1 : 0 );
+        break;
+      case CompactRowFormat.KIND_BIGNUMBER:
+        BigDecimal bigNumber = valueMeta.getBigNumber( value );
+        writeVarLong( zigZag( bigNumber.scale() ) );
+        writeBytes( bigNumber.unscaledValue().toByteArray() );
+        break;
+      case CompactRowFormat.KIND_BYTES:
+        writeBytes( (byte[]) value );
+        break;
+      case CompactRowFormat.KIND_INDEX:
+        writeVarLong( (Integer) value );
+        break;
+      default:
+        writeOther( valueMeta, value );
+        break;
+    }
+  }
+
+  private void writeString( String string ) {
+    Integer reference = dictionary.get( string );
+    if ( reference != null ) {
+      writeVarLong( reference + 1 );
+      return;
+    }
+    writeVarLong( 0 );
+    writeBytes( string.getBytes( StandardCharsets.UTF_8 ) );
+    if ( dictionary.size() < DICTIONARY_SIZE ) {
+      dictionary.put( string, dictionary.size() );
+    }
+  }
+
+  private void writeOther( ValueMetaInterface valueMeta, Object value ) throws KettleFileException {
+    if ( otherBytes == null ) {
+      otherBytes = new ByteArrayOutputStream();
+      otherOutput = new DataOutputStream( otherBytes );
+    }
+    otherBytes.reset();
+    valueMeta.writeData( otherOutput, value );
+    try {
+      otherOutput.flush();
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+    writeBytes( otherBytes.toByteArray() );
+  }
+
+  private void writeBytes( byte[] bytes ) {
+    writeVarLong( bytes.length );
+    ensureCapacity( bytes.length );
+    System.arraycopy( bytes, 0, buffer, position, bytes.length );
+    position += bytes.length;
+  }
+
+  private void writeFixedLong( long value ) {
+    ensureCapacity( 8 );
+    for ( int shift = 56; shift >= 0; shift -= 8 ) {
+      buffer[ position++ ] = (byte) ( value >>> shift );
+    }
+  }
+
+  private void writeVarLong( long value ) {
+    ensureCapacity( 10 );
+    while ( ( value & ~0x7FL ) != 0 ) {
+      buffer[ position++ ] = (byte) ( ( value & 0x7F ) | 0x80 );
+      value >>>= 7;
+    }
+    buffer[ position++ ] = (byte) value;
+  }
+
+  private void writeBlock() throws KettleFileException {
+    if ( nrRows == 0 ) {
+      return;
+    }
+    try {
+      writeHeader();
+      writeVarInt( outputStream, nrRows );
+      writeVarInt( outputStream, position );
+      outputStream.write( buffer, 0, position );
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to write a block of rows", e );
+    }
+    nrRows = 0;
+    position = 0;
+    dictionary.clear();
+  }
+
+  private void writeHeader() throws IOException {
+    if ( !headerWritten ) {
+      outputStream.write( CompactRowFormat.MAGIC_1 );
+      outputStream.write( CompactRowFormat.MAGIC_2 );
+      outputStream.write( CompactRowFormat.VERSION );
+      writeVarInt( outputStream, kinds.length );
+      headerWritten = true;
+    }
+  }
+
+  private void ensureCapacity( int extra ) {
+    if ( position + extra > buffer.length ) {
+      buffer = Arrays.copyOf( buffer, Math.max( position + extra, buffer.length * 2 ) );
+    }
+  }
+
+  private static void writeVarInt( OutputStream outputStream, int value ) throws IOException {
+    while ( ( value & ~0x7F ) != 0 ) {
+      outputStream.write( ( value & 0x7F ) | 0x80 );
+      value >>>= 7;
+    }
+    outputStream.write( value );
+  }
+
+  private static long zigZag( long value ) {
+    return ( value << 1 ) ^ ( value >> 63 );
+  }
+}
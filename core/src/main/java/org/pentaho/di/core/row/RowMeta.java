@@ -53,6 +53,9 @@ public class RowMeta implements RowMetaInterface {
   List<ValueMetaInterface> valueMetaList;
   List<Integer> needRealClone;
 
+  /** Lock-free view of the fields, set by freeze() and dropped by any modification */
+  private volatile FrozenFields frozen;
+
   public RowMeta() {
     this( new ArrayList<ValueMetaInterface>(), new RowMetaCache() );
   }
@@ -135,6 +138,11 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public List<ValueMetaInterface> getValueMetaList() {
+    FrozenFields frozenFields = frozen;
+    if ( frozenFields != null ) {
+      return frozenFields.valueMetaList;
+    }
+
     List<ValueMetaInterface> copy;
 
     lock.readLock().lock();
@@ -154,6 +162,7 @@ public class RowMeta implements RowMetaInterface {
   public void setValueMetaList( List<ValueMetaInterface> valueMetaList ) {
     lock.writeLock().lock();
     try {
+      frozen = null;
       this.valueMetaList = valueMetaList;
       this.cache.invalidate();
       for ( int i = 0, len = valueMetaList.size(); i < len; i++ ) {
@@ -171,6 +180,10 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public int size() {
+    FrozenFields frozenFields = frozen;
+    if ( frozenFields != null ) {
+      return frozenFields.valueMetas.length;
+    }
     lock.readLock().lock();
     try {
       return valueMetaList.size();
@@ -184,6 +197,10 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public boolean isEmpty() {
+    FrozenFields frozenFields = frozen;
+    if ( frozenFields != null ) {
+      return frozenFields.valueMetas.length == 0;
+    }
     lock.readLock().lock();
     try {
       return valueMetaList.isEmpty();
@@ -207,6 +224,7 @@ public class RowMeta implements RowMetaInterface {
     if ( meta != null ) {
       lock.writeLock().lock();
       try {
+        frozen = null;
         ValueMetaInterface newMeta;
         Integer existsIdx = cache.findAndCompare( meta.getName(), valueMetaList );
         if ( existsIdx == null ) {
@@ -236,6 +254,7 @@ public class RowMeta implements RowMetaInterface {
     if ( meta != null ) {
       lock.writeLock().lock();
       try {
+        frozen = null;
         ValueMetaInterface newMeta;
         Integer existsIdx = cache.findAndCompare( meta.getName(), valueMetaList );
         if ( existsIdx == null ) {
@@ -261,6 +280,10 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public ValueMetaInterface getValueMeta( int index ) {
+    FrozenFields frozenFields = frozen;
+    if ( frozenFields != null ) {
+      return index >= 0 && index < frozenFields.valueMetas.length ? frozenFields.valueMetas[ index ] : null;
+    }
     lock.readLock().lock();
     try {
       if ( ( index >= 0 ) && ( index < valueMetaList.size() ) ) {
@@ -284,6 +307,7 @@ public class RowMeta implements RowMetaInterface {
     if ( valueMeta != null ) {
       lock.writeLock().lock();
       try {
+        frozen = null;
         ValueMetaInterface old = valueMetaList.get( index );
         ValueMetaInterface newMeta = valueMeta;
 
@@ -454,6 +478,13 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public Object[] cloneRow( Object[] objects, Object[] newObjects ) throws KettleValueException {
+    FrozenFields frozenFields = frozen;
+    if ( frozenFields != null ) {
+      for ( int i : frozenFields.needRealClone ) {
+        newObjects[ i ] = frozenFields.valueMetas[ i ].cloneValueData( objects[ i ] );
+      }
+      return newObjects;
+    }
     lock.writeLock().lock();
     List<Integer> list = getOrCreateValuesThatNeedRealClone( valueMetaList );
     try {
@@ -525,6 +556,10 @@ public class RowMeta implements RowMetaInterface {
     if ( valueName == null ) {
       return -1;
     }
+    FrozenFields frozenFields = frozen;
+    if ( frozenFields != null ) {
+      return frozenFields.indexOf( valueName );
+    }
 
     lock.writeLock().lock();
     try {
@@ -556,6 +591,11 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public ValueMetaInterface searchValueMeta( String valueName ) {
+    FrozenFields frozenFields = frozen;
+    if ( frozenFields != null ) {
+      int index = valueName == null ? -1 : frozenFields.indexOf( valueName );
+      return index < 0 ? null : frozenFields.valueMetas[ index ];
+    }
     lock.writeLock().lock();
     try {
       Integer index = indexOfValue( valueName );
@@ -644,7 +684,7 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public String[] getFieldNames() {
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       String[] retval = new String[ size() ];
 
@@ -655,7 +695,7 @@ public class RowMeta implements RowMetaInterface {
 
       return retval;
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -666,7 +706,7 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public void writeData( DataOutputStream outputStream, Object[] data ) throws KettleFileException {
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       // Write all values in the row
       for ( int i = 0; i < size(); i++ ) {
@@ -684,7 +724,7 @@ public class RowMeta implements RowMetaInterface {
         }
       }
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -695,7 +735,7 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public void writeMeta( DataOutputStream outputStream ) throws KettleFileException {
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       // First handle the number of fields in a row
       try {
@@ -709,7 +749,7 @@ public class RowMeta implements RowMetaInterface {
         getValueMeta( i ).writeMeta( outputStream );
       }
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
 
   }
@@ -746,7 +786,7 @@ public class RowMeta implements RowMetaInterface {
 
   @Override
   public Object[] readData( DataInputStream inputStream ) throws KettleFileException, SocketTimeoutException {
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       Object[] data = new Object[ size() ];
       for ( int i = 0; i < size(); i++ ) {
@@ -766,7 +806,7 @@ public class RowMeta implements RowMetaInterface {
       }
       return data;
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -774,6 +814,7 @@ public class RowMeta implements RowMetaInterface {
   public void clear() {
     lock.writeLock().lock();
     try {
+      frozen = null;
       valueMetaList.clear();
       cache.invalidate();
       needRealClone = null;
@@ -801,6 +842,7 @@ public class RowMeta implements RowMetaInterface {
   public void removeValueMeta( int index ) {
     lock.writeLock().lock();
     try {
+      frozen = null;
       ValueMetaInterface old = valueMetaList.remove( index );
       if ( old != null ) {
         cache.removeMapping( old.getName() );
@@ -844,7 +886,7 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public String getString( Object[] row ) throws KettleValueException {
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       StringBuilder buffer = new StringBuilder();
       for ( int i = 0; i < size(); i++ ) {
@@ -857,7 +899,7 @@ public class RowMeta implements RowMetaInterface {
       }
       return buffer.toString();
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -870,7 +912,7 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public String[] getFieldNamesAndTypes( int maxlen ) {
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       final int size = size();
       String[] retval = new String[ size ];
@@ -882,7 +924,7 @@ public class RowMeta implements RowMetaInterface {
 
       return retval;
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -898,7 +940,7 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public int compare( Object[] rowData1, Object[] rowData2, int[] fieldnrs ) throws KettleValueException {
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       for ( int fieldnr : fieldnrs ) {
         ValueMetaInterface valueMeta = getValueMeta( fieldnr );
@@ -911,7 +953,7 @@ public class RowMeta implements RowMetaInterface {
 
       return 0;
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -927,7 +969,7 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public boolean equals( Object[] rowData1, Object[] rowData2, int[] fieldnrs ) throws KettleValueException {
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       for ( int fieldnr : fieldnrs ) {
         ValueMetaInterface valueMeta = getValueMeta( fieldnr );
@@ -940,7 +982,7 @@ public class RowMeta implements RowMetaInterface {
 
       return true;
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -959,7 +1001,7 @@ public class RowMeta implements RowMetaInterface {
   public int compare( Object[] rowData1, Object[] rowData2, int[] fieldnrs1, int[] fieldnrs2 )
     throws KettleValueException {
     int len = ( fieldnrs1.length < fieldnrs2.length ) ? fieldnrs1.length : fieldnrs2.length;
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       for ( int i = 0; i < len; i++ ) {
         ValueMetaInterface valueMeta = getValueMeta( fieldnrs1[ i ] );
@@ -972,7 +1014,7 @@ public class RowMeta implements RowMetaInterface {
 
       return 0;
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -992,7 +1034,7 @@ public class RowMeta implements RowMetaInterface {
   public int compare( Object[] rowData1, RowMetaInterface rowMeta2, Object[] rowData2, int[] fieldnrs1,
                       int[] fieldnrs2 ) throws KettleValueException {
     int len = ( fieldnrs1.length < fieldnrs2.length ) ? fieldnrs1.length : fieldnrs2.length;
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       for ( int i = 0; i < len; i++ ) {
         ValueMetaInterface valueMeta1 = getValueMeta( fieldnrs1[ i ] );
@@ -1006,7 +1048,7 @@ public class RowMeta implements RowMetaInterface {
 
       return 0;
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -1021,7 +1063,7 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public int compare( Object[] rowData1, Object[] rowData2 ) throws KettleValueException {
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       for ( int i = 0; i < size(); i++ ) {
         ValueMetaInterface valueMeta = getValueMeta( i );
@@ -1034,7 +1076,7 @@ public class RowMeta implements RowMetaInterface {
 
       return 0;
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -1052,7 +1094,7 @@ public class RowMeta implements RowMetaInterface {
   @Deprecated
   public int oldXORHashCode( Object[] rowData ) throws KettleValueException {
     int hash = 0;
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       for ( int i = 0; i < size(); i++ ) {
         ValueMetaInterface valueMeta = getValueMeta( i );
@@ -1061,7 +1103,7 @@ public class RowMeta implements RowMetaInterface {
 
       return hash;
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -1099,14 +1141,14 @@ public class RowMeta implements RowMetaInterface {
     }
 
     int result = 1;
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       for ( int i = 0; i < rowData.length; i++ ) {
         result = 31 * result + getValueMeta( i ).hashCode();
       }
       return result;
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
   }
 
@@ -1171,13 +1213,13 @@ public class RowMeta implements RowMetaInterface {
 
     xml.append( "<" ).append( XML_META_TAG ).append( ">" );
 
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       for ( int i = 0; i < size(); i++ ) {
         xml.append( getValueMeta( i ).getMetaXML() );
       }
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
 
     xml.append( "</" ).append( XML_META_TAG ).append( ">" );
@@ -1215,13 +1257,13 @@ public class RowMeta implements RowMetaInterface {
 
     xml.append( "<" ).append( XML_DATA_TAG ).append( ">" );
 
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       for ( int i = 0; i < size(); i++ ) {
         xml.append( getValueMeta( i ).getDataXML( rowData[ i ] ) );
       }
     } finally {
-      lock.readLock().unlock();
+      unlockForRead( locked );
     }
 
     xml.append( "</" ).append( XML_DATA_TAG ).append( ">" );
@@ -1238,7 +1280,7 @@ public class RowMeta implements RowMetaInterface {
    */
   @Override
   public Object[] getRow( Node node ) throws KettleException {
-    lock.readLock().lock();
+    boolean locked = lockForRead();
     try {
       Object[] rowData = RowDataUtil.allocateRowData( size() );
 
@@ -1248,10 +1290,206 @@ public class RowMeta implements RowMetaInterface {
       }
       return rowData;
     } finally {
+      unlockForRead( locked );
+    }
+  }
+
+  /**
+   * Freezes the row metadata: from now on the reads no longer take any locks and the index of a field name is looked up
+   * in a perfect hash table. This is meant for row metadata that doesn't change anymore, like the layout of the rows
+   * a step reads. Any modification thaws the row metadata again, after which the reads are guarded by the lock.
+   *
+   * @return this row metadata
+   */
+  public RowMeta freeze() {
+    if ( frozen == null ) {
+      lock.readLock().lock();
+      try {
+        frozen = new FrozenFields( valueMetaList );
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+    return this;
+  }
+
+  /**
+   * @return true if the row metadata is frozen, see {@link #freeze()}
+   */
+  public boolean isFrozen() {
+    return frozen != null;
+  }
+
+  /**
+   * Takes the read lock unless the row metadata is frozen.
+   *
+   * @return true if the read lock was taken
+   */
+  private boolean lockForRead() {
+    if ( frozen != null ) {
+      return false;
+    }
+    lock.readLock().lock();
+    return true;
+  }
+
+  private void unlockForRead( boolean locked ) {
+    if ( locked ) {
       lock.readLock().unlock();
     }
   }
 
+  /**
+   * An immutable copy of the fields. The field names are kept in a perfect hash table built with the hash and displace
+   * method: a first hash picks a bucket, the displacement stored for the bucket makes a second hash land every name of
+   * the bucket on its own slot. A lookup costs two hashes and a single comparison.
+   */
+  @VisibleForTesting
+  static final class FrozenFields {
+    private static final int MAX_DISPLACEMENT = 1 << 16;
+
+    final ValueMetaInterface[] valueMetas;
+    final List<ValueMetaInterface> valueMetaList;
+    final int[] needRealClone;
+
+    private final String[] slotNames;
+    private final int[] slotIndexes;
+    private final int[] displacements;
+
+    FrozenFields( List<ValueMetaInterface> list ) {
+      valueMetas = list.toArray( new ValueMetaInterface[ list.size() ] );
+      valueMetaList = Collections.unmodifiableList( Arrays.asList( valueMetas ) );
+
+      int[] clones = new int[ valueMetas.length ];
+      int nrClones = 0;
+      for ( int i = 0; i < valueMetas.length; i++ ) {
+        if ( valueMetas[ i ].requiresRealClone() ) {
+          clones[ nrClones++ ] = i;
+        }
+      }
+      needRealClone = Arrays.copyOf( clones, nrClones );
+
+      // Only hash the first of the fields with the same name, just like a search through the list would find
+      //
+      List<Integer> keys = new ArrayList<>( valueMetas.length );
+      for ( int i = 0; i < valueMetas.length; i++ ) {
+        String name = valueMetas[ i ].getName();
+        if ( Utils.isEmpty( name ) ) {
+          continue;
+        }
+        boolean first = true;
+        for ( int key : keys ) {
+          if ( name.equalsIgnoreCase( valueMetas[ key ].getName() ) ) {
+            first = false;
+            break;
+          }
+        }
+        if ( first ) {
+          keys.add( i );
+        }
+      }
+
+      int tableSize = Integer.highestOneBit( Math.max( 1, keys.size() ) * 2 - 1 ) << 1;
+      int nrBuckets = Math.max( 1, tableSize >> 2 );
+      String[] names = new String[ tableSize ];
+      int[] indexes = new int[ tableSize ];
+      int[] seeds = new int[ nrBuckets ];
+      if ( !buildTable( keys, names, indexes, seeds ) ) {
+        // Only when names have the same hash code: fall back to searching the fields
+        //
+        names = null;
+        indexes = null;
+        seeds = null;
+      }
+      slotNames = names;
+      slotIndexes = indexes;
+      displacements = seeds;
+    }
+
+    private boolean buildTable( List<Integer> keys, String[] names, int[] indexes, int[] seeds ) {
+      List<List<Integer>> buckets = new ArrayList<>( seeds.length );
+      for ( int b = 0; b < seeds.length; b++ ) {
+        buckets.add( new ArrayList<Integer>() );
+      }
+      for ( int key : keys ) {
+        buckets.get( bucket( valueMetas[ key ].getName().hashCode(), seeds.length ) ).add( key );
+      }
+
+      // Place the largest buckets first, while most slots are still free
+      //
+      Integer[] order = new Integer[ seeds.length ];
+      for ( int b = 0; b < order.length; b++ ) {
+        order[ b ] = b;
+      }
+      Arrays.sort( order, ( b1, b2 ) -> buckets.get( b2 ).size() - buckets.get( b1 ).size() );
+
+      int[] slots = new int[ keys.size() ];
+      for ( int b : order ) {
+        List<Integer> bucket = buckets.get( b );
+        if ( bucket.isEmpty() ) {
+          break;
+        }
+        boolean placed = false;
+        for ( int d = 1; d < MAX_DISPLACEMENT && !placed; d++ ) {
+          placed = true;
+          for ( int k = 0; k < bucket.size() && placed; k++ ) {
+            int slot = slot( valueMetas[ bucket.get( k ) ].getName().hashCode(), d, names.length );
+            placed = names[ slot ] == null;
+            for ( int other = 0; other < k && placed; other++ ) {
+              placed = slots[ other ] != slot;
+            }
+            slots[ k ] = slot;
+          }
+          if ( placed ) {
+            seeds[ b ] = d;
+            for ( int k = 0; k < bucket.size(); k++ ) {
+              names[ slots[ k ] ] = valueMetas[ bucket.get( k ) ].getName();
+              indexes[ slots[ k ] ] = bucket.get( k );
+            }
+          }
+        }
+        if ( !placed ) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static int bucket( int hash, int nrBuckets ) {
+      int h = hash * 0x9E3779B9;
+      return ( h ^ ( h >>> 16 ) ) & ( nrBuckets - 1 );
+    }
+
+    private static int slot( int hash, int displacement, int tableSize ) {
+      int h = ( hash ^ displacement ) * 0x85EBCA6B;
+      h ^= h >>> 13;
+      h *= 0xC2B2AE35;
+      return ( h ^ ( h >>> 16 ) ) & ( tableSize - 1 );
+    }
+
+    /**
+     * @return the index of the first field with the given name, ignoring case, or -1 if there is no such field
+     */
+    int indexOf( String valueName ) {
+      if ( slotNames != null ) {
+        int hash = valueName.hashCode();
+        int slot = slot( hash, displacements[ bucket( hash, displacements.length ) ], slotNames.length );
+        String name = slotNames[ slot ];
+        // The field could have been renamed since: check the current name
+        //
+        if ( name != null && name.equals( valueName ) && name.equals( valueMetas[ slotIndexes[ slot ] ].getName() ) ) {
+          return slotIndexes[ slot ];
+        }
+      }
+      for ( int i = 0; i < valueMetas.length; i++ ) {
+        if ( valueName.equalsIgnoreCase( valueMetas[ i ].getName() ) ) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
   @VisibleForTesting
   static class RowMetaCache {
     @VisibleForTesting
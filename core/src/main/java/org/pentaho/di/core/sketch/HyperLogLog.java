@@ -0,0 +1,290 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.sketch;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Estimates the number of distinct values with a HyperLogLog sketch. The values are hashed to 64 bits; the first
+ * precision bits of the hash pick a register, the register keeps the longest run of leading zeros seen in the rest of
+ * the hash. With a precision p the sketch takes 2^p bytes and the relative standard error is about 1.04 / sqrt(2^p),
+ * 0.8% for the default precision of 14.
+ * <p>
+ * As long as the hashes take less space than the registers would, the sketch keeps the distinct hashes themselves
+ * and the count is exact, so that many small groups don't each allocate a full set of registers.
+ * <p>
+ * Two sketches of the same precision can be merged, giving the estimate of the union of their values.
+ *
+ * @since 10.3
+ */
+public class HyperLogLog implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public static final int MIN_PRECISION = 4;
+  public static final int MAX_PRECISION = 18;
+  public static final int DEFAULT_PRECISION = 14;
+
+  private static final int INITIAL_SPARSE_CAPACITY = 16;
+
+  private final int precision;
+
+  /** The distinct hashes while the sketch is sparse, 0 for an empty slot */
+  private long[] sparse;
+  private int sparseSize;
+
+  /** The registers once the sketch is dense */
+  private byte[] registers;
+
+  /**
+   * Create a sketch with the default precision
+   */
+  public HyperLogLog() {
+    this( DEFAULT_PRECISION );
+  }
+
+  /**
+   * Create a sketch
+   *
+   * @param precision
+   *          the number of bits of the hash used to select a register, from {@link #MIN_PRECISION} to
+   *          {@link #MAX_PRECISION}
+   */
+  public HyperLogLog( int precision ) {
+    if ( precision < MIN_PRECISION || precision > MAX_PRECISION ) {
+      throw new IllegalArgumentException( "The precision of a HyperLogLog sketch has to be between " + MIN_PRECISION
+        + " and " + MAX_PRECISION + ": " + precision );
+    }
+    this.precision = precision;
+    this.sparse = new long[INITIAL_SPARSE_CAPACITY];
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * Adds a value in normal storage. Null values are ignored.
+   */
+  public void add( Object value ) {
+    if ( value != null ) {
+      addHash( hash( value ) );
+    }
+  }
+
+  /**
+   * Adds the 64 bit hash of a value. The hash is expected to be uniformly distributed.
+   */
+  public void addHash( long hash ) {
+    if ( registers != null ) {
+      addToRegisters( hash );
+      return;
+    }
+    if ( hash == 0L ) {
+      hash = 1L; // 0 marks an empty slot
+    }
+    int mask = sparse.length - 1;
+    int slot = (int) ( hash ^ ( hash >>> 32 ) ) & mask;
+    while ( sparse[slot] != 0L ) {
+      if ( sparse[slot] == hash ) {
+        return;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+    sparse[slot] = hash;
+    sparseSize++;
+    if ( sparseSize * 16L > ( 1L << precision ) ) {
+      toDense();
+    } else if ( sparseSize * 2 > sparse.length ) {
+      growSparse();
+    }
+  }
+
+  /**
+   * Adds the values of another sketch to this one.
+   *
+   * @throws IllegalArgumentException
+   *           if the precisions of the sketches differ
+   */
+  public void merge( HyperLogLog other ) {
+    if ( other.precision != precision ) {
+      throw new IllegalArgumentException( "Unable to merge HyperLogLog sketches with precision " + precision + " and "
+        + other.precision );
+    }
+    if ( other.registers == null ) {
+      for ( long hash : other.sparse ) {
+        if ( hash != 0L ) {
+          addHash( hash );
+        }
+      }
+      return;
+    }
+    if ( registers == null ) {
+      toDense();
+    }
+    for ( int i = 0; i < registers.length; i++ ) {
+      if ( other.registers[i] > registers[i] ) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /**
+   * @return the estimated number of distinct values, exact while the sketch is sparse
+   */
+  public long cardinality() {
+    if ( registers == null ) {
+      return sparseSize;
+    }
+    int m = registers.length;
+    double sum = 0.0;
+    int zeros = 0;
+    for ( byte register : registers ) {
+      sum += 1.0 / ( 1L << register );
+      if ( register == 0 ) {
+        zeros++;
+      }
+    }
+    double estimate = alpha( m ) * m * m / sum;
+    if ( estimate <= 2.5 * m && zeros > 0 ) {
+      // Linear counting is more accurate for small cardinalities
+      //
+      estimate = m * Math.log( (double) m / zeros );
+    }
+    return Math.round( estimate );
+  }
+
+  public boolean isEmpty() {
+    return registers == null && sparseSize == 0;
+  }
+
+  /**
+   * @return true while the sketch keeps the distinct hashes instead of registers
+   */
+  public boolean isSparse() {
+    return registers == null;
+  }
+
+  private void addToRegisters( long hash ) {
+    int index = (int) ( hash >>> ( 64 - precision ) );
+    // The sentinel bit bounds the number of leading zeros of the remaining bits
+    //
+    long rest = ( hash << precision ) | ( 1L << ( precision - 1 ) );
+    byte rank = (byte) ( Long.numberOfLeadingZeros( rest ) + 1 );
+    if ( rank > registers[index] ) {
+      registers[index] = rank;
+    }
+  }
+
+  private void growSparse() {
+    long[] old = sparse;
+    sparse = new long[old.length * 2];
+    int mask = sparse.length - 1;
+    for ( long hash : old ) {
+      if ( hash != 0L ) {
+        int slot = (int) ( hash ^ ( hash >>> 32 ) ) & mask;
+        while ( sparse[slot] != 0L ) {
+          slot = ( slot + 1 ) & mask;
+        }
+        sparse[slot] = hash;
+      }
+    }
+  }
+
+  private void toDense() {
+    registers = new byte[1 << precision];
+    for ( long hash : sparse ) {
+      if ( hash != 0L ) {
+        addToRegisters( hash );
+      }
+    }
+    sparse = null;
+    sparseSize = 0;
+  }
+
+  private static double alpha( int m ) {
+    switch ( m ) {
+      case 16:
+        return 0.673;
+      case 32:
+        return 0.697;
+      case 64:
+        return 0.709;
+      default:
+        return 0.7213 / ( 1.0 + 1.079 / m );
+    }
+  }
+
+  /**
+   * Calculates a 64 bit hash of a value in normal storage. Values that are equal for a count distinct get the same
+   * hash: big numbers don't depend on their scale, dates include the nanoseconds of timestamps.
+   */
+  public static long hash( Object value ) {
+    if ( value instanceof Long ) {
+      return mix( (Long) value );
+    }
+    if ( value instanceof Double ) {
+      double d = (Double) value;
+      return mix( Double.doubleToLongBits( d == 0.0 ? 0.0 : d ) ); // -0.0 equals 0.0
+    }
+    if ( value instanceof String ) {
+      String string = (String) value;
+      long h = 0xcbf29ce484222325L;
+      for ( int i = 0; i < string.length(); i++ ) {
+        h = ( h ^ string.charAt( i ) ) * 0x100000001b3L;
+      }
+      return mix( h ^ string.length() );
+    }
+    if ( value instanceof Timestamp ) {
+      Timestamp timestamp = (Timestamp) value;
+      return mix( mix( timestamp.getTime() ) ^ timestamp.getNanos() );
+    }
+    if ( value instanceof Date ) {
+      return mix( ( (Date) value ).getTime() );
+    }
+    if ( value instanceof BigDecimal ) {
+      BigDecimal number = (BigDecimal) value;
+      return hash( number.signum() == 0 ? "0" : number.stripTrailingZeros().toString() );
+    }
+    if ( value instanceof Boolean ) {
+      return mix( (Boolean) value ? 1L : 2L );
+    }
+    if ( value instanceof byte[] ) {
+      byte[] bytes = (byte[]) value;
+      long h = 0xcbf29ce484222325L;
+      for ( byte b : bytes ) {
+        h = ( h ^ ( b & 0xff ) ) * 0x100000001b3L;
+      }
+      return mix( h ^ bytes.length );
+    }
+    return hash( value.toString() );
+  }
+
+  private static long mix( long h ) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    return "HyperLogLog(precision=" + precision + ", " + ( isSparse() ? "sparse" : "dense" ) + ", cardinality="
+      + cardinality() + ")";
+  }
+}
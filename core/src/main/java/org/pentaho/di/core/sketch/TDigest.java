@@ -0,0 +1,303 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.sketch;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Estimates percentiles with a merging t-digest. The values are summarized in centroids, a mean and a weight each,
+ * kept in order of their means. Centroids near the tails are kept small, so that extreme percentiles stay accurate,
+ * while centroids around the median can hold many values. The compression bounds the number of centroids: a digest
+ * never holds more than about compression centroids whatever the number of values, and a higher compression gives
+ * more accurate percentiles.
+ * <p>
+ * Values are first collected in a buffer, the buffer is sorted and merged into the centroids when it is full. Two
+ * digests can be merged, giving the digest of the union of their values.
+ *
+ * @since 10.3
+ */
+public class TDigest implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public static final double DEFAULT_COMPRESSION = 100.0;
+  public static final double MIN_COMPRESSION = 10.0;
+
+  private final double compression;
+
+  /** The centroids, in order of their means */
+  private double[] means;
+  private double[] weights;
+  private int nrCentroids;
+
+  /** Values and centroids not merged yet */
+  private double[] bufferMeans;
+  private double[] bufferWeights;
+  private int bufferSize;
+
+  private double totalWeight;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  /**
+   * Create a digest with the default compression
+   */
+  public TDigest() {
+    this( DEFAULT_COMPRESSION );
+  }
+
+  /**
+   * Create a digest
+   *
+   * @param compression
+   *          the number of centroids to aim for, at least {@link #MIN_COMPRESSION}
+   */
+  public TDigest( double compression ) {
+    if ( Double.isNaN( compression ) || compression < MIN_COMPRESSION ) {
+      throw new IllegalArgumentException( "The compression of a t-digest has to be at least " + MIN_COMPRESSION + ": "
+        + compression );
+    }
+    this.compression = compression;
+    int capacity = (int) Math.ceil( compression ) + 10;
+    means = new double[capacity];
+    weights = new double[capacity];
+    bufferMeans = new double[16];
+    bufferWeights = new double[16];
+  }
+
+  public double getCompression() {
+    return compression;
+  }
+
+  /**
+   * Adds a value. NaN values are ignored.
+   */
+  public void add( double value ) {
+    add( value, 1.0 );
+  }
+
+  private void add( double mean, double weight ) {
+    if ( Double.isNaN( mean ) ) {
+      return;
+    }
+    if ( bufferSize == bufferMeans.length ) {
+      if ( bufferSize >= maxBufferSize() ) {
+        compress();
+      } else {
+        bufferMeans = Arrays.copyOf( bufferMeans, bufferSize * 2 );
+        bufferWeights = Arrays.copyOf( bufferWeights, bufferSize * 2 );
+      }
+    }
+    bufferMeans[bufferSize] = mean;
+    bufferWeights[bufferSize] = weight;
+    bufferSize++;
+    totalWeight += weight;
+    min = Math.min( min, mean );
+    max = Math.max( max, mean );
+  }
+
+  /**
+   * Adds the values of another digest to this one.
+   */
+  public void merge( TDigest other ) {
+    other.compress();
+    double otherMin = other.min;
+    double otherMax = other.max;
+    for ( int i = 0; i < other.nrCentroids; i++ ) {
+      add( other.means[i], other.weights[i] );
+    }
+    if ( other.nrCentroids > 0 ) {
+      min = Math.min( min, otherMin );
+      max = Math.max( max, otherMax );
+    }
+  }
+
+  /**
+   * @return the number of values added
+   */
+  public long size() {
+    return Math.round( totalWeight );
+  }
+
+  public boolean isEmpty() {
+    return totalWeight == 0.0;
+  }
+
+  /**
+   * Estimates a percentile by interpolating between the centroids around it.
+   *
+   * @param percentile
+   *          the percentile, from 0 to 100
+   * @return the estimate or NaN if no values were added
+   */
+  public double percentile( double percentile ) {
+    if ( percentile < 0.0 || percentile > 100.0 ) {
+      throw new IllegalArgumentException( "A percentile has to be between 0 and 100: " + percentile );
+    }
+    compress();
+    if ( nrCentroids == 0 ) {
+      return Double.NaN;
+    }
+    if ( nrCentroids == 1 ) {
+      return means[0];
+    }
+
+    double index = percentile / 100.0 * totalWeight;
+    if ( index <= 0.0 ) {
+      return min;
+    }
+    if ( index >= totalWeight ) {
+      return max;
+    }
+
+    // Between the minimum and the middle of the first centroid
+    //
+    double half = weights[0] / 2.0;
+    if ( index < half ) {
+      return min + ( means[0] - min ) * index / half;
+    }
+
+    double weightSoFar = half;
+    for ( int i = 0; i < nrCentroids - 1; i++ ) {
+      double step = ( weights[i] + weights[i + 1] ) / 2.0;
+      if ( index < weightSoFar + step ) {
+        double fraction = ( index - weightSoFar ) / step;
+        return means[i] + ( means[i + 1] - means[i] ) * fraction;
+      }
+      weightSoFar += step;
+    }
+
+    // Between the middle of the last centroid and the maximum
+    //
+    half = weights[nrCentroids - 1] / 2.0;
+    double fraction = Math.min( 1.0, ( index - weightSoFar ) / half );
+    return means[nrCentroids - 1] + ( max - means[nrCentroids - 1] ) * fraction;
+  }
+
+  /**
+   * @return the number of centroids after merging the buffered values
+   */
+  public int getNrCentroids() {
+    compress();
+    return nrCentroids;
+  }
+
+  private int maxBufferSize() {
+    return (int) Math.ceil( compression ) * 5;
+  }
+
+  /**
+   * Merges the buffered values into the centroids. All values and centroids are sorted by mean, then adjacent ones are
+   * combined as long as the centroid stays within its size limit. The limit follows the k1 scale function: a centroid
+   * spans at most one unit of k(q) = compression / (2 pi) * asin(2q - 1), where q is the fraction of the total weight
+   * below it.
+   */
+  private void compress() {
+    if ( bufferSize == 0 ) {
+      return;
+    }
+    sortBuffer();
+    int n = nrCentroids + bufferSize;
+    double[] allMeans = new double[n];
+    double[] allWeights = new double[n];
+
+    // Both the centroids and the buffer are sorted now, merge them
+    //
+    int c = 0;
+    int b = 0;
+    for ( int i = 0; i < n; i++ ) {
+      if ( b == bufferSize || ( c < nrCentroids && means[c] <= bufferMeans[b] ) ) {
+        allMeans[i] = means[c];
+        allWeights[i] = weights[c++];
+      } else {
+        allMeans[i] = bufferMeans[b];
+        allWeights[i] = bufferWeights[b++];
+      }
+    }
+    bufferSize = 0;
+
+    nrCentroids = 0;
+    double weightSoFar = 0.0;
+    double limit = totalWeight * qLimit( 0.0 );
+    double mean = allMeans[0];
+    double weight = allWeights[0];
+    for ( int i = 1; i < n; i++ ) {
+      if ( weightSoFar + weight + allWeights[i] <= limit ) {
+        weight += allWeights[i];
+        mean += ( allMeans[i] - mean ) * allWeights[i] / weight;
+      } else {
+        weightSoFar += weight;
+        addCentroid( mean, weight );
+        limit = totalWeight * qLimit( weightSoFar / totalWeight );
+        mean = allMeans[i];
+        weight = allWeights[i];
+      }
+    }
+    addCentroid( mean, weight );
+  }
+
+  private void addCentroid( double mean, double weight ) {
+    if ( nrCentroids == means.length ) {
+      means = Arrays.copyOf( means, nrCentroids * 2 );
+      weights = Arrays.copyOf( weights, nrCentroids * 2 );
+    }
+    means[nrCentroids] = mean;
+    weights[nrCentroids] = weight;
+    nrCentroids++;
+  }
+
+  /**
+   * @return the highest fraction of the total weight a centroid starting at fraction q can reach
+   */
+  private double qLimit( double q ) {
+    double k = compression / ( 2.0 * Math.PI ) * Math.asin( 2.0 * Math.min( 1.0, q ) - 1.0 ) + 1.0;
+    if ( k >= compression / 4.0 ) {
+      return 1.0;
+    }
+    return ( Math.sin( k * 2.0 * Math.PI / compression ) + 1.0 ) / 2.0;
+  }
+
+  /**
+   * Sorts the buffered values by mean. Values added one by one all have a weight of 1 and are sorted as they are.
+   */
+  private void sortBuffer() {
+    boolean unitWeights = true;
+    for ( int i = 0; i < bufferSize && unitWeights; i++ ) {
+      unitWeights = bufferWeights[i] == 1.0;
+    }
+    if ( unitWeights ) {
+      Arrays.sort( bufferMeans, 0, bufferSize );
+      return;
+    }
+    Integer[] order = new Integer[bufferSize];
+    for ( int i = 0; i < bufferSize; i++ ) {
+      order[i] = i;
+    }
+    final double[] unsorted = bufferMeans;
+    Arrays.sort( order, ( a, b ) -> Double.compare( unsorted[a], unsorted[b] ) );
+    double[] sortedMeans = new double[bufferMeans.length];
+    double[] sortedWeights = new double[bufferWeights.length];
+    for ( int i = 0; i < bufferSize; i++ ) {
+      sortedMeans[i] = bufferMeans[order[i]];
+      sortedWeights[i] = bufferWeights[order[i]];
+    }
+    bufferMeans = sortedMeans;
+    bufferWeights = sortedWeights;
+  }
+
+  @Override
+  public String toString() {
+    return "TDigest(compression=" + compression + ", size=" + size() + ", centroids=" + getNrCentroids() + ")";
+  }
+}
@@ -16,11 +16,13 @@ package org.pentaho.di.core;
 import com.google.common.collect.Lists;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.pentaho.di.core.row.ColumnarRowBatch;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaAndData;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.junit.rules.RestorePDIEnvironment;
 
 import java.util.ArrayList;
@@ -276,4 +278,57 @@ public class ConditionTest {
 
   }
 
+  @Test
+  public void testVectorizedEvaluationMatchesRowEvaluation() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "a" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "b" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "c" ) );
+
+    List<Object[]> rows = new ArrayList<>();
+    rows.add( new Object[] { 1L, 2L, 1.5 } );
+    rows.add( new Object[] { 2L, 2L, null } );
+    rows.add( new Object[] { null, 0L, -1.0 } );
+    rows.add( new Object[] { 3L, null, 0.0 } );
+    rows.add( new Object[] { -4L, -5L, 2.5 } );
+
+    ValueMetaAndData exact = new ValueMetaAndData( new ValueMetaNumber( "c" ), 0.0 );
+    Condition and = new Condition();
+    and.addCondition( new Condition( "a", Condition.FUNC_SMALLER_EQUAL, "b", null ) );
+    and.addCondition( new Condition( Condition.OPERATOR_AND, "c", Condition.FUNC_LARGER, null, exact ) );
+    Condition or = new Condition();
+    or.addCondition( new Condition( "a", Condition.FUNC_NULL, null, null ) );
+    or.addCondition( new Condition( Condition.OPERATOR_OR, "b", Condition.FUNC_NOT_EQUAL, "a", null ) );
+
+    List<Condition> conditions = Arrays.asList(
+      new Condition( "a", Condition.FUNC_EQUAL, "b", null ),
+      new Condition( "a", Condition.FUNC_SMALLER, "b", null ),
+      new Condition( "b", Condition.FUNC_LARGER_EQUAL, "a", null ),
+      new Condition( "c", Condition.FUNC_NOT_NULL, null, null ),
+      new Condition( true, "c", Condition.FUNC_SMALLER, null, exact ),
+      and, or );
+
+    ColumnarRowBatch batch = new ColumnarRowBatch( rowMeta, 2 );
+    batch.load( rows );
+    boolean[] result = new boolean[rows.size()];
+    for ( Condition condition : conditions ) {
+      assertTrue( condition.isVectorizable( rowMeta ) );
+      condition.evaluate( batch, result );
+      for ( int i = 0; i < rows.size(); i++ ) {
+        assertEquals( condition.toString() + " row " + i, condition.evaluate( rowMeta, rows.get( i ) ), result[i] );
+      }
+    }
+  }
+
+  @Test
+  public void testStringConditionIsNotVectorizable() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "s" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "i" ) );
+
+    assertFalse( new Condition( "s", Condition.FUNC_EQUAL, null, null ).isVectorizable( rowMeta ) );
+    assertFalse( new Condition( "i", Condition.FUNC_CONTAINS, "s", null ).isVectorizable( rowMeta ) );
+    assertFalse( new Condition( "i", Condition.FUNC_EQUAL, "s", null ).isVectorizable( rowMeta ) );
+  }
+
 }
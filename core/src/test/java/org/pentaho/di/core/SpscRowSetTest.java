@@ -0,0 +1,138 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.di.core;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class SpscRowSetTest {
+  Object[] row;
+  SpscRowSet rowSet;
+
+  @Before
+  public void setup() {
+    rowSet = new SpscRowSet( 3 );
+    row = new Object[]{};
+  }
+
+  @Test
+  public void testPutRow() throws Exception {
+    assertTrue( rowSet.putRow( new RowMeta(), row ) );
+    assertSame( row, rowSet.getRow() );
+    assertNull( rowSet.getRowImmediate() );
+  }
+
+  @Test
+  public void testPutRowWait() throws Exception {
+    assertTrue( rowSet.putRowWait( new RowMeta(), row, 1, TimeUnit.SECONDS ) );
+    assertSame( row, rowSet.getRowWait( 1, TimeUnit.SECONDS ) );
+  }
+
+  @Test
+  public void testPutNullRow() throws Exception {
+    assertFalse( rowSet.putRow( new RowMeta(), null ) );
+    assertEquals( 0, rowSet.size() );
+  }
+
+  @Test
+  public void testPutAndGetRowsImmediate() throws Exception {
+    List<Object[]> rows = Arrays.asList( new Object[] { 0 }, new Object[] { 1 }, new Object[] { 2 }, new Object[] { 3 } );
+
+    // Only 3 rows fit
+    assertEquals( 3, rowSet.putRowsImmediate( new RowMeta(), rows, 0 ) );
+    assertEquals( 0, rowSet.putRowsImmediate( new RowMeta(), rows, 3 ) );
+
+    List<Object[]> taken = new ArrayList<>();
+    assertEquals( 2, rowSet.getRowsImmediate( taken, 2 ) );
+    assertEquals( 1, rowSet.putRowsImmediate( new RowMeta(), rows, 3 ) );
+    assertEquals( 2, rowSet.getRowsImmediate( taken, 10 ) );
+    assertEquals( 0, rowSet.getRowsImmediate( taken, 10 ) );
+
+    assertEquals( 4, taken.size() );
+    for ( int i = 0; i < 4; i++ ) {
+      assertSame( rows.get( i ), taken.get( i ) );
+    }
+  }
+
+  @Test
+  public void testFullRowSetTimesOut() throws Exception {
+    for ( int i = 0; i < 3; i++ ) {
+      assertTrue( rowSet.putRowWait( new RowMeta(), new Object[] { i }, 10, TimeUnit.MILLISECONDS ) );
+    }
+    assertFalse( rowSet.putRowWait( new RowMeta(), row, 10, TimeUnit.MILLISECONDS ) );
+    assertEquals( 3, rowSet.size() );
+
+    assertEquals( 0, rowSet.getRowImmediate()[0] );
+    assertTrue( rowSet.putRowWait( new RowMeta(), row, 10, TimeUnit.MILLISECONDS ) );
+    assertEquals( 1, rowSet.getRowImmediate()[0] );
+    assertEquals( 2, rowSet.getRowImmediate()[0] );
+    assertSame( row, rowSet.getRowImmediate() );
+    assertNull( rowSet.getRowWait( 10, TimeUnit.MILLISECONDS ) );
+  }
+
+  @Test
+  public void testSize() throws Exception {
+    assertEquals( 0, rowSet.size() );
+    rowSet.putRow( new RowMeta(), row );
+    assertEquals( 1, rowSet.size() );
+    rowSet.putRow( new RowMeta(), row );
+    assertEquals( 2, rowSet.size() );
+    rowSet.setDone();
+    rowSet.clear();
+    assertEquals( 0, rowSet.size() );
+    assertFalse( rowSet.isDone() );
+    assertNull( rowSet.getRowImmediate() );
+  }
+
+  @Test
+  public void testProducerConsumerKeepOrder() throws Exception {
+    final int nrRows = 100000;
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    Thread producer = new Thread( () -> {
+      try {
+        for ( long i = 0; i < nrRows; i++ ) {
+          Object[] r = new Object[] { i };
+          while ( !rowSet.putRow( new RowMeta(), r ) ) {
+            // wait for space
+          }
+        }
+        rowSet.setDone();
+      } catch ( Throwable t ) {
+        failure.set( t );
+      }
+    } );
+    producer.start();
+
+    long expected = 0;
+    Object[] r = rowSet.getRow();
+    while ( r != null || !rowSet.isDone() || rowSet.size() > 0 ) {
+      if ( r != null ) {
+        assertEquals( expected++, r[0] );
+      }
+      r = rowSet.getRow();
+    }
+    producer.join();
+
+    assertNull( failure.get() );
+    assertEquals( nrRows, expected );
+  }
+}
@@ -0,0 +1,92 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+
+public class LookupCacheRegistryTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final LookupCacheRegistry registry = new LookupCacheRegistry( now::get );
+
+  @Test
+  public void testCacheWithoutTimeToLiveIsDroppedWhenUnused() throws Exception {
+    SharedLookupCache first = registry.attach( "customers", "layout", 100, 0 );
+    SharedLookupCache second = registry.attach( "customers", "layout", 200, 0 );
+    assertSame( first, second );
+    assertEquals( 100, second.getMaxSize() );
+    first.put( 1L, "one" );
+
+    registry.detach( first );
+    assertSame( first, registry.getCache( "customers" ) );
+    registry.detach( second );
+    assertNull( registry.getCache( "customers" ) );
+    assertEquals( 0, first.size() );
+  }
+
+  @Test
+  public void testCacheWithTimeToLiveOutlivesItsUsers() throws Exception {
+    SharedLookupCache cache = registry.attach( "customers", "layout", 0, 1000 );
+    cache.put( 1L, "one" );
+    registry.detach( cache );
+
+    now.addAndGet( TimeUnit.MILLISECONDS.toNanos( 500 ) );
+    SharedLookupCache again = registry.attach( "customers", "layout", 0, 1000 );
+    assertSame( cache, again );
+    assertEquals( "one", again.get( 1L ) );
+    registry.detach( again );
+
+    now.addAndGet( TimeUnit.MILLISECONDS.toNanos( 1000 ) );
+    assertEquals( 0, registry.getCacheNames().size() );
+    assertNotSame( cache, registry.attach( "customers", "layout", 0, 1000 ) );
+  }
+
+  @Test
+  public void testLayoutMustMatch() throws Exception {
+    SharedLookupCache cache = registry.attach( "customers", "layout", 0, 1000 );
+    try {
+      registry.attach( "customers", "other layout", 0, 1000 );
+      fail( "Expected a KettleException" );
+    } catch ( KettleException e ) {
+      // expected
+    }
+
+    // Once unused, the cache is replaced by one with the new layout
+    //
+    registry.detach( cache );
+    SharedLookupCache other = registry.attach( "customers", "other layout", 0, 1000 );
+    assertEquals( "other layout", other.getLayout() );
+    assertEquals( Arrays.asList( "customers" ), registry.getCacheNames() );
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    SharedLookupCache cache = registry.attach( "customers", "layout", 0, 0 );
+    cache.put( 1L, "one" );
+    registry.invalidate( "customers" );
+    assertEquals( 0, cache.size() );
+    assertSame( cache, registry.getCache( "customers" ) );
+  }
+}
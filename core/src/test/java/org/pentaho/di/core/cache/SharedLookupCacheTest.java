@@ -0,0 +1,127 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class SharedLookupCacheTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  private SharedLookupCache newCache( int maxSize, long timeToLiveMillis ) {
+    return new SharedLookupCache( "test", "layout", maxSize, timeToLiveMillis, now::get );
+  }
+
+  @Test
+  public void testOldestEntriesAreEvictedFirst() {
+    SharedLookupCache cache = newCache( 3, 0 );
+    for ( long i = 0; i < 5; i++ ) {
+      cache.put( i, "value " + i );
+    }
+    assertEquals( 3, cache.size() );
+    assertNull( cache.get( 0L ) );
+    assertNull( cache.get( 1L ) );
+    assertEquals( "value 4", cache.get( 4L ) );
+    assertEquals( 1, cache.getHits() );
+    assertEquals( 2, cache.getMisses() );
+  }
+
+  @Test
+  public void testPutIfAbsentKeepsTheFirstValue() {
+    SharedLookupCache cache = newCache( 0, 0 );
+    assertNull( cache.putIfAbsent( "key", 1L ) );
+    assertEquals( 1L, cache.putIfAbsent( "key", 2L ) );
+    assertEquals( 1L, cache.get( "key" ) );
+
+    cache.put( "key", 3L );
+    assertEquals( 3L, cache.get( "key" ) );
+    assertEquals( 1, cache.size() );
+  }
+
+  @Test
+  public void testEntriesExpire() {
+    SharedLookupCache cache = newCache( 0, 1000 );
+    cache.put( "old", 1L );
+    now.addAndGet( TimeUnit.MILLISECONDS.toNanos( 600 ) );
+    cache.put( "new", 2L );
+    now.addAndGet( TimeUnit.MILLISECONDS.toNanos( 600 ) );
+
+    assertNull( cache.get( "old" ) );
+    assertEquals( 2L, cache.get( "new" ) );
+    assertNull( cache.putIfAbsent( "old", 3L ) );
+    assertEquals( 3L, cache.get( "old" ) );
+  }
+
+  @Test
+  public void testCompleteUntilEvictedOrExpired() {
+    SharedLookupCache cache = newCache( 2, 1000 );
+    cache.put( 1L, "a" );
+    cache.put( 2L, "b" );
+    cache.setComplete( true );
+    assertTrue( cache.isComplete() );
+
+    cache.put( 3L, "c" );
+    assertFalse( cache.isComplete() );
+
+    cache.setComplete( true );
+    now.addAndGet( TimeUnit.SECONDS.toNanos( 1 ) );
+    assertFalse( cache.isComplete() );
+  }
+
+  @Test
+  public void testReplacedEntriesDontPileUp() {
+    SharedLookupCache cache = newCache( 0, 0 );
+    for ( int i = 0; i < 100000; i++ ) {
+      cache.put( i % 10, i );
+    }
+    assertEquals( 10, cache.size() );
+    assertEquals( 99999, cache.get( 9 ) );
+  }
+
+  @Test
+  public void testConcurrentReadersAndWriters() throws Exception {
+    SharedLookupCache cache = newCache( 1000, 0 );
+    List<Thread> threads = new ArrayList<>();
+    AtomicLong wrong = new AtomicLong();
+    for ( int t = 0; t < 4; t++ ) {
+      Thread thread = new Thread( () -> {
+        for ( long i = 0; i < 20000; i++ ) {
+          Object value = cache.get( i % 2000 );
+          if ( value == null ) {
+            cache.putIfAbsent( i % 2000, i % 2000 * 10 );
+          } else if ( (Long) value != i % 2000 * 10 ) {
+            wrong.incrementAndGet();
+          }
+        }
+      } );
+      threads.add( thread );
+      thread.start();
+    }
+    for ( Thread thread : threads ) {
+      thread.join();
+    }
+    assertEquals( 0, wrong.get() );
+    assertTrue( cache.size() <= 1000 + threads.size() );
+  }
+}
@@ -275,6 +275,18 @@ public class DatabaseTest {
     verify( rsMetaData, times( 1 ) ).getColumnCount();
   }
 
+  @Test
+  public void testGetLookupCallPSpassedFailingOnMultipleResults() throws SQLException, KettleDatabaseException {
+    when( ps.executeQuery() ).thenReturn( rs );
+    when( rs.getMetaData() ).thenReturn( rsMetaData );
+    when( rsMetaData.getColumnCount() ).thenReturn( 0 );
+
+    Database db = new Database( log, meta );
+    db.getLookup( ps, true );
+    db.getLookup( ps, true );
+    verify( rsMetaData, times( 2 ) ).getColumnCount();
+  }
+
   @Test
   public void testCreateKettleDatabaseBatchExceptionNullUpdatesWhenSQLException() {
     assertNull( Database.createKettleDatabaseBatchException( "", new SQLException() ).getUpdateCounts() );
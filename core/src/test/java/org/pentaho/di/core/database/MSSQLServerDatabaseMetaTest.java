@@ -252,4 +252,15 @@ public class MSSQLServerDatabaseMetaTest {
 
   }
 
+  @Test
+  public void testGetSQLUpsert() {
+    assertEquals( "MERGE INTO FOO AS t USING (VALUES (?, ?, ?), (?, ?, ?)) AS s (ID, A, B) ON t.ID = s.ID"
+        + " WHEN MATCHED THEN UPDATE SET t.A = s.A WHEN NOT MATCHED THEN INSERT (ID, A, B) VALUES (s.ID, s.A, s.B);",
+      nativeMeta.getSQLUpsert( "FOO", new String[] { "ID" }, new String[] { "ID", "A", "B" }, new String[] { "A" },
+        2 ) );
+    assertEquals( "MERGE INTO FOO AS t USING (VALUES (?, ?)) AS s (ID, A) ON t.ID = s.ID"
+        + " WHEN NOT MATCHED THEN INSERT (ID, A) VALUES (s.ID, s.A);",
+      nativeMeta.getSQLUpsert( "FOO", new String[] { "ID" }, new String[] { "ID", "A" }, new String[0], 1 ) );
+  }
+
 }
@@ -396,4 +396,13 @@ public class MySQLDatabaseMetaTest {
       assert( key.startsWith( "foobar." ) );
     }
   }
+
+  @Test
+  public void testGetSQLUpsert() {
+    assertEquals( "INSERT INTO FOO (ID, A, B) VALUES (?, ?, ?), (?, ?, ?) ON DUPLICATE KEY UPDATE A = VALUES(A), "
+      + "B = VALUES(B)", nativeMeta.getSQLUpsert( "FOO", new String[] { "ID" }, new String[] { "ID", "A", "B" },
+        new String[] { "A", "B" }, 2 ) );
+    assertEquals( "INSERT INTO FOO (ID, A) VALUES (?, ?) ON DUPLICATE KEY UPDATE ID = ID",
+      nativeMeta.getSQLUpsert( "FOO", new String[] { "ID" }, new String[] { "ID", "A" }, new String[0], 1 ) );
+  }
 }
@@ -138,6 +138,9 @@ public class PostgreSQLDatabaseMetaTest {
     assertTrue( nativeMeta.requiresCastToVariousForIsNull() );
     assertFalse( nativeMeta.supportsGetBlob() );
     assertTrue( nativeMeta.useSafePoints() );
+    assertEquals( 1000, nativeMeta.getMaxInsertRowsPerStatement() );
+    assertEquals( 32767, nativeMeta.getMaxStatementParameters() );
+    assertTrue( nativeMeta.supportsCopyFromStdin() );
   }
 
   @Test
@@ -232,4 +235,14 @@ public class PostgreSQLDatabaseMetaTest {
     assertNull( nativeMeta.getSQLUnlockTables(  new String[] { "FOO" } ) );
   }
 
+  @Test
+  public void testGetSQLUpsert() {
+    assertEquals( "INSERT INTO FOO (ID, A, B) VALUES (?, ?, ?), (?, ?, ?) ON CONFLICT (ID)"
+        + " DO UPDATE SET A = EXCLUDED.A",
+      nativeMeta.getSQLUpsert( "FOO", new String[] { "ID" }, new String[] { "ID", "A", "B" }, new String[] { "A" },
+        2 ) );
+    assertEquals( "INSERT INTO FOO (ID, A) VALUES (?, ?) ON CONFLICT (ID) DO NOTHING",
+      nativeMeta.getSQLUpsert( "FOO", new String[] { "ID" }, new String[] { "ID", "A" }, new String[0], 1 ) );
+  }
+
 }
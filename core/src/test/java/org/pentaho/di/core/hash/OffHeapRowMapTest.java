@@ -0,0 +1,120 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class OffHeapRowMapTest {
+
+  private static RowMetaInterface rowMeta( ValueMetaInterface... valueMetas ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    for ( ValueMetaInterface valueMeta : valueMetas ) {
+      rowMeta.addValueMeta( valueMeta );
+    }
+    return rowMeta;
+  }
+
+  private static void putAndCheck( OffHeapRowMap map ) throws Exception {
+    Map<Long, Object[]> expected = new HashMap<>();
+    Random random = new Random( 42 );
+    for ( int i = 0; i < 50000; i++ ) {
+      long key = random.nextInt( 30000 );
+      Object[] value = new Object[] { "Value " + i, i % 3 == 0 ? null : i * 0.5 };
+      map.put( new Object[] { "Key", key }, value );
+      expected.put( key, value );
+    }
+
+    assertEquals( expected.size(), map.getSize() );
+    for ( Map.Entry<Long, Object[]> entry : expected.entrySet() ) {
+      assertArrayEquals( entry.getValue(), map.get( new Object[] { "Key", entry.getKey() } ) );
+    }
+    assertNull( map.get( new Object[] { "Key", 30000L } ) );
+    assertNull( map.get( new Object[] { "Other key", 1L } ) );
+  }
+
+  @Test
+  public void testDirectMemory() throws Exception {
+    OffHeapRowMap map = new OffHeapRowMap( rowMeta( new ValueMetaString( "string" ), new ValueMetaInteger( "id" ) ),
+      rowMeta( new ValueMetaString( "name" ), new ValueMetaNumber( "number" ) ), Long.MAX_VALUE, null );
+    assertTrue( map.isEmpty() );
+    assertNull( map.get( new Object[] { "Key", 1L } ) );
+
+    putAndCheck( map );
+    assertTrue( map.getDirectBytes() > 0 );
+    assertEquals( 0, map.getMappedBytes() );
+    map.close();
+  }
+
+  @Test
+  public void testSpillToFile() throws Exception {
+    File directory = Files.createTempDirectory( "offheap" ).toFile();
+    try {
+      // Small segments and little direct memory, most of the data ends up in the file
+      //
+      OffHeapRowMap map = new OffHeapRowMap( rowMeta( new ValueMetaString( "string" ), new ValueMetaInteger( "id" ) ),
+        rowMeta( new ValueMetaString( "name" ), new ValueMetaNumber( "number" ) ), 100000, directory.getPath(),
+        1 << 16 );
+
+      putAndCheck( map );
+      assertTrue( map.getDirectBytes() <= 100000 );
+      assertTrue( map.getMappedBytes() > 0 );
+      assertEquals( 1, directory.listFiles().length );
+
+      map.close();
+      assertEquals( 0, directory.listFiles().length );
+    } finally {
+      for ( File file : directory.listFiles() ) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+
+  @Test
+  public void testKeysThatCompareEqual() throws Exception {
+    ValueMetaInterface string = new ValueMetaString( "string" );
+    string.setCaseInsensitive( true );
+    OffHeapRowMap map = new OffHeapRowMap( rowMeta( string, new ValueMetaBigNumber( "bignumber" ) ),
+      rowMeta( new ValueMetaInteger( "value" ) ), Long.MAX_VALUE, null );
+
+    map.put( new Object[] { "Kettle", new BigDecimal( "1.10" ) }, new Object[] { 1L } );
+    map.put( new Object[] { "KETTLE", new BigDecimal( "1.1" ) }, new Object[] { 2L } );
+    map.put( new Object[] { null, null }, new Object[] { null } );
+
+    assertEquals( 2, map.getSize() );
+    assertArrayEquals( new Object[] { 2L }, map.get( new Object[] { "kettle", new BigDecimal( "1.100" ) } ) );
+    assertArrayEquals( new Object[] { null }, map.get( new Object[] { null, null } ) );
+    assertNull( map.get( new Object[] { "kettle", null } ) );
+    map.close();
+  }
+}
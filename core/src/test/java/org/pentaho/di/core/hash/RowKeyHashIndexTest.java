@@ -0,0 +1,140 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaInternetAddress;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+public class RowKeyHashIndexTest {
+
+  private static RowMetaInterface rowMeta( ValueMetaInterface... valueMetas ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    for ( ValueMetaInterface valueMeta : valueMetas ) {
+      rowMeta.addValueMeta( valueMeta );
+    }
+    return rowMeta;
+  }
+
+  @Test
+  public void testAllDataTypes() throws Exception {
+    RowMetaInterface rowMeta = rowMeta( new ValueMetaBoolean( "boolean" ), new ValueMetaDate( "date" ),
+      new ValueMetaNumber( "number" ), new ValueMetaString( "string" ), new ValueMetaInteger( "integer" ),
+      new ValueMetaBigNumber( "bignumber" ), new ValueMetaBinary( "binary" ), new ValueMetaTimestamp( "timestamp" ),
+      new ValueMetaInternetAddress( "inet" ) );
+    Object[] row = new Object[] { true, new Date( 1514764800000L ), 5.1, "test", 123L, new BigDecimal( "123.1" ),
+      new byte[] { 1, 0 }, Timestamp.valueOf( "2018-01-01 10:10:10.000000001" ),
+      InetAddress.getByAddress( new byte[] { 127, 0, 0, 1 } ) };
+
+    RowKeyHashIndex index = new RowKeyHashIndex( rowMeta );
+    assertEquals( -1, index.get( row ) );
+    assertEquals( 0, index.add( row ) );
+    assertEquals( 0, index.get( row.clone() ) );
+    assertEquals( 1, index.getSize() );
+
+    for ( int i = 0; i < row.length; i++ ) {
+      Object[] other = row.clone();
+      other[i] = null;
+      assertEquals( -1, index.get( other ) );
+      assertEquals( i + 1, index.add( other ) );
+    }
+    Object[] other = row.clone();
+    other[7] = Timestamp.valueOf( "2018-01-01 10:10:10.000000002" );
+    assertEquals( -1, index.get( other ) );
+  }
+
+  @Test
+  public void testKeysThatCompareEqual() throws KettleValueException {
+    ValueMetaInterface string = new ValueMetaString( "string" );
+    string.setCaseInsensitive( true );
+    RowKeyHashIndex index = new RowKeyHashIndex( rowMeta( string, new ValueMetaBigNumber( "bignumber" ) ) );
+
+    assertEquals( 0, index.add( new Object[] { "Key", new BigDecimal( "1.10" ) } ) );
+    assertEquals( 0, index.get( new Object[] { "kEY", new BigDecimal( "1.1" ) } ) );
+    assertEquals( -1, index.get( new Object[] { "kEY", new BigDecimal( "1.2" ) } ) );
+    assertEquals( 1, index.add( new Object[] { "Key", BigDecimal.ZERO } ) );
+    assertEquals( 1, index.get( new Object[] { "KEY", new BigDecimal( "0.000" ) } ) );
+  }
+
+  @Test
+  public void testKeyFieldsTakenFromRow() throws KettleValueException {
+    RowKeyHashIndex index = new RowKeyHashIndex( rowMeta( new ValueMetaString( "a" ), new ValueMetaInteger( "b" ) ),
+      new int[] { 2, 0 }, true );
+
+    assertEquals( 0, index.add( new Object[] { 1L, "ignored", "x" } ) );
+    assertEquals( 0, index.get( new Object[] { 1L, "other", "x" } ) );
+    assertEquals( -1, index.get( new Object[] { 2L, "ignored", "x" } ) );
+  }
+
+  @Test
+  public void testManyKeys() throws KettleValueException {
+    RowKeyHashIndex stringIndex = new RowKeyHashIndex( rowMeta( new ValueMetaString( "string" ) ) );
+    RowKeyHashIndex integerIndex = new RowKeyHashIndex( rowMeta( new ValueMetaInteger( "integer" ) ) );
+    RowKeyHashIndex hashIndex = new RowKeyHashIndex( rowMeta( new ValueMetaString( "string" ) ), null, false );
+    for ( int i = 0; i < 100000; i++ ) {
+      assertEquals( i, stringIndex.add( new Object[] { "key" + i } ) );
+      assertEquals( i, integerIndex.add( new Object[] { (long) i * 31 } ) );
+      assertEquals( i, hashIndex.add( new Object[] { "key" + i } ) );
+    }
+    for ( int i = 0; i < 100000; i++ ) {
+      assertEquals( i, stringIndex.get( new Object[] { "key" + i } ) );
+      assertEquals( i, integerIndex.get( new Object[] { (long) i * 31 } ) );
+      assertEquals( i, hashIndex.get( new Object[] { "key" + i } ) );
+    }
+    assertEquals( 100000, stringIndex.getSize() );
+    assertEquals( -1, integerIndex.get( new Object[] { null } ) );
+    assertEquals( 100000, integerIndex.add( new Object[] { null } ) );
+    assertEquals( 100000, integerIndex.get( new Object[] { null } ) );
+  }
+
+  @Test
+  public void testClear() throws KettleValueException {
+    RowKeyHashIndex index = new RowKeyHashIndex( rowMeta( new ValueMetaString( "string" ) ) );
+    index.add( new Object[] { "a" } );
+    index.add( new Object[] { "b" } );
+    index.clear();
+
+    assertTrue( index.isEmpty() );
+    assertEquals( -1, index.get( new Object[] { "a" } ) );
+    assertEquals( 0, index.add( new Object[] { "b" } ) );
+  }
+
+  @Test
+  public void testHashCodeOfEqualKeys() throws KettleValueException {
+    ValueMetaInterface string = new ValueMetaString( "string" );
+    string.setCaseInsensitive( true );
+    RowKeyHashIndex index = new RowKeyHashIndex( rowMeta( string ) );
+
+    assertEquals( index.getHashCode( new Object[] { "abc" } ), index.getHashCode( new Object[] { "ABC" } ) );
+  }
+}
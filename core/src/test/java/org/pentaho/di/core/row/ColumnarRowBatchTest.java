@@ -0,0 +1,135 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class ColumnarRowBatchTest {
+
+  private static RowMetaInterface createRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "count" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    return rowMeta;
+  }
+
+  @Test
+  public void testOnlyNumericFieldsAreVectorized() {
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 4 );
+
+    assertArrayEquals( new int[] { 1, 2 }, batch.getVectorColumns() );
+    assertFalse( batch.isLongVector( 0 ) );
+    assertFalse( batch.isDoubleVector( 0 ) );
+    assertTrue( batch.isLongVector( 1 ) );
+    assertTrue( batch.isDoubleVector( 2 ) );
+  }
+
+  @Test
+  public void testSelectedColumns() {
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 4, new int[] { 0, 2, 2, 5 } );
+
+    assertArrayEquals( new int[] { 2 }, batch.getVectorColumns() );
+    assertFalse( batch.isLongVector( 1 ) );
+    assertNull( batch.getLongVector( 1 ) );
+  }
+
+  @Test
+  public void testLoadKeepsValuesAndNulls() throws Exception {
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 2 );
+    Object[] first = new Object[] { "a", 1L, 1.5 };
+    batch.load( Arrays.asList( first, new Object[] { "b", null, 2.5 }, new Object[] { "c", 3L, null } ) );
+
+    assertEquals( 3, batch.size() );
+    assertSame( first, batch.getRow( 0 ) );
+    assertEquals( 1L, batch.getLong( 1, 0 ) );
+    assertEquals( 3L, batch.getLongVector( 1 )[2] );
+    assertEquals( 2.5, batch.getDoubleVector( 2 )[1], 0.0 );
+    assertTrue( batch.isNull( 1, 1 ) );
+    assertTrue( batch.isNull( 2, 2 ) );
+    assertFalse( batch.isNull( 2, 0 ) );
+    assertTrue( batch.hasNulls( 1 ) );
+
+    assertEquals( "b", batch.getValue( 0, 1 ) );
+    assertEquals( 3L, batch.getValue( 1, 2 ) );
+    assertNull( batch.getValue( 1, 1 ) );
+    assertEquals( 1.5, batch.getValue( 2, 0 ) );
+  }
+
+  @Test
+  public void testReloadClearsPreviousNulls() throws Exception {
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 4 );
+    batch.load( Arrays.asList( new Object[] { "a", null, null }, new Object[] { "b", null, null } ) );
+    batch.load( Arrays.<Object[]>asList( new Object[] { "c", 7L, 0.5 } ) );
+
+    assertEquals( 1, batch.size() );
+    assertFalse( batch.hasNulls( 1 ) );
+    assertFalse( batch.hasNulls( 2 ) );
+    assertEquals( 7L, batch.getValue( 1, 0 ) );
+  }
+
+  @Test
+  public void testLoadOnlyFirstFields() throws Exception {
+    RowMetaInterface rowMeta = createRowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "result" ) );
+    ColumnarRowBatch batch = new ColumnarRowBatch( rowMeta, 4 );
+
+    // The result field holds a stale value that must not be read
+    batch.load( Arrays.<Object[]>asList( new Object[] { "a", 2L, 1.0, "stale" } ), 3 );
+    batch.setLong( 3, 0, batch.getLong( 1, 0 ) * 2 );
+
+    assertEquals( 4L, batch.getValue( 3, 0 ) );
+    batch.setNull( 3, 0 );
+    assertNull( batch.getValue( 3, 0 ) );
+  }
+
+  @Test
+  public void testGrowsBeyondCapacity() throws Exception {
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 1 );
+    for ( long i = 0; i < 200; i++ ) {
+      batch.addRow( new Object[] { null, i % 3 == 0 ? null : i, (double) i } );
+    }
+
+    assertEquals( 200, batch.size() );
+    for ( int i = 0; i < 200; i++ ) {
+      assertEquals( i % 3 == 0, batch.isNull( 1, i ) );
+      assertEquals( i, batch.getDouble( 2, i ), 0.0 );
+    }
+    assertEquals( 199L, batch.getLong( 1, 199 ) );
+  }
+
+  @Test
+  public void testIsVectorizable() {
+    ValueMetaInterface lazy = new ValueMetaInteger( "lazy" );
+    lazy.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+
+    assertTrue( ColumnarRowBatch.isVectorizable( new ValueMetaInteger( "i" ) ) );
+    assertTrue( ColumnarRowBatch.isVectorizable( new ValueMetaNumber( "n" ) ) );
+    assertFalse( ColumnarRowBatch.isVectorizable( new ValueMetaString( "s" ) ) );
+    assertFalse( ColumnarRowBatch.isVectorizable( lazy ) );
+    assertFalse( ColumnarRowBatch.isVectorizable( null ) );
+  }
+}
@@ -0,0 +1,273 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleEOFException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaInternetAddress;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+public class CompactRowCodecTest {
+
+  private static RowMetaInterface createRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "timestamp" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "boolean" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "bignumber" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "binary" ) );
+    rowMeta.addValueMeta( new ValueMetaInternetAddress( "inet" ) );
+    return rowMeta;
+  }
+
+  private static byte[] write( RowMetaInterface rowMeta, List<Object[]> rows ) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CompactRowWriter writer = new CompactRowWriter( rowMeta, bytes );
+    for ( Object[] row : rows ) {
+      writer.writeRow( row );
+    }
+    writer.close();
+    return bytes.toByteArray();
+  }
+
+  private static List<Object[]> read( RowMetaInterface rowMeta, byte[] bytes ) throws Exception {
+    CompactRowReader reader = new CompactRowReader( rowMeta, new ByteArrayInputStream( bytes ) );
+    List<Object[]> rows = new ArrayList<>();
+    try {
+      while ( true ) {
+        rows.add( reader.readRow() );
+      }
+    } catch ( KettleEOFException e ) {
+      // done
+    }
+    return rows;
+  }
+
+  @Test
+  public void testRoundTripAllTypes() throws Exception {
+    RowMetaInterface rowMeta = createRowMeta();
+    Timestamp timestamp = new Timestamp( 1234567890123L );
+    timestamp.setNanos( 123456789 );
+    Object[] row = new Object[] { "Kéttle", -42L, 3.25, new Date( -1000L ), timestamp, Boolean.TRUE,
+      new BigDecimal( "-12345678901234567890.0123" ), new byte[] { 1, 2, 3 }, InetAddress.getByName( "127.0.0.1" ) };
+    Object[] nulls = new Object[ rowMeta.size() ];
+
+    List<Object[]> rows = new ArrayList<>();
+    rows.add( row );
+    rows.add( nulls );
+    rows.add( new Object[] { "", Long.MIN_VALUE, Double.NaN, new Date( 0L ), null, Boolean.FALSE, BigDecimal.ZERO,
+      new byte[ 0 ], null } );
+    List<Object[]> result = read( rowMeta, write( rowMeta, rows ) );
+
+    assertEquals( 3, result.size() );
+    assertEquals( 0, rowMeta.compare( row, result.get( 0 ) ) );
+    assertEquals( 123456789, ( (Timestamp) result.get( 0 )[ 4 ] ).getNanos() );
+    assertArrayEquals( new byte[] { 1, 2, 3 }, (byte[]) result.get( 0 )[ 7 ] );
+    for ( int i = 0; i < rowMeta.size(); i++ ) {
+      assertNull( result.get( 1 )[ i ] );
+    }
+    assertEquals( Long.MIN_VALUE, result.get( 2 )[ 1 ] );
+    assertTrue( Double.isNaN( (Double) result.get( 2 )[ 2 ] ) );
+    assertEquals( 0, ( (byte[]) result.get( 2 )[ 7 ] ).length );
+  }
+
+  @Test
+  public void testRowFailingToEncodeIsLeftOut() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CompactRowWriter writer = new CompactRowWriter( rowMeta, bytes );
+
+    writer.writeRow( new Object[] { "a", 1L } );
+    try {
+      // The string goes in the dictionary before the integer fails
+      writer.writeRow( new Object[] { "b", "not an integer" } );
+      fail( "The row shouldn't encode" );
+    } catch ( KettleFileException e ) {
+      // expected
+    }
+    writer.writeRow( new Object[] { "b", 2L } );
+    writer.writeRow( new Object[] { "b", 3L } );
+    writer.close();
+
+    List<Object[]> result = read( rowMeta, bytes.toByteArray() );
+    assertEquals( 3, result.size() );
+    assertEquals( 0, rowMeta.compare( new Object[] { "a", 1L }, result.get( 0 ) ) );
+    assertEquals( 0, rowMeta.compare( new Object[] { "b", 2L }, result.get( 1 ) ) );
+    assertEquals( 0, rowMeta.compare( new Object[] { "b", 3L }, result.get( 2 ) ) );
+  }
+
+  @Test
+  public void testSerializeSingleRows() throws Exception {
+    RowMetaInterface rowMeta = createRowMeta();
+    Object[] row = new Object[] { "Kéttle", 42L, -0.5, new Date( 1000L ), new Timestamp( 2000L ), Boolean.FALSE,
+      new BigDecimal( "1.50" ), new byte[] { 9 }, InetAddress.getByName( "127.0.0.1" ) };
+    Object[] nulls = new Object[ rowMeta.size() ];
+    CompactRowSerializer serializer = new CompactRowSerializer( rowMeta );
+
+    // Store both rows in one array, the second one after some unrelated bytes
+    //
+    int length = serializer.encode( row );
+    byte[] bytes = new byte[ length + 3 ];
+    System.arraycopy( serializer.getBuffer(), 0, bytes, 0, length );
+    int nullsLength = serializer.encode( nulls );
+    bytes = Arrays.copyOf( bytes, bytes.length + nullsLength );
+    System.arraycopy( serializer.getBuffer(), 0, bytes, length + 3, nullsLength );
+
+    Object[] result = serializer.decode( bytes, length + 3, nullsLength );
+    assertEquals( rowMeta.size(), result.length );
+    for ( int i = 0; i < rowMeta.size(); i++ ) {
+      assertNull( result[ i ] );
+    }
+    result = serializer.decode( bytes, 0, length );
+    assertEquals( rowMeta.size(), result.length );
+    assertEquals( 0, rowMeta.compare( row, result ) );
+    assertEquals( new BigDecimal( "1.50" ), result[ 6 ] );
+  }
+
+  @Test
+  public void testSerializeTruncatedRowIsRejected() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    CompactRowSerializer serializer = new CompactRowSerializer( rowMeta );
+    int length = serializer.encode( new Object[] { "abcdef", 123456789L } );
+
+    try {
+      serializer.decode( serializer.getBuffer(), 0, length - 2 );
+      fail( "Expected a KettleFileException" );
+    } catch ( KettleFileException e ) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRepeatedStringsAreSmallerThanRowMetaFormat() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "country" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    List<Object[]> rows = new ArrayList<>();
+    ByteArrayOutputStream classic = new ByteArrayOutputStream();
+    DataOutputStream dos = new DataOutputStream( classic );
+    for ( int i = 0; i < 10000; i++ ) {
+      Object[] row = new Object[] { "Country " + ( i % 10 ), (long) i };
+      rows.add( row );
+      rowMeta.writeData( dos, row );
+    }
+    byte[] compact = write( rowMeta, rows );
+
+    assertTrue( compact.length * 4 < classic.size() );
+    List<Object[]> result = read( rowMeta, compact );
+    assertEquals( rows.size(), result.size() );
+    for ( int i = 0; i < rows.size(); i++ ) {
+      assertEquals( rows.get( i )[ 0 ], result.get( i )[ 0 ] );
+      assertEquals( rows.get( i )[ 1 ], result.get( i )[ 1 ] );
+    }
+  }
+
+  @Test
+  public void testLargeValuesSpanManyBlocks() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "text" ) );
+
+    StringBuilder text = new StringBuilder();
+    for ( int i = 0; i < 100000; i++ ) {
+      text.append( (char) ( 'a' + i % 26 ) );
+    }
+    List<Object[]> rows = new ArrayList<>();
+    for ( int i = 0; i < 20; i++ ) {
+      rows.add( new Object[] { i + text.toString() } );
+    }
+
+    List<Object[]> result = read( rowMeta, write( rowMeta, rows ) );
+    assertEquals( 20, result.size() );
+    assertEquals( rows.get( 19 )[ 0 ], result.get( 19 )[ 0 ] );
+  }
+
+  @Test
+  public void testBinaryStringAndIndexedStorage() throws Exception {
+    ValueMetaString lazy = new ValueMetaString( "lazy" );
+    lazy.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    lazy.setStorageMetadata( new ValueMetaString( "lazy" ) );
+    ValueMetaString indexed = new ValueMetaString( "indexed" );
+    indexed.setStorageType( ValueMetaInterface.STORAGE_TYPE_INDEXED );
+    indexed.setIndex( new Object[] { "a", "b" } );
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( lazy );
+    rowMeta.addValueMeta( indexed );
+
+    List<Object[]> rows = new ArrayList<>();
+    rows.add( new Object[] { "abc".getBytes( "UTF-8" ), 1 } );
+    List<Object[]> result = read( rowMeta, write( rowMeta, rows ) );
+
+    assertArrayEquals( "abc".getBytes( "UTF-8" ), (byte[]) result.get( 0 )[ 0 ] );
+    assertEquals( 1, result.get( 0 )[ 1 ] );
+  }
+
+  @Test
+  public void testEmptyStream() throws Exception {
+    RowMetaInterface rowMeta = createRowMeta();
+    assertEquals( 0, read( rowMeta, write( rowMeta, new ArrayList<Object[]>() ) ).size() );
+    assertEquals( 0, read( rowMeta, new byte[ 0 ] ).size() );
+  }
+
+  @Test
+  public void testFieldCountMismatchIsRejected() throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    rows.add( new Object[] { "a", 1L } );
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    byte[] bytes = write( rowMeta, rows );
+
+    try {
+      new CompactRowReader( createRowMeta(), new ByteArrayInputStream( bytes ) ).readRow();
+      fail( "Expected a KettleFileException" );
+    } catch ( KettleEOFException e ) {
+      fail( "Expected a format error, not the end of the stream" );
+    } catch ( KettleFileException e ) {
+      // expected
+    }
+  }
+}
@@ -34,6 +34,7 @@ import org.w3c.dom.Document;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -443,6 +444,84 @@ public class RowMetaTest {
     }
   }
 
+  @Test
+  public void testFrozenReadsMatch() throws Exception {
+    RowMeta frozen = ( (RowMeta) rowMeta ).freeze();
+
+    assertTrue( frozen.isFrozen() );
+    assertEquals( 3, frozen.size() );
+    assertFalse( frozen.isEmpty() );
+    assertSame( integer, frozen.getValueMeta( 1 ) );
+    assertNull( frozen.getValueMeta( 3 ) );
+    assertEquals( 3, frozen.getValueMetaList().size() );
+    assertEquals( 2, frozen.indexOfValue( "date" ) );
+    assertEquals( 2, frozen.indexOfValue( "DATE" ) );
+    assertEquals( -1, frozen.indexOfValue( "nope" ) );
+    assertEquals( -1, frozen.indexOfValue( null ) );
+    assertSame( string, frozen.searchValueMeta( "String" ) );
+    assertNull( frozen.searchValueMeta( "nope" ) );
+    assertEquals( 0, frozen.compare( new Object[] { "a", 1L, null }, new Object[] { "a", 1L, null } ) );
+  }
+
+  @Test
+  public void testFrozenIndexOfManyFields() {
+    RowMeta frozen = new RowMeta();
+    for ( int i = 0; i < 500; i++ ) {
+      frozen.addValueMeta( new ValueMetaInteger( "field" + i ) );
+    }
+    frozen.freeze();
+
+    for ( int i = 0; i < 500; i++ ) {
+      assertEquals( i, frozen.indexOfValue( "field" + i ) );
+      assertEquals( i, frozen.indexOfValue( "FIELD" + i ) );
+    }
+    assertEquals( -1, frozen.indexOfValue( "field500" ) );
+  }
+
+  @Test
+  public void testFrozenIndexOfFindsFirstDuplicate() {
+    RowMeta frozen = new RowMeta();
+    frozen.setValueMetaList( new ArrayList<ValueMetaInterface>( Arrays.asList(
+      new ValueMetaString( "Name" ), new ValueMetaString( "name" ), new ValueMetaString( "other" ) ) ) );
+    frozen.freeze();
+
+    assertEquals( 0, frozen.indexOfValue( "name" ) );
+    assertEquals( 0, frozen.indexOfValue( "Name" ) );
+  }
+
+  @Test
+  public void testModificationThawsFrozenRowMeta() {
+    RowMeta frozen = ( (RowMeta) rowMeta ).freeze();
+    frozen.addValueMeta( charly );
+
+    assertFalse( frozen.isFrozen() );
+    assertEquals( 4, frozen.size() );
+    assertEquals( 3, frozen.indexOfValue( "charly" ) );
+
+    frozen.freeze();
+    frozen.removeValueMeta( 0 );
+    assertFalse( frozen.isFrozen() );
+    assertEquals( 2, frozen.indexOfValue( "charly" ) );
+  }
+
+  @Test
+  public void testFrozenIndexOfSeesRenamedField() {
+    RowMeta frozen = ( (RowMeta) rowMeta ).freeze();
+    integer.setName( "renamed" );
+
+    assertEquals( -1, frozen.indexOfValue( "integer" ) );
+    assertEquals( 1, frozen.indexOfValue( "renamed" ) );
+  }
+
+  @Test
+  public void testCloneOfFrozenRowMetaIsNotFrozen() {
+    RowMeta clone = ( (RowMeta) rowMeta ).freeze().clone();
+
+    assertFalse( clone.isFrozen() );
+    clone.addValueMeta( charly );
+    assertEquals( 3, rowMeta.size() );
+  }
+
   private void fillRowMeta() {
     rowMeta.addValueMeta( 0, new ValueMetaString( "sample" ) );
     for ( int i = 1; i < 10; i++ ) {
@@ -0,0 +1,96 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.sketch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+  @Test
+  public void testSmallCardinalitiesAreExact() {
+    HyperLogLog sketch = new HyperLogLog();
+    assertTrue( sketch.isEmpty() );
+    for ( int i = 0; i < 1000; i++ ) {
+      sketch.add( "value" + ( i % 500 ) );
+      sketch.add( null );
+    }
+    assertTrue( sketch.isSparse() );
+    assertEquals( 500, sketch.cardinality() );
+  }
+
+  @Test
+  public void testLargeCardinalitiesAreEstimated() {
+    HyperLogLog sketch = new HyperLogLog( 14 );
+    int n = 200000;
+    for ( int i = 0; i < n; i++ ) {
+      sketch.add( (long) i );
+      sketch.add( (long) i );
+    }
+    assertFalse( sketch.isSparse() );
+    // The standard error is 0.8%, allow for four times that
+    assertEquals( n, sketch.cardinality(), n * 0.032 );
+  }
+
+  @Test
+  public void testMerge() {
+    HyperLogLog all = new HyperLogLog( 12 );
+    HyperLogLog first = new HyperLogLog( 12 );
+    HyperLogLog second = new HyperLogLog( 12 );
+    HyperLogLog small = new HyperLogLog( 12 );
+    for ( int i = 0; i < 50000; i++ ) {
+      String value = "value" + i;
+      all.add( value );
+      ( i % 3 == 0 ? first : second ).add( value );
+    }
+    small.add( "value1" );
+    small.add( "other" );
+    first.merge( second );
+    assertEquals( all.cardinality(), first.cardinality() );
+
+    first.merge( small );
+    all.add( "other" );
+    assertEquals( all.cardinality(), first.cardinality() );
+
+    small.merge( all );
+    assertEquals( all.cardinality(), small.cardinality() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testMergeDifferentPrecisions() {
+    new HyperLogLog( 10 ).merge( new HyperLogLog( 12 ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidPrecision() {
+    new HyperLogLog( HyperLogLog.MAX_PRECISION + 1 );
+  }
+
+  @Test
+  public void testEqualValuesHashTheSame() {
+    assertEquals( HyperLogLog.hash( new BigDecimal( "1.50" ) ), HyperLogLog.hash( new BigDecimal( "1.5" ) ) );
+    assertEquals( HyperLogLog.hash( 0.0 ), HyperLogLog.hash( -0.0 ) );
+    assertEquals( HyperLogLog.hash( "abc".getBytes() ), HyperLogLog.hash( "abc".getBytes() ) );
+    Timestamp timestamp = new Timestamp( 1000L );
+    Timestamp other = new Timestamp( 1000L );
+    other.setNanos( 1 );
+    assertFalse( HyperLogLog.hash( timestamp ) == HyperLogLog.hash( other ) );
+  }
+}
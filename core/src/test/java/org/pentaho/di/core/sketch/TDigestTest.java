@@ -0,0 +1,108 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.sketch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TDigestTest {
+
+  @Test
+  public void testEmptyAndSingleValue() {
+    TDigest digest = new TDigest();
+    assertTrue( digest.isEmpty() );
+    assertTrue( Double.isNaN( digest.percentile( 50 ) ) );
+
+    digest.add( 3.5 );
+    digest.add( Double.NaN );
+    assertEquals( 1, digest.size() );
+    assertEquals( 3.5, digest.percentile( 0 ), 0.0 );
+    assertEquals( 3.5, digest.percentile( 99 ), 0.0 );
+  }
+
+  @Test
+  public void testFewValuesAreKeptExactly() {
+    TDigest digest = new TDigest();
+    for ( int i = 1; i <= 5; i++ ) {
+      digest.add( i );
+    }
+    assertEquals( 5, digest.getNrCentroids() );
+    assertEquals( 1.0, digest.percentile( 0 ), 0.0 );
+    assertEquals( 3.0, digest.percentile( 50 ), 0.0 );
+    assertEquals( 5.0, digest.percentile( 100 ), 0.0 );
+  }
+
+  @Test
+  public void testPercentilesAreEstimated() {
+    Random random = new Random( 42 );
+    int n = 100000;
+    double[] values = new double[n];
+    TDigest digest = new TDigest( 100 );
+    for ( int i = 0; i < n; i++ ) {
+      values[i] = Math.exp( random.nextGaussian() );
+      digest.add( values[i] );
+    }
+    Arrays.sort( values );
+    assertTrue( digest.getNrCentroids() <= 100 );
+    assertEquals( n, digest.size() );
+    assertEquals( values[0], digest.percentile( 0 ), 0.0 );
+    assertEquals( values[n - 1], digest.percentile( 100 ), 0.0 );
+    for ( double percentile : new double[] { 1, 10, 25, 50, 75, 90, 99, 99.9 } ) {
+      assertRank( values, percentile, digest.percentile( percentile ) );
+    }
+  }
+
+  @Test
+  public void testMerge() {
+    Random random = new Random( 7 );
+    int n = 50000;
+    double[] values = new double[n];
+    TDigest first = new TDigest();
+    TDigest second = new TDigest();
+    for ( int i = 0; i < n; i++ ) {
+      values[i] = random.nextDouble() * 1000;
+      ( i % 4 == 0 ? first : second ).add( values[i] );
+    }
+    first.merge( second );
+    Arrays.sort( values );
+    assertEquals( n, first.size() );
+    assertEquals( values[0], first.percentile( 0 ), 0.0 );
+    assertEquals( values[n - 1], first.percentile( 100 ), 0.0 );
+    for ( double percentile : new double[] { 1, 50, 99 } ) {
+      assertRank( values, percentile, first.percentile( percentile ) );
+    }
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidPercentile() {
+    new TDigest().percentile( 101 );
+  }
+
+  /**
+   * The rank of the estimate has to be within 0.5% of the rank of the percentile.
+   */
+  private static void assertRank( double[] sorted, double percentile, double estimate ) {
+    int rank = Arrays.binarySearch( sorted, estimate );
+    if ( rank < 0 ) {
+      rank = -rank - 1;
+    }
+    double expected = percentile / 100.0 * sorted.length;
+    assertEquals( "percentile " + percentile, expected, rank, sorted.length * 0.005 );
+  }
+}
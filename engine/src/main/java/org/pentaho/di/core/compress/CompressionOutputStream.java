@@ -39,6 +39,21 @@ public abstract class CompressionOutputStream extends OutputStream {
     // Default no-op behavior
   }
 
+  /**
+   * Writes all the compressed data, including any trailer of the format, without closing the wrapped stream. Use this
+   * when the wrapped stream has to stay open, a socket for example.
+   *
+   * @throws IOException
+   */
+  public void finish() throws IOException {
+    flush();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    delegate.flush();
+  }
+
   @Override
   public void close() throws IOException {
     delegate.close();
@@ -38,6 +38,11 @@ public class GZIPCompressionOutputStream extends CompressionOutputStream {
     return delegate;
   }
 
+  @Override
+  public void finish() throws IOException {
+    ( (GZIPOutputStream) delegate ).finish();
+  }
+
   @Override
   public void close() throws IOException {
     GZIPOutputStream zos = (GZIPOutputStream) delegate;
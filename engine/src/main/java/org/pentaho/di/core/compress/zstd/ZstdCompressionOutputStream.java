@@ -0,0 +1,71 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.zstd;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.pentaho.di.core.compress.CompressionOutputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+
+public class ZstdCompressionOutputStream extends CompressionOutputStream {
+
+  private final OutputStream out;
+  private boolean finished;
+
+  public ZstdCompressionOutputStream( OutputStream out, CompressionProvider provider ) throws IOException {
+    super( new ZstdCompressorOutputStream( new FinishOutputStream( out ) ), provider );
+    this.out = out;
+  }
+
+  /**
+   * Ends the Zstandard frame. The wrapped stream stays open.
+   */
+  @Override
+  public void finish() throws IOException {
+    if ( !finished ) {
+      finished = true;
+      delegate.close();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    finish();
+    out.close();
+  }
+
+  /**
+   * Zstandard only writes the end of a frame when the stream is closed. This keeps that close from reaching the
+   * wrapped stream.
+   */
+  private static class FinishOutputStream extends FilterOutputStream {
+
+    FinishOutputStream( OutputStream out ) {
+      super( out );
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException {
+      out.write( b, off, len );
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+}
@@ -0,0 +1,234 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streams the data of a bulk loader into the stdin of a load utility, a named pipe or the copy API of a driver without
+ * an intermediate file. The loader formats its rows straight into a small pool of byte buffers, a feeder thread writes
+ * the full buffers to the target. When the target can't keep up, the loader waits for a free buffer: the memory used
+ * stays bounded and the rows are formatted while the previous ones are loaded.
+ * <p>
+ * The stream is written by one thread, {@link #abort()} can be called from any thread. An error writing to the target
+ * is thrown from the next write, flush or close. Bulk loaders use it through {@link StreamingLoader}.
+ *
+ * @since 10.3
+ */
+public class StreamingLoadOutputStream extends OutputStream {
+
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  public static final int DEFAULT_NR_BUFFERS = 8;
+
+  /** Tells the feeder there is no more data */
+  private static final Buffer END = new Buffer( 0 );
+
+  private final OutputStream target;
+  private final BlockingQueue<Buffer> freeBuffers;
+  private final BlockingQueue<Buffer> fullBuffers;
+  private final Thread feeder;
+
+  private volatile Throwable error;
+
+  private final int bufferSize;
+
+  private Buffer current;
+  private volatile boolean closed;
+
+  /**
+   * Streams to the target through the default pool of buffers.
+   *
+   * @param target     the stream the load utility reads, closed at the end
+   * @param threadName the name of the feeder thread
+   */
+  public StreamingLoadOutputStream( OutputStream target, String threadName ) {
+    this( target, threadName, DEFAULT_BUFFER_SIZE, DEFAULT_NR_BUFFERS );
+  }
+
+  /**
+   * @param target     the stream the load utility reads, closed at the end
+   * @param threadName the name of the feeder thread
+   * @param bufferSize the size of a buffer, written to the target at once
+   * @param nrBuffers  the number of buffers, at least 2: one to format rows into while the others are written
+   */
+  public StreamingLoadOutputStream( OutputStream target, String threadName, int bufferSize, int nrBuffers ) {
+    this.target = target;
+    this.bufferSize = Math.max( 1, bufferSize );
+    int nr = Math.max( 2, nrBuffers );
+    freeBuffers = new ArrayBlockingQueue<>( nr );
+    fullBuffers = new ArrayBlockingQueue<>( nr + 1 );
+    for ( int i = 1; i < nr; i++ ) {
+      freeBuffers.add( new Buffer( this.bufferSize ) );
+    }
+    current = new Buffer( this.bufferSize );
+
+    feeder = new Thread( this::feed, threadName );
+    feeder.setDaemon( true );
+    feeder.start();
+  }
+
+  @Override
+  public void write( int b ) throws IOException {
+    ensureOpen();
+    if ( current.length == current.bytes.length ) {
+      handOff();
+    }
+    current.bytes[current.length++] = (byte) b;
+  }
+
+  @Override
+  public void write( byte[] b, int off, int len ) throws IOException {
+    ensureOpen();
+    while ( len > 0 ) {
+      if ( current.length == current.bytes.length ) {
+        handOff();
+      }
+      int n = Math.min( len, current.bytes.length - current.length );
+      System.arraycopy( b, off, current.bytes, current.length, n );
+      current.length += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * Hands the data written so far to the feeder, the target is flushed once the feeder has nothing left to write.
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    if ( current.length > 0 ) {
+      handOff();
+    }
+  }
+
+  /**
+   * Waits for the feeder to write all the data, then closes the target.
+   */
+  @Override
+  public void close() throws IOException {
+    if ( closed ) {
+      return;
+    }
+    try {
+      if ( current.length > 0 && error == null ) {
+        fullBuffers.put( current );
+      }
+      current = null;
+      closed = true;
+      fullBuffers.put( END );
+      feeder.join();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      abort();
+      throw new InterruptedIOException( "Interrupted while waiting for the load data to be written" );
+    }
+    checkError();
+  }
+
+  /**
+   * Stops writing without waiting for the data not written yet and closes the target, for instance after the load
+   * utility failed or when the step is stopped. A writer waiting for a free buffer gets an error.
+   */
+  public void abort() {
+    if ( error == null ) {
+      error = new IOException( "The load was aborted" );
+    }
+    closed = true;
+    feeder.interrupt();
+    // Wake up a writer waiting for a buffer the feeder won't give back
+    freeBuffers.offer( new Buffer( bufferSize ) );
+    try {
+      target.close();
+    } catch ( IOException e ) {
+      // The load failed already
+    }
+  }
+
+  private void handOff() throws IOException {
+    checkError();
+    try {
+      fullBuffers.put( current );
+      current = freeBuffers.take(); // waits while the target catches up
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while waiting for the load utility" );
+    }
+    checkError();
+  }
+
+  private void ensureOpen() throws IOException {
+    if ( closed ) {
+      throw new IOException( "The load stream is closed" );
+    }
+  }
+
+  private void checkError() throws IOException {
+    Throwable e = error;
+    if ( e != null ) {
+      throw new IOException( "Error writing the load data: " + e.getMessage(), e );
+    }
+  }
+
+  /**
+   * Writes the full buffers to the target. After an error the buffers are recycled without writing them so that the
+   * loader never waits for a buffer in vain: it gets the error on its next hand off.
+   */
+  private void feed() {
+    try {
+      for ( Buffer buffer = fullBuffers.take(); buffer != END; buffer = fullBuffers.take() ) {
+        if ( error == null ) {
+          try {
+            target.write( buffer.bytes, 0, buffer.length );
+            if ( fullBuffers.isEmpty() ) {
+              target.flush();
+            }
+          } catch ( IOException | RuntimeException e ) {
+            error = e;
+          }
+        }
+        buffer.length = 0;
+        freeBuffers.offer( buffer );
+        if ( closed && error != null ) {
+          break; // aborted, nobody waits for the data anymore
+        }
+      }
+    } catch ( InterruptedException e ) {
+      if ( error == null ) {
+        error = e;
+      }
+    } finally {
+      try {
+        target.close();
+      } catch ( IOException e ) {
+        if ( error == null ) {
+          error = e;
+        }
+      }
+    }
+  }
+
+  private static final class Buffer {
+    private final byte[] bytes;
+    private int length;
+
+    Buffer( int size ) {
+      bytes = new byte[size];
+    }
+  }
+}
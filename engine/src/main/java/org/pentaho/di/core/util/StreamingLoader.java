@@ -0,0 +1,186 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * The base of the bulk loaders that stream their rows to a load utility, a named pipe or the connection of a database
+ * without an intermediate data file. A loader formats every row in {@link #formatRow(RowMetaInterface, Object[])}
+ * with the write methods of this class, which encode the values straight into the pooled buffers of a
+ * {@link StreamingLoadOutputStream}. A feeder thread writes the full buffers to the target while the next rows are
+ * formatted, the step waits for a free buffer when the target can't keep up.
+ * <p>
+ * A loader is written by the step thread. The rows are loaded once {@link #close()} returns. When the load fails or the
+ * step is stopped, {@link #abort()} closes the target without waiting for the data not written yet: a load utility
+ * that stopped reading would keep {@link #close()} waiting.
+ *
+ * @since 10.3
+ */
+public abstract class StreamingLoader {
+
+  private final CharsetEncoder encoder;
+  private final ByteBuffer encoded = ByteBuffer.allocate( 1024 );
+
+  private volatile OutputStream output;
+
+  /**
+   * @param encoding the encoding of the text written, the default encoding if empty
+   */
+  protected StreamingLoader( String encoding ) {
+    Charset charset = Utils.isEmpty( encoding ) ? Charset.defaultCharset() : Charset.forName( encoding );
+    encoder = charset.newEncoder()
+      .onMalformedInput( CodingErrorAction.REPLACE )
+      .onUnmappableCharacter( CodingErrorAction.REPLACE );
+  }
+
+  /**
+   * Starts streaming the rows to the target through the default pool of buffers.
+   *
+   * @param target     the stream the load utility reads, closed at the end
+   * @param threadName the name of the feeder thread
+   */
+  public void open( OutputStream target, String threadName ) {
+    open( target, threadName, StreamingLoadOutputStream.DEFAULT_BUFFER_SIZE,
+      StreamingLoadOutputStream.DEFAULT_NR_BUFFERS );
+  }
+
+  /**
+   * Starts streaming the rows to the target through a pool of buffers of the given size.
+   *
+   * @param target     the stream the load utility reads, closed at the end
+   * @param threadName the name of the feeder thread
+   * @param bufferSize the size of a buffer, written to the target at once
+   * @param nrBuffers  the number of buffers
+   */
+  public void open( OutputStream target, String threadName, int bufferSize, int nrBuffers ) {
+    checkClosed();
+    output = new StreamingLoadOutputStream( target, threadName, bufferSize, nrBuffers );
+  }
+
+  /**
+   * Writes the rows straight to the target without a feeder thread, for a loader that hands its data to the database
+   * in batches of its own.
+   *
+   * @param target the stream the rows are written to, closed at the end
+   */
+  public void open( OutputStream target ) {
+    checkClosed();
+    output = target;
+  }
+
+  /**
+   * @return true if the loader was opened and not closed or aborted yet
+   */
+  public boolean isOpen() {
+    return output != null;
+  }
+
+  /**
+   * Formats the row and writes it to the target.
+   *
+   * @throws IOException if writing to the target failed, for instance because the load utility stopped
+   */
+  public void writeRow( RowMetaInterface rowMeta, Object[] row ) throws KettleException, IOException {
+    getOutput();
+    formatRow( rowMeta, row );
+  }
+
+  /**
+   * Formats a row with the write methods of this class.
+   */
+  protected abstract void formatRow( RowMetaInterface rowMeta, Object[] row ) throws KettleException, IOException;
+
+  /**
+   * Writes bytes that are formatted already, for instance the binary string of a lazily converted value.
+   */
+  protected void write( byte[] bytes ) throws IOException {
+    getOutput().write( bytes, 0, bytes.length );
+  }
+
+  /**
+   * Writes text in the encoding of the loader.
+   */
+  protected void write( CharSequence text ) throws IOException {
+    CharBuffer chars = CharBuffer.wrap( text );
+    encoder.reset();
+    while ( encoder.encode( chars, encoded, true ).isOverflow() ) {
+      writeEncoded();
+    }
+    while ( encoder.flush( encoded ).isOverflow() ) {
+      writeEncoded();
+    }
+    writeEncoded();
+  }
+
+  private void writeEncoded() throws IOException {
+    getOutput().write( encoded.array(), 0, encoded.position() );
+    encoded.clear();
+  }
+
+  private OutputStream getOutput() throws IOException {
+    OutputStream stream = output;
+    if ( stream == null ) {
+      throw new IOException( "The loader is closed" );
+    }
+    return stream;
+  }
+
+  /**
+   * Waits until all the rows are written and closes the target. The loader can be opened again afterwards.
+   */
+  public void close() throws IOException {
+    OutputStream stream = output;
+    if ( stream != null ) {
+      output = null;
+      stream.close();
+    }
+  }
+
+  /**
+   * Closes the target without waiting for the rows not written yet. Can be called from another thread than the one
+   * writing the rows, for instance when the step is stopped: the writer then gets an error.
+   */
+  public void abort() {
+    OutputStream stream = output;
+    if ( stream == null ) {
+      return;
+    }
+    output = null;
+    if ( stream instanceof StreamingLoadOutputStream ) {
+      ( (StreamingLoadOutputStream) stream ).abort();
+    } else {
+      try {
+        stream.close();
+      } catch ( IOException e ) {
+        // The load failed already
+      }
+    }
+  }
+
+  private void checkClosed() {
+    if ( output != null ) {
+      throw new IllegalStateException( "The loader is open already" );
+    }
+  }
+}
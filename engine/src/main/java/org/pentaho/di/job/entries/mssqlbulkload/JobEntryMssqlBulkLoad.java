@@ -371,7 +371,9 @@ public class JobEntryMssqlBulkLoad extends JobEntryBase implements Cloneable, Jo
         //
         fileObject = KettleVFS.getFileObject( vfsFilename, this );
         if ( !( fileObject instanceof LocalFile ) ) {
-          // MSSQL BUKL INSERT can only use local files, so that's what we limit ourselves to.
+          // MSSQL BULK INSERT can only use local files, so that's what we limit ourselves to.
+          // The file is opened by the server, not by the driver: unlike MySQL LOAD DATA LOCAL, there's no way to
+          // stream a file of another VFS to it through the connection.
           //
           throw new KettleException( BaseMessages.getString(
             PKG, "JobMssqlBulkLoad.Error.OnlyLocalFileSupported", vfsFilename ) );
@@ -18,6 +18,13 @@ import org.pentaho.di.job.entry.validator.AndValidator;
 import org.pentaho.di.job.entry.validator.JobEntryValidatorUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 
 import org.apache.commons.vfs2.FileObject;
@@ -260,26 +267,33 @@ public class JobEntryMysqlBulkLoad extends JobEntryBase implements Cloneable, Jo
         // User has specified a file, We can continue ...
         //
 
-        // This is running over VFS but we need a normal file.
-        // As such, we're going to verify that it's a local file...
-        // We're also going to convert VFS FileObject to File
+        // This is running over VFS but MySQL reads a normal file.
+        // A file that isn't local is streamed to MySQL by the JDBC driver, which needs LOAD DATA LOCAL.
+        // A local file is converted from VFS FileObject to File
         //
         FileObject fileObject = KettleVFS.getFileObject( vfsFilename, this );
-        if ( !( fileObject instanceof LocalFile ) ) {
-          // MySQL LOAD DATA can only use local files, so that's what we limit ourselves to.
+        boolean streamed = !( fileObject instanceof LocalFile );
+        if ( streamed && !isLocalInfile() ) {
+          // The server can only read its own files
           //
-          throw new KettleException( "Only local files are supported at this time, file ["
+          throw new KettleException( "Only local files are supported without the local infile option, file ["
             + vfsFilename + "] is not a local file." );
         }
 
         // Convert it to a regular platform specific file name
         //
-        String realFilename = KettleVFS.getFilename( fileObject );
+        String realFilename = streamed ? vfsFilename : KettleVFS.getFilename( fileObject );
 
         // Here we go... back to the regular scheduled program...
         //
-        File file = new File( realFilename );
-        if ( ( file.exists() && file.canRead() ) || isLocalInfile() == false ) {
+        boolean readable;
+        if ( streamed ) {
+          readable = fileObject.exists() && fileObject.isReadable();
+        } else {
+          File file = new File( realFilename );
+          readable = file.exists() && file.canRead();
+        }
+        if ( readable || isLocalInfile() == false ) {
           // User has specified an existing file, We can continue ...
           if ( log.isDetailed() ) {
             logDetailed( "File [" + realFilename + "] exists." );
@@ -388,7 +402,16 @@ public class JobEntryMysqlBulkLoad extends JobEntryBase implements Cloneable, Jo
 
                 try {
                   // Run the SQL
-                  db.execStatement( SQLBULKLOAD );
+                  if ( streamed ) {
+                    if ( log.isDetailed() ) {
+                      logDetailed( "Streaming file [" + realFilename + "] to MySQL." );
+                    }
+                    try ( InputStream inputStream = KettleVFS.getInputStream( fileObject ) ) {
+                      execLoadStream( db.getConnection(), SQLBULKLOAD, inputStream );
+                    }
+                  } else {
+                    db.execStatement( SQLBULKLOAD );
+                  }
 
                   // Everything is OK...we can deconnect now
                   db.disconnect();
@@ -407,7 +430,8 @@ public class JobEntryMysqlBulkLoad extends JobEntryBase implements Cloneable, Jo
                   db.disconnect();
                   result.setNrErrors( 1 );
                   logError( "An error occurred executing this job entry : " + je.getMessage() );
-                } catch ( KettleFileException e ) {
+                } catch ( KettleFileException | IOException e ) {
+                  db.disconnect();
                   logError( "An error occurred executing this job entry : " + e.getMessage() );
                   result.setNrErrors( 1 );
                 }
@@ -447,6 +471,32 @@ public class JobEntryMysqlBulkLoad extends JobEntryBase implements Cloneable, Jo
     return result;
   }
 
+  /**
+   * Runs a LOAD DATA LOCAL statement that reads the file from a stream instead of the file named in the statement.
+   * The MySQL and MariaDB drivers accept such a stream on their statements, it's handed over by reflection so that
+   * the driver isn't needed at compile time.
+   *
+   * @param connection the connection to MySQL
+   * @param sql        the LOAD DATA LOCAL statement
+   * @param in         the content of the file, closed by the caller
+   * @throws KettleDatabaseException if the driver can't read the file from a stream or the load failed
+   */
+  static void execLoadStream( Connection connection, String sql, InputStream in ) throws KettleDatabaseException {
+    try ( Statement statement = connection.createStatement() ) {
+      Method setStream;
+      try {
+        setStream = statement.getClass().getMethod( "setLocalInfileInputStream", InputStream.class );
+      } catch ( NoSuchMethodException e ) {
+        throw new KettleDatabaseException( "The JDBC driver can't stream the file to MySQL, driver statement class "
+          + statement.getClass().getName() + ". Only local files can be loaded.", e );
+      }
+      setStream.invoke( statement, in );
+      statement.execute( sql );
+    } catch ( SQLException | IllegalAccessException | InvocationTargetException e ) {
+      throw new KettleDatabaseException( "Couldn't execute SQL: " + sql, e );
+    }
+  }
+
   public DatabaseMeta[] getUsedDatabaseConnections() {
     return new DatabaseMeta[] { connection, };
   }
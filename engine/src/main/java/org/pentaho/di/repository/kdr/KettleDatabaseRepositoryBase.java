@@ -438,6 +438,7 @@ public abstract class KettleDatabaseRepositoryBase extends AbstractRepository {
   public static final String TRANS_ATTRIBUTE_TRANSFORMATION_TYPE = "TRANSFORMATION_TYPE";
   public static final String TRANS_ATTRIBUTE_SLEEP_TIME_EMPTY = "SLEEP_TIME_EMPTY";
   public static final String TRANS_ATTRIBUTE_SLEEP_TIME_FULL = "SLEEP_TIME_FULL";
+  public static final String TRANS_ATTRIBUTE_ROWSET_WAIT_STRATEGY = "ROWSET_WAIT_STRATEGY";
   public static final String TRANS_ATTRIBUTE_DATA_SERVICE_NAME = "DATA_SERVICE_NAME";
 
   public static final String TRANS_ATTRIBUTE_PARAM_KEY = "PARAM_KEY";
@@ -26,6 +26,7 @@ import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.NotePadMeta;
 import org.pentaho.di.core.ProgressMonitorListener;
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.RowSetWaitStrategy;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
@@ -802,6 +803,8 @@ public class KettleDatabaseRepositoryTransDelegate extends KettleDatabaseReposit
           transMeta.getObjectId(), 0, KettleDatabaseRepository.TRANS_ATTRIBUTE_SLEEP_TIME_EMPTY ) );
         transMeta.setSleepTimeFull( (int) getTransAttributeInteger(
           transMeta.getObjectId(), 0, KettleDatabaseRepository.TRANS_ATTRIBUTE_SLEEP_TIME_FULL ) );
+        transMeta.setRowSetWaitStrategy( RowSetWaitStrategy.getWaitStrategyByCode( getTransAttributeString(
+          transMeta.getObjectId(), 0, KettleDatabaseRepository.TRANS_ATTRIBUTE_ROWSET_WAIT_STRATEGY ) ) );
 
         loadRepParameters( transMeta );
       }
@@ -1379,6 +1382,9 @@ public class KettleDatabaseRepositoryTransDelegate extends KettleDatabaseReposit
     repository.connectionDelegate.insertTransAttribute(
       transMeta.getObjectId(), 0, KettleDatabaseRepository.TRANS_ATTRIBUTE_SLEEP_TIME_FULL, transMeta
         .getSleepTimeFull(), null );
+    repository.connectionDelegate.insertTransAttribute(
+      transMeta.getObjectId(), 0, KettleDatabaseRepository.TRANS_ATTRIBUTE_ROWSET_WAIT_STRATEGY, 0, transMeta
+        .getRowSetWaitStrategy().getCode() );
 
     // Save the logging connection link...
     if ( logTable.getDatabaseMeta() != null ) {
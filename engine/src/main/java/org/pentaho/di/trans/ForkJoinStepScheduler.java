@@ -0,0 +1,374 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.trans.step.RunThread;
+import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMetaDataCombi;
+import org.pentaho.di.trans.step.StepMetaInterface;
+
+/**
+ * Runs the steps of a transformation cooperatively on a fork/join pool instead of on one thread per step copy. Each
+ * worker picks a step that is runnable, meaning it has input rows available (or no input at all) and room in all its
+ * output row sets, and calls processRow() on it for a short quantum. A step is never run by two workers at the same
+ * time. After a quantum the steps on both sides of its row sets are offered to the pool again, idle workers steal them
+ * from busy ones.
+ *
+ * Steps that still have to wait for a particular row set, for example because they read from one input stream at a
+ * time, do so as a managed block so that the pool can put a spare worker to work in the meantime. A sweeper thread
+ * periodically offers all the waiting steps to the pool again in case a state change didn't come from a row set.
+ * <p>
+ * Steps that sleep or wait for something else than a row set inside processRow(), like Delay row or Block until steps
+ * finish, use {@link #sleep(long)} or {@link #block(Wait)}. Otherwise a few of them could hold all the workers and
+ * keep the steps they wait for from ever running.
+ *
+ * @since 10.3
+ */
+public class ForkJoinStepScheduler {
+
+  /** The maximum number of processRow() calls a worker makes on a step before it looks at other steps. */
+  static final int QUANTUM = 32;
+
+  private static final long SWEEP_NANOS = TimeUnit.MILLISECONDS.toNanos( 5 );
+
+  private final String name;
+  private final int sizeRowset;
+  private final int workers;
+  private final List<StepSlot> slots;
+  private final AtomicInteger nrFinished = new AtomicInteger();
+
+  private volatile ForkJoinPool pool;
+
+  /**
+   * @param name
+   *          the name of the transformation, used to name the worker threads
+   * @param steps
+   *          the initialized step copies to run
+   * @param sizeRowset
+   *          the capacity of the row sets between the steps
+   * @param workers
+   *          the number of workers, typically the number of available processors
+   */
+  public ForkJoinStepScheduler( String name, List<StepMetaDataCombi> steps, int sizeRowset, int workers ) {
+    this.name = name;
+    this.sizeRowset = sizeRowset;
+    this.workers = Math.max( 1, workers );
+
+    slots = new ArrayList<>( steps.size() );
+    for ( StepMetaDataCombi combi : steps ) {
+      slots.add( new StepSlot( combi ) );
+    }
+
+    // Find out which steps are on the other side of each row set: those are the ones to offer to the pool after a
+    // quantum.
+    //
+    Map<RowSet, StepSlot> producers = new IdentityHashMap<>();
+    Map<RowSet, StepSlot> consumers = new IdentityHashMap<>();
+    for ( StepSlot slot : slots ) {
+      for ( RowSet rowSet : slot.outputRowSets ) {
+        producers.put( rowSet, slot );
+      }
+      for ( RowSet rowSet : slot.inputRowSets ) {
+        consumers.put( rowSet, slot );
+      }
+    }
+    for ( StepSlot slot : slots ) {
+      for ( RowSet rowSet : slot.inputRowSets ) {
+        addNeighbour( slot, producers.get( rowSet ) );
+      }
+      for ( RowSet rowSet : slot.outputRowSets ) {
+        addNeighbour( slot, consumers.get( rowSet ) );
+      }
+    }
+  }
+
+  private static void addNeighbour( StepSlot slot, StepSlot neighbour ) {
+    if ( neighbour != null && neighbour != slot && !slot.neighbours.contains( neighbour ) ) {
+      slot.neighbours.add( neighbour );
+    }
+  }
+
+  /**
+   * Starts the workers and returns immediately. The steps report their completion through the usual step listeners.
+   */
+  public void start() {
+    if ( slots.isEmpty() ) {
+      return;
+    }
+    for ( StepSlot slot : slots ) {
+      slot.step.setUsingThreadPriorityManagment( false );
+    }
+
+    AtomicInteger threadNr = new AtomicInteger();
+    pool = new ForkJoinPool( workers, p -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( p );
+      thread.setName( name + " - worker " + threadNr.incrementAndGet() );
+      return thread;
+    }, null, true );
+
+    // Every step gets a first quantum, even the ones without rows to process yet: this is where they start.
+    //
+    for ( StepSlot slot : slots ) {
+      slot.scheduled.set( true );
+      pool.execute( new StepQuantum( slot ) );
+    }
+
+    Thread sweeper = new Thread( this::sweep );
+    sweeper.setName( name + " - scheduler" );
+    sweeper.setDaemon( true );
+    sweeper.start();
+  }
+
+  /**
+   * A wait that blocks the calling thread, see {@link #block(Wait)}.
+   */
+  @FunctionalInterface
+  public interface Wait {
+    void await() throws InterruptedException;
+  }
+
+  /**
+   * Performs a blocking wait. On a fork/join worker the wait is a managed block: the pool adds a spare worker while
+   * this one is blocked so the other steps keep running. On any other thread the wait is simply performed.
+   *
+   * @param wait
+   *          the wait to perform
+   * @throws InterruptedException
+   *           if the wait was interrupted
+   */
+  public static void block( Wait wait ) throws InterruptedException {
+    if ( !ForkJoinTask.inForkJoinPool() ) {
+      wait.await();
+      return;
+    }
+    ForkJoinPool.managedBlock( new ForkJoinPool.ManagedBlocker() {
+      private boolean waited;
+
+      @Override
+      public boolean block() throws InterruptedException {
+        wait.await();
+        waited = true;
+        return true;
+      }
+
+      @Override
+      public boolean isReleasable() {
+        return waited;
+      }
+    } );
+  }
+
+  /**
+   * Sleeps like {@link Thread#sleep(long)} without holding a fork/join worker, see {@link #block(Wait)}.
+   *
+   * @param millis
+   *          the time to sleep in milliseconds
+   * @throws InterruptedException
+   *           if the sleep was interrupted
+   */
+  public static void sleep( long millis ) throws InterruptedException {
+    if ( millis > 0 ) {
+      block( () -> Thread.sleep( millis ) );
+    }
+  }
+
+  /**
+   * @return true if all the steps have finished
+   */
+  public boolean isFinished() {
+    return nrFinished.get() >= slots.size();
+  }
+
+  /**
+   * @return the number of workers
+   */
+  public int getWorkers() {
+    return workers;
+  }
+
+  private void sweep() {
+    try {
+      while ( !isFinished() ) {
+        LockSupport.parkNanos( SWEEP_NANOS );
+        for ( StepSlot slot : slots ) {
+          schedule( slot );
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Offers the step to the pool unless it has finished, is already scheduled or can't make progress.
+   */
+  private void schedule( StepSlot slot ) {
+    if ( slot.finished || slot.scheduled.get() || !isRunnable( slot ) ) {
+      return;
+    }
+    if ( slot.scheduled.compareAndSet( false, true ) ) {
+      StepQuantum quantum = new StepQuantum( slot );
+      if ( ForkJoinTask.getPool() == pool ) {
+        quantum.fork();
+      } else {
+        pool.execute( quantum );
+      }
+    }
+  }
+
+  /**
+   * A step can run when it was stopped (to finish) or when it has input to process and room for its output.
+   */
+  boolean isRunnable( StepSlot slot ) {
+    if ( slot.step.isStopped() ) {
+      return true;
+    }
+    for ( RowSet rowSet : slot.outputRowSets ) {
+      if ( rowSet.size() >= sizeRowset ) {
+        return false;
+      }
+    }
+    List<RowSet> inputRowSets = slot.inputRowSets;
+    if ( inputRowSets.isEmpty() ) {
+      return true;
+    }
+    boolean allDone = true;
+    for ( RowSet rowSet : inputRowSets ) {
+      if ( rowSet.size() > 0 ) {
+        return true;
+      }
+      allDone &= rowSet.isDone();
+    }
+    return allDone;
+  }
+
+  List<StepSlot> getSlots() {
+    return slots;
+  }
+
+  /**
+   * The scheduling state of a single step copy. Only the worker running the step changes the row set lists and the
+   * started flag, the scheduled flag hands the step from one worker to the next.
+   */
+  static final class StepSlot {
+    final StepInterface step;
+    final StepMetaInterface meta;
+    final StepDataInterface data;
+    final RunThread runThread;
+    final AtomicBoolean scheduled = new AtomicBoolean();
+    final List<StepSlot> neighbours = new ArrayList<>();
+    volatile List<RowSet> inputRowSets;
+    volatile List<RowSet> outputRowSets;
+    volatile boolean finished;
+    boolean started;
+
+    StepSlot( StepMetaDataCombi combi ) {
+      step = combi.step;
+      meta = combi.meta;
+      data = combi.data;
+      runThread = new RunThread( combi );
+      refreshRowSets();
+    }
+
+    void refreshRowSets() {
+      inputRowSets = step.getInputRowSets();
+      outputRowSets = step.getOutputRowSets();
+    }
+  }
+
+  /**
+   * Runs a step for one quantum, then hands it and its neighbours back to the pool.
+   */
+  private final class StepQuantum extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final transient StepSlot slot;
+
+    StepQuantum( StepSlot slot ) {
+      this.slot = slot;
+    }
+
+    @Override
+    protected void compute() {
+      boolean done = true;
+      try {
+        done = runQuantum();
+      } finally {
+        if ( done ) {
+          finish();
+        } else {
+          // Release the step before looking at it again: a neighbour that changed its row sets in the meantime
+          // either sees the step released and schedules it, or we see the change here.
+          //
+          slot.scheduled.set( false );
+          schedule( slot );
+        }
+      }
+      for ( StepSlot neighbour : slot.neighbours ) {
+        schedule( neighbour );
+      }
+    }
+
+    /**
+     * @return true if the step is done processing
+     */
+    private boolean runQuantum() {
+      StepInterface step = slot.step;
+      try {
+        if ( !slot.started ) {
+          slot.started = true;
+          slot.runThread.startProcessing();
+        }
+        for ( int i = 0; i < QUANTUM; i++ ) {
+          if ( !step.processRow( slot.meta, slot.data ) || step.isStopped() ) {
+            return true;
+          }
+          if ( i + 1 < QUANTUM && !isRunnable( slot ) ) {
+            break;
+          }
+        }
+        slot.refreshRowSets();
+        return false;
+      } catch ( Throwable t ) {
+        slot.runThread.handleError( t );
+        return true;
+      }
+    }
+
+    private void finish() {
+      try {
+        slot.runThread.finishProcessing();
+      } finally {
+        slot.finished = true;
+        slot.refreshRowSets();
+        nrFinished.incrementAndGet();
+      }
+    }
+  }
+}
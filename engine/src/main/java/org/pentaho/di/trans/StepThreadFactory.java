@@ -0,0 +1,91 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.pentaho.di.core.Const;
+
+/**
+ * Creates the threads that initialize and run the step copies of a transformation. By default every step copy gets its
+ * own platform thread. When {@link Const#KETTLE_STEP_THREAD_TYPE} is set to "virtual" and the Java runtime supports
+ * virtual threads, the step copies run on virtual threads instead. These are scheduled on the JVM wide carrier pool
+ * (sized with the jdk.virtualThreadScheduler.parallelism system property) so that hundreds of mostly idle
+ * transformations don't each hold a set of OS threads.
+ *
+ * Virtual threads are looked up by reflection so that the engine keeps running on Java runtimes without them.
+ */
+public class StepThreadFactory implements ThreadFactory {
+
+  public static final String THREAD_TYPE_PLATFORM = "platform";
+  public static final String THREAD_TYPE_VIRTUAL = "virtual";
+
+  private static final ThreadFactory VIRTUAL_THREAD_FACTORY = createVirtualThreadFactory();
+
+  private final boolean virtual;
+
+  /**
+   * @param virtual
+   *          true to create virtual threads, ignored when the runtime doesn't support them
+   */
+  public StepThreadFactory( boolean virtual ) {
+    this.virtual = virtual && isVirtualThreadSupported();
+  }
+
+  /**
+   * Creates a step thread factory for the thread type configured in the given variable value.
+   *
+   * @param threadType
+   *          "platform" (default) or "virtual"
+   */
+  public static StepThreadFactory forThreadType( String threadType ) {
+    return new StepThreadFactory( THREAD_TYPE_VIRTUAL.equalsIgnoreCase( Const.trim( threadType ) ) );
+  }
+
+  /**
+   * @return true if the Java runtime can create virtual threads
+   */
+  public static boolean isVirtualThreadSupported() {
+    return VIRTUAL_THREAD_FACTORY != null;
+  }
+
+  /**
+   * @return true if this factory creates virtual threads
+   */
+  public boolean isVirtual() {
+    return virtual;
+  }
+
+  /**
+   * Create a new, unstarted thread.
+   *
+   * @param runnable
+   *          the code to run
+   * @return the new thread
+   */
+  @Override
+  public Thread newThread( Runnable runnable ) {
+    return virtual ? VIRTUAL_THREAD_FACTORY.newThread( runnable ) : new Thread( runnable );
+  }
+
+  private static ThreadFactory createVirtualThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+      Class<?> builderClass = Class.forName( "java.lang.Thread$Builder" );
+      return (ThreadFactory) builderClass.getMethod( "factory" ).invoke( builder );
+    } catch ( Exception | LinkageError e ) {
+      return null;
+    }
+  }
+}
@@ -64,7 +64,9 @@ import org.pentaho.di.core.Result;
 import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.RowSetWaitStrategy;
 import org.pentaho.di.core.SingleRowRowSet;
+import org.pentaho.di.core.SpscRowSet;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.database.DatabaseTransactionListener;
@@ -272,6 +274,16 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
    */
   public List<RowSet> rowsets;
 
+  /**
+   * Creates the threads that initialize and run the step copies.
+   */
+  private StepThreadFactory stepThreadFactory;
+
+  /**
+   * Runs the step copies of fork/join transformations.
+   */
+  private ForkJoinStepScheduler stepScheduler;
+
   /**
    * A list of all the steps.
    */
@@ -797,6 +809,13 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     transMeta.activateParameters();
     ConnectionUtil.init( transMeta );
 
+    String stepThreadType = getVariable( Const.KETTLE_STEP_THREAD_TYPE );
+    stepThreadFactory = StepThreadFactory.forThreadType( stepThreadType );
+    if ( StepThreadFactory.THREAD_TYPE_VIRTUAL.equalsIgnoreCase( Const.trim( stepThreadType ) )
+      && !stepThreadFactory.isVirtual() ) {
+      log.logBasic( BaseMessages.getString( PKG, "Trans.Log.VirtualThreadsNotSupported" ) );
+    }
+
     if ( transMeta.getName() == null ) {
       if ( transMeta.getFilename() != null ) {
         log.logBasic( BaseMessages.getString( PKG, "Trans.Log.DispacthingStartedForFilename", transMeta
@@ -946,6 +965,10 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
                   ValueMetaString.convertStringToBoolean( System.getProperty( Const.KETTLE_BATCHING_ROWSET ) );
                 if ( batchingRowSet != null && batchingRowSet.booleanValue() ) {
                   rowSet = new BlockingBatchingRowSet( transMeta.getSizeRowset() );
+                } else if ( dispatchType == TYPE_DISP_1_1 && isSpscRowSetEnabled() ) {
+                  // Exactly one producer thread and one consumer thread: no need for locking.
+                  //
+                  rowSet = new SpscRowSet( transMeta.getSizeRowset() );
                 } else {
                   rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
                 }
@@ -959,6 +982,13 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
                 rowSet = new QueueRowSet();
                 break;
 
+              case ForkJoin:
+                // The scheduler hands a step from one worker to the next, the locking row set makes the rows and its
+                // size visible to whichever worker runs the step next.
+                //
+                rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
+                break;
+
               default:
                 throw new KettleException( "Unhandled transformation type: " + transMeta.getTransformationType() );
             }
@@ -1054,7 +1084,26 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
           // don't share. Each copy of the step has its own variables.
           //
           step.initializeVariablesFrom( this );
-          step.setUsingThreadPriorityManagment( transMeta.isUsingThreadPriorityManagment() );
+
+          // Signalled waiting only applies when every step copy runs in its own thread. It replaces the short sleeps
+          // of the thread priority management.
+          //
+          RowSetWaitStrategy waitStrategy = RowSetWaitStrategy.TIMED;
+          if ( ( transMeta.getTransformationType() == TransMeta.TransformationType.Normal
+            || transMeta.getTransformationType() == TransMeta.TransformationType.ForkJoin )
+            && transMeta.getRowSetWaitStrategy() != null ) {
+            waitStrategy = transMeta.getRowSetWaitStrategy();
+            // Virtual threads should park rather than poll: polling keeps their carrier threads busy.
+            //
+            if ( stepThreadFactory.isVirtual() && !waitStrategy.isSignalled() ) {
+              waitStrategy = RowSetWaitStrategy.BLOCKING;
+            }
+          }
+          step.setUsingThreadPriorityManagment( transMeta.isUsingThreadPriorityManagment()
+            && !waitStrategy.isSignalled() );
+          if ( step instanceof BaseStep ) {
+            ( (BaseStep) step ).setRowSetWaitStrategy( waitStrategy );
+          }
 
           // Pass the connected repository & metaStore to the steps runtime
           //
@@ -1214,7 +1263,7 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
 
       // Put it in a separate thread!
       //
-      threads[ i ] = new Thread( initThreads[ i ] );
+      threads[ i ] = getStepThreadFactory().newThread( initThreads[ i ] );
       threads[ i ].setName( "init of " + sid.stepname + "." + sid.copy + " (" + threads[ i ].getName() + ")" );
 
       ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepBeforeInitialize.id, initThreads[ i ] );
@@ -1512,28 +1561,30 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
         for ( int i = 0; i < steps.size(); i++ ) {
           final StepMetaDataCombi combi = steps.get( i );
           RunThread runThread = new RunThread( combi );
-          Thread thread = new Thread( runThread );
+          Thread thread = getStepThreadFactory().newThread( runThread );
           thread.setName( getName() + " - " + combi.stepname );
           ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepBeforeStart.id, combi );
-          // Call an extension point at the end of the step
-          //
-          combi.step.addStepListener( new StepAdapter() {
-
-            @Override
-            public void stepFinished( Trans trans, StepMeta stepMeta, StepInterface step ) {
-              try {
-                ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepFinished.id, combi );
-              } catch ( KettleException e ) {
-                throw new RuntimeException( "Unexpected error in calling extension point upon step finish", e );
-              }
-            }
-
-          } );
+          addStepFinishedExtensionPoint( combi );
 
           thread.start();
         }
         break;
 
+      case ForkJoin:
+        for ( StepMetaDataCombi combi : steps ) {
+          ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepBeforeStart.id, combi );
+          addStepFinishedExtensionPoint( combi );
+        }
+        int workers = Const.toInt( getVariable( Const.KETTLE_FORK_JOIN_WORKERS ),
+          Runtime.getRuntime().availableProcessors() );
+        stepScheduler = new ForkJoinStepScheduler( getName(), steps, transMeta.getSizeRowset(), workers );
+        if ( log.isDetailed() ) {
+          log.logDetailed( BaseMessages.getString( PKG, "Trans.Log.StartingForkJoinWorkers",
+            String.valueOf( stepScheduler.getWorkers() ) ) );
+        }
+        stepScheduler.start();
+        break;
+
       case SerialSingleThreaded:
         new Thread( new Runnable() {
           @Override
@@ -1616,6 +1667,24 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     }
   }
 
+  /**
+   * Calls the step finished extension point when the given step copy finishes.
+   */
+  private void addStepFinishedExtensionPoint( final StepMetaDataCombi combi ) {
+    combi.step.addStepListener( new StepAdapter() {
+
+      @Override
+      public void stepFinished( Trans trans, StepMeta stepMeta, StepInterface step ) {
+        try {
+          ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepFinished.id, combi );
+        } catch ( KettleException e ) {
+          throw new RuntimeException( "Unexpected error in calling extension point upon step finish", e );
+        }
+      }
+
+    } );
+  }
+
   /**
    * Make attempt to fire all registered listeners if possible.
    *
@@ -1754,20 +1823,26 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
       if ( transFinishedBlockingQueue == null ) {
         return;
       }
-      boolean wait = true;
-      while ( wait ) {
-        wait = transFinishedBlockingQueue.poll( 1, TimeUnit.DAYS ) == null;
-        if ( wait ) {
-          // poll returns immediately - this was hammering the CPU with poll checks. Added
-          // a sleep to let the CPU breathe
-          Thread.sleep( 1 );
-        }
-      }
+      // Called from a step of a fork/join transformation this lets the pool run the other steps in the meantime
+      //
+      ForkJoinStepScheduler.block( this::awaitTransFinished );
     } catch ( InterruptedException e ) {
       throw new RuntimeException( "Waiting for transformation to be finished interrupted!", e );
     }
   }
 
+  private void awaitTransFinished() throws InterruptedException {
+    boolean wait = true;
+    while ( wait ) {
+      wait = transFinishedBlockingQueue.poll( 1, TimeUnit.DAYS ) == null;
+      if ( wait ) {
+        // poll returns immediately - this was hammering the CPU with poll checks. Added
+        // a sleep to let the CPU breathe
+        Thread.sleep( 1 );
+      }
+    }
+  }
+
   /**
    * Gets the number of errors that have occurred during execution of the transformation.
    *
@@ -3427,6 +3502,9 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
       case SingleThreaded:
         rowSet = new QueueRowSet();
         break;
+      case ForkJoin:
+        rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
+        break;
       default:
         throw new KettleException( "Unhandled transformation type: " + transMeta.getTransformationType() );
     }
@@ -5823,6 +5901,37 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     return Const.HEARTBEAT_PERIODIC_INTERVAL_IN_SECS;
   }
 
+  /**
+   * Gets the factory for the threads that initialize and run the step copies.
+   *
+   * @return the step thread factory
+   */
+  public StepThreadFactory getStepThreadFactory() {
+    if ( stepThreadFactory == null ) {
+      stepThreadFactory = new StepThreadFactory( false );
+    }
+    return stepThreadFactory;
+  }
+
+  /**
+   * Gets the scheduler running the step copies of a fork/join transformation.
+   *
+   * @return the step scheduler or null if the transformation isn't of the fork/join type or wasn't started
+   */
+  public ForkJoinStepScheduler getStepScheduler() {
+    return stepScheduler;
+  }
+
+  /**
+   * The lock-free row set is used for 1:1 hops unless KETTLE_SPSC_ROWSET is explicitly set to N.
+   *
+   * @return true if 1:1 hops should be allocated a {@link SpscRowSet}
+   */
+  private boolean isSpscRowSetEnabled() {
+    Boolean spscRowSet = ValueMetaString.convertStringToBoolean( System.getProperty( Const.KETTLE_SPSC_ROWSET ) );
+    return spscRowSet == null || spscRowSet.booleanValue();
+  }
+
   @Override public void callBeforeLog() {
     if ( parent != null ) {
       parent.callBeforeLog();
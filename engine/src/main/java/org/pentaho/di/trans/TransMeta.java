@@ -36,6 +36,7 @@ import org.pentaho.di.core.Props;
 import org.pentaho.di.core.Result;
 import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.RowSetWaitStrategy;
 import org.pentaho.di.core.SQLStatement;
 import org.pentaho.di.core.attributes.AttributesUtil;
 import org.pentaho.di.core.database.Database;
@@ -261,6 +262,9 @@ public class TransMeta extends AbstractMeta
    */
   protected boolean usingThreadPriorityManagment;
 
+  /** How steps wait for rows on empty input row sets and for room in full output row sets. */
+  protected RowSetWaitStrategy rowSetWaitStrategy;
+
   /** The slave-step-copy/partition distribution. Only used for slave transformations in a clustering environment. */
   protected SlaveStepCopyPartitionDistribution slaveStepCopyPartitionDistribution;
 
@@ -297,7 +301,7 @@ public class TransMeta extends AbstractMeta
 
   /**
    * The TransformationType enum describes the various types of transformations in terms of execution, including Normal,
-   * Serial Single-Threaded, and Single-Threaded.
+   * Serial Single-Threaded, Single-Threaded and Fork/Join.
    */
   public enum TransformationType {
 
@@ -310,7 +314,10 @@ public class TransMeta extends AbstractMeta
 
       /** A single-threaded transformation. */
       SingleThreaded( "SingleThreaded", BaseMessages
-        .getString( PKG, "TransMeta.TransformationType.SingleThreaded" ) );
+        .getString( PKG, "TransMeta.TransformationType.SingleThreaded" ) ),
+
+      /** A transformation whose steps are scheduled on a fork/join pool with one worker per core. */
+      ForkJoin( "ForkJoin", BaseMessages.getString( PKG, "TransMeta.TransformationType.ForkJoin" ) );
 
     /** The code corresponding to the transformation type. */
     private final String code;
@@ -685,6 +692,7 @@ public class TransMeta extends AbstractMeta
     // - re-enabling in version 3.0.1 to prevent excessive locking (PDI-491)
     //
     usingThreadPriorityManagment = true;
+    rowSetWaitStrategy = RowSetWaitStrategy.TIMED;
 
     // The performance monitoring options
     //
@@ -2476,6 +2484,7 @@ public class TransMeta extends AbstractMeta
     retval.append( "    " ).append( XMLHandler.addTagValue( "feedback_shown", feedbackShown ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "feedback_size", feedbackSize ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "using_thread_priorities", usingThreadPriorityManagment ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "rowset_wait_strategy", rowSetWaitStrategy.getCode() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "shared_objects_file", sharedObjectsFile ) );
 
     // Performance monitoring
@@ -3398,6 +3407,8 @@ public class TransMeta extends AbstractMeta
         feedbackSize = Const.toInt( XMLHandler.getTagValue( infonode, "feedback_size" ), Const.ROWS_UPDATE );
         usingThreadPriorityManagment =
             !"N".equalsIgnoreCase( XMLHandler.getTagValue( infonode, "using_thread_priorities" ) );
+        rowSetWaitStrategy =
+            RowSetWaitStrategy.getWaitStrategyByCode( XMLHandler.getTagValue( infonode, "rowset_wait_strategy" ) );
 
         // Performance monitoring for steps...
         //
@@ -5600,6 +5611,25 @@ public class TransMeta extends AbstractMeta
     this.usingThreadPriorityManagment = usingThreadPriorityManagment;
   }
 
+  /**
+   * Gets the way steps wait for rows on empty input row sets and for room in full output row sets.
+   *
+   * @return the row set wait strategy
+   */
+  public RowSetWaitStrategy getRowSetWaitStrategy() {
+    return rowSetWaitStrategy;
+  }
+
+  /**
+   * Sets the way steps wait for rows on empty input row sets and for room in full output row sets.
+   *
+   * @param rowSetWaitStrategy
+   *          the row set wait strategy, null for the default {@link RowSetWaitStrategy#TIMED}
+   */
+  public void setRowSetWaitStrategy( RowSetWaitStrategy rowSetWaitStrategy ) {
+    this.rowSetWaitStrategy = rowSetWaitStrategy == null ? RowSetWaitStrategy.TIMED : rowSetWaitStrategy;
+  }
+
   /**
    * Check a step to see if there are no multiple steps to read from. If so, check to see if the receiving rows are all
    * the same in layout. We only want to ONLY use the DBCache for this to prevent GUI stalls.
@@ -6389,6 +6419,7 @@ public class TransMeta extends AbstractMeta
         .append( this.isFeedbackShown() )
         .append( this.getFeedbackSize() )
         .append( this.isUsingThreadPriorityManagment() )
+        .append( this.getRowSetWaitStrategy() )
         .append( this.getSharedObjectsFile() )
         .append( this.isCapturingStepPerformanceSnapShots() )
         .append( this.getStepPerformanceCapturingDelay() )
@@ -80,6 +80,7 @@ public class TransSplitter {
     new SlaveStepCopyPartitionDistribution();
   private int socketsBufferSize;
   private boolean compressingSocketStreams;
+  private String socketCompressionType;
 
   private Map<String, Integer> portCache;
 
@@ -186,6 +187,8 @@ public class TransSplitter {
           Const.toInt(
             originalTransformation.environmentSubstitute( clusterSchema.getSocketsBufferSize() ), 50000 );
         compressingSocketStreams = clusterSchema.isSocketsCompressed();
+        socketCompressionType =
+          originalTransformation.getVariable( Const.KETTLE_DEFAULT_COMPRESSION_PROVIDER, "GZip" );
 
         // Validate the number of slaves. We need at least one to have a valid cluster
         //
@@ -595,6 +598,7 @@ public class TransSplitter {
                         socketsBufferSize, compressingSocketStreams, originalTransformation
                           .getStepFields( previousStep ) );
                     remoteMasterStep.setEncryptingStreams( encrypt );
+                    remoteMasterStep.setCompressionType( socketCompressionType );
                     remoteMasterStep.setKey( transformationKey );
                     masterStep.getRemoteInputSteps().add( remoteMasterStep );
 
@@ -606,6 +610,7 @@ public class TransSplitter {
                         socketsBufferSize, compressingSocketStreams, originalTransformation
                           .getStepFields( previousStep ) );
                     remoteSlaveStep.setEncryptingStreams( encrypt );
+                    remoteSlaveStep.setCompressionType( socketCompressionType );
                     remoteSlaveStep.setKey( transformationKey );
                     slaveStep.getRemoteOutputSteps().add( remoteSlaveStep );
 
@@ -741,6 +746,7 @@ public class TransSplitter {
                           .getName(), socketsBufferSize, compressingSocketStreams, originalTransformation
                           .getStepFields( previousStep ) );
                     remoteMasterStep.setEncryptingStreams( encrypt );
+                    remoteMasterStep.setCompressionType( socketCompressionType );
                     remoteMasterStep.setKey( transformationKey );
                     sourceStep.getRemoteOutputSteps().add( remoteMasterStep );
 
@@ -752,6 +758,7 @@ public class TransSplitter {
                           .getName(), socketsBufferSize, compressingSocketStreams, originalTransformation
                           .getStepFields( previousStep ) );
                     remoteSlaveStep.setEncryptingStreams( encrypt );
+                    remoteSlaveStep.setCompressionType( socketCompressionType );
                     remoteSlaveStep.setKey( transformationKey );
                     targetStep.getRemoteInputSteps().add( remoteSlaveStep );
 
@@ -955,6 +962,7 @@ public class TransSplitter {
                                     .getName(), socketsBufferSize, compressingSocketStreams,
                                   originalTransformation.getStepFields( previousStep ) );
                               remoteOutputStep.setEncryptingStreams( encrypt );
+                              remoteOutputStep.setCompressionType( socketCompressionType );
                               remoteOutputStep.setKey( transformationKey );
                               sourceStep.getRemoteOutputSteps().add( remoteOutputStep );
 
@@ -973,6 +981,7 @@ public class TransSplitter {
                                     .getName(), socketsBufferSize, compressingSocketStreams,
                                   originalTransformation.getStepFields( previousStep ) );
                               remoteInputStep.setEncryptingStreams( encrypt );
+                              remoteInputStep.setCompressionType( socketCompressionType );
                               remoteInputStep.setKey( transformationKey );
                               targetStep.getRemoteInputSteps().add( remoteInputStep );
                             }
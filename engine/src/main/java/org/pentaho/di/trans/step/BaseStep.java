@@ -28,10 +28,13 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -44,6 +47,8 @@ import org.pentaho.di.core.ExtensionDataInterface;
 import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.RowSetSignal;
+import org.pentaho.di.core.RowSetWaitStrategy;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleRowException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -366,6 +371,23 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
   private int blockPointer;
 
+  /**
+   * The default number of rows steps processing batches of rows get from {@link #getRows(int)} in one call.
+   */
+  protected static final int ROW_BATCH_SIZE = 100;
+
+  /**
+   * The input row set the last row returned by getRow() came from.
+   */
+  private RowSet lastInputRowSet;
+
+  /**
+   * Set when a subclass overrides getRow() or putRow(): the batch methods then pass every row through those.
+   */
+  private Boolean getRowOverridden;
+  private Boolean putRowOverridden;
+  private Boolean putRowToOverridden;
+
   /**
    * A flag to indicate that clustered partitioning was not yet initialized
    */
@@ -378,6 +400,32 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
   private boolean usingThreadPriorityManagment;
 
+  /**
+   * The maximum time in ms a step waits for a row set signal before re-checking its row sets. This is only a safety net
+   * for row sets that don't signal state changes.
+   */
+  private static final long MAX_SIGNAL_WAIT_MILLIS = 100;
+
+  /**
+   * How this step waits for rows on empty input row sets and for room in full output row sets.
+   */
+  private RowSetWaitStrategy rowSetWaitStrategy = RowSetWaitStrategy.TIMED;
+
+  private RowSetSignal inputSignal;
+
+  private RowSetSignal outputSignal;
+
+  /**
+   * Total time in ns this step was blocked waiting for input rows, only measured for signalled wait strategies.
+   */
+  private volatile long inputBlockedNanos;
+
+  /**
+   * Total time in ns this step was blocked waiting for room in an output row set, only measured for signalled wait
+   * strategies.
+   */
+  private volatile long outputBlockedNanos;
+
   private List<StepListener> stepListeners;
 
   /**
@@ -919,6 +967,18 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     }
   }
 
+  /**
+   * Increments the number of lines read from previous steps
+   *
+   * @param nrLines the number of lines to add
+   * @return Returns the new value
+   */
+  public long incrementLinesRead( long nrLines ) {
+    synchronized ( statusCountersLock ) {
+      return linesRead += nrLines;
+    }
+  }
+
   /**
    * Decrements the number of lines read from previous steps by one
    *
@@ -990,6 +1050,18 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     }
   }
 
+  /**
+   * Increments the number of lines written to an output target: database, file, socket, etc.
+   *
+   * @param nrLines the number of lines to add
+   * @return the new incremented value
+   */
+  public long incrementLinesOutput( long nrLines ) {
+    synchronized ( statusCountersLock ) {
+      return linesOutput += nrLines;
+    }
+  }
+
   /**
    * @param newLinesOutputValue the new number of lines written to an output target: database, file, socket, etc.
    */
@@ -1020,6 +1092,18 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     }
   }
 
+  /**
+   * Increments the number of lines written to next steps
+   *
+   * @param nrLines the number of lines to add
+   * @return Returns the new value
+   */
+  public long incrementLinesWritten( long nrLines ) {
+    synchronized ( statusCountersLock ) {
+      return linesWritten += nrLines;
+    }
+  }
+
   /**
    * Decrements the number of lines written to next steps by one
    *
@@ -1243,6 +1327,45 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public void putRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+    checkOutputRowMeta( rowMeta );
+    getRowHandler().putRow( rowMeta, row );
+  }
+
+  /**
+   * putRows is used to pass a batch of rows on to the next step(s), all described by the same row metadata. This has
+   * the same effect as calling {@link #putRow(RowMetaInterface, Object[])} for each of the rows in turn, but the
+   * checks, locking and counters are handled once per batch instead of once per row.
+   *
+   * @param rowMeta The row metadata of all the rows
+   * @param rows    The rows to put to the destination rowset(s).
+   * @throws KettleStepException
+   */
+  public void putRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleStepException {
+    if ( rows.isEmpty() ) {
+      return;
+    }
+    if ( putRowOverridden == null ) {
+      putRowOverridden = isOverridden( "putRow", RowMetaInterface.class, Object[].class );
+    }
+    if ( putRowOverridden ) {
+      for ( Object[] row : rows ) {
+        putRow( rowMeta, row );
+      }
+      return;
+    }
+    checkOutputRowMeta( rowMeta );
+    getRowHandler().putRows( rowMeta, rows );
+  }
+
+  private boolean isOverridden( String methodName, Class<?>... parameterTypes ) {
+    try {
+      return getClass().getMethod( methodName, parameterTypes ).getDeclaringClass() != BaseStep.class;
+    } catch ( NoSuchMethodException e ) {
+      return true;
+    }
+  }
+
+  private void checkOutputRowMeta( RowMetaInterface rowMeta ) throws KettleStepException {
     if ( rowMeta != null ) {
       if ( !allowEmptyFieldNamesAndTypes ) {
         // check row meta for empty field name (BACKLOG-18004)
@@ -1256,7 +1379,6 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         }
       }
     }
-    getRowHandler().putRow( rowMeta, row );
   }
 
   private void handlePutRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
@@ -1346,6 +1468,102 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     }
   }
 
+  private void handlePutRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleStepException {
+    // Are we pausing the step? If so, stall forever...
+    //
+    while ( paused.get() && !stopped.get() ) {
+      try {
+        Thread.sleep( 1 );
+      } catch ( InterruptedException e ) {
+        throw new KettleStepException( e );
+      }
+    }
+
+    if ( stopped.get() && !safeStopped.get() ) {
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "BaseStep.Log.StopPuttingARow" ) );
+      }
+      stopAll();
+      return;
+    }
+
+    waitUntilTransformationIsStarted();
+
+    // call all row listeners...
+    //
+    if ( !rowListeners.isEmpty() ) {
+      for ( Object[] row : rows ) {
+        for ( RowListener listener : rowListeners ) {
+          listener.rowWrittenEvent( rowMeta, row );
+        }
+      }
+    }
+
+    // Keep adding to terminator_rows buffer...
+    //
+    if ( terminator && terminator_rows != null ) {
+      try {
+        for ( Object[] row : rows ) {
+          terminator_rows.add( rowMeta.cloneRow( row ) );
+        }
+      } catch ( KettleValueException e ) {
+        throw new KettleStepException( "Unable to clone row while adding rows to the terminator rows.", e );
+      }
+    }
+
+    outputRowSetsLock.readLock().lock();
+    try {
+      if ( outputRowSets.isEmpty() ) {
+        // No more output rowsets!
+        // Still update the nr of lines written.
+        //
+        incrementLinesWritten( rows.size() );
+
+        return; // we're done here!
+      }
+
+      // The whole batch can only go to the same row set(s) when the rows are copied to all targets or when there is
+      // just one target. Otherwise every row is routed on its own.
+      //
+      if ( repartitioning == StepPartitioningMeta.PARTITIONING_METHOD_NONE && rowDistribution == null
+        && ( !distributed || outputRowSets.size() == 1 ) ) {
+        for ( int i = 1; i < outputRowSets.size(); i++ ) { // start at 1
+          List<Object[]> copies = new ArrayList<>( rows.size() );
+          try {
+            for ( Object[] row : rows ) {
+              copies.add( rowMeta.cloneRow( row ) );
+            }
+          } catch ( KettleValueException e ) {
+            throw new KettleStepException( "Unable to clone row while copying rows to multiple target steps", e );
+          }
+          putRowsToRowSet( outputRowSets.get( i ), rowMeta, copies );
+          incrementLinesWritten( rows.size() );
+        }
+        putRowsToRowSet( outputRowSets.get( 0 ), rowMeta, rows );
+        incrementLinesWritten( rows.size() );
+        return;
+      }
+
+      for ( Object[] row : rows ) {
+        switch ( repartitioning ) {
+          case StepPartitioningMeta.PARTITIONING_METHOD_NONE:
+            noPartitioning( rowMeta, row );
+            break;
+          case StepPartitioningMeta.PARTITIONING_METHOD_SPECIAL:
+            specialPartitioning( rowMeta, row );
+            break;
+          case StepPartitioningMeta.PARTITIONING_METHOD_MIRROR:
+            mirrorPartitioning( rowMeta, row );
+            break;
+          default:
+            throw new KettleStepException( "Internal error: invalid repartitioning type: " + repartitioning );
+        }
+      }
+    } finally {
+      outputRowSetsLock.readLock().unlock();
+    }
+  }
+
   /**
    * Copy always to all target steps/copies
    */
@@ -1588,13 +1806,122 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       toBeSent = metaFromRs;
     }
 
-    while ( !rs.putRow( toBeSent, row ) ) {
+    while ( !putRowWaiting( rs, toBeSent, row ) ) {
       if ( isStopped() && !safeStopped.get() ) {
         return;
       }
     }
   }
 
+  private void putRowsToRowSet( RowSet rs, RowMetaInterface rowMeta, List<Object[]> rows ) {
+    RowMetaInterface metaFromRs = rs.getRowMeta();
+    RowMetaInterface toBeSent = metaFromRs == null ? rowMeta.clone() : metaFromRs;
+
+    int offset = 0;
+    while ( offset < rows.size() ) {
+      // Add as many rows as there is room for, only wait when the row set is full
+      //
+      int added = rs.putRowsImmediate( toBeSent, rows, offset );
+      if ( added > 0 ) {
+        offset += added;
+      } else if ( putRowWaiting( rs, toBeSent, rows.get( offset ) ) ) {
+        offset++;
+      } else if ( isStopped() && !safeStopped.get() ) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Offer a row to the given output row set. Depending on the wait strategy we either wait a short while for room in
+   * the row set or until the target step signals that it took rows from it.
+   *
+   * @return true if the row was added to the row set
+   */
+  private boolean putRowWaiting( RowSet rs, RowMetaInterface rowMeta, Object[] row ) {
+    if ( ForkJoinTask.inForkJoinPool() ) {
+      return rs.putRowWait( rowMeta, row, 0, TimeUnit.MILLISECONDS )
+        || waitManaged( () -> waitForRoom( rs, rowMeta, row ) );
+    }
+    return waitForRoom( rs, rowMeta, row );
+  }
+
+  private boolean waitForRoom( RowSet rs, RowMetaInterface rowMeta, Object[] row ) {
+    if ( !rowSetWaitStrategy.isSignalled() ) {
+      return rs.putRow( rowMeta, row );
+    }
+    if ( rs.putRowWait( rowMeta, row, 0, TimeUnit.MILLISECONDS ) ) {
+      return true;
+    }
+    if ( rs.getProducerSignal() != outputSignal ) {
+      rs.setProducerSignal( outputSignal );
+    }
+    outputSignal.arm();
+    try {
+      // Re-check after arming: rows taken from here on are signalled
+      //
+      if ( rs.putRowWait( rowMeta, row, 0, TimeUnit.MILLISECONDS ) ) {
+        return true;
+      }
+      if ( !isStopped() ) {
+        outputBlockedNanos += outputSignal.await( MAX_SIGNAL_WAIT_MILLIS );
+      }
+      return false;
+    } finally {
+      outputSignal.disarm();
+    }
+  }
+
+  /**
+   * Get a row from the given input row set. Depending on the wait strategy we either wait a short while for a row to
+   * arrive or until one of the given input row sets signals a state change.
+   *
+   * @return the row or null if none arrived
+   */
+  private Object[] getRowWaiting( RowSet rs, List<RowSet> waitRowSets ) {
+    if ( ForkJoinTask.inForkJoinPool() ) {
+      Object[] row = rs.getRowImmediate();
+      return row != null || rs.isDone() ? row : waitManaged( () -> waitForRow( rs, waitRowSets ) );
+    }
+    return waitForRow( rs, waitRowSets );
+  }
+
+  private Object[] waitForRow( RowSet rs, List<RowSet> waitRowSets ) {
+    if ( !rowSetWaitStrategy.isSignalled() ) {
+      return rs.getRowWait( 1, TimeUnit.MILLISECONDS );
+    }
+    Object[] row = rs.getRowImmediate();
+    if ( row == null && !rs.isDone() ) {
+      awaitInput( waitRowSets );
+      row = rs.getRowImmediate();
+    }
+    return row;
+  }
+
+  /**
+   * Wait until one of the given input row sets receives rows or is marked done.
+   */
+  private void awaitInput( List<RowSet> waitRowSets ) {
+    inputSignal.arm();
+    try {
+      // Re-check after arming: rows arriving from here on are signalled
+      //
+      for ( RowSet rs : waitRowSets ) {
+        if ( rs.getConsumerSignal() != inputSignal ) {
+          rs.setConsumerSignal( inputSignal );
+        }
+        if ( rs.size() > 0 || rs.isDone() ) {
+          return;
+        }
+      }
+      if ( !isStopped() ) {
+        inputBlockedNanos += inputSignal.await( MAX_SIGNAL_WAIT_MILLIS );
+      }
+    } finally {
+      inputSignal.disarm();
+    }
+  }
+
   /**
    * putRowTo is used to put a row in a certain specific RowSet.
    *
@@ -1644,7 +1971,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
     // Don't distribute or anything, only go to this rowset!
     //
-    while ( !rowSet.putRow( rowMeta, row ) ) {
+    while ( !putRowWaiting( rowSet, rowMeta, row ) ) {
       if ( isStopped() ) {
         break;
       }
@@ -1652,6 +1979,88 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     incrementLinesWritten();
   }
 
+  /**
+   * putRowsTo is used to put a batch of rows in a certain specific RowSet.
+   *
+   * @param rowMeta The row meta-data of all the rows
+   * @param rows    the data to put in the RowSet
+   * @param rowSet  the RoWset to put the rows into.
+   * @throws KettleStepException In case something unexpected goes wrong
+   */
+  public void putRowsTo( RowMetaInterface rowMeta, List<Object[]> rows, RowSet rowSet ) throws KettleStepException {
+    if ( rows.isEmpty() ) {
+      return;
+    }
+    if ( putRowToOverridden == null ) {
+      putRowToOverridden = isOverridden( "putRowTo", RowMetaInterface.class, Object[].class, RowSet.class );
+    }
+    if ( putRowToOverridden ) {
+      for ( Object[] row : rows ) {
+        putRowTo( rowMeta, row, rowSet );
+      }
+      return;
+    }
+    getRowHandler().putRowsTo( rowMeta, rows, rowSet );
+  }
+
+  private void handlePutRowsTo( RowMetaInterface rowMeta, List<Object[]> rows, RowSet rowSet )
+    throws KettleStepException {
+
+    // Are we pausing the step? If so, stall forever...
+    //
+    while ( paused.get() && !stopped.get() ) {
+      try {
+        Thread.sleep( 1 );
+      } catch ( InterruptedException e ) {
+        throw new KettleStepException( e );
+      }
+    }
+
+    // call all row listeners...
+    //
+    if ( !rowListeners.isEmpty() ) {
+      for ( Object[] row : rows ) {
+        for ( RowListener listener : rowListeners ) {
+          listener.rowWrittenEvent( rowMeta, row );
+        }
+      }
+    }
+
+    // Keep adding to terminator_rows buffer...
+    if ( terminator && terminator_rows != null ) {
+      try {
+        for ( Object[] row : rows ) {
+          terminator_rows.add( rowMeta.cloneRow( row ) );
+        }
+      } catch ( KettleValueException e ) {
+        throw new KettleStepException( "Unable to clone row while adding rows to the terminator buffer", e );
+      }
+    }
+
+    if ( stopped.get() ) {
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "BaseStep.Log.StopPuttingARow" ) );
+      }
+      stopAll();
+      return;
+    }
+
+    // Don't distribute or anything, only go to this rowset!
+    //
+    int offset = 0;
+    while ( offset < rows.size() ) {
+      int added = rowSet.putRowsImmediate( rowMeta, rows, offset );
+      if ( added > 0 ) {
+        offset += added;
+      } else if ( putRowWaiting( rowSet, rowMeta, rows.get( offset ) ) ) {
+        offset++;
+      } else if ( isStopped() ) {
+        break;
+      }
+    }
+    incrementLinesWritten( rows.size() );
+  }
+
   /**
    * Put error.
    *
@@ -1817,6 +2226,54 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   }
 
 
+  /**
+   * getRows is used to read a batch of rows from the previous step(s). It waits for the first row just like
+   * {@link #getRow()} and then adds the rows that are immediately available in the same input row set, up to the given
+   * maximum. All the rows in the batch are described by {@link #getInputRowMeta()}.
+   *
+   * @param max the maximum number of rows to return
+   * @return a batch of at least one row or null if there are no more rows to read.
+   * @throws KettleException
+   */
+  public List<Object[]> getRows( int max ) throws KettleException {
+    return getRowHandler().getRows( max );
+  }
+
+  private List<Object[]> handleGetRows( int max ) throws KettleException {
+    if ( getRowOverridden == null ) {
+      getRowOverridden = isOverridden( "getRow" );
+    }
+    lastInputRowSet = null;
+    Object[] row = getRow();
+    if ( row == null ) {
+      return null;
+    }
+    List<Object[]> rows = new ArrayList<>( Math.max( 1, Math.min( max, ROW_BATCH_SIZE ) ) );
+    rows.add( row );
+
+    // Stay within the block of rows read from the same row set so that the other input row sets get their turn.
+    //
+    RowSet inputRowSet = getRowOverridden ? null : lastInputRowSet;
+    int limit = Math.min( max - 1, NR_OF_ROWS_IN_BLOCK - blockPointer );
+    if ( inputRowSet == null || limit <= 0 || paused.get() || stopped.get() ) {
+      return rows;
+    }
+    int taken = inputRowSet.getRowsImmediate( rows, limit );
+    if ( taken > 0 ) {
+      incrementLinesRead( taken );
+      blockPointer += taken;
+      if ( !rowListeners.isEmpty() ) {
+        for ( int i = 1; i < rows.size(); i++ ) {
+          for ( RowListener listener : rowListeners ) {
+            listener.rowReadEvent( inputRowMeta, rows.get( i ) );
+          }
+        }
+      }
+      verifyRejectionRates();
+    }
+    return rows;
+  }
+
   private Object[] handleGetRow() throws KettleException {
 
     // Are we pausing the step? If so, stall forever...
@@ -1907,7 +2364,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         // Timeout immediately if nothing is there to read.
         // We will then switch to the next row set to read from...
         //
-        row = inputRowSet.getRowWait( 1, TimeUnit.MILLISECONDS );
+        row = getRowWaiting( inputRowSet, inputRowSets );
         if ( row != null ) {
           incrementLinesRead();
           blockPointer++;
@@ -1918,7 +2375,8 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
           // the input stream and move on to the next one...
           //
           if ( inputRowSet.isDone() ) {
-            row = inputRowSet.getRowWait( 1, TimeUnit.MILLISECONDS );
+            row = rowSetWaitStrategy.isSignalled()
+              ? inputRowSet.getRowImmediate() : inputRowSet.getRowWait( 1, TimeUnit.MILLISECONDS );
             if ( row == null ) {
 
               // Must release the read lock before acquisition of the write lock to prevent deadlocks.
@@ -1971,9 +2429,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     // Also set the meta data on the first occurrence.
     // or if prevSteps.length > 1 inputRowMeta can be changed
     if ( inputRowMeta == null || prevSteps.length > 1 ) {
-      inputRowMeta = inputRowSet.getRowMeta();
+      inputRowMeta = freeze( inputRowSet.getRowMeta() );
     }
 
+    lastInputRowSet = row != null ? inputRowSet : null;
+
     if ( row != null ) {
       // OK, before we return the row, let's see if we need to check on mixing
       // row compositions...
@@ -2248,9 +2708,9 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
     // Grab a row... If nothing received after a timeout, try again.
     //
-    rowData = rowSet.getRow();
+    rowData = getRowFromWaiting( rowSet );
     while ( rowData == null && !rowSet.isDone() && !stopped.get() ) {
-      rowData = rowSet.getRow();
+      rowData = getRowFromWaiting( rowSet );
 
       // Verify deadlocks!
       //
@@ -2321,6 +2781,53 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     return rowData;
   }
 
+  private Object[] getRowFromWaiting( RowSet rowSet ) {
+    if ( !rowSetWaitStrategy.isSignalled() && !ForkJoinTask.inForkJoinPool() ) {
+      return rowSet.getRow();
+    }
+    return getRowWaiting( rowSet, Collections.singletonList( rowSet ) );
+  }
+
+  /**
+   * Waits for a row set as a managed block. Used when the step runs on a fork/join worker of the
+   * {@link org.pentaho.di.trans.ForkJoinStepScheduler}: while this step waits for another one, the pool can run the
+   * other steps on a spare worker.
+   *
+   * @param waiter the wait to perform
+   * @return the result of the wait
+   */
+  private static <T> T waitManaged( Supplier<T> waiter ) {
+    RowSetBlocker<T> blocker = new RowSetBlocker<>( waiter );
+    try {
+      ForkJoinPool.managedBlock( blocker );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    return blocker.result;
+  }
+
+  private static final class RowSetBlocker<T> implements ForkJoinPool.ManagedBlocker {
+    private final Supplier<T> waiter;
+    private T result;
+    private boolean waited;
+
+    RowSetBlocker( Supplier<T> waiter ) {
+      this.waiter = waiter;
+    }
+
+    @Override
+    public boolean block() {
+      result = waiter.get();
+      waited = true;
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return waited;
+    }
+  }
+
   /**
    * - A step sees that it can't get a new row from input in the step. - Then it verifies that there is more than one
    * input row set and that at least one is full and at least one is empty. - Then it finds a step in the transformation
@@ -3040,6 +3547,9 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   @Override
   public void setStopped( boolean stopped ) {
     this.stopped.set( stopped );
+    if ( stopped ) {
+      wakeUp();
+    }
   }
 
   @Override
@@ -3728,6 +4238,20 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       && ( lines % getTransMeta().getFeedbackSize() ) == 0;
   }
 
+  /**
+   * Checks whether feedback should be logged after processing a batch of rows, which is the case when a multiple of the
+   * feedback size falls in the batch.
+   *
+   * @param previousLines the number of lines before the batch
+   * @param lines         the number of lines after the batch
+   */
+  protected boolean checkFeedback( long previousLines, long lines ) {
+    int feedbackSize = getTransMeta().getFeedbackSize();
+    return getTransMeta().isFeedbackShown()
+      && ( lines > 0 ) && ( feedbackSize > 0 )
+      && ( lines / feedbackSize ) > ( Math.max( 0, previousLines ) / feedbackSize );
+  }
+
   /**
    * @return the rowMeta
    */
@@ -3739,7 +4263,18 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @param rowMeta the rowMeta to set
    */
   public void setInputRowMeta( RowMetaInterface rowMeta ) {
-    this.inputRowMeta = rowMeta;
+    this.inputRowMeta = freeze( rowMeta );
+  }
+
+  /**
+   * The layout of the rows a step reads no longer changes: freeze it so that the per row lookups of the fields don't
+   * take any locks. Should the row metadata be modified after all, it's simply thawed again.
+   */
+  private static RowMetaInterface freeze( RowMetaInterface rowMeta ) {
+    if ( rowMeta instanceof RowMeta ) {
+      ( (RowMeta) rowMeta ).freeze();
+    }
+    return rowMeta;
   }
 
   /**
@@ -4006,6 +4541,59 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     return usingThreadPriorityManagment;
   }
 
+  /**
+   * Set the way this step waits for rows on empty input row sets and for room in full output row sets. Signalled
+   * strategies only make sense when every step runs in its own thread.
+   *
+   * @param rowSetWaitStrategy the wait strategy to use
+   */
+  public void setRowSetWaitStrategy( RowSetWaitStrategy rowSetWaitStrategy ) {
+    this.rowSetWaitStrategy = rowSetWaitStrategy == null ? RowSetWaitStrategy.TIMED : rowSetWaitStrategy;
+    if ( this.rowSetWaitStrategy.isSignalled() ) {
+      inputSignal = new RowSetSignal( this.rowSetWaitStrategy );
+      outputSignal = new RowSetSignal( this.rowSetWaitStrategy );
+    } else {
+      inputSignal = null;
+      outputSignal = null;
+    }
+  }
+
+  /**
+   * @return the way this step waits for rows on empty input row sets and for room in full output row sets
+   */
+  public RowSetWaitStrategy getRowSetWaitStrategy() {
+    return rowSetWaitStrategy;
+  }
+
+  /**
+   * @return the total time in ns this step was blocked waiting for input rows (signalled wait strategies only)
+   */
+  public long getInputBlockedNanos() {
+    return inputBlockedNanos;
+  }
+
+  /**
+   * @return the total time in ns this step was blocked waiting for room in an output row set (signalled wait
+   *         strategies only)
+   */
+  public long getOutputBlockedNanos() {
+    return outputBlockedNanos;
+  }
+
+  /**
+   * Wake up this step if it is waiting on a row set signal, for example to let it notice it has been stopped.
+   */
+  private void wakeUp() {
+    RowSetSignal signal = inputSignal;
+    if ( signal != null ) {
+      signal.signal();
+    }
+    signal = outputSignal;
+    if ( signal != null ) {
+      signal.signal();
+    }
+  }
+
   /**
    * This method is executed by Trans right before the threads start and right after initialization.
    * <p>
@@ -4396,6 +4984,19 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       handlePutRow( rowMeta, row );
     }
 
+    @Override public List<Object[]> getRows( int max ) throws KettleException {
+      return handleGetRows( max );
+    }
+
+    @Override public void putRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleStepException {
+      handlePutRows( rowMeta, rows );
+    }
+
+    @Override public void putRowsTo( RowMetaInterface rowMeta, List<Object[]> rows, RowSet rowSet )
+      throws KettleStepException {
+      handlePutRowsTo( rowMeta, rows, rowSet );
+    }
+
     @Override public void putError( RowMetaInterface rowMeta, Object[] row, long nrErrors, String errorDescriptions,
                                     String fieldNames, String errorCodes ) throws KettleStepException {
       handlePutError( rowMeta, row, nrErrors, errorDescriptions, fieldNames, errorCodes );
@@ -28,8 +28,6 @@ import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.spec.InvalidKeySpecException;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
@@ -37,6 +35,10 @@ import javax.crypto.CipherOutputStream;
 
 import org.pentaho.di.core.BlockingRowSet;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.compress.CompressionInputStream;
+import org.pentaho.di.core.compress.CompressionOutputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
 import org.pentaho.di.core.encryption.CertificateGenEncryptUtil;
 import org.pentaho.di.core.exception.KettleEOFException;
 import org.pentaho.di.core.exception.KettleException;
@@ -96,16 +98,19 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
   private int bufferSize;
   private boolean compressingStreams;
 
+  /** The name of the compression provider for compressed streams, GZip when not set */
+  private String compressionType;
+
   private boolean encryptingStreams;
   private byte[] key;
   private CipherInputStream cipherInputStream;
   private CipherOutputStream cipherOutputStream;
 
-  private GZIPOutputStream gzipOutputStream;
+  private CompressionOutputStream compressionOutputStream;
 
   private String sourceSlaveServerName;
 
-  private GZIPInputStream gzipInputStream;
+  private CompressionInputStream compressionInputStream;
 
   private BufferedInputStream bufferedInputStream;
 
@@ -171,6 +176,7 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
     xml.append( XMLHandler.addTagValue( "port", port, false ) );
     xml.append( XMLHandler.addTagValue( "buffer_size", bufferSize, false ) );
     xml.append( XMLHandler.addTagValue( "compressed_streams", compressingStreams, false ) );
+    xml.append( XMLHandler.addTagValue( "compression_type", compressionType, false ) );
 
     xml.append( XMLHandler.addTagValue( "source_step_name", sourceStep, false ) );
     xml.append( XMLHandler.addTagValue( "source_step_copy", sourceStepCopyNr, false ) );
@@ -204,6 +210,7 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
     port = XMLHandler.getTagValue( node, "port" );
     bufferSize = Integer.parseInt( XMLHandler.getTagValue( node, "buffer_size" ) );
     compressingStreams = "Y".equalsIgnoreCase( XMLHandler.getTagValue( node, "compressed_streams" ) );
+    compressionType = XMLHandler.getTagValue( node, "compression_type" );
 
     sourceStep = XMLHandler.getTagValue( node, "source_step_name" );
     sourceStepCopyNr = Integer.parseInt( XMLHandler.getTagValue( node, "source_step_copy" ) );
@@ -348,8 +355,9 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
           OutputStream socketOut = socket.getOutputStream();
 
           if ( compressingStreams ) {
-            gzipOutputStream = new GZIPOutputStream( socketOut, 50000 );
-            bufferedOutputStream = new BufferedOutputStream( gzipOutputStream, bufferSize );
+            compressionOutputStream =
+              getCompressionProvider().createOutputStream( new BufferedOutputStream( socketOut, 50000 ) );
+            bufferedOutputStream = new BufferedOutputStream( compressionOutputStream, bufferSize );
           } else {
             bufferedOutputStream = new BufferedOutputStream( socketOut, bufferSize );
           }
@@ -408,7 +416,8 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
           if ( compressingStreams ) {
             outputStream.flush();
-            gzipOutputStream.finish();
+            compressionOutputStream.finish();
+            compressionOutputStream.flush();
           } else {
             outputStream.flush();
           }
@@ -435,8 +444,8 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
                 cipherOutputStream.close();
               }
               bufferedOutputStream.close();
-              if ( gzipOutputStream != null ) {
-                gzipOutputStream.close();
+              if ( compressionOutputStream != null ) {
+                compressionOutputStream.close();
               }
             }
           } catch ( Exception e ) {
@@ -446,7 +455,7 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
           }
           outputStream = null;
           bufferedOutputStream = null;
-          gzipOutputStream = null;
+          compressionOutputStream = null;
           cipherOutputStream = null;
 
           //
@@ -487,9 +496,9 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
           bufferedInputStream.close();
           bufferedInputStream = null;
         }
-        if ( gzipInputStream != null ) {
-          gzipInputStream.close();
-          gzipInputStream = null;
+        if ( compressionInputStream != null ) {
+          compressionInputStream.close();
+          compressionInputStream = null;
         }
         if ( cipherInputStream != null ) {
           cipherInputStream.close();
@@ -499,9 +508,9 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
           inputStream.close();
           inputStream = null;
         }
-        if ( gzipOutputStream != null ) {
-          gzipOutputStream.close();
-          gzipOutputStream = null;
+        if ( compressionOutputStream != null ) {
+          compressionOutputStream.close();
+          compressionOutputStream = null;
         }
         if ( bufferedOutputStream != null ) {
           bufferedOutputStream.close();
@@ -575,8 +584,8 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
         InputStream socketStream = socket.getInputStream();
         if ( compressingStreams ) {
-          gzipInputStream = new GZIPInputStream( socketStream );
-          bufferedInputStream = new BufferedInputStream( gzipInputStream, bufferSize );
+          compressionInputStream = getCompressionProvider().createInputStream( socketStream );
+          bufferedInputStream = new BufferedInputStream( compressionInputStream, bufferSize );
         } else {
           bufferedInputStream = new BufferedInputStream( socketStream, bufferSize );
         }
@@ -755,14 +764,14 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
             }
           }
           bufferedInputStream = null;
-          if ( gzipInputStream != null ) {
+          if ( compressionInputStream != null ) {
             try {
-              gzipInputStream.close();
+              compressionInputStream.close();
             } catch ( Exception e ) {
               baseStep.logError( "Error closing input stream on socket connection to remote step", e );
             }
           }
-          gzipInputStream = null;
+          compressionInputStream = null;
           baseStep.logDetailed( "Closed connection to server socket to read rows from remote step on server "
             + realHostname + " port " + portNumber + " - Local port=" + socket.getLocalPort() );
         }
@@ -882,6 +891,30 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
     this.compressingStreams = compressingStreams;
   }
 
+  /**
+   * @return the name of the compression provider for compressed streams, GZip when not set
+   */
+  public String getCompressionType() {
+    return compressionType;
+  }
+
+  /**
+   * @param compressionType
+   *          the name of the compression provider for compressed streams, both ends of the stream need the same one
+   */
+  public void setCompressionType( String compressionType ) {
+    this.compressionType = compressionType;
+  }
+
+  private CompressionProvider getCompressionProvider() throws IOException {
+    String name = Const.NVL( compressionType, "GZip" );
+    CompressionProvider provider = CompressionProviderFactory.getInstance().createCompressionProviderInstance( name );
+    if ( provider == null ) {
+      throw new IOException( "Compression provider '" + name + "' doesn't exist" );
+    }
+    return provider;
+  }
+
   /**
    * @return the remoteHostname
    */
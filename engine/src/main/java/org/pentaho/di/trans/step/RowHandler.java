@@ -13,6 +13,9 @@
 
 package org.pentaho.di.trans.step;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -27,6 +30,8 @@ import org.pentaho.di.i18n.BaseMessages;
  * (see {@link BaseStep#handleGetRow()}
  *      {@link BaseStep#handlePutRow(RowMetaInterface, Object[])}
  *      {@link BaseStep#handlePutError }
+ *      {@link BaseStep#getRows(int)}
+ *      {@link BaseStep#putRows(RowMetaInterface, List)}
  *
  * {@link BaseStep#setRowHandler( RowHandler) } can be used to override
  * this behavior.
@@ -41,6 +46,31 @@ public interface RowHandler {
   void putError( RowMetaInterface rowMeta, Object[] row, long nrErrors, String errorDescriptions,
                  String fieldNames, String errorCodes ) throws KettleStepException;
 
+  /**
+   * Gets a batch of rows. Row handlers that don't batch return one row at a time.
+   *
+   * @param max the maximum number of rows to return
+   * @return a batch of at least one row or null if there are no more rows.
+   */
+  default List<Object[]> getRows( int max ) throws KettleException {
+    Object[] row = getRow();
+    if ( row == null ) {
+      return null;
+    }
+    List<Object[]> rows = new ArrayList<>( 1 );
+    rows.add( row );
+    return rows;
+  }
+
+  /**
+   * Puts a batch of rows. Row handlers that don't batch put the rows one at a time.
+   */
+  default void putRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleStepException {
+    for ( Object[] row : rows ) {
+      putRow( rowMeta, row );
+    }
+  }
+
   default void putRowTo( RowMetaInterface rowMeta, Object[] row, RowSet rowSet )
     throws KettleStepException {
     throw new UnsupportedOperationException(
@@ -48,6 +78,16 @@ public interface RowHandler {
         this.getClass().getName() ) );
   }
 
+  /**
+   * Puts a batch of rows in a specific row set. Row handlers that don't batch put the rows one at a time.
+   */
+  default void putRowsTo( RowMetaInterface rowMeta, List<Object[]> rows, RowSet rowSet )
+    throws KettleStepException {
+    for ( Object[] row : rows ) {
+      putRowTo( rowMeta, row, rowSet );
+    }
+  }
+
   default Object[] getRowFrom( RowSet rowSet ) throws KettleStepException {
     throw new UnsupportedOperationException(
       BaseMessages.getString( PKG, "BaseStep.RowHandler.GetRowFromNotSupported",
@@ -20,6 +20,7 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileNotFoundException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.ColumnarRowBatch;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueDataUtil;
@@ -63,8 +64,8 @@ public class Calculator extends BaseStep implements StepInterface {
     meta = (CalculatorMeta) smi;
     data = (CalculatorData) sdi;
 
-    Object[] r = getRow(); // get row, set busy!
-    if ( r == null ) { // no more input to be expected...
+    List<Object[]> rows = getRows( ROW_BATCH_SIZE ); // get rows, set busy!
+    if ( rows == null ) { // no more input to be expected...
       setOutputDone();
       data.clearValuesMetaMapping();
       return false;
@@ -144,31 +145,56 @@ public class Calculator extends BaseStep implements StepInterface {
       for ( int i = 0; i < data.getTempIndexes().length; i++ ) {
         data.getTempIndexes()[i] = tempIndexes.get( i );
       }
-    }
 
-    if ( log.isRowLevel() ) {
-      logRowlevel( BaseMessages.getString( PKG, "Calculator.Log.ReadRow" )
-        + getLinesRead() + " : " + getInputRowMeta().getString( r ) );
+      // Plain arithmetic on Integer and Number fields is done on primitive vectors, a batch at a time.
+      // The intermediate results never need to be boxed.
+      //
+      if ( isColumnar() ) {
+        int[] columns = new int[data.getCalcRowMeta().size()];
+        for ( int i = 0; i < columns.length; i++ ) {
+          columns[i] = i;
+        }
+        data.setColumnarBatch( new ColumnarRowBatch( data.getCalcRowMeta(), ROW_BATCH_SIZE, columns ) );
+      }
     }
 
+    long previousLinesRead = getLinesRead() - rows.size();
+    List<Object[]> outputRows = new ArrayList<>( rows.size() );
     try {
-      Object[] row = calcFields( getInputRowMeta(), r );
-      putRow( data.getOutputRowMeta(), row ); // copy row to possible alternate rowset(s).
+      if ( data.getColumnarBatch() != null && !log.isRowLevel() ) {
+        calcFields( rows, outputRows );
+      } else {
+        for ( Object[] r : rows ) {
+          if ( log.isRowLevel() ) {
+            logRowlevel( BaseMessages.getString( PKG, "Calculator.Log.ReadRow" )
+              + getLinesRead() + " : " + getInputRowMeta().getString( r ) );
+          }
+
+          try {
+            outputRows.add( calcFields( getInputRowMeta(), r ) );
 
-      if ( log.isRowLevel() ) {
-        logRowlevel( "Wrote row #" + getLinesWritten() + " : " + getInputRowMeta().getString( r ) );
+            if ( log.isRowLevel() ) {
+              logRowlevel( "Wrote row #" + ( getLinesWritten() + outputRows.size() ) + " : "
+                + getInputRowMeta().getString( r ) );
+            }
+          } catch ( KettleFileNotFoundException e ) {
+            if ( meta.isFailIfNoFile() ) {
+              logError( BaseMessages.getString( PKG, "Calculator.Log.NoFile" ) + " : " + e.getFilepath() );
+              setErrors( getErrors() + 1 );
+              putRows( data.getOutputRowMeta(), outputRows );
+              return false;
+            }
+          }
+        }
       }
-      if ( checkFeedback( getLinesRead() ) ) {
+
+      putRows( data.getOutputRowMeta(), outputRows ); // copy rows to possible alternate rowset(s).
+
+      if ( checkFeedback( previousLinesRead, getLinesRead() ) ) {
         if ( log.isBasic() ) {
           logBasic( BaseMessages.getString( PKG, "Calculator.Log.Linenr", "" + getLinesRead() ) );
         }
       }
-    } catch ( KettleFileNotFoundException e ) {
-      if ( meta.isFailIfNoFile() ) {
-        logError( BaseMessages.getString( PKG, "Calculator.Log.NoFile" ) + " : " + e.getFilepath() );
-        setErrors( getErrors() + 1 );
-        return false;
-      }
     } catch ( KettleException e ) {
       logError( BaseMessages.getString( PKG, "Calculator.ErrorInStepRunning" + " : " + e.getMessage() ) );
       throw new KettleStepException( BaseMessages.getString( PKG, "Calculator.ErrorInStepRunning" ), e );
@@ -645,6 +671,127 @@ public class Calculator extends BaseStep implements StepInterface {
     return RowDataUtil.removeItems( calcData, data.getTempIndexes() );
   }
 
+  /**
+   * @return true if all the calculations are additions, subtractions, multiplications, squares or copies of Integer or
+   *         Number fields with a result of the same type. These can be calculated on the vectors of a
+   *         {@link ColumnarRowBatch}.
+   */
+  private boolean isColumnar() {
+    RowMetaInterface calcRowMeta = data.getCalcRowMeta();
+    int nrInputFields = calcRowMeta.size() - meta.getCalculation().length;
+    for ( int i = 0; i < meta.getCalculation().length; i++ ) {
+      CalculatorMetaFunction fn = meta.getCalculation()[i];
+      int target = nrInputFields + i;
+      int indexA = data.getFieldIndexes()[i].indexA;
+      int indexB = data.getFieldIndexes()[i].indexB;
+      ValueMetaInterface targetMeta = calcRowMeta.getValueMeta( target );
+      if ( !ColumnarRowBatch.isVectorizable( targetMeta ) || indexA < 0 || indexA >= target
+        || calcRowMeta.getValueMeta( indexA ).getType() != targetMeta.getType()
+        || !ColumnarRowBatch.isVectorizable( calcRowMeta.getValueMeta( indexA ) ) ) {
+        return false;
+      }
+      switch ( fn.getCalcType() ) {
+        case CalculatorMetaFunction.CALC_COPY_OF_FIELD:
+        case CalculatorMetaFunction.CALC_SQUARE:
+          break;
+        case CalculatorMetaFunction.CALC_ADD:
+        case CalculatorMetaFunction.CALC_SUBTRACT:
+        case CalculatorMetaFunction.CALC_MULTIPLY:
+          if ( Utils.isEmpty( fn.getFieldB() ) || indexB < 0 || indexB >= target
+            || calcRowMeta.getValueMeta( indexB ).getType() != targetMeta.getType()
+            || !ColumnarRowBatch.isVectorizable( calcRowMeta.getValueMeta( indexB ) ) ) {
+            return false;
+          }
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Performs the calculations for a batch of rows on the vectors of the fields, see isColumnar(). Only the values of
+   * the calculated fields that end up in the result are boxed again.
+   *
+   * @param rows
+   *          the input rows
+   * @param outputRows
+   *          receives the rows including the calculations, excluding the temporary values
+   * @throws KettleValueException
+   *           in case an input value doesn't match the type of its field
+   */
+  private void calcFields( List<Object[]> rows, List<Object[]> outputRows ) throws KettleValueException {
+    ColumnarRowBatch batch = data.getColumnarBatch();
+    CalculatorMetaFunction[] calculations = meta.getCalculation();
+    int nrInputFields = data.getCalcRowMeta().size() - calculations.length;
+    batch.load( rows, nrInputFields );
+    int size = batch.size();
+
+    for ( int i = 0; i < calculations.length; i++ ) {
+      int calcType = calculations[i].getCalcType();
+      int target = nrInputFields + i;
+      int indexA = data.getFieldIndexes()[i].indexA;
+      int indexB;
+      switch ( calcType ) {
+        case CalculatorMetaFunction.CALC_COPY_OF_FIELD:
+          indexB = -1;
+          break;
+        case CalculatorMetaFunction.CALC_SQUARE:
+          indexB = indexA;
+          break;
+        default:
+          indexB = data.getFieldIndexes()[i].indexB;
+          break;
+      }
+
+      for ( int r = 0; r < size; r++ ) {
+        if ( batch.isNull( indexA, r ) || ( indexB >= 0 && batch.isNull( indexB, r ) ) ) {
+          batch.setNull( target, r );
+        } else if ( batch.isLongVector( target ) ) {
+          long a = batch.getLong( indexA, r );
+          batch.setLong( target, r, indexB < 0 ? a : calculate( calcType, a, batch.getLong( indexB, r ) ) );
+        } else {
+          double a = batch.getDouble( indexA, r );
+          batch.setDouble( target, r, indexB < 0 ? a : calculate( calcType, a, batch.getDouble( indexB, r ) ) );
+        }
+      }
+    }
+
+    for ( int r = 0; r < size; r++ ) {
+      Object[] calcData = RowDataUtil.resizeArray( batch.getRow( r ), data.getCalcRowMeta().size() );
+      for ( int i = 0; i < calculations.length; i++ ) {
+        if ( !calculations[i].isRemovedFromResult() ) {
+          calcData[nrInputFields + i] = batch.getValue( nrInputFields + i, r );
+        }
+      }
+      outputRows.add( RowDataUtil.removeItems( calcData, data.getTempIndexes() ) );
+    }
+    batch.clear();
+  }
+
+  private static long calculate( int calcType, long a, long b ) {
+    switch ( calcType ) {
+      case CalculatorMetaFunction.CALC_ADD:
+        return a + b;
+      case CalculatorMetaFunction.CALC_SUBTRACT:
+        return a - b;
+      default:
+        return a * b;
+    }
+  }
+
+  private static double calculate( int calcType, double a, double b ) {
+    switch ( calcType ) {
+      case CalculatorMetaFunction.CALC_ADD:
+        return a + b;
+      case CalculatorMetaFunction.CALC_SUBTRACT:
+        return a - b;
+      default:
+        return a * b;
+    }
+  }
+
   @Override
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (CalculatorMeta) smi;
@@ -14,6 +14,7 @@
 package org.pentaho.di.trans.steps.calculator;
 
 import org.pentaho.di.core.exception.KettlePluginException;
+import org.pentaho.di.core.row.ColumnarRowBatch;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaFactory;
@@ -35,6 +36,8 @@ public class CalculatorData extends BaseStepData implements StepDataInterface {
 
   private int[] tempIndexes;
 
+  private ColumnarRowBatch columnarBatch;
+
   private final Map<Integer, ValueMetaInterface> resultMetaMapping;
 
   public CalculatorData() {
@@ -74,6 +77,17 @@ public class CalculatorData extends BaseStepData implements StepDataInterface {
     this.tempIndexes = tempIndexes;
   }
 
+  /**
+   * @return the batch used to calculate on primitive vectors or null if the calculations are done row by row
+   */
+  public ColumnarRowBatch getColumnarBatch() {
+    return columnarBatch;
+  }
+
+  public void setColumnarBatch( ColumnarRowBatch columnarBatch ) {
+    this.columnarBatch = columnarBatch;
+  }
+
   public ValueMetaInterface getValueMetaFor( int resultType, String name ) throws KettlePluginException {
     // don't need any synchronization as data instance belongs only to one step instance
     ValueMetaInterface meta = resultMetaMapping.get( resultType );
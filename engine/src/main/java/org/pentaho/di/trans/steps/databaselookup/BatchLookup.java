@@ -0,0 +1,408 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import java.sql.ResultSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Looks up the keys missed by the cache of a {@code DatabaseLookup} step in batches. A batch holds a number of rows in
+ * the order they were read. The distinct keys of the rows not found in the cache are looked up with a single query per
+ * batch: <code>key IN (?, ?, ...)</code> for one key field, <code>(key1 = ? AND key2 = ?) OR ...</code> for more.
+ * <p>
+ * With more than one connection, as many batches are queried at the same time, each on a connection of its own, while
+ * the step goes on reading rows. Batches are always handed back in the order they were added, so the rows keep their
+ * order. Only used when all the key conditions are "=".
+ * <p>
+ * The rows returned are matched with the keys sent by their values. The database can compare string keys differently,
+ * for example ignoring case or trailing spaces, so a string key that isn't matched isn't necessarily missing: the step
+ * looks it up again on its own, and hands the values back with
+ * {@link Batch#setLookedUpValues(int, Object[], RowMetaInterface)}.
+ *
+ * @since 10.3
+ */
+public class BatchLookup {
+
+  /** Keeps the number of parameters of a query below what most databases accept */
+  static final int MAX_PARAMETERS = 1000;
+
+  /** Marks a key for which more than one row was found */
+  private static final Object[] MULTIPLE_RESULTS = new Object[ 0 ];
+
+  /** Marks a key that was looked up again on its own and not found */
+  private static final Object[] NOT_FOUND = new Object[ 0 ];
+
+  private final String select;
+  private final String[] keyFields;
+  private final String orderBy;
+  private final RowMetaInterface keyMeta;
+  private final boolean failingOnMultipleResults;
+  private final int batchSize;
+
+  private final List<Database> connections;
+  private final BlockingQueue<Database> idleConnections;
+  private final ExecutorService executor;
+
+  private final Deque<Batch> inFlight = new ArrayDeque<>();
+  private Batch current;
+
+  /**
+   * @param select                   the select clause up to and including "WHERE "
+   * @param keyFields                the quoted key fields of the table
+   * @param orderBy                  the order by clause, if any: the first row found for a key is used
+   * @param keyMeta                  the metadata of the keys
+   * @param failingOnMultipleResults true to fail the rows whose key finds more than one row
+   * @param batchSize                the number of rows in a batch
+   * @param connections              the connections to query on, one per batch in flight
+   * @param threadName               the name of the threads querying the batches, if there is more than one connection
+   */
+  public BatchLookup( String select, String[] keyFields, String orderBy, RowMetaInterface keyMeta,
+                      boolean failingOnMultipleResults, int batchSize, List<Database> connections,
+                      String threadName ) {
+    this.select = select;
+    this.keyFields = keyFields;
+    this.orderBy = orderBy;
+    this.keyMeta = keyMeta;
+    this.failingOnMultipleResults = failingOnMultipleResults;
+    this.batchSize = Math.max( 1, batchSize );
+    this.connections = connections;
+    this.idleConnections = new LinkedBlockingQueue<>( connections );
+    if ( connections.size() > 1 ) {
+      executor = Executors.newFixedThreadPool( connections.size(), runnable -> {
+        Thread thread = new Thread( runnable, threadName );
+        thread.setDaemon( true );
+        return thread;
+      } );
+    } else {
+      executor = null;
+    }
+  }
+
+  /**
+   * Adds a row to the current batch, and queries the batch once it is full.
+   *
+   * @param row          the input row
+   * @param lookupRow    the key of the row
+   * @param cachedValues the values found in the cache, null for a cache miss
+   */
+  public void add( Object[] row, Object[] lookupRow, Object[] cachedValues ) {
+    if ( current == null ) {
+      current = new Batch( batchSize );
+    }
+    current.rows.add( row );
+    current.lookupRows.add( lookupRow );
+    current.cachedValues.add( cachedValues );
+    if ( cachedValues == null ) {
+      current.keys.add( new RowMetaAndData( keyMeta, lookupRow ) );
+    }
+    if ( current.rows.size() >= batchSize ) {
+      flush();
+    }
+  }
+
+  /**
+   * Queries the current batch, even if it is not full.
+   */
+  public void flush() {
+    if ( current == null ) {
+      return;
+    }
+    Batch batch = current;
+    current = null;
+
+    List<Object[]> keys = new ArrayList<>( batch.keys.size() );
+    for ( RowMetaAndData key : batch.keys ) {
+      keys.add( key.getData() );
+    }
+    Callable<Result> query = () -> query( keys );
+    if ( keys.isEmpty() ) {
+      batch.result = completed( new Result( Collections.emptyList(), null ) );
+    } else if ( executor == null ) {
+      batch.result = completed( query );
+    } else {
+      batch.result = executor.submit( query );
+    }
+    inFlight.add( batch );
+  }
+
+  /**
+   * Hands back the oldest batch if its query is done. Waits for it if more batches are in flight than there are
+   * connections, or if asked to.
+   *
+   * @param wait true to wait for the oldest batch
+   * @return the oldest batch or null if there is none or if it is not done yet
+   */
+  public Batch take( boolean wait ) throws KettleException {
+    Batch batch = inFlight.peek();
+    if ( batch == null || !( wait || batch.result.isDone() || inFlight.size() > connections.size() ) ) {
+      return null;
+    }
+    inFlight.remove();
+    try {
+      batch.resolve( batch.result.get() );
+    } catch ( KettleException e ) {
+      batch.error = e;
+    } catch ( ExecutionException e ) {
+      batch.error = e.getCause() instanceof KettleException
+        ? (KettleException) e.getCause() : new KettleException( e.getCause() );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    }
+    return batch;
+  }
+
+  /**
+   * @return the number of batches queried but not handed back yet
+   */
+  public int getBatchesInFlight() {
+    return inFlight.size();
+  }
+
+  /**
+   * @return the connections the batches are queried on
+   */
+  public List<Database> getConnections() {
+    return connections;
+  }
+
+  /**
+   * Stops the queries still running. Does not disconnect the connections.
+   */
+  public void close() {
+    if ( executor != null ) {
+      executor.shutdownNow();
+    }
+    inFlight.clear();
+    current = null;
+  }
+
+  private Result query( List<Object[]> keys ) throws KettleDatabaseException, InterruptedException {
+    Database db = idleConnections.take();
+    try {
+      List<Object[]> rows = new ArrayList<>();
+      RowMetaInterface returnRowMeta = null;
+      int keysPerQuery = Math.max( 1, MAX_PARAMETERS / keyFields.length );
+      for ( int from = 0; from < keys.size(); from += keysPerQuery ) {
+        List<Object[]> part = keys.subList( from, Math.min( keys.size(), from + keysPerQuery ) );
+
+        RowMetaInterface params = new RowMeta();
+        Object[] data = new Object[ part.size() * keyFields.length ];
+        int index = 0;
+        for ( Object[] key : part ) {
+          for ( int i = 0; i < keyFields.length; i++ ) {
+            params.addValueMeta( keyMeta.getValueMeta( i ).clone() );
+            data[ index++ ] = key[ i ];
+          }
+        }
+
+        rows.addAll( db.getRows( getSql( part.size() ), params, data, ResultSet.FETCH_FORWARD, false, 0, null ) );
+        returnRowMeta = db.getReturnRowMeta();
+      }
+      return new Result( rows, returnRowMeta );
+    } finally {
+      idleConnections.add( db );
+    }
+  }
+
+  /**
+   * @param nrKeys the number of keys looked up
+   * @return the query looking up the keys
+   */
+  String getSql( int nrKeys ) {
+    StringBuilder sql = new StringBuilder( select );
+    if ( keyFields.length == 1 ) {
+      sql.append( keyFields[ 0 ] ).append( " IN (" );
+      for ( int k = 0; k < nrKeys; k++ ) {
+        sql.append( k > 0 ? ", ?" : "?" );
+      }
+      sql.append( ')' );
+    } else {
+      for ( int k = 0; k < nrKeys; k++ ) {
+        sql.append( k > 0 ? " OR (" : "(" );
+        for ( int i = 0; i < keyFields.length; i++ ) {
+          sql.append( i > 0 ? " AND " : "" ).append( keyFields[ i ] ).append( " = ?" );
+        }
+        sql.append( ')' );
+      }
+    }
+    if ( orderBy != null && orderBy.length() > 0 ) {
+      sql.append( " ORDER BY " ).append( orderBy );
+    }
+    return sql.toString();
+  }
+
+  private static <T> Future<T> completed( T value ) {
+    return completed( () -> value );
+  }
+
+  private static <T> Future<T> completed( Callable<T> callable ) {
+    FutureTask<T> task = new FutureTask<>( callable );
+    task.run();
+    return task;
+  }
+
+  /**
+   * The rows returned by the query of a batch: the key fields followed by the values.
+   */
+  private static class Result {
+    private final List<Object[]> rows;
+    private final RowMetaInterface rowMeta;
+
+    Result( List<Object[]> rows, RowMetaInterface rowMeta ) {
+      this.rows = rows;
+      this.rowMeta = rowMeta;
+    }
+  }
+
+  /**
+   * A number of rows, in the order they were read, with what was found for them.
+   */
+  public class Batch {
+    private final List<Object[]> rows;
+    private final List<Object[]> lookupRows;
+    private final List<Object[]> cachedValues;
+    private final Set<RowMetaAndData> keys = new LinkedHashSet<>();
+    private final Map<RowMetaAndData, Object[]> found = new HashMap<>();
+
+    private Future<Result> result;
+    private RowMetaInterface returnRowMeta;
+    private KettleException error;
+
+    private Batch( int size ) {
+      rows = new ArrayList<>( size );
+      lookupRows = new ArrayList<>( size );
+      cachedValues = new ArrayList<>( size );
+    }
+
+    private void resolve( Result result ) throws KettleException {
+      if ( result.rowMeta == null ) {
+        return;
+      }
+      int nrKeys = keyFields.length;
+      returnRowMeta = new RowMeta();
+      for ( int i = nrKeys; i < result.rowMeta.size(); i++ ) {
+        returnRowMeta.addValueMeta( result.rowMeta.getValueMeta( i ) );
+      }
+      for ( Object[] row : result.rows ) {
+        // Match the keys as they were sent, whatever the type the database returned them with
+        //
+        Object[] key = new Object[ nrKeys ];
+        for ( int i = 0; i < nrKeys; i++ ) {
+          ValueMetaInterface returned = result.rowMeta.getValueMeta( i );
+          ValueMetaInterface expected = keyMeta.getValueMeta( i );
+          key[ i ] = returned.getType() == expected.getType() ? row[ i ] : expected.convertData( returned, row[ i ] );
+        }
+        RowMetaAndData lookupKey = new RowMetaAndData( keyMeta, key );
+
+        Object[] values = new Object[ row.length - nrKeys ];
+        System.arraycopy( row, nrKeys, values, 0, values.length );
+        Object[] previous = found.putIfAbsent( lookupKey, values );
+        if ( previous != null && failingOnMultipleResults ) {
+          found.put( lookupKey, MULTIPLE_RESULTS );
+        }
+      }
+    }
+
+    /**
+     * @return the number of rows in the batch
+     */
+    public int size() {
+      return rows.size();
+    }
+
+    public Object[] getRow( int index ) {
+      return rows.get( index );
+    }
+
+    public Object[] getLookupRow( int index ) {
+      return lookupRows.get( index );
+    }
+
+    /**
+     * @return the values found in the cache for the row, null if it was looked up in the database
+     */
+    public Object[] getCachedValues( int index ) {
+      return cachedValues.get( index );
+    }
+
+    /**
+     * @return a copy of the values found in the database for the row, null if nothing was found
+     * @throws KettleException if the query failed or more than one row was found while this is not allowed
+     */
+    public Object[] getLookedUpValues( int index ) throws KettleException {
+      if ( error != null ) {
+        throw error;
+      }
+      Object[] values = found.get( new RowMetaAndData( keyMeta, lookupRows.get( index ) ) );
+      if ( values == MULTIPLE_RESULTS ) {
+        throw new KettleDatabaseException(
+          "Only 1 row was expected as a result of a lookup, and at least 2 were found!" );
+      }
+      return values == null || values == NOT_FOUND ? null : values.clone();
+    }
+
+    /**
+     * @return true if the query of the batch returned no row matching the key of the row, and it wasn't looked up on
+     *         its own yet
+     */
+    public boolean isMissed( int index ) {
+      return error == null && !found.containsKey( new RowMetaAndData( keyMeta, lookupRows.get( index ) ) );
+    }
+
+    /**
+     * Keeps the values the key of a missed row was looked up with on its own, for the other rows with the same key.
+     *
+     * @param values        the values found, null if nothing was found
+     * @param valuesRowMeta the metadata of the values found
+     */
+    public void setLookedUpValues( int index, Object[] values, RowMetaInterface valuesRowMeta ) {
+      found.put( new RowMetaAndData( keyMeta, lookupRows.get( index ) ), values == null ? NOT_FOUND : values.clone() );
+      if ( returnRowMeta == null ) {
+        returnRowMeta = valuesRowMeta;
+      }
+    }
+
+    /**
+     * @return the metadata of the values found in the database
+     */
+    public RowMetaInterface getReturnRowMeta() {
+      return returnRowMeta;
+    }
+  }
+}
@@ -13,11 +13,14 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.cache.LookupCacheRegistry;
 import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.database.Database;
@@ -69,8 +72,62 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
    */
   @VisibleForTesting
   synchronized Object[] lookupValues( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
-    Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
+    Object[] lookupRow = getLookupRow( inputRowMeta, row );
+
+    Object[] add;
+    boolean cache_now = false;
+    boolean cacheHit = false;
+
+    // First, check if we looked up before
+    if ( meta.isCached() ) {
+      add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
+      if ( add != null ) {
+        cacheHit = true;
+      }
+    } else {
+      add = null;
+    }
+
+    if ( add == null ) {
+      if ( !( meta.isCached() && meta.isLoadingAllDataInCache() ) || data.hasDBCondition ) { // do not go to the
+        // database when all rows
+        // are in (exception LIKE
+        // operator)
+        add = lookupInDatabase( lookupRow, false );
+        cache_now = true;
+      }
+    }
+
+    return addLookupValues( inputRowMeta, row, lookupRow, add, cacheHit, cache_now,
+      cacheHit || add == null ? null : data.db.getReturnRowMeta() );
+  }
+
+  /**
+   * Looks up a key with the prepared lookup statement of the step.
+   *
+   * @param afterBatch true when a batch query may have run on the connection of the step: its result has another
+   *                   layout, so the layout of the lookup result is read again
+   * @return the values found, null if nothing was found
+   */
+  private Object[] lookupInDatabase( Object[] lookupRow, boolean afterBatch ) throws KettleException {
+    if ( log.isRowLevel() ) {
+      logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow1" )
+        + meta.getStreamKeyField1().length
+        + BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow2" )
+        + data.lookupMeta.getString( lookupRow ) );
+    }
 
+    data.db.setValuesLookup( data.lookupMeta, lookupRow );
+    if ( afterBatch ) {
+      return data.db.getLookup( data.db.getPrepStatementLookup(), meta.isFailingOnMultipleResults() );
+    }
+    return data.db.getLookup( meta.isFailingOnMultipleResults() );
+  }
+
+  /**
+   * Builds the key to look up from the input row, converted to the types of the key fields in the table.
+   */
+  private Object[] getLookupRow( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
     Object[] lookupRow = new Object[ data.lookupMeta.size() ];
     int lookupIndex = 0;
 
@@ -109,38 +166,22 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         lookupIndex++;
       }
     }
+    return lookupRow;
+  }
 
-    Object[] add;
-    boolean cache_now = false;
-    boolean cacheHit = false;
-
-    // First, check if we looked up before
-    if ( meta.isCached() ) {
-      add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
-      if ( add != null ) {
-        cacheHit = true;
-      }
-    } else {
-      add = null;
-    }
-
-    if ( add == null ) {
-      if ( !( meta.isCached() && meta.isLoadingAllDataInCache() ) || data.hasDBCondition ) { // do not go to the
-        // database when all rows
-        // are in (exception LIKE
-        // operator)
-        if ( log.isRowLevel() ) {
-          logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow1" )
-            + meta.getStreamKeyField1().length
-            + BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow2" )
-            + data.lookupMeta.getString( lookupRow ) );
-        }
-
-        data.db.setValuesLookup( data.lookupMeta, lookupRow );
-        add = data.db.getLookup( meta.isFailingOnMultipleResults() );
-        cache_now = true;
-      }
-    }
+  /**
+   * Adds the values looked up for a row, or the default values if nothing was found, to the row.
+   *
+   * @param add the values looked up, null if nothing was found
+   * @param cacheHit true if the values were found in the cache
+   * @param cache_now true if the values were looked up in the database and can be stored in the cache
+   * @param returnRowMeta the metadata of the values looked up in the database
+   * @return the output row or null if the row was eaten or sent to the error handling
+   */
+  private Object[] addLookupValues( RowMetaInterface inputRowMeta, Object[] row, Object[] lookupRow, Object[] add,
+                                    boolean cacheHit, boolean cache_now, RowMetaInterface returnRowMeta )
+    throws KettleException {
+    Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
 
     if ( add == null ) { // nothing was found, unknown code: add default values
       if ( meta.isEatingRowOnLookupFailure() ) {
@@ -182,7 +223,7 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         // that should not be a problem.
         //
         for ( int i = 0; i < types.length; i++ ) {
-          ValueMetaInterface returned = data.db.getReturnRowMeta().getValueMeta( i );
+          ValueMetaInterface returned = returnRowMeta.getValueMeta( i );
           ValueMetaInterface expected = data.returnMeta.getValueMeta( i );
 
           if ( returned != null && types[ i ] > 0 && types[ i ] != returned.getType() ) {
@@ -348,6 +389,12 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.batchLookup != null ) {
+        data.batchLookup.flush();
+        if ( !putBatches( true ) ) {
+          return false;
+        }
+      }
       setOutputDone();
       return false;
     }
@@ -404,10 +451,6 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         }
       }
 
-      if ( meta.isCached() ) {
-        data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
-      }
-
       determineFieldsTypesQueryingDb();
 
       initNullIf();
@@ -416,12 +459,25 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
 
       initReturnMeta();
 
+      if ( meta.isCached() ) {
+        data.cache = newCache();
+      }
+
       // If the user selected to load all data into the cache at startup, that's what we do now...
       //
-      if ( meta.isCached() && meta.isLoadingAllDataInCache() ) {
+      if ( meta.isCached() && meta.isLoadingAllDataInCache() && data.sharedCache == null ) {
         loadAllTableDataIntoTheCache();
       }
 
+      if ( meta.getLookupBatchSize() > 0 ) {
+        data.batchLookup = newBatchLookup();
+      }
+    }
+
+    // A shared cache is loaded by the first step using it, and again once its entries expired
+    //
+    if ( data.sharedCache != null && meta.isLoadingAllDataInCache() && !data.sharedCache.isComplete() ) {
+      loadAllTableDataIntoTheSharedCache();
     }
 
     if ( log.isRowLevel() ) {
@@ -429,36 +485,233 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         + getInputRowMeta().getString( r ) );
     }
 
+    if ( data.batchLookup != null ) {
+      try {
+        Object[] lookupRow = getLookupRow( getInputRowMeta(), r );
+        Object[] cachedValues = meta.isCached() ? data.cache.getRowFromCache( data.lookupMeta, lookupRow ) : null;
+        data.batchLookup.add( r, lookupRow, cachedValues );
+      } catch ( KettleException e ) {
+        return handleLookupError( r, e );
+      }
+      return putBatches( false );
+    }
+
     try {
       // add new lookup values to the row
       Object[] outputRow = lookupValues( getInputRowMeta(), r );
 
-      if ( outputRow != null ) {
-        // copy row to output rowset(s);
-        putRow( data.outputRowMeta, outputRow );
+      putLookedUpRow( r, outputRow );
+    } catch ( KettleException e ) {
+      return handleLookupError( r, e );
+    }
+
+    return true;
+  }
+
+  private void putLookedUpRow( Object[] r, Object[] outputRow ) throws KettleStepException {
+    if ( outputRow != null ) {
+      // copy row to output rowset(s);
+      putRow( data.outputRowMeta, outputRow );
+
+      if ( log.isRowLevel() ) {
+        logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.WroteRowToNextStep" )
+          + getInputRowMeta().getString( r ) );
+      }
+      if ( checkFeedback( getLinesRead() ) ) {
+        logBasic( "linenr " + getLinesRead() );
+      }
+    }
+  }
+
+  /**
+   * Sends the row to the error handling, or stops the transformation if there is none.
+   *
+   * @return false if the step stopped
+   */
+  private boolean handleLookupError( Object[] r, KettleException e ) throws KettleStepException {
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
+      return true;
+    }
+    logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
+      + e.getMessage() );
+    setErrors( 1 );
+    stopAll();
+    setOutputDone(); // signal end to receiver(s)
+    return false;
+  }
+
+  /**
+   * Sets up looking up the keys missed by the cache in batches, if the lookup allows it: all the key conditions have
+   * to be "=".
+   *
+   * @return the batch lookup or null to look up row by row
+   */
+  private BatchLookup newBatchLookup() throws KettleException {
+    if ( meta.isCached() && meta.isLoadingAllDataInCache() ) {
+      return null; // all the rows are in the cache already
+    }
+    String[] tableKeyFields = meta.getTableKeyField();
+    boolean allEquals = data.lookupMeta.size() == tableKeyFields.length;
+    for ( int condition : data.conditions ) {
+      allEquals &= condition == DatabaseLookupMeta.CONDITION_EQ;
+    }
+    if ( !allEquals ) {
+      logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.BatchLookupNeedsEquals" ) );
+      return null;
+    }
+
+    // Only a string key can be found by the database in a form the batch doesn't match: in another case, with
+    // trailing spaces, ... Any other key missed by a batch isn't in the table.
+    //
+    data.lookUpMissedKeys = false;
+    for ( ValueMetaInterface key : data.lookupMeta.getValueMetaList() ) {
+      data.lookUpMissedKeys |= key.isString();
+    }
 
-        if ( log.isRowLevel() ) {
-          logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.WroteRowToNextStep" )
-            + getInputRowMeta().getString( r ) );
+    DatabaseMeta dbMeta = meta.getDatabaseMeta();
+    String[] keyFields = new String[ tableKeyFields.length ];
+    List<String> columns = new ArrayList<>();
+    for ( int i = 0; i < tableKeyFields.length; i++ ) {
+      keyFields[ i ] = dbMeta.quoteField( tableKeyFields[ i ] );
+      columns.add( keyFields[ i ] );
+    }
+    for ( String returnValueField : meta.getReturnValueField() ) {
+      columns.add( dbMeta.quoteField( returnValueField ) );
+    }
+    String select = "SELECT " + String.join( ", ", columns ) + " FROM "
+      + dbMeta.getQuotedSchemaTableCombination(
+        environmentSubstitute( meta.getSchemaName() ), environmentSubstitute( meta.getTablename() ) )
+      + " WHERE ";
+
+    // Batches in flight each need a connection of their own, a transaction spanning the transformation only has one
+    //
+    int inFlight = Const.toInt( getVariable( Const.KETTLE_DATABASE_LOOKUP_BATCHES_IN_FLIGHT ), 2 );
+    List<Database> connections = new ArrayList<>();
+    if ( inFlight <= 1 || getTransMeta().isUsingUniqueConnections() ) {
+      connections.add( data.db );
+    } else {
+      try {
+        for ( int i = 0; i < inFlight; i++ ) {
+          Database db = getDatabase( dbMeta );
+          connections.add( db );
+          connectDatabase( db );
         }
-        if ( checkFeedback( getLinesRead() ) ) {
-          logBasic( "linenr " + getLinesRead() );
+      } catch ( KettleDatabaseException e ) {
+        for ( Database db : connections ) {
+          db.disconnect();
         }
+        throw e;
       }
-    } catch ( KettleException e ) {
-      if ( getStepMeta().isDoingErrorHandling() ) {
-        putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
+    }
+
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.LookingUpInBatches",
+        meta.getLookupBatchSize(), connections.size() ) );
+    }
+    return new BatchLookup( select, keyFields, meta.getOrderByClause(), data.lookupMeta,
+      meta.isFailingOnMultipleResults(), meta.getLookupBatchSize(), connections, getStepname() + " - lookup" );
+  }
+
+  /**
+   * Writes the rows of the batches that were looked up, in the order they were read.
+   *
+   * @param all true to wait for all the batches in flight
+   * @return false if the step stopped
+   */
+  private boolean putBatches( boolean all ) throws KettleException {
+    for ( BatchLookup.Batch batch = data.batchLookup.take( all ); batch != null;
+          batch = data.batchLookup.take( all ) ) {
+      for ( int i = 0; i < batch.size(); i++ ) {
+        Object[] r = batch.getRow( i );
+        try {
+          Object[] outputRow;
+          Object[] cachedValues = batch.getCachedValues( i );
+          if ( cachedValues != null ) {
+            outputRow =
+              addLookupValues( getInputRowMeta(), r, batch.getLookupRow( i ), cachedValues, true, false, null );
+          } else {
+            Object[] add = batch.getLookedUpValues( i );
+            if ( add == null && data.lookUpMissedKeys && batch.isMissed( i ) ) {
+              // The database may have found the key in another form: other case, trailing spaces, ...
+              //
+              add = lookupInDatabase( batch.getLookupRow( i ), true );
+              batch.setLookedUpValues( i, add, data.db.getReturnRowMeta() );
+            }
+            outputRow = addLookupValues( getInputRowMeta(), r, batch.getLookupRow( i ), add, false, true,
+              batch.getReturnRowMeta() );
+          }
+          putLookedUpRow( r, outputRow );
+        } catch ( KettleException e ) {
+          if ( !handleLookupError( r, e ) ) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates the cache of the step: the shared lookup cache named in the step, if it can be used, or a cache of this
+   * step only.
+   */
+  private DatabaseLookupData.Cache newCache() throws KettleException {
+    String name = environmentSubstitute( meta.getSharedCacheName() );
+    if ( !Utils.isEmpty( name ) ) {
+      if ( data.allEquals ) {
+        long timeToLive = Const.toLong( getVariable( Const.KETTLE_SHARED_LOOKUP_CACHE_TTL ), 0L );
+        try {
+          data.sharedCache = LookupCacheRegistry.getInstance().attach( name, getSharedCacheLayout(),
+            meta.isLoadingAllDataInCache() ? 0 : meta.getCacheSize(), TimeUnit.SECONDS.toMillis( timeToLive ) );
+          if ( log.isDetailed() ) {
+            logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.UsingSharedCache", name ) );
+          }
+          return new SharedCache( data.sharedCache );
+        } catch ( KettleException e ) {
+          logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.SharedCacheNotUsed", name, e.getMessage() ) );
+        }
       } else {
-        logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
-          + e.getMessage() );
-        setErrors( 1 );
-        stopAll();
-        setOutputDone(); // signal end to receiver(s)
-        return false;
+        logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.SharedCacheNeedsEquals", name ) );
       }
     }
+    return DefaultCache.newCache( data, meta.getCacheSize() );
+  }
 
-    return true;
+  /**
+   * Describes where the rows of the cache come from and what they look like: only steps that would read the same rows
+   * from the database can share a cache.
+   */
+  private String getSharedCacheLayout() throws KettleException {
+    DatabaseMeta dbMeta = meta.getDatabaseMeta();
+    StringBuilder layout = new StringBuilder( "Database lookup in " );
+    layout.append( dbMeta.getURL( getPartitionID() ) ).append( " as " )
+      .append( environmentSubstitute( dbMeta.getUsername() ) ).append( ", table " )
+      .append( dbMeta.getQuotedSchemaTableCombination(
+        environmentSubstitute( meta.getSchemaName() ), environmentSubstitute( meta.getTablename() ) ) );
+    layout.append( ", keys" );
+    for ( int i = 0; i < meta.getTableKeyField().length; i++ ) {
+      layout.append( ' ' ).append( meta.getTableKeyField()[ i ] ).append( ' ' ).append( meta.getKeyCondition()[ i ] );
+    }
+    layout.append( ", values " ).append( Arrays.toString( meta.getReturnValueField() ) );
+    layout.append( ", order by " ).append( meta.getOrderByClause() );
+    layout.append( ", fail on multiple results " ).append( meta.isFailingOnMultipleResults() );
+    layout.append( ", all rows " ).append( meta.isLoadingAllDataInCache() );
+    layout.append( ", key types " ).append( data.lookupMeta.toStringMeta() );
+    layout.append( ", value types " ).append( data.returnMeta.toStringMeta() );
+    return layout.toString();
+  }
+
+  /**
+   * Loads all the rows into the shared cache, unless another step did it already.
+   */
+  private void loadAllTableDataIntoTheSharedCache() throws KettleException {
+    synchronized ( data.sharedCache ) {
+      if ( !data.sharedCache.isComplete() ) {
+        loadAllTableDataIntoTheCache();
+        data.sharedCache.setComplete( true );
+      }
+    }
   }
 
   private void loadAllTableDataIntoTheCache() throws KettleException {
@@ -590,6 +843,13 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       synchronized ( data.db ) {
         data.db.cancelQuery();
       }
+      if ( data.batchLookup != null ) {
+        for ( Database db : data.batchLookup.getConnections() ) {
+          if ( db != data.db ) {
+            db.cancelQuery();
+          }
+        }
+      }
       data.isCanceled = true;
     }
   }
@@ -642,6 +902,16 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     meta = (DatabaseLookupMeta) smi;
     data = (DatabaseLookupData) sdi;
 
+    if ( data.batchLookup != null ) {
+      data.batchLookup.close();
+      for ( Database db : data.batchLookup.getConnections() ) {
+        if ( db != data.db ) {
+          db.disconnect();
+        }
+      }
+      data.batchLookup = null;
+    }
+
     if ( data.db != null ) {
       data.db.disconnect();
     }
@@ -649,6 +919,14 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     // Recover memory immediately, allow in-memory data to be garbage collected
     //
     data.cache = null;
+    if ( data.sharedCache != null ) {
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.SharedCacheStatistics",
+          data.sharedCache.getName(), data.sharedCache.getHits(), data.sharedCache.getMisses() ) );
+      }
+      LookupCacheRegistry.getInstance().detach( data.sharedCache );
+      data.sharedCache = null;
+    }
 
     super.dispose( smi, sdi );
   }
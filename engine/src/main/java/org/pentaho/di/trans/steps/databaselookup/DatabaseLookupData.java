@@ -13,6 +13,7 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import org.pentaho.di.core.cache.SharedLookupCache;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -25,7 +26,13 @@ import org.pentaho.di.trans.step.StepDataInterface;
  */
 public class DatabaseLookupData extends BaseStepData implements StepDataInterface {
   public Cache cache;
+  /** The lookup cache shared with other steps, if any, backing {@link #cache} */
+  public SharedLookupCache sharedCache;
   public Database db;
+  /** Looks up the keys missed by the cache in batches, null to look up row by row */
+  public BatchLookup batchLookup;
+  /** True to look up again on their own the keys a batch missed, the database can compare them differently */
+  public boolean lookUpMissedKeys;
 
   public Object[] nullif; // Not found: default values...
   public int[] keynrs; // nr of keylookup -value in row...
@@ -111,6 +111,12 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
   /** Flag to make it load all data into the cache at startup */
   private boolean loadingAllDataInCache;
 
+  /** The name of the lookup cache shared with other steps, empty for a cache of this step only */
+  private String sharedCacheName;
+
+  /** Look up the keys missed by the cache this many at a time, 0 to look up row by row */
+  private int lookupBatchSize;
+
   /** Have the lookup fail if multiple results were found, renders the orderByClause useless */
   private boolean failingOnMultipleResults;
 
@@ -388,6 +394,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       loadingAllDataInCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "cache_load_all" ) );
       csize = XMLHandler.getTagValue( stepnode, "cache_size" );
       cacheSize = Const.toInt( csize, 0 );
+      sharedCacheName = XMLHandler.getTagValue( stepnode, "shared_cache_name" );
+      lookupBatchSize = Const.toInt( XMLHandler.getTagValue( stepnode, "lookup_batch_size" ), 0 );
       schemaName = XMLHandler.getTagValue( stepnode, "lookup", "schema" );
       tablename = XMLHandler.getTagValue( stepnode, "lookup", "table" );
 
@@ -442,6 +450,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     databaseMeta = null;
     cached = false;
     cacheSize = 0;
+    sharedCacheName = null;
+    lookupBatchSize = 0;
     schemaName = "";
     tablename = BaseMessages.getString( PKG, "DatabaseLookupMeta.Default.TableName" );
 
@@ -507,6 +517,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     retval.append( "    " ).append( XMLHandler.addTagValue( "cache", cached ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "cache_load_all", loadingAllDataInCache ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "cache_size", cacheSize ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "shared_cache_name", sharedCacheName ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "lookup_batch_size", lookupBatchSize ) );
     retval.append( "    <lookup>" ).append( Const.CR );
     retval.append( "      " ).append( XMLHandler.addTagValue( "schema", schemaName ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "table", tablename ) );
@@ -546,6 +558,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       cached = rep.getStepAttributeBoolean( id_step, "cache" );
       loadingAllDataInCache = rep.getStepAttributeBoolean( id_step, "cache_load_all" );
       cacheSize = (int) rep.getStepAttributeInteger( id_step, "cache_size" );
+      sharedCacheName = rep.getStepAttributeString( id_step, "shared_cache_name" );
+      lookupBatchSize = (int) rep.getStepAttributeInteger( id_step, "lookup_batch_size" );
       schemaName = rep.getStepAttributeString( id_step, "lookup_schema" );
       tablename = rep.getStepAttributeString( id_step, "lookup_table" );
       orderByClause = rep.getStepAttributeString( id_step, "lookup_orderby" );
@@ -584,6 +598,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       rep.saveStepAttribute( id_transformation, id_step, "cache", cached );
       rep.saveStepAttribute( id_transformation, id_step, "cache_load_all", loadingAllDataInCache );
       rep.saveStepAttribute( id_transformation, id_step, "cache_size", cacheSize );
+      rep.saveStepAttribute( id_transformation, id_step, "shared_cache_name", sharedCacheName );
+      rep.saveStepAttribute( id_transformation, id_step, "lookup_batch_size", lookupBatchSize );
       rep.saveStepAttribute( id_transformation, id_step, "lookup_schema", schemaName );
       rep.saveStepAttribute( id_transformation, id_step, "lookup_table", tablename );
       rep.saveStepAttribute( id_transformation, id_step, "lookup_orderby", orderByClause );
@@ -888,6 +904,36 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     this.loadingAllDataInCache = loadingAllDataInCache;
   }
 
+  /**
+   * @return the name of the lookup cache shared with other steps, empty for a cache of this step only
+   */
+  public String getSharedCacheName() {
+    return sharedCacheName;
+  }
+
+  /**
+   * @param sharedCacheName
+   *          the name of the lookup cache shared with other steps, empty for a cache of this step only
+   */
+  public void setSharedCacheName( String sharedCacheName ) {
+    this.sharedCacheName = sharedCacheName;
+  }
+
+  /**
+   * @return the number of keys missed by the cache looked up at a time, 0 to look up row by row
+   */
+  public int getLookupBatchSize() {
+    return lookupBatchSize;
+  }
+
+  /**
+   * @param lookupBatchSize
+   *          the number of keys missed by the cache looked up at a time, 0 to look up row by row
+   */
+  public void setLookupBatchSize( int lookupBatchSize ) {
+    this.lookupBatchSize = lookupBatchSize;
+  }
+
   @Override public RowMeta getRowMeta( StepDataInterface stepData ) {
     return (RowMeta) ( (DatabaseLookupData) stepData ).returnMeta;
   }
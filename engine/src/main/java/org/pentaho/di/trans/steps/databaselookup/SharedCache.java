@@ -0,0 +1,51 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.cache.SharedLookupCache;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A cache for the {@code DatabaseLookup} step that keeps its rows in a {@link SharedLookupCache}, so that the rows
+ * looked up by one step are found by the other steps using the same cache. Only used when all the key conditions are
+ * "equal", the rows are looked up by key.
+ *
+ * @since 10.3
+ */
+public class SharedCache implements DatabaseLookupData.Cache {
+
+  private final SharedLookupCache cache;
+
+  public SharedCache( SharedLookupCache cache ) {
+    this.cache = cache;
+  }
+
+  @Override
+  public Object[] getRowFromCache( RowMetaInterface lookupMeta, Object[] lookupRow ) {
+    return (Object[]) cache.get( new RowMetaAndData( lookupMeta, lookupRow ) );
+  }
+
+  @Override
+  public void storeRowInCache( DatabaseLookupMeta meta, RowMetaInterface lookupMeta, Object[] lookupRow,
+                               Object[] add ) {
+    // The first row stored for a key wins, like in the private cache
+    //
+    cache.putIfAbsent( new RowMetaAndData( lookupMeta, lookupRow ), add );
+  }
+
+  public SharedLookupCache getSharedLookupCache() {
+    return cache;
+  }
+}
@@ -69,7 +69,7 @@ public class Delete extends BaseDatabaseStep implements StepInterface {
         .getString( deleteRow ), rowMeta.getString( row ) ) );
     }
 
-    data.db.insertRow( data.prepStatementDelete );
+    data.db.insertRow( data.prepStatementDelete, data.batchMode, true );
     incrementLinesUpdated();
   }
 
@@ -211,6 +211,12 @@ public class Delete extends BaseDatabaseStep implements StepInterface {
 
     if ( super.init( smi, sdi ) ) {
         data.db.setCommitSize( meta.getCommitSize( this ) );
+
+        // A failed batch doesn't tell which rows to send to the error stream, so they are deleted one by one then
+        data.batchMode = meta.useBatchDelete() && !getStepMeta().isDoingErrorHandling();
+        if ( meta.useBatchDelete() && !data.batchMode ) {
+          logBasic( BaseMessages.getString( PKG, "Delete.Log.BatchDeleteDisabledForErrorHandling" ) );
+        }
         return true;
     }
     return false;
@@ -229,12 +235,13 @@ public class Delete extends BaseDatabaseStep implements StepInterface {
       try {
         if ( !data.db.isAutoCommit() ) {
           if ( getErrors() == 0 ) {
-            data.db.commit();
+            data.db.emptyAndCommit( data.prepStatementDelete, data.batchMode );
           } else {
             data.db.rollback();
           }
         }
         data.db.closeUpdate();
+        data.db.closePreparedStatement( data.prepStatementDelete );
       } catch ( KettleDatabaseException e ) {
         logError( BaseMessages.getString( PKG, "Delete.Log.UnableToCommitUpdateConnection" )
                 + data.db + "] :" + e.toString() );
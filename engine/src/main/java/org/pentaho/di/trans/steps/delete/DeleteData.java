@@ -38,6 +38,8 @@ public class DeleteData extends BaseDatabaseStepData implements StepDataInterfac
 
   public PreparedStatement prepStatementDelete;
 
+  public boolean batchMode; // false when the rows in error go to the error stream
+
   public DeleteData() {
     super();
 
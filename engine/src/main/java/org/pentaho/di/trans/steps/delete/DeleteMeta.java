@@ -58,6 +58,7 @@ public class DeleteMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
   private static final String TAG_8_SPACES = "        ";
   private static final String TAG_CONNECTION = "connection";
   private static final String TAG_COMMIT = "commit";
+  private static final String TAG_USE_BATCH = "use_batch";
   private static final String TAG_LOOKUP = "lookup";
   private static final String TAG_SCHEMA = "schema";
   private static final String TAG_TABLE = "table";
@@ -95,6 +96,10 @@ public class DeleteMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
   @Injection( name = "COMMIT_SIZE" )
   private String commitSize;
 
+  /** Flag to indicate the use of batch deletes, disabled by default for backward compatibility */
+  @Injection( name = "BATCH_DELETE" )
+  private boolean useBatchDelete;
+
   public DeleteMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -145,6 +150,21 @@ public class DeleteMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     this.commitSize = commitSize;
   }
 
+  /**
+   * @return the useBatchDelete
+   */
+  public boolean useBatchDelete() {
+    return useBatchDelete;
+  }
+
+  /**
+   * @param useBatchDelete
+   *          the useBatchDelete to set
+   */
+  public void setUseBatchDelete( boolean useBatchDelete ) {
+    this.useBatchDelete = useBatchDelete;
+  }
+
   /**
    * @return Returns the database.
    */
@@ -216,6 +236,7 @@ public class DeleteMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
       databaseMeta = DatabaseMeta.findDatabase( databases, con );
       csize = XMLHandler.getTagValue( stepnode, TAG_COMMIT );
       commitSize = ( csize != null ) ? csize : "0";
+      useBatchDelete = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, TAG_USE_BATCH ) );
       schemaName = XMLHandler.getTagValue( stepnode, TAG_LOOKUP, TAG_SCHEMA );
       tableName = XMLHandler.getTagValue( stepnode, TAG_LOOKUP, TAG_TABLE );
 
@@ -245,6 +266,7 @@ public class DeleteMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
   public void setDefault() {
     databaseMeta = null;
     commitSize = "100";
+    useBatchDelete = false;
     schemaName = "";
     tableName = BaseMessages.getString( PKG, "DeleteMeta.DefaultTableName.Label" );
 
@@ -259,6 +281,7 @@ public class DeleteMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     retval.append( TAG_4_SPACES ).append(
                     XMLHandler.addTagValue( TAG_CONNECTION, databaseMeta == null ? "" : databaseMeta.getName() ) );
     retval.append( TAG_4_SPACES ).append( XMLHandler.addTagValue( TAG_COMMIT, commitSize ) );
+    retval.append( TAG_4_SPACES ).append( XMLHandler.addTagValue( TAG_USE_BATCH, useBatchDelete ) );
     retval.append( TAG_4_SPACES + "<lookup>" ).append( Const.CR );
     retval.append( TAG_6_SPACES ).append( XMLHandler.addTagValue( TAG_SCHEMA, schemaName ) );
     retval.append( TAG_6_SPACES ).append( XMLHandler.addTagValue( TAG_TABLE, tableName ) );
@@ -293,6 +316,7 @@ public class DeleteMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
           commitSize = Long.toString( comSz );
         }
       }
+      useBatchDelete = rep.getStepAttributeBoolean( id_step, TAG_USE_BATCH );
       schemaName = rep.getStepAttributeString( id_step, TAG_SCHEMA );
       tableName = rep.getStepAttributeString( id_step, TAG_TABLE );
 
@@ -316,6 +340,7 @@ public class DeleteMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     try {
       rep.saveDatabaseMetaStepAttribute( id_transformation, id_step, TAG_ID_CONNECTION, databaseMeta );
       rep.saveStepAttribute( id_transformation, id_step, TAG_COMMIT, commitSize );
+      rep.saveStepAttribute( id_transformation, id_step, TAG_USE_BATCH, useBatchDelete );
       rep.saveStepAttribute( id_transformation, id_step, TAG_SCHEMA, schemaName );
       rep.saveStepAttribute( id_transformation, id_step, TAG_TABLE, tableName );
 
@@ -13,6 +13,7 @@
 
 package org.pentaho.di.trans.steps.dimensionlookup;
 
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
@@ -20,10 +21,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.cache.LookupCacheRegistry;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
@@ -183,6 +186,12 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
           data.cache =
             new ByteArrayHashMap( meta.getCacheSize() > 0 ? meta.getCacheSize() : 5000, data.cacheKeyRowMeta );
         }
+
+        // Only the lookups can be shared, an update of the dimension would need to update all the caches
+        //
+        if ( !meta.isUpdate() && meta.getCacheSize() >= 0 && !Utils.isEmpty( meta.getSharedCacheName() ) ) {
+          attachSharedCache();
+        }
       }
 
       if ( !Utils.isEmpty( meta.getDateField() ) ) {
@@ -1506,14 +1515,20 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     // store it in the cache if needed.
     byte[] keyPart = RowMeta.extractData( data.cacheKeyRowMeta, keyValues );
     byte[] valuePart = RowMeta.extractData( data.cacheValueRowMeta, returnValues );
-    data.cache.put( keyPart, valuePart );
+    if ( data.sharedCache != null ) {
+      data.sharedCache.put( ByteBuffer.wrap( keyPart ), valuePart );
+    } else {
+      data.cache.put( keyPart, valuePart );
+    }
 
     // check if the size is not too big...
     // Allow for a buffer overrun of 20% and then remove those 20% in one go.
     // Just to keep performance in track.
+    // The shared cache evicts its oldest entries by itself.
     //
     int tenPercent = meta.getCacheSize() / 10;
-    if ( meta.getCacheSize() > 0 && data.cache.size() > meta.getCacheSize() + tenPercent ) {
+    if ( data.sharedCache == null && meta.getCacheSize() > 0
+      && data.cache.size() > meta.getCacheSize() + tenPercent ) {
       // Which cache entries do we delete here?
       // We delete those with the lowest technical key...
       // Those would arguably be the "oldest" dimension entries.
@@ -1608,7 +1623,8 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     }
 
     byte[] key = RowMeta.extractData( data.cacheKeyRowMeta, keyValues );
-    byte[] value = data.cache.get( key );
+    byte[] value =
+      data.sharedCache != null ? (byte[]) data.sharedCache.get( ByteBuffer.wrap( key ) ) : data.cache.get( key );
     if ( value != null ) {
       Object[] row = RowMeta.getRow( data.cacheValueRowMeta, value );
 
@@ -1628,6 +1644,43 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     return null;
   }
 
+  /**
+   * Attaches to the shared lookup cache named in the step. The entries of this cache are the same as those of the
+   * private cache: the extracted natural key and the extracted lookup results.
+   */
+  private void attachSharedCache() {
+    String name = environmentSubstitute( meta.getSharedCacheName() );
+    long timeToLive = Const.toLong( getVariable( Const.KETTLE_SHARED_LOOKUP_CACHE_TTL ), 0L );
+    try {
+      data.sharedCache = LookupCacheRegistry.getInstance().attach( name, getSharedCacheLayout(),
+        meta.getCacheSize(), TimeUnit.SECONDS.toMillis( timeToLive ) );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "DimensionLookup.Log.UsingSharedCache", name ) );
+      }
+    } catch ( KettleException e ) {
+      logBasic( BaseMessages.getString( PKG, "DimensionLookup.Log.SharedCacheNotUsed", name, e.getMessage() ) );
+    }
+  }
+
+  /**
+   * Describes where the dimension entries of the cache come from and what they look like: only steps that would look
+   * up the same entries can share a cache.
+   */
+  private String getSharedCacheLayout() throws KettleException {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    StringBuilder layout = new StringBuilder( "Dimension lookup in " );
+    layout.append( databaseMeta.getURL( getPartitionID() ) ).append( " as " )
+      .append( environmentSubstitute( databaseMeta.getUsername() ) ).append( ", table " ).append( data.schemaTable );
+    layout.append( ", keys " ).append( Arrays.toString( meta.getKeyLookup() ) );
+    layout.append( ", technical key " ).append( meta.getKeyField() );
+    layout.append( ", version " ).append( meta.getVersionField() );
+    layout.append( ", fields " ).append( Arrays.toString( meta.getFieldLookup() ) );
+    layout.append( " as " ).append( Arrays.toString( meta.getFieldStream() ) );
+    layout.append( ", valid from " ).append( meta.getDateFrom() ).append( " to " ).append( meta.getDateTo() );
+    layout.append( ", key types " ).append( data.cacheKeyRowMeta.toStringMeta() );
+    return layout.toString();
+  }
+
   public void checkDimZero() throws KettleException {
     // Don't insert anything when running in lookup mode.
     //
@@ -1725,6 +1778,14 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
         logError( BaseMessages.getString( PKG, "DimensionLookup.Log.ErrorOccurredInProcessing" ) + e.getMessage() );
       }
     }
+    if ( data.sharedCache != null ) {
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "DimensionLookup.Log.SharedCacheStatistics",
+          data.sharedCache.getName(), data.sharedCache.getHits(), data.sharedCache.getMisses() ) );
+      }
+      LookupCacheRegistry.getInstance().detach( data.sharedCache );
+      data.sharedCache = null;
+    }
     super.dispose( smi, sdi );
   }
 }
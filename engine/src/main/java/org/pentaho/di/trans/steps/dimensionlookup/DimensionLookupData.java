@@ -17,6 +17,7 @@ import java.sql.PreparedStatement;
 import java.util.Date;
 import java.util.List;
 
+import org.pentaho.di.core.cache.SharedLookupCache;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.hash.ByteArrayHashMap;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -40,6 +41,8 @@ public class DimensionLookupData extends BaseDatabaseStepData implements StepDat
   public int datefieldnr; // Nr of datefield field in row
 
   public ByteArrayHashMap cache;
+  /** The lookup cache shared with other steps, if any, used instead of {@link #cache} */
+  public SharedLookupCache sharedCache;
 
   public long smallestCacheKey;
 
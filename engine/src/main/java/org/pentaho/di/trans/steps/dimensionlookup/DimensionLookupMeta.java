@@ -226,6 +226,10 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
   @Injection( name = "PRELOAD_CACHE" )
   private boolean preloadingCache;
 
+  /** The name of the lookup cache shared with other steps, empty for a cache of this step only */
+  @Injection( name = "SHARED_CACHE_NAME" )
+  private String sharedCacheName;
+
   public DimensionLookupMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -730,6 +734,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
     cacheSize = 5000;
     preloadingCache = false;
+    sharedCacheName = null;
   }
 
   @Override
@@ -869,6 +874,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "cache_size", cacheSize ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "preload_cache", preloadingCache ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "shared_cache_name", sharedCacheName ) );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "use_start_date_alternative",
         usingStartDateAlternative ) );
@@ -948,6 +954,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
       cacheSize = Const.toInt( XMLHandler.getTagValue( stepnode, "cache_size" ), -1 );
       preloadingCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "preload_cache" ) );
+      sharedCacheName = XMLHandler.getTagValue( stepnode, "shared_cache_name" );
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "useBatch" ) );
 
       usingStartDateAlternative =
@@ -1008,6 +1015,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
       cacheSize = (int) rep.getStepAttributeInteger( id_step, "cache_size" );
       preloadingCache = rep.getStepAttributeBoolean( id_step, "preload_cache" );
+      sharedCacheName = rep.getStepAttributeString( id_step, "shared_cache_name" );
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "useBatch" );
 
       usingStartDateAlternative = rep.getStepAttributeBoolean( id_step, "use_start_date_alternative" );
@@ -1063,6 +1071,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
       rep.saveStepAttribute( id_transformation, id_step, "cache_size", cacheSize );
       rep.saveStepAttribute( id_transformation, id_step, "preload_cache", preloadingCache );
+      rep.saveStepAttribute( id_transformation, id_step, "shared_cache_name", sharedCacheName );
       rep.saveStepAttribute( id_transformation, id_step, "useBatch", useBatchUpdate );
 
       rep.saveStepAttribute( id_transformation, id_step, "use_start_date_alternative", usingStartDateAlternative );
@@ -1882,6 +1891,21 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
     this.preloadingCache = preloadingCache;
   }
 
+  /**
+   * @return the name of the lookup cache shared with other steps, empty for a cache of this step only
+   */
+  public String getSharedCacheName() {
+    return sharedCacheName;
+  }
+
+  /**
+   * @param sharedCacheName
+   *          the name of the lookup cache shared with other steps, empty for a cache of this step only
+   */
+  public void setSharedCacheName( String sharedCacheName ) {
+    this.sharedCacheName = sharedCacheName;
+  }
+
   /**
    * @return the useBatchUpdate
    */
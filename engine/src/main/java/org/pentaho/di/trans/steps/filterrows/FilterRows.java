@@ -13,11 +13,13 @@
 
 package org.pentaho.di.trans.steps.filterrows;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.ColumnarRowBatch;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -59,14 +61,34 @@ public class FilterRows extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Evaluates the condition for a batch of rows at once on the vectors of the used fields.
+   *
+   * @return the outcome per row or null if the batch needs to be evaluated row by row
+   */
+  private synchronized boolean[] keepRows( List<Object[]> rows ) {
+    try {
+      data.columnarBatch.load( rows );
+      if ( data.keep.length < rows.size() ) {
+        data.keep = new boolean[ rows.size() ];
+      }
+      meta.getCondition().evaluate( data.columnarBatch, data.keep );
+      return data.keep;
+    } catch ( Exception e ) {
+      // Let the row by row evaluation report the offending row
+      //
+      return null;
+    } finally {
+      data.columnarBatch.clear();
+    }
+  }
+
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     meta = (FilterRowsMeta) smi;
     data = (FilterRowsData) sdi;
 
-    boolean keep;
-
-    Object[] r = getRow(); // Get next usable row from input rowset(s)!
-    if ( r == null ) { // no more input to be expected...
+    List<Object[]> rows = getRows( ROW_BATCH_SIZE ); // Get next usable rows from input rowset(s)!
+    if ( rows == null ) { // no more input to be expected...
 
       setOutputDone();
       return false;
@@ -81,6 +103,18 @@ public class FilterRows extends BaseStep implements StepInterface {
       // if filter refers to non-existing fields, throw exception
       checkNonExistingFields();
 
+      // Simple numeric conditions are evaluated on primitive vectors, a batch at a time
+      //
+      if ( meta.getCondition().isVectorizable( getInputRowMeta() ) ) {
+        String[] usedFields = meta.getCondition().getUsedFields();
+        int[] columns = new int[ usedFields.length ];
+        for ( int i = 0; i < usedFields.length; i++ ) {
+          columns[ i ] = getInputRowMeta().indexOfValue( usedFields[ i ] );
+        }
+        data.columnarBatch = new ColumnarRowBatch( getInputRowMeta(), ROW_BATCH_SIZE, columns );
+        data.keep = new boolean[ ROW_BATCH_SIZE ];
+      }
+
       // Cache the position of the RowSet for the output.
       //
       if ( data.chosesTargetSteps ) {
@@ -107,30 +141,41 @@ public class FilterRows extends BaseStep implements StepInterface {
       }
     }
 
-    keep = keepRow( getInputRowMeta(), r ); // Keep this row?
-    if ( !data.chosesTargetSteps ) {
-      if ( keep ) {
-        putRow( data.outputRowMeta, r ); // copy row to output rowset(s);
+    long previousLinesRead = getLinesRead() - rows.size();
+    List<Object[]> trueRows = new ArrayList<>( rows.size() );
+    List<Object[]> falseRows = data.chosesTargetSteps ? new ArrayList<>( rows.size() ) : null;
+    boolean[] keep = data.columnarBatch != null ? keepRows( rows ) : null;
+    for ( int i = 0; i < rows.size(); i++ ) {
+      Object[] r = rows.get( i );
+      if ( keep != null ? keep[ i ] : keepRow( getInputRowMeta(), r ) ) { // Keep this row?
+        trueRows.add( r );
+      } else if ( falseRows != null ) {
+        falseRows.add( r );
       }
+    }
+
+    if ( !data.chosesTargetSteps ) {
+      putRows( data.outputRowMeta, trueRows ); // copy rows to output rowset(s);
     } else {
-      if ( keep ) {
-        if ( data.trueRowSet != null ) {
-          if ( log.isRowLevel() ) {
+      if ( data.trueRowSet != null ) {
+        if ( log.isRowLevel() ) {
+          for ( Object[] r : trueRows ) {
             logRowlevel( "Sending row to true  :" + data.trueStepname + " : " + getInputRowMeta().getString( r ) );
           }
-          putRowTo( data.outputRowMeta, r, data.trueRowSet );
         }
-      } else {
-        if ( data.falseRowSet != null ) {
-          if ( log.isRowLevel() ) {
+        putRowsTo( data.outputRowMeta, trueRows, data.trueRowSet );
+      }
+      if ( data.falseRowSet != null ) {
+        if ( log.isRowLevel() ) {
+          for ( Object[] r : falseRows ) {
             logRowlevel( "Sending row to false :" + data.falseStepname + " : " + getInputRowMeta().getString( r ) );
           }
-          putRowTo( data.outputRowMeta, r, data.falseRowSet );
         }
+        putRowsTo( data.outputRowMeta, falseRows, data.falseRowSet );
       }
     }
 
-    if ( checkFeedback( getLinesRead() ) ) {
+    if ( checkFeedback( previousLinesRead, getLinesRead() ) ) {
       if ( log.isBasic() ) {
         logBasic( BaseMessages.getString( PKG, "FilterRows.Log.LineNumber" ) + getLinesRead() );
       }
@@ -14,6 +14,7 @@
 package org.pentaho.di.trans.steps.filterrows;
 
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.row.ColumnarRowBatch;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -32,6 +33,10 @@ public class FilterRowsData extends BaseStepData implements StepDataInterface {
   public String trueStepname;
   public String falseStepname;
 
+  /** Holds the fields used by the condition in vectors, null if the condition is evaluated row by row */
+  public ColumnarRowBatch columnarBatch;
+  public boolean[] keep;
+
   public FilterRowsData() {
     super();
   }
@@ -13,6 +13,8 @@
 
 package org.pentaho.di.trans.steps.groupby;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -29,11 +31,15 @@ import java.util.Collections;
 import org.apache.commons.math.stat.descriptive.rank.Percentile;
 import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettlePluginException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.ColumnarRowBatch;
+import org.pentaho.di.core.row.CompactRowReader;
+import org.pentaho.di.core.row.CompactRowWriter;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -45,6 +51,8 @@ import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNone;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.sketch.HyperLogLog;
+import org.pentaho.di.core.sketch.TDigest;
 import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -175,6 +183,13 @@ public class GroupBy extends BaseStep implements StepInterface {
       // Initialize the group metadata
       //
       initGroupMeta( data.inputRowMeta );
+
+      // Sums, averages, minimums and maximums of Integer and Number fields are accumulated in primitives
+      //
+      data.vectorized = new boolean[ data.subjectnrs.length ];
+      for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+        data.vectorized[ i ] = isPrimitiveAggregate( i );
+      }
     }
 
     if ( first || data.newBatch ) {
@@ -413,6 +428,10 @@ public class GroupBy extends BaseStep implements StepInterface {
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
       Object subj = row[ data.subjectnrs[ i ] ];
       ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[ i ] );
+      if ( data.vectorized != null && data.vectorized[ i ] ) {
+        calcPrimitiveAggregate( i, subjMeta, subj );
+        continue;
+      }
       Object value = data.agg[ i ];
       ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
 
@@ -468,6 +487,17 @@ public class GroupBy extends BaseStep implements StepInterface {
             }
           }
           break;
+        case GroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT:
+          if ( !subjMeta.isNull( subj ) ) {
+            ( (HyperLogLog) value ).add( subjMeta.convertToNormalStorageType( subj ) );
+          }
+          break;
+        case GroupByMeta.TYPE_GROUP_APPROX_PERCENTILE:
+        case GroupByMeta.TYPE_GROUP_APPROX_MEDIAN:
+          if ( !subjMeta.isNull( subj ) ) {
+            ( (TDigest) value ).add( subjMeta.getNumber( subj ) );
+          }
+          break;
         case GroupByMeta.TYPE_GROUP_COUNT_ALL:
           if ( !subjMeta.isNull( subj ) ) {
             data.counts[ i ]++;
@@ -560,6 +590,91 @@ public class GroupBy extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * @return true if aggregation i is a sum, average, minimum or maximum of an Integer or Number field that can be
+   *         accumulated in a primitive
+   */
+  private boolean isPrimitiveAggregate( int i ) {
+    if ( data.subjectnrs[ i ] < 0 ) {
+      return false;
+    }
+    ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[ i ] );
+    switch ( meta.getAggregateType()[ i ] ) {
+      case GroupByMeta.TYPE_GROUP_SUM:
+      case GroupByMeta.TYPE_GROUP_AVERAGE:
+      case GroupByMeta.TYPE_GROUP_MIN:
+      case GroupByMeta.TYPE_GROUP_MAX:
+        return ColumnarRowBatch.isVectorizable( subjMeta ) && !subjMeta.isSortedDescending();
+      default:
+        return false;
+    }
+  }
+
+  private void calcPrimitiveAggregate( int i, ValueMetaInterface subjMeta, Object subj ) throws KettleValueException {
+    int type = meta.getAggregateType()[ i ];
+    if ( subj == null ) {
+      if ( type == GroupByMeta.TYPE_GROUP_MIN && minNullIsValued ) {
+        data.nullValued[ i ] = true;
+      }
+      return;
+    }
+    if ( type == GroupByMeta.TYPE_GROUP_AVERAGE ) {
+      data.counts[ i ]++;
+    }
+    boolean valued = data.valued[ i ];
+    data.valued[ i ] = true;
+    if ( subjMeta.isInteger() ) {
+      long x = subjMeta.getInteger( subj );
+      long value = data.longAgg[ i ];
+      switch ( type ) {
+        case GroupByMeta.TYPE_GROUP_MIN:
+          data.longAgg[ i ] = !valued || x < value ? x : value;
+          break;
+        case GroupByMeta.TYPE_GROUP_MAX:
+          data.longAgg[ i ] = !valued || x > value ? x : value;
+          break;
+        default:
+          data.longAgg[ i ] = value + x;
+          break;
+      }
+    } else {
+      double x = subjMeta.getNumber( subj );
+      double value = data.doubleAgg[ i ];
+      switch ( type ) {
+        case GroupByMeta.TYPE_GROUP_MIN:
+          data.doubleAgg[ i ] = !valued || Double.compare( x, value ) < 0 ? x : value;
+          break;
+        case GroupByMeta.TYPE_GROUP_MAX:
+          data.doubleAgg[ i ] = !valued || Double.compare( x, value ) > 0 ? x : value;
+          break;
+        default:
+          data.doubleAgg[ i ] = value + x;
+          break;
+      }
+    }
+  }
+
+  /**
+   * Moves the values of the primitive accumulators into the aggregate values.
+   */
+  private void copyAccumulators() {
+    if ( data.vectorized == null || data.valued == null ) {
+      return;
+    }
+    for ( int i = 0; i < data.vectorized.length; i++ ) {
+      if ( !data.vectorized[ i ] ) {
+        continue;
+      }
+      if ( !data.valued[ i ] || data.nullValued[ i ] ) {
+        data.agg[ i ] = null;
+      } else if ( data.inputRowMeta.getValueMeta( data.subjectnrs[ i ] ).isInteger() ) {
+        data.agg[ i ] = data.longAgg[ i ];
+      } else {
+        data.agg[ i ] = data.doubleAgg[ i ];
+      }
+    }
+  }
+
   /**
    * used for junits in GroupByAggregationNullsTest
    *
@@ -574,6 +689,12 @@ public class GroupBy extends BaseStep implements StepInterface {
     data.agg = new Object[ data.subjectnrs.length ];
     data.mean = new double[ data.subjectnrs.length ]; // sets all doubles to 0.0
     data.aggMeta = new RowMeta();
+    if ( data.vectorized != null ) {
+      data.longAgg = new long[ data.subjectnrs.length ];
+      data.doubleAgg = new double[ data.subjectnrs.length ];
+      data.valued = new boolean[ data.subjectnrs.length ];
+      data.nullValued = new boolean[ data.subjectnrs.length ];
+    }
 
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
       ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[ i ] );
@@ -605,6 +726,16 @@ public class GroupBy extends BaseStep implements StepInterface {
         case GroupByMeta.TYPE_GROUP_STANDARD_DEVIATION_SAMPLE:
           vMeta = new ValueMetaNumber( meta.getAggregateField()[ i ] );
           break;
+        case GroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT:
+          vMeta = new ValueMetaInteger( meta.getAggregateField()[ i ] );
+          v = new HyperLogLog(
+            data.approxPrecisions == null ? HyperLogLog.DEFAULT_PRECISION : data.approxPrecisions[ i ] );
+          break;
+        case GroupByMeta.TYPE_GROUP_APPROX_PERCENTILE:
+        case GroupByMeta.TYPE_GROUP_APPROX_MEDIAN:
+          vMeta = new ValueMetaNumber( meta.getAggregateField()[ i ] );
+          v = new TDigest( data.approxCompression );
+          break;
         case GroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
         case GroupByMeta.TYPE_GROUP_COUNT_ANY:
         case GroupByMeta.TYPE_GROUP_COUNT_ALL:
@@ -636,7 +767,8 @@ public class GroupBy extends BaseStep implements StepInterface {
       if ( ( subjMeta != null )
           && ( aggType != GroupByMeta.TYPE_GROUP_COUNT_ALL
           && aggType != GroupByMeta.TYPE_GROUP_COUNT_DISTINCT
-          && aggType != GroupByMeta.TYPE_GROUP_COUNT_ANY ) ) {
+          && aggType != GroupByMeta.TYPE_GROUP_COUNT_ANY
+          && aggType != GroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT ) ) {
         vMeta.setLength( subjMeta.getLength(), subjMeta.getPrecision() );
       }
       data.agg[ i ] = v;
@@ -690,6 +822,7 @@ public class GroupBy extends BaseStep implements StepInterface {
     }
 
     Object[] result = new Object[ data.subjectnrs.length ];
+    copyAccumulators();
 
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
       Object ag = data.agg[ i ];
@@ -728,6 +861,18 @@ public class GroupBy extends BaseStep implements StepInterface {
           int index = (int) Math.ceil( ( percentileValue / 100 ) * latencies.length );
           ag = latencies[ index - 1 ];
           break;
+        case GroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT:
+          ag = ( (HyperLogLog) ag ).cardinality();
+          break;
+        case GroupByMeta.TYPE_GROUP_APPROX_PERCENTILE:
+        case GroupByMeta.TYPE_GROUP_APPROX_MEDIAN:
+          TDigest digest = (TDigest) ag;
+          double approxPercentile = 50.0;
+          if ( meta.getAggregateType()[ i ] == GroupByMeta.TYPE_GROUP_APPROX_PERCENTILE ) {
+            approxPercentile = Double.parseDouble( meta.getValueField()[ i ] );
+          }
+          ag = digest.isEmpty() ? null : digest.percentile( approxPercentile );
+          break;
         case GroupByMeta.TYPE_GROUP_COUNT_ANY:
         case GroupByMeta.TYPE_GROUP_COUNT_ALL:
           ag = new Long( data.counts[ i ] );
@@ -788,7 +933,15 @@ public class GroupBy extends BaseStep implements StepInterface {
         }
         data.tempFile = File.createTempFile( getMeta().getPrefix(), ".tmp", new File( pathToTmp ) );
         data.fosToTempFile = new FileOutputStream( data.tempFile );
-        data.dosToTempFile = new DataOutputStream( data.fosToTempFile );
+        if ( data.compressionProvider != null ) {
+          data.dosToTempFile = new DataOutputStream( new BufferedOutputStream(
+            data.compressionProvider.createOutputStream( new BufferedOutputStream( data.fosToTempFile ) ) ) );
+        } else {
+          data.dosToTempFile = new DataOutputStream( data.fosToTempFile );
+        }
+        if ( data.compactRows ) {
+          data.compactWriter = new CompactRowWriter( data.inputRowMeta, data.dosToTempFile );
+        }
         data.firstRead = true;
       } catch ( IOException e ) {
         throw new KettleFileException( BaseMessages.getString( PKG, "GroupBy.Exception.UnableToCreateTemporaryFile" ),
@@ -796,7 +949,11 @@ public class GroupBy extends BaseStep implements StepInterface {
       }
       // OK, save the oldest rows to disk!
       Object[] oldest = data.bufferList.get( 0 );
-      data.inputRowMeta.writeData( data.dosToTempFile, oldest );
+      if ( data.compactWriter != null ) {
+        data.compactWriter.writeRow( oldest );
+      } else {
+        data.inputRowMeta.writeData( data.dosToTempFile, oldest );
+      }
       data.bufferList.remove( 0 );
       data.rowsOnFile++;
     }
@@ -812,10 +969,19 @@ public class GroupBy extends BaseStep implements StepInterface {
   private Object[] getRowFromBuffer() throws KettleFileException {
     if ( data.rowsOnFile > 0 ) {
       if ( data.firstRead ) {
-        // Open the inputstream first...
+        // Open the inputstream first, after all the buffered and compressed data is written...
+        closeOutput();
         try {
           data.fisToTmpFile = new FileInputStream( data.tempFile );
-          data.disToTmpFile = new DataInputStream( data.fisToTmpFile );
+          if ( data.compressionProvider != null ) {
+            data.disToTmpFile = new DataInputStream( new BufferedInputStream(
+              data.compressionProvider.createInputStream( new BufferedInputStream( data.fisToTmpFile ) ) ) );
+          } else {
+            data.disToTmpFile = new DataInputStream( data.fisToTmpFile );
+          }
+          if ( data.compactRows ) {
+            data.compactReader = new CompactRowReader( data.inputRowMeta, data.disToTmpFile );
+          }
           data.firstRead = false;
         } catch ( IOException e ) {
           throw new KettleFileException( BaseMessages.getString(
@@ -826,7 +992,11 @@ public class GroupBy extends BaseStep implements StepInterface {
       // Read one row from the file!
       Object[] row;
       try {
-        row = data.inputRowMeta.readData( data.disToTmpFile );
+        if ( data.compactReader != null ) {
+          row = data.compactReader.readRow();
+        } else {
+          row = data.inputRowMeta.readData( data.disToTmpFile );
+        }
       } catch ( SocketTimeoutException e ) {
         throw new KettleFileException( e ); // Shouldn't happen on files
       }
@@ -844,7 +1014,18 @@ public class GroupBy extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * The compact writer buffers rows in blocks: write them out and mark the end of the file before reading it back.
+   */
+  private void finishCompactWriter() throws KettleFileException {
+    if ( data.compactWriter != null ) {
+      data.compactWriter.finish();
+      data.compactWriter = null;
+    }
+  }
+
   private void closeOutput() throws KettleFileException {
+    finishCompactWriter();
     try {
       if ( data.dosToTempFile != null ) {
         data.dosToTempFile.close();
@@ -871,6 +1052,7 @@ public class GroupBy extends BaseStep implements StepInterface {
         data.disToTmpFile.close();
         data.disToTmpFile = null;
       }
+      data.compactReader = null;
     } catch ( IOException e ) {
       throw new KettleFileException(
           BaseMessages.getString( PKG, "GroupBy.Exception.UnableToCloseInputStream", data.tempFile.getPath() ), e );
@@ -886,12 +1068,50 @@ public class GroupBy extends BaseStep implements StepInterface {
       data.bufferList = new ArrayList<>();
 
       data.rowsOnFile = 0;
+      data.compactRows = "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COMPACT_ROW_FORMAT, "N" ) );
+
+      String compressionType = environmentSubstitute( meta.getCompressionType() );
+      if ( !Utils.isEmpty( compressionType ) ) {
+        data.compressionProvider =
+          CompressionProviderFactory.getInstance().createCompressionProviderInstance( compressionType );
+        if ( data.compressionProvider == null || !data.compressionProvider.supportsOutput() ) {
+          logError( BaseMessages.getString( PKG, "GroupBy.Error.UnknownCompressionProvider", compressionType ) );
+          return false;
+        }
+      }
 
-      return true;
+      return initApproximations();
     }
     return false;
   }
 
+  /**
+   * Determines the precision of the sketches of the approximate count distinct aggregates, given in their value field
+   * or by a variable, and the compression of the digests of the approximate percentiles.
+   */
+  private boolean initApproximations() {
+    int defaultPrecision = Const.toInt( getVariable( Const.KETTLE_APPROX_DISTINCT_PRECISION ),
+      HyperLogLog.DEFAULT_PRECISION );
+    data.approxPrecisions = new int[ meta.getAggregateType().length ];
+    for ( int i = 0; i < data.approxPrecisions.length; i++ ) {
+      if ( meta.getAggregateType()[ i ] != GroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT ) {
+        continue;
+      }
+      String precision = environmentSubstitute( meta.getValueField()[ i ] );
+      data.approxPrecisions[ i ] = Utils.isEmpty( precision ) ? defaultPrecision : Const.toInt( precision, -1 );
+      if ( data.approxPrecisions[ i ] < HyperLogLog.MIN_PRECISION
+        || data.approxPrecisions[ i ] > HyperLogLog.MAX_PRECISION ) {
+        logError( BaseMessages.getString( PKG, "GroupBy.Error.InvalidApproximationPrecision",
+          Utils.isEmpty( precision ) ? String.valueOf( defaultPrecision ) : precision,
+          meta.getAggregateField()[ i ] ) );
+        return false;
+      }
+    }
+    data.approxCompression = Math.max( TDigest.MIN_COMPRESSION, Const.toDouble(
+      getVariable( Const.KETTLE_APPROX_PERCENTILE_COMPRESSION ), TDigest.DEFAULT_COMPRESSION ) );
+    return true;
+  }
+
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     if ( data.tempFile != null ) {
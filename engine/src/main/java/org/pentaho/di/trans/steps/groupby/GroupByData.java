@@ -22,8 +22,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.row.CompactRowReader;
+import org.pentaho.di.core.row.CompactRowWriter;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.sketch.TDigest;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -68,6 +72,14 @@ public class GroupByData extends BaseStepData implements StepDataInterface {
   public FileInputStream fisToTmpFile;
   public DataInputStream disToTmpFile;
 
+  /** Compresses the temp file when set */
+  public CompressionProvider compressionProvider;
+
+  /** Write the temporary file in the compact row format */
+  public boolean compactRows;
+  public CompactRowWriter compactWriter;
+  public CompactRowReader compactReader;
+
   public Object[] groupResult;
 
   public boolean hasOutput;
@@ -92,8 +104,20 @@ public class GroupByData extends BaseStepData implements StepDataInterface {
 
   public double[] mean;
 
+  // Primitive accumulators for the sums, averages, minimums and maximums of Integer and Number fields
+  public boolean[] vectorized;
+  public long[] longAgg;
+  public double[] doubleAgg;
+  public boolean[] valued;
+  public boolean[] nullValued;
+
   public boolean newBatch;
 
+  /** Per aggregate: the precision of the sketch of an approximate count distinct */
+  public int[] approxPrecisions;
+  /** The compression of the digests of approximate medians and percentiles */
+  public double approxCompression = TDigest.DEFAULT_COMPRESSION;
+
   public GroupByData() {
     super();
 
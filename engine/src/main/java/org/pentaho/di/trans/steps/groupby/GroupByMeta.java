@@ -94,11 +94,18 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
 
   public static final int TYPE_GROUP_PERCENTILE_NEAREST_RANK = 20;
 
+  public static final int TYPE_GROUP_APPROX_COUNT_DISTINCT = 21;
+
+  public static final int TYPE_GROUP_APPROX_PERCENTILE = 22;
+
+  public static final int TYPE_GROUP_APPROX_MEDIAN = 23;
+
   public static final String[] typeGroupCode = /* WARNING: DO NOT TRANSLATE THIS. WE ARE SERIOUS, DON'T TRANSLATE! */
   {
     "-", "SUM", "AVERAGE", "MEDIAN", "PERCENTILE", "MIN", "MAX", "COUNT_ALL", "CONCAT_COMMA", "FIRST", "LAST",
     "FIRST_INCL_NULL", "LAST_INCL_NULL", "CUM_SUM", "CUM_AVG", "STD_DEV", "CONCAT_STRING", "COUNT_DISTINCT",
-    "COUNT_ANY", "STD_DEV_SAMPLE", "PERCENTILE_NEAREST_RANK" };
+    "COUNT_ANY", "STD_DEV_SAMPLE", "PERCENTILE_NEAREST_RANK", "APPROX_COUNT_DISTINCT", "APPROX_PERCENTILE",
+    "APPROX_MEDIAN" };
 
   public static final String[] typeGroupLongDesc = {
     "-", BaseMessages.getString( PKG, "GroupByMeta.TypeGroupLongDesc.SUM" ),
@@ -120,7 +127,10 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
     BaseMessages.getString( PKG, "GroupByMeta.TypeGroupLongDesc.COUNT_DISTINCT" ),
     BaseMessages.getString( PKG, "GroupByMeta.TypeGroupLongDesc.COUNT_ANY" ),
     BaseMessages.getString( PKG, "GroupByMeta.TypeGroupLongDesc.STANDARD_DEVIATION_SAMPLE" ),
-    BaseMessages.getString( PKG, "GroupByMeta.TypeGroupLongDesc.PERCENTILE_NEAREST_RANK" )
+    BaseMessages.getString( PKG, "GroupByMeta.TypeGroupLongDesc.PERCENTILE_NEAREST_RANK" ),
+    BaseMessages.getString( PKG, "GroupByMeta.TypeGroupLongDesc.APPROX_COUNT_DISTINCT" ),
+    BaseMessages.getString( PKG, "GroupByMeta.TypeGroupLongDesc.APPROX_PERCENTILE" ),
+    BaseMessages.getString( PKG, "GroupByMeta.TypeGroupLongDesc.APPROX_MEDIAN" )
   };
 
 
@@ -139,6 +149,11 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
    */
   private String prefix;
 
+  /**
+   * The name of the compression provider for the temp files, empty for no compression
+   */
+  private String compressionType;
+
   /**
    * Indicate that some rows don't need to be considered : TODO: make work in GUI & worker
    */
@@ -348,6 +363,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
 
       directory = XMLHandler.getTagValue( stepnode, "directory" );
       prefix = XMLHandler.getTagValue( stepnode, "prefix" );
+      compressionType = XMLHandler.getTagValue( stepnode, "compress_type" );
 
       addingLineNrInGroup = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "add_linenr" ) );
       lineNrInGroupField = XMLHandler.getTagValue( stepnode, "linenr_fieldname" );
@@ -373,7 +389,8 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
         aggregateType[ i ] = getType( XMLHandler.getTagValue( fnode, "type" ) );
 
         if ( aggregateType[ i ] == TYPE_GROUP_COUNT_ALL
-            || aggregateType[ i ] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[ i ] == TYPE_GROUP_COUNT_ANY ) {
+            || aggregateType[ i ] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[ i ] == TYPE_GROUP_COUNT_ANY
+            || aggregateType[ i ] == TYPE_GROUP_APPROX_COUNT_DISTINCT ) {
           hasNumberOfValues = true;
         }
 
@@ -424,6 +441,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
   public void setDefault() {
     directory = "%%java.io.tmpdir%%";
     prefix = "grp";
+    compressionType = null;
 
     passAllRows = false;
     aggregateIgnored = false;
@@ -483,6 +501,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
           case TYPE_GROUP_COUNT_DISTINCT:
           case TYPE_GROUP_COUNT_ANY:
           case TYPE_GROUP_COUNT_ALL:
+          case TYPE_GROUP_APPROX_COUNT_DISTINCT:
             valueType = ValueMetaInterface.TYPE_INTEGER;
             break;
           case TYPE_GROUP_CONCAT_COMMA:
@@ -493,6 +512,8 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
           case TYPE_GROUP_STANDARD_DEVIATION_SAMPLE:
           case TYPE_GROUP_PERCENTILE:
           case TYPE_GROUP_PERCENTILE_NEAREST_RANK:
+          case TYPE_GROUP_APPROX_PERCENTILE:
+          case TYPE_GROUP_APPROX_MEDIAN:
             valueType = ValueMetaInterface.TYPE_NUMBER;
             break;
           case TYPE_GROUP_CONCAT_STRING:
@@ -509,7 +530,8 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
           precision = -1;
           length = -1;
         } else if ( aggregateType[ i ] == TYPE_GROUP_COUNT_ALL
-            || aggregateType[ i ] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[ i ] == TYPE_GROUP_COUNT_ANY ) {
+            || aggregateType[ i ] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[ i ] == TYPE_GROUP_COUNT_ANY
+            || aggregateType[ i ] == TYPE_GROUP_APPROX_COUNT_DISTINCT ) {
           length = ValueMetaInterface.DEFAULT_INTEGER_LENGTH;
           precision = 0;
         } else if ( aggregateType[ i ] == TYPE_GROUP_SUM
@@ -567,6 +589,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
     retval.append( "      " ).append( XMLHandler.addTagValue( "field_ignore", aggregateIgnoredField ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "directory", directory ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "prefix", prefix ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "compress_type", compressionType ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "add_linenr", addingLineNrInGroup ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "linenr_fieldname", lineNrInGroupField ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "give_back_row", alwaysGivingBackOneRow ) );
@@ -602,6 +625,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
       aggregateIgnoredField = rep.getStepAttributeString( id_step, "field_ignore" );
       directory = rep.getStepAttributeString( id_step, "directory" );
       prefix = rep.getStepAttributeString( id_step, "prefix" );
+      compressionType = rep.getStepAttributeString( id_step, "compress_type" );
       addingLineNrInGroup = rep.getStepAttributeBoolean( id_step, "add_linenr" );
       lineNrInGroupField = rep.getStepAttributeString( id_step, "linenr_fieldname" );
 
@@ -621,7 +645,8 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
         aggregateType[ i ] = getType( rep.getStepAttributeString( id_step, i, "aggregate_type" ) );
 
         if ( aggregateType[ i ] == TYPE_GROUP_COUNT_ALL
-            || aggregateType[ i ] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[ i ] == TYPE_GROUP_COUNT_ANY ) {
+            || aggregateType[ i ] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[ i ] == TYPE_GROUP_COUNT_ANY
+            || aggregateType[ i ] == TYPE_GROUP_APPROX_COUNT_DISTINCT ) {
           hasNumberOfValues = true;
         }
         valueField[ i ] = rep.getStepAttributeString( id_step, i, "aggregate_value_field" );
@@ -643,6 +668,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
       rep.saveStepAttribute( id_transformation, id_step, "field_ignore", aggregateIgnoredField );
       rep.saveStepAttribute( id_transformation, id_step, "directory", directory );
       rep.saveStepAttribute( id_transformation, id_step, "prefix", prefix );
+      rep.saveStepAttribute( id_transformation, id_step, "compress_type", compressionType );
       rep.saveStepAttribute( id_transformation, id_step, "add_linenr", addingLineNrInGroup );
       rep.saveStepAttribute( id_transformation, id_step, "linenr_fieldname", lineNrInGroupField );
       rep.saveStepAttribute( id_transformation, id_step, "give_back_row", alwaysGivingBackOneRow );
@@ -722,6 +748,20 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
     this.prefix = prefix;
   }
 
+  /**
+   * @return the name of the compression provider for the temp files, empty for no compression
+   */
+  public String getCompressionType() {
+    return compressionType;
+  }
+
+  /**
+   * @param compressionType the name of the compression provider for the temp files, empty for no compression
+   */
+  public void setCompressionType( String compressionType ) {
+    this.compressionType = compressionType;
+  }
+
   /**
    * @return the addingLineNrInGroup
    */
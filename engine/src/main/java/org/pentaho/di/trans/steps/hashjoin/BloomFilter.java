@@ -0,0 +1,80 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.hashjoin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Bloom filter of key hash codes that grows with the number of keys: once a filter holds as many keys as it was sized
+ * for, a new one twice as large is started. A hash code that was added is always found, one that wasn't is found with
+ * a probability well below 1%.
+ */
+class BloomFilter {
+  private static final int BITS_PER_KEY = 16;
+  private static final int HASHES = 8;
+  private static final int STANDARD_CAPACITY = 1 << 12;
+
+  private final List<long[]> filters = new ArrayList<>();
+  private long[] current;
+  private int capacity;
+  private int count;
+
+  void add( int hashCode ) {
+    if ( current == null || count >= capacity ) {
+      capacity = current == null ? STANDARD_CAPACITY : capacity * 2;
+      current = new long[capacity * BITS_PER_KEY / Long.SIZE];
+      filters.add( current );
+      count = 0;
+    }
+    int mask = current.length * Long.SIZE - 1;
+    int hash2 = mix( hashCode );
+    for ( int i = 0; i < HASHES; i++ ) {
+      int bit = ( hashCode + i * hash2 ) & mask;
+      current[bit >>> 6] |= 1L << bit;
+    }
+    count++;
+  }
+
+  /**
+   * @return false if the hash code was never added, true if it probably was
+   */
+  boolean mightContain( int hashCode ) {
+    int hash2 = mix( hashCode );
+    for ( long[] filter : filters ) {
+      int mask = filter.length * Long.SIZE - 1;
+      boolean found = true;
+      for ( int i = 0; i < HASHES && found; i++ ) {
+        int bit = ( hashCode + i * hash2 ) & mask;
+        found = ( filter[bit >>> 6] & ( 1L << bit ) ) != 0;
+      }
+      if ( found ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A second hash, odd so that the bits probed for a hash code are all different.
+   */
+  private static int mix( int h ) {
+    h ^= h >>> 16;
+    h *= 0x7FEB352D;
+    h ^= h >>> 15;
+    h *= 0x846CA68B;
+    h ^= h >>> 16;
+    return h | 1;
+  }
+}
@@ -0,0 +1,455 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.hashjoin;
+
+import java.util.List;
+
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStep;
+import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.di.trans.step.errorhandling.StreamInterface;
+
+/**
+ * Joins two unsorted streams on equal keys. The right hand side stream is read into a hash table first, then the rows
+ * of the left hand side stream are looked up in it one by one.
+ * <p>
+ * When more rows of the right hand side stream arrive than allowed in memory, the rows of keys that aren't in memory
+ * yet are written to one of a number of temp files by the hash of their key. The rows of the left hand side stream
+ * with such a key are written to a matching temp file, after which every pair of files is joined on its own, spilling
+ * again if needed (grace hash join). The optional Bloom filter of the spilled keys keeps the rows of the left hand
+ * side stream that can't match out of the temp files. The rows joined from temp files come after the others.
+ *
+ * @since 10.3
+ */
+public class HashJoin extends BaseStep implements StepInterface {
+  private static Class<?> PKG = HashJoinMeta.class; // for i18n purposes, needed by Translator2!!
+
+  /** The number of partitions the rows that don't fit in memory are spread over, a power of 2 */
+  static final int SPILL_PARTITIONS = 32;
+
+  /** Beyond this many levels of partitioning all rows of a partition are kept in memory */
+  static final int MAX_SPILL_LEVEL = 8;
+
+  private HashJoinMeta meta;
+  private HashJoinData data;
+
+  public HashJoin( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr, TransMeta transMeta,
+    Trans trans ) {
+    super( stepMeta, stepDataInterface, copyNr, transMeta, trans );
+  }
+
+  public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
+    meta = (HashJoinMeta) smi;
+    data = (HashJoinData) sdi;
+
+    Object[] row;
+    if ( first ) {
+      first = false;
+
+      // Find the RowSets to read from
+      //
+      List<StreamInterface> infoStreams = meta.getStepIOMeta().getInfoStreams();
+
+      data.oneRowSet = findInputRowSet( infoStreams.get( 0 ).getStepname() );
+      if ( data.oneRowSet == null ) {
+        throw new KettleException( BaseMessages.getString(
+          PKG, "HashJoin.Exception.UnableToFindSpecifiedStep", infoStreams.get( 0 ).getStepname() ) );
+      }
+
+      data.twoRowSet = findInputRowSet( infoStreams.get( 1 ).getStepname() );
+      if ( data.twoRowSet == null ) {
+        throw new KettleException( BaseMessages.getString(
+          PKG, "HashJoin.Exception.UnableToFindSpecifiedStep", infoStreams.get( 1 ).getStepname() ) );
+      }
+
+      // Read the right hand side stream completely
+      //
+      row = getRowFrom( data.twoRowSet );
+      if ( row != null ) {
+        data.twoMeta = data.twoRowSet.getRowMeta();
+      } else {
+        data.twoMeta = getTransMeta().getStepFields( infoStreams.get( 1 ).getStepname() );
+      }
+      data.keyNrs2 = getKeyNrs( data.twoMeta, meta.getKeyFields2() );
+      initKeys();
+
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "HashJoin.Log.ReadingRightHandSideStream" ) );
+      }
+      while ( row != null && !isStopped() ) {
+        buildRow( row );
+        row = getRowFrom( data.twoRowSet );
+      }
+
+      row = getRowFrom( data.oneRowSet );
+      if ( row != null ) {
+        data.oneMeta = data.oneRowSet.getRowMeta();
+      } else {
+        data.oneMeta = getTransMeta().getStepFields( infoStreams.get( 0 ).getStepname() );
+      }
+      data.keyNrs1 = getKeyNrs( data.oneMeta, meta.getKeyFields1() );
+      if ( data.keyNrs1.length != data.keyNrs2.length ) {
+        throw new KettleStepException( BaseMessages.getString( PKG, "HashJoin.Exception.KeysDontMatch" ) );
+      }
+
+      data.outputRowMeta = new RowMeta();
+      data.outputRowMeta.mergeRowMeta( data.oneMeta.clone() );
+      if ( !data.leftOnly ) {
+        data.outputRowMeta.mergeRowMeta( data.twoMeta.clone() );
+      }
+    } else {
+      row = getRowFrom( data.oneRowSet );
+    }
+
+    if ( row == null ) {
+      putUnmatchedRows();
+      joinSpilledRows();
+
+      setOutputDone();
+      return false;
+    }
+
+    probeRow( row );
+    return true;
+  }
+
+  /**
+   * @return the indexes of the key fields in a stream
+   */
+  private int[] getKeyNrs( RowMetaInterface rowMeta, String[] keyFields ) throws KettleStepException {
+    int[] keyNrs = new int[keyFields.length];
+    for ( int i = 0; i < keyNrs.length; i++ ) {
+      keyNrs[i] = rowMeta.indexOfValue( keyFields[i] );
+      if ( keyNrs[i] < 0 ) {
+        String message =
+          BaseMessages.getString( PKG, "HashJoin.Exception.UnableToFindFieldInReferenceStream", keyFields[i] );
+        logError( message );
+        throw new KettleStepException( message );
+      }
+    }
+    return keyNrs;
+  }
+
+  /**
+   * The keys are kept with the types of the right hand side stream, the keys of the left hand side stream are converted
+   * when their types are different.
+   */
+  private void initKeys() {
+    data.keyMeta = new RowMeta();
+    for ( int keyNr : data.keyNrs2 ) {
+      ValueMetaInterface keyValueMeta = data.twoMeta.getValueMeta( keyNr ).clone();
+      keyValueMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+      data.keyMeta.addValueMeta( keyValueMeta );
+    }
+    data.key = new Object[data.keyNrs2.length];
+    data.table = new HashJoinTable( data.keyMeta );
+    data.bloomFilter = meta.isUsingBloomFilter() ? new BloomFilter() : null;
+  }
+
+  /**
+   * @return the key of a row, in a reused array
+   */
+  private Object[] getKey( RowMetaInterface rowMeta, Object[] row, int[] keyNrs ) throws KettleValueException {
+    for ( int i = 0; i < keyNrs.length; i++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( keyNrs[i] );
+      ValueMetaInterface keyValueMeta = data.keyMeta.getValueMeta( i );
+      Object value = row[keyNrs[i]];
+      if ( valueMeta.getType() != keyValueMeta.getType() ) {
+        data.key[i] = keyValueMeta.convertData( valueMeta, value );
+      } else if ( valueMeta.isStorageBinaryString() ) {
+        data.key[i] = valueMeta.convertToNormalStorageType( value );
+      } else {
+        data.key[i] = value;
+      }
+    }
+    return data.key;
+  }
+
+  /**
+   * Adds a row of the right hand side stream to the table. Once the table is full, only rows of keys already in memory
+   * are added, the others are written to the spill partition of their key.
+   */
+  private void buildRow( Object[] row ) throws KettleException {
+    Object[] key = getKey( data.twoMeta, row, data.keyNrs2 );
+    if ( data.maxRows > 0 && data.table.getNrRows() >= data.maxRows && data.spillLevel < MAX_SPILL_LEVEL
+      && data.table.find( key ) < 0 ) {
+      int hashCode = data.table.getHashCode( key );
+      if ( data.bloomFilter != null ) {
+        data.bloomFilter.add( hashCode );
+      }
+      writeSpilledRow( getSpillPartition( hashCode, true ).getRightRows(), data.twoMeta, row );
+    } else {
+      data.table.add( key, row );
+    }
+  }
+
+  /**
+   * Joins a row of the left hand side stream with the rows of the table with the same key. When the key can be in one
+   * of the spill partitions, the row is written to that partition instead.
+   */
+  private void probeRow( Object[] row ) throws KettleException {
+    Object[] key = getKey( data.oneMeta, row, data.keyNrs1 );
+    int keyNr = data.table.find( key );
+    if ( keyNr >= 0 ) {
+      if ( data.leftOnly ) {
+        if ( !data.antiJoin ) {
+          putRow( data.outputRowMeta, row );
+        }
+        return;
+      }
+      if ( data.twoOptional ) {
+        data.table.setMatched( keyNr );
+      }
+      for ( int rowNr = data.table.getFirstRow( keyNr ); rowNr >= 0; rowNr = data.table.getNextRow( rowNr ) ) {
+        putJoinedRow( row, data.table.getRow( rowNr ) );
+      }
+      return;
+    }
+
+    if ( data.spillPartitions != null ) {
+      int hashCode = data.table.getHashCode( key );
+      if ( data.bloomFilter == null || data.bloomFilter.mightContain( hashCode ) ) {
+        SpillPartition partition = getSpillPartition( hashCode, false );
+        if ( partition != null ) {
+          writeSpilledRow( partition.getLeftRows(), data.oneMeta, row );
+          return;
+        }
+      }
+    }
+
+    // No match at all
+    //
+    if ( data.antiJoin ) {
+      putRow( data.outputRowMeta, row );
+    } else if ( data.oneOptional ) {
+      putJoinedRow( row, null );
+    }
+  }
+
+  private void putJoinedRow( Object[] one, Object[] two ) throws KettleStepException {
+    Object[] outputRow = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+    if ( one != null ) {
+      System.arraycopy( one, 0, outputRow, 0, data.oneMeta.size() );
+    }
+    if ( two != null ) {
+      System.arraycopy( two, 0, outputRow, data.oneMeta.size(), data.twoMeta.size() );
+    }
+    putRow( data.outputRowMeta, outputRow );
+  }
+
+  /**
+   * Writes the rows of the table that didn't match any row of the left hand side stream for right and full outer joins.
+   */
+  private void putUnmatchedRows() throws KettleStepException {
+    if ( !data.twoOptional ) {
+      return;
+    }
+    for ( int keyNr = data.table.nextUnmatchedKey( 0 ); keyNr >= 0 && !isStopped();
+          keyNr = data.table.nextUnmatchedKey( keyNr + 1 ) ) {
+      for ( int rowNr = data.table.getFirstRow( keyNr ); rowNr >= 0; rowNr = data.table.getNextRow( rowNr ) ) {
+        putJoinedRow( null, data.table.getRow( rowNr ) );
+      }
+    }
+  }
+
+  /**
+   * Joins the rows written to the spill partitions, one partition at a time. The rows of the right hand side stream of
+   * a partition that don't fit in memory either are spread over the partitions of the next level, together with the
+   * rows of the left hand side stream with the same keys.
+   */
+  private void joinSpilledRows() throws KettleException {
+    queueSpillPartitions();
+    while ( !data.pendingPartitions.isEmpty() && !isStopped() ) {
+      SpillPartition partition = data.pendingPartitions.pop();
+      try {
+        if ( partition.getLeftRows().getRows() == 0 && !data.twoOptional ) {
+          continue; // nothing to join
+        }
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "HashJoin.Log.JoiningTemporaryFiles",
+            partition.getLeftRows().getRows(), partition.getRightRows().getRows(), partition.getLevel() + 1 ) );
+        }
+
+        data.table.clear();
+        data.spillLevel = partition.getLevel() + 1;
+        if ( data.bloomFilter != null ) {
+          data.bloomFilter = new BloomFilter();
+        }
+
+        Object[] row;
+        while ( ( row = readSpilledRow( partition.getRightRows() ) ) != null ) {
+          buildRow( row );
+        }
+        while ( ( row = readSpilledRow( partition.getLeftRows() ) ) != null && !isStopped() ) {
+          probeRow( row );
+        }
+        putUnmatchedRows();
+      } finally {
+        partition.delete();
+      }
+      queueSpillPartitions();
+    }
+    data.table.clear();
+    data.spillLevel = 0;
+  }
+
+  /**
+   * @param create true to create the partition if it doesn't exist yet
+   * @return the spill partition of the current level for the hash code of a key, null if it doesn't exist
+   */
+  private SpillPartition getSpillPartition( int hashCode, boolean create ) {
+    if ( data.spillPartitions == null ) {
+      if ( !create ) {
+        return null;
+      }
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "HashJoin.Log.SpillingRows", data.maxRows, data.spillLevel + 1 ) );
+      }
+      data.spillPartitions = new SpillPartition[SPILL_PARTITIONS];
+    }
+    int nr = getSpillPartition( hashCode, data.spillLevel );
+    if ( data.spillPartitions[nr] == null && create ) {
+      data.spillPartitions[nr] = new SpillPartition( data.spillLevel, data.compactRows );
+    }
+    return data.spillPartitions[nr];
+  }
+
+  /**
+   * Picks the spill partition for the hash code of a key. The level is mixed in so that the keys of one partition
+   * spread over all partitions of the next level.
+   */
+  static int getSpillPartition( int hashCode, int level ) {
+    int h = hashCode + level * 0x9E3779B9;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return h & ( SPILL_PARTITIONS - 1 );
+  }
+
+  private void writeSpilledRow( SpillPartition.RowFile rowFile, RowMetaInterface rowMeta, Object[] row )
+    throws KettleFileException {
+    if ( !rowFile.isCreated() ) {
+      FileObject file;
+      try {
+        file = KettleVFS.createTempFile( Const.NVL( meta.getPrefix(), "hjoin" ), ".tmp",
+          environmentSubstitute( Const.NVL( meta.getDirectory(), "%%java.io.tmpdir%%" ) ), getTransMeta() );
+      } catch ( KettleFileException e ) {
+        throw new KettleFileException( BaseMessages.getString( PKG, "HashJoin.Exception.UnableToCreateTemporaryFile" ),
+          e );
+      }
+      rowFile.create( file, rowMeta );
+    }
+    rowFile.writeRow( row );
+  }
+
+  private Object[] readSpilledRow( SpillPartition.RowFile rowFile ) throws KettleFileException {
+    try {
+      return rowFile.readRow();
+    } catch ( KettleFileException e ) {
+      throw new KettleFileException( BaseMessages.getString(
+        PKG, "HashJoin.Exception.UnableToReadBackRowFromTemporaryFile" ), e );
+    }
+  }
+
+  /**
+   * Closes the spill partitions that were written to and puts them in front of the partitions still to join.
+   */
+  private void queueSpillPartitions() throws KettleFileException {
+    if ( data.spillPartitions == null ) {
+      return;
+    }
+    for ( int i = data.spillPartitions.length - 1; i >= 0; i-- ) {
+      SpillPartition partition = data.spillPartitions[i];
+      if ( partition != null ) {
+        partition.closeOutput();
+        data.pendingPartitions.push( partition );
+      }
+    }
+    data.spillPartitions = null;
+  }
+
+  private void deleteSpillPartitions() {
+    if ( data.spillPartitions != null ) {
+      for ( SpillPartition partition : data.spillPartitions ) {
+        if ( partition != null ) {
+          partition.delete();
+        }
+      }
+      data.spillPartitions = null;
+    }
+    while ( !data.pendingPartitions.isEmpty() ) {
+      data.pendingPartitions.pop().delete();
+    }
+  }
+
+  /**
+   * @see StepInterface#init(org.pentaho.di.trans.step.StepMetaInterface , org.pentaho.di.trans.step.StepDataInterface)
+   */
+  public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
+    meta = (HashJoinMeta) smi;
+    data = (HashJoinData) sdi;
+
+    if ( super.init( smi, sdi ) ) {
+      List<StreamInterface> infoStreams = meta.getStepIOMeta().getInfoStreams();
+      if ( infoStreams.get( 0 ).getStepMeta() == null || infoStreams.get( 1 ).getStepMeta() == null ) {
+        logError( BaseMessages.getString( PKG, "HashJoin.Log.BothStepsNeeded" ) );
+        return false;
+      }
+      data.maxRows = Math.max( 0, Const.toInt( environmentSubstitute( meta.getMaxRowsInMemory() ), 0 ) );
+      data.compactRows = "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COMPACT_ROW_FORMAT, "N" ) );
+
+      String joinType = meta.getJoinType();
+      for ( int i = 0; i < HashJoinMeta.join_types.length; ++i ) {
+        if ( HashJoinMeta.join_types[i].equalsIgnoreCase( joinType ) ) {
+          data.oneOptional = HashJoinMeta.one_optionals[i];
+          data.twoOptional = HashJoinMeta.two_optionals[i];
+          data.leftOnly = HashJoinMeta.one_only[i];
+          data.antiJoin = "LEFT ANTI".equals( HashJoinMeta.join_types[i] );
+          return true;
+        }
+      }
+      logError( BaseMessages.getString( PKG, "HashJoin.Log.InvalidJoinType", meta.getJoinType() ) );
+      return false;
+    }
+    return false;
+  }
+
+  @Override
+  public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    data = (HashJoinData) sdi;
+    deleteSpillPartitions();
+    if ( data.table != null ) {
+      data.table.clear();
+    }
+    super.dispose( smi, sdi );
+  }
+}
@@ -0,0 +1,66 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.hashjoin;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.step.BaseStepData;
+import org.pentaho.di.trans.step.StepDataInterface;
+
+/**
+ * @since 10.3
+ */
+public class HashJoinData extends BaseStepData implements StepDataInterface {
+  public RowSet oneRowSet;
+  public RowSet twoRowSet;
+
+  public RowMetaInterface oneMeta;
+  public RowMetaInterface twoMeta;
+  public RowMetaInterface outputRowMeta; // oneMeta+twoMeta or only oneMeta for semi and anti joins
+  public int[] keyNrs1;
+  public int[] keyNrs2;
+
+  /** The layout of the keys in the table: the key fields of the right hand side stream in normal storage */
+  public RowMetaInterface keyMeta;
+  /** Reused to hold the key of a row */
+  public Object[] key;
+
+  public boolean oneOptional;
+  public boolean twoOptional;
+  public boolean leftOnly;
+  public boolean antiJoin;
+
+  /** The rows of the right hand side stream in memory */
+  public HashJoinTable table;
+  /** The keys of the rows of the right hand side stream written to the spill partitions, null if not used */
+  public BloomFilter bloomFilter;
+
+  /** The maximum number of rows of the right hand side stream in memory, 0 for no limit */
+  public int maxRows;
+  /** True to write the temp files in the compact row format */
+  public boolean compactRows;
+  /** The partitions the rows that don't fit in memory are written to, null while nothing is spilled */
+  public SpillPartition[] spillPartitions;
+  /** The level of the partitions rows are spilled to, 0 while the input rows are joined */
+  public int spillLevel;
+  /** The spill partitions still to join */
+  public Deque<SpillPartition> pendingPartitions = new ArrayDeque<SpillPartition>();
+
+  public HashJoinData() {
+    super();
+  }
+}
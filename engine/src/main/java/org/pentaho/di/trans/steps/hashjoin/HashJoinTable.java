@@ -0,0 +1,131 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.hashjoin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.hash.RowKeyHashIndex;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * The rows of the right hand side stream kept in memory, chained per key in the order they were added. The keys are
+ * numbered by a {@link RowKeyHashIndex}, so there is no object per key.
+ */
+class HashJoinTable {
+  private static final int STANDARD_CAPACITY = 256;
+
+  private final RowKeyHashIndex index;
+  private final List<Object[]> rows = new ArrayList<>();
+
+  /** Per key number: the first and last row number with the key */
+  private int[] firstRows = new int[STANDARD_CAPACITY];
+  private int[] lastRows = new int[STANDARD_CAPACITY];
+  /** Per row number: the next row number with the same key, -1 for the last one */
+  private int[] nextRows = new int[STANDARD_CAPACITY];
+  /** The key numbers that matched a row of the left hand side stream */
+  private final BitSet matchedKeys = new BitSet();
+
+  /**
+   * @param keyMeta the layout of the keys passed in
+   */
+  HashJoinTable( RowMetaInterface keyMeta ) {
+    index = new RowKeyHashIndex( keyMeta );
+  }
+
+  /**
+   * Adds a row.
+   *
+   * @param key the key of the row
+   * @param row the row
+   */
+  void add( Object[] key, Object[] row ) throws KettleValueException {
+    int nrKeys = index.getSize();
+    int keyNr = index.add( key );
+    int rowNr = rows.size();
+    rows.add( row );
+    if ( rowNr >= nextRows.length ) {
+      nextRows = Arrays.copyOf( nextRows, nextRows.length * 2 );
+    }
+    nextRows[rowNr] = -1;
+    if ( keyNr == nrKeys ) {
+      // A new key
+      if ( keyNr >= firstRows.length ) {
+        firstRows = Arrays.copyOf( firstRows, firstRows.length * 2 );
+        lastRows = Arrays.copyOf( lastRows, lastRows.length * 2 );
+      }
+      firstRows[keyNr] = rowNr;
+    } else {
+      nextRows[lastRows[keyNr]] = rowNr;
+    }
+    lastRows[keyNr] = rowNr;
+  }
+
+  /**
+   * @return the number of the key or -1 if no row has the key
+   */
+  int find( Object[] key ) throws KettleValueException {
+    return index.get( key );
+  }
+
+  /**
+   * @return the hash code of a key, the same for equal keys
+   */
+  int getHashCode( Object[] key ) throws KettleValueException {
+    return index.getHashCode( key );
+  }
+
+  /**
+   * @return the first row number with the key
+   */
+  int getFirstRow( int keyNr ) {
+    return firstRows[keyNr];
+  }
+
+  /**
+   * @return the next row number with the same key or -1 if there is none
+   */
+  int getNextRow( int rowNr ) {
+    return nextRows[rowNr];
+  }
+
+  Object[] getRow( int rowNr ) {
+    return rows.get( rowNr );
+  }
+
+  void setMatched( int keyNr ) {
+    matchedKeys.set( keyNr );
+  }
+
+  /**
+   * @return the number of the next key at or after the given one that didn't match, or -1 if there is none
+   */
+  int nextUnmatchedKey( int keyNr ) {
+    int next = matchedKeys.nextClearBit( keyNr );
+    return next < index.getSize() ? next : -1;
+  }
+
+  int getNrRows() {
+    return rows.size();
+  }
+
+  void clear() {
+    index.clear();
+    rows.clear();
+    matchedKeys.clear();
+  }
+}
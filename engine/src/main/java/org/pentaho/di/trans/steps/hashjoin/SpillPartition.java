@@ -0,0 +1,188 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.hashjoin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.CompactRowReader;
+import org.pentaho.di.core.row.CompactRowWriter;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.trans.step.BaseStep;
+
+/**
+ * The rows of both streams whose keys hash to one partition, when the right hand side stream doesn't fit in memory.
+ * Each stream has its own temp file, written first and read back once in the same order. The partition is joined on
+ * its own: all rows with a key are in the same partition.
+ */
+class SpillPartition {
+  private final int level;
+  private final RowFile rightRows;
+  private final RowFile leftRows;
+
+  /**
+   * @param level the number of times the rows were partitioned: 0 for rows of the input
+   */
+  SpillPartition( int level, boolean compact ) {
+    this.level = level;
+    this.leftRows = new RowFile( compact );
+    this.rightRows = new RowFile( compact );
+  }
+
+  int getLevel() {
+    return level;
+  }
+
+  RowFile getLeftRows() {
+    return leftRows;
+  }
+
+  RowFile getRightRows() {
+    return rightRows;
+  }
+
+  void closeOutput() throws KettleFileException {
+    leftRows.closeOutput();
+    rightRows.closeOutput();
+  }
+
+  /**
+   * Closes the files and deletes them, ignoring errors.
+   */
+  void delete() {
+    leftRows.delete();
+    rightRows.delete();
+  }
+
+  /**
+   * A temp file of rows, created when the first row is written.
+   */
+  static class RowFile {
+    private final boolean compact;
+
+    private RowMetaInterface rowMeta;
+    private FileObject file;
+    private DataOutputStream outputStream;
+    private CompactRowWriter compactWriter;
+    private DataInputStream inputStream;
+    private CompactRowReader compactReader;
+
+    private long rows;
+    private long rowsRead;
+
+    RowFile( boolean compact ) {
+      this.compact = compact;
+    }
+
+    boolean isCreated() {
+      return file != null;
+    }
+
+    void create( FileObject file, RowMetaInterface rowMeta ) throws KettleFileException {
+      this.file = file;
+      this.rowMeta = rowMeta;
+      try {
+        outputStream = new DataOutputStream( new BufferedOutputStream( KettleVFS.getOutputStream( file, false ),
+          65536 ) );
+      } catch ( IOException e ) {
+        throw new KettleFileException( e );
+      }
+      if ( compact ) {
+        compactWriter = new CompactRowWriter( rowMeta, outputStream );
+      }
+    }
+
+    void writeRow( Object[] row ) throws KettleFileException {
+      if ( compactWriter != null ) {
+        compactWriter.writeRow( row );
+      } else {
+        rowMeta.writeData( outputStream, row );
+      }
+      rows++;
+    }
+
+    void closeOutput() throws KettleFileException {
+      if ( outputStream == null ) {
+        return;
+      }
+      try {
+        if ( compactWriter != null ) {
+          compactWriter.finish();
+          compactWriter = null;
+        }
+        outputStream.close();
+        outputStream = null;
+      } catch ( IOException e ) {
+        throw new KettleFileException( e );
+      }
+    }
+
+    /**
+     * @return the next row of the file or null if all rows were read
+     */
+    Object[] readRow() throws KettleFileException {
+      if ( rowsRead >= rows ) {
+        return null;
+      }
+      if ( inputStream == null ) {
+        try {
+          inputStream = new DataInputStream( new BufferedInputStream( KettleVFS.getInputStream( file ), 65536 ) );
+        } catch ( IOException e ) {
+          throw new KettleFileException( e );
+        }
+        if ( compact ) {
+          compactReader = new CompactRowReader( rowMeta, inputStream );
+        }
+      }
+      rowsRead++;
+      if ( compactReader != null ) {
+        return compactReader.readRow();
+      }
+      try {
+        return rowMeta.readData( inputStream );
+      } catch ( SocketTimeoutException e ) {
+        throw new KettleFileException( e ); // Shouldn't happen on files
+      }
+    }
+
+    long getRows() {
+      return rows;
+    }
+
+    FileObject getFile() {
+      return file;
+    }
+
+    void delete() {
+      BaseStep.closeQuietly( outputStream );
+      BaseStep.closeQuietly( inputStream );
+      outputStream = null;
+      inputStream = null;
+      if ( file != null ) {
+        try {
+          file.delete();
+        } catch ( IOException e ) {
+          // It's a temp file
+        }
+      }
+    }
+  }
+}
@@ -13,17 +13,21 @@
 
 package org.pentaho.di.trans.steps.insertupdate;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeSet;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseInterface;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -177,6 +181,15 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
     if ( r == null ) {
       // no more input to be expected...
 
+      if ( data.upsertBatch != null ) {
+        try {
+          writeUpsertBatch();
+        } catch ( KettleException e ) {
+          logError( BaseMessages.getString( PKG, "InsertUpdate.Log.ErrorInStep" ), e );
+          setErrors( 1 );
+          stopAll();
+        }
+      }
       setOutputDone();
       return false;
     }
@@ -288,12 +301,20 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
         }
         prepareUpdate( getInputRowMeta() );
       }
+
+      if ( meta.isUseUpsert() ) {
+        prepareUpsert();
+      }
     }
 
     try {
-      lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
-      putRow( data.outputRowMeta, r ); // Nothing changed to the input, return the same row, pass a "cloned" metadata
-      // row.
+      if ( data.upsertBatch != null ) {
+        addToUpsertBatch( r ); // the row is passed on once its batch is written
+      } else {
+        lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
+        putRow( data.outputRowMeta, r ); // Nothing changed to the input, return the same row, pass a "cloned" metadata
+        // row.
+      }
 
       if ( checkFeedback( getLinesRead() ) ) {
         if ( log.isBasic() ) {
@@ -466,6 +487,188 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Sets up the set-based upsert, if possible. Every key has to compare an inserted column with the field it is
+   * inserted from for equality, and the database needs a statement to insert or update several rows at once.
+   * Otherwise the rows are looked up one by one.
+   */
+  public void prepareUpsert() {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    InsertUpdateMeta.KeyField[] keyFields = meta.getKeyFields();
+    InsertUpdateMeta.UpdateField[] updateFields = meta.getUpdateFields();
+    if ( keyFields.length == 0 || updateFields.length == 0 ) {
+      logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.UpsertNotPossible" ) );
+      return;
+    }
+
+    int[] keyNrs = new int[ keyFields.length ];
+    String[] keyColumns = new String[ keyFields.length ];
+    for ( int i = 0; i < keyFields.length; i++ ) {
+      keyNrs[ i ] = data.insertRowMeta.indexOfValue( keyFields[ i ].getKeyLookup() );
+      if ( !"=".equals( keyFields[ i ].getKeyCondition() ) || keyNrs[ i ] < 0
+        || !updateFields[ keyNrs[ i ] ].getUpdateStream().equalsIgnoreCase( keyFields[ i ].getKeyStream() ) ) {
+        logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.UpsertNotPossibleForKey",
+          keyFields[ i ].getKeyLookup() ) );
+        return;
+      }
+      keyColumns[ i ] = databaseMeta.quoteField( keyFields[ i ].getKeyLookup() );
+    }
+
+    String[] insertColumns = new String[ updateFields.length ];
+    List<String> updateColumns = new ArrayList<String>();
+    for ( int i = 0; i < updateFields.length; i++ ) {
+      insertColumns[ i ] = databaseMeta.quoteField( updateFields[ i ].getUpdateLookup() );
+      if ( !meta.isUpdateBypassed() && updateFields[ i ].getUpdate().booleanValue()
+        && !ArrayUtils.contains( keyNrs, i ) ) {
+        updateColumns.add( insertColumns[ i ] );
+      }
+    }
+
+    DatabaseInterface databaseInterface = databaseMeta.getDatabaseInterface();
+    String[] updateColumnArray = updateColumns.toArray( new String[ 0 ] );
+    if ( databaseInterface.getSQLUpsert( data.schemaTable, keyColumns, insertColumns, updateColumnArray, 1 ) == null ) {
+      logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.UpsertNotSupported" ) );
+      return;
+    }
+
+    data.upsertKeyNrs = keyNrs;
+    data.upsertKeyColumns = keyColumns;
+    data.upsertInsertColumns = insertColumns;
+    data.upsertUpdateColumns = updateColumnArray;
+    data.upsertRowsPerStatement = Math.max( 1, Math.min( databaseInterface.getMaxInsertRowsPerStatement(),
+      databaseInterface.getMaxStatementParameters() / insertColumns.length ) );
+    data.upsertBatch = new ArrayList<Object[]>( data.upsertRowsPerStatement );
+    data.upsertValues = new ArrayList<Object[]>( data.upsertRowsPerStatement );
+    data.upsertKeys = new TreeSet<Object[]>( this::compareUpsertKeys );
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "InsertUpdate.Log.UsingUpsert", data.upsertRowsPerStatement ) );
+    }
+  }
+
+  /**
+   * Compares the keys of two rows for the upsert batch. Strings are compared without case and trailing spaces, like
+   * many databases do (SQL Server by default): rows the database takes for the same key mustn't be in one statement.
+   */
+  private int compareUpsertKeys( Object[] values1, Object[] values2 ) {
+    try {
+      for ( int keyNr : data.upsertKeyNrs ) {
+        ValueMetaInterface valueMeta = data.insertRowMeta.getValueMeta( keyNr );
+        int cmp;
+        if ( valueMeta.isString() ) {
+          cmp = compareUpsertStrings(
+            valueMeta.getString( values1[ keyNr ] ), valueMeta.getString( values2[ keyNr ] ) );
+        } else {
+          cmp = valueMeta.compare( values1[ keyNr ], values2[ keyNr ] );
+        }
+        if ( cmp != 0 ) {
+          return cmp;
+        }
+      }
+      return 0;
+    } catch ( KettleValueException e ) {
+      // Taking the keys for the same makes the batch be written early, nothing more
+      logError( "Error comparing keys: " + e.toString() );
+      return 0;
+    }
+  }
+
+  private static int compareUpsertStrings( String string1, String string2 ) {
+    if ( string1 == null || string2 == null ) {
+      return string1 == null ? ( string2 == null ? 0 : -1 ) : 1;
+    }
+    return Const.rtrim( string1 ).compareToIgnoreCase( Const.rtrim( string2 ) );
+  }
+
+  /**
+   * Adds a row to the upsert batch. The batch is written first if it's full or if it has a row with the same key.
+   */
+  private void addToUpsertBatch( Object[] row ) throws KettleException {
+    Object[] values = new Object[ data.valuenrs.length ];
+    for ( int i = 0; i < data.valuenrs.length; i++ ) {
+      values[ i ] = row[ data.valuenrs[ i ] ];
+    }
+    if ( data.upsertBatch.size() >= data.upsertRowsPerStatement || data.upsertKeys.contains( values ) ) {
+      writeUpsertBatch();
+    }
+    data.upsertBatch.add( row );
+    data.upsertValues.add( values );
+    data.upsertKeys.add( values );
+  }
+
+  /**
+   * Inserts or updates the rows of the batch with a single statement and passes them on. The rows of a failed
+   * statement all go to the error handling, if there is any.
+   */
+  private void writeUpsertBatch() throws KettleException {
+    if ( data.upsertBatch.isEmpty() ) {
+      return;
+    }
+    try {
+      executeUpsert( data.upsertValues );
+      for ( Object[] row : data.upsertBatch ) {
+        incrementLinesOutput();
+        putRow( data.outputRowMeta, row );
+      }
+    } catch ( KettleDatabaseException e ) {
+      if ( !getStepMeta().isDoingErrorHandling() ) {
+        throw e;
+      }
+      for ( Object[] row : data.upsertBatch ) {
+        putError( getInputRowMeta(), row, 1, e.toString(), null, "ISU001" );
+      }
+    } finally {
+      data.upsertBatch.clear();
+      data.upsertValues.clear();
+      data.upsertKeys.clear();
+    }
+  }
+
+  private void executeUpsert( List<Object[]> rows ) throws KettleDatabaseException {
+    int nrRows = rows.size();
+    int nrColumns = data.insertRowMeta.size();
+    boolean fullBatch = nrRows == data.upsertRowsPerStatement;
+
+    PreparedStatement statement = fullBatch ? data.prepStatementUpsert : null;
+    if ( statement == null ) {
+      String sql = meta.getDatabaseMeta().getDatabaseInterface().getSQLUpsert( data.schemaTable,
+        data.upsertKeyColumns, data.upsertInsertColumns, data.upsertUpdateColumns, nrRows );
+      if ( log.isDetailed() ) {
+        logDetailed( "Setting upsert preparedStatement to [" + sql + "]" );
+      }
+      statement = data.db.prepareSQL( sql );
+      if ( fullBatch ) {
+        data.prepStatementUpsert = statement;
+      }
+    }
+
+    try {
+      for ( int r = 0; r < nrRows; r++ ) {
+        Object[] values = rows.get( r );
+        for ( int i = 0; i < nrColumns; i++ ) {
+          data.db.setValue( statement, data.insertRowMeta.getValueMeta( i ), values[ i ], r * nrColumns + i + 1 );
+        }
+      }
+      if ( log.isRowLevel() ) {
+        logRowlevel( BaseMessages.getString( PKG, "InsertUpdate.Log.UpsertRows", nrRows ) );
+      }
+      statement.executeUpdate();
+    } catch ( SQLException e ) {
+      throw new KettleDatabaseException( "Error inserting/updating rows", e );
+    } finally {
+      if ( !fullBatch ) {
+        data.db.closePreparedStatement( statement );
+      }
+    }
+
+    // Commit after the statement that reaches the commit size: a statement isn't split over transactions
+    data.upsertRowsSinceCommit += nrRows;
+    int commitSize = meta.getCommitSize( this );
+    if ( commitSize > 0 && data.upsertRowsSinceCommit >= commitSize && !data.db.isAutoCommit() ) {
+      data.db.commit();
+      data.upsertRowsSinceCommit = 0;
+    }
+  }
+
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (InsertUpdateMeta) smi;
     data = (InsertUpdateData) sdi;
@@ -497,6 +700,7 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
         }
         data.db.closeUpdate();
         data.db.closeInsert();
+        data.db.closePreparedStatement( data.prepStatementUpsert );
       } catch ( KettleDatabaseException e ) {
         logError( BaseMessages.getString( PKG, "InsertUpdate.Log.UnableToCommitConnection" ) + e.toString() );
         setErrors( 1 );
@@ -18,6 +18,8 @@ import org.pentaho.di.trans.step.BaseDatabaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
 import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Stores data for the Insert/Update step.
@@ -43,6 +45,22 @@ public class InsertUpdateData extends BaseDatabaseStepData implements StepDataIn
   public RowMetaInterface lookupReturnRowMeta;
   public RowMetaInterface insertRowMeta;
 
+  /** The rows waiting for the set-based upsert, null if the rows are looked up one by one */
+  public List<Object[]> upsertBatch;
+  /** The values to insert of the rows in the upsert batch */
+  public List<Object[]> upsertValues;
+  /** The keys of the upsert batch: a statement can't insert or update the same key twice */
+  public Set<Object[]> upsertKeys;
+  /** The positions of the key columns in the values to insert */
+  public int[] upsertKeyNrs;
+  public String[] upsertKeyColumns;
+  public String[] upsertInsertColumns;
+  public String[] upsertUpdateColumns;
+  public int upsertRowsPerStatement;
+  /** The upsert statement of a full batch */
+  public PreparedStatement prepStatementUpsert;
+  public int upsertRowsSinceCommit;
+
   /**
    * Default constructor.
    */
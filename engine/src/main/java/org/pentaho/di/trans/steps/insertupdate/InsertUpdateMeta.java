@@ -93,6 +93,12 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
   @Injection( name = "DO_NOT" )
   private boolean updateBypassed;
 
+  /**
+   * Insert or update a batch of rows with a single statement instead of looking them up one by one
+   */
+  @Injection( name = "USE_UPSERT" )
+  private boolean useUpsert;
+
   @Injection( name = "CONNECTIONNAME", required = true )
   public void setConnection( String connectionName ) {
     databaseMeta = DatabaseMeta.findDatabase( databases, connectionName );
@@ -232,6 +238,7 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
       schemaName = XMLHandler.getTagValue( stepnode, "lookup", "schema" );
       tableName = XMLHandler.getTagValue( stepnode, "lookup", "table" );
       updateBypassed = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "update_bypassed" ) );
+      useUpsert = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_upsert" ) );
 
       Node lookup = XMLHandler.getSubNode( stepnode, "lookup" );
       nrkeys = XMLHandler.countNodes( lookup, "key" );
@@ -311,6 +318,7 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
         XMLHandler.addTagValue( "connection", databaseMeta == null ? "" : databaseMeta.getName() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "commit", commitSize ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "update_bypassed", updateBypassed ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "use_upsert", useUpsert ) );
     retval.append( "    <lookup>" ).append( Const.CR );
     retval.append( "      " ).append( XMLHandler.addTagValue( "schema", schemaName ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "table", tableName ) );
@@ -359,6 +367,7 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
       schemaName = rep.getStepAttributeString( id_step, "schema" );
       tableName = rep.getStepAttributeString( id_step, "table" );
       updateBypassed = rep.getStepAttributeBoolean( id_step, "update_bypassed" );
+      useUpsert = rep.getStepAttributeBoolean( id_step, "use_upsert" );
 
       int nrkeys = rep.countNrStepAttributes( id_step, "key_field" );
       int nrvalues = rep.countNrStepAttributes( id_step, "value_name" );
@@ -392,6 +401,7 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
       rep.saveStepAttribute( id_transformation, id_step, "schema", schemaName );
       rep.saveStepAttribute( id_transformation, id_step, "table", tableName );
       rep.saveStepAttribute( id_transformation, id_step, "update_bypassed", updateBypassed );
+      rep.saveStepAttribute( id_transformation, id_step, "use_upsert", useUpsert );
 
       for ( int i = 0; i < keyFields.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "key_name", keyFields[ i ].getKeyStream() );
@@ -782,6 +792,20 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
     this.updateBypassed = updateBypassed;
   }
 
+  /**
+   * @return true if a batch of rows is inserted or updated with a single statement
+   */
+  public boolean isUseUpsert() {
+    return useUpsert;
+  }
+
+  /**
+   * @param useUpsert true to insert or update a batch of rows with a single statement
+   */
+  public void setUseUpsert( boolean useUpsert ) {
+    this.useUpsert = useUpsert;
+  }
+
   public RowMetaInterface getRequiredFields( VariableSpace space ) throws KettleException {
     String realSchemaName = space.environmentSubstitute( schemaName );
     String realTableName = space.environmentSubstitute( tableName );
@@ -75,6 +75,7 @@ public class Mapping extends BaseStep implements StepInterface {
       switch ( getData().mappingTransMeta.getTransformationType() ) {
         case Normal:
         case SerialSingleThreaded:
+        case ForkJoin:
 
           // Before we start, let's see if there are loose ends to tie up...
           //
@@ -197,7 +198,8 @@ public class Mapping extends BaseStep implements StepInterface {
           // Since everything is running in the MappingThreads we don't have to do
           // anything else here but wait...
           //
-          if ( getTransMeta().getTransformationType() == TransformationType.Normal ) {
+          if ( getTransMeta().getTransformationType() == TransformationType.Normal
+            || getTransMeta().getTransformationType() == TransformationType.ForkJoin ) {
             getData().getMappingTrans().waitUntilFinished();
 
             // Set some statistics from the mapping...
@@ -291,6 +293,7 @@ public class Mapping extends BaseStep implements StepInterface {
     switch (  mappingData.mappingTransMeta.getTransformationType() ) {
       case Normal:
       case SerialSingleThreaded:
+      case ForkJoin:
         break;
 
       case SingleThreaded:
@@ -22,6 +22,7 @@ import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.ForkJoinStepScheduler;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStep;
@@ -71,7 +72,7 @@ public class MappingInput extends BaseStep implements StepInterface {
       while ( !isStopped() && data.sourceSteps == null ) {
         try {
           totalsleep += 10;
-          Thread.sleep( 10 );
+          ForkJoinStepScheduler.sleep( 10 );
         } catch ( InterruptedException e ) {
           stopAll();
         }
@@ -18,6 +18,7 @@ import java.util.List;
 import org.pentaho.di.core.BlockingRowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.ForkJoinStepScheduler;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStep;
@@ -73,7 +74,7 @@ public class MappingOutput extends BaseStep implements StepInterface {
         while ( !isStopped() && !getTrans().getParentTrans().isRunning() ) {
           try {
             totalsleep += 10;
-            Thread.sleep( 10 );
+            ForkJoinStepScheduler.sleep( 10 );
           } catch ( InterruptedException e ) {
             stopAll();
           }
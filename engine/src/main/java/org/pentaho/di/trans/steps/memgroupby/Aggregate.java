@@ -13,12 +13,24 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.io.Serializable;
 import java.util.Set;
 
-public class Aggregate {
+/**
+ * The aggregates of one group. Serializable so that copies merging their groups can hand them over in temp files.
+ */
+public class Aggregate implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   public Object[] agg;
   public long[] counts;
   public Set<Object>[] distinctObjs;
   public double[] mean;
 
+  // Primitive accumulators for the aggregations calculated on vectors of Integer or Number values
+  public long[] longAgg;
+  public double[] doubleAgg;
+  public boolean[] valued;
+  public boolean[] nullValued;
+
 }
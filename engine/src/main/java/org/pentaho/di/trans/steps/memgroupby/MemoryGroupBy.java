@@ -14,17 +14,21 @@
 package org.pentaho.di.trans.steps.memgroupby;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.math.stat.descriptive.rank.Percentile;
+import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.hash.RowKeyHashIndex;
+import org.pentaho.di.core.row.ColumnarRowBatch;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -34,6 +38,9 @@ import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.sketch.HyperLogLog;
+import org.pentaho.di.core.sketch.TDigest;
+import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -42,7 +49,6 @@ import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
-import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.HashEntry;
 
 /**
  * Groups information based on aggregation rules. (sum, count, ...)
@@ -53,6 +59,12 @@ import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.HashEntry;
 public class MemoryGroupBy extends BaseStep implements StepInterface {
   private static Class<?> PKG = MemoryGroupByMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The number of partitions the rows of groups that don't fit in memory are spread over, a power of 2 */
+  static final int SPILL_PARTITIONS = 32;
+
+  /** Beyond this many levels of partitioning all groups of a partition are aggregated in memory */
+  static final int MAX_SPILL_LEVEL = 8;
+
   private MemoryGroupByMeta meta;
 
   private MemoryGroupByData data;
@@ -74,10 +86,13 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     meta = (MemoryGroupByMeta) smi;
     data = (MemoryGroupByData) sdi;
 
-    Object[] r = getRow(); // get row!
+    List<Object[]> rows = getRows( ROW_BATCH_SIZE ); // get rows!
+    Object[] r = rows == null ? null : rows.get( 0 );
 
     if ( first ) {
-      if ( ( r == null ) && ( !meta.isAlwaysGivingBackOneRow() ) ) {
+      // A copy without rows still has to finish the merge: it can be the last copy to finish
+      //
+      if ( ( r == null ) && ( !meta.isAlwaysGivingBackOneRow() ) && data.merge == null ) {
         setOutputDone();
         return false;
       }
@@ -91,76 +106,25 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
       // What is the output looking like?
       //
-      data.inputRowMeta = getInputRowMeta();
+      RowMetaInterface inputRowMeta = getInputRowMeta();
 
       // In case we have 0 input rows, we still want to send out a single row aggregate
       // However... the problem then is that we don't know the layout from receiving it from the previous step over the
       // row set.
       // So we need to calculated based on the metadata...
       //
-      if ( data.inputRowMeta == null ) {
-        data.inputRowMeta = getTransMeta().getPrevStepFields( getStepMeta() );
+      if ( inputRowMeta == null ) {
+        inputRowMeta = getTransMeta().getPrevStepFields( getStepMeta() );
+      } else if ( data.merge != null ) {
+        data.merge.setInputRowMeta( inputRowMeta );
       }
 
-      data.outputRowMeta = data.inputRowMeta.clone();
-      meta.getFields( data.outputRowMeta, getStepname(), null, null, this, repository, metaStore );
-
-      // Do all the work we can beforehand
-      // Calculate indexes, loop up fields, etc.
+      // If the step does not receive any rows, we can not lookup field position indexes. A merging copy without rows
+      // looks them up in the rows of the other copies once it merges their groups.
       //
-      data.subjectnrs = new int[meta.getSubjectField().length];
-      data.groupnrs = new int[meta.getGroupField().length];
-
-      // If the step does not receive any rows, we can not lookup field position indexes
-      if ( r != null ) {
-        for ( int i = 0; i < meta.getSubjectField().length; i++ ) {
-          if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
-            data.subjectnrs[i] = 0;
-          } else {
-            data.subjectnrs[i] = data.inputRowMeta.indexOfValue( meta.getSubjectField()[i] );
-          }
-          if ( data.subjectnrs[i] < 0 ) {
-            logError( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregateSubjectFieldCouldNotFound", meta
-              .getSubjectField()[i] ) );
-            setErrors( 1 );
-            stopAll();
-            return false;
-          }
-        }
-
-        for ( int i = 0; i < meta.getGroupField().length; i++ ) {
-          data.groupnrs[i] = data.inputRowMeta.indexOfValue( meta.getGroupField()[i] );
-          if ( data.groupnrs[i] < 0 ) {
-            logError( BaseMessages.getString(
-              PKG, "MemoryGroupBy.Log.GroupFieldCouldNotFound", meta.getGroupField()[i] ) );
-            setErrors( 1 );
-            stopAll();
-            return false;
-          }
-        }
+      if ( !initMetadata( inputRowMeta, r != null ) ) {
+        return false;
       }
-
-      // Create a metadata value for the counter Integers
-      //
-      data.valueMetaInteger = new ValueMetaInteger( "count" );
-      data.valueMetaNumber = new ValueMetaNumber( "sum" );
-
-      // Initialize the group metadata
-      //
-      initGroupMeta( data.inputRowMeta );
-
-    }
-
-    if ( first ) {
-      // Only calculate data.aggMeta here, not for every new aggregate.
-      //
-      newAggregate( r, null );
-
-      // for speed: groupMeta+aggMeta
-      //
-      data.groupAggMeta = new RowMeta();
-      data.groupAggMeta.addRowMeta( data.groupMeta );
-      data.groupAggMeta.addRowMeta( data.aggMeta );
     }
 
     // Here is where we start to do the real work...
@@ -179,9 +143,10 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       data.newBatch = false;
     }
 
-    addToAggregate( r );
+    long previousLinesRead = getLinesRead() - rows.size();
+    aggregateRows( rows );
 
-    if ( checkFeedback( getLinesRead() ) ) {
+    if ( checkFeedback( previousLinesRead, getLinesRead() ) ) {
       if ( log.isBasic() ) {
         logBasic( BaseMessages.getString( PKG, "MemoryGroupBy.LineNumber" ) + getLinesRead() );
       }
@@ -190,28 +155,109 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     return true;
   }
 
-  private void handleLastOfGroup() throws KettleException {
-    // Dump the content of the map...
+  /**
+   * Does all the work we can beforehand: calculates the indexes, looks up the fields, and so on.
+   *
+   * @param inputRowMeta
+   *          the layout of the input rows
+   * @param lookupFields
+   *          true to look up the group and subject fields in the input rows
+   * @return false if a field wasn't found
+   */
+  private boolean initMetadata( RowMetaInterface inputRowMeta, boolean lookupFields ) throws KettleException {
+    data.inputRowMeta = inputRowMeta;
+    data.outputRowMeta = data.inputRowMeta.clone();
+    meta.getFields( data.outputRowMeta, getStepname(), null, null, this, repository, metaStore );
+
+    data.subjectnrs = new int[meta.getSubjectField().length];
+    data.groupnrs = new int[meta.getGroupField().length];
+
+    if ( lookupFields ) {
+      for ( int i = 0; i < meta.getSubjectField().length; i++ ) {
+        if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
+          data.subjectnrs[i] = 0;
+        } else {
+          data.subjectnrs[i] = data.inputRowMeta.indexOfValue( meta.getSubjectField()[i] );
+        }
+        if ( data.subjectnrs[i] < 0 ) {
+          logError( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregateSubjectFieldCouldNotFound", meta
+            .getSubjectField()[i] ) );
+          setErrors( 1 );
+          stopAll();
+          return false;
+        }
+      }
+
+      for ( int i = 0; i < meta.getGroupField().length; i++ ) {
+        data.groupnrs[i] = data.inputRowMeta.indexOfValue( meta.getGroupField()[i] );
+        if ( data.groupnrs[i] < 0 ) {
+          logError( BaseMessages.getString(
+            PKG, "MemoryGroupBy.Log.GroupFieldCouldNotFound", meta.getGroupField()[i] ) );
+          setErrors( 1 );
+          stopAll();
+          return false;
+        }
+      }
+    }
+
+    // Create a metadata value for the counter Integers
     //
-    for ( HashEntry entry : data.map.keySet() ) {
-      Aggregate aggregate = data.map.get( entry );
-      Object[] aggregateResult = getAggregateResult( aggregate );
+    data.valueMetaInteger = new ValueMetaInteger( "count" );
+    data.valueMetaNumber = new ValueMetaNumber( "sum" );
 
-      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
-      int index = 0;
-      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
-        outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[i] );
+    // Initialize the group metadata
+    //
+    initGroupMeta( data.inputRowMeta );
+
+    // Only calculate data.aggMeta here, not for every new aggregate.
+    //
+    newAggregate( null, null );
+
+    // for speed: groupMeta+aggMeta
+    //
+    data.groupAggMeta = new RowMeta();
+    data.groupAggMeta.addRowMeta( data.groupMeta );
+    data.groupAggMeta.addRowMeta( data.aggMeta );
+
+    data.columnarBatch = null;
+    data.vectorized = null;
+    if ( lookupFields ) {
+      initColumnarBatch();
+    }
+    return true;
+  }
+
+  private void aggregateRows( List<Object[]> rows ) throws KettleException {
+    if ( data.columnarBatch != null ) {
+      addToAggregate( rows );
+    } else {
+      for ( Object[] row : rows ) {
+        addToAggregate( row );
       }
-      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
-        outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
+    }
+  }
+
+  private void handleLastOfGroup() throws KettleException {
+    boolean noGroups = data.getNrGroups() == 0;
+
+    putAggregates();
+    aggregateSpilledRows();
+
+    if ( data.merge != null && !data.handedOver ) {
+      data.handedOver = true;
+      for ( int nr = 0; nr < SPILL_PARTITIONS; nr++ ) {
+        data.merge.getPartition( nr ).closeOutput( getCopy() );
       }
-      putRow( data.outputRowMeta, outputRowData );
+      if ( !data.merge.finish( isStopped() ) ) {
+        return; // another copy outputs the groups
+      }
+      noGroups = !putMergedAggregates();
     }
 
     // What if we always need to give back one row?
     // This means we give back 0 for count all, count distinct, null for everything else
     //
-    if ( data.map.isEmpty() && meta.isAlwaysGivingBackOneRow() ) {
+    if ( noGroups && meta.isAlwaysGivingBackOneRow() ) {
       Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
       int index = 0;
       for ( int i = 0; i < data.groupMeta.size(); i++ ) {
@@ -220,7 +266,8 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       for ( int i = 0; i < data.aggMeta.size(); i++ ) {
         if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL
           || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY
-          || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT ) {
+          || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT
+          || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT ) {
           outputRowData[index++] = Long.valueOf( 0L );
         } else {
           outputRowData[index++] = null;
@@ -230,179 +277,710 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     }
   }
 
-  @VisibleForTesting
-  void updateValueMeta() throws KettleException {
+  private void putAggregates() throws KettleException {
+    if ( data.merge != null && !data.handedOver ) {
+      // The groups are output once they are merged with the groups of the other copies
+      //
+      handOverGroups();
+      return;
+    }
 
-    List<ValueMetaInterface> outputValueMetaList = data.outputRowMeta.getValueMetaList();
-    List<ValueMetaInterface> aggMetaValueMetaList = data.aggMeta.getValueMetaList();
-    for ( int outputIndex = 0; outputIndex < outputValueMetaList.size(); ++outputIndex ) {
-      for ( int aggIndex = 0; aggIndex < aggMetaValueMetaList.size(); ++aggIndex ) {
-        if ( aggMetaValueMetaList.get( aggIndex ).getName().equals( outputValueMetaList.get( outputIndex ).getName() ) ) {
-          data.outputRowMeta.removeValueMeta(  outputValueMetaList.get( outputIndex ).getName() );
-          data.outputRowMeta.addValueMeta( outputIndex,  aggMetaValueMetaList.get( aggIndex ) );
-        }
+    // Dump the content of the map...
+    //
+    for ( int group = 0; group < data.getNrGroups(); group++ ) {
+      Object[] groupData = data.groups.get( group );
+      Object[] aggregateResult = getAggregateResult( data.aggregates.get( group ) );
+
+      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      int index = 0;
+      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
+        outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( groupData[i] );
       }
+      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
+        outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
+      }
+      putRow( data.outputRowMeta, outputRowData );
     }
   }
 
   /**
-   * Used for junits in MemoryGroupByAggregationNullsTest
+   * Writes the groups in memory to the merge partitions of their hash codes, in the files of this copy. A copy does
+   * this more than once when it spilled groups to disk.
+   */
+  private void handOverGroups() throws KettleException {
+    MemoryGroupByMerge merge = data.merge;
+    if ( data.mergeIndex == null ) {
+      data.mergeIndex = new RowKeyHashIndex( data.groupMeta );
+    }
+    for ( int group = 0; group < data.getNrGroups(); group++ ) {
+      Object[] groupData = data.groups.get( group );
+      MergePartition partition = merge.getPartition( getSpillPartition( data.mergeIndex.getHashCode( groupData ), 0 ) );
+      writeMergeGroup( partition, getCopy(), groupData, data.aggregates.get( group ) );
+    }
+  }
+
+  private void writeMergeGroup( MergePartition partition, int copyNr, Object[] groupData, Aggregate aggregate )
+    throws KettleException {
+    if ( !partition.hasFile( copyNr ) ) {
+      partition.setFile( copyNr, createTempFile() );
+    }
+    try {
+      partition.writeGroup( copyNr, groupData, aggregate );
+    } catch ( KettleFileException e ) {
+      throw new KettleFileException( BaseMessages.getString(
+        PKG, "MemoryGroupBy.Exception.UnableToWriteToTemporaryFile" ), e );
+    }
+  }
+
+  /**
+   * Merges the groups handed over by all copies and outputs them, one partition at a time. When the groups of a
+   * partition don't fit in memory, the ones that don't are spread over the partitions of the next level, the same way
+   * the input rows are spilled.
    *
-   * @param r
-   * @throws KettleException
+   * @return true if there were any groups
    */
-  @SuppressWarnings( "unchecked" ) void addToAggregate( Object[] r ) throws KettleException {
+  private boolean putMergedAggregates() throws KettleException {
+    MemoryGroupByMerge merge = data.merge;
+    int nrCopies = merge.getNrCopies();
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.MergingCopies", nrCopies ) );
+    }
 
-    Object[] groupData = new Object[data.groupMeta.size()];
-    for ( int i = 0; i < data.groupnrs.length; i++ ) {
-      groupData[i] = r[data.groupnrs[i]];
+    // A copy without rows of its own takes the layout of the rows of the others
+    //
+    if ( getInputRowMeta() == null && merge.getInputRowMeta() != null ) {
+      if ( !initMetadata( merge.getInputRowMeta(), true ) ) {
+        return false;
+      }
+      updateValueMeta();
     }
-    HashEntry entry = data.getHashEntry( groupData );
+    data.mergeIndex = new RowKeyHashIndex( data.groupMeta );
 
-    Aggregate aggregate = data.map.get( entry );
-    if ( aggregate == null ) {
-      // Create a new value...
-      //
-      aggregate = new Aggregate();
-      newAggregate( r, aggregate );
+    boolean hasGroups = false;
+    for ( MergePartition partition : merge.takePartitions() ) {
+      data.pendingMerges.add( partition );
+    }
+    while ( !data.pendingMerges.isEmpty() && !isStopped() ) {
+      MergePartition partition = data.pendingMerges.pop();
+      if ( partition.getGroups() == 0 ) {
+        partition.delete();
+        continue;
+      }
+      if ( log.isDetailed() && partition.getLevel() > 0 ) {
+        logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.MergingTemporaryFile", partition.getGroups(),
+          partition.getLevel() ) );
+      }
 
-      // Store it in the map!
-      //
-      data.map.put( entry, aggregate );
+      data.clearGroups();
+      data.mergeIndex.clear();
+      MergePartition[] overflow = null;
+      try {
+        for ( int copyNr = 0; copyNr < nrCopies; copyNr++ ) {
+          Object[] group;
+          while ( ( group = partition.readGroup( copyNr ) ) != null ) {
+            Object[] groupData = (Object[]) group[0];
+            Aggregate aggregate = (Aggregate) group[1];
+            int nr = data.mergeIndex.get( groupData );
+            if ( nr >= 0 ) {
+              mergeAggregate( data.aggregates.get( nr ), aggregate );
+            } else if ( data.maxGroups > 0 && data.getNrGroups() >= data.maxGroups
+              && partition.getLevel() < MAX_SPILL_LEVEL ) {
+              // Once the map is full, all the parts of a group that isn't in it go to the same partition
+              //
+              if ( overflow == null ) {
+                overflow = new MergePartition[SPILL_PARTITIONS];
+              }
+              int level = partition.getLevel() + 1;
+              int spillNr = getSpillPartition( data.mergeIndex.getHashCode( groupData ), level );
+              if ( overflow[spillNr] == null ) {
+                overflow[spillNr] = new MergePartition( nrCopies, level );
+                data.pendingMerges.push( overflow[spillNr] );
+              }
+              writeMergeGroup( overflow[spillNr], copyNr, groupData, aggregate );
+            } else {
+              data.mergeIndex.add( groupData );
+              data.groups.add( groupData );
+              data.aggregates.add( aggregate );
+            }
+          }
+          if ( overflow != null ) {
+            for ( MergePartition spilled : overflow ) {
+              if ( spilled != null ) {
+                spilled.closeOutput( copyNr );
+              }
+            }
+          }
+        }
+      } finally {
+        partition.delete();
+      }
+
+      hasGroups |= data.getNrGroups() > 0;
+      putAggregates();
     }
+    data.clearGroups();
+    data.mergeIndex.clear();
+    return hasGroups;
+  }
 
+  /**
+   * Merges the aggregate of a group calculated by another copy into the aggregate of the same group. Minimums,
+   * maximums, first and last values are merged as if the value of the other aggregate was a value of the group, so the
+   * copies are taken in order for first and last values.
+   *
+   * @param aggregate
+   *          the aggregate to merge into
+   * @param other
+   *          the aggregate of the other copy
+   * @throws KettleException
+   */
+  @SuppressWarnings( "unchecked" )
+  void mergeAggregate( Aggregate aggregate, Aggregate other ) throws KettleException {
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
-      Object subj = r[data.subjectnrs[i]];
-      ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
-      Object value = aggregate.agg[i];
+      if ( data.vectorized != null && data.vectorized[i] ) {
+        mergeAccumulators( aggregate, other, i );
+        continue;
+      }
       ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
-
+      Object value = other.agg[i];
       switch ( meta.getAggregateType()[i] ) {
         case MemoryGroupByMeta.TYPE_GROUP_SUM:
-          aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
+          aggregate.agg[i] = ValueDataUtil.sum( valueMeta, aggregate.agg[i], valueMeta, value );
           break;
         case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
-          if ( !subjMeta.isNull( subj ) ) {
-            aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
-            aggregate.counts[i]++;
-          }
+          aggregate.agg[i] = ValueDataUtil.sum( valueMeta, aggregate.agg[i], valueMeta, value );
+          aggregate.counts[i] += other.counts[i];
           break;
         case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
         case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
-          if ( !subjMeta.isNull( subj ) ) {
-            ( (List<Double>) aggregate.agg[i] ).add( subjMeta.getNumber( subj ) );
-          }
+          ( (List<Double>) aggregate.agg[i] ).addAll( (List<Double>) value );
           break;
         case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
-          if ( aggregate.mean == null ) {
-            aggregate.mean = new double[meta.getSubjectField().length];
-          }
-          aggregate.counts[i]++;
-          double n = aggregate.counts[i];
-          double x = subjMeta.getNumber( subj );
-          // for standard deviation null is exact 0
-          double sum = value == null ? new Double( 0 ) : (Double) value;
-          double mean = aggregate.mean[i];
-
-          double delta = x - mean;
-          mean = mean + ( delta / n );
-          sum = sum + delta * ( x - mean );
-
-          aggregate.mean[i] = mean;
-          aggregate.agg[i] = sum;
+          mergeStandardDeviation( aggregate, other, i );
           break;
         case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
-          if ( aggregate.distinctObjs == null ) {
-            aggregate.distinctObjs = new Set[meta.getSubjectField().length];
-          }
-          if ( aggregate.distinctObjs[i] == null ) {
-            aggregate.distinctObjs[i] = new TreeSet<>();
-          }
-          if ( !subjMeta.isNull( subj ) ) {
-            Object obj = subjMeta.convertToNormalStorageType( subj );
-            // byte [] is not Comparable and can not be added to TreeSet.
-            // For our case it can be binary array. It was typed as String.
-            // So it can be processing (comparing and displaying) correctly as String
-            if ( obj instanceof byte [] ) {
-              obj = new String( (byte []) obj );
+          if ( other.distinctObjs != null && other.distinctObjs[i] != null ) {
+            if ( aggregate.distinctObjs == null ) {
+              aggregate.distinctObjs = new Set[meta.getSubjectField().length];
             }
-            if ( !aggregate.distinctObjs[i].contains( obj ) ) {
-              aggregate.distinctObjs[i].add( obj );
+            if ( aggregate.distinctObjs[i] == null ) {
+              aggregate.distinctObjs[i] = new TreeSet<>();
             }
-          }
-          aggregate.counts[i] = aggregate.distinctObjs[i].size();
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
-          if ( !subjMeta.isNull( subj ) ) {
-            aggregate.counts[i]++;
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
-          aggregate.counts[i]++;
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_MIN:
-          boolean subjIsNull = subjMeta.isNull( subj );
-          boolean valueIsNull = valueMeta.isNull( value );
-          if ( minNullIsValued || ( !subjIsNull && !valueIsNull ) ) {
-            // PDI-11530 do not compare null
-            aggregate.agg[i] = subjMeta.compare( subj, valueMeta, value ) < 0 ? subj : value;
-          } else if ( valueIsNull && !subjIsNull ) {
-            // By default set aggregate to first not null value
-            aggregate.agg[i] = subj;
+            aggregate.distinctObjs[i].addAll( other.distinctObjs[i] );
+            aggregate.counts[i] = aggregate.distinctObjs[i].size();
           }
           break;
-        case MemoryGroupByMeta.TYPE_GROUP_MAX:
-          if ( subjMeta.compare( subj, valueMeta, value ) > 0 ) {
-            aggregate.agg[i] = subj;
-          }
+        case MemoryGroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT:
+          ( (HyperLogLog) aggregate.agg[i] ).merge( (HyperLogLog) value );
           break;
-        case MemoryGroupByMeta.TYPE_GROUP_FIRST:
-          if ( !subjMeta.isNull( subj ) && value == null ) {
-            aggregate.agg[i] = subj;
-          }
+        case MemoryGroupByMeta.TYPE_GROUP_APPROX_PERCENTILE:
+        case MemoryGroupByMeta.TYPE_GROUP_APPROX_MEDIAN:
+          ( (TDigest) aggregate.agg[i] ).merge( (TDigest) value );
           break;
-        case MemoryGroupByMeta.TYPE_GROUP_LAST:
-          if ( !subjMeta.isNull( subj ) ) {
-            aggregate.agg[i] = subj;
-          }
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+          aggregate.counts[i] += other.counts[i];
           break;
         case MemoryGroupByMeta.TYPE_GROUP_FIRST_INCL_NULL:
-          if ( aggregate.counts[i] == 0 ) {
-            aggregate.agg[i] = subj;
-            aggregate.counts[i]++;
+          if ( aggregate.counts[i] == 0 && other.counts[i] > 0 ) {
+            aggregate.agg[i] = value;
+            aggregate.counts[i] = other.counts[i];
           }
           break;
         case MemoryGroupByMeta.TYPE_GROUP_LAST_INCL_NULL:
-          aggregate.agg[i] = subj;
+          aggregate.agg[i] = value;
           break;
         case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
-          if ( !( subj == null ) ) {
-            StringBuilder sb = (StringBuilder) value;
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
+          StringBuilder sb = (StringBuilder) aggregate.agg[i];
+          if ( ( (StringBuilder) value ).length() > 0 ) {
             if ( sb.length() > 0 ) {
-              sb.append( ", " );
+              if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA ) {
+                sb.append( ", " );
+              } else if ( !Utils.isEmpty( meta.getValueField()[i] ) ) {
+                sb.append( environmentSubstitute( meta.getValueField()[i] ) );
+              }
             }
-            sb.append( subjMeta.getString( subj ) );
+            sb.append( (StringBuilder) value );
           }
           break;
-        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
-          if ( !( subj == null ) ) {
-            String separator = "";
-            if ( !Utils.isEmpty( meta.getValueField()[i] ) ) {
-              separator = environmentSubstitute( meta.getValueField()[i] );
-            }
-            StringBuilder sb = (StringBuilder) value;
-            if ( sb.length() > 0 ) {
-              sb.append( separator );
-            }
-            sb.append( subjMeta.getString( subj ) );
+        default:
+          addToAggregate( aggregate, i, value );
+          break;
+      }
+    }
+  }
+
+  /**
+   * Combines the counts, means and sums of squared differences of two parts of a group (Chan et al.).
+   */
+  private void mergeStandardDeviation( Aggregate aggregate, Aggregate other, int i ) {
+    long n1 = aggregate.counts[i];
+    long n2 = other.counts[i];
+    if ( n2 == 0 ) {
+      return;
+    }
+    if ( n1 == 0 ) {
+      aggregate.counts[i] = n2;
+      aggregate.mean[i] = other.mean[i];
+      aggregate.agg[i] = other.agg[i];
+      return;
+    }
+    double sum1 = aggregate.agg[i] == null ? 0.0 : (Double) aggregate.agg[i];
+    double sum2 = other.agg[i] == null ? 0.0 : (Double) other.agg[i];
+    double delta = other.mean[i] - aggregate.mean[i];
+    long n = n1 + n2;
+    aggregate.mean[i] += delta * n2 / n;
+    aggregate.agg[i] = sum1 + sum2 + delta * delta * n1 * n2 / n;
+    aggregate.counts[i] = n;
+  }
+
+  private void mergeAccumulators( Aggregate aggregate, Aggregate other, int i ) {
+    int type = meta.getAggregateType()[i];
+    if ( other.nullValued[i] ) {
+      aggregate.nullValued[i] = true;
+    }
+    if ( type == MemoryGroupByMeta.TYPE_GROUP_AVERAGE ) {
+      aggregate.counts[i] += other.counts[i];
+    }
+    if ( !other.valued[i] ) {
+      return;
+    }
+    if ( !aggregate.valued[i] ) {
+      aggregate.valued[i] = true;
+      aggregate.longAgg[i] = other.longAgg[i];
+      aggregate.doubleAgg[i] = other.doubleAgg[i];
+      return;
+    }
+    long longValue = other.longAgg[i];
+    double doubleValue = other.doubleAgg[i];
+    switch ( type ) {
+      case MemoryGroupByMeta.TYPE_GROUP_MIN:
+        aggregate.longAgg[i] = Math.min( aggregate.longAgg[i], longValue );
+        if ( Double.compare( doubleValue, aggregate.doubleAgg[i] ) < 0 ) {
+          aggregate.doubleAgg[i] = doubleValue;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MAX:
+        aggregate.longAgg[i] = Math.max( aggregate.longAgg[i], longValue );
+        if ( Double.compare( doubleValue, aggregate.doubleAgg[i] ) > 0 ) {
+          aggregate.doubleAgg[i] = doubleValue;
+        }
+        break;
+      default:
+        aggregate.longAgg[i] += longValue;
+        aggregate.doubleAgg[i] += doubleValue;
+        break;
+    }
+  }
+
+  /**
+   * Aggregates the rows written to the spill partitions, one partition at a time. The groups of a partition that don't
+   * fit in memory either are spread over the partitions of the next level. Every group is aggregated completely in a
+   * single pass since all the rows of a group either end up in the map or in the same partition.
+   */
+  private void aggregateSpilledRows() throws KettleException {
+    queueSpillPartitions();
+    while ( !data.pendingPartitions.isEmpty() && !isStopped() ) {
+      SpillPartition partition = data.pendingPartitions.pop();
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregatingTemporaryFile", partition.getRows(),
+          partition.getFile().getName().getBaseName() ) );
+      }
+
+      data.clearGroups();
+      data.spillLevel = partition.getLevel() + 1;
+      try {
+        List<Object[]> rows = new ArrayList<Object[]>( ROW_BATCH_SIZE );
+        Object[] row;
+        while ( ( row = readSpilledRow( partition ) ) != null ) {
+          rows.add( row );
+          if ( rows.size() == ROW_BATCH_SIZE ) {
+            aggregateRows( rows );
+            rows.clear();
           }
+        }
+        if ( !rows.isEmpty() ) {
+          aggregateRows( rows );
+        }
+      } finally {
+        partition.delete();
+      }
+
+      putAggregates();
+      queueSpillPartitions();
+    }
+    data.clearGroups();
+    data.spillLevel = 0;
+  }
+
+  private Object[] readSpilledRow( SpillPartition partition ) throws KettleFileException {
+    try {
+      return partition.readRow();
+    } catch ( KettleFileException e ) {
+      throw new KettleFileException( BaseMessages.getString(
+        PKG, "MemoryGroupBy.Exception.UnableToReadBackRowFromTemporaryFile" ), e );
+    }
+  }
+
+  /**
+   * Closes the spill partitions that were written to and puts them in front of the partitions still to aggregate.
+   */
+  private void queueSpillPartitions() throws KettleFileException {
+    if ( data.spillPartitions == null ) {
+      return;
+    }
+    for ( int i = data.spillPartitions.length - 1; i >= 0; i-- ) {
+      SpillPartition partition = data.spillPartitions[i];
+      if ( partition != null ) {
+        partition.closeOutput();
+        data.pendingPartitions.push( partition );
+      }
+    }
+    data.spillPartitions = null;
+  }
+
+  /**
+   * Writes the row of a group that doesn't fit in memory to the spill partition of its group.
+   */
+  private void spillRow( Object[] r ) throws KettleException {
+    if ( data.spillPartitions == null ) {
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.SpillingGroups", data.maxGroups,
+          data.spillLevel + 1 ) );
+      }
+      data.spillPartitions = new SpillPartition[SPILL_PARTITIONS];
+    }
+    int nr = getSpillPartition( data.groupIndex.getHashCode( r ), data.spillLevel );
+    SpillPartition partition = data.spillPartitions[nr];
+    if ( partition == null ) {
+      partition = new SpillPartition( createTempFile(), data.spillLevel, data.inputRowMeta, data.compactRows );
+      data.spillPartitions[nr] = partition;
+    }
+    partition.writeRow( r );
+  }
+
+  private FileObject createTempFile() throws KettleFileException {
+    try {
+      return KettleVFS.createTempFile( Const.NVL( meta.getPrefix(), "mgrp" ), ".tmp",
+        environmentSubstitute( Const.NVL( meta.getDirectory(), "%%java.io.tmpdir%%" ) ), getTransMeta() );
+    } catch ( KettleFileException e ) {
+      throw new KettleFileException( BaseMessages.getString(
+        PKG, "MemoryGroupBy.Exception.UnableToCreateTemporaryFile" ), e );
+    }
+  }
+
+  /**
+   * Picks the spill partition for the hash code of a group. The level is mixed in so that the groups of one partition
+   * spread over all partitions of the next level.
+   */
+  static int getSpillPartition( int hashCode, int level ) {
+    int h = hashCode + level * 0x9E3779B9;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return h & ( SPILL_PARTITIONS - 1 );
+  }
+
+  private void deleteSpillPartitions() {
+    if ( data.spillPartitions != null ) {
+      for ( SpillPartition partition : data.spillPartitions ) {
+        if ( partition != null ) {
+          partition.delete();
+        }
+      }
+      data.spillPartitions = null;
+    }
+    while ( !data.pendingPartitions.isEmpty() ) {
+      data.pendingPartitions.pop().delete();
+    }
+    while ( !data.pendingMerges.isEmpty() ) {
+      data.pendingMerges.pop().delete();
+    }
+  }
+
+  @VisibleForTesting
+  void updateValueMeta() throws KettleException {
+
+    List<ValueMetaInterface> outputValueMetaList = data.outputRowMeta.getValueMetaList();
+    List<ValueMetaInterface> aggMetaValueMetaList = data.aggMeta.getValueMetaList();
+    for ( int outputIndex = 0; outputIndex < outputValueMetaList.size(); ++outputIndex ) {
+      for ( int aggIndex = 0; aggIndex < aggMetaValueMetaList.size(); ++aggIndex ) {
+        if ( aggMetaValueMetaList.get( aggIndex ).getName().equals( outputValueMetaList.get( outputIndex ).getName() ) ) {
+          data.outputRowMeta.removeValueMeta(  outputValueMetaList.get( outputIndex ).getName() );
+          data.outputRowMeta.addValueMeta( outputIndex,  aggMetaValueMetaList.get( aggIndex ) );
+        }
+      }
+    }
+  }
+
+  /**
+   * Used for junits in MemoryGroupByAggregationNullsTest
+   *
+   * @param r
+   * @throws KettleException
+   */
+  void addToAggregate( Object[] r ) throws KettleException {
+    Aggregate aggregate = getAggregate( r );
+    if ( aggregate == null ) {
+      return; // spilled
+    }
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      addToAggregate( aggregate, i, r[data.subjectnrs[i]] );
+    }
+  }
+
+  /**
+   * Adds a batch of rows to the aggregates. The sums, averages, minimums and maximums of Integer and Number fields are
+   * calculated on the vectors of the batch in the primitive accumulators of the aggregates, the other aggregations are
+   * done value by value.
+   *
+   * @param rows
+   *          the rows to add
+   * @throws KettleException
+   */
+  void addToAggregate( List<Object[]> rows ) throws KettleException {
+    ColumnarRowBatch batch = data.columnarBatch;
+    batch.load( rows );
+    try {
+      for ( int row = 0; row < batch.size(); row++ ) {
+        Object[] r = batch.getRow( row );
+        Aggregate aggregate = getAggregate( r );
+        if ( aggregate == null ) {
+          continue; // spilled
+        }
+        for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+          if ( data.vectorized[i] ) {
+            addToAggregate( aggregate, i, batch, data.subjectnrs[i], row );
+          } else {
+            addToAggregate( aggregate, i, r[data.subjectnrs[i]] );
+          }
+        }
+      }
+    } finally {
+      batch.clear();
+    }
+  }
+
+  /**
+   * Looks up the aggregate of the group of the given row, creating it if it doesn't exist yet. If the map is full, the
+   * row of a new group is written to a spill partition instead.
+   *
+   * @return the aggregate or null if the row was spilled
+   */
+  private Aggregate getAggregate( Object[] r ) throws KettleException {
+    Aggregate aggregate = data.getAggregate( r );
+    if ( aggregate == null ) {
+      if ( data.maxGroups > 0 && data.getNrGroups() >= data.maxGroups && data.spillLevel < MAX_SPILL_LEVEL ) {
+        spillRow( r );
+        return null;
+      }
+
+      Object[] groupData = new Object[data.groupMeta.size()];
+      for ( int i = 0; i < data.groupnrs.length; i++ ) {
+        groupData[i] = r[data.groupnrs[i]];
+      }
+
+      // Create a new value...
+      //
+      aggregate = new Aggregate();
+      newAggregate( r, aggregate );
+
+      // Store it in the index!
+      //
+      data.addGroup( r, groupData, aggregate );
+    }
+    return aggregate;
+  }
+
+  private void addToAggregate( Aggregate aggregate, int i, ColumnarRowBatch batch, int column, int row ) {
+    int type = meta.getAggregateType()[i];
+    if ( batch.isNull( column, row ) ) {
+      if ( type == MemoryGroupByMeta.TYPE_GROUP_MIN && minNullIsValued ) {
+        aggregate.nullValued[i] = true;
+      }
+      return;
+    }
+    if ( type == MemoryGroupByMeta.TYPE_GROUP_AVERAGE ) {
+      aggregate.counts[i]++;
+    }
+    boolean valued = aggregate.valued[i];
+    aggregate.valued[i] = true;
+    if ( batch.isLongVector( column ) ) {
+      long subj = batch.getLong( column, row );
+      long value = aggregate.longAgg[i];
+      switch ( type ) {
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
+          aggregate.longAgg[i] = !valued || subj < value ? subj : value;
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MAX:
+          aggregate.longAgg[i] = !valued || subj > value ? subj : value;
+          break;
+        default:
+          aggregate.longAgg[i] = value + subj;
+          break;
+      }
+    } else {
+      double subj = batch.getDouble( column, row );
+      double value = aggregate.doubleAgg[i];
+      switch ( type ) {
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
+          aggregate.doubleAgg[i] = !valued || Double.compare( subj, value ) < 0 ? subj : value;
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MAX:
+          aggregate.doubleAgg[i] = !valued || Double.compare( subj, value ) > 0 ? subj : value;
           break;
         default:
+          aggregate.doubleAgg[i] = value + subj;
           break;
       }
     }
   }
 
+  @SuppressWarnings( "unchecked" )
+  private void addToAggregate( Aggregate aggregate, int i, Object subj ) throws KettleException {
+    ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
+    Object value = aggregate.agg[i];
+    ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
+
+    switch ( meta.getAggregateType()[i] ) {
+      case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+        if ( !subjMeta.isNull( subj ) ) {
+          aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
+          aggregate.counts[i]++;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
+      case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
+        if ( !subjMeta.isNull( subj ) ) {
+          ( (List<Double>) aggregate.agg[i] ).add( subjMeta.getNumber( subj ) );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+        if ( aggregate.mean == null ) {
+          aggregate.mean = new double[meta.getSubjectField().length];
+        }
+        aggregate.counts[i]++;
+        double n = aggregate.counts[i];
+        double x = subjMeta.getNumber( subj );
+        // for standard deviation null is exact 0
+        double sum = value == null ? new Double( 0 ) : (Double) value;
+        double mean = aggregate.mean[i];
+
+        double delta = x - mean;
+        mean = mean + ( delta / n );
+        sum = sum + delta * ( x - mean );
+
+        aggregate.mean[i] = mean;
+        aggregate.agg[i] = sum;
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+        if ( aggregate.distinctObjs == null ) {
+          aggregate.distinctObjs = new Set[meta.getSubjectField().length];
+        }
+        if ( aggregate.distinctObjs[i] == null ) {
+          aggregate.distinctObjs[i] = new TreeSet<>();
+        }
+        if ( !subjMeta.isNull( subj ) ) {
+          Object obj = subjMeta.convertToNormalStorageType( subj );
+          // byte [] is not Comparable and can not be added to TreeSet.
+          // For our case it can be binary array. It was typed as String.
+          // So it can be processing (comparing and displaying) correctly as String
+          if ( obj instanceof byte [] ) {
+            obj = new String( (byte []) obj );
+          }
+          if ( !aggregate.distinctObjs[i].contains( obj ) ) {
+            aggregate.distinctObjs[i].add( obj );
+          }
+        }
+        aggregate.counts[i] = aggregate.distinctObjs[i].size();
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT:
+        if ( !subjMeta.isNull( subj ) ) {
+          ( (HyperLogLog) value ).add( subjMeta.convertToNormalStorageType( subj ) );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_APPROX_PERCENTILE:
+      case MemoryGroupByMeta.TYPE_GROUP_APPROX_MEDIAN:
+        if ( !subjMeta.isNull( subj ) ) {
+          ( (TDigest) value ).add( subjMeta.getNumber( subj ) );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+        if ( !subjMeta.isNull( subj ) ) {
+          aggregate.counts[i]++;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+        aggregate.counts[i]++;
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MIN:
+        boolean subjIsNull = subjMeta.isNull( subj );
+        boolean valueIsNull = valueMeta.isNull( value );
+        if ( minNullIsValued || ( !subjIsNull && !valueIsNull ) ) {
+          // PDI-11530 do not compare null
+          aggregate.agg[i] = subjMeta.compare( subj, valueMeta, value ) < 0 ? subj : value;
+        } else if ( valueIsNull && !subjIsNull ) {
+          // By default set aggregate to first not null value
+          aggregate.agg[i] = subj;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MAX:
+        if ( subjMeta.compare( subj, valueMeta, value ) > 0 ) {
+          aggregate.agg[i] = subj;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_FIRST:
+        if ( !subjMeta.isNull( subj ) && value == null ) {
+          aggregate.agg[i] = subj;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_LAST:
+        if ( !subjMeta.isNull( subj ) ) {
+          aggregate.agg[i] = subj;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_FIRST_INCL_NULL:
+        if ( aggregate.counts[i] == 0 ) {
+          aggregate.agg[i] = subj;
+          aggregate.counts[i]++;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_LAST_INCL_NULL:
+        aggregate.agg[i] = subj;
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
+        if ( !( subj == null ) ) {
+          StringBuilder sb = (StringBuilder) value;
+          if ( sb.length() > 0 ) {
+            sb.append( ", " );
+          }
+          sb.append( subjMeta.getString( subj ) );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
+        if ( !( subj == null ) ) {
+          String separator = "";
+          if ( !Utils.isEmpty( meta.getValueField()[i] ) ) {
+            separator = environmentSubstitute( meta.getValueField()[i] );
+          }
+          StringBuilder sb = (StringBuilder) value;
+          if ( sb.length() > 0 ) {
+            sb.append( separator );
+          }
+          sb.append( subjMeta.getString( subj ) );
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
   /**
    * Used for junits in MemoryGroupByNewAggregateTest
    *
@@ -423,6 +1001,12 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       aggregate.distinctObjs = null;
       aggregate.agg = new Object[data.subjectnrs.length];
       aggregate.mean = new double[data.subjectnrs.length]; // sets all doubles to 0.0
+      if ( data.vectorized != null ) {
+        aggregate.longAgg = new long[data.subjectnrs.length];
+        aggregate.doubleAgg = new double[data.subjectnrs.length];
+        aggregate.valued = new boolean[data.subjectnrs.length];
+        aggregate.nullValued = new boolean[data.subjectnrs.length];
+      }
     }
 
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
@@ -438,6 +1022,16 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
         case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
           vMeta = new ValueMetaNumber( meta.getAggregateField()[i] );
           break;
+        case MemoryGroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT:
+          vMeta = new ValueMetaInteger( meta.getAggregateField()[i] );
+          v = new HyperLogLog(
+            data.approxPrecisions == null ? HyperLogLog.DEFAULT_PRECISION : data.approxPrecisions[i] );
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_APPROX_PERCENTILE:
+        case MemoryGroupByMeta.TYPE_GROUP_APPROX_MEDIAN:
+          vMeta = new ValueMetaNumber( meta.getAggregateField()[i] );
+          v = new TDigest( data.approxCompression );
+          break;
         case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
         case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
         case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
@@ -472,6 +1066,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
       if ( meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL
         && meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT
+        && meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT
         && meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
         vMeta.setLength( subjMeta.getLength(), subjMeta.getPrecision() );
       }
@@ -483,6 +1078,59 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Decides which aggregations are calculated on primitive vectors: sums, averages, minimums and maximums of Integer
+   * and Number fields giving a result of the same type. If there are any, the rows are read in a columnar batch.
+   */
+  private void initColumnarBatch() {
+    boolean[] vectorized = new boolean[data.subjectnrs.length];
+    int[] columns = new int[data.subjectnrs.length];
+    int nrColumns = 0;
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
+      switch ( meta.getAggregateType()[i] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
+        case MemoryGroupByMeta.TYPE_GROUP_MAX:
+          vectorized[i] = ColumnarRowBatch.isVectorizable( subjMeta ) && !subjMeta.isSortedDescending()
+            && data.aggMeta.getValueMeta( i ).getType() == subjMeta.getType();
+          break;
+        default:
+          break;
+      }
+      if ( vectorized[i] ) {
+        columns[nrColumns++] = data.subjectnrs[i];
+      }
+    }
+    if ( nrColumns > 0 ) {
+      data.vectorized = vectorized;
+      data.columnarBatch =
+        new ColumnarRowBatch( data.inputRowMeta, ROW_BATCH_SIZE, Arrays.copyOf( columns, nrColumns ) );
+    }
+  }
+
+  /**
+   * Moves the values of the primitive accumulators of the vectorized aggregations into the aggregate values.
+   */
+  private void copyAccumulators( Aggregate aggregate ) {
+    if ( data.vectorized == null || aggregate.valued == null ) {
+      return;
+    }
+    for ( int i = 0; i < data.vectorized.length; i++ ) {
+      if ( !data.vectorized[i] ) {
+        continue;
+      }
+      if ( !aggregate.valued[i] || aggregate.nullValued[i] ) {
+        aggregate.agg[i] = null;
+      } else if ( data.aggMeta.getValueMeta( i ).getType() == ValueMetaInterface.TYPE_INTEGER ) {
+        aggregate.agg[i] = aggregate.longAgg[i];
+      } else {
+        aggregate.agg[i] = aggregate.doubleAgg[i];
+      }
+    }
+  }
+
   private void initGroupMeta( RowMetaInterface previousRowMeta ) throws KettleValueException {
     data.groupMeta = new RowMeta();
     data.entryMeta = new RowMeta();
@@ -494,6 +1142,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       ValueMetaInterface normalMeta = valueMeta.clone();
       normalMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
     }
+    data.initGroupIndex();
 
     return;
   }
@@ -507,6 +1156,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
    */
   Object[] getAggregateResult( Aggregate aggregate ) throws KettleValueException {
     Object[] result = new Object[data.subjectnrs.length];
+    copyAccumulators( aggregate );
 
     if ( data.subjectnrs != null ) {
       for ( int i = 0; i < data.subjectnrs.length; i++ ) {
@@ -539,6 +1189,18 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
           case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
             ag = aggregate.counts[i];
             break;
+          case MemoryGroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT:
+            ag = ( (HyperLogLog) ag ).cardinality();
+            break;
+          case MemoryGroupByMeta.TYPE_GROUP_APPROX_PERCENTILE:
+          case MemoryGroupByMeta.TYPE_GROUP_APPROX_MEDIAN:
+            TDigest digest = (TDigest) ag;
+            double approxPercentile = 50.0;
+            if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_APPROX_PERCENTILE ) {
+              approxPercentile = Double.parseDouble( meta.getValueField()[i] );
+            }
+            ag = digest.isEmpty() ? null : digest.percentile( approxPercentile );
+            break;
           case MemoryGroupByMeta.TYPE_GROUP_MIN:
             break;
           case MemoryGroupByMeta.TYPE_GROUP_MAX:
@@ -573,14 +1235,73 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     data = (MemoryGroupByData) sdi;
 
     if ( super.init( smi, sdi ) ) {
-      data.map = new HashMap<HashEntry, Aggregate>( 5000 );
+      data.maxGroups = Math.max( 0, Const.toInt( environmentSubstitute( meta.getMaxGroupsInMemory() ), 0 ) );
+      data.compactRows = "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COMPACT_ROW_FORMAT, "N" ) );
+      if ( !initApproximations() ) {
+        return false;
+      }
+      initMerge();
       return true;
     }
     return false;
   }
 
+  /**
+   * Determines the precision of the sketches of the approximate count distinct aggregates, given in their value field
+   * or by a variable, and the compression of the digests of the approximate percentiles. All copies of the step get
+   * the same values, so their sketches and digests can be merged.
+   */
+  private boolean initApproximations() {
+    int defaultPrecision = Const.toInt( getVariable( Const.KETTLE_APPROX_DISTINCT_PRECISION ),
+      HyperLogLog.DEFAULT_PRECISION );
+    data.approxPrecisions = new int[meta.getAggregateType().length];
+    for ( int i = 0; i < data.approxPrecisions.length; i++ ) {
+      if ( meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT ) {
+        continue;
+      }
+      String precision = environmentSubstitute( meta.getValueField()[i] );
+      data.approxPrecisions[i] = Utils.isEmpty( precision ) ? defaultPrecision : Const.toInt( precision, -1 );
+      if ( data.approxPrecisions[i] < HyperLogLog.MIN_PRECISION
+        || data.approxPrecisions[i] > HyperLogLog.MAX_PRECISION ) {
+        logError( BaseMessages.getString( PKG, "MemoryGroupBy.Error.InvalidApproximationPrecision",
+          Utils.isEmpty( precision ) ? String.valueOf( defaultPrecision ) : precision,
+          meta.getAggregateField()[i] ) );
+        return false;
+      }
+    }
+    data.approxCompression = Math.max( TDigest.MIN_COMPRESSION, Const.toDouble(
+      getVariable( Const.KETTLE_APPROX_PERCENTILE_COMPRESSION ), TDigest.DEFAULT_COMPRESSION ) );
+    return true;
+  }
+
+  /**
+   * Shares the groups between the copies of the step if they are merged. A partitioned step doesn't need this since all
+   * rows of a group go to the same copy.
+   */
+  private void initMerge() {
+    if ( !meta.isMergingCopies() || getStepMeta().isPartitioned() || getTrans() == null ) {
+      return;
+    }
+    List<StepInterface> copies = getTrans().findStepInterfaces( getStepname() );
+    if ( copies == null || copies.size() < 2 ) {
+      return;
+    }
+    MemoryGroupByData firstData = (MemoryGroupByData) getTrans().getStepDataInterface( getStepname(), 0 );
+    synchronized ( firstData ) {
+      if ( firstData.merge == null ) {
+        firstData.merge = new MemoryGroupByMerge( copies.size() );
+      }
+      data.merge = firstData.merge;
+    }
+  }
+
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    deleteSpillPartitions();
+    if ( data.merge != null ) {
+      data.merge.release();
+      data.merge = null;
+    }
     super.dispose( smi, sdi );
     ( (MemoryGroupByData) sdi ).clear();
   }
@@ -593,7 +1314,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     // Clear the complete cache...
     //
-    data.map.clear();
+    data.clearGroups();
 
     data.newBatch = true;
   }
@@ -13,11 +13,17 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.hash.RowKeyHashIndex;
+import org.pentaho.di.core.row.ColumnarRowBatch;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.sketch.TDigest;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -27,46 +33,12 @@ import org.pentaho.di.trans.step.StepDataInterface;
  *
  */
 public class MemoryGroupByData extends BaseStepData implements StepDataInterface {
-  public class HashEntry {
-    private Object[] groupData;
-
-    public HashEntry( Object[] groupData ) {
-      this.groupData = groupData;
-    }
-
-    public Object[] getGroupData() {
-      return groupData;
-    }
-
-    public boolean equals( Object obj ) {
-      HashEntry entry = (HashEntry) obj;
-
-      try {
-        return groupMeta.compare( groupData, entry.groupData ) == 0;
-      } catch ( KettleValueException e ) {
-        throw new RuntimeException( e );
-      }
-    }
-
-    public int hashCode() {
-      try {
-        return groupMeta.hashCode( getHashValue() );
-      } catch ( KettleValueException e ) {
-        throw new RuntimeException( e );
-      }
-    }
-
-    private Object[] getHashValue() throws KettleValueException {
-      Object[] groupDataHash = new Object[groupMeta.size()];
-      for ( int i = 0; i < groupMeta.size(); i++ ) {
-        ValueMetaInterface valueMeta = groupMeta.getValueMeta( i );
-        groupDataHash[i] = valueMeta.convertToNormalStorageType( groupData[i] );
-      }
-      return groupDataHash;
-    }
-  }
-
-  public HashMap<HashEntry, Aggregate> map;
+  /** Index of the groups in memory: gives the number of the group of a row */
+  public RowKeyHashIndex groupIndex;
+  /** Per group number: the values of the group fields */
+  public List<Object[]> groups = new ArrayList<Object[]>();
+  /** Per group number: the aggregate */
+  public List<Aggregate> aggregates = new ArrayList<Aggregate>();
 
   public RowMetaInterface aggMeta;
   public RowMetaInterface groupMeta;
@@ -76,6 +48,11 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
   public int[] groupnrs;
   public int[] subjectnrs;
 
+  /** Batch the rows are read in when some of the aggregations are calculated on primitive vectors, or null */
+  public ColumnarRowBatch columnarBatch;
+  /** For each aggregation: true if it is calculated on primitive vectors */
+  public boolean[] vectorized;
+
   public boolean firstRead;
 
   public Object[] groupResult;
@@ -90,19 +67,91 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
 
   public boolean newBatch;
 
+  /** The maximum number of groups in the map, 0 for no limit */
+  public int maxGroups;
+  /** True to write the temp files in the compact row format */
+  public boolean compactRows;
+  /** The partitions the rows of groups that don't fit in the map are written to, null while nothing is spilled */
+  public SpillPartition[] spillPartitions;
+  /** The level of the partitions rows are spilled to, 0 while the input rows are aggregated */
+  public int spillLevel;
+  /** The partitions that still need to be aggregated */
+  public Deque<SpillPartition> pendingPartitions = new ArrayDeque<SpillPartition>();
+  /** The groups shared by the copies of the step when they are merged, null otherwise */
+  MemoryGroupByMerge merge;
+  /** True once this copy handed over all of its groups to the merge */
+  boolean handedOver;
+  /** Index of the handed over groups, by the values of their group fields, when the copies are merged */
+  RowKeyHashIndex mergeIndex;
+  /** The partitions of handed over groups that the merging copy still needs to merge */
+  Deque<MergePartition> pendingMerges = new ArrayDeque<MergePartition>();
+  /** Per aggregate: the precision of the sketch of an approximate count distinct */
+  public int[] approxPrecisions;
+  /** The compression of the digests of approximate medians and percentiles */
+  public double approxCompression = TDigest.DEFAULT_COMPRESSION;
+
   public MemoryGroupByData() {
     super();
 
   }
 
-  public HashEntry getHashEntry( Object[] groupData ) {
-    return new HashEntry( groupData );
+  /**
+   * Creates the index of the groups, once the group fields are known.
+   */
+  public void initGroupIndex() {
+    groupIndex = new RowKeyHashIndex( groupMeta, groupnrs, true );
+    groups.clear();
+    aggregates.clear();
+  }
+
+  /**
+   * @param row
+   *          an input row
+   * @return the aggregate of the group of the row or null if the group isn't in memory
+   */
+  public Aggregate getAggregate( Object[] row ) throws KettleValueException {
+    int group = groupIndex.get( row );
+    return group < 0 ? null : aggregates.get( group );
+  }
+
+  /**
+   * Adds the group of an input row.
+   *
+   * @param row
+   *          an input row
+   * @param groupData
+   *          the values of the group fields of the row
+   * @param aggregate
+   *          the aggregate of the group
+   */
+  public void addGroup( Object[] row, Object[] groupData, Aggregate aggregate ) throws KettleValueException {
+    groupIndex.add( row );
+    groups.add( groupData );
+    aggregates.add( aggregate );
+  }
+
+  public int getNrGroups() {
+    return aggregates.size();
+  }
+
+  /**
+   * Removes all the groups from memory.
+   */
+  public void clearGroups() {
+    if ( groupIndex != null ) {
+      groupIndex.clear();
+    }
+    groups.clear();
+    aggregates.clear();
   }
 
   /**
    * Method responsible for clearing out memory hogs
    */
   public void clear() {
-    map = new HashMap<MemoryGroupByData.HashEntry, Aggregate>();
+    groupIndex = null;
+    mergeIndex = null;
+    groups = new ArrayList<Object[]>();
+    aggregates = new ArrayList<Aggregate>();
   }
 }
@@ -0,0 +1,103 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * The groups the copies of a Memory group by step aggregated, shared by all the copies. Every copy hands over its
+ * groups when its input is done by writing them to the temp files of their hash partitions, so the groups don't stay
+ * in memory. The copy that finishes last merges the groups, one partition at a time, and outputs the result. None of
+ * the copies waits for the others.
+ */
+class MemoryGroupByMerge {
+  private final int nrCopies;
+  private List<MergePartition> partitions;
+  private RowMetaInterface inputRowMeta;
+  private int nrFinished;
+  private int nrReleased;
+
+  MemoryGroupByMerge( int nrCopies ) {
+    this.nrCopies = nrCopies;
+    this.partitions = new ArrayList<>( MemoryGroupBy.SPILL_PARTITIONS );
+    for ( int i = 0; i < MemoryGroupBy.SPILL_PARTITIONS; i++ ) {
+      partitions.add( new MergePartition( nrCopies, 0 ) );
+    }
+  }
+
+  int getNrCopies() {
+    return nrCopies;
+  }
+
+  /**
+   * @return the partition a copy hands over the groups with a hash code in the given partition to
+   */
+  MergePartition getPartition( int nr ) {
+    return partitions.get( nr );
+  }
+
+  /**
+   * Remembers the layout of the rows of the first copy that received any, for a merging copy that didn't.
+   */
+  synchronized void setInputRowMeta( RowMetaInterface rowMeta ) {
+    if ( inputRowMeta == null ) {
+      inputRowMeta = rowMeta;
+    }
+  }
+
+  synchronized RowMetaInterface getInputRowMeta() {
+    return inputRowMeta;
+  }
+
+  /**
+   * Called by every copy once all of its groups are handed over.
+   *
+   * @param stopped
+   *          true if the copy was stopped
+   * @return true if the copy is the last one to finish and has to merge and output the groups of all copies
+   */
+  synchronized boolean finish( boolean stopped ) {
+    nrFinished++;
+    return nrFinished == nrCopies && !stopped;
+  }
+
+  /**
+   * Hands the partitions to the merging copy, which deletes them once they are merged.
+   */
+  synchronized List<MergePartition> takePartitions() {
+    List<MergePartition> list = partitions;
+    partitions = new ArrayList<>();
+    return list;
+  }
+
+  /**
+   * Called by every copy when it is disposed. The last one deletes the files of groups that were never merged, for
+   * example because the transformation was stopped.
+   */
+  void release() {
+    List<MergePartition> list;
+    synchronized ( this ) {
+      if ( ++nrReleased < nrCopies ) {
+        return;
+      }
+      list = takePartitions();
+    }
+    for ( MergePartition partition : list ) {
+      partition.delete();
+    }
+  }
+}
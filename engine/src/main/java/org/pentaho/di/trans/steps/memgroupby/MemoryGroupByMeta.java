@@ -90,10 +90,17 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
 
   public static final int TYPE_GROUP_COUNT_ANY = 16;
 
+  public static final int TYPE_GROUP_APPROX_COUNT_DISTINCT = 17;
+
+  public static final int TYPE_GROUP_APPROX_PERCENTILE = 18;
+
+  public static final int TYPE_GROUP_APPROX_MEDIAN = 19;
+
   public static final String[] typeGroupCode = /* WARNING: DO NOT TRANSLATE THIS. WE ARE SERIOUS, DON'T TRANSLATE! */
   {
     "-", "SUM", "AVERAGE", "MEDIAN", "PERCENTILE", "MIN", "MAX", "COUNT_ALL", "CONCAT_COMMA", "FIRST", "LAST",
-    "FIRST_INCL_NULL", "LAST_INCL_NULL", "STD_DEV", "CONCAT_STRING", "COUNT_DISTINCT", "COUNT_ANY", };
+    "FIRST_INCL_NULL", "LAST_INCL_NULL", "STD_DEV", "CONCAT_STRING", "COUNT_DISTINCT", "COUNT_ANY",
+    "APPROX_COUNT_DISTINCT", "APPROX_PERCENTILE", "APPROX_MEDIAN", };
 
   public static final String[] typeGroupLongDesc = {
     "-", BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.SUM" ),
@@ -111,7 +118,10 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.STANDARD_DEVIATION" ),
     BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.CONCAT_STRING" ),
     BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.COUNT_DISTINCT" ),
-    BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.COUNT_ANY" ), };
+    BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.COUNT_ANY" ),
+    BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.APPROX_COUNT_DISTINCT" ),
+    BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.APPROX_PERCENTILE" ),
+    BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.APPROX_MEDIAN" ), };
 
   @Injection( name = "GROUPFIELD", group = "FIELDS" )
   /** Fields to group over */
@@ -137,6 +147,28 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
   /** Flag to indicate that we always give back one row. Defaults to true for existing transformations. */
   private boolean alwaysGivingBackOneRow;
 
+  @Injection( name = "MAX_GROUPS_IN_MEMORY" )
+  /**
+   * The maximum number of groups kept in memory. The rows of groups that don't fit are written to temp files and
+   * aggregated afterwards. Empty means no limit.
+   */
+  private String maxGroupsInMemory;
+
+  @Injection( name = "MERGE_COPIES" )
+  /**
+   * Flag to indicate that the copies of the step merge their groups, so that every group is output once even when the
+   * input isn't partitioned over the copies.
+   */
+  private boolean mergingCopies;
+
+  @Injection( name = "DIRECTORY" )
+  /** Directory to store the temp files */
+  private String directory;
+
+  @Injection( name = "PREFIX" )
+  /** Temp files prefix */
+  private String prefix;
+
   public MemoryGroupByMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -267,13 +299,19 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
         aggregateType[i] = getType( XMLHandler.getTagValue( fnode, "type" ) );
 
         if ( aggregateType[i] == TYPE_GROUP_COUNT_ALL
-          || aggregateType[i] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[i] == TYPE_GROUP_COUNT_ANY ) {
+          || aggregateType[i] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[i] == TYPE_GROUP_COUNT_ANY
+          || aggregateType[i] == TYPE_GROUP_APPROX_COUNT_DISTINCT ) {
           hasNumberOfValues = true;
         }
 
         valueField[i] = XMLHandler.getTagValue( fnode, "valuefield" );
       }
 
+      maxGroupsInMemory = XMLHandler.getTagValue( stepnode, "max_groups_in_memory" );
+      mergingCopies = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "merge_copies" ) );
+      directory = XMLHandler.getTagValue( stepnode, "directory" );
+      prefix = XMLHandler.getTagValue( stepnode, "prefix" );
+
       String giveBackRow = XMLHandler.getTagValue( stepnode, "give_back_row" );
       if ( Utils.isEmpty( giveBackRow ) ) {
         alwaysGivingBackOneRow = hasNumberOfValues;
@@ -319,6 +357,11 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     int sizegroup = 0;
     int nrfields = 0;
 
+    maxGroupsInMemory = null;
+    mergingCopies = false;
+    directory = "%%java.io.tmpdir%%";
+    prefix = "mgrp";
+
     allocate( sizegroup, nrfields );
   }
 
@@ -365,6 +408,7 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
           case TYPE_GROUP_COUNT_DISTINCT:
           case TYPE_GROUP_COUNT_ALL:
           case TYPE_GROUP_COUNT_ANY:
+          case TYPE_GROUP_APPROX_COUNT_DISTINCT:
             value_type = ValueMetaInterface.TYPE_INTEGER;
             break;
           case TYPE_GROUP_CONCAT_COMMA:
@@ -381,6 +425,8 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
           case TYPE_GROUP_MEDIAN:
           case TYPE_GROUP_PERCENTILE:
           case TYPE_GROUP_STANDARD_DEVIATION:
+          case TYPE_GROUP_APPROX_PERCENTILE:
+          case TYPE_GROUP_APPROX_MEDIAN:
             value_type = ValueMetaInterface.TYPE_NUMBER;
             break;
           case TYPE_GROUP_CONCAT_STRING:
@@ -391,7 +437,8 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
         }
 
         if ( aggregateType[i] == TYPE_GROUP_COUNT_ALL
-          || aggregateType[i] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[i] == TYPE_GROUP_COUNT_ANY ) {
+          || aggregateType[i] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[i] == TYPE_GROUP_COUNT_ANY
+          || aggregateType[i] == TYPE_GROUP_APPROX_COUNT_DISTINCT ) {
           length = ValueMetaInterface.DEFAULT_INTEGER_LENGTH;
           precision = 0;
         } else if ( aggregateType[i] == TYPE_GROUP_SUM
@@ -436,6 +483,10 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     StringBuilder retval = new StringBuilder( 500 );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "give_back_row", alwaysGivingBackOneRow ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "max_groups_in_memory", maxGroupsInMemory ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "merge_copies", mergingCopies ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "directory", directory ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "prefix", prefix ) );
 
     retval.append( "      <group>" ).append( Const.CR );
     for ( int i = 0; i < groupField.length; i++ ) {
@@ -478,13 +529,18 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
         aggregateType[i] = getType( rep.getStepAttributeString( id_step, i, "aggregate_type" ) );
 
         if ( aggregateType[i] == TYPE_GROUP_COUNT_ALL
-          || aggregateType[i] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[i] == TYPE_GROUP_COUNT_ANY ) {
+          || aggregateType[i] == TYPE_GROUP_COUNT_DISTINCT || aggregateType[i] == TYPE_GROUP_COUNT_ANY
+          || aggregateType[i] == TYPE_GROUP_APPROX_COUNT_DISTINCT ) {
           hasNumberOfValues = true;
         }
         valueField[i] = rep.getStepAttributeString( id_step, i, "aggregate_value_field" );
       }
 
       alwaysGivingBackOneRow = rep.getStepAttributeBoolean( id_step, 0, "give_back_row", hasNumberOfValues );
+      maxGroupsInMemory = rep.getStepAttributeString( id_step, "max_groups_in_memory" );
+      mergingCopies = rep.getStepAttributeBoolean( id_step, "merge_copies" );
+      directory = rep.getStepAttributeString( id_step, "directory" );
+      prefix = rep.getStepAttributeString( id_step, "prefix" );
     } catch ( Exception e ) {
       throw new KettleException( BaseMessages.getString(
         PKG, "MemoryGroupByMeta.Exception.UnexpectedErrorInReadingStepInfoFromRepository" ), e );
@@ -495,6 +551,10 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
   public void saveRep( Repository rep, IMetaStore metaStore, ObjectId id_transformation, ObjectId id_step ) throws KettleException {
     try {
       rep.saveStepAttribute( id_transformation, id_step, "give_back_row", alwaysGivingBackOneRow );
+      rep.saveStepAttribute( id_transformation, id_step, "max_groups_in_memory", maxGroupsInMemory );
+      rep.saveStepAttribute( id_transformation, id_step, "merge_copies", mergingCopies );
+      rep.saveStepAttribute( id_transformation, id_step, "directory", directory );
+      rep.saveStepAttribute( id_transformation, id_step, "prefix", prefix );
 
       for ( int i = 0; i < groupField.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "group_name", groupField[i] );
@@ -558,6 +618,66 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     this.alwaysGivingBackOneRow = alwaysGivingBackOneRow;
   }
 
+  /**
+   * @return the maximum number of groups kept in memory, empty for no limit
+   */
+  public String getMaxGroupsInMemory() {
+    return maxGroupsInMemory;
+  }
+
+  /**
+   * @param maxGroupsInMemory
+   *          the maximum number of groups kept in memory, empty for no limit
+   */
+  public void setMaxGroupsInMemory( String maxGroupsInMemory ) {
+    this.maxGroupsInMemory = maxGroupsInMemory;
+  }
+
+  /**
+   * @return true if the copies of the step merge their groups
+   */
+  public boolean isMergingCopies() {
+    return mergingCopies;
+  }
+
+  /**
+   * @param mergingCopies
+   *          true if the copies of the step merge their groups
+   */
+  public void setMergingCopies( boolean mergingCopies ) {
+    this.mergingCopies = mergingCopies;
+  }
+
+  /**
+   * @return Returns the directory.
+   */
+  public String getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @param directory
+   *          The directory to set.
+   */
+  public void setDirectory( String directory ) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return Returns the prefix.
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * @param prefix
+   *          The prefix to set.
+   */
+  public void setPrefix( String prefix ) {
+    this.prefix = prefix;
+  }
+
   /**
    * If we use injection we can have different arrays lengths.
    * We need synchronize them for consistency behavior with UI
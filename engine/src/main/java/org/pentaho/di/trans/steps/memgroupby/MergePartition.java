@@ -0,0 +1,165 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.trans.step.BaseStep;
+
+/**
+ * The partially aggregated groups of one hash partition, handed over by the copies of a Memory group by step that
+ * merge their groups. Every copy writes its groups to a temp file of its own, so that the groups can be read back in
+ * the order of the copies. A copy only writes its own file, the files are only read once all copies are done.
+ */
+class MergePartition {
+  private final int level;
+  private final FileObject[] files;
+  private final ObjectOutputStream[] outputStreams;
+  private final long[] groups;
+
+  private ObjectInputStream inputStream;
+  private int inputCopyNr = -1;
+  private long groupsRead;
+
+  /**
+   * @param nrCopies the number of copies handing over groups
+   * @param level the number of times the groups were partitioned: 0 for the groups handed over by the copies
+   */
+  MergePartition( int nrCopies, int level ) {
+    this.level = level;
+    this.files = new FileObject[nrCopies];
+    this.outputStreams = new ObjectOutputStream[nrCopies];
+    this.groups = new long[nrCopies];
+  }
+
+  int getLevel() {
+    return level;
+  }
+
+  /**
+   * @return true if the copy has a file to write its groups to
+   */
+  boolean hasFile( int copyNr ) {
+    return files[copyNr] != null;
+  }
+
+  /**
+   * Sets the temp file the copy writes its groups to.
+   */
+  void setFile( int copyNr, FileObject file ) {
+    files[copyNr] = file;
+  }
+
+  /**
+   * Writes a group with its partial aggregate to the file of the copy.
+   */
+  void writeGroup( int copyNr, Object[] groupData, Aggregate aggregate ) throws KettleFileException {
+    try {
+      ObjectOutputStream outputStream = outputStreams[copyNr];
+      if ( outputStream == null ) {
+        outputStream = new ObjectOutputStream( new BufferedOutputStream(
+          KettleVFS.getOutputStream( files[copyNr], false ), 65536 ) );
+        outputStreams[copyNr] = outputStream;
+      }
+      outputStream.writeObject( groupData );
+      outputStream.writeObject( aggregate );
+      // Don't let the stream hold on to every object written
+      outputStream.reset();
+      groups[copyNr]++;
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+  }
+
+  /**
+   * Closes the file the copy wrote its groups to.
+   */
+  void closeOutput( int copyNr ) throws KettleFileException {
+    ObjectOutputStream outputStream = outputStreams[copyNr];
+    if ( outputStream == null ) {
+      return;
+    }
+    try {
+      outputStreams[copyNr] = null;
+      outputStream.close();
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+  }
+
+  /**
+   * @return the number of groups written by all copies
+   */
+  long getGroups() {
+    long total = 0;
+    for ( long copyGroups : groups ) {
+      total += copyGroups;
+    }
+    return total;
+  }
+
+  /**
+   * Reads the next group of a copy. The copies have to be read one after the other.
+   *
+   * @return the values of the group fields followed by the aggregate or null if all groups of the copy were read
+   */
+  Object[] readGroup( int copyNr ) throws KettleFileException {
+    if ( copyNr != inputCopyNr ) {
+      BaseStep.closeQuietly( inputStream );
+      inputStream = null;
+      inputCopyNr = copyNr;
+      groupsRead = 0;
+    }
+    if ( groupsRead >= groups[copyNr] ) {
+      return null;
+    }
+    try {
+      if ( inputStream == null ) {
+        inputStream = new ObjectInputStream( new BufferedInputStream(
+          KettleVFS.getInputStream( files[copyNr] ), 65536 ) );
+      }
+      groupsRead++;
+      return new Object[] { inputStream.readObject(), inputStream.readObject() };
+    } catch ( IOException | ClassNotFoundException e ) {
+      throw new KettleFileException( e );
+    }
+  }
+
+  /**
+   * Closes the files and deletes them, ignoring errors.
+   */
+  void delete() {
+    BaseStep.closeQuietly( inputStream );
+    inputStream = null;
+    for ( int copyNr = 0; copyNr < files.length; copyNr++ ) {
+      BaseStep.closeQuietly( outputStreams[copyNr] );
+      outputStreams[copyNr] = null;
+      if ( files[copyNr] != null ) {
+        try {
+          files[copyNr].delete();
+        } catch ( IOException e ) {
+          // It's a temp file
+        }
+        files[copyNr] = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.CompactRowReader;
+import org.pentaho.di.core.row.CompactRowWriter;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.trans.step.BaseStep;
+
+/**
+ * A temp file holding the input rows of the groups that hash to one partition and didn't fit in memory. The rows are
+ * written first, then read back once in the same order.
+ */
+class SpillPartition {
+  private final FileObject file;
+  private final int level;
+  private final RowMetaInterface rowMeta;
+  private final boolean compact;
+
+  private DataOutputStream outputStream;
+  private CompactRowWriter compactWriter;
+  private DataInputStream inputStream;
+  private CompactRowReader compactReader;
+
+  private long rows;
+  private long rowsRead;
+
+  /**
+   * @param file the temp file
+   * @param level the number of times the rows were partitioned: 0 for rows of the input
+   * @param rowMeta the layout of the rows
+   * @param compact true to use the compact row format
+   */
+  SpillPartition( FileObject file, int level, RowMetaInterface rowMeta, boolean compact ) {
+    this.file = file;
+    this.level = level;
+    this.rowMeta = rowMeta;
+    this.compact = compact;
+  }
+
+  void writeRow( Object[] row ) throws KettleFileException {
+    if ( outputStream == null ) {
+      try {
+        outputStream = new DataOutputStream( new BufferedOutputStream( KettleVFS.getOutputStream( file, false ),
+          65536 ) );
+      } catch ( IOException e ) {
+        throw new KettleFileException( e );
+      }
+      if ( compact ) {
+        compactWriter = new CompactRowWriter( rowMeta, outputStream );
+      }
+    }
+    if ( compactWriter != null ) {
+      compactWriter.writeRow( row );
+    } else {
+      rowMeta.writeData( outputStream, row );
+    }
+    rows++;
+  }
+
+  void closeOutput() throws KettleFileException {
+    if ( outputStream == null ) {
+      return;
+    }
+    try {
+      if ( compactWriter != null ) {
+        compactWriter.finish();
+        compactWriter = null;
+      }
+      outputStream.close();
+      outputStream = null;
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+  }
+
+  /**
+   * @return the next row of the partition or null if all rows were read
+   */
+  Object[] readRow() throws KettleFileException {
+    if ( rowsRead >= rows ) {
+      return null;
+    }
+    if ( inputStream == null ) {
+      try {
+        inputStream = new DataInputStream( new BufferedInputStream( KettleVFS.getInputStream( file ), 65536 ) );
+      } catch ( IOException e ) {
+        throw new KettleFileException( e );
+      }
+      if ( compact ) {
+        compactReader = new CompactRowReader( rowMeta, inputStream );
+      }
+    }
+    rowsRead++;
+    if ( compactReader != null ) {
+      return compactReader.readRow();
+    }
+    try {
+      return rowMeta.readData( inputStream );
+    } catch ( SocketTimeoutException e ) {
+      throw new KettleFileException( e ); // Shouldn't happen on files
+    }
+  }
+
+  /**
+   * Closes the file and deletes it, ignoring errors.
+   */
+  void delete() {
+    BaseStep.closeQuietly( outputStream );
+    BaseStep.closeQuietly( inputStream );
+    outputStream = null;
+    inputStream = null;
+    try {
+      file.delete();
+    } catch ( IOException e ) {
+      // It's a temp file
+    }
+  }
+
+  FileObject getFile() {
+    return file;
+  }
+
+  int getLevel() {
+    return level;
+  }
+
+  long getRows() {
+    return rows;
+  }
+}
@@ -14,15 +14,20 @@
 package org.pentaho.di.trans.steps.mergejoin;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -134,6 +139,16 @@ public class MergeJoin extends BaseStep implements StepInterface {
         }
       }
 
+      // Compare normalized keys when the key fields allow it
+      //
+      if ( data.keyNrs1 != null && data.keyNrs2 != null ) {
+        data.keyEncoder = SortKeyEncoder.create( data.oneMeta, data.keyNrs1, data.twoMeta, data.keyNrs2 );
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, data.keyEncoder != null
+            ? "MergeJoin.Log.ComparingNormalizedKeys" : "MergeJoin.Log.ComparingKeyFields" ) );
+        }
+      }
+
       // Calculate one_dummy... defaults to null
       data.one_dummy = RowDataUtil.allocateRowData( data.oneMeta.size() + data.twoMeta.size() );
 
@@ -173,7 +188,7 @@ public class MergeJoin extends BaseStep implements StepInterface {
       if ( data.two == null ) {
         compare = 1;
       } else {
-        int cmp = data.oneMeta.compare( data.one, data.twoMeta, data.two, data.keyNrs1, data.keyNrs2 );
+        int cmp = compareKeys( data.one, data.two );
         compare = cmp > 0 ? 1 : cmp < 0 ? -1 : 0;
       }
     }
@@ -189,69 +204,12 @@ public class MergeJoin extends BaseStep implements StepInterface {
         data.one_next = getRowFrom( data.oneRowSet );
         data.two_next = getRowFrom( data.twoRowSet );
 
-        int compare1 =
-          ( data.one_next == null ) ? -1 : data.oneMeta.compare(
-            data.one, data.one_next, data.keyNrs1, data.keyNrs1 );
-        int compare2 =
-          ( data.two_next == null ) ? -1 : data.twoMeta.compare(
-            data.two, data.two_next, data.keyNrs2, data.keyNrs2 );
+        int compare1 = ( data.one_next == null ) ? -1 : compareOnes( data.one, data.one_next );
+        int compare2 = ( data.two_next == null ) ? -1 : compareTwos( data.two, data.two_next );
         if ( compare1 == 0 || compare2 == 0 ) { // Duplicate keys
-
-          if ( data.ones == null ) {
-            data.ones = new ArrayList<Object[]>();
-          } else {
-            data.ones.clear();
-          }
-          if ( data.twos == null ) {
-            data.twos = new ArrayList<Object[]>();
-          } else {
-            data.twos.clear();
-          }
-          data.ones.add( data.one );
-          if ( compare1 == 0 ) {
-            // First stream has duplicates
-
-            data.ones.add( data.one_next );
-            for ( ; !isStopped(); ) {
-              data.one_next = getRowFrom( data.oneRowSet );
-              if ( 0 != ( ( data.one_next == null ) ? -1 : data.oneMeta.compare(
-                data.one, data.one_next, data.keyNrs1, data.keyNrs1 ) ) ) {
-                break;
-              }
-              data.ones.add( data.one_next );
-            }
-            if ( isStopped() ) {
-              return false;
-            }
-          }
-          data.twos.add( data.two );
-          if ( compare2 == 0 ) { // Second stream has duplicates
-
-            data.twos.add( data.two_next );
-            for ( ; !isStopped(); ) {
-              data.two_next = getRowFrom( data.twoRowSet );
-              if ( 0 != ( ( data.two_next == null ) ? -1 : data.twoMeta.compare(
-                data.two, data.two_next, data.keyNrs2, data.keyNrs2 ) ) ) {
-                break;
-              }
-              data.twos.add( data.two_next );
-            }
-            if ( isStopped() ) {
-              return false;
-            }
-          }
-          for ( Iterator<Object[]> oneIter = data.ones.iterator(); oneIter.hasNext() && !isStopped(); ) {
-            Object[] one = oneIter.next();
-            for ( Iterator<Object[]> twoIter = data.twos.iterator(); twoIter.hasNext() && !isStopped(); ) {
-              Object[] two = twoIter.next();
-              Object[] oneBig = RowDataUtil.createResizedCopy( one, data.oneMeta.size() + data.twoMeta.size() );
-              Object[] combi = RowDataUtil.addRowData( oneBig, data.oneMeta.size(), two );
-              putRow( data.outputRowMeta, combi );
-            }
-            // Remove the rows as we merge them to keep the overall memory footprint minimal
-            oneIter.remove();
+          if ( !joinGroup( compare2 == 0 ) ) {
+            return false;
           }
-          data.twos.clear();
         } else {
           // No duplicates
 
@@ -385,6 +343,128 @@ public class MergeJoin extends BaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * Joins the rows with the same key as data.one and data.two. The rows of the second stream are gathered first, the
+   * rows of the first stream are then joined as they are read. When the second stream group is larger than the maximum
+   * number of rows kept in memory, it is spilled to disk and joined with blocks of first stream rows instead. On return
+   * data.one_next and data.two_next hold the first rows of the next key on both streams.
+   *
+   * @param twoHasDuplicates
+   *          true if data.two_next has the same key as data.two
+   * @return false if the step was stopped
+   */
+  private boolean joinGroup( boolean twoHasDuplicates ) throws KettleException {
+    RowGroup twoGroup = data.twoGroup;
+    try {
+      twoGroup.add( data.two );
+      if ( twoHasDuplicates ) {
+        do {
+          if ( twoGroup.isFull() ) {
+            spillGroup( twoGroup );
+          }
+          twoGroup.add( data.two_next );
+          data.two_next = getRowFrom( data.twoRowSet );
+        } while ( data.two_next != null && compareTwos( data.two, data.two_next ) == 0 && !isStopped() );
+      }
+      if ( isStopped() ) {
+        return false;
+      }
+
+      if ( !twoGroup.isSpilled() ) {
+        List<Object[]> twos = twoGroup.getRows();
+        Object[] one = data.one;
+        while ( one != null && !isStopped() ) {
+          for ( Object[] two : twos ) {
+            putJoinedRow( one, two );
+          }
+          if ( data.one_next != null && compareOnes( data.one, data.one_next ) == 0 ) {
+            one = data.one_next;
+            data.one_next = getRowFrom( data.oneRowSet );
+          } else {
+            one = null;
+          }
+        }
+      } else {
+        // Block nested loop: read the spilled group once for every block of first stream rows
+        //
+        if ( data.ones == null ) {
+          data.ones = new ArrayList<Object[]>();
+        }
+        data.ones.add( data.one );
+        while ( !data.ones.isEmpty() && !isStopped() ) {
+          while ( data.ones.size() < data.maxGroupRows && data.one_next != null
+            && compareOnes( data.one, data.one_next ) == 0 ) {
+            data.ones.add( data.one_next );
+            data.one_next = getRowFrom( data.oneRowSet );
+          }
+          twoGroup.rewind();
+          for ( Object[] two = twoGroup.readRow(); two != null && !isStopped(); two = twoGroup.readRow() ) {
+            for ( Object[] one : data.ones ) {
+              putJoinedRow( one, two );
+            }
+          }
+          data.ones.clear();
+          if ( data.one_next != null && compareOnes( data.one, data.one_next ) == 0 ) {
+            data.ones.add( data.one_next );
+            data.one_next = getRowFrom( data.oneRowSet );
+          }
+        }
+        data.ones.clear();
+      }
+    } catch ( KettleFileException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "MergeJoin.Exception.ErrorUsingTemporaryFile" ), e );
+    } finally {
+      twoGroup.clear();
+    }
+    return !isStopped();
+  }
+
+  private void spillGroup( RowGroup twoGroup ) throws KettleFileException {
+    FileObject file;
+    try {
+      file = KettleVFS.createTempFile( "mjoin", ".tmp", environmentSubstitute( "%%java.io.tmpdir%%" ),
+        getTransMeta() );
+    } catch ( KettleFileException e ) {
+      throw new KettleFileException( BaseMessages.getString( PKG, "MergeJoin.Exception.UnableToCreateTemporaryFile" ),
+        e );
+    }
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "MergeJoin.Log.SpillingGroup", String.valueOf( twoGroup
+        .getNrRows() ), file.getName().getURI() ) );
+    }
+    twoGroup.spill( file, data.twoMeta );
+  }
+
+  private void putJoinedRow( Object[] one, Object[] two ) throws KettleStepException {
+    Object[] oneBig = RowDataUtil.createResizedCopy( one, data.oneMeta.size() + data.twoMeta.size() );
+    Object[] combi = RowDataUtil.addRowData( oneBig, data.oneMeta.size(), two );
+    putRow( data.outputRowMeta, combi );
+  }
+
+  /**
+   * Compares the keys of a row of the first stream with the keys of a row of the second stream.
+   */
+  private int compareKeys( Object[] one, Object[] two ) throws KettleValueException {
+    if ( data.keyEncoder != null ) {
+      return Arrays.compareUnsigned( data.keyEncoder.getKey1( one ), data.keyEncoder.getKey2( two ) );
+    }
+    return data.oneMeta.compare( one, data.twoMeta, two, data.keyNrs1, data.keyNrs2 );
+  }
+
+  private int compareOnes( Object[] one, Object[] oneNext ) throws KettleValueException {
+    if ( data.keyEncoder != null ) {
+      return Arrays.compareUnsigned( data.keyEncoder.getKey1( one ), data.keyEncoder.getKey1( oneNext ) );
+    }
+    return data.oneMeta.compare( one, oneNext, data.keyNrs1, data.keyNrs1 );
+  }
+
+  private int compareTwos( Object[] two, Object[] twoNext ) throws KettleValueException {
+    if ( data.keyEncoder != null ) {
+      return Arrays.compareUnsigned( data.keyEncoder.getKey2( two ), data.keyEncoder.getKey2( twoNext ) );
+    }
+    return data.twoMeta.compare( two, twoNext, data.keyNrs2, data.keyNrs2 );
+  }
+
   /**
    * @see StepInterface#init(org.pentaho.di.trans.step.StepMetaInterface , org.pentaho.di.trans.step.StepDataInterface)
    */
@@ -393,6 +473,11 @@ public class MergeJoin extends BaseStep implements StepInterface {
     data = (MergeJoinData) sdi;
 
     if ( super.init( smi, sdi ) ) {
+      data.maxGroupRows = Math.max( 1, Const.toInt( getVariable( Const.KETTLE_MERGE_JOIN_GROUP_ROWS_IN_MEMORY,
+        "100000" ), 100000 ) );
+      boolean compactRows = "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COMPACT_ROW_FORMAT, "N" ) );
+      data.twoGroup = new RowGroup( data.maxGroupRows, compactRows );
+
       List<StreamInterface> infoStreams = meta.getStepIOMeta().getInfoStreams();
       if ( infoStreams.get( 0 ).getStepMeta() == null || infoStreams.get( 1 ).getStepMeta() == null ) {
         logError( BaseMessages.getString( PKG, "MergeJoin.Log.BothTrueAndFalseNeeded" ) );
@@ -412,6 +497,15 @@ public class MergeJoin extends BaseStep implements StepInterface {
     return true;
   }
 
+  @Override
+  public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    data = (MergeJoinData) sdi;
+    if ( data.twoGroup != null ) {
+      data.twoGroup.clear();
+    }
+    super.dispose( smi, sdi );
+  }
+
   /**
    * Checks whether incoming rows are join compatible. This essentially means that the keys being compared should be of
    * the same datatype and both rows should have the same number of keys specified
@@ -31,7 +31,10 @@ public class MergeJoinData extends BaseStepData implements StepDataInterface {
   public RowMetaInterface oneMeta, twoMeta;
   public RowMetaInterface outputRowMeta; // just for speed: oneMeta+twoMeta
   public Object[] one_dummy, two_dummy;
-  public List<Object[]> ones, twos;
+  public List<Object[]> ones;
+  public RowGroup twoGroup;
+  public SortKeyEncoder keyEncoder;
+  public int maxGroupRows;
   public Object[] one_next, two_next;
   public boolean one_optional, two_optional;
   public int[] keyNrs1;
@@ -46,7 +49,8 @@ public class MergeJoinData extends BaseStepData implements StepDataInterface {
   public MergeJoinData() {
     super();
     ones = null;
-    twos = null;
+    twoGroup = null;
+    keyEncoder = null;
     one_next = null;
     two_next = null;
     one_dummy = null;
@@ -0,0 +1,256 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.mergejoin;
+
+import java.util.Arrays;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+/**
+ * Encodes the key fields of the rows of both streams to normalized bytes that compare with
+ * {@link Arrays#compareUnsigned(byte[], byte[])} the way {@link RowMetaInterface#compare(Object[], RowMetaInterface,
+ * Object[], int[], int[])} compares the keys: nulls first, integers and dates with a flipped sign bit, strings as
+ * terminated runs of characters, descending fields inverted, and so on. A key is encoded once per row instead of
+ * converting and comparing the boxed values field by field on every comparison.
+ * <p>
+ * Only keys of the same plain data types in both streams, with the same sort settings and without a collator are
+ * encoded, see {@link #create(RowMetaInterface, int[], RowMetaInterface, int[])}.
+ *
+ * @since 10.3
+ */
+final class SortKeyEncoder {
+
+  private final ValueMetaInterface[] valueMetas1;
+  private final ValueMetaInterface[] valueMetas2;
+  private final int[] keyNrs1;
+  private final int[] keyNrs2;
+
+  private byte[] buffer = new byte[64];
+  private int length;
+
+  /** The keys of the last two rows of every stream, the rows are compared by identity */
+  private final KeyCache cache1 = new KeyCache();
+  private final KeyCache cache2 = new KeyCache();
+
+  private SortKeyEncoder( RowMetaInterface rowMeta1, int[] keyNrs1, RowMetaInterface rowMeta2, int[] keyNrs2 ) {
+    this.keyNrs1 = keyNrs1;
+    this.keyNrs2 = keyNrs2;
+    this.valueMetas1 = new ValueMetaInterface[keyNrs1.length];
+    this.valueMetas2 = new ValueMetaInterface[keyNrs2.length];
+    for ( int i = 0; i < keyNrs1.length; i++ ) {
+      valueMetas1[i] = rowMeta1.getValueMeta( keyNrs1[i] );
+      valueMetas2[i] = rowMeta2.getValueMeta( keyNrs2[i] );
+    }
+  }
+
+  /**
+   * @return an encoder for the keys of both streams or null if the keys can't be normalized
+   */
+  static SortKeyEncoder create( RowMetaInterface rowMeta1, int[] keyNrs1, RowMetaInterface rowMeta2,
+                                int[] keyNrs2 ) {
+    if ( keyNrs1.length != keyNrs2.length ) {
+      return null;
+    }
+    for ( int i = 0; i < keyNrs1.length; i++ ) {
+      if ( !isSupported( rowMeta1.getValueMeta( keyNrs1[i] ), rowMeta2.getValueMeta( keyNrs2[i] ) ) ) {
+        return null;
+      }
+    }
+    return new SortKeyEncoder( rowMeta1, keyNrs1, rowMeta2, keyNrs2 );
+  }
+
+  /**
+   * Only the standard value metas of the plain types are supported: other ones can compare differently. Both fields
+   * need the same settings since the rows of each stream are compared with those of their own stream as well.
+   */
+  private static boolean isSupported( ValueMetaInterface valueMeta1, ValueMetaInterface valueMeta2 ) {
+    Class<?> clazz = valueMeta1.getClass();
+    if ( clazz != valueMeta2.getClass() || valueMeta1.isSortedDescending() != valueMeta2.isSortedDescending() ) {
+      return false;
+    }
+    if ( clazz == ValueMetaString.class ) {
+      return valueMeta1.isCollatorDisabled() && valueMeta2.isCollatorDisabled()
+        && valueMeta1.isCaseInsensitive() == valueMeta2.isCaseInsensitive()
+        && valueMeta1.isIgnoreWhitespace() == valueMeta2.isIgnoreWhitespace();
+    }
+    return clazz == ValueMetaInteger.class || clazz == ValueMetaNumber.class || clazz == ValueMetaDate.class
+      || clazz == ValueMetaBoolean.class || clazz == ValueMetaBinary.class;
+  }
+
+  /**
+   * @return the normalized key of a row of the first stream
+   */
+  byte[] getKey1( Object[] row ) throws KettleValueException {
+    byte[] key = cache1.get( row );
+    if ( key == null ) {
+      key = encode( valueMetas1, keyNrs1, row );
+      cache1.put( row, key );
+    }
+    return key;
+  }
+
+  /**
+   * @return the normalized key of a row of the second stream
+   */
+  byte[] getKey2( Object[] row ) throws KettleValueException {
+    byte[] key = cache2.get( row );
+    if ( key == null ) {
+      key = encode( valueMetas2, keyNrs2, row );
+      cache2.put( row, key );
+    }
+    return key;
+  }
+
+  byte[] encode( ValueMetaInterface[] valueMetas, int[] keyNrs, Object[] row ) throws KettleValueException {
+    length = 0;
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      ValueMetaInterface valueMeta = valueMetas[i];
+      Object value = row[keyNrs[i]];
+      int start = length;
+      if ( valueMeta.isNull( value ) ) {
+        writeByte( 0 );
+      } else {
+        writeByte( 1 );
+        switch ( valueMeta.getType() ) {
+          case ValueMetaInterface.TYPE_INTEGER:
+            writeLong( valueMeta.getInteger( value ) ^ Long.MIN_VALUE );
+            break;
+          case ValueMetaInterface.TYPE_NUMBER:
+            long bits = Double.doubleToLongBits( valueMeta.getNumber( value ) );
+            writeLong( bits ^ ( ( bits >> 63 ) | Long.MIN_VALUE ) );
+            break;
+          case ValueMetaInterface.TYPE_DATE:
+            writeLong( valueMeta.getDate( value ).getTime() ^ Long.MIN_VALUE );
+            break;
+          case ValueMetaInterface.TYPE_BOOLEAN:
+            writeByte( valueMeta.getBoolean( value ) ? 1 : 0 );
+            break;
+          case ValueMetaInterface.TYPE_BINARY:
+            writeBinary( valueMeta.getBinary( value ) );
+            break;
+          default:
+            writeString( valueMeta, valueMeta.getString( value ) );
+            break;
+        }
+      }
+      if ( valueMeta.isSortedDescending() ) {
+        // Every field encoding is prefix free, so inverting it reverses the order
+        for ( int j = start; j < length; j++ ) {
+          buffer[j] = (byte) ~buffer[j];
+        }
+      }
+    }
+    return Arrays.copyOf( buffer, length );
+  }
+
+  /**
+   * Binary values are ordered by length first, then by their signed bytes.
+   */
+  private void writeBinary( byte[] bytes ) {
+    ensureBuffer( 4 + bytes.length );
+    for ( int shift = 24; shift >= 0; shift -= 8 ) {
+      buffer[length++] = (byte) ( bytes.length >>> shift );
+    }
+    for ( byte b : bytes ) {
+      buffer[length++] = (byte) ( b ^ 0x80 );
+    }
+  }
+
+  /**
+   * Writes the characters in the order of {@link String#compareTo(String)} followed by a 0 byte. Characters below 0x7F
+   * take one byte from 0x01, the next 0x4000 characters take two bytes from 0x80 and the others three bytes from 0xC0.
+   */
+  private void writeString( ValueMetaInterface valueMeta, String string ) {
+    if ( valueMeta.isIgnoreWhitespace() ) {
+      string = string.trim();
+    }
+    boolean caseInsensitive = valueMeta.isCaseInsensitive();
+    int nrChars = string.length();
+    ensureBuffer( nrChars * 3 + 1 );
+    byte[] b = buffer;
+    int pos = length;
+    for ( int i = 0; i < nrChars; i++ ) {
+      int c = string.charAt( i );
+      if ( caseInsensitive ) {
+        c = Character.toLowerCase( Character.toUpperCase( (char) c ) );
+      }
+      if ( c < 0x7F ) {
+        b[pos++] = (byte) ( c + 1 );
+      } else if ( c < 0x7F + 0x4000 ) {
+        c -= 0x7F;
+        b[pos++] = (byte) ( 0x80 | ( c >> 8 ) );
+        b[pos++] = (byte) c;
+      } else {
+        c -= 0x7F + 0x4000;
+        b[pos++] = (byte) 0xC0;
+        b[pos++] = (byte) ( c >> 8 );
+        b[pos++] = (byte) c;
+      }
+    }
+    b[pos++] = 0;
+    length = pos;
+  }
+
+  private void writeLong( long value ) {
+    ensureBuffer( 8 );
+    for ( int shift = 56; shift >= 0; shift -= 8 ) {
+      buffer[length++] = (byte) ( value >>> shift );
+    }
+  }
+
+  private void writeByte( int value ) {
+    ensureBuffer( 1 );
+    buffer[length++] = (byte) value;
+  }
+
+  private void ensureBuffer( int extra ) {
+    if ( length + extra > buffer.length ) {
+      buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, length + extra ) );
+    }
+  }
+
+  /**
+   * Remembers the keys of the two rows of a stream used last: the current row and the next one.
+   */
+  private static final class KeyCache {
+    private final Object[][] rows = new Object[2][];
+    private final byte[][] keys = new byte[2][];
+    /** The entry to replace next, the one used least recently */
+    private int evict;
+
+    byte[] get( Object[] row ) {
+      for ( int i = 0; i < 2; i++ ) {
+        if ( rows[i] == row ) {
+          evict = 1 - i;
+          return keys[i];
+        }
+      }
+      return null;
+    }
+
+    void put( Object[] row, byte[] key ) {
+      rows[evict] = row;
+      keys[evict] = key;
+      evict = 1 - evict;
+    }
+  }
+}
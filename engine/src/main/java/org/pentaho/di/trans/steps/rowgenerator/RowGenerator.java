@@ -33,6 +33,7 @@ import org.pentaho.di.core.row.value.ValueMetaDate;
 import org.pentaho.di.core.row.value.ValueMetaFactory;
 import org.pentaho.di.core.util.StringUtil;
 import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.ForkJoinStepScheduler;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStep;
@@ -192,7 +193,7 @@ public class RowGenerator extends BaseStep implements StepInterface {
     } else {
       if ( meta.isNeverEnding() && data.delay > 0 ) {
         try {
-          Thread.sleep( data.delay );
+          ForkJoinStepScheduler.sleep( data.delay );
         } catch ( InterruptedException e ) {
           throw new KettleException( e );
         }
@@ -331,23 +331,14 @@ public class SelectValues extends BaseStep implements StepInterface {
     meta = (SelectValuesMeta) smi;
     data = (SelectValuesData) sdi;
 
-    Object[] rowData = getRow(); // get row from rowset, wait for our turn, indicate busy!
-    if ( rowData == null ) { // no more input to be expected...
+    // get a batch of rows from rowset, wait for our turn, indicate busy!
+    List<Object[]> rows = getRows( ROW_BATCH_SIZE );
+    if ( rows == null ) { // no more input to be expected...
 
       setOutputDone();
       return false;
     }
 
-    Object[] rowCopy = null;
-    if ( getStepMeta().isDoingErrorHandling() ) {
-      rowCopy = getInputRowMeta().cloneRow( rowData );
-    }
-
-    if ( log.isRowLevel() ) {
-      logRowlevel( BaseMessages.getString( PKG, "SelectValues.Log.GotRowFromPreviousStep" )
-        + getInputRowMeta().getString( rowData ) );
-    }
-
     if ( first ) {
       first = false;
 
@@ -359,6 +350,45 @@ public class SelectValues extends BaseStep implements StepInterface {
       meta.getMetadataFields( data.metadataRowMeta, getStepname(), this );
     }
 
+    long previousLinesRead = getLinesRead() - rows.size();
+    List<Object[]> outputRows = new ArrayList<>( rows.size() );
+    for ( Object[] rowData : rows ) {
+      if ( !processRow( rowData, outputRows ) ) {
+        putRows( data.metadataRowMeta, outputRows );
+        setOutputDone(); // signal end to receiver(s)
+        return false;
+      }
+    }
+
+    // Send the rows on their way
+    //
+    putRows( data.metadataRowMeta, outputRows );
+
+    if ( checkFeedback( previousLinesRead, getLinesRead() ) ) {
+      logBasic( BaseMessages.getString( PKG, "SelectValues.Log.LineNumber" ) + getLinesRead() );
+    }
+
+    return true;
+  }
+
+  /**
+   * Selects, removes and changes the values of one row.
+   *
+   * @param rowData    the input row
+   * @param outputRows the output rows to add the result to
+   * @return false if no output row could be produced and the step should stop
+   */
+  private boolean processRow( Object[] rowData, List<Object[]> outputRows ) throws KettleException {
+    Object[] rowCopy = null;
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      rowCopy = getInputRowMeta().cloneRow( rowData );
+    }
+
+    if ( log.isRowLevel() ) {
+      logRowlevel( BaseMessages.getString( PKG, "SelectValues.Log.GotRowFromPreviousStep" )
+        + getInputRowMeta().getString( rowData ) );
+    }
+
     try {
       Object[] outputData = rowData;
 
@@ -373,13 +403,10 @@ public class SelectValues extends BaseStep implements StepInterface {
       }
 
       if ( outputData == null ) {
-        setOutputDone(); // signal end to receiver(s)
         return false;
       }
 
-      // Send the row on its way
-      //
-      putRow( data.metadataRowMeta, outputData );
+      outputRows.add( outputData );
       if ( log.isRowLevel() ) {
         logRowlevel( BaseMessages.getString( PKG, "SelectValues.Log.WroteRowToNextStep" )
           + data.metadataRowMeta.getString( outputData ) );
@@ -399,11 +426,6 @@ public class SelectValues extends BaseStep implements StepInterface {
         throw e;
       }
     }
-
-    if ( checkFeedback( getLinesRead() ) ) {
-      logBasic( BaseMessages.getString( PKG, "SelectValues.Log.LineNumber" ) + getLinesRead() );
-    }
-
     return true;
   }
 
@@ -25,6 +25,7 @@ import java.util.zip.GZIPOutputStream;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleEOFException;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.CompactRowReader;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -128,9 +129,16 @@ public class SocketReader extends BaseStep implements StepInterface {
         }
 
         data.rowMeta = new RowMeta( data.inputStream ); // This is the metadata
+        if ( "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COMPACT_ROW_FORMAT, "N" ) ) ) {
+          data.compactReader = new CompactRowReader( data.rowMeta, data.inputStream );
+        }
         first = false;
       }
-      r = data.rowMeta.readData( data.inputStream );
+      if ( data.compactReader != null ) {
+        r = data.compactReader.readRow();
+      } else {
+        r = data.rowMeta.readData( data.inputStream );
+      }
 
       incrementLinesInput();
 
@@ -20,6 +20,7 @@ import java.util.zip.GZIPOutputStream;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.CompactRowWriter;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -96,6 +97,9 @@ public class SocketWriter extends BaseStep implements StepInterface {
 
     if ( r == null ) { // no more input to be expected...
 
+      if ( data.compactWriter != null ) {
+        data.compactWriter.finish();
+      }
       setOutputDone();
       return false;
     }
@@ -103,14 +107,25 @@ public class SocketWriter extends BaseStep implements StepInterface {
     try {
       if ( first ) {
         getInputRowMeta().writeMeta( data.outputStream );
+        if ( "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COMPACT_ROW_FORMAT, "N" ) ) ) {
+          data.compactWriter = new CompactRowWriter( getInputRowMeta(), data.outputStream );
+        }
         first = false;
       }
-      getInputRowMeta().writeData( data.outputStream, r );
+      if ( data.compactWriter != null ) {
+        data.compactWriter.writeRow( r );
+      } else {
+        getInputRowMeta().writeData( data.outputStream, r );
+      }
       incrementLinesOutput();
 
       // flush every X rows
       if ( getLinesOutput() > 0 && data.flushInterval > 0 && ( getLinesOutput() % data.flushInterval ) == 0 ) {
-        data.outputStream.flush();
+        if ( data.compactWriter != null ) {
+          data.compactWriter.flush();
+        } else {
+          data.outputStream.flush();
+        }
       }
 
     } catch ( Exception e ) {
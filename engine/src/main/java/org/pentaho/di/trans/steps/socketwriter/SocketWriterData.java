@@ -17,6 +17,7 @@ import java.io.DataOutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 
+import org.pentaho.di.core.row.CompactRowWriter;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -27,6 +28,7 @@ import org.pentaho.di.trans.step.StepDataInterface;
  */
 public class SocketWriterData extends BaseStepData implements StepDataInterface {
   public DataOutputStream outputStream;
+  public CompactRowWriter compactWriter;
   public Socket clientSocket;
   public int flushInterval;
   public ServerSocket serverSocket;
@@ -22,20 +22,27 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.compress.CompressionInputStream;
+import org.pentaho.di.core.compress.CompressionOutputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.CompactRowReader;
+import org.pentaho.di.core.row.CompactRowWriter;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -55,6 +62,8 @@ import org.pentaho.di.trans.step.StepMetaInterface;
 public class SortRows extends BaseStep implements StepInterface {
   private static Class<?> PKG = SortRows.class; // for i18n
 
+  private static final int DEFAULT_MAX_OPEN_FILES = 256;
+
   private SortRowsMeta meta;
   private SortRowsData data;
 
@@ -123,24 +132,11 @@ public class SortRows extends BaseStep implements StepInterface {
     quickSort( data.buffer );
 
     // Then write them to disk...
-    DataOutputStream dos;
-    GZIPOutputStream gzos;
     int p;
 
     try {
-      FileObject fileObject =
-          KettleVFS.createTempFile( meta.getPrefix(), ".tmp", environmentSubstitute( meta.getDirectory() ),
-              getTransMeta() );
-
-      data.files.add( fileObject ); // Remember the files!
-      OutputStream outputStream = KettleVFS.getOutputStream( fileObject, false );
-      if ( data.compressFiles ) {
-        gzos = new GZIPOutputStream( new BufferedOutputStream( outputStream ) );
-        dos = new DataOutputStream( gzos );
-      } else {
-        dos = new DataOutputStream( new BufferedOutputStream( outputStream, 500000 ) );
-        gzos = null;
-      }
+      TempFileWriter writer = new TempFileWriter();
+      data.files.add( writer.fileObject ); // Remember the files!
 
       // Just write the data, nothing else
       List<Integer> duplicates = new ArrayList<Integer>();
@@ -177,7 +173,7 @@ public class SortRows extends BaseStep implements StepInterface {
           }
         }
         if ( !skip ) {
-          data.outputRowMeta.writeData( dos, data.buffer.get( p ) );
+          writer.writeRow( data.buffer.get( p ) );
         }
       }
 
@@ -198,11 +194,7 @@ public class SortRows extends BaseStep implements StepInterface {
       data.buffer.clear();
 
       // Close temp-file
-      dos.close(); // close data stream
-      if ( gzos != null ) {
-        gzos.close(); // close gzip stream
-      }
-      outputStream.close(); // close file stream
+      writer.close();
 
       // How much memory do we have left?
       //
@@ -221,146 +213,218 @@ public class SortRows extends BaseStep implements StepInterface {
     data.getBufferIndex = 0;
   }
 
-  private DataInputStream getDataInputStream( GZIPInputStream gzipInputStream ) {
-    DataInputStream result = new DataInputStream( gzipInputStream );
-    data.gzis.add( gzipInputStream );
-    return result;
-  }
-
   // get sorted rows from available files in iterative manner.
   // that means call to this method will continue to return rows
   // till all temp files will not be read to the end.
-  Object[] getBuffer() throws KettleValueException {
-    Object[] retval;
+  Object[] getBuffer() throws KettleException {
+    if ( data.files.size() == 0 ) {
+      // read from in-memory processing
 
-    // Open all files at once and read one row from each file...
-    if ( data.files.size() > 0 && ( data.dis.size() == 0 || data.fis.size() == 0 ) ) {
-      if ( log.isBasic() ) {
-        logBasic( BaseMessages.getString( PKG, "SortRows.Basic.OpeningTempFiles", data.files.size() ) );
+      if ( data.getBufferIndex < data.buffer.size() ) {
+        Object[] retval = data.buffer.get( data.getBufferIndex );
+        data.getBufferIndex++;
+        return retval;
       }
+      return null;
+    }
 
-      try {
-        for ( int f = 0; f < data.files.size() && !isStopped(); f++ ) {
-          FileObject fileObject = data.files.get( f );
-          String filename = KettleVFS.getFilename( fileObject );
-          if ( log.isDetailed() ) {
-            logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.OpeningTempFile", filename ) );
-          }
-          InputStream fi = KettleVFS.getInputStream( fileObject );
-          DataInputStream di;
-          data.fis.add( fi );
-          if ( data.compressFiles ) {
-            di = getDataInputStream( new GZIPInputStream( new BufferedInputStream( fi ) ) );
-          } else {
-            di = new DataInputStream( new BufferedInputStream( fi, 50000 ) );
-          }
-          data.dis.add( di );
-
-          // How long is the buffer?
-          int buffersize = data.bufferSizes.get( f );
-
-          if ( log.isDetailed() ) {
-            logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.FromFileExpectingRows",
-                filename, buffersize ) );
-          }
+    // read from disk processing
+    //
+    if ( data.merger == null ) {
+      openMerger();
+    }
+    return data.merger.next();
+  }
 
-          if ( buffersize > 0 ) {
-            Object[] row = data.outputRowMeta.readData( di );
-            data.rowbuffer.add( row ); // new row from input stream
-            data.tempRows.add( new RowTempFile( row, f ) );
+  /**
+   * Opens all the temp files for the final merge. When there are more files than may be open at once, runs of them
+   * are merged into bigger temp files first.
+   */
+  private void openMerger() throws KettleException {
+    data.readAhead = Executors.newFixedThreadPool( Math.max( 1, Math.min( data.maxOpenFiles, Runtime.getRuntime()
+        .availableProcessors() ) ), new ThreadFactory() {
+          @Override
+          public Thread newThread( Runnable r ) {
+            Thread thread = new Thread( r, getStepname() + " read ahead" );
+            thread.setDaemon( true );
+            return thread;
           }
-        }
+        } );
 
-        // Sort the data row buffer
-        Collections.sort( data.tempRows, data.comparator );
-      } catch ( Exception e ) {
-        logError( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
+    int start = 0;
+    while ( data.files.size() > data.maxOpenFiles && !isStopped() ) {
+      if ( start >= data.files.size() - 1 ) {
+        start = 0; // next pass
       }
+      // Merge just enough files to end up with the maximum number of open files
+      //
+      int count = Math.min( data.maxOpenFiles, data.files.size() - data.maxOpenFiles + 1 );
+      count = Math.min( count, data.files.size() - start );
+      mergeTempFiles( start, count );
+      start++;
     }
 
-    if ( data.files.size() == 0 ) {
-      // read from in-memory processing
+    if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "SortRows.Basic.OpeningTempFiles", data.files.size() ) );
+    }
+    data.merger = new SortRowsMerger( openTempFiles( 0, data.files.size() ), data.rowComparator, data.readAhead );
+  }
 
-      if ( data.getBufferIndex < data.buffer.size() ) {
-        retval = data.buffer.get( data.getBufferIndex );
-        data.getBufferIndex++;
-      } else {
-        retval = null;
+  /**
+   * Replaces count temp files, starting at index start, with a single temp file holding all their rows in order.
+   */
+  private void mergeTempFiles( int start, int count ) throws KettleException {
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.MergingTempFiles", count, data.files.size(),
+          data.maxOpenFiles ) );
+    }
+    TempFileWriter writer = new TempFileWriter();
+    data.files.add( start, writer.fileObject ); // deleted with the others if anything goes wrong
+    data.bufferSizes.add( start, 0 );
+
+    int size = 0;
+    try ( SortRowsMerger merger = new SortRowsMerger( openTempFiles( start + 1, count ), data.rowComparator,
+        data.readAhead ) ) {
+      Object[] row;
+      while ( ( row = merger.next() ) != null ) {
+        writer.writeRow( row );
+        size++;
       }
-    } else {
-      // read from disk processing
-
-      if ( data.rowbuffer.size() == 0 ) {
-        retval = null;
-      } else {
-        // We now have "filenr" rows waiting: which one is the smallest?
-        //
-        if ( log.isRowLevel() ) {
-          for ( int i = 0; i < data.rowbuffer.size() && !isStopped(); i++ ) {
-            Object[] b = data.rowbuffer.get( i );
-            logRowlevel( BaseMessages
-                .getString( PKG, "SortRows.RowLevel.PrintRow", i, data.outputRowMeta.getString( b ) ) );
-          }
-        }
-
-        RowTempFile rowTempFile = data.tempRows.remove( 0 );
-        retval = rowTempFile.row;
-        int smallest = rowTempFile.fileNumber;
+      writer.close();
+    } catch ( Exception e ) {
+      BaseStep.closeQuietly( writer.outputStream );
+      throw new KettleException( "Error merging temp-files!", e );
+    }
+    data.bufferSizes.set( start, size );
 
-        // now get another Row for position smallest
+    for ( int f = 0; f < count; f++ ) {
+      FileObject fileObject = data.files.remove( start + 1 );
+      data.bufferSizes.remove( start + 1 );
+      try {
+        fileObject.delete();
+      } catch ( FileSystemException e ) {
+        logError( BaseMessages.getString( PKG, "SortRows.Error.UnableToCloseFile", start + f, fileObject.toString() ) );
+      }
+    }
+  }
 
-        FileObject file = data.files.get( smallest );
-        DataInputStream di = data.dis.get( smallest );
-        InputStream fi = data.fis.get( smallest );
+  private List<TempFileReader> openTempFiles( int start, int count ) throws KettleException {
+    List<TempFileReader> readers = new ArrayList<TempFileReader>( count );
+    try {
+      for ( int f = start; f < start + count; f++ ) {
+        FileObject fileObject = data.files.get( f );
+        int buffersize = data.bufferSizes.get( f );
+        if ( log.isDetailed() ) {
+          String filename = KettleVFS.getFilename( fileObject );
+          logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.OpeningTempFile", filename ) );
+          logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.FromFileExpectingRows", filename, buffersize ) );
+        }
+        readers.add( new TempFileReader( fileObject, buffersize ) );
+      }
+    } catch ( KettleException e ) {
+      for ( TempFileReader reader : readers ) {
+        BaseStep.closeQuietly( reader );
+      }
+      throw new KettleException( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
+    }
+    return readers;
+  }
 
-        try {
-          Object[] row2 = data.outputRowMeta.readData( di );
-          RowTempFile extra = new RowTempFile( row2, smallest );
+  /**
+   * Writes sorted rows to a new temp file, compressed and in the compact row format when enabled.
+   */
+  private class TempFileWriter {
+    private final FileObject fileObject;
+    private final OutputStream outputStream;
+    private final CompressionOutputStream cos;
+    private final DataOutputStream dos;
+    private final CompactRowWriter compactWriter;
+
+    TempFileWriter() throws KettleException {
+      try {
+        fileObject =
+            KettleVFS.createTempFile( meta.getPrefix(), ".tmp", environmentSubstitute( meta.getDirectory() ),
+                getTransMeta() );
+        outputStream = KettleVFS.getOutputStream( fileObject, false );
+        if ( data.compressFiles ) {
+          cos = data.compressionProvider.createOutputStream( new BufferedOutputStream( outputStream ) );
+          dos = new DataOutputStream( new BufferedOutputStream( cos ) );
+        } else {
+          dos = new DataOutputStream( new BufferedOutputStream( outputStream, 500000 ) );
+          cos = null;
+        }
+      } catch ( IOException e ) {
+        throw new KettleFileException( e );
+      }
+      compactWriter = data.compactRows ? new CompactRowWriter( data.outputRowMeta, dos ) : null;
+    }
 
-          int index = Collections.binarySearch( data.tempRows, extra, data.comparator );
-          if ( index < 0 ) {
-            data.tempRows.add( index * ( -1 ) - 1, extra );
-          } else {
-            data.tempRows.add( index, extra );
-          }
-        } catch ( KettleFileException fe ) { // empty file or EOF mostly
-          GZIPInputStream gzfi = ( data.compressFiles ) ? data.gzis.get( smallest ) : null;
-          try {
-            di.close();
-            fi.close();
-            if ( gzfi != null ) {
-              gzfi.close();
-            }
-            file.delete();
-          } catch ( IOException e ) {
-            logError( BaseMessages.getString( PKG, "SortRows.Error.UnableToCloseFile", smallest, file.toString() ) );
-            setErrors( 1 );
-            stopAll();
-            return null;
-          }
+    void writeRow( Object[] row ) throws KettleException {
+      if ( compactWriter != null ) {
+        compactWriter.writeRow( row );
+      } else {
+        data.outputRowMeta.writeData( dos, row );
+      }
+    }
 
-          data.files.remove( smallest );
-          data.dis.remove( smallest );
-          data.fis.remove( smallest );
+    void close() throws KettleException, IOException {
+      if ( compactWriter != null ) {
+        compactWriter.finish();
+      }
+      dos.close(); // close data stream
+      if ( cos != null ) {
+        cos.close(); // close compression stream
+      }
+      outputStream.close(); // close file stream
+    }
+  }
 
-          if ( gzfi != null ) {
-            data.gzis.remove( smallest );
-          }
+  /**
+   * Reads back the rows of a temp file.
+   */
+  private class TempFileReader implements SortRowsMerger.Run {
+    private final DataInputStream dis;
+    private final CompactRowReader compactReader;
+    private int remaining;
 
-          // Also update all file numbers in in data.tempRows if they are larger
-          // than smallest.
-          //
-          for ( RowTempFile rtf : data.tempRows ) {
-            if ( rtf.fileNumber > smallest ) {
-              rtf.fileNumber--;
-            }
-          }
-        } catch ( SocketTimeoutException e ) {
-          throw new KettleValueException( e ); // should never happen on local files
+    TempFileReader( FileObject fileObject, int rows ) throws KettleException {
+      InputStream fi = null;
+      try {
+        fi = KettleVFS.getInputStream( fileObject );
+        if ( data.compressFiles ) {
+          CompressionInputStream cis = data.compressionProvider.createInputStream( new BufferedInputStream( fi ) );
+          dis = new DataInputStream( new BufferedInputStream( cis ) );
+        } else {
+          dis = new DataInputStream( new BufferedInputStream( fi, 50000 ) );
         }
+      } catch ( IOException e ) {
+        BaseStep.closeQuietly( fi );
+        throw new KettleFileException( e );
       }
+      compactReader = data.compactRows ? new CompactRowReader( data.outputRowMeta, dis ) : null;
+      remaining = rows;
+    }
+
+    @Override
+    public Object[] readRow() throws KettleException {
+      if ( remaining <= 0 ) {
+        return null;
+      }
+      remaining--;
+      if ( compactReader != null ) {
+        return compactReader.readRow();
+      }
+      try {
+        return data.outputRowMeta.readData( dis );
+      } catch ( SocketTimeoutException e ) {
+        throw new KettleValueException( e ); // should never happen on local files
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      dis.close(); // closes the compression and file streams as well
     }
-    return retval;
   }
 
   @Override
@@ -409,7 +473,6 @@ public class SortRows extends BaseStep implements StepInterface {
       // Metadata
       data.outputRowMeta = inputRowMeta.clone();
       meta.getFields( data.outputRowMeta, getStepname(), null, null, this, repository, metaStore );
-      data.comparator = new RowTemapFileComparator( data.outputRowMeta, data.fieldnrs );
 
       for ( int i = 0; i < fieldNames.length; i++ ) {
         data.fieldnrs[i] = inputRowMeta.indexOfValue( fieldNames[i] );
@@ -561,19 +624,40 @@ public class SortRows extends BaseStep implements StepInterface {
     //
     data.buffer = new ArrayList<Object[]>( 5000 );
 
-    // Buffer for reading from disk
-    //
-    data.rowbuffer = new ArrayList<Object[]>( 5000 );
-
     data.compressFiles = getBooleanValueOfVariable( meta.getCompressFilesVariable(), meta.getCompressFiles() );
+    if ( data.compressFiles ) {
+      data.compressionProvider = getCompressionProvider();
+      if ( data.compressionProvider == null ) {
+        return false;
+      }
+    }
+    data.compactRows = "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COMPACT_ROW_FORMAT, "N" ) );
 
-    data.tempRows = new ArrayList<RowTempFile>();
+    data.maxOpenFiles = Math.max( 2, Const.toInt( getVariable( Const.KETTLE_SORT_MAX_OPEN_FILES ),
+        DEFAULT_MAX_OPEN_FILES ) );
 
     data.minSortSize = 5000;
 
     return true;
   }
 
+  /**
+   * @return the compression provider named on the step or else the one set with KETTLE_DEFAULT_COMPRESSION_PROVIDER,
+   *         null if it doesn't exist
+   */
+  private CompressionProvider getCompressionProvider() {
+    String name = environmentSubstitute( meta.getCompressionType() );
+    if ( Utils.isEmpty( name ) ) {
+      name = getVariable( Const.KETTLE_DEFAULT_COMPRESSION_PROVIDER, "GZip" );
+    }
+    CompressionProvider provider = CompressionProviderFactory.getInstance().createCompressionProviderInstance( name );
+    if ( provider == null || !provider.supportsInput() || !provider.supportsOutput() ) {
+      logError( BaseMessages.getString( PKG, "SortRows.Error.UnknownCompressionProvider", name ) );
+      return null;
+    }
+    return provider;
+  }
+
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     clearBuffers();
@@ -585,19 +669,15 @@ public class SortRows extends BaseStep implements StepInterface {
     // Clean out the sort buffer
     data.buffer.clear();
     data.getBufferIndex = 0;
-    data.rowbuffer.clear();
 
-    // close any open DataInputStream objects
-    if ( ( data.dis != null ) && ( data.dis.size() > 0 ) ) {
-      for ( DataInputStream dis : data.dis ) {
-        BaseStep.closeQuietly( dis );
-      }
+    // close the temp files that are still being merged
+    if ( data.merger != null ) {
+      BaseStep.closeQuietly( data.merger );
+      data.merger = null;
     }
-    // close any open InputStream objects
-    if ( ( data.fis != null ) && ( data.fis.size() > 0 ) ) {
-      for ( InputStream is : data.fis ) {
-        BaseStep.closeQuietly( is );
-      }
+    if ( data.readAhead != null ) {
+      data.readAhead.shutdownNow();
+      data.readAhead = null;
     }
     // remove temp files
     for ( int f = 0; f < data.files.size(); f++ ) {
@@ -610,14 +690,21 @@ public class SortRows extends BaseStep implements StepInterface {
         logError( e.getLocalizedMessage(), e );
       }
     }
+    data.files.clear();
+    data.bufferSizes.clear();
   }
 
   /**
-   * Sort the entire vector, if it is not empty.
+   * Sort the entire vector, if it is not empty. Large buffers are sorted in parallel on the common fork/join pool, the
+   * sort is stable either way.
    */
   void quickSort( List<Object[]> elements ) throws KettleException {
     if ( elements.size() > 0 ) {
-      Collections.sort( elements, data.rowComparator );
+      Object[][] rows = elements.toArray( new Object[ elements.size() ][] );
+      Arrays.parallelSort( rows, data.rowComparator );
+      for ( int i = 0; i < rows.length; i++ ) {
+        elements.set( i, rows[i] );
+      }
 
       long nrConversions = 0L;
       for ( ValueMetaInterface valueMeta : data.outputRowMeta.getValueMetaList() ) {
@@ -678,22 +765,6 @@ public class SortRows extends BaseStep implements StepInterface {
     }
   }
 
-  private class RowTemapFileComparator extends SortRowsComparator implements Comparator<RowTempFile> {
-    RowTemapFileComparator( RowMetaInterface rowMeta, int[] fieldNrs ) {
-      super( rowMeta, fieldNrs );
-    }
-
-    @Override
-    public int compare( RowTempFile o1, RowTempFile o2 ) {
-      try {
-        return rowMeta.compare( o1.row, o2.row, fieldNrs );
-      } catch ( KettleValueException e ) {
-        logError( "Error comparing rows: " + e.toString() );
-        return 0;
-      }
-    }
-  }
-
   private class RowObjectArrayComparator extends SortRowsComparator implements Comparator<Object[]> {
     RowObjectArrayComparator( RowMetaInterface rowMeta, int[] fieldNrs ) {
       super( rowMeta, fieldNrs );
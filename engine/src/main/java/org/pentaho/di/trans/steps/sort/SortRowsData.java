@@ -13,14 +13,13 @@
 
 package org.pentaho.di.trans.steps.sort;
 
-import java.io.DataInputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.compress.CompressionProvider;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -34,24 +33,23 @@ public class SortRowsData extends BaseStepData implements StepDataInterface {
   public List<Object[]> buffer;
   public int getBufferIndex;
 
-  public List<InputStream> fis;
-  public List<GZIPInputStream> gzis;
-  public List<DataInputStream> dis;
-  public List<Object[]> rowbuffer;
   public List<Integer> bufferSizes;
+  public int maxOpenFiles;
 
-  // To store rows and file references
-  public List<RowTempFile> tempRows;
+  // Merges the temp files back together
+  SortRowsMerger merger;
+  ExecutorService readAhead;
 
   public int[] fieldnrs; // the corresponding field numbers;
   public FileObject fil;
   public RowMetaInterface outputRowMeta;
   public int sortSize;
   public boolean compressFiles;
+  public CompressionProvider compressionProvider;
+  public boolean compactRows;
   public int[] convertKeysToNative;
   public boolean convertAnyKeysToNative;
 
-  Comparator<RowTempFile> comparator;
   Comparator<Object[]> rowComparator;
 
   public int freeCounter;
@@ -71,9 +69,6 @@ public class SortRowsData extends BaseStepData implements StepDataInterface {
     super();
 
     files = new ArrayList<FileObject>();
-    fis = new ArrayList<InputStream>();
-    gzis = new ArrayList<GZIPInputStream>();
-    dis = new ArrayList<DataInputStream>();
     bufferSizes = new ArrayList<Integer>();
 
     previous = null; // Heroic
@@ -0,0 +1,250 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.pentaho.di.core.exception.KettleException;
+
+/**
+ * Merges sorted runs of rows with a tree of losers: taking a row costs one comparison per level of the tree, the
+ * logarithm of the number of runs, instead of a search and an insert in a sorted list.<br>
+ * When an executor is given, every run reads its next block of rows in the background while the current block is
+ * merged, so that reading and decompressing the temporary files overlaps with the comparisons.<br>
+ * Rows with equal keys come out in the order of their runs.
+ */
+class SortRowsMerger implements Closeable {
+
+  /** The number of rows a run reads ahead at a time. */
+  static final int BLOCK_SIZE = 512;
+
+  private static final Object[][] NO_ROWS = new Object[0][];
+
+  /**
+   * A sorted run of rows, usually a temporary file.
+   */
+  interface Run extends Closeable {
+    /**
+     * @return the next row of the run or null if there are no more rows
+     */
+    Object[] readRow() throws KettleException;
+  }
+
+  private final Comparator<Object[]> comparator;
+  private final ExecutorService readAhead;
+  private final Source[] sources;
+  private final int k;
+
+  /**
+   * The index of the run that lost at every inner node of the tree, the overall winner is kept in position 0.
+   */
+  private final int[] tree;
+
+  /**
+   * @param runs the sorted runs to merge, they're closed when the merger is closed
+   * @param comparator the sort order of the runs
+   * @param readAhead the executor reading blocks of rows ahead or null to read on the calling thread
+   */
+  SortRowsMerger( List<? extends Run> runs, Comparator<Object[]> comparator, ExecutorService readAhead )
+    throws KettleException {
+    this.comparator = comparator;
+    this.readAhead = readAhead;
+
+    k = runs.size();
+    sources = new Source[k];
+    for ( int i = 0; i < k; i++ ) {
+      sources[i] = new Source( runs.get( i ) );
+      sources[i].readAhead();
+    }
+    for ( Source source : sources ) {
+      source.advance();
+    }
+
+    // Index k is a sentinel that beats every run: it's pushed out of the tree as the runs are added.
+    //
+    tree = new int[ Math.max( 1, k ) ];
+    Arrays.fill( tree, k );
+    for ( int i = k - 1; i >= 0; i-- ) {
+      adjust( i );
+    }
+  }
+
+  /**
+   * @return the smallest row left in any of the runs or null if all runs are exhausted
+   */
+  Object[] next() throws KettleException {
+    if ( k == 0 ) {
+      return null;
+    }
+    int winner = tree[0];
+    Source source = sources[winner];
+    Object[] row = source.current;
+    if ( row != null ) {
+      source.advance();
+      adjust( winner );
+    }
+    return row;
+  }
+
+  /**
+   * Replays the matches from the leaf of run s up to the root.
+   */
+  private void adjust( int s ) {
+    for ( int t = ( s + k ) >> 1; t > 0; t >>= 1 ) {
+      if ( beats( tree[t], s ) ) {
+        int loser = s;
+        s = tree[t];
+        tree[t] = loser;
+      }
+    }
+    tree[0] = s;
+  }
+
+  private boolean beats( int a, int b ) {
+    if ( a == k ) {
+      return true;
+    }
+    if ( b == k ) {
+      return false;
+    }
+    Object[] rowA = sources[a].current;
+    Object[] rowB = sources[b].current;
+    if ( rowA == null ) {
+      return false; // exhausted runs lose against everything
+    }
+    if ( rowB == null ) {
+      return true;
+    }
+    int cmp = comparator.compare( rowA, rowB );
+    return cmp < 0 || ( cmp == 0 && a < b );
+  }
+
+  /**
+   * Waits for the blocks that are still being read and closes all runs.
+   */
+  @Override
+  public void close() throws IOException {
+    IOException exception = null;
+    for ( Source source : sources ) {
+      try {
+        source.close();
+      } catch ( IOException e ) {
+        if ( exception == null ) {
+          exception = e;
+        }
+      }
+    }
+    if ( exception != null ) {
+      throw exception;
+    }
+  }
+
+  private class Source {
+    private final Run run;
+    private Object[][] block = NO_ROWS;
+    private int position;
+    private Future<Object[][]> pending;
+    private boolean ended;
+
+    private Object[] current;
+
+    Source( Run run ) {
+      this.run = run;
+    }
+
+    void readAhead() {
+      if ( readAhead != null && !ended ) {
+        pending = readAhead.submit( this::readBlock );
+      }
+    }
+
+    void advance() throws KettleException {
+      if ( position == block.length ) {
+        block = nextBlock();
+        position = 0;
+        if ( block.length == 0 ) {
+          current = null;
+          return;
+        }
+      }
+      current = block[position];
+      block[position++] = null; // prevent any hold-up to GC
+    }
+
+    private Object[][] nextBlock() throws KettleException {
+      if ( ended ) {
+        return NO_ROWS;
+      }
+      Object[][] rows = pending == null ? readBlock() : takePending();
+      if ( rows.length < BLOCK_SIZE ) {
+        ended = true;
+      } else {
+        readAhead();
+      }
+      return rows;
+    }
+
+    private Object[][] readBlock() throws KettleException {
+      Object[][] rows = new Object[ BLOCK_SIZE ][];
+      int size = 0;
+      while ( size < BLOCK_SIZE ) {
+        Object[] row = run.readRow();
+        if ( row == null ) {
+          break;
+        }
+        rows[size++] = row;
+      }
+      return size == BLOCK_SIZE ? rows : Arrays.copyOf( rows, size );
+    }
+
+    private Object[][] takePending() throws KettleException {
+      try {
+        return pending.get();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new KettleException( e );
+      } catch ( ExecutionException e ) {
+        if ( e.getCause() instanceof KettleException ) {
+          throw (KettleException) e.getCause();
+        }
+        throw new KettleException( e.getCause() );
+      } finally {
+        pending = null;
+      }
+    }
+
+    void close() throws IOException {
+      if ( pending != null ) {
+        // Let a block that's being read finish before the run is closed underneath it.
+        try {
+          pending.get();
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        } catch ( Exception e ) {
+          // The rows aren't needed anymore
+        }
+      }
+      pending = null;
+      ended = true;
+      run.close();
+    }
+  }
+}
@@ -24,6 +24,7 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.ForkJoinStepScheduler;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStep;
@@ -173,7 +174,7 @@ public class StepsMetrics extends BaseStep implements StepInterface {
       }
       if ( data.continueLoop ) {
         try {
-          Thread.sleep( 200 );
+          ForkJoinStepScheduler.sleep( 200 );
         } catch ( Exception d ) {
           // Ignore
         }
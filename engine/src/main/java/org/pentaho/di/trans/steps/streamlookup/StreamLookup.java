@@ -17,12 +17,14 @@ import java.math.BigDecimal;
 import java.text.DateFormat;
 import java.util.Collections;
 
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.hash.ByteArrayHashIndex;
+import org.pentaho.di.core.hash.OffHeapRowMap;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -209,6 +211,11 @@ public class StreamLookup extends BaseStep implements StepInterface {
       rowData = getRowFrom( rowSet );
     }
 
+    if ( data.offHeapMap != null && log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "StreamLookup.Log.OffHeapStore", data.offHeapMap.getSize(),
+        data.offHeapMap.getDirectBytes(), data.offHeapMap.getMappedBytes() ) );
+    }
+
     return true;
   }
 
@@ -284,8 +291,13 @@ public class StreamLookup extends BaseStep implements StepInterface {
   }
 
   private void addToCache( RowMetaInterface keyMeta, Object[] keyData, RowMetaInterface valueMeta,
-    Object[] valueData ) throws KettleValueException {
-    if ( meta.isMemoryPreservationActive() ) {
+    Object[] valueData ) throws KettleException {
+    if ( meta.isUsingOffHeapStore() ) {
+      if ( data.offHeapMap == null ) {
+        data.offHeapMap = new OffHeapRowMap( keyMeta, valueMeta, data.maxDirectBytes, null );
+      }
+      data.offHeapMap.put( keyData, valueData );
+    } else if ( meta.isMemoryPreservationActive() ) {
       if ( meta.isUsingSortedList() ) {
         KeyValue keyValue = new KeyValue( keyData, valueData );
         int idx = Collections.binarySearch( data.list, keyValue, data.comparator );
@@ -326,8 +338,10 @@ public class StreamLookup extends BaseStep implements StepInterface {
     }
   }
 
-  private Object[] getFromCache( RowMetaInterface keyMeta, Object[] keyData ) throws KettleValueException {
-    if ( meta.isMemoryPreservationActive() ) {
+  private Object[] getFromCache( RowMetaInterface keyMeta, Object[] keyData ) throws KettleException {
+    if ( meta.isUsingOffHeapStore() ) {
+      return data.offHeapMap.get( keyData );
+    } else if ( meta.isMemoryPreservationActive() ) {
       if ( meta.isUsingSortedList() ) {
         KeyValue keyValue = new KeyValue( keyData, null );
         int idx = Collections.binarySearch( data.list, keyValue, data.comparator );
@@ -459,6 +473,8 @@ public class StreamLookup extends BaseStep implements StepInterface {
 
     if ( super.init( smi, sdi ) ) {
       data.readLookupValues = true;
+      data.maxDirectBytes = Math.max( 0L, Const.toLong( getVariable( Const.KETTLE_STREAM_LOOKUP_MAX_DIRECT_MEMORY ),
+        StreamLookupData.DEFAULT_MAX_DIRECT_MEMORY ) ) * 1024 * 1024;
 
       return true;
     }
@@ -474,6 +490,10 @@ public class StreamLookup extends BaseStep implements StepInterface {
     data.list = null;
     data.hashIndex = null;
     data.longIndex = null;
+    if ( data.offHeapMap != null ) {
+      data.offHeapMap.close();
+      data.offHeapMap = null;
+    }
 
     super.dispose( smi, sdi );
   }
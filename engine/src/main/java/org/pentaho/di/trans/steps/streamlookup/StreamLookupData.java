@@ -23,6 +23,7 @@ import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.hash.ByteArrayHashIndex;
 import org.pentaho.di.core.hash.LongHashIndex;
+import org.pentaho.di.core.hash.OffHeapRowMap;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -65,6 +66,15 @@ public class StreamLookupData extends BaseStepData implements StepDataInterface
   public ByteArrayHashIndex hashIndex;
   public LongHashIndex longIndex;
 
+  /** The default number of megabytes of direct memory used by the off-heap store */
+  static final long DEFAULT_MAX_DIRECT_MEMORY = 512;
+
+  /** The lookup data kept outside of the Java heap, if the step is configured to do so */
+  public OffHeapRowMap offHeapMap;
+
+  /** The number of bytes of direct memory the off-heap store may allocate before mapping a file */
+  public long maxDirectBytes;
+
   public RowMetaInterface lookupMeta;
 
   public RowMetaInterface infoMeta;
@@ -92,6 +92,10 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
   @Injection( name = "INTEGER_PAIR" )
   private boolean usingIntegerPair;
 
+  /** Keep the lookup data outside of the Java heap, in direct memory and a memory mapped file */
+  @Injection( name = "OFF_HEAP" )
+  private boolean usingOffHeapStore;
+
   public StreamLookupMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -154,6 +158,7 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
       setMemoryPreservationActive( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "preserve_memory" ) ) );
       setUsingSortedList( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "sorted_list" ) ) );
       setUsingIntegerPair( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "integer_pair" ) ) );
+      setUsingOffHeapStore( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "off_heap" ) ) );
 
       Node lookup = XMLHandler.getSubNode( stepnode, "lookup" );
       nrkeys = XMLHandler.countNodes( lookup, "key" );
@@ -202,6 +207,7 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
     setMemoryPreservationActive( true );
     setUsingSortedList( false );
     setUsingIntegerPair( false );
+    setUsingOffHeapStore( false );
 
     allocate( 0, 0 );
   }
@@ -245,6 +251,7 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
     retval.append( "    " ).append( XMLHandler.addTagValue( "preserve_memory", isMemoryPreservationActive() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "sorted_list", isUsingSortedList() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "integer_pair", isUsingIntegerPair() ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "off_heap", isUsingOffHeapStore() ) );
 
     retval.append( "    <lookup>" ).append( Const.CR );
     for ( int i = 0; i < getKeystream().length; i++ ) {
@@ -279,6 +286,7 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
       setMemoryPreservationActive( rep.getStepAttributeBoolean( id_step, "preserve_memory" ) );
       setUsingSortedList( rep.getStepAttributeBoolean( id_step, "sorted_list" ) );
       setUsingIntegerPair( rep.getStepAttributeBoolean( id_step, "integer_pair" ) );
+      setUsingOffHeapStore( rep.getStepAttributeBoolean( id_step, "off_heap" ) );
 
       int nrkeys = rep.countNrStepAttributes( id_step, "lookup_key_name" );
       int nrvalues = rep.countNrStepAttributes( id_step, "return_value_name" );
@@ -316,6 +324,7 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
       rep.saveStepAttribute( id_transformation, id_step, "preserve_memory", isMemoryPreservationActive() );
       rep.saveStepAttribute( id_transformation, id_step, "sorted_list", isUsingSortedList() );
       rep.saveStepAttribute( id_transformation, id_step, "integer_pair", isUsingIntegerPair() );
+      rep.saveStepAttribute( id_transformation, id_step, "off_heap", isUsingOffHeapStore() );
 
       for ( int i = 0; i < getKeystream().length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "lookup_key_name", getKeystream()[i] );
@@ -658,6 +667,21 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
     this.usingIntegerPair = usingIntegerPair;
   }
 
+  /**
+   * @return true if the lookup data is kept outside of the Java heap
+   */
+  public boolean isUsingOffHeapStore() {
+    return usingOffHeapStore;
+  }
+
+  /**
+   * @param usingOffHeapStore
+   *          true to keep the lookup data outside of the Java heap
+   */
+  public void setUsingOffHeapStore( boolean usingOffHeapStore ) {
+    this.usingOffHeapStore = usingOffHeapStore;
+  }
+
   /**
    * If we use injection we can have different arrays lengths.
    * We need synchronize them for consistency behavior with UI
@@ -0,0 +1,276 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+/**
+ * Builds the queries of a parallel read: every copy of the step wraps the SQL of the step in a query that only
+ * returns the rows of its own range or modulo bucket of the split field. The first copy also reads the rows where the
+ * split field is null, the first and last ranges are open so that rows outside of the boundaries are read as well.
+ * <p>
+ * The copies read in transactions of their own. The lowest and highest value of the split field are queried once and
+ * shared by the copies in the transformation, but rows changed while the copies run can still fall in another range
+ * than when the range was queried. Only a low and high value entered in the step give the same ranges whenever the
+ * copies run; copies on different slave servers should always be given them.
+ *
+ * @since 10.3
+ */
+final class ParallelRead {
+
+  /** The format of the low and high date values entered by the user */
+  static final String BOUNDARY_DATE_FORMAT = "yyyy/MM/dd HH:mm:ss";
+
+  private static final String ALIAS = "pdi_parallel_read";
+
+  private ParallelRead() {
+  }
+
+  /**
+   * @return the query returning the lowest and highest value of the split field
+   */
+  static String getMinMaxSQL( String sql, String field ) {
+    return "SELECT MIN( " + field + " ), MAX( " + field + " ) FROM ( " + stripTerminator( sql ) + " ) " + ALIAS;
+  }
+
+  /**
+   * @param lowerBound
+   *          true if the query takes a parameter with the lowest value of the range (inclusive)
+   * @param upperBound
+   *          true if the query takes a parameter with the highest value of the range (exclusive)
+   * @param includeNulls
+   *          true if the rows where the split field is null are read as well
+   * @param sorted
+   *          true if the rows are sorted on the split field
+   * @return the query reading a range of the split field
+   */
+  static String getRangeSQL( String sql, String field, boolean lowerBound, boolean upperBound,
+                             boolean includeNulls, boolean sorted ) {
+    StringBuilder condition = new StringBuilder();
+    if ( lowerBound ) {
+      condition.append( field ).append( " >= ?" );
+    }
+    if ( upperBound ) {
+      if ( condition.length() > 0 ) {
+        condition.append( " AND " );
+      }
+      condition.append( field ).append( " < ?" );
+    }
+    if ( includeNulls && condition.length() > 0 ) {
+      condition.insert( 0, "( " ).append( " ) OR " ).append( field ).append( " IS NULL" );
+    }
+    return wrap( sql, field, condition.toString(), sorted );
+  }
+
+  /**
+   * Negative values of the split field have a negative remainder on most databases: those rows are read by the copy
+   * of the opposite bucket.
+   *
+   * @return the query reading the rows of the bucket of a step copy
+   */
+  static String getModuloSQL( String sql, String field, int copyNr, int nrCopies, boolean sorted ) {
+    if ( nrCopies <= 1 ) {
+      return wrap( sql, field, "", sorted );
+    }
+    String remainder = "MOD( " + field + ", " + nrCopies + " )";
+    String condition;
+    if ( copyNr == 0 ) {
+      condition = remainder + " = 0 OR " + field + " IS NULL";
+    } else {
+      condition = remainder + " = " + copyNr + " OR " + remainder + " = -" + copyNr;
+    }
+    return wrap( sql, field, condition, sorted );
+  }
+
+  /**
+   * @return the query that doesn't read any rows, for the other copies when there's nothing to split
+   */
+  static String getEmptySQL( String sql ) {
+    return "SELECT * FROM ( " + stripTerminator( sql ) + " ) " + ALIAS + " WHERE 1 = 0";
+  }
+
+  private static String wrap( String sql, String field, String condition, boolean sorted ) {
+    if ( condition.isEmpty() && !sorted ) {
+      return sql;
+    }
+    StringBuilder wrapped = new StringBuilder( "SELECT * FROM ( " ).append( stripTerminator( sql ) ).append( " ) " )
+      .append( ALIAS );
+    if ( !condition.isEmpty() ) {
+      wrapped.append( " WHERE " ).append( condition );
+    }
+    if ( sorted ) {
+      wrapped.append( " ORDER BY " ).append( field );
+    }
+    return wrapped.toString();
+  }
+
+  private static String stripTerminator( String sql ) {
+    String stripped = sql.trim();
+    while ( stripped.endsWith( ";" ) ) {
+      stripped = stripped.substring( 0, stripped.length() - 1 ).trim();
+    }
+    return stripped;
+  }
+
+  /**
+   * @return true if ranges can be calculated for values of this type
+   */
+  static boolean isSplittable( ValueMetaInterface valueMeta ) {
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+      case ValueMetaInterface.TYPE_NUMBER:
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+      case ValueMetaInterface.TYPE_DATE:
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @return the metadata of the boundary parameters of the ranges of a split field
+   */
+  static ValueMetaInterface createBoundaryMeta( ValueMetaInterface valueMeta ) {
+    String name = valueMeta.getName();
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return new ValueMetaInteger( name );
+      case ValueMetaInterface.TYPE_NUMBER:
+        return new ValueMetaNumber( name );
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        return new ValueMetaBigNumber( name );
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        return new ValueMetaTimestamp( name );
+      default:
+        return new ValueMetaDate( name );
+    }
+  }
+
+  /**
+   * Splits the values from low to high in equally sized ranges.
+   *
+   * @return the nrRanges-1 boundaries between the ranges in the type of the boundary metadata, ascending
+   */
+  static Object[] getBoundaries( ValueMetaInterface valueMeta, Object low, Object high, int nrRanges )
+    throws KettleValueException {
+    BigDecimal lowValue = toDecimal( valueMeta, low );
+    BigDecimal highValue = toDecimal( valueMeta, high );
+    if ( highValue.compareTo( lowValue ) < 0 ) {
+      BigDecimal swap = lowValue;
+      lowValue = highValue;
+      highValue = swap;
+    }
+    boolean discrete = valueMeta.getType() != ValueMetaInterface.TYPE_NUMBER
+      && valueMeta.getType() != ValueMetaInterface.TYPE_BIGNUMBER;
+    BigDecimal width = highValue.subtract( lowValue );
+    if ( discrete ) {
+      width = width.add( BigDecimal.ONE );
+    }
+    int scale = Math.max( lowValue.scale(), highValue.scale() );
+
+    Object[] boundaries = new Object[ Math.max( 0, nrRanges - 1 ) ];
+    for ( int i = 0; i < boundaries.length; i++ ) {
+      BigDecimal offset = width.multiply( BigDecimal.valueOf( i + 1 ) )
+        .divide( BigDecimal.valueOf( nrRanges ), discrete ? 0 : scale + 6, RoundingMode.FLOOR );
+      boundaries[i] = fromDecimal( valueMeta, lowValue.add( offset ) );
+    }
+    return boundaries;
+  }
+
+  private static BigDecimal toDecimal( ValueMetaInterface valueMeta, Object value ) throws KettleValueException {
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return BigDecimal.valueOf( valueMeta.getInteger( value ) );
+      case ValueMetaInterface.TYPE_NUMBER:
+        return BigDecimal.valueOf( valueMeta.getNumber( value ) );
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        return valueMeta.getBigNumber( value );
+      default:
+        return BigDecimal.valueOf( valueMeta.getDate( value ).getTime() );
+    }
+  }
+
+  private static Object fromDecimal( ValueMetaInterface valueMeta, BigDecimal value ) {
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return value.longValue();
+      case ValueMetaInterface.TYPE_NUMBER:
+        return value.doubleValue();
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        return value.stripTrailingZeros();
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        return new Timestamp( value.longValue() );
+      default:
+        return new Date( value.longValue() );
+    }
+  }
+
+  /**
+   * Converts a low or high value entered by the user: an integer, a number or a date in {@link #BOUNDARY_DATE_FORMAT}.
+   *
+   * @return the metadata of the value, the value itself is converted by {@link #parseBoundary(ValueMetaInterface,
+   *         String)}
+   */
+  static ValueMetaInterface getBoundaryMeta( String name, String value ) {
+    String trimmed = value.trim();
+    try {
+      Long.parseLong( trimmed );
+      return new ValueMetaInteger( name );
+    } catch ( NumberFormatException e ) {
+      // not an integer
+    }
+    try {
+      Double.parseDouble( trimmed );
+      return new ValueMetaNumber( name );
+    } catch ( NumberFormatException e ) {
+      // not a number either, a date
+    }
+    return new ValueMetaDate( name );
+  }
+
+  /**
+   * @return the low or high value entered by the user as a value of the given metadata
+   */
+  static Object parseBoundary( ValueMetaInterface valueMeta, String value ) throws KettleValueException {
+    ValueMetaString stringMeta = new ValueMetaString( valueMeta.getName() );
+    stringMeta.setConversionMask( BOUNDARY_DATE_FORMAT );
+    ValueMetaInterface sourceMeta = getBoundaryMeta( valueMeta.getName(), value );
+    Object parsed;
+    switch ( sourceMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        parsed = Long.parseLong( value.trim() );
+        break;
+      case ValueMetaInterface.TYPE_NUMBER:
+        parsed = Double.parseDouble( value.trim() );
+        break;
+      default:
+        parsed = stringMeta.getDate( value.trim() );
+        break;
+    }
+    return valueMeta.convertData( sourceMeta, parsed );
+  }
+}
@@ -0,0 +1,83 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * The lowest and highest value of the split field of a parallel read, split in ranges by the copies of the step.
+ *
+ * @since 10.3
+ */
+final class SplitRange {
+  private final ValueMetaInterface valueMeta;
+  private final Object low;
+  private final Object high;
+
+  SplitRange( ValueMetaInterface valueMeta, Object low, Object high ) {
+    this.valueMeta = valueMeta;
+    this.low = low;
+    this.high = high;
+  }
+
+  ValueMetaInterface getValueMeta() {
+    return valueMeta;
+  }
+
+  Object getLow() {
+    return low;
+  }
+
+  Object getHigh() {
+    return high;
+  }
+
+  /**
+   * Queries the lowest and highest value of the split field.
+   */
+  @FunctionalInterface
+  interface Query {
+    SplitRange query() throws KettleDatabaseException, KettleValueException;
+  }
+
+  /**
+   * The ranges queried by the copies of a step in a transformation. The first copy that needs the range for a set of
+   * query parameters queries it, the other copies use the same one. Querying it in every copy would give them different
+   * boundaries as soon as the table changes between their queries, and rows would be read twice or not at all.
+   */
+  static class Shared {
+    private final Map<RowMetaAndData, SplitRange> ranges = new HashMap<>();
+
+    /**
+     * @param parameters
+     *          the parameters of the query of the step
+     * @return the range queried for the parameters, by this copy if no other copy did
+     */
+    synchronized SplitRange get( RowMetaAndData parameters, Query query )
+      throws KettleDatabaseException, KettleValueException {
+      SplitRange range = ranges.get( parameters );
+      if ( range == null ) {
+        range = query.query();
+        ranges.put( parameters, range );
+      }
+      return range;
+    }
+  }
+}
@@ -15,6 +15,8 @@ package org.pentaho.di.trans.steps.tableinput;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.pentaho.di.core.Const;
@@ -23,6 +25,7 @@ import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -222,6 +225,18 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
       sql = meta.getSQL();
     }
 
+    if ( data.parallelRead ) {
+      RowMetaInterface rangeMeta = new RowMeta();
+      List<Object> rangeValues = new ArrayList<>();
+      sql = getParallelReadSQL( sql, parametersMeta, parameters, rangeMeta, rangeValues );
+      if ( !rangeMeta.isEmpty() ) {
+        parameters = RowDataUtil.addRowData( parameters == null ? new Object[0] : parameters, parametersMeta.size(),
+          rangeValues.toArray() );
+        parametersMeta = parametersMeta.clone();
+        parametersMeta.addRowMeta( rangeMeta );
+      }
+    }
+
     if ( log.isDetailed() ) {
       logDetailed( BaseMessages.getString( PKG, "TableInput.Log.SqlQuery", sql ) );
     }
@@ -261,6 +276,119 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
     return success;
   }
 
+  /**
+   * Restricts the query to the rows of the range or the modulo bucket of the split field that this step copy reads.
+   * The range boundaries are calculated from the lowest and highest value of the split field, queried with the same
+   * parameters unless they are specified in the step. The boundaries of the range are added to the range parameters.
+   *
+   * @return the query of this step copy
+   */
+  private String getParallelReadSQL( String sql, RowMetaInterface parametersMeta, Object[] parameters,
+    RowMetaInterface rangeMeta, List<Object> rangeValues ) throws KettleDatabaseException {
+    boolean sorted = meta.isParallelReadSorted();
+    if ( meta.isParallelReadModulo() ) {
+      return ParallelRead.getModuloSQL( sql, data.splitField, data.copyNr, data.nrCopies, sorted );
+    }
+    if ( data.nrCopies <= 1 ) {
+      return ParallelRead.getRangeSQL( sql, data.splitField, false, false, true, sorted );
+    }
+
+    try {
+      SplitRange range = getSplitRange( sql, parametersMeta, parameters );
+      ValueMetaInterface valueMeta = range.getValueMeta();
+      Object low = range.getLow();
+      Object high = range.getHigh();
+      if ( !ParallelRead.isSplittable( valueMeta ) ) {
+        throw new KettleDatabaseException( BaseMessages.getString( PKG, "TableInput.Exception.ParallelReadFieldType",
+          meta.getParallelReadField(), valueMeta.getTypeDesc() ) );
+      }
+
+      if ( valueMeta.isNull( low ) || valueMeta.isNull( high ) ) {
+        // Nothing to split, the first copy reads all the rows
+        return data.copyNr == 0 ? ParallelRead.getRangeSQL( sql, data.splitField, false, false, true, sorted )
+          : ParallelRead.getEmptySQL( sql );
+      }
+
+      Object[] boundaries = ParallelRead.getBoundaries( valueMeta, low, high, data.nrCopies );
+      ValueMetaInterface boundaryMeta = ParallelRead.createBoundaryMeta( valueMeta );
+      boolean lowerBound = data.copyNr > 0;
+      boolean upperBound = data.copyNr < data.nrCopies - 1;
+      if ( lowerBound ) {
+        rangeMeta.addValueMeta( boundaryMeta.clone() );
+        rangeValues.add( boundaries[data.copyNr - 1] );
+      }
+      if ( upperBound ) {
+        rangeMeta.addValueMeta( boundaryMeta.clone() );
+        rangeValues.add( boundaries[data.copyNr] );
+      }
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "TableInput.Log.ParallelReadRange",
+          lowerBound ? boundaryMeta.getString( boundaries[data.copyNr - 1] ) : "-",
+          upperBound ? boundaryMeta.getString( boundaries[data.copyNr] ) : "-" ) );
+      }
+      return ParallelRead.getRangeSQL( sql, data.splitField, lowerBound, upperBound, data.copyNr == 0, sorted );
+    } catch ( KettleValueException e ) {
+      throw new KettleDatabaseException( BaseMessages.getString( PKG, "TableInput.Exception.ParallelReadBoundaries",
+        meta.getParallelReadField() ), e );
+    }
+  }
+
+  /**
+   * Gets the lowest and highest value of the split field. The values entered in the step are used as they are. The
+   * values queried are queried once for all the copies of the step in the transformation, so that they all split the
+   * same range.
+   */
+  private SplitRange getSplitRange( String sql, RowMetaInterface parametersMeta, Object[] parameters )
+    throws KettleDatabaseException, KettleValueException {
+    String lowValue = environmentSubstitute( meta.getParallelReadLowValue() );
+    String highValue = environmentSubstitute( meta.getParallelReadHighValue() );
+    if ( !Utils.isEmpty( lowValue ) && !Utils.isEmpty( highValue ) ) {
+      ValueMetaInterface valueMeta = ParallelRead.getBoundaryMeta( meta.getParallelReadField(), lowValue );
+      return new SplitRange( valueMeta, ParallelRead.parseBoundary( valueMeta, lowValue ),
+        ParallelRead.parseBoundary( valueMeta, highValue ) );
+    }
+    if ( data.splitRanges == null ) {
+      return querySplitRange( sql, parametersMeta, parameters, lowValue, highValue );
+    }
+    return data.splitRanges.get( new RowMetaAndData( parametersMeta, parameters == null ? new Object[0] : parameters ),
+      () -> querySplitRange( sql, parametersMeta, parameters, lowValue, highValue ) );
+  }
+
+  private SplitRange querySplitRange( String sql, RowMetaInterface parametersMeta, Object[] parameters,
+    String lowValue, String highValue ) throws KettleDatabaseException, KettleValueException {
+    String minMaxSql = ParallelRead.getMinMaxSQL( sql, data.splitField );
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "TableInput.Log.ParallelReadMinMaxQuery", minMaxSql ) );
+    }
+    RowMetaAndData minMax = parametersMeta.isEmpty() ? data.db.getOneRow( minMaxSql )
+      : data.db.getOneRow( minMaxSql, parametersMeta, parameters );
+    ValueMetaInterface valueMeta = minMax.getRowMeta().getValueMeta( 0 );
+    Object low = Utils.isEmpty( lowValue ) ? minMax.getData()[0] : ParallelRead.parseBoundary( valueMeta, lowValue );
+    Object high = Utils.isEmpty( highValue ) ? minMax.getData()[1] : ParallelRead.parseBoundary( valueMeta, highValue );
+    return new SplitRange( valueMeta, low, high );
+  }
+
+  /**
+   * Shares the ranges of the split field queried by the copies of the step in this transformation. Copies running on
+   * other slave servers query their own.
+   */
+  private void initSplitRanges() {
+    if ( getTrans() == null ) {
+      return;
+    }
+    StepDataInterface firstData = getTrans().getStepDataInterface( getStepname(), 0 );
+    if ( !( firstData instanceof TableInputData ) ) {
+      return;
+    }
+    synchronized ( firstData ) {
+      TableInputData first = (TableInputData) firstData;
+      if ( first.splitRanges == null ) {
+        first.splitRanges = new SplitRange.Shared();
+      }
+      data.splitRanges = first.splitRanges;
+    }
+  }
+
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     dbLock.lock();
     try {
@@ -318,6 +446,16 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
         data.infoStream = meta.getStepIOMeta().getInfoStreams().get( 0 );
         data.db.setQueryLimit( Const.toInt( environmentSubstitute( meta.getRowLimit() ), 0 ) );
 
+        data.parallelRead = !Utils.isEmpty( meta.getParallelReadField() );
+        if ( data.parallelRead ) {
+          data.splitField = meta.getDatabaseMeta().quoteField( environmentSubstitute( meta.getParallelReadField() ) );
+          data.copyNr = getUniqueStepNrAcrossSlaves();
+          data.nrCopies = getUniqueStepCountAcrossSlaves();
+          if ( !meta.isParallelReadModulo() && data.nrCopies > 1 ) {
+            initSplitRanges();
+          }
+        }
+
         if ( meta.getDatabaseMeta().isRequiringTransactionsOnQueries() ) {
           data.db.setCommitSize( 100 ); // needed for PGSQL it seems...
         }
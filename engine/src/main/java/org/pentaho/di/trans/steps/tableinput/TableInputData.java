@@ -36,6 +36,15 @@ public class TableInputData extends BaseDatabaseStepData implements StepDataInte
   public boolean isCanceled;
   public StreamInterface infoStream;
 
+  /** Every step copy reads its own range or modulo bucket of the split field */
+  public boolean parallelRead;
+  /** The quoted name of the split field */
+  public String splitField;
+  public int copyNr;
+  public int nrCopies;
+  /** The ranges of the split field, queried once for all the copies of the step */
+  SplitRange.Shared splitRanges;
+
   public TableInputData() {
     super();
 
@@ -87,6 +87,29 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
 
   private RowMetaInterface cachedRowMeta;
 
+  /** The numeric or date field the step copies split the rows on, no parallel read if empty */
+  @Injection( name = "PARALLEL_READ_FIELD" )
+  private String parallelReadField;
+
+  /** Split the rows on the remainder of the field instead of on ranges */
+  @Injection( name = "PARALLEL_READ_MODULO" )
+  private boolean parallelReadModulo;
+
+  /**
+   * The lowest value of the split field, queried if empty. Entering both values is the only way to get the same ranges
+   * in all copies, whatever changes in the table while the copies run.
+   */
+  @Injection( name = "PARALLEL_READ_LOW_VALUE" )
+  private String parallelReadLowValue;
+
+  /** The highest value of the split field, queried if empty */
+  @Injection( name = "PARALLEL_READ_HIGH_VALUE" )
+  private String parallelReadHighValue;
+
+  /** Every step copy sorts its rows on the split field */
+  @Injection( name = "PARALLEL_READ_SORTED" )
+  private boolean parallelReadSorted;
+
   public TableInputMeta() {
     super();
   }
@@ -182,6 +205,11 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       lazyConversionActive = "Y".equals( XMLHandler.getTagValue( stepnode, "lazy_conversion_active" ) );
       cachedRowMetaActive = "Y".equals( XMLHandler.getTagValue( stepnode, "cached_row_meta_active" ) );
       cachedRowMeta = new RowMeta( XMLHandler.getSubNode( stepnode, RowMeta.XML_META_TAG ) );
+      parallelReadField = XMLHandler.getTagValue( stepnode, "parallel_read_field" );
+      parallelReadModulo = "Y".equals( XMLHandler.getTagValue( stepnode, "parallel_read_modulo" ) );
+      parallelReadLowValue = XMLHandler.getTagValue( stepnode, "parallel_read_low_value" );
+      parallelReadHighValue = XMLHandler.getTagValue( stepnode, "parallel_read_high_value" );
+      parallelReadSorted = "Y".equals( XMLHandler.getTagValue( stepnode, "parallel_read_sorted" ) );
 
     } catch ( Exception e ) {
       throw new KettleXMLException( "Unable to load step info from XML", e );
@@ -300,6 +328,11 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     retval.append( "    " + XMLHandler.addTagValue( "variables_active", variableReplacementActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "lazy_conversion_active", lazyConversionActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "cached_row_meta_active", cachedRowMetaActive ) );
+    retval.append( "    " + XMLHandler.addTagValue( "parallel_read_field", parallelReadField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "parallel_read_modulo", parallelReadModulo ) );
+    retval.append( "    " + XMLHandler.addTagValue( "parallel_read_low_value", parallelReadLowValue ) );
+    retval.append( "    " + XMLHandler.addTagValue( "parallel_read_high_value", parallelReadHighValue ) );
+    retval.append( "    " + XMLHandler.addTagValue( "parallel_read_sorted", parallelReadSorted ) );
     storeCachedRowMeta( retval );
     return retval.toString();
   }
@@ -353,6 +386,11 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       variableReplacementActive = rep.getStepAttributeBoolean( id_step, "variables_active" );
       lazyConversionActive = rep.getStepAttributeBoolean( id_step, "lazy_conversion_active" );
       cachedRowMetaActive = rep.getStepAttributeBoolean( id_step, "cached_row_meta_active" );
+      parallelReadField = rep.getStepAttributeString( id_step, "parallel_read_field" );
+      parallelReadModulo = rep.getStepAttributeBoolean( id_step, "parallel_read_modulo" );
+      parallelReadLowValue = rep.getStepAttributeString( id_step, "parallel_read_low_value" );
+      parallelReadHighValue = rep.getStepAttributeString( id_step, "parallel_read_high_value" );
+      parallelReadSorted = rep.getStepAttributeBoolean( id_step, "parallel_read_sorted" );
 
       String sRowMeta = rep.getStepAttributeString( id_step, RowMeta.XML_META_TAG );
       if ( sRowMeta != null ) {
@@ -379,6 +417,11 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       rep.saveStepAttribute( id_transformation, id_step, "variables_active", variableReplacementActive );
       rep.saveStepAttribute( id_transformation, id_step, "lazy_conversion_active", lazyConversionActive );
       rep.saveStepAttribute( id_transformation, id_step, "cached_row_meta_active", cachedRowMetaActive );
+      rep.saveStepAttribute( id_transformation, id_step, "parallel_read_field", parallelReadField );
+      rep.saveStepAttribute( id_transformation, id_step, "parallel_read_modulo", parallelReadModulo );
+      rep.saveStepAttribute( id_transformation, id_step, "parallel_read_low_value", parallelReadLowValue );
+      rep.saveStepAttribute( id_transformation, id_step, "parallel_read_high_value", parallelReadHighValue );
+      rep.saveStepAttribute( id_transformation, id_step, "parallel_read_sorted", parallelReadSorted );
       if ( cachedRowMeta != null ) {
         rep.saveStepAttribute( id_transformation, id_step, RowMeta.XML_META_TAG, cachedRowMeta.getMetaXML() );
       }
@@ -502,6 +545,13 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       }
 
     }
+
+    if ( !Utils.isEmpty( parallelReadField ) && stepMeta.getCopies() <= 1 ) {
+      cr =
+        new CheckResult( CheckResultInterface.TYPE_RESULT_WARNING, BaseMessages.getString( PKG,
+          "TableInputMeta.CheckResult.ParallelReadSingleCopy", parallelReadField ), stepMeta );
+      remarks.add( cr );
+    }
   }
 
   /**
@@ -618,6 +668,81 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     this.cachedRowMeta = cachedRowMeta;
   }
 
+  /**
+   * @return the numeric or date field the step copies split the rows on, no parallel read if empty
+   */
+  public String getParallelReadField() {
+    return parallelReadField;
+  }
+
+  /**
+   * @param parallelReadField
+   *          the numeric or date field the step copies split the rows on, no parallel read if empty
+   */
+  public void setParallelReadField( String parallelReadField ) {
+    this.parallelReadField = parallelReadField;
+  }
+
+  /**
+   * @return true if the rows are split on the remainder of the integer split field divided by the number of copies
+   */
+  public boolean isParallelReadModulo() {
+    return parallelReadModulo;
+  }
+
+  /**
+   * @param parallelReadModulo
+   *          true if the rows are split on the remainder of the integer split field divided by the number of copies
+   */
+  public void setParallelReadModulo( boolean parallelReadModulo ) {
+    this.parallelReadModulo = parallelReadModulo;
+  }
+
+  /**
+   * @return the lowest value of the split field, queried if empty
+   */
+  public String getParallelReadLowValue() {
+    return parallelReadLowValue;
+  }
+
+  /**
+   * @param parallelReadLowValue
+   *          the lowest value of the split field, queried if empty
+   */
+  public void setParallelReadLowValue( String parallelReadLowValue ) {
+    this.parallelReadLowValue = parallelReadLowValue;
+  }
+
+  /**
+   * @return the highest value of the split field, queried if empty
+   */
+  public String getParallelReadHighValue() {
+    return parallelReadHighValue;
+  }
+
+  /**
+   * @param parallelReadHighValue
+   *          the highest value of the split field, queried if empty
+   */
+  public void setParallelReadHighValue( String parallelReadHighValue ) {
+    this.parallelReadHighValue = parallelReadHighValue;
+  }
+
+  /**
+   * @return true if every step copy sorts its rows on the split field
+   */
+  public boolean isParallelReadSorted() {
+    return parallelReadSorted;
+  }
+
+  /**
+   * @param parallelReadSorted
+   *          true if every step copy sorts its rows on the split field
+   */
+  public void setParallelReadSorted( boolean parallelReadSorted ) {
+    this.parallelReadSorted = parallelReadSorted;
+  }
+
   /**
    * Returns the Input/Output metadata for this step. The generator step only produces output, does not accept input!
    */
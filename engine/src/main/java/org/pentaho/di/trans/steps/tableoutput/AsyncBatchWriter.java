@@ -0,0 +1,207 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleException;
+
+/**
+ * Writes the rows of a {@code TableOutput} step in batches on background threads. While a batch is inserted and
+ * committed, the step fills the next one. A batch is written in a single transaction on one connection: the rows of a
+ * failed batch, with the update counts and errors of the database, are handed back to the step for its error handling.
+ * <p>
+ * With more than one connection, as many batches are written at the same time, so the rows end up in the table in no
+ * particular order. Batches are always handed back in the order they were added.
+ *
+ * @since 10.3
+ */
+public class AsyncBatchWriter {
+
+  private static final long CLOSE_TIMEOUT_SECONDS = 60;
+
+  private final int batchSize;
+  private final boolean keepingGoodRows;
+
+  private final List<BatchInserter> inserters;
+  private final BlockingQueue<BatchInserter> idleInserters;
+  private final ExecutorService executor;
+
+  private final Deque<Batch> inFlight = new ArrayDeque<>();
+  private Batch current;
+
+  /**
+   * @param inserters       the inserters to write with, each on a connection of its own, one per batch written at the
+   *                        same time
+   * @param batchSize       the number of rows in a batch, written and committed at once
+   * @param keepingGoodRows true to commit the rows of a failed batch the database did insert, false to roll back
+   * @param threadName      the name of the threads writing the batches
+   */
+  public AsyncBatchWriter( List<BatchInserter> inserters, int batchSize, boolean keepingGoodRows,
+                           String threadName ) {
+    this.batchSize = Math.max( 1, batchSize );
+    this.keepingGoodRows = keepingGoodRows;
+    this.inserters = new ArrayList<>( inserters );
+    this.idleInserters = new LinkedBlockingQueue<>( inserters );
+    this.executor = Executors.newFixedThreadPool( inserters.size(), runnable -> {
+      Thread thread = new Thread( runnable, threadName );
+      thread.setDaemon( true );
+      return thread;
+    } );
+  }
+
+  /**
+   * Adds a row to the current batch, and starts writing the batch once it is full.
+   *
+   * @param insertRow the values to insert
+   * @param outputRow the row to pass on once it is written
+   */
+  public void add( Object[] insertRow, Object[] outputRow ) {
+    if ( current == null ) {
+      current = new Batch( batchSize );
+    }
+    current.insertRows.add( insertRow );
+    current.outputRows.add( outputRow );
+    if ( current.insertRows.size() >= batchSize ) {
+      flush();
+    }
+  }
+
+  /**
+   * Starts writing the current batch, even if it is not full.
+   */
+  public void flush() {
+    if ( current == null ) {
+      return;
+    }
+    Batch batch = current;
+    current = null;
+    batch.result = executor.submit( () -> write( batch.insertRows ) );
+    inFlight.add( batch );
+  }
+
+  /**
+   * Hands back the oldest batch if it is written. Waits for it if more batches are in flight than there are
+   * connections, or if asked to: the step only fills the next batch while the others are written.
+   *
+   * @param wait true to wait for the oldest batch
+   * @return the oldest batch or null if there is none or if it is not written yet
+   */
+  public Batch take( boolean wait ) throws KettleException {
+    Batch batch = inFlight.peek();
+    if ( batch == null || !( wait || batch.result.isDone() || inFlight.size() > inserters.size() ) ) {
+      return null;
+    }
+    inFlight.remove();
+    try {
+      batch.result.get();
+    } catch ( ExecutionException e ) {
+      batch.error = e.getCause() instanceof KettleDatabaseException
+        ? (KettleDatabaseException) e.getCause() : new KettleDatabaseException( e.getCause() );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    }
+    return batch;
+  }
+
+  /**
+   * @return the number of batches started but not handed back yet
+   */
+  public int getBatchesInFlight() {
+    return inFlight.size();
+  }
+
+  /**
+   * @return the connections the batches are written on
+   */
+  public List<Database> getConnections() {
+    List<Database> connections = new ArrayList<>( inserters.size() );
+    for ( BatchInserter inserter : inserters ) {
+      connections.add( inserter.getDatabase() );
+    }
+    return connections;
+  }
+
+  /**
+   * Stops writing and waits for the batches being written, then closes the statements. Batches not handed back yet are
+   * dropped, the connections are neither committed nor disconnected.
+   */
+  public void close() throws KettleDatabaseException {
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination( CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    inFlight.clear();
+    current = null;
+    for ( BatchInserter inserter : inserters ) {
+      inserter.close();
+    }
+  }
+
+  private Void write( List<Object[]> rows ) throws KettleDatabaseException, InterruptedException {
+    BatchInserter inserter = idleInserters.take();
+    try {
+      inserter.write( rows, keepingGoodRows );
+      return null;
+    } finally {
+      idleInserters.add( inserter );
+    }
+  }
+
+  /**
+   * A number of rows, in the order they were added, with the error writing them if any.
+   */
+  public static class Batch {
+    private final List<Object[]> insertRows;
+    private final List<Object[]> outputRows;
+
+    private Future<Void> result;
+    private KettleDatabaseException error;
+
+    private Batch( int size ) {
+      insertRows = new ArrayList<>( size );
+      outputRows = new ArrayList<>( size );
+    }
+
+    /**
+     * @return the rows to pass on, in the order they were added
+     */
+    public List<Object[]> getOutputRows() {
+      return outputRows;
+    }
+
+    /**
+     * @return the error writing the batch, a {@code KettleDatabaseBatchException} with the update counts if the
+     *         database reported them, or null if all the rows were written
+     */
+    public KettleDatabaseException getError() {
+      return error;
+    }
+  }
+}
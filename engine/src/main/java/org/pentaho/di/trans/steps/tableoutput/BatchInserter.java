@@ -0,0 +1,84 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.util.List;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Inserts batches of rows into a table on one connection, one batch per transaction. The subclasses send the rows the
+ * way the database takes them fastest: JDBC batches, multi-row VALUES statements or a COPY stream.
+ *
+ * @since 10.3
+ */
+public abstract class BatchInserter {
+
+  protected final Database db;
+  protected final RowMetaInterface insertRowMeta;
+
+  protected BatchInserter( Database db, RowMetaInterface insertRowMeta ) {
+    this.db = db;
+    this.insertRowMeta = insertRowMeta;
+  }
+
+  /**
+   * @return the connection the rows are inserted on
+   */
+  public Database getDatabase() {
+    return db;
+  }
+
+  /**
+   * Inserts and commits a batch. If that fails, the rows the database did insert are committed or rolled back.
+   *
+   * @param rows            the values to insert
+   * @param keepingGoodRows true to commit the rows of a failed batch the database did insert, false to roll back
+   * @throws KettleDatabaseException the error inserting the batch, a {@code KettleDatabaseBatchException} if it tells
+   *                                 which rows failed
+   */
+  public void write( List<Object[]> rows, boolean keepingGoodRows ) throws KettleDatabaseException {
+    try {
+      insert( rows );
+      db.commit();
+    } catch ( KettleDatabaseException e ) {
+      clear();
+      if ( keepingGoodRows ) {
+        db.commit( true );
+      } else {
+        db.rollback();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Inserts the rows without committing them.
+   */
+  protected abstract void insert( List<Object[]> rows ) throws KettleDatabaseException;
+
+  /**
+   * Forgets the rows of a failed insert that were not sent yet.
+   */
+  protected void clear() throws KettleDatabaseException {
+    // Nothing is kept by default
+  }
+
+  /**
+   * Closes the statements, the connection stays open.
+   */
+  public abstract void close() throws KettleDatabaseException;
+}
@@ -0,0 +1,176 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+/**
+ * Streams the rows of a batch to PostgreSQL with COPY ... FROM STDIN in CSV format, the way the PostgreSQL Bulk Loader
+ * does. A batch is copied as a whole or not at all. The driver always talks UTF-8 to the server.
+ *
+ * @since 10.3
+ */
+class CopyInserter extends BatchInserter {
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final String sql;
+  private final boolean booleanDataType;
+  private final StringBuilder line = new StringBuilder( 256 );
+
+  CopyInserter( Database db, String schemaName, String tableName, RowMetaInterface insertRowMeta ) {
+    super( db, insertRowMeta );
+
+    DatabaseMeta databaseMeta = db.getDatabaseMeta();
+    StringBuilder copy = new StringBuilder( 128 );
+    copy.append( "COPY " ).append( databaseMeta.getQuotedSchemaTableCombination( schemaName, tableName ) );
+    copy.append( " (" );
+    for ( int i = 0; i < insertRowMeta.size(); i++ ) {
+      if ( i > 0 ) {
+        copy.append( ", " );
+      }
+      copy.append( databaseMeta.quoteField( insertRowMeta.getValueMeta( i ).getName() ) );
+    }
+    copy.append( ") FROM STDIN WITH CSV" );
+    this.sql = copy.toString();
+    this.booleanDataType = databaseMeta.supportsBooleanDataType();
+  }
+
+  /**
+   * @return true if the connection is one of the PostgreSQL driver, false if it is not or if the driver can't be loaded
+   */
+  static boolean isSupported( Database db ) {
+    try {
+      Connection connection = db.getConnection();
+      return connection != null && connection.isWrapperFor( PGConnection.class );
+    } catch ( SQLException | LinkageError e ) {
+      return false;
+    }
+  }
+
+  String getSql() {
+    return sql;
+  }
+
+  @Override
+  protected void insert( List<Object[]> rows ) throws KettleDatabaseException {
+    PGCopyOutputStream copyOut = null;
+    try {
+      copyOut = new PGCopyOutputStream( db.getConnection().unwrap( PGConnection.class ), sql );
+      for ( Object[] row : rows ) {
+        copyOut.write( getLine( row ).getBytes( StandardCharsets.UTF_8 ) );
+      }
+      copyOut.endCopy();
+    } catch ( SQLException | IOException | KettleValueException e ) {
+      if ( copyOut != null && copyOut.isActive() ) {
+        try {
+          copyOut.cancelCopy();
+        } catch ( SQLException ce ) {
+          e.addSuppressed( ce );
+        }
+      }
+      throw new KettleDatabaseException( "Error copying rows", e );
+    }
+  }
+
+  /**
+   * @return the CSV line of a row, with the line feed
+   */
+  String getLine( Object[] row ) throws KettleValueException {
+    line.setLength( 0 );
+    for ( int i = 0; i < insertRowMeta.size(); i++ ) {
+      if ( i > 0 ) {
+        line.append( ',' );
+      }
+      appendValue( insertRowMeta.getValueMeta( i ), row[i] );
+    }
+    line.append( '\n' );
+    return line.toString();
+  }
+
+  /**
+   * Nulls are left empty, strings are always quoted so that empty strings are not taken for nulls.
+   */
+  private void appendValue( ValueMetaInterface valueMeta, Object value ) throws KettleValueException {
+    if ( valueMeta.isNull( value ) ) {
+      return;
+    }
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        line.append( valueMeta.getInteger( value ).longValue() );
+        break;
+      case ValueMetaInterface.TYPE_NUMBER:
+        line.append( valueMeta.getNumber( value ).doubleValue() );
+        break;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        line.append( valueMeta.getBigNumber( value ).toString() );
+        break;
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        boolean b = valueMeta.getBoolean( value );
+        if ( booleanDataType ) {
+          line.append( b ? "true" : "false" );
+        } else {
+          line.append( b ? 'Y' : 'N' );
+        }
+        break;
+      case ValueMetaInterface.TYPE_DATE:
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        // In the local time zone, like the timestamps set on a prepared statement
+        Date date = valueMeta.getDate( value );
+        line.append( date instanceof Timestamp ? date.toString() : new Timestamp( date.getTime() ).toString() );
+        break;
+      case ValueMetaInterface.TYPE_BINARY:
+        line.append( "\\x" );
+        for ( byte v : valueMeta.getBinary( value ) ) {
+          line.append( HEX_DIGITS[( v >> 4 ) & 0xF] ).append( HEX_DIGITS[v & 0xF] );
+        }
+        break;
+      default:
+        appendQuoted( valueMeta.getString( value ) );
+        break;
+    }
+  }
+
+  private void appendQuoted( String string ) {
+    line.append( '"' );
+    for ( int i = 0; i < string.length(); i++ ) {
+      char c = string.charAt( i );
+      if ( c == '"' ) {
+        line.append( '"' );
+      }
+      line.append( c );
+    }
+    line.append( '"' );
+  }
+
+  @Override
+  public void close() {
+    // Every batch is a COPY of its own
+  }
+}
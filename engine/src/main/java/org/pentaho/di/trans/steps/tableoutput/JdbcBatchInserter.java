@@ -0,0 +1,72 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Inserts the rows of a batch with a single row insert statement, as one JDBC batch if the driver supports it.
+ *
+ * @since 10.3
+ */
+class JdbcBatchInserter extends BatchInserter {
+
+  private final String sql;
+  private PreparedStatement statement;
+
+  JdbcBatchInserter( Database db, String sql, RowMetaInterface insertRowMeta ) {
+    super( db, insertRowMeta );
+    this.sql = sql;
+  }
+
+  @Override
+  protected void insert( List<Object[]> rows ) throws KettleDatabaseException {
+    if ( statement == null ) {
+      statement = db.prepareSQL( sql );
+    }
+    try {
+      for ( Object[] row : rows ) {
+        db.setValues( insertRowMeta, row, statement );
+        db.insertRow( statement, true, false ); // the commit is done once per batch
+      }
+      if ( db.getUseBatchInsert( true ) ) {
+        statement.executeBatch();
+        statement.clearBatch();
+      }
+    } catch ( SQLException e ) {
+      throw Database.createKettleDatabaseBatchException( "Error updating batch", e );
+    }
+  }
+
+  @Override
+  protected void clear() throws KettleDatabaseException {
+    if ( statement != null ) {
+      db.clearBatch( statement );
+    }
+  }
+
+  @Override
+  public void close() throws KettleDatabaseException {
+    if ( statement != null ) {
+      db.closePreparedStatement( statement );
+      statement = null;
+    }
+  }
+}
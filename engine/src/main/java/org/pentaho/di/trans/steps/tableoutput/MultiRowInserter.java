@@ -0,0 +1,141 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseInterface;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseBatchException;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Inserts the rows of a batch with INSERT ... VALUES (...), (...) statements of as many rows as the database takes.
+ * Drivers that send every row of a JDBC batch in a round trip of its own send a statement per round trip instead.
+ *
+ * @since 10.3
+ */
+class MultiRowInserter extends BatchInserter {
+
+  private final String insertPrefix;
+  private final String rowPlaceholders;
+  private final int rowsPerStatement;
+
+  /** The statements by number of rows: the one of full size and those of the last rows of a batch */
+  private final Map<Integer, PreparedStatement> statements = new HashMap<>();
+
+  MultiRowInserter( Database db, String schemaName, String tableName, RowMetaInterface insertRowMeta,
+                    int rowsPerStatement ) {
+    super( db, insertRowMeta );
+    this.rowsPerStatement = rowsPerStatement;
+
+    DatabaseMeta databaseMeta = db.getDatabaseMeta();
+    StringBuilder prefix = new StringBuilder( 128 );
+    prefix.append( "INSERT INTO " ).append( databaseMeta.getQuotedSchemaTableCombination( schemaName, tableName ) );
+    prefix.append( " (" );
+    StringBuilder placeholders = new StringBuilder( "(" );
+    for ( int i = 0; i < insertRowMeta.size(); i++ ) {
+      if ( i > 0 ) {
+        prefix.append( ", " );
+        placeholders.append( ", " );
+      }
+      prefix.append( databaseMeta.quoteField( insertRowMeta.getValueMeta( i ).getName() ) );
+      placeholders.append( '?' );
+    }
+    prefix.append( ") VALUES " );
+    placeholders.append( ')' );
+    this.insertPrefix = prefix.toString();
+    this.rowPlaceholders = placeholders.toString();
+  }
+
+  /**
+   * @return the number of rows of a statement within the limits of the database, 1 if only single row inserts are
+   *         possible
+   */
+  static int getRowsPerStatement( DatabaseInterface databaseInterface, int nrFields ) {
+    int maxRows = databaseInterface.getMaxInsertRowsPerStatement();
+    if ( nrFields > 0 ) {
+      maxRows = Math.min( maxRows, databaseInterface.getMaxStatementParameters() / nrFields );
+    }
+    return Math.max( 1, maxRows );
+  }
+
+  String getSql( int nrRows ) {
+    StringBuilder sql = new StringBuilder( insertPrefix.length() + nrRows * ( rowPlaceholders.length() + 2 ) );
+    sql.append( insertPrefix );
+    for ( int i = 0; i < nrRows; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( rowPlaceholders );
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Sends the statements one after the other. If one fails, the later ones are not sent: the update counts of the
+   * batch exception mark the rows of the failed statement and those after it as failed.
+   */
+  @Override
+  protected void insert( List<Object[]> rows ) throws KettleDatabaseException {
+    int nrFields = insertRowMeta.size();
+    for ( int start = 0; start < rows.size(); start += rowsPerStatement ) {
+      int nrRows = Math.min( rowsPerStatement, rows.size() - start );
+      PreparedStatement statement = getStatement( nrRows );
+      for ( int r = 0; r < nrRows; r++ ) {
+        Object[] row = rows.get( start + r );
+        for ( int i = 0; i < nrFields; i++ ) {
+          db.setValue( statement, insertRowMeta.getValueMeta( i ), row[i], r * nrFields + i + 1 );
+        }
+      }
+      try {
+        statement.executeUpdate();
+      } catch ( SQLException e ) {
+        int[] updateCounts = new int[rows.size()];
+        Arrays.fill( updateCounts, 0, start, 1 );
+        Arrays.fill( updateCounts, start, updateCounts.length, Statement.EXECUTE_FAILED );
+        KettleDatabaseBatchException be = new KettleDatabaseBatchException( "Error inserting rows", e );
+        be.setUpdateCounts( updateCounts );
+        be.setExceptionsList( Collections.singletonList( e ) );
+        throw be;
+      }
+    }
+  }
+
+  private PreparedStatement getStatement( int nrRows ) throws KettleDatabaseException {
+    PreparedStatement statement = statements.get( nrRows );
+    if ( statement == null ) {
+      statement = db.prepareSQL( getSql( nrRows ) );
+      statements.put( nrRows, statement );
+    }
+    return statement;
+  }
+
+  @Override
+  public void close() throws KettleDatabaseException {
+    for ( PreparedStatement statement : statements.values() ) {
+      db.closePreparedStatement( statement );
+    }
+    statements.clear();
+  }
+}
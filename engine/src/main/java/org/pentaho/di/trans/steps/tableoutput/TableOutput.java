@@ -17,6 +17,7 @@ import org.pentaho.di.core.Const;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseInterface;
+import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseBatchException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
@@ -34,6 +35,7 @@ import org.pentaho.di.trans.step.*;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -58,8 +60,8 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     meta = (TableOutputMeta) smi;
     data = (TableOutputData) sdi;
 
-    Object[] r = getRow(); // this also waits for a previous step to be finished.
-    if ( r == null ) { // no more input to be expected...
+    List<Object[]> rows = getRows( ROW_BATCH_SIZE ); // this also waits for a previous step to be finished.
+    if ( rows == null ) { // no more input to be expected...
       // truncate the table if there are no rows at all coming into this step
       if ( first && meta.truncateTable() ) {
         truncateTable();
@@ -106,16 +108,46 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
           }
         }
       }
+
+      if ( ( meta.isAsyncWrites() || meta.isFastInsert() ) && canWriteBatches() ) {
+        if ( meta.isAsyncWrites() ) {
+          data.asyncWriter = newAsyncWriter();
+        } else {
+          data.inserter = newBatchInserter( data.db );
+          data.insertBatch = new ArrayList<>( Math.min( data.commitSize, ROW_BATCH_SIZE * 10 ) );
+          data.insertBatchRows = new ArrayList<>( Math.min( data.commitSize, ROW_BATCH_SIZE * 10 ) );
+        }
+      }
     }
 
+    long previousLinesRead = getLinesRead() - rows.size();
     try {
-      Object[] outputRowData = writeToTable( getInputRowMeta(), r );
-      if ( outputRowData != null ) {
-        putRow( data.outputRowMeta, outputRowData ); // in case we want it go further...
-        incrementLinesOutput();
+      if ( data.asyncWriter != null ) {
+        for ( Object[] r : rows ) {
+          data.asyncWriter.add( getInsertRowData( r ), r );
+        }
+        putWrittenBatches( false );
+      } else if ( data.inserter != null ) {
+        for ( Object[] r : rows ) {
+          data.insertBatch.add( getInsertRowData( r ) );
+          data.insertBatchRows.add( r );
+          if ( data.insertBatch.size() >= data.commitSize ) {
+            writeInsertBatch();
+          }
+        }
+      } else {
+        List<Object[]> outputRows = new ArrayList<>( rows.size() );
+        for ( Object[] r : rows ) {
+          Object[] outputRowData = writeToTable( getInputRowMeta(), r );
+          if ( outputRowData != null ) {
+            outputRows.add( outputRowData );
+          }
+        }
+        putRows( data.outputRowMeta, outputRows ); // in case we want it go further...
+        incrementLinesOutput( outputRows.size() );
       }
 
-      if ( checkFeedback( getLinesRead() ) ) {
+      if ( checkFeedback( previousLinesRead, getLinesRead() ) ) {
         if ( log.isBasic() ) {
           logBasic( "linenr " + getLinesRead() );
         }
@@ -323,16 +355,7 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
       } else {
         data.db.clearBatch( insertStatement );
         data.db.rollback();
-        StringBuilder msg = new StringBuilder( "Error batch inserting rows into table [" + tableName + "]." );
-        msg.append( Const.CR );
-        msg.append( "Errors encountered (first 10):" ).append( Const.CR );
-        for ( int x = 0; x < be.getExceptionsList().size() && x < 10; x++ ) {
-          Exception exception = be.getExceptionsList().get( x );
-          if ( exception.getMessage() != null ) {
-            msg.append( exception.getMessage() ).append( Const.CR );
-          }
-        }
-        throw new KettleException( msg.toString(), be );
+        throw new KettleException( getBatchErrorMessage( tableName, be ), be );
       }
     } catch ( KettleDatabaseException dbe ) {
       if ( getStepMeta().isDoingErrorHandling() ) {
@@ -395,11 +418,8 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
         outputRowData = null;
 
         if ( rowIsSafe ) { // A commit was done and the rows are all safe (no error)
-          for ( int i = 0; i < data.batchBuffer.size(); i++ ) {
-            Object[] row = data.batchBuffer.get( i );
-            putRow( data.outputRowMeta, row );
-            incrementLinesOutput();
-          }
+          putRows( data.outputRowMeta, data.batchBuffer );
+          incrementLinesOutput( data.batchBuffer.size() );
           // Clear the buffer
           data.batchBuffer.clear();
         }
@@ -418,6 +438,207 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     return log.isRowLevel();
   }
 
+  private String getBatchErrorMessage( String tableName, KettleDatabaseBatchException be ) {
+    StringBuilder msg = new StringBuilder( "Error batch inserting rows into table [" + tableName + "]." );
+    msg.append( Const.CR );
+    msg.append( "Errors encountered (first 10):" ).append( Const.CR );
+    for ( int x = 0; x < be.getExceptionsList().size() && x < 10; x++ ) {
+      Exception exception = be.getExceptionsList().get( x );
+      if ( exception.getMessage() != null ) {
+        msg.append( exception.getMessage() ).append( Const.CR );
+      }
+    }
+    return msg.toString();
+  }
+
+  /**
+   * The batches are written as a whole, in the background or with the fastest insert, if the rows allow it: they all go
+   * to the same table, without generated keys or savepoints, in batches.
+   *
+   * @return true to write batches, false to insert the rows one by one
+   */
+  private boolean canWriteBatches() {
+    if ( !data.batchMode || data.tableName == null || meta.ignoreErrors() ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.BatchWritesNotPossible" ) );
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return the fastest inserter the database supports on a connection, if asked for, JDBC batches otherwise
+   */
+  BatchInserter newBatchInserter( Database db ) throws KettleDatabaseException {
+    String schemaName = environmentSubstitute( meta.getSchemaName() );
+    BatchInserter inserter = null;
+    if ( meta.isFastInsert() ) {
+      DatabaseInterface dbInterface = data.databaseMeta.getDatabaseInterface();
+      int rowsPerStatement = MultiRowInserter.getRowsPerStatement( dbInterface, data.insertRowMeta.size() );
+      if ( dbInterface.supportsCopyFromStdin() && CopyInserter.isSupported( db ) ) {
+        CopyInserter copyInserter = new CopyInserter( db, schemaName, data.tableName, data.insertRowMeta );
+        if ( log.isDetailed() ) {
+          logDetailed( "Copy statement : " + copyInserter.getSql() );
+        }
+        inserter = copyInserter;
+      } else if ( rowsPerStatement > 1 ) {
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "TableOutput.Log.InsertingMultipleRows", rowsPerStatement ) );
+        }
+        inserter = new MultiRowInserter( db, schemaName, data.tableName, data.insertRowMeta, rowsPerStatement );
+      } else {
+        logBasic( BaseMessages.getString( PKG, "TableOutput.Log.FastInsertNotSupported" ) );
+      }
+    }
+    if ( inserter == null ) {
+      String sql = db.getInsertStatement( schemaName, data.tableName, data.insertRowMeta );
+      if ( log.isDetailed() ) {
+        logDetailed( "Prepared statement : " + sql );
+      }
+      inserter = new JdbcBatchInserter( db, sql, data.insertRowMeta );
+    }
+    return inserter;
+  }
+
+  /**
+   * Sets up writing the batches on background threads.
+   */
+  private AsyncBatchWriter newAsyncWriter() throws KettleException {
+    // Every batch written at the same time needs a connection of its own, the first one is the step's
+    //
+    int nrConnections = Math.max( 1, Const.toInt( environmentSubstitute( meta.getAsyncConnections() ), 1 ) );
+    List<BatchInserter> inserters = new ArrayList<>();
+    try {
+      inserters.add( newBatchInserter( data.db ) );
+      for ( int i = 1; i < nrConnections; i++ ) {
+        Database db = getDatabase( meta.getDatabaseMeta() );
+        db.shareVariablesWith( this );
+        db.setCommitSize( data.commitSize );
+        try {
+          db.connect( getPartitionID() );
+          db.setAutoCommit();
+          inserters.add( newBatchInserter( db ) );
+        } catch ( KettleDatabaseException e ) {
+          db.disconnect();
+          throw e;
+        }
+      }
+    } catch ( KettleDatabaseException e ) {
+      for ( BatchInserter inserter : inserters ) {
+        if ( inserter.getDatabase() != data.db ) {
+          inserter.getDatabase().disconnect();
+        }
+      }
+      throw e;
+    }
+
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "TableOutput.Log.WritingAsynchronously", data.commitSize,
+        inserters.size() ) );
+    }
+    return new AsyncBatchWriter( inserters, data.commitSize, getStepMeta().isDoingErrorHandling(),
+      getStepname() + " - writer" );
+  }
+
+  Database getDatabase( DatabaseMeta databaseMeta ) {
+    return new Database( this, databaseMeta );
+  }
+
+  /**
+   * @return the values of a row to insert in the table
+   */
+  private Object[] getInsertRowData( Object[] r ) {
+    if ( !meta.specifyFields() ) {
+      return r;
+    }
+    Object[] insertRowData = new Object[data.valuenrs.length];
+    for ( int idx = 0; idx < data.valuenrs.length; idx++ ) {
+      insertRowData[idx] = r[data.valuenrs[idx]];
+    }
+    return insertRowData;
+  }
+
+  /**
+   * Passes on the rows of the batches that were written, in the order they were read. The rows of a failed batch go to
+   * the error handling of the step, if any.
+   *
+   * @param all true to wait for all the batches in flight
+   */
+  private void putWrittenBatches( boolean all ) throws KettleException {
+    for ( AsyncBatchWriter.Batch batch = data.asyncWriter.take( all ); batch != null;
+          batch = data.asyncWriter.take( all ) ) {
+      putBatch( batch.getOutputRows(), batch.getError() );
+    }
+  }
+
+  /**
+   * Inserts the current batch on the step thread and passes on its rows.
+   */
+  private void writeInsertBatch() throws KettleException {
+    KettleDatabaseException error = null;
+    try {
+      data.inserter.write( data.insertBatch, getStepMeta().isDoingErrorHandling() );
+    } catch ( KettleDatabaseException e ) {
+      error = e;
+    }
+    data.insertBatch.clear();
+    try {
+      putBatch( data.insertBatchRows, error );
+    } finally {
+      data.insertBatchRows.clear();
+    }
+  }
+
+  /**
+   * Passes on the rows of a batch that was written. The rows of a failed batch go to the error handling of the step, if
+   * any.
+   *
+   * @param outputRows the rows of the batch
+   * @param error      the error writing the batch or null
+   */
+  private void putBatch( List<Object[]> outputRows, KettleDatabaseException error ) throws KettleException {
+    if ( error == null ) {
+      putRows( data.outputRowMeta, outputRows );
+      incrementLinesOutput( outputRows.size() );
+    } else if ( getStepMeta().isDoingErrorHandling() ) {
+      data.batchBuffer.addAll( outputRows );
+      if ( error instanceof KettleDatabaseBatchException ) {
+        KettleDatabaseBatchException be = (KettleDatabaseBatchException) error;
+        processBatchException( be.toString(), be.getUpdateCounts(), be.getExceptionsList() );
+      } else {
+        processBatchException( error.toString(), null, null );
+      }
+    } else if ( error instanceof KettleDatabaseBatchException ) {
+      throw new KettleException( getBatchErrorMessage( data.tableName, (KettleDatabaseBatchException) error ),
+        error );
+    } else {
+      throw new KettleException( "Error inserting rows into table [" + data.tableName + "]", error );
+    }
+  }
+
+  /**
+   * Waits for the batches being written and releases the extra connections, rolled back if the step failed.
+   */
+  private void closeAsyncWriter() {
+    try {
+      data.asyncWriter.close();
+    } catch ( KettleDatabaseException e ) {
+      logError( "Unexpected error closing the insert statements.", e );
+    }
+    for ( Database db : data.asyncWriter.getConnections() ) {
+      if ( db != data.db ) {
+        if ( getErrors() > 0 ) {
+          try {
+            db.rollback();
+          } catch ( KettleDatabaseException e ) {
+            logError( "Unexpected error rolling back the database connection.", e );
+          }
+        }
+        db.disconnect();
+      }
+    }
+    data.asyncWriter = null;
+  }
+
   private void processBatchException( String errorMessage, int[] updateCounts, List<Exception> exceptionsList ) throws KettleException {
     // There was an error with the commit
     // We should put all the failing rows out there...
@@ -544,6 +765,13 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
 
     if ( data.db != null ) {
       try {
+        if ( data.asyncWriter != null && getErrors() == 0 ) {
+          data.asyncWriter.flush();
+          putWrittenBatches( true );
+        }
+        if ( data.inserter != null && getErrors() == 0 && !data.insertBatch.isEmpty() ) {
+          writeInsertBatch();
+        }
         for ( String schemaTable : data.preparedStatements.keySet() ) {
           // Get a commit counter per prepared statement to keep track of separate tables, etc.
           //
@@ -556,11 +784,8 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
 
           data.db.emptyAndCommit( insertStatement, data.batchMode, batchCounter );
         }
-        for ( int i = 0; i < data.batchBuffer.size(); i++ ) {
-          Object[] row = data.batchBuffer.get( i );
-          putRow( data.outputRowMeta, row );
-          incrementLinesOutput();
-        }
+        putRows( data.outputRowMeta, data.batchBuffer );
+        incrementLinesOutput( data.batchBuffer.size() );
         // Clear the buffer
         data.batchBuffer.clear();
       } catch ( KettleDatabaseBatchException be ) {
@@ -585,6 +810,17 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
         setErrors( 1 );
         stopAll();
       } finally {
+        if ( data.asyncWriter != null ) {
+          closeAsyncWriter();
+        }
+        if ( data.inserter != null ) {
+          try {
+            data.inserter.close();
+          } catch ( KettleDatabaseException e ) {
+            logError( "Unexpected error closing the insert statements.", e );
+          }
+          data.inserter = null;
+        }
         setOutputDone();
 
         if ( getErrors() > 0 ) {
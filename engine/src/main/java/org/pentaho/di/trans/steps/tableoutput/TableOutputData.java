@@ -69,6 +69,16 @@ public class TableOutputData extends BaseDatabaseStepData implements StepDataInt
 
   public int commitSize;
 
+  /** Writes the batches on background threads, null to write them on the step thread */
+  public AsyncBatchWriter asyncWriter;
+
+  /** Inserts the batches on the step thread the fastest way the database supports, null to insert row by row */
+  public BatchInserter inserter;
+
+  /** The values of the batch to insert and the rows to pass on once it is inserted */
+  public List<Object[]> insertBatch;
+  public List<Object[]> insertBatchRows;
+
   public TableOutputData() {
     super();
 
@@ -99,6 +99,31 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
   }
   private boolean useBatchUpdate;
 
+  /**
+   * Write the batches on background threads while the step goes on reading rows
+   */
+  @Injection( name = "ASYNC_WRITES" )
+  public void metaSetAsyncWrites( String value ) {
+    setAsyncWrites( "Y".equalsIgnoreCase( value ) );
+  }
+  private boolean asyncWrites;
+
+  /**
+   * The number of connections batches are written on at the same time, the rows are inserted out of order with more
+   * than one
+   */
+  @Injection( name = "ASYNC_CONNECTIONS" )
+  private String asyncConnections;
+
+  /**
+   * Insert the batches the fastest way the database supports: COPY, multi-row VALUES or JDBC batches
+   */
+  @Injection( name = "FAST_INSERT" )
+  public void metaSetFastInsert( String value ) {
+    setFastInsert( "Y".equalsIgnoreCase( value ) );
+  }
+  private boolean fastInsert;
+
 
   @Injection( name = "PARTITION_OVER_TABLES" )
   public void metaSetPartitionOverTables( String value ) {
@@ -287,6 +312,7 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     super(); // allocate BaseStepMeta
     useBatchUpdate = true;
     commitSize = "1000";
+    asyncConnections = "1";
 
     fieldStream = new String[ 0 ];
     fieldDatabase = new String[ 0 ];
@@ -438,6 +464,48 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     return useBatchUpdate;
   }
 
+  /**
+   * @return true if the batches are written on background threads
+   */
+  public boolean isAsyncWrites() {
+    return asyncWrites;
+  }
+
+  /**
+   * @param asyncWrites true to write the batches on background threads
+   */
+  public void setAsyncWrites( boolean asyncWrites ) {
+    this.asyncWrites = asyncWrites;
+  }
+
+  /**
+   * @return the number of connections batches are written on at the same time
+   */
+  public String getAsyncConnections() {
+    return asyncConnections;
+  }
+
+  /**
+   * @param asyncConnections the number of connections batches are written on at the same time
+   */
+  public void setAsyncConnections( String asyncConnections ) {
+    this.asyncConnections = asyncConnections;
+  }
+
+  /**
+   * @return true if the batches are inserted the fastest way the database supports
+   */
+  public boolean isFastInsert() {
+    return fastInsert;
+  }
+
+  /**
+   * @param fastInsert true to insert the batches the fastest way the database supports
+   */
+  public void setFastInsert( boolean fastInsert ) {
+    this.fastInsert = fastInsert;
+  }
+
   private void readData( Node stepnode, List<? extends SharedObjectInterface> databases ) throws KettleXMLException {
     try {
       String con = XMLHandler.getTagValue( stepnode, "connection" );
@@ -448,6 +516,9 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       truncateTable = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "truncate" ) );
       ignoreErrors = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "ignore_errors" ) );
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_batch" ) );
+      asyncWrites = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "async_writes" ) );
+      asyncConnections = XMLHandler.getTagValue( stepnode, "async_connections" );
+      fastInsert = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "fast_insert" ) );
 
       // If not present it will be false to be compatible with pre-v3.2
       specifyFields = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "specify_fields" ) );
@@ -484,6 +555,7 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     databaseMeta = null;
     tableName = "";
     commitSize = "1000";
+    asyncConnections = "1";
 
     partitioningEnabled = false;
     partitioningMonthly = true;
@@ -506,6 +578,9 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     retval.append( "    " + XMLHandler.addTagValue( "truncate", truncateTable ) );
     retval.append( "    " + XMLHandler.addTagValue( "ignore_errors", ignoreErrors ) );
     retval.append( "    " + XMLHandler.addTagValue( "use_batch", useBatchUpdate ) );
+    retval.append( "    " + XMLHandler.addTagValue( "async_writes", asyncWrites ) );
+    retval.append( "    " + XMLHandler.addTagValue( "async_connections", asyncConnections ) );
+    retval.append( "    " + XMLHandler.addTagValue( "fast_insert", fastInsert ) );
     retval.append( "    " + XMLHandler.addTagValue( "specify_fields", specifyFields ) );
 
     retval.append( "    " + XMLHandler.addTagValue( "partitioning_enabled", partitioningEnabled ) );
@@ -543,6 +618,9 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       truncateTable = rep.getStepAttributeBoolean( id_step, "truncate" );
       ignoreErrors = rep.getStepAttributeBoolean( id_step, "ignore_errors" );
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "use_batch" );
+      asyncWrites = rep.getStepAttributeBoolean( id_step, "async_writes" );
+      asyncConnections = rep.getStepAttributeString( id_step, "async_connections" );
+      fastInsert = rep.getStepAttributeBoolean( id_step, "fast_insert" );
       specifyFields = rep.getStepAttributeBoolean( id_step, "specify_fields" );
 
       partitioningEnabled = rep.getStepAttributeBoolean( id_step, "partitioning_enabled" );
@@ -582,6 +660,9 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       rep.saveStepAttribute( id_transformation, id_step, "truncate", truncateTable );
       rep.saveStepAttribute( id_transformation, id_step, "ignore_errors", ignoreErrors );
       rep.saveStepAttribute( id_transformation, id_step, "use_batch", useBatchUpdate );
+      rep.saveStepAttribute( id_transformation, id_step, "async_writes", asyncWrites );
+      rep.saveStepAttribute( id_transformation, id_step, "async_connections", asyncConnections );
+      rep.saveStepAttribute( id_transformation, id_step, "fast_insert", fastInsert );
       rep.saveStepAttribute( id_transformation, id_step, "specify_fields", specifyFields );
 
       rep.saveStepAttribute( id_transformation, id_step, "partitioning_enabled", partitioningEnabled );
@@ -68,6 +68,11 @@ public class TextFileOutput extends BaseStep implements StepInterface {
 
   public TextFileOutputData data;
 
+  /**
+   * The written rows to pass on to the next steps once the current batch of rows is written, null outside of a batch.
+   */
+  private List<Object[]> forwardedRows;
+
   public TextFileOutput( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr, TransMeta transMeta,
       Trans trans ) {
     super( stepMeta, stepDataInterface, copyNr, transMeta, trans );
@@ -300,7 +305,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
       }
       first = false;
       writeRow( data.outputRowMeta, row );
-      putRow( data.outputRowMeta, row ); // in case we want it to go further...
+      forwardRow( row ); // in case we want it to go further...
 
       if ( checkFeedback( getLinesOutput() ) ) {
         logBasic( "linenr " + getLinesOutput() );
@@ -376,7 +381,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
       }
 
       writeRow( data.outputRowMeta, row );
-      putRow( data.outputRowMeta, row ); // in case we want it to go further...
+      forwardRow( row ); // in case we want it to go further...
 
       if ( checkFeedback( getLinesOutput() ) ) {
         logBasic( "linenr " + getLinesOutput() );
@@ -432,7 +437,8 @@ public class TextFileOutput extends BaseStep implements StepInterface {
       meta.setEncoding( CharsetToolkit.getDefaultSystemCharset().name() );
     }
 
-    Object[] row = getRow(); // This also waits for a row to be finished.
+    List<Object[]> rows = getRows( ROW_BATCH_SIZE ); // This also waits for a row to be finished.
+    Object[] row = rows == null ? null : rows.get( 0 );
 
     if ( first ) {
 
@@ -451,7 +457,31 @@ public class TextFileOutput extends BaseStep implements StepInterface {
       }
     }
 
-    return writeRowTo( row );
+    if ( rows == null || rows.size() == 1 ) {
+      return writeRowTo( row );
+    }
+
+    forwardedRows = new ArrayList<>( rows.size() );
+    try {
+      for ( Object[] r : rows ) {
+        writeRowTo( r );
+      }
+      putRows( data.outputRowMeta, forwardedRows );
+    } finally {
+      forwardedRows = null;
+    }
+    return true;
+  }
+
+  /**
+   * Passes a written row on to the next steps, at the end of the current batch of rows if there is one.
+   */
+  protected void forwardRow( Object[] row ) throws KettleStepException {
+    if ( forwardedRows != null ) {
+      forwardedRows.add( row );
+    } else {
+      putRow( data.outputRowMeta, row );
+    }
   }
 
   protected boolean writeRowTo( Object[] row ) throws KettleException {
@@ -14,6 +14,10 @@
 package org.pentaho.di.trans.steps.uniquerowsbyhashset;
 
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.hash.RowKeyHashIndex;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -38,8 +42,9 @@ public class UniqueRowsByHashSet extends BaseStep implements StepInterface {
     data = (UniqueRowsByHashSetData) stepDataInterface; // create new data object.
   }
 
-  private boolean isUniqueRow( Object[] row ) {
-    return data.seen.add( new RowKey( row, data ) );
+  private boolean isUniqueRow( Object[] row ) throws KettleValueException {
+    int size = data.seen.getSize();
+    return data.seen.add( row ) == size;
   }
 
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
@@ -84,6 +89,18 @@ public class UniqueRowsByHashSet extends BaseStep implements StepInterface {
       if ( data.sendDuplicateRows && !Utils.isEmpty( meta.getErrorDescription() ) ) {
         data.realErrorDescription = environmentSubstitute( meta.getErrorDescription() );
       }
+
+      // Key on the compare fields or on the entire row
+      //
+      if ( data.fieldnrs.length == 0 ) {
+        data.seen = new RowKeyHashIndex( data.inputRowMeta, null, data.storeValues );
+      } else {
+        RowMetaInterface keyMeta = new RowMeta();
+        for ( int fieldnr : data.fieldnrs ) {
+          keyMeta.addValueMeta( data.inputRowMeta.getValueMeta( fieldnr ) );
+        }
+        data.seen = new RowKeyHashIndex( keyMeta, data.fieldnrs, data.storeValues );
+      }
     }
 
     if ( isUniqueRow( r ) ) {
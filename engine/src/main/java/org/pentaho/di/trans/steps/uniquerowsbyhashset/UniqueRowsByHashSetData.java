@@ -13,8 +13,7 @@
 
 package org.pentaho.di.trans.steps.uniquerowsbyhashset;
 
-import java.util.HashSet;
-
+import org.pentaho.di.core.hash.RowKeyHashIndex;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -28,13 +27,15 @@ public class UniqueRowsByHashSetData extends BaseStepData implements StepDataInt
   public String realErrorDescription;
   boolean sendDuplicateRows;
 
-  public HashSet<RowKey> seen = new HashSet<RowKey>();
+  /** The keys seen so far, only a hash of every key unless the values are stored */
+  public RowKeyHashIndex seen;
 
   public UniqueRowsByHashSetData() {
     super();
   }
 
   public void clearHashSet() {
+    seen = null;
     sendDuplicateRows = false;
     compareFields = null;
     realErrorDescription = null;
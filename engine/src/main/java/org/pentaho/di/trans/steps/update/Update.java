@@ -13,8 +13,14 @@
 
 package org.pentaho.di.trans.steps.update;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.pentaho.di.core.Const;
@@ -23,6 +29,7 @@ import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -49,20 +56,28 @@ public class Update extends BaseDatabaseStep implements StepInterface {
   }
 
   private synchronized Object[] lookupValues( RowMetaInterface rowMeta, Object[] row ) throws KettleException {
-    Object[] outputRow = row;
-    Object[] add;
-
-    // Create the output row and copy the input values
-    if ( !Utils.isEmpty( meta.getIgnoreFlagField() ) ) { // add flag field!
+    // OK, now do the lookup.
+    // We need the lookupvalues for that.
+    Object[] lookupRow = getLookupRow( row );
 
-      outputRow = new Object[data.outputRowMeta.size()];
-      for ( int i = 0; i < rowMeta.size(); i++ ) {
-        outputRow[i] = row[i];
+    RowMetaInterface returnRowMeta = null;
+    Object[] add;
+    if ( !meta.isSkipLookup() ) {
+      data.db.setValues( data.lookupParameterRowMeta, lookupRow, data.prepStatementLookup );
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "Update.Log.ValuesSetForLookup", data.lookupParameterRowMeta
+          .getString( lookupRow ), rowMeta.getString( row ) ) );
       }
+      add = data.db.getLookup( data.prepStatementLookup );
+      returnRowMeta = data.db.getReturnRowMeta();
+    } else {
+      add = null;
     }
 
-    // OK, now do the lookup.
-    // We need the lookupvalues for that.
+    return updateValues( rowMeta, row, lookupRow, add, returnRowMeta );
+  }
+
+  private Object[] getLookupRow( Object[] row ) {
     Object[] lookupRow = new Object[data.lookupParameterRowMeta.size()];
     int lookupIndex = 0;
 
@@ -77,17 +92,25 @@ public class Update extends BaseDatabaseStep implements StepInterface {
         lookupIndex++;
       }
     }
-    RowMetaInterface returnRowMeta = null;
-    if ( !meta.isSkipLookup() ) {
-      data.db.setValues( data.lookupParameterRowMeta, lookupRow, data.prepStatementLookup );
-      if ( log.isDebug() ) {
-        logDebug( BaseMessages.getString( PKG, "Update.Log.ValuesSetForLookup", data.lookupParameterRowMeta
-          .getString( lookupRow ), rowMeta.getString( row ) ) );
+    return lookupRow;
+  }
+
+  /**
+   * Updates the row in the table, if needed, given the result of its lookup.
+   *
+   * @return the output row or null if the row went to the error handling
+   */
+  private Object[] updateValues( RowMetaInterface rowMeta, Object[] row, Object[] lookupRow, Object[] add,
+    RowMetaInterface returnRowMeta ) throws KettleException {
+    Object[] outputRow = row;
+
+    // Create the output row and copy the input values
+    if ( !Utils.isEmpty( meta.getIgnoreFlagField() ) ) { // add flag field!
+
+      outputRow = new Object[data.outputRowMeta.size()];
+      for ( int i = 0; i < rowMeta.size(); i++ ) {
+        outputRow[i] = row[i];
       }
-      add = data.db.getLookup( data.prepStatementLookup );
-      returnRowMeta = data.db.getReturnRowMeta();
-    } else {
-      add = null;
     }
 
     incrementLinesInput();
@@ -198,6 +221,15 @@ public class Update extends BaseDatabaseStep implements StepInterface {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
 
+      if ( data.lookupBatch != null ) {
+        try {
+          lookupBatch();
+        } catch ( KettleException e ) {
+          logError( BaseMessages.getString( PKG, "Update.Log.ErrorInStep" ), e );
+          setErrors( 1 );
+          stopAll();
+        }
+      }
       setOutputDone();
       return false;
     }
@@ -297,14 +329,24 @@ public class Update extends BaseDatabaseStep implements StepInterface {
         }
       } else {
         setLookup( getInputRowMeta() );
+        if ( meta.isBatchLookup() ) {
+          prepareBatchLookup( getInputRowMeta() );
+        }
       }
       prepareUpdate( getInputRowMeta() );
     }
 
     try {
-      Object[] outputRow = lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
-      if ( outputRow != null ) {
-        putRow( data.outputRowMeta, outputRow ); // copy non-ignored rows to output rowset(s);
+      if ( data.lookupBatch != null ) {
+        data.lookupBatch.add( r );
+        if ( data.lookupBatch.size() >= data.lookupBatchSize ) {
+          lookupBatch();
+        }
+      } else {
+        Object[] outputRow = lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
+        if ( outputRow != null ) {
+          putRow( data.outputRowMeta, outputRow ); // copy non-ignored rows to output rowset(s);
+        }
       }
       if ( checkFeedback( getLinesRead() ) ) {
         if ( log.isBasic() ) {
@@ -400,6 +442,214 @@ public class Update extends BaseDatabaseStep implements StepInterface {
 
   }
 
+  /**
+   * Sets up the batch lookup if all the keys compare for equality. The rows of a batch are then looked up with a single
+   * query and matched with the rows found by their keys.
+   */
+  public void prepareBatchLookup( RowMetaInterface rowMeta ) {
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      if ( !"=".equals( meta.getKeyCondition()[i] ) ) {
+        logBasic( BaseMessages.getString( PKG, "Update.Log.BatchLookupNotPossible", meta.getKeyLookup()[i] ) );
+        return;
+      }
+    }
+
+    data.batchLookupRowMeta = new RowMeta();
+    data.batchLookupReturnRowMeta = new RowMeta();
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      ValueMetaInterface keyMeta = rowMeta.getValueMeta( data.keynrs[i] ).clone();
+      keyMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+      data.batchLookupRowMeta.addValueMeta( keyMeta );
+    }
+    for ( int i = 0; i < data.valuenrs.length; i++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( data.valuenrs[i] ).clone();
+      valueMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+      data.batchLookupRowMeta.addValueMeta( valueMeta );
+      data.batchLookupReturnRowMeta.addValueMeta( valueMeta );
+    }
+
+    int maxParameters = meta.getDatabaseMeta().getDatabaseInterface().getMaxStatementParameters();
+    data.lookupBatchSize = Math.max( 1, Math.min( UpdateMeta.BATCH_LOOKUP_SIZE, maxParameters / data.keynrs.length ) );
+    data.lookupBatch = new ArrayList<Object[]>( data.lookupBatchSize );
+  }
+
+  String getBatchLookupSql( int nrRows ) {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    String[] keyLookup = meta.getKeyLookup();
+
+    StringBuilder sql = new StringBuilder( "SELECT " );
+    for ( int i = 0; i < keyLookup.length; i++ ) {
+      sql.append( databaseMeta.quoteField( keyLookup[i] ) ).append( ", " );
+    }
+    for ( int i = 0; i < meta.getUpdateLookup().length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( databaseMeta.quoteField( meta.getUpdateLookup()[i] ) );
+    }
+    sql.append( " FROM " ).append( data.schemaTable ).append( " WHERE " );
+
+    if ( keyLookup.length == 1 ) {
+      sql.append( databaseMeta.quoteField( keyLookup[0] ) ).append( " IN (" );
+      for ( int r = 0; r < nrRows; r++ ) {
+        sql.append( r == 0 ? "?" : ", ?" );
+      }
+      sql.append( ')' );
+    } else {
+      for ( int r = 0; r < nrRows; r++ ) {
+        sql.append( r == 0 ? "( " : " OR ( " );
+        for ( int i = 0; i < keyLookup.length; i++ ) {
+          if ( i > 0 ) {
+            sql.append( " AND " );
+          }
+          sql.append( databaseMeta.quoteField( keyLookup[i] ) ).append( " = ?" );
+        }
+        sql.append( " )" );
+      }
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Looks up the rows of the batch with a single query, then updates them the way they are updated one by one. Rows
+   * without a match are looked up one by one: the database can find keys that compare differently here, like strings
+   * in a case insensitive collation.
+   */
+  private void lookupBatch() throws KettleException {
+    List<Object[]> rows = data.lookupBatch;
+    if ( rows.isEmpty() ) {
+      return;
+    }
+    RowMetaInterface rowMeta = getInputRowMeta();
+
+    Map<Object[], Object[]> found;
+    try {
+      found = lookupKeys( rows );
+    } catch ( KettleDatabaseException e ) {
+      if ( !getStepMeta().isDoingErrorHandling() ) {
+        rows.clear();
+        throw e;
+      }
+      for ( Object[] row : rows ) {
+        putError( rowMeta, row, 1, e.toString(), null, "UPD001" );
+      }
+      rows.clear();
+      return;
+    }
+
+    try {
+      for ( Object[] row : rows ) {
+        try {
+          Object[] key = getBatchLookupKey( rowMeta, row );
+          Object[] add = key == null ? null : found.get( key );
+          Object[] outputRow;
+          if ( add == null ) {
+            outputRow = lookupValues( rowMeta, row );
+          } else {
+            outputRow = updateValues( rowMeta, row, getLookupRow( row ), add, data.batchLookupReturnRowMeta );
+
+            // Later rows with the same key compare with the values of this one, as they would one by one
+            Object[] values = new Object[data.valuenrs.length];
+            for ( int i = 0; i < data.valuenrs.length; i++ ) {
+              values[i] = rowMeta.getValueMeta( data.valuenrs[i] ).convertToNormalStorageType( row[data.valuenrs[i]] );
+            }
+            found.put( key, values );
+          }
+          if ( outputRow != null ) {
+            putRow( data.outputRowMeta, outputRow ); // copy non-ignored rows to output rowset(s);
+          }
+        } catch ( KettleException e ) {
+          if ( !getStepMeta().isDoingErrorHandling() ) {
+            throw e;
+          }
+          putError( rowMeta, row, 1, e.toString(), null, "UPD001" );
+        }
+      }
+    } finally {
+      rows.clear();
+    }
+  }
+
+  /**
+   * @return the keys of the rows, converted to normal storage, or null if a key is null: a null never equals anything
+   */
+  private Object[] getBatchLookupKey( RowMetaInterface rowMeta, Object[] row ) throws KettleValueException {
+    Object[] key = new Object[data.keynrs.length];
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      ValueMetaInterface keyMeta = rowMeta.getValueMeta( data.keynrs[i] );
+      if ( keyMeta.isNull( row[data.keynrs[i]] ) ) {
+        return null;
+      }
+      key[i] = keyMeta.convertToNormalStorageType( row[data.keynrs[i]] );
+    }
+    return key;
+  }
+
+  /**
+   * @return the values to compare of the rows found, by key
+   */
+  private Map<Object[], Object[]> lookupKeys( List<Object[]> rows ) throws KettleDatabaseException {
+    int nrRows = rows.size();
+    int nrKeys = data.keynrs.length;
+    boolean fullBatch = nrRows == data.lookupBatchSize;
+
+    PreparedStatement statement = fullBatch ? data.prepStatementBatchLookup : null;
+    if ( statement == null ) {
+      String sql = getBatchLookupSql( nrRows );
+      if ( log.isDetailed() ) {
+        logDetailed( "Setting batch lookup preparedStatement to [" + sql + "]" );
+      }
+      statement = data.db.prepareSQL( sql );
+      if ( fullBatch ) {
+        data.prepStatementBatchLookup = statement;
+      }
+    }
+
+    Map<Object[], Object[]> found = new TreeMap<Object[], Object[]>( this::compareBatchLookupKeys );
+    try {
+      RowMetaInterface rowMeta = getInputRowMeta();
+      for ( int r = 0; r < nrRows; r++ ) {
+        Object[] row = rows.get( r );
+        for ( int i = 0; i < nrKeys; i++ ) {
+          data.db.setValue( statement, rowMeta.getValueMeta( data.keynrs[i] ), row[data.keynrs[i]],
+            r * nrKeys + i + 1 );
+        }
+      }
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "Update.Log.LookingUpBatch", nrRows ) );
+      }
+      try ( ResultSet resultSet = statement.executeQuery() ) {
+        Object[] result;
+        while ( ( result = data.db.getRow( resultSet, null, data.batchLookupRowMeta ) ) != null ) {
+          // The first row found for a key is used, like a lookup of a single row does
+          found.putIfAbsent( Arrays.copyOf( result, nrKeys ), Arrays.copyOfRange( result, nrKeys, result.length ) );
+        }
+      }
+    } catch ( SQLException e ) {
+      throw new KettleDatabaseException( "Error looking up rows in database", e );
+    } finally {
+      if ( !fullBatch ) {
+        data.db.closePreparedStatement( statement );
+      }
+    }
+    return found;
+  }
+
+  private int compareBatchLookupKeys( Object[] key1, Object[] key2 ) {
+    try {
+      for ( int i = 0; i < key1.length; i++ ) {
+        int cmp = data.batchLookupRowMeta.getValueMeta( i ).compare( key1[i], key2[i] );
+        if ( cmp != 0 ) {
+          return cmp;
+        }
+      }
+      return 0;
+    } catch ( KettleValueException e ) {
+      logError( "Error comparing keys: " + e.toString() );
+      return 0;
+    }
+  }
+
   // Lookup certain fields in a table
   public void prepareUpdate( RowMetaInterface rowMeta ) throws KettleDatabaseException {
     DatabaseMeta databaseMeta = meta.getDatabaseMeta();
@@ -495,6 +745,7 @@ public class Update extends BaseDatabaseStep implements StepInterface {
         }
         data.db.closePreparedStatement( data.prepStatementUpdate );
         data.db.closePreparedStatement( data.prepStatementLookup );
+        data.db.closePreparedStatement( data.prepStatementBatchLookup );
       } catch ( KettleDatabaseException e ) {
         logError( BaseMessages.getString( PKG, "Update.Log.UnableToCommitUpdateConnection" )
           + data.db + "] :" + e.toString() );
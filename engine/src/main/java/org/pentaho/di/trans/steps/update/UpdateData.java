@@ -14,6 +14,7 @@
 package org.pentaho.di.trans.steps.update;
 
 import java.sql.PreparedStatement;
+import java.util.List;
 
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -47,6 +48,16 @@ public class UpdateData extends BaseDatabaseStepData implements StepDataInterfac
   public RowMetaInterface lookupReturnRowMeta;
   public RowMetaInterface updateParameterRowMeta;
 
+  /** The rows waiting for their batch lookup, null if the rows are looked up one by one */
+  public List<Object[]> lookupBatch;
+  public int lookupBatchSize;
+  /** The lookup of a full batch */
+  public PreparedStatement prepStatementBatchLookup;
+  /** The keys followed by the values to compare, as returned by the batch lookup */
+  public RowMetaInterface batchLookupRowMeta;
+  /** The values to compare, as returned by the batch lookup */
+  public RowMetaInterface batchLookupReturnRowMeta;
+
   public UpdateData() {
     super();
 
@@ -55,6 +55,9 @@ import java.util.List;
 public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterface {
   private static Class<?> PKG = UpdateMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The maximum number of rows looked up with a single query */
+  public static final int BATCH_LOOKUP_SIZE = 1000;
+
   private List<? extends SharedObjectInterface> databases;
 
   /** The lookup table name */
@@ -108,6 +111,10 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
   @Injection( name = "SKIP_LOOKUP" )
   private boolean skipLookup;
 
+  /** Look up the rows in batches, with a single query per batch */
+  @Injection( name = "BATCH_LOOKUP" )
+  private boolean batchLookup;
+
   /** Flag to indicate the use of batch updates, enabled by default but disabled for backward compatibility */
   @Injection( name = "BATCH_UPDATE" )
   private boolean useBatchUpdate;
@@ -178,6 +185,21 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     this.skipLookup = skipLookup;
   }
 
+  /**
+   * @return true if the rows are looked up in batches
+   */
+  public boolean isBatchLookup() {
+    return batchLookup;
+  }
+
+  /**
+   * @param batchLookup
+   *          true to look up the rows in batches
+   */
+  public void setBatchLookup( boolean batchLookup ) {
+    this.batchLookup = batchLookup;
+  }
+
   /**
    * @return Returns the database.
    */
@@ -372,6 +394,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
       commitSize = ( csize == null ) ? "0" : csize;
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_batch" ) );
       skipLookup = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "skip_lookup" ) );
+      batchLookup = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "batch_lookup" ) );
       errorIgnored = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "error_ignored" ) );
       ignoreFlagField = XMLHandler.getTagValue( stepnode, "ignore_flag_field" );
       schemaName = XMLHandler.getTagValue( stepnode, "lookup", "schema" );
@@ -413,6 +436,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
   @Override
   public void setDefault() {
     skipLookup = false;
+    batchLookup = false;
     keyStream = null;
     updateLookup = null;
     databaseMeta = null;
@@ -445,6 +469,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     retval
       .append( "    " + XMLHandler.addTagValue( "connection", databaseMeta == null ? "" : databaseMeta.getName() ) );
     retval.append( "    " + XMLHandler.addTagValue( "skip_lookup", skipLookup ) );
+    retval.append( "    " + XMLHandler.addTagValue( "batch_lookup", batchLookup ) );
     retval.append( "    " + XMLHandler.addTagValue( "commit", commitSize ) );
     retval.append( "    " + XMLHandler.addTagValue( "use_batch", useBatchUpdate ) );
     retval.append( "    " + XMLHandler.addTagValue( "error_ignored", errorIgnored ) );
@@ -480,6 +505,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     try {
       databaseMeta = rep.loadDatabaseMetaFromStepAttribute( id_step, "id_connection", databases );
       skipLookup = rep.getStepAttributeBoolean( id_step, "skip_lookup" );
+      batchLookup = rep.getStepAttributeBoolean( id_step, "batch_lookup" );
       commitSize = rep.getStepAttributeString( id_step, "commit" );
       if ( commitSize == null ) {
         long comSz = -1;
@@ -535,6 +561,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     try {
       rep.saveDatabaseMetaStepAttribute( id_transformation, id_step, "id_connection", databaseMeta );
       rep.saveStepAttribute( id_transformation, id_step, "skip_lookup", skipLookup );
+      rep.saveStepAttribute( id_transformation, id_step, "batch_lookup", batchLookup );
       rep.saveStepAttribute( id_transformation, id_step, "commit", commitSize );
       rep.saveStepAttribute( id_transformation, id_step, "use_batch", useBatchUpdate );
       rep.saveStepAttribute( id_transformation, id_step, "schema", schemaName );
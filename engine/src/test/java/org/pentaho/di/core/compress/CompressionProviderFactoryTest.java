@@ -31,6 +31,7 @@ import org.pentaho.di.core.compress.gzip.GZIPCompressionProvider;
 import org.pentaho.di.core.compress.hadoopsnappy.HadoopSnappyCompressionProvider;
 import org.pentaho.di.core.compress.snappy.SnappyCompressionProvider;
 import org.pentaho.di.core.compress.zip.ZIPCompressionProvider;
+import org.pentaho.di.core.compress.zstd.ZstdCompressionProvider;
 import org.pentaho.di.core.plugins.PluginRegistry;
 import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
 
@@ -94,6 +95,12 @@ public class CompressionProviderFactoryTest {
     assertTrue( provider.getClass().isAssignableFrom( HadoopSnappyCompressionProvider.class ) );
     assertEquals( "Hadoop-snappy", provider.getName() );
     assertEquals( "Hadoop Snappy compression", provider.getDescription() );
+
+    provider = factory.createCompressionProviderInstance( "Zstd" );
+    assertNotNull( provider );
+    assertTrue( provider.getClass().isAssignableFrom( ZstdCompressionProvider.class ) );
+    assertEquals( "Zstd", provider.getName() );
+    assertEquals( "Zstandard compression", provider.getDescription() );
   }
 
   /**
@@ -109,6 +116,7 @@ public class CompressionProviderFactoryTest {
         put( "GZip", false );
         put( "Snappy", false );
         put( "Hadoop-snappy", false );
+        put( "Zstd", false );
       }
     };
 
@@ -140,6 +148,7 @@ public class CompressionProviderFactoryTest {
         put( "GZip", false );
         put( "Snappy", false );
         put( "Hadoop-snappy", false );
+        put( "Zstd", false );
       }
     };
 
@@ -0,0 +1,102 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamingLoadOutputStreamTest {
+
+  @Test
+  public void writesAllTheDataInOrderAndClosesTheTarget() throws Exception {
+    ClosingOutputStream target = new ClosingOutputStream();
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    StreamingLoadOutputStream out = new StreamingLoadOutputStream( target, "test", 7, 2 );
+    for ( int i = 0; i < 1000; i++ ) {
+      byte[] line = ( "row " + i + "\n" ).getBytes( StandardCharsets.UTF_8 );
+      out.write( line );
+      out.write( '|' );
+      expected.write( line );
+      expected.write( '|' );
+    }
+    out.close();
+
+    assertArrayEquals( expected.toByteArray(), target.toByteArray() );
+    assertTrue( target.closed );
+  }
+
+  @Test
+  public void flushHandsTheDataToTheFeeder() throws Exception {
+    CountDownLatch written = new CountDownLatch( 1 );
+    OutputStream target = new OutputStream() {
+      @Override
+      public void write( int b ) {
+        written.countDown();
+      }
+    };
+    StreamingLoadOutputStream out = new StreamingLoadOutputStream( target, "test" );
+    out.write( 'x' );
+    out.flush();
+
+    assertTrue( written.await( 10, TimeUnit.SECONDS ) );
+    out.close();
+  }
+
+  @Test
+  public void throwsTheErrorOfTheTarget() throws Exception {
+    OutputStream target = new OutputStream() {
+      @Override
+      public void write( int b ) throws IOException {
+        throw new IOException( "Broken pipe" );
+      }
+    };
+    StreamingLoadOutputStream out = new StreamingLoadOutputStream( target, "test", 4, 2 );
+    try {
+      for ( int i = 0; i < 100; i++ ) {
+        out.write( new byte[] { 1, 2, 3, 4 } );
+      }
+      out.close();
+      fail( "The target failed" );
+    } catch ( IOException e ) {
+      assertEquals( "Broken pipe", e.getCause().getMessage() );
+    }
+  }
+
+  @Test( expected = IOException.class )
+  public void failsToWriteOnceClosed() throws Exception {
+    StreamingLoadOutputStream out = new StreamingLoadOutputStream( new ByteArrayOutputStream(), "test" );
+    out.close();
+    out.write( 1 );
+  }
+
+  private static class ClosingOutputStream extends ByteArrayOutputStream {
+    private volatile boolean closed;
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.util;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingLoaderTest {
+
+  private static final RowMetaInterface ROW_META = new RowMeta();
+
+  static {
+    ROW_META.addValueMeta( new ValueMetaString( "name" ) );
+    ROW_META.addValueMeta( new ValueMetaString( "city" ) );
+  }
+
+  @Test
+  public void streamsTheFormattedRowsInTheEncodingOfTheLoader() throws Exception {
+    StringBuilder longName = new StringBuilder();
+    for ( int i = 0; i < 1000; i++ ) {
+      longName.append( "\u00e9t\u00e9 " );
+    }
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    CsvLoader loader = new CsvLoader( "UTF-8" );
+    loader.open( target, "test", 16, 2 );
+    loader.writeRow( ROW_META, new Object[] { longName.toString(), "Li\u00e8ge" } );
+    loader.writeRow( ROW_META, new Object[] { "Jos\u00e9", null } );
+    loader.close();
+
+    assertFalse( loader.isOpen() );
+    assertEquals( longName + ";Li\u00e8ge\nJos\u00e9;\n", new String( target.toByteArray(), StandardCharsets.UTF_8 ) );
+  }
+
+  @Test
+  public void writesStraightToTheTargetWithoutFeeder() throws Exception {
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    CsvLoader loader = new CsvLoader( "ISO-8859-1" );
+    loader.open( target );
+    loader.writeRow( ROW_META, new Object[] { "Jos\u00e9", "Li\u00e8ge" } );
+
+    assertEquals( "Jos\u00e9;Li\u00e8ge\n", new String( target.toByteArray(), StandardCharsets.ISO_8859_1 ) );
+    loader.close();
+  }
+
+  @Test
+  public void canBeOpenedAgainOnceClosed() throws Exception {
+    CsvLoader loader = new CsvLoader( null );
+    ByteArrayOutputStream first = new ByteArrayOutputStream();
+    loader.open( first, "test" );
+    loader.writeRow( ROW_META, new Object[] { "a", "b" } );
+    loader.close();
+    ByteArrayOutputStream second = new ByteArrayOutputStream();
+    loader.open( second, "test" );
+    loader.writeRow( ROW_META, new Object[] { "c", "d" } );
+    loader.close();
+
+    assertEquals( "a;b\n", first.toString() );
+    assertEquals( "c;d\n", second.toString() );
+  }
+
+  @Test( expected = IOException.class )
+  public void failsToWriteWhenNotOpen() throws Exception {
+    new CsvLoader( null ).writeRow( ROW_META, new Object[] { "a", "b" } );
+  }
+
+  @Test( timeout = 30000 )
+  public void abortWakesUpTheWriterWaitingForTheLoadUtility() throws Exception {
+    CountDownLatch writing = new CountDownLatch( 1 );
+    CountDownLatch closed = new CountDownLatch( 1 );
+    OutputStream stuckTarget = new OutputStream() {
+      @Override
+      public void write( int b ) throws IOException {
+        writing.countDown();
+        try {
+          // The load utility stopped reading
+          closed.await();
+        } catch ( InterruptedException e ) {
+          throw new IOException( e );
+        }
+      }
+
+      @Override
+      public void close() {
+        closed.countDown();
+      }
+    };
+    CsvLoader loader = new CsvLoader( null );
+    loader.open( stuckTarget, "test", 4, 2 );
+
+    AtomicReference<Exception> error = new AtomicReference<>();
+    Thread writer = new Thread( () -> {
+      try {
+        while ( true ) {
+          loader.writeRow( ROW_META, new Object[] { "name", "city" } );
+        }
+      } catch ( Exception e ) {
+        error.set( e );
+      }
+    } );
+    writer.start();
+    assertTrue( writing.await( 10, TimeUnit.SECONDS ) );
+
+    loader.abort();
+    writer.join( 10000 );
+
+    assertFalse( writer.isAlive() );
+    assertTrue( error.get() instanceof IOException );
+    assertFalse( loader.isOpen() );
+    assertTrue( closed.await( 10, TimeUnit.SECONDS ) );
+  }
+
+  private static class CsvLoader extends StreamingLoader {
+    private static final byte[] SEPARATOR = { ';' };
+
+    CsvLoader( String encoding ) {
+      super( encoding );
+    }
+
+    @Override
+    protected void formatRow( RowMetaInterface rowMeta, Object[] row ) throws KettleException, IOException {
+      for ( int i = 0; i < rowMeta.size(); i++ ) {
+        if ( i > 0 ) {
+          write( SEPARATOR );
+        }
+        String value = rowMeta.getString( row, i );
+        if ( value != null ) {
+          write( value );
+        }
+      }
+      write( "\n" );
+    }
+  }
+}
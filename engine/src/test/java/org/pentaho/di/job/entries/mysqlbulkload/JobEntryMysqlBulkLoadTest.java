@@ -0,0 +1,80 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.job.entries.mysqlbulkload;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JobEntryMysqlBulkLoadTest {
+
+  private static final String SQL = "LOAD DATA LOCAL INFILE 'sftp://host/data.csv' IGNORE INTO TABLE t";
+
+  @Test
+  public void streamsTheFileThroughTheDriverStatement() throws Exception {
+    LocalInfileStatement statement = mock( LocalInfileStatement.class );
+    Connection connection = mock( Connection.class );
+    when( connection.createStatement() ).thenReturn( statement );
+    InputStream in = new ByteArrayInputStream( "1;a\n".getBytes() );
+
+    JobEntryMysqlBulkLoad.execLoadStream( connection, SQL, in );
+
+    verify( statement ).setLocalInfileInputStream( in );
+    verify( statement ).execute( SQL );
+    verify( statement ).close();
+  }
+
+  @Test
+  public void failsWhenTheDriverCantStreamTheFile() throws Exception {
+    Statement statement = mock( Statement.class );
+    Connection connection = mock( Connection.class );
+    when( connection.createStatement() ).thenReturn( statement );
+
+    try {
+      JobEntryMysqlBulkLoad.execLoadStream( connection, SQL, new ByteArrayInputStream( new byte[0] ) );
+      fail( "The statement can't read a stream" );
+    } catch ( KettleDatabaseException e ) {
+      verify( statement, never() ).execute( SQL );
+      verify( statement ).close();
+    }
+  }
+
+  @Test( expected = KettleDatabaseException.class )
+  public void failsWhenTheLoadFails() throws Exception {
+    LocalInfileStatement statement = mock( LocalInfileStatement.class );
+    Connection connection = mock( Connection.class );
+    when( connection.createStatement() ).thenReturn( statement );
+    when( statement.execute( SQL ) ).thenThrow( new SQLException( "Table 't' doesn't exist" ) );
+
+    JobEntryMysqlBulkLoad.execLoadStream( connection, SQL, new ByteArrayInputStream( new byte[0] ) );
+  }
+
+  /**
+   * A statement of the MySQL driver, which reads the file of LOAD DATA LOCAL from a stream.
+   */
+  public interface LocalInfileStatement extends Statement {
+    void setLocalInfileInputStream( InputStream stream );
+  }
+}
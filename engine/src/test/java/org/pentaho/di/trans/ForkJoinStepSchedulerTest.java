@@ -0,0 +1,197 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.pentaho.di.core.BlockingRowSet;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMetaDataCombi;
+
+public class ForkJoinStepSchedulerTest {
+
+  private static final int ROWS = 10000;
+
+  @Test
+  public void testRunsPipelineOnSingleWorker() throws Exception {
+    assertPipelineCompletes( 1 );
+  }
+
+  @Test
+  public void testRunsPipelineOnSeveralWorkers() throws Exception {
+    assertPipelineCompletes( 4 );
+  }
+
+  @Test
+  public void testRunnableNeedsInputAndRoomForOutput() {
+    RowSet input = new BlockingRowSet( 2 );
+    RowSet output = new BlockingRowSet( 2 );
+    StepMetaDataCombi combi = combi( Collections.singletonList( input ), Collections.singletonList( output ) );
+    ForkJoinStepScheduler scheduler =
+      new ForkJoinStepScheduler( "test", Collections.singletonList( combi ), 2, 1 );
+    ForkJoinStepScheduler.StepSlot slot = scheduler.getSlots().get( 0 );
+
+    assertFalse( scheduler.isRunnable( slot ) );
+    input.putRow( new RowMeta(), new Object[] { 1 } );
+    assertTrue( scheduler.isRunnable( slot ) );
+    output.putRow( new RowMeta(), new Object[] { 1 } );
+    output.putRow( new RowMeta(), new Object[] { 2 } );
+    assertFalse( scheduler.isRunnable( slot ) );
+    output.getRowImmediate();
+    input.getRowImmediate();
+    input.setDone();
+    assertTrue( scheduler.isRunnable( slot ) );
+  }
+
+  @Test
+  public void testMoreBlockingStepsThanWorkers() throws Exception {
+    // Every step blocks until all of them have started: without managed blocks the two workers would be held by the
+    // first two steps forever.
+    //
+    int nrSteps = 6;
+    CountDownLatch started = new CountDownLatch( nrSteps );
+    AtomicInteger slept = new AtomicInteger();
+    List<StepMetaDataCombi> steps = new ArrayList<>();
+    for ( int i = 0; i < nrSteps; i++ ) {
+      StepMetaDataCombi combi = combi( Collections.emptyList(), Collections.emptyList() );
+      doAnswer( invocation -> {
+        started.countDown();
+        ForkJoinStepScheduler.block( started::await );
+        ForkJoinStepScheduler.sleep( 10 );
+        slept.incrementAndGet();
+        return false;
+      } ).when( combi.step ).processRow( any(), any() );
+      steps.add( combi );
+    }
+
+    ForkJoinStepScheduler scheduler = new ForkJoinStepScheduler( "test", steps, 10, 2 );
+    scheduler.start();
+
+    long deadline = System.currentTimeMillis() + 60000;
+    while ( !scheduler.isFinished() && System.currentTimeMillis() < deadline ) {
+      Thread.sleep( 10 );
+    }
+    assertTrue( scheduler.isFinished() );
+    assertEquals( nrSteps, slept.get() );
+  }
+
+  @Test
+  public void testBlockOutsidePoolWaitsDirectly() throws Exception {
+    AtomicInteger waits = new AtomicInteger();
+    ForkJoinStepScheduler.block( waits::incrementAndGet );
+    ForkJoinStepScheduler.sleep( 0 );
+    assertEquals( 1, waits.get() );
+  }
+
+  private void assertPipelineCompletes( int workers ) throws Exception {
+    RowSet first = new BlockingRowSet( 10 );
+    RowSet second = new BlockingRowSet( 10 );
+    AtomicInteger generated = new AtomicInteger();
+    List<Integer> received = Collections.synchronizedList( new ArrayList<>() );
+
+    // Generates a row per call
+    //
+    StepMetaDataCombi generator = combi( Collections.emptyList(), Collections.singletonList( first ) );
+    doAnswer( invocation -> {
+      if ( generated.get() == ROWS ) {
+        first.setDone();
+        return false;
+      }
+      if ( first.putRowWait( new RowMeta(), new Object[] { generated.get() }, 0, TimeUnit.MILLISECONDS ) ) {
+        generated.incrementAndGet();
+      }
+      return true;
+    } ).when( generator.step ).processRow( any(), any() );
+
+    // Passes the rows on
+    //
+    StepMetaDataCombi dummy = combi( Collections.singletonList( first ), Collections.singletonList( second ) );
+    doAnswer( invocation -> {
+      Object[] row = first.getRowWait( 1, TimeUnit.MILLISECONDS );
+      if ( row == null ) {
+        if ( first.isDone() && first.size() == 0 ) {
+          second.setDone();
+          return false;
+        }
+        return true;
+      }
+      while ( !second.putRowWait( new RowMeta(), row, 1, TimeUnit.MILLISECONDS ) ) {
+        Thread.yield();
+      }
+      return true;
+    } ).when( dummy.step ).processRow( any(), any() );
+
+    // Collects the rows
+    //
+    StepMetaDataCombi collector = combi( Collections.singletonList( second ), Collections.emptyList() );
+    doAnswer( invocation -> {
+      Object[] row = second.getRowWait( 1, TimeUnit.MILLISECONDS );
+      if ( row == null ) {
+        return !( second.isDone() && second.size() == 0 );
+      }
+      received.add( (Integer) row[ 0 ] );
+      return true;
+    } ).when( collector.step ).processRow( any(), any() );
+
+    ForkJoinStepScheduler scheduler =
+      new ForkJoinStepScheduler( "test", Arrays.asList( collector, dummy, generator ), 10, workers );
+    assertEquals( workers, scheduler.getWorkers() );
+    scheduler.start();
+
+    long deadline = System.currentTimeMillis() + 60000;
+    while ( !scheduler.isFinished() && System.currentTimeMillis() < deadline ) {
+      Thread.sleep( 10 );
+    }
+    assertTrue( scheduler.isFinished() );
+    assertEquals( ROWS, received.size() );
+    for ( int i = 0; i < ROWS; i++ ) {
+      assertEquals( Integer.valueOf( i ), received.get( i ) );
+    }
+    for ( StepMetaDataCombi combi : Arrays.asList( collector, dummy, generator ) ) {
+      verify( combi.step ).setUsingThreadPriorityManagment( false );
+      verify( combi.step ).setRunning( true );
+      verify( combi.step ).markStop();
+    }
+  }
+
+  private static StepMetaDataCombi combi( List<RowSet> inputRowSets, List<RowSet> outputRowSets ) {
+    StepMetaDataCombi combi = new StepMetaDataCombi();
+    combi.step = mock( StepInterface.class );
+    combi.stepname = "step";
+    when( combi.step.getLogChannel() ).thenReturn( mock( LogChannelInterface.class ) );
+    doReturn( new ArrayList<>( inputRowSets ) ).when( combi.step ).getInputRowSets();
+    doReturn( new ArrayList<>( outputRowSets ) ).when( combi.step ).getOutputRowSets();
+    return combi;
+  }
+}
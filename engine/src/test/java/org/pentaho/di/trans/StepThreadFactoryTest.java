@@ -0,0 +1,52 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class StepThreadFactoryTest {
+
+  @Test
+  public void testPlatformThreadsByDefault() {
+    assertFalse( StepThreadFactory.forThreadType( null ).isVirtual() );
+    assertFalse( StepThreadFactory.forThreadType( "" ).isVirtual() );
+    assertFalse( StepThreadFactory.forThreadType( StepThreadFactory.THREAD_TYPE_PLATFORM ).isVirtual() );
+    assertFalse( StepThreadFactory.forThreadType( "unknown" ).isVirtual() );
+  }
+
+  @Test
+  public void testVirtualThreadsOnlyWhenSupported() {
+    boolean supported = StepThreadFactory.isVirtualThreadSupported();
+    assertEquals( supported, StepThreadFactory.forThreadType( " Virtual " ).isVirtual() );
+    assertEquals( supported, new StepThreadFactory( true ).isVirtual() );
+  }
+
+  @Test
+  public void testNewThreadRunsRunnable() throws Exception {
+    for ( boolean virtual : new boolean[] { false, true } ) {
+      final AtomicBoolean ran = new AtomicBoolean();
+      Thread thread = new StepThreadFactory( virtual ).newThread( () -> ran.set( true ) );
+      assertFalse( thread.isAlive() );
+      thread.start();
+      thread.join( 5000 );
+      assertTrue( ran.get() );
+    }
+  }
+}
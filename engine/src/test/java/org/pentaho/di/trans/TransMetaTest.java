@@ -21,6 +21,7 @@ import org.pentaho.di.core.CheckResultInterface;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.ProgressMonitorListener;
+import org.pentaho.di.core.RowSetWaitStrategy;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -125,6 +126,15 @@ public class TransMetaTest {
     assertEquals( stepPoint.y - TransMeta.BORDER_INDENT, actualStepPoint.y );
   }
 
+  @Test
+  public void nullRowSetWaitStrategyFallsBackToTimed() throws Exception {
+    transMeta.setRowSetWaitStrategy( RowSetWaitStrategy.BLOCKING );
+    transMeta.setRowSetWaitStrategy( null );
+
+    assertEquals( RowSetWaitStrategy.TIMED, transMeta.getRowSetWaitStrategy() );
+    assertTrue( transMeta.getXML().contains( "<rowset_wait_strategy>Timed</rowset_wait_strategy>" ) );
+  }
+
 
   @Test
   public void getThisStepFieldsPassesCloneRowMeta() throws Exception {
@@ -25,6 +25,7 @@ import org.pentaho.di.core.QueueRowSet;
 import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.RowSetWaitStrategy;
 import org.pentaho.di.core.SingleRowRowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -59,6 +60,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -509,4 +511,191 @@ public class BaseStepTest {
     baseStepSpy.getRow();
     verify( mockHelper.transMeta, times( 1 ) ).checkRowMixingStatically( any( StepMeta.class ), any() );
   }
+
+  @Test
+  public void testGetRowWaitsForSignalFromInputRowSet() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    BaseStep baseStepSpy =
+      spy( new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta,
+        mockHelper.trans ) );
+    doNothing().when( baseStepSpy ).openRemoteInputStepSocketsOnce();
+    baseStepSpy.setRowSetWaitStrategy( RowSetWaitStrategy.BLOCKING );
+
+    final BlockingRowSet rowSet = new BlockingRowSet( 1 );
+    final RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "x" ) );
+    final Object[] row = new Object[] { 1L };
+    baseStepSpy.setInputRowSets( new ArrayList<>( List.of( rowSet ) ) );
+
+    Thread producer = new Thread( () -> {
+      try {
+        Thread.sleep( 20 );
+      } catch ( InterruptedException e ) {
+        // Ignore
+      }
+      rowSet.putRow( rowMeta, row );
+      rowSet.setDone();
+    } );
+    producer.start();
+
+    assertSame( row, baseStepSpy.getRow() );
+    assertNull( baseStepSpy.getRow() );
+    producer.join();
+
+    assertTrue( baseStepSpy.getInputRowSets().isEmpty() );
+    assertTrue( baseStepSpy.getInputBlockedNanos() > 0 );
+  }
+
+  @Test
+  public void testPutRowWaitsForSignalFromOutputRowSet() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    baseStep.setStopped( false );
+    baseStep.setRepartitioning( StepPartitioningMeta.PARTITIONING_METHOD_NONE );
+    baseStep.setRowSetWaitStrategy( RowSetWaitStrategy.SPIN_THEN_PARK );
+
+    final BlockingRowSet rowSet = new BlockingRowSet( 1 );
+    baseStep.setOutputRowSets( new ArrayList<>( List.of( rowSet ) ) );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "x" ) );
+    baseStep.putRow( rowMeta, new Object[] { 1L } );
+
+    Thread consumer = new Thread( () -> {
+      try {
+        Thread.sleep( 20 );
+      } catch ( InterruptedException e ) {
+        // Ignore
+      }
+      rowSet.getRowImmediate();
+    } );
+    consumer.start();
+
+    baseStep.putRow( rowMeta, new Object[] { 2L } );
+    consumer.join();
+
+    assertEquals( 2L, rowSet.getRowImmediate()[ 0 ] );
+    assertTrue( baseStep.getOutputBlockedNanos() > 0 );
+  }
+
+  @Test
+  public void testStopWakesUpStepWaitingForInput() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    final BaseStep baseStepSpy =
+      spy( new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta,
+        mockHelper.trans ) );
+    doNothing().when( baseStepSpy ).openRemoteInputStepSocketsOnce();
+    baseStepSpy.setRowSetWaitStrategy( RowSetWaitStrategy.BLOCKING );
+    baseStepSpy.setInputRowSets( new ArrayList<>( List.of( new BlockingRowSet( 1 ) ) ) );
+
+    Thread stopper = new Thread( () -> {
+      try {
+        Thread.sleep( 20 );
+      } catch ( InterruptedException e ) {
+        // Ignore
+      }
+      baseStepSpy.setStopped( true );
+    } );
+    stopper.start();
+
+    assertNull( baseStepSpy.getRow() );
+    stopper.join();
+  }
+
+  @Test
+  public void testGetRowsTakesAvailableRowsFromInputRowSet() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    BaseStep baseStepSpy =
+      spy( new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta,
+        mockHelper.trans ) );
+    doNothing().when( baseStepSpy ).openRemoteInputStepSocketsOnce();
+    RowListener rowListener = mock( RowListener.class );
+    baseStepSpy.addRowListener( rowListener );
+
+    BlockingRowSet rowSet = new BlockingRowSet( 10 );
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "x" ) );
+    for ( long i = 0; i < 5; i++ ) {
+      rowSet.putRow( rowMeta, new Object[] { i } );
+    }
+    rowSet.setDone();
+    baseStepSpy.setInputRowSets( new ArrayList<>( List.of( rowSet ) ) );
+
+    List<Object[]> rows = baseStepSpy.getRows( 3 );
+    assertEquals( 3, rows.size() );
+    assertEquals( 0L, rows.get( 0 )[ 0 ] );
+    assertEquals( 2L, rows.get( 2 )[ 0 ] );
+
+    rows = baseStepSpy.getRows( 3 );
+    assertEquals( 2, rows.size() );
+    assertEquals( 4L, rows.get( 1 )[ 0 ] );
+
+    assertNull( baseStepSpy.getRows( 3 ) );
+    assertEquals( 5, baseStepSpy.getLinesRead() );
+    verify( rowListener, times( 5 ) ).rowReadEvent( any( RowMetaInterface.class ), any( Object[].class ) );
+  }
+
+  @Test
+  public void testPutRowsCopiesBatchToAllOutputRowSets() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    baseStep.setStopped( false );
+    baseStep.setRepartitioning( StepPartitioningMeta.PARTITIONING_METHOD_NONE );
+    baseStep.setDistributed( false );
+    RowListener rowListener = mock( RowListener.class );
+    baseStep.addRowListener( rowListener );
+
+    BlockingRowSet rowSet1 = new BlockingRowSet( 10 );
+    BlockingRowSet rowSet2 = new BlockingRowSet( 10 );
+    baseStep.setOutputRowSets( new ArrayList<>( List.of( rowSet1, rowSet2 ) ) );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "x" ) );
+    baseStep.putRows( rowMeta, List.of( new Object[] { 1L }, new Object[] { 2L }, new Object[] { 3L } ) );
+
+    assertEquals( 3, rowSet1.size() );
+    assertEquals( 3, rowSet2.size() );
+    assertEquals( 1L, rowSet1.getRowImmediate()[ 0 ] );
+    assertEquals( 1L, rowSet2.getRowImmediate()[ 0 ] );
+    assertEquals( 6, baseStep.getLinesWritten() );
+    verify( rowListener, times( 3 ) ).rowWrittenEvent( any( RowMetaInterface.class ), any( Object[].class ) );
+  }
+
+  @Test
+  public void testPutRowsWaitsForRoomInOutputRowSet() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    baseStep.setStopped( false );
+    baseStep.setRepartitioning( StepPartitioningMeta.PARTITIONING_METHOD_NONE );
+
+    final BlockingRowSet rowSet = new BlockingRowSet( 2 );
+    baseStep.setOutputRowSets( new ArrayList<>( List.of( rowSet ) ) );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "x" ) );
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 0; i < 10; i++ ) {
+      rows.add( new Object[] { i } );
+    }
+
+    final List<Object[]> received = new ArrayList<>();
+    Thread consumer = new Thread( () -> {
+      while ( received.size() < 10 ) {
+        rowSet.getRowsImmediate( received, 10 - received.size() );
+      }
+    } );
+    consumer.start();
+
+    baseStep.putRows( rowMeta, rows );
+    consumer.join( 5000 );
+
+    assertEquals( 10, received.size() );
+    for ( int i = 0; i < 10; i++ ) {
+      assertEquals( (long) i, received.get( i )[ 0 ] );
+    }
+    assertEquals( 10, baseStep.getLinesWritten() );
+  }
 }
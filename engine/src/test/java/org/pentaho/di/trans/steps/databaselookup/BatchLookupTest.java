@@ -0,0 +1,193 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BatchLookupTest {
+
+  private static final String SELECT = "SELECT id, name FROM t WHERE ";
+
+  private RowMetaInterface keyMeta;
+  private RowMetaInterface resultMeta;
+  private Database db;
+
+  @Before
+  public void setUp() {
+    keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    resultMeta = new RowMeta();
+    resultMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    resultMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    db = mock( Database.class );
+    when( db.getReturnRowMeta() ).thenReturn( resultMeta );
+  }
+
+  @Test
+  public void looksUpOneKeyWithAnInList() {
+    BatchLookup lookup = newLookup( new String[] { "id" }, 1, db );
+    assertEquals( SELECT + "id IN (?, ?, ?)", lookup.getSql( 3 ) );
+  }
+
+  @Test
+  public void looksUpSeveralKeysWithEqualities() {
+    BatchLookup lookup = new BatchLookup( SELECT, new String[] { "a", "b" }, "name", keyMeta, false, 1,
+      Collections.singletonList( db ), "test" );
+    assertEquals( SELECT + "(a = ? AND b = ?) OR (a = ? AND b = ?) ORDER BY name", lookup.getSql( 2 ) );
+  }
+
+  @Test
+  public void rowsKeepTheirOrderAndKeysAreLookedUpOnce() throws Exception {
+    when( db.getRows( anyString(), any(), any(), anyInt(), anyBoolean(), anyInt(), any() ) )
+      .thenReturn( Arrays.asList( new Object[] { 2L, "two" }, new Object[] { 1L, "one" } ) );
+    BatchLookup lookup = newLookup( new String[] { "id" }, 5, db );
+
+    lookup.add( row( 1L ), key( 1L ), null );
+    lookup.add( row( 2L ), key( 2L ), null );
+    lookup.add( row( 3L ), key( 3L ), new Object[] { "cached" } );
+    lookup.add( row( 1L ), key( 1L ), null );
+    lookup.add( row( 4L ), key( 4L ), null );
+
+    BatchLookup.Batch batch = lookup.take( false );
+    assertEquals( 5, batch.size() );
+    assertArrayEquals( new Object[] { "one" }, batch.getLookedUpValues( 0 ) );
+    assertArrayEquals( new Object[] { "two" }, batch.getLookedUpValues( 1 ) );
+    assertArrayEquals( new Object[] { "cached" }, batch.getCachedValues( 2 ) );
+    assertArrayEquals( new Object[] { "one" }, batch.getLookedUpValues( 3 ) );
+    assertNull( batch.getLookedUpValues( 4 ) );
+    assertEquals( 1, batch.getReturnRowMeta().size() );
+
+    verify( db, times( 1 ) ).getRows( eq( SELECT + "id IN (?, ?, ?)" ), any(),
+      eq( new Object[] { 1L, 2L, 4L } ), anyInt(), anyBoolean(), anyInt(), any() );
+    assertNull( lookup.take( true ) );
+  }
+
+  @Test
+  public void batchesAreHandedBackInTheOrderTheyWereAdded() throws Exception {
+    Database db2 = mock( Database.class );
+    when( db2.getReturnRowMeta() ).thenReturn( resultMeta );
+    when( db.getRows( anyString(), any(), any(), anyInt(), anyBoolean(), anyInt(), any() ) )
+      .thenReturn( Collections.singletonList( new Object[] { 1L, "one" } ) );
+    when( db2.getRows( anyString(), any(), any(), anyInt(), anyBoolean(), anyInt(), any() ) )
+      .thenReturn( Collections.singletonList( new Object[] { 1L, "one" } ) );
+    BatchLookup lookup = new BatchLookup( SELECT, new String[] { "id" }, null, keyMeta, false, 1,
+      Arrays.asList( db, db2 ), "test" );
+    try {
+      for ( long id = 1; id <= 3; id++ ) {
+        lookup.add( row( id ), key( id ), id == 2 ? new Object[] { "cached" } : null );
+      }
+      assertEquals( 3, lookup.getBatchesInFlight() );
+
+      assertArrayEquals( row( 1L ), lookup.take( true ).getRow( 0 ) );
+      assertArrayEquals( row( 2L ), lookup.take( true ).getRow( 0 ) );
+      assertArrayEquals( row( 3L ), lookup.take( true ).getRow( 0 ) );
+      assertNull( lookup.take( true ) );
+    } finally {
+      lookup.close();
+    }
+  }
+
+  @Test
+  public void failsTheRowsOfAKeyWithMultipleResults() throws Exception {
+    when( db.getRows( anyString(), any(), any(), anyInt(), anyBoolean(), anyInt(), any() ) )
+      .thenReturn( Arrays.asList( new Object[] { 1L, "one" }, new Object[] { 1L, "uno" },
+        new Object[] { 2L, "two" } ) );
+    BatchLookup lookup = new BatchLookup( SELECT, new String[] { "id" }, null, keyMeta, true, 2,
+      Collections.singletonList( db ), "test" );
+
+    lookup.add( row( 1L ), key( 1L ), null );
+    lookup.add( row( 2L ), key( 2L ), null );
+
+    BatchLookup.Batch batch = lookup.take( false );
+    try {
+      batch.getLookedUpValues( 0 );
+      fail( "More than one row was found" );
+    } catch ( KettleDatabaseException e ) {
+      // expected
+    }
+    assertArrayEquals( new Object[] { "two" }, batch.getLookedUpValues( 1 ) );
+  }
+
+  @Test
+  public void keysReturnedInAnotherFormAreMissedUntilLookedUpOnTheirOwn() throws Exception {
+    RowMetaInterface codeMeta = new RowMeta();
+    codeMeta.addValueMeta( new ValueMetaString( "code" ) );
+    RowMetaInterface codeResultMeta = new RowMeta();
+    codeResultMeta.addValueMeta( new ValueMetaString( "code" ) );
+    codeResultMeta.addValueMeta( new ValueMetaString( "name" ) );
+    when( db.getReturnRowMeta() ).thenReturn( codeResultMeta );
+    when( db.getRows( anyString(), any(), any(), anyInt(), anyBoolean(), anyInt(), any() ) )
+      .thenReturn( Arrays.asList( new Object[] { "ABC  ", "abc" }, new Object[] { "def", "def" } ) );
+    BatchLookup lookup = new BatchLookup( SELECT, new String[] { "code" }, null, codeMeta, false, 4,
+      Collections.singletonList( db ), "test" );
+
+    lookup.add( row( 1L ), new Object[] { "abc" }, null );
+    lookup.add( row( 2L ), new Object[] { "def" }, null );
+    lookup.add( row( 3L ), new Object[] { "abc" }, null );
+    lookup.add( row( 4L ), new Object[] { "xyz" }, null );
+
+    BatchLookup.Batch batch = lookup.take( false );
+    assertNull( batch.getLookedUpValues( 0 ) );
+    assertTrue( batch.isMissed( 0 ) );
+    assertArrayEquals( new Object[] { "def" }, batch.getLookedUpValues( 1 ) );
+    assertFalse( batch.isMissed( 1 ) );
+
+    batch.setLookedUpValues( 0, new Object[] { "abc" }, null );
+    batch.setLookedUpValues( 3, null, null );
+    assertArrayEquals( new Object[] { "abc" }, batch.getLookedUpValues( 2 ) );
+    assertFalse( batch.isMissed( 2 ) );
+    assertNull( batch.getLookedUpValues( 3 ) );
+    assertFalse( batch.isMissed( 3 ) );
+  }
+
+  private BatchLookup newLookup( String[] keyFields, int batchSize, Database connection ) {
+    return new BatchLookup( SELECT, keyFields, null, keyMeta, false, batchSize, Collections.singletonList( connection ),
+      "test" );
+  }
+
+  private static Object[] row( long id ) {
+    return new Object[] { id, "row " + id };
+  }
+
+  private static Object[] key( long id ) {
+    return new Object[] { id };
+  }
+}
@@ -23,8 +23,10 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.cache.LookupCacheRegistry;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.database.MySQLDatabaseMeta;
@@ -56,13 +58,17 @@ import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -70,12 +76,14 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -446,6 +454,160 @@ public class DatabaseLookupUTest {
     assertNotNull( data.cache.getRowFromCache( data.lookupMeta, new Object[] { 2L } ) );
   }
 
+  @Test
+  public void sharedCacheIsLoadedByTheFirstStepOnly() throws Exception {
+    Database db = mock( Database.class );
+    when( db.getRows( anyString(), anyInt() ) )
+      .thenReturn( Arrays.asList( new Object[] { 1L }, new Object[] { 2L } ) );
+
+    RowMeta returnRowMeta = new RowMeta();
+    returnRowMeta.addValueMeta( new ValueMetaInteger() );
+    returnRowMeta.addValueMeta( new ValueMetaInteger() );
+    when( db.getReturnRowMeta() ).thenReturn( returnRowMeta );
+
+    DatabaseLookupMeta meta = createTestMeta();
+    meta.setSharedCacheName( "DatabaseLookupUTest" );
+
+    DatabaseLookupData data1 = processFirstRow( db, meta );
+    DatabaseLookupData data2 = processFirstRow( db, meta );
+
+    verify( db, times( 1 ) ).getRows( anyString(), anyInt() );
+    assertSame( data1.sharedCache, data2.sharedCache );
+    assertTrue( data2.cache instanceof SharedCache );
+    assertNotNull( data2.cache.getRowFromCache( data2.lookupMeta, new Object[] { 2L } ) );
+
+    createSpiedStep( db, mockHelper, meta ).dispose( meta, data1 );
+    assertNotNull( LookupCacheRegistry.getInstance().getCache( "DatabaseLookupUTest" ) );
+    createSpiedStep( db, mockHelper, meta ).dispose( meta, data2 );
+    assertNull( LookupCacheRegistry.getInstance().getCache( "DatabaseLookupUTest" ) );
+  }
+
+  @Test
+  public void batchLookupLooksUpKeysTheDatabaseReturnedInAnotherFormOneByOne() throws Exception {
+    // The database compares without case and trailing spaces, and returns the key as it is stored. Like a real
+    // connection, the mock keeps the layout of the last result: the batch query leaves the code and name columns
+    //
+    RowMeta batchRowMeta = new RowMeta();
+    batchRowMeta.addValueMeta( new ValueMetaString( "code" ) );
+    batchRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    RowMeta lookupRowMeta = new RowMeta();
+    lookupRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    AtomicReference<RowMetaInterface> layout = new AtomicReference<>();
+
+    Database db = mock( Database.class );
+    PreparedStatement lookupStatement = mock( PreparedStatement.class );
+    when( db.getPrepStatementLookup() ).thenReturn( lookupStatement );
+    when( db.getRows( anyString(), any(), any(), anyInt(), anyBoolean(), anyInt(), any() ) ).thenAnswer( invocation -> {
+      layout.set( batchRowMeta );
+      return Collections.singletonList( new Object[] { "ABC  ", "found" } );
+    } );
+    when( db.getLookup( same( lookupStatement ), anyBoolean() ) ).thenAnswer( invocation -> {
+      layout.set( lookupRowMeta );
+      return new Object[] { "found" };
+    } );
+    when( db.getReturnRowMeta() ).thenAnswer( invocation -> layout.get() );
+
+    List<Object[]> output =
+      runBatchLookup( db, ValueMetaInterface.TYPE_STRING, new ValueMetaString( "Test" ), "abc", "abc" );
+
+    assertEquals( 2, output.size() );
+    for ( Object[] row : output ) {
+      assertEquals( "abc", row[ 0 ] );
+      assertEquals( "found", row[ 1 ] );
+    }
+    // The key is looked up once on its own, with a layout of its own, the second row uses what was found for the first
+    //
+    verify( db, times( 1 ) ).getLookup( same( lookupStatement ), anyBoolean() );
+    verify( db, never() ).getLookup( anyBoolean() );
+  }
+
+  @Test
+  public void batchLookupDoesNotLookUpMissedNumberKeysAgain() throws Exception {
+    RowMeta batchRowMeta = new RowMeta();
+    batchRowMeta.addValueMeta( new ValueMetaInteger( "code" ) );
+    batchRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    Database db = mock( Database.class );
+    when( db.getRows( anyString(), any(), any(), anyInt(), anyBoolean(), anyInt(), any() ) )
+      .thenReturn( Collections.singletonList( new Object[] { 1L, "one" } ) );
+    when( db.getReturnRowMeta() ).thenReturn( batchRowMeta );
+
+    List<Object[]> output =
+      runBatchLookup( db, ValueMetaInterface.TYPE_INTEGER, new ValueMetaInteger( "Test" ), 1L, 2L );
+
+    assertEquals( 2, output.size() );
+    assertEquals( "one", output.get( 0 )[ 1 ] );
+    assertNull( output.get( 1 )[ 1 ] );
+    verify( db, never() ).setValuesLookup( any(), any() );
+    verify( db, never() ).getLookup( any( PreparedStatement.class ), anyBoolean() );
+    verify( db, never() ).getLookup( anyBoolean() );
+  }
+
+  /**
+   * Runs the rows with the given keys through a step looking up a name by code in batches, with a single connection.
+   *
+   * @return the rows written by the step
+   */
+  private List<Object[]> runBatchLookup( Database db, int keyType, ValueMetaInterface keyMeta, Object... keys )
+    throws Exception {
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+    meta.setDatabaseMeta( mock( DatabaseMeta.class ) );
+    meta.allocate( 1, 1 );
+    meta.setStreamKeyField1( new String[] { "Test" } );
+    meta.setTableKeyField( new String[] { "code" } );
+    meta.setKeyCondition( new String[] { "=" } );
+    meta.setReturnValueField( new String[] { "name" } );
+    meta.setReturnValueNewName( new String[] { "name" } );
+    meta.setReturnValueDefaultType( new int[] { ValueMetaInterface.TYPE_STRING } );
+    meta.setLookupBatchSize( 10 );
+    meta = spy( meta );
+    doAnswer( invocation -> {
+      ( (RowMetaInterface) invocation.getArgument( 0 ) ).addValueMeta( new ValueMetaString( "name" ) );
+      return null;
+    } ).when( meta ).getFields( any( RowMetaInterface.class ), anyString(), any(), any(), any(), any(), any() );
+
+    DatabaseLookupData data = new DatabaseLookupData();
+    DatabaseLookup step = createSpiedStep( db, mockHelper, meta );
+    RowMeta input = new RowMeta();
+    input.addValueMeta( keyMeta );
+    step.setInputRowMeta( input );
+    step.setStopped( false );
+    step.init( meta, data );
+    step.setVariable( Const.KETTLE_DATABASE_LOOKUP_BATCHES_IN_FLIGHT, "1" );
+
+    data.db = db;
+    data.keytypes = new int[] { keyType };
+    data.allEquals = true;
+    data.conditions = new int[] { DatabaseLookupMeta.CONDITION_EQ };
+
+    List<Object[]> output = new ArrayList<>();
+    doAnswer( invocation -> output.add( invocation.getArgument( 1 ) ) )
+      .when( step ).putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+    Iterator<Object> rows = Arrays.asList( keys ).iterator();
+    doAnswer( invocation -> rows.hasNext() ? new Object[] { rows.next() } : null ).when( step ).getRow();
+
+    while ( step.processRow( meta, data ) ) {
+      // look up the next row
+    }
+    step.dispose( meta, data );
+    return output;
+  }
+
+  private DatabaseLookupData processFirstRow( Database db, DatabaseLookupMeta meta ) throws Exception {
+    DatabaseLookupData data = new DatabaseLookupData();
+    DatabaseLookup step = createSpiedStep( db, mockHelper, meta );
+    step.setStopped( false );
+    step.init( meta, data );
+
+    data.db = db;
+    data.keytypes = new int[] { ValueMetaInterface.TYPE_INTEGER };
+    data.allEquals = true;
+    data.conditions = new int[] { DatabaseLookupMeta.CONDITION_EQ };
+
+    step.processRow( meta, data );
+    return data;
+  }
+
   @Test
   public void testIncrementLinesNotClustered() {
 
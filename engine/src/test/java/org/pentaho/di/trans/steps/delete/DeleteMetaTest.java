@@ -61,10 +61,12 @@ public class DeleteMetaTest implements InitializerInterface<StepMetaInterface> {
   public void setUpLoadSave() throws Exception {
     PluginRegistry.init( false );
     List<String> attributes =
-            Arrays.asList( "schemaName", "tableName", "commitSize", "databaseMeta", "keyFields" );
+            Arrays.asList( "schemaName", "tableName", "commitSize", "useBatchDelete", "databaseMeta", "keyFields" );
 
     Map<String, String> getterMap = new HashMap<>();
+    getterMap.put( "useBatchDelete", "useBatchDelete" );
     Map<String, String> setterMap = new HashMap<>();
+    setterMap.put( "useBatchDelete", "setUseBatchDelete" );
     FieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
       new ArrayLoadSaveValidator<>( new StringLoadSaveValidator(), 5 );
 
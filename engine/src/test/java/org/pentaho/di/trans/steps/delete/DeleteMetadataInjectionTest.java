@@ -33,6 +33,7 @@ public class DeleteMetadataInjectionTest extends BaseMetadataInjectionTest<Delet
     check( "TARGET_SCHEMA", () -> meta.getSchemaName() );
     check( "TARGET_TABLE", () -> meta.getTableName() );
     check( "COMMIT_SIZE", () -> meta.getCommitSizeVar() );
+    check( "BATCH_DELETE", () -> meta.useBatchDelete() );
     check( "TABLE_NAME_FIELD", () -> meta.getKeyFields()[0].getKeyLookup() );
     check( "COMPARATOR", () -> meta.getKeyFields()[0].getKeyCondition() );
     check( "STREAM_FIELDNAME_1", () -> meta.getKeyFields()[0].getKeyStream() );
@@ -0,0 +1,158 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.delete;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.trans.step.BaseDatabaseStepData;
+import org.pentaho.di.trans.step.BaseDatabaseStepMeta;
+import org.pentaho.di.trans.steps.mock.StepMockHelper;
+
+/**
+ * Tests the Delete step with batch deletes, against a mocked database.
+ */
+public class DeleteTest {
+  private StepMockHelper<DeleteMeta, DeleteData> smh;
+  private DeleteMeta meta;
+  private DeleteData data;
+  private Database db;
+  private PreparedStatement deleteStatement;
+
+  @Before
+  public void setUp() throws Exception {
+    smh = new StepMockHelper<DeleteMeta, DeleteData>( "Delete", DeleteMeta.class, DeleteData.class );
+    when( smh.logChannelInterfaceFactory.create( any(), any( LoggingObjectInterface.class ) ) ).thenReturn(
+      smh.logChannelInterface );
+    when( smh.trans.isRunning() ).thenReturn( true );
+
+    DatabaseMeta databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.getQuotedSchemaTableCombination( any(), any() ) ).thenReturn( "t" );
+    when( databaseMeta.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+    when( databaseMeta.stripCR( anyString() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+
+    meta = new DeleteMeta();
+    meta.setDefault();
+    meta.allocate( 1 );
+    meta.getKeyFields()[0].setKeyStream( "id" );
+    meta.getKeyFields()[0].setKeyLookup( "ID" );
+    meta.getKeyFields()[0].setKeyCondition( "=" );
+    meta.getKeyFields()[0].setKeyStream2( null );
+    meta.setDatabaseMeta( databaseMeta );
+    meta.setTableName( "t" );
+    meta.setUseBatchDelete( true );
+
+    deleteStatement = mock( PreparedStatement.class );
+    Connection connection = mock( Connection.class );
+    when( connection.prepareStatement( anyString() ) ).thenReturn( deleteStatement );
+    db = mock( Database.class );
+    when( db.getConnection() ).thenReturn( connection );
+    when( db.isAutoCommit() ).thenReturn( false );
+
+    data = new DeleteData();
+  }
+
+  @After
+  public void cleanUp() {
+    smh.cleanUp();
+  }
+
+  @Test
+  public void deletesInBatchesWithoutErrorHandling() throws Exception {
+    Delete step = runStep( 1L, 2L );
+
+    verify( db, times( 2 ) ).insertRow( deleteStatement, true, true );
+    verify( db ).emptyAndCommit( deleteStatement, true );
+    assertEquals( 2, step.getLinesUpdated() );
+    assertEquals( 0, step.getErrors() );
+  }
+
+  @Test
+  public void deletesRowByRowWhenRowsGoToTheErrorStream() throws Exception {
+    when( smh.stepMeta.isDoingErrorHandling() ).thenReturn( true );
+
+    Delete step = runStep( 1L, 2L );
+
+    verify( db, times( 2 ) ).insertRow( deleteStatement, false, true );
+    verify( db, never() ).insertRow( any( PreparedStatement.class ), eq( true ), anyBoolean() );
+    verify( db ).emptyAndCommit( deleteStatement, false );
+    assertEquals( 2, step.getLinesUpdated() );
+  }
+
+  @Test
+  public void sendsTheRowOfAFailedDeleteToTheErrorStream() throws Exception {
+    when( smh.stepMeta.isDoingErrorHandling() ).thenReturn( true );
+    when( db.insertRow( deleteStatement, false, true ) )
+      .thenReturn( false ).thenThrow( new KettleDatabaseException( "Delete failed" ) ).thenReturn( false );
+
+    Delete step = runStep( 1L, 2L, 3L );
+
+    verify( step, times( 2 ) ).putRow( any(), any() );
+    verify( step ).putError( any(), eq( new Object[] { 2L } ), eq( 1L ), anyString(), isNull(), eq( "DEL001" ) );
+    verify( db ).emptyAndCommit( deleteStatement, false );
+    assertEquals( 0, step.getErrors() );
+  }
+
+  private Delete runStep( Object... keys ) throws Exception {
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    Delete step = spy( new Delete( smh.stepMeta, smh.stepDataInterface, 0, smh.transMeta, smh.trans ) );
+    doAnswer( invocation -> {
+      ( (BaseDatabaseStepData) invocation.getArgument( 1 ) ).db = db;
+      return true;
+    } ).when( step ).connectToDatabaseOrInitDataSource( any( BaseDatabaseStepMeta.class ),
+      any( BaseDatabaseStepData.class ) );
+    step.setInputRowMeta( inputRowMeta );
+    Iterator<Object> input = Arrays.asList( keys ).iterator();
+    doAnswer( invocation -> input.hasNext() ? new Object[] { input.next() } : null ).when( step ).getRow();
+    doNothing().when( step ).putRow( any(), any() );
+    doNothing().when( step ).putError( any(), any(), anyLong(), any(), any(), any() );
+
+    assertTrue( step.init( meta, data ) );
+    while ( step.processRow( meta, data ) ) {
+      // process the next row
+    }
+    step.dispose( meta, data );
+    return step;
+  }
+}
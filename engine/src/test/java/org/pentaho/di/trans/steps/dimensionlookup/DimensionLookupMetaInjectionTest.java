@@ -165,6 +165,12 @@ public class DimensionLookupMetaInjectionTest extends BaseMetadataInjectionTest<
         return meta.isPreloadingCache();
       }
     } );
+    check( "SHARED_CACHE_NAME", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getSharedCacheName();
+      }
+    } );
     check( "CONNECTION_NAME", new StringGetter() {
       public String get() {
         return "My Connection";
@@ -44,7 +44,7 @@ public class GroupByMetaTest implements InitializerInterface<StepMetaInterface>
     KettleEnvironment.init();
     PluginRegistry.init( false );
     List<String> attributes =
-        Arrays.asList( "passAllRows", "directory", "prefix", "aggregateIgnored", "aggregateIgnoredField", "addingLineNrInGroup",
+        Arrays.asList( "passAllRows", "directory", "prefix", "compressionType", "aggregateIgnored", "aggregateIgnoredField", "addingLineNrInGroup",
             "lineNrInGroupField", "alwaysGivingBackOneRow", "groupField", "aggregateField", "subjectField",
             "aggregateType", "valueField" );
 
@@ -163,6 +163,46 @@ public class GroupByTest  {
   }
 
 
+  @Test
+  public void testApproximateAggregates() throws KettleException {
+    GroupByMeta meta = new GroupByMeta();
+    meta.allocate( 0, 3 );
+    meta.setAggregateField( new String[] { "distinct_field", "median_field", "perc_field" } );
+    meta.setSubjectField( new String[] { "raw_integer", "raw_integer", "raw_integer" } );
+    meta.setValueField( new String[] { null, null, "90" } );
+    meta.setAggregateType( new int[] {
+      GroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT,
+      GroupByMeta.TYPE_GROUP_APPROX_MEDIAN,
+      GroupByMeta.TYPE_GROUP_APPROX_PERCENTILE } );
+    when( mockHelper.stepMeta.getStepMetaInterface() ).thenReturn( meta );
+
+    GroupByData data = new GroupByData();
+    data.subjectnrs = new int[] { 0, 0, 0 };
+    data.counts = new long[ 3 ];
+    data.previousSums = new Object[ 0 ];
+    data.previousAvgSum = new Object[ 0 ];
+    data.previousAvgCount = new long[ 0 ];
+    data.inputRowMeta = new RowMeta();
+    data.inputRowMeta.addValueMeta( new ValueMetaInteger( "raw_integer" ) );
+
+    GroupBy groupBy = new GroupBy( mockHelper.stepMeta, data, 0, mockHelper.transMeta, mockHelper.trans );
+    groupBy.newAggregate( null );
+    for ( long i = 0; i < 10000; i++ ) {
+      groupBy.calcAggregate( new Object[] { i % 1000 } );
+      groupBy.calcAggregate( new Object[] { null } );
+    }
+    Object[] result = groupBy.getAggregateResult();
+
+    assertEquals( 1000.0, (Long) result[ 0 ], 1000 * 0.04 );
+    assertEquals( 500.0, (Double) result[ 1 ], 10.0 );
+    assertEquals( 900.0, (Double) result[ 2 ], 10.0 );
+
+    groupBy.newAggregate( null );
+    result = groupBy.getAggregateResult();
+    assertEquals( 0L, result[ 0 ] );
+    assertEquals( null, result[ 1 ] );
+  }
+
   @Test
   public void testTempFileIsDeleted_AfterCallingDisposeMethod() throws Exception {
     GroupByData groupByData = new GroupByData();
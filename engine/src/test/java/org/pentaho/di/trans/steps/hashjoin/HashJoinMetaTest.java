@@ -0,0 +1,113 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.hashjoin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.errorhandling.StreamInterface;
+import org.pentaho.di.trans.steps.loadsave.LoadSaveTester;
+import org.pentaho.di.trans.steps.loadsave.validator.FieldLoadSaveValidator;
+
+public class HashJoinMetaTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  LoadSaveTester loadSaveTester;
+
+  public HashJoinMetaTest() {
+    List<String> attributes = Arrays.asList( "joinType", "keyFields1", "keyFields2", "maxRowsInMemory", "directory",
+      "prefix", "usingBloomFilter" );
+
+    Map<String, String> getterMap = new HashMap<String, String>();
+    getterMap.put( "usingBloomFilter", "isUsingBloomFilter" );
+
+    Map<String, String> setterMap = new HashMap<String, String>();
+
+    this.loadSaveTester = new LoadSaveTester( HashJoinMeta.class, attributes, getterMap, setterMap,
+      new HashMap<String, FieldLoadSaveValidator<?>>(), new HashMap<String, FieldLoadSaveValidator<?>>() );
+  }
+
+  @Test
+  public void testSerialization() throws KettleException {
+    loadSaveTester.testSerialization();
+  }
+
+  @Test
+  public void testGetFields() throws Exception {
+    RowMeta inputRow1 = new RowMeta();
+    inputRow1.addValueMeta( new ValueMetaInteger( "field1" ) );
+    inputRow1.addValueMeta( new ValueMetaString( "field2" ) );
+    RowMeta inputRow2 = new RowMeta();
+    inputRow2.addValueMeta( new ValueMetaString( "field1" ) );
+    inputRow2.addValueMeta( new ValueMetaString( "field3" ) );
+
+    HashJoinMeta meta = new HashJoinMeta();
+    StepMeta stepMeta = new StepMeta( "Hash join", meta );
+
+    RowMeta outputRowMeta = new RowMeta();
+    meta.setJoinType( "FULL OUTER" );
+    meta.getFields( outputRowMeta, "Hash join", new RowMetaInterface[]{ inputRow1, inputRow2 }, stepMeta,
+      new Variables(), null, null );
+    assertEquals( Arrays.asList( "field1", "field2", "field1_1", "field3" ),
+      Arrays.asList( outputRowMeta.getFieldNames() ) );
+
+    // Semi and anti joins only pass the fields of the left hand side stream
+    //
+    outputRowMeta = new RowMeta();
+    meta.setJoinType( "LEFT ANTI" );
+    meta.getFields( outputRowMeta, "Hash join", new RowMetaInterface[]{ inputRow1, inputRow2 }, stepMeta,
+      new Variables(), null, null );
+    assertEquals( Arrays.asList( "field1", "field2" ), Arrays.asList( outputRowMeta.getFieldNames() ) );
+  }
+
+  @Test
+  public void cloneTest() throws Exception {
+    HashJoinMeta meta = new HashJoinMeta();
+    meta.setKeyFields1( new String[] { "kf1-1", "kf1-2" } );
+    meta.setKeyFields2( new String[] { "kf2-1", "kf2-2" } );
+    meta.setJoinType( "LEFT SEMI" );
+    meta.setMaxRowsInMemory( "1000" );
+    HashJoinMeta aClone = (HashJoinMeta) meta.clone();
+    assertFalse( aClone == meta );
+    assertTrue( Arrays.equals( meta.getKeyFields1(), aClone.getKeyFields1() ) );
+    assertFalse( meta.getKeyFields1() == aClone.getKeyFields1() );
+    assertTrue( Arrays.equals( meta.getKeyFields2(), aClone.getKeyFields2() ) );
+    assertEquals( meta.getJoinType(), aClone.getJoinType() );
+    assertEquals( meta.getMaxRowsInMemory(), aClone.getMaxRowsInMemory() );
+
+    List<StreamInterface> infoStreams = meta.getStepIOMeta().getInfoStreams();
+    List<StreamInterface> cloneInfoStreams = aClone.getStepIOMeta().getInfoStreams();
+    assertFalse( infoStreams == cloneInfoStreams );
+    assertEquals( infoStreams.size(), cloneInfoStreams.size() );
+    for ( int i = 0; i < infoStreams.size(); i++ ) {
+      assertFalse( infoStreams.get( i ) == cloneInfoStreams.get( i ) );
+    }
+  }
+}
@@ -0,0 +1,211 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.hashjoin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.QueueRowSet;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+
+public class HashJoinTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static final int NR_LEFT_ROWS = 2000;
+  private static final int NR_RIGHT_ROWS = 1500;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  @Test
+  public void testJoinTypesInMemory() throws Exception {
+    for ( String joinType : HashJoinMeta.join_types ) {
+      assertEquals( joinType, getExpectedRows( joinType ), runStep( joinType, 0, false ) );
+    }
+  }
+
+  @Test
+  public void testJoinTypesSpilled() throws Exception {
+    for ( String joinType : HashJoinMeta.join_types ) {
+      assertEquals( joinType, getExpectedRows( joinType ), runStep( joinType, 5, false ) );
+      assertEquals( 0, tempFolder.getRoot().list().length );
+    }
+  }
+
+  @Test
+  public void testJoinTypesSpilledWithBloomFilter() throws Exception {
+    for ( String joinType : HashJoinMeta.join_types ) {
+      assertEquals( joinType, getExpectedRows( joinType ), runStep( joinType, 5, true ) );
+      assertEquals( 0, tempFolder.getRoot().list().length );
+    }
+  }
+
+  @Test
+  public void testSpillPartitionsChangePerLevel() {
+    int moved = 0;
+    for ( int hash = 0; hash < 1000; hash++ ) {
+      int partition = HashJoin.getSpillPartition( hash, 0 );
+      assertTrue( partition >= 0 && partition < HashJoin.SPILL_PARTITIONS );
+      if ( partition != HashJoin.getSpillPartition( hash, 1 ) ) {
+        moved++;
+      }
+    }
+    assertTrue( moved > 900 );
+  }
+
+  /**
+   * Keys k0 to k349 on the left with every 50th key null, k100 to k499 on the right with every 60th key null.
+   */
+  private static Object[] getLeftRow( long i ) {
+    return new Object[] { i % 50 == 0 ? null : "k" + ( i * 7 % 350 ), i };
+  }
+
+  private static Object[] getRightRow( long i ) {
+    return new Object[] { i % 60 == 0 ? null : "k" + ( 100 + i * 3 % 400 ), -i };
+  }
+
+  /**
+   * Joins the rows with nested loops.
+   */
+  private List<String> getExpectedRows( String joinType ) {
+    int type = Arrays.asList( HashJoinMeta.join_types ).indexOf( joinType );
+    boolean[] rightMatched = new boolean[NR_RIGHT_ROWS];
+    List<String> rows = new ArrayList<>();
+    for ( long i = 0; i < NR_LEFT_ROWS; i++ ) {
+      Object[] left = getLeftRow( i );
+      boolean matched = false;
+      for ( int j = 0; j < NR_RIGHT_ROWS; j++ ) {
+        Object[] right = getRightRow( j );
+        if ( left[0] == null ? right[0] == null : left[0].equals( right[0] ) ) {
+          matched = true;
+          rightMatched[j] = true;
+          if ( !HashJoinMeta.one_only[type] ) {
+            rows.add( Arrays.toString( new Object[] { left[0], left[1], right[0], right[1] } ) );
+          }
+        }
+      }
+      if ( HashJoinMeta.one_only[type] && matched == "LEFT SEMI".equals( joinType ) ) {
+        rows.add( Arrays.toString( left ) );
+      }
+      if ( HashJoinMeta.one_optionals[type] && !matched ) {
+        rows.add( Arrays.toString( new Object[] { left[0], left[1], null, null } ) );
+      }
+    }
+    for ( int j = 0; j < NR_RIGHT_ROWS; j++ ) {
+      if ( HashJoinMeta.two_optionals[type] && !rightMatched[j] ) {
+        Object[] right = getRightRow( j );
+        rows.add( Arrays.toString( new Object[] { null, null, right[0], right[1] } ) );
+      }
+    }
+    Collections.sort( rows );
+    return rows;
+  }
+
+  private List<String> runStep( String joinType, int maxRows, boolean bloomFilter ) throws Exception {
+    RowMetaInterface leftMeta = new RowMeta();
+    leftMeta.addValueMeta( new ValueMetaString( "key" ) );
+    leftMeta.addValueMeta( new ValueMetaInteger( "left" ) );
+    RowMetaInterface rightMeta = new RowMeta();
+    rightMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rightMeta.addValueMeta( new ValueMetaInteger( "right" ) );
+
+    RowSet leftRows = new QueueRowSet();
+    for ( long i = 0; i < NR_LEFT_ROWS; i++ ) {
+      leftRows.putRow( leftMeta, getLeftRow( i ) );
+    }
+    leftRows.setDone();
+    RowSet rightRows = new QueueRowSet();
+    for ( long i = 0; i < NR_RIGHT_ROWS; i++ ) {
+      rightRows.putRow( rightMeta, getRightRow( i ) );
+    }
+    rightRows.setDone();
+
+    HashJoinMeta meta = new HashJoinMeta();
+    meta.setDefault();
+    meta.setJoinType( joinType );
+    meta.setKeyFields1( new String[] { "key" } );
+    meta.setKeyFields2( new String[] { "key" } );
+    meta.setDirectory( tempFolder.getRoot().getAbsolutePath() );
+    meta.setUsingBloomFilter( bloomFilter );
+    meta.getStepIOMeta().getInfoStreams().get( 0 ).setStepMeta( new StepMeta( "left", new DummyTransMeta() ) );
+    meta.getStepIOMeta().getInfoStreams().get( 1 ).setStepMeta( new StepMeta( "right", new DummyTransMeta() ) );
+
+    int type = Arrays.asList( HashJoinMeta.join_types ).indexOf( joinType );
+    HashJoinData data = new HashJoinData();
+    data.maxRows = maxRows;
+    data.oneOptional = HashJoinMeta.one_optionals[type];
+    data.twoOptional = HashJoinMeta.two_optionals[type];
+    data.leftOnly = HashJoinMeta.one_only[type];
+    data.antiJoin = "LEFT ANTI".equals( joinType );
+
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( "Hash join", meta );
+    when( transMeta.findStep( "Hash join" ) ).thenReturn( stepMeta );
+
+    HashJoin step = spy( new HashJoin( stepMeta, data, 0, transMeta, mock( Trans.class ) ) );
+    doReturn( leftRows ).when( step ).findInputRowSet( "left" );
+    doReturn( rightRows ).when( step ).findInputRowSet( "right" );
+    doAnswer( invocation -> ( (RowSet) invocation.getArgument( 0 ) ).getRowImmediate() )
+      .when( step ).getRowFrom( any() );
+    final List<String> output = new ArrayList<>();
+    doAnswer( invocation -> {
+      RowMetaInterface rowMeta = invocation.getArgument( 0 );
+      Object[] row = invocation.getArgument( 1 );
+      output.add( Arrays.toString( Arrays.copyOf( row, rowMeta.size() ) ) );
+      return null;
+    } ).when( step ).putRow( any(), any() );
+    doNothing().when( step ).setOutputDone();
+
+    while ( step.processRow( meta, data ) ) {
+      assertFalse( output.size() > NR_LEFT_ROWS * NR_RIGHT_ROWS );
+    }
+    step.dispose( meta, data );
+
+    Collections.sort( output );
+    return output;
+  }
+}
@@ -49,6 +49,11 @@ public class InsertUpdateMetaInjectionTest extends BaseMetadataInjectionTest<Ins
         return meta.isUpdateBypassed();
       }
     } );
+    check( "USE_UPSERT", new BooleanGetter() {
+      public boolean get() {
+        return meta.isUseUpsert();
+      }
+    } );
     check( "KEY_STREAM", new StringGetter() {
       public String get() {
         return meta.getKeyFields()[ 0 ].getKeyStream();
@@ -14,6 +14,7 @@
 package org.pentaho.di.trans.steps.insertupdate;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -33,6 +34,7 @@ import org.mockito.Mockito;
 import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.database.PostgreSQLDatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
@@ -40,6 +42,8 @@ import org.pentaho.di.core.plugins.PluginRegistry;
 import org.pentaho.di.core.plugins.StepPluginType;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -159,7 +163,7 @@ public class InsertUpdateMetaTest {
   public void setUpLoadSave() throws Exception {
     List<String> attributes =
       Arrays.asList( "schemaName", "tableName", "databaseMeta", "keyFields", "updateFields", "commitSize",
-        "updateBypassed" );
+        "updateBypassed", "useUpsert" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
@@ -175,6 +179,7 @@ public class InsertUpdateMetaTest {
         put( "update", "getUpdate" );
         put( "commitSize", "getCommitSizeVar" );
         put( "updateBypassed", "isUpdateBypassed" );
+        put( "useUpsert", "isUseUpsert" );
       }
     };
 
@@ -192,6 +197,7 @@ public class InsertUpdateMetaTest {
         put( "update", "setUpdate" );
         put( "commitSize", "setCommitSize" );
         put( "updateBypassed", "setUpdateBypassed" );
+        put( "useUpsert", "setUseUpsert" );
       }
     };
     FieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
@@ -284,6 +290,110 @@ public class InsertUpdateMetaTest {
     Assert.assertNotNull( insertUpdateMeta.getKeyFields()[ 0 ].getKeyStream2() );
   }
 
+  @Test
+  public void upsertWritesBatchesWithoutDuplicateKeys() throws Exception {
+    RowMetaInterface inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "ID" ) );
+    inputRowMeta.addValueMeta( new ValueMetaString( "A" ) );
+    InsertUpdate insertUpdateStep = createUpsertStep( inputRowMeta );
+
+    Database database = Mockito.mock( Database.class );
+    Mockito.doReturn( Mockito.mock( Connection.class ) ).when( database ).getConnection();
+    String sql1 = "INSERT INTO FOO (ID, A) VALUES (?, ?) ON CONFLICT (ID) DO UPDATE SET A = EXCLUDED.A";
+    String sql3 =
+      "INSERT INTO FOO (ID, A) VALUES (?, ?), (?, ?), (?, ?) ON CONFLICT (ID) DO UPDATE SET A = EXCLUDED.A";
+    PreparedStatement statement1 = Mockito.mock( PreparedStatement.class );
+    PreparedStatement statement3 = Mockito.mock( PreparedStatement.class );
+    Mockito.doReturn( statement1 ).when( database ).prepareSQL( sql1 );
+    Mockito.doReturn( statement3 ).when( database ).prepareSQL( sql3 );
+    mockHelper.processRowsStepDataInterface.db = database;
+
+    // The second row has the key of the first one, the second batch is full after three rows
+    Mockito.doReturn( new Object[] { 1L, "a" }, new Object[] { 1L, "b" }, new Object[] { 2L, "c" },
+      new Object[] { 3L, "d" }, new Object[] { 4L, "e" }, null ).when( insertUpdateStep ).getRow();
+    processUpsertRows( insertUpdateStep, inputRowMeta );
+
+    Mockito.verify( database, Mockito.times( 2 ) ).prepareSQL( sql1 );
+    Mockito.verify( database ).prepareSQL( sql3 );
+    Mockito.verify( statement1, Mockito.times( 2 ) ).executeUpdate();
+    Mockito.verify( statement3 ).executeUpdate();
+    Mockito.verify( insertUpdateStep, Mockito.times( 5 ) ).putRow( Mockito.any(), Mockito.any() );
+    Assert.assertEquals( 5, insertUpdateStep.getLinesOutput() );
+    Assert.assertEquals( 0, insertUpdateStep.getLinesInput() );
+  }
+
+  @Test
+  public void upsertWritesStringKeysDifferingInCaseOrTrailingSpacesInOtherBatches() throws Exception {
+    RowMetaInterface inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaString( "ID" ) );
+    inputRowMeta.addValueMeta( new ValueMetaString( "A" ) );
+    InsertUpdate insertUpdateStep = createUpsertStep( inputRowMeta );
+
+    Database database = Mockito.mock( Database.class );
+    Mockito.doReturn( Mockito.mock( Connection.class ) ).when( database ).getConnection();
+    String sql1 = "INSERT INTO FOO (ID, A) VALUES (?, ?) ON CONFLICT (ID) DO UPDATE SET A = EXCLUDED.A";
+    String sql2 = "INSERT INTO FOO (ID, A) VALUES (?, ?), (?, ?) ON CONFLICT (ID) DO UPDATE SET A = EXCLUDED.A";
+    PreparedStatement statement1 = Mockito.mock( PreparedStatement.class );
+    PreparedStatement statement2 = Mockito.mock( PreparedStatement.class );
+    Mockito.doReturn( statement1 ).when( database ).prepareSQL( sql1 );
+    Mockito.doReturn( statement2 ).when( database ).prepareSQL( sql2 );
+    mockHelper.processRowsStepDataInterface.db = database;
+
+    // A case insensitive collation ignoring trailing spaces takes the first three keys for the same
+    Mockito.doReturn( new Object[] { "abc", "a" }, new Object[] { "ABC ", "b" }, new Object[] { "Abc", "c" },
+      new Object[] { "abd", "d" }, null ).when( insertUpdateStep ).getRow();
+    processUpsertRows( insertUpdateStep, inputRowMeta );
+
+    Mockito.verify( database, Mockito.times( 2 ) ).prepareSQL( sql1 );
+    Mockito.verify( database ).prepareSQL( sql2 );
+    Mockito.verify( statement1, Mockito.times( 2 ) ).executeUpdate();
+    Mockito.verify( statement2 ).executeUpdate();
+    Assert.assertEquals( 4, insertUpdateStep.getLinesOutput() );
+  }
+
+  /**
+   * @return a spied step upserting the fields of the row in table FOO by the first one, 3 rows per statement
+   */
+  private InsertUpdate createUpsertStep( RowMetaInterface inputRowMeta ) {
+    InsertUpdate insertUpdateStep =
+      new InsertUpdate( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    insertUpdateStep.setInputRowMeta( inputRowMeta );
+    insertUpdateStep = Mockito.spy( insertUpdateStep );
+    Mockito.doNothing().when( insertUpdateStep ).putRow( Mockito.any(), Mockito.any() );
+    insertUpdateStep.first = true;
+    return insertUpdateStep;
+  }
+
+  private void processUpsertRows( InsertUpdate insertUpdateStep, RowMetaInterface inputRowMeta ) throws Exception {
+    InsertUpdateMeta insertUpdateMeta = new InsertUpdateMeta();
+    insertUpdateMeta.allocate( 1, 2 );
+    insertUpdateMeta.getKeyFields()[ 0 ].setKeyLookup( "ID" );
+    insertUpdateMeta.getKeyFields()[ 0 ].setKeyCondition( "=" );
+    insertUpdateMeta.getKeyFields()[ 0 ].setKeyStream( "ID" );
+    insertUpdateMeta.getKeyFields()[ 0 ].setKeyStream2( "" );
+    for ( int i = 0; i < 2; i++ ) {
+      insertUpdateMeta.getUpdateFields()[ i ].setUpdateLookup( inputRowMeta.getValueMeta( i ).getName() );
+      insertUpdateMeta.getUpdateFields()[ i ].setUpdateStream( inputRowMeta.getValueMeta( i ).getName() );
+      insertUpdateMeta.getUpdateFields()[ i ].setUpdate( Boolean.TRUE );
+    }
+    insertUpdateMeta.setUseUpsert( true );
+
+    DatabaseMeta databaseMeta = Mockito.mock( DatabaseMeta.class );
+    Mockito.doReturn( "FOO" ).when( databaseMeta ).getQuotedSchemaTableCombination( Mockito.any(), Mockito.any() );
+    Mockito.doAnswer( invocation -> invocation.getArgument( 0 ) ).when( databaseMeta ).quoteField( Mockito.any() );
+    Mockito.doReturn( new PostgreSQLDatabaseMeta() {
+      @Override
+      public int getMaxInsertRowsPerStatement() {
+        return 3;
+      }
+    } ).when( databaseMeta ).getDatabaseInterface();
+    insertUpdateMeta.setDatabaseMeta( databaseMeta );
+
+    while ( insertUpdateStep.processRow( insertUpdateMeta, mockHelper.processRowsStepDataInterface ) ) {
+      // process all the rows
+    }
+  }
+
   public class InsertFieldLoadSaveValidator implements FieldLoadSaveValidator<InsertUpdateMeta.KeyField> {
 
     @Override public InsertUpdateMeta.KeyField getTestObject() {
@@ -16,8 +16,6 @@ package org.pentaho.di.trans.steps.memgroupby;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
-import java.util.HashMap;
-
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Before;
@@ -31,7 +29,6 @@ import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaString;
-import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.HashEntry;
 import org.pentaho.di.trans.steps.mock.StepMockHelper;
 
 public class MemoryGroupByAggregationNullsTest {
@@ -76,20 +73,20 @@ public class MemoryGroupByAggregationNullsTest {
     data.outputRowMeta = rmi;
     data.groupMeta = rmi;
     data.groupnrs = new int[] {};
-    data.map = new HashMap<>();
     when( rmi.getValueMeta( Mockito.anyInt() ) ).thenReturn( vmi );
     data.aggMeta = rmi;
     step = new MemoryGroupBy( mockHelper.stepMeta, data, 0, mockHelper.transMeta, mockHelper.trans );
 
-    // put aggregate into map with default predefined value
+    // put aggregate into the index with default predefined value
     aggregate = new Aggregate();
     aggregate.agg = new Object[] { def };
-    data.map.put( getHashEntry(), aggregate );
+    data.initGroupIndex();
+    data.addGroup( new Object[] { null }, new Object[0], aggregate );
   }
 
-  // test hash entry
-  HashEntry getHashEntry() {
-    return data.getHashEntry( new Object[data.groupMeta.size()] );
+  // test group
+  Aggregate getAggregate() throws KettleException {
+    return data.getAggregate( new Object[] { null } );
   }
 
   /**
@@ -108,7 +105,7 @@ public class MemoryGroupByAggregationNullsTest {
     step.setMinNullIsValued( true );
     step.addToAggregate( new Object[] { null } );
 
-    Aggregate agg = data.map.get( getHashEntry() );
+    Aggregate agg = getAggregate();
     Assert.assertNotNull( "Hash code strategy changed?", agg );
 
     Assert.assertNull( "Value is set", agg.agg[0] );
@@ -119,7 +116,7 @@ public class MemoryGroupByAggregationNullsTest {
     step.setMinNullIsValued( false );
     step.addToAggregate( new Object[] { null } );
 
-    Aggregate agg = data.map.get( getHashEntry() );
+    Aggregate agg = getAggregate();
     Assert.assertNotNull( "Hash code strategy changed?", agg );
 
     Assert.assertEquals( "Value is NOT set", def, agg.agg[0] );
@@ -163,7 +160,7 @@ public class MemoryGroupByAggregationNullsTest {
     aggregate.agg = new Object[] { new byte[0] };
     byte[] bytes = { 51 };
     step.addToAggregate( new Object[] { bytes } );
-    Aggregate result = data.map.get( getHashEntry() );
+    Aggregate result = getAggregate();
     Assert.assertEquals( "Returns non-null value", bytes, result.agg[0] );
   }
 
@@ -185,7 +182,7 @@ public class MemoryGroupByAggregationNullsTest {
     step.addToAggregate( new Object[] { binaryData0.getBytes() } );
     step.addToAggregate( new Object[] { binaryData1.getBytes() } );
 
-    Object[] distinctObjs = data.map.get( getHashEntry() ).distinctObjs[0].toArray();
+    Object[] distinctObjs = getAggregate().distinctObjs[0].toArray();
 
     Assert.assertEquals( binaryData0, distinctObjs[1] );
     Assert.assertEquals( binaryData1, distinctObjs[0] );
@@ -299,6 +299,24 @@ public class MemoryGroupByAggregationTest {
     assertThat( output.getInteger( "both_num_count_distinct" ), is( 3L ) );
   }
 
+  @Test
+  public void testApproximate() throws Exception {
+    aggregates.clear();
+    aggregates.put( "approx_distinct", MemoryGroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT );
+    aggregates.put( "approx_median", MemoryGroupByMeta.TYPE_GROUP_APPROX_MEDIAN );
+    addColumn( new ValueMetaInteger( "intg" ), 0L, 1L, 1L, 10L );
+    addColumn( new ValueMetaInteger( "nul" ) );
+    addColumn( new ValueMetaString( "str" ), "a", null, "b", "a" );
+
+    RowMetaAndData output = runStep();
+
+    assertThat( output.getInteger( "intg_approx_distinct" ), is( 3L ) );
+    assertThat( output.getNumber( "intg_approx_median", Double.NaN ), is( 1.0 ) );
+    assertThat( output.getInteger( "nul_approx_distinct" ), is( 0L ) );
+    assertThat( output.getData()[output.getRowMeta().indexOfValue( "nul_approx_median" )], nullValue() );
+    assertThat( output.getInteger( "str_approx_distinct" ), is( 2L ) );
+  }
+
   @Test
   public void testSQLCompatible() throws Exception {
     addColumn( new ValueMetaInteger( "value" ), null, -2L, null, 0L, null, 10L, null, null, 0L, null );
@@ -332,7 +350,6 @@ public class MemoryGroupByAggregationTest {
     }
 
     MemoryGroupByData data = new MemoryGroupByData();
-    data.map = Maps.newHashMap();
 
     // Add to trans
     TransMeta transMeta = mock( TransMeta.class );
@@ -21,9 +21,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 
-import java.util.HashMap;
-
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
@@ -40,33 +39,33 @@ public class MemoryGroupByDataTest {
 
   @Before public void setUp() throws Exception {
     data.groupMeta = groupMeta;
+    data.groupnrs = new int[] { 0 };
     when( groupMeta.size() ).thenReturn( 1 );
     when( groupMeta.getValueMeta( anyInt() ) ).thenReturn( valueMeta );
-    when( valueMeta.convertToNormalStorageType( any() ) ).then( invocation -> {
+    when( valueMeta.getType() ).thenReturn( ValueMetaInterface.TYPE_STRING );
+    when( valueMeta.isCollatorDisabled() ).thenReturn( true );
+    when( valueMeta.getString( any() ) ).then( invocation -> {
       Object argument = invocation.getArguments()[0];
       return new String( (byte[]) argument );
     } );
   }
 
-  @Test public void hashEntryTest() {
-    HashMap<MemoryGroupByData.HashEntry, String> map = new HashMap<>();
+  @Test public void groupIndexTest() throws Exception {
+    data.initGroupIndex();
 
     byte[] byteValue1 = "key".getBytes();
     Object[] groupData1 = new Object[1];
     groupData1[0] = byteValue1;
 
-    MemoryGroupByData.HashEntry hashEntry1 = data.getHashEntry( groupData1 );
-    map.put( hashEntry1, "value" );
+    Aggregate aggregate = new Aggregate();
+    data.addGroup( groupData1, groupData1, aggregate );
 
     byte[] byteValue2 = "key".getBytes();
     Object[] groupData2 = new Object[1];
     groupData2[0] = byteValue2;
 
-    MemoryGroupByData.HashEntry hashEntry2 = data.getHashEntry( groupData2 );
-
-    String value = map.get( hashEntry2 );
-
-    assertEquals( "value", value );
+    assertSame( aggregate, data.getAggregate( groupData2 ) );
+    assertEquals( 1, data.getNrGroups() );
   }
 
 }
@@ -0,0 +1,195 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+
+public class MemoryGroupByMergeTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static final int NR_KEYS = 50;
+  private static final int NR_ROWS = 3000;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  @Test
+  public void testMergedCopiesGiveTheSameResult() throws Exception {
+    assertMergedCopies( 0, true );
+  }
+
+  @Test
+  public void testMergeSpillsGroupsThatDontFitInMemory() throws Exception {
+    assertMergedCopies( 3, true );
+  }
+
+  @Test
+  public void testCopiesDontWaitForEachOther() throws Exception {
+    // Each copy runs to the end before the next one starts: a copy waiting for the others would never return
+    //
+    assertMergedCopies( 0, false );
+    assertMergedCopies( 3, false );
+  }
+
+  @Test
+  public void testOnlyLastCopyToFinishMerges() {
+    MemoryGroupByMerge merge = new MemoryGroupByMerge( 2 );
+    assertFalse( merge.finish( false ) );
+    assertTrue( merge.finish( false ) );
+
+    merge = new MemoryGroupByMerge( 2 );
+    assertFalse( merge.finish( false ) );
+    assertFalse( merge.finish( true ) );
+  }
+
+  private void assertMergedCopies( int maxGroups, boolean concurrent ) throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 0; i < NR_ROWS; i++ ) {
+      rows.add( new Object[] { "key" + ( i * 7 % NR_KEYS ), i % 100, "value" + ( i % 13 ) } );
+    }
+    Map<String, Object[]> expected = new ConcurrentHashMap<>();
+    runStep( 0, rows, null, 0, expected );
+
+    List<Object[]> rows0 = new ArrayList<>();
+    List<Object[]> rows1 = new ArrayList<>();
+    for ( int i = 0; i < rows.size(); i++ ) {
+      ( i % 3 == 0 ? rows0 : rows1 ).add( rows.get( i ) );
+    }
+    MemoryGroupByMerge merge = new MemoryGroupByMerge( 2 );
+    Map<String, Object[]> merged = new ConcurrentHashMap<>();
+    if ( concurrent ) {
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        Future<?> copy1 = executor.submit( () -> {
+          runStep( 1, rows1, merge, maxGroups, merged );
+          return null;
+        } );
+        runStep( 0, rows0, merge, maxGroups, merged );
+        copy1.get();
+      } finally {
+        executor.shutdown();
+      }
+    } else {
+      runStep( 1, rows1, merge, maxGroups, merged );
+      runStep( 0, rows0, merge, maxGroups, merged );
+    }
+
+    assertEquals( NR_KEYS, expected.size() );
+    assertEquals( expected.size(), merged.size() );
+    for ( Map.Entry<String, Object[]> entry : expected.entrySet() ) {
+      Object[] expectedRow = entry.getValue();
+      Object[] mergedRow = merged.get( entry.getKey() );
+      for ( int i = 0; i < expectedRow.length; i++ ) {
+        if ( expectedRow[i] instanceof Double ) {
+          assertEquals( (Double) expectedRow[i], (Double) mergedRow[i], 1e-9 );
+        } else {
+          assertEquals( entry.getKey(), expectedRow[i], mergedRow[i] );
+        }
+      }
+    }
+    assertEquals( 0, tempFolder.getRoot().list().length );
+  }
+
+  private void runStep( int copyNr, List<Object[]> rows, MemoryGroupByMerge merge, int maxGroups,
+    Map<String, Object[]> output ) throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "text" ) );
+
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.allocate( 1, 9 );
+    meta.getGroupField()[0] = "key";
+    String[] names = { "sum", "count", "average", "max", "stddev", "distinct", "median", "concat", "approx_distinct" };
+    String[] subjects = { "value", "value", "value", "value", "value", "text", "value", "text", "text" };
+    int[] types = { MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL,
+      MemoryGroupByMeta.TYPE_GROUP_AVERAGE, MemoryGroupByMeta.TYPE_GROUP_MAX,
+      MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION, MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT,
+      MemoryGroupByMeta.TYPE_GROUP_MEDIAN, MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA,
+      MemoryGroupByMeta.TYPE_GROUP_APPROX_COUNT_DISTINCT };
+    for ( int i = 0; i < names.length; i++ ) {
+      meta.getAggregateField()[i] = names[i];
+      meta.getSubjectField()[i] = subjects[i];
+      meta.getAggregateType()[i] = types[i];
+    }
+    meta.setMergingCopies( true );
+    meta.setDirectory( tempFolder.getRoot().getAbsolutePath() );
+
+    MemoryGroupByData data = new MemoryGroupByData();
+    data.merge = merge;
+    data.maxGroups = maxGroups;
+
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( "Memory group by", meta );
+    when( transMeta.findStep( "Memory group by" ) ).thenReturn( stepMeta );
+
+    MemoryGroupBy step = spy( new MemoryGroupBy( stepMeta, data, copyNr, transMeta, mock( Trans.class ) ) );
+    doAnswer( invocation -> {
+      Object[] row = invocation.getArgument( 1 );
+      assertFalse( output.containsKey( row[0] ) );
+      // The order of concatenated values depends on the copies, only compare the length
+      row[8] = ( (String) row[8] ).length();
+      output.put( (String) row[0], row );
+      return null;
+    } ).when( step ).putRow( any(), any() );
+    doNothing().when( step ).setOutputDone();
+    doReturn( rowMeta ).when( step ).getInputRowMeta();
+
+    for ( Object[] row : rows ) {
+      doReturn( row ).when( step ).getRow();
+      assertTrue( step.processRow( meta, data ) );
+    }
+    doReturn( null ).when( step ).getRow();
+    assertFalse( step.processRow( meta, data ) );
+    step.dispose( meta, data );
+  }
+}
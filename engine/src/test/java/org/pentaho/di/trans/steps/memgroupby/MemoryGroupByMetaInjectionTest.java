@@ -63,5 +63,29 @@ public class MemoryGroupByMetaInjectionTest extends BaseMetadataInjectionTest<Me
           return meta.isAlwaysGivingBackOneRow();
         }
       } );
+    check( "MAX_GROUPS_IN_MEMORY", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getMaxGroupsInMemory();
+      }
+    } );
+    check( "MERGE_COPIES", new BooleanGetter() {
+      @Override
+      public boolean get() {
+        return meta.isMergingCopies();
+      }
+    } );
+    check( "DIRECTORY", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getDirectory();
+      }
+    } );
+    check( "PREFIX", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getPrefix();
+      }
+    } );
   }
 }
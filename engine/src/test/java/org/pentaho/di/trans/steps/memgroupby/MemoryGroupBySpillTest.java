@@ -0,0 +1,138 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+
+public class MemoryGroupBySpillTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static final int NR_KEYS = 200;
+  private static final int NR_ROWS = 5000;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  @Test
+  public void testSpilledGroupsGiveTheSameResult() throws Exception {
+    Map<String, Object[]> inMemory = runStep( 0 );
+    Map<String, Object[]> spilled = runStep( 3 );
+
+    assertEquals( NR_KEYS, inMemory.size() );
+    assertEquals( inMemory.size(), spilled.size() );
+    for ( Map.Entry<String, Object[]> entry : inMemory.entrySet() ) {
+      Object[] expected = entry.getValue();
+      Object[] actual = spilled.get( entry.getKey() );
+      for ( int i = 0; i < expected.length; i++ ) {
+        assertEquals( entry.getKey(), expected[i], actual[i] );
+      }
+    }
+    assertEquals( 0, tempFolder.getRoot().list().length );
+  }
+
+  @Test
+  public void testSpillPartitionsChangePerLevel() {
+    int moved = 0;
+    for ( int hash = 0; hash < 1000; hash++ ) {
+      int partition = MemoryGroupBy.getSpillPartition( hash, 0 );
+      assertTrue( partition >= 0 && partition < MemoryGroupBy.SPILL_PARTITIONS );
+      if ( partition != MemoryGroupBy.getSpillPartition( hash, 1 ) ) {
+        moved++;
+      }
+    }
+    assertTrue( moved > 900 );
+  }
+
+  private Map<String, Object[]> runStep( int maxGroups ) throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.allocate( 1, 4 );
+    meta.getGroupField()[0] = "key";
+    String[] names = { "sum", "count", "first", "last" };
+    int[] types = { MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL,
+      MemoryGroupByMeta.TYPE_GROUP_FIRST, MemoryGroupByMeta.TYPE_GROUP_LAST };
+    for ( int i = 0; i < names.length; i++ ) {
+      meta.getAggregateField()[i] = names[i];
+      meta.getSubjectField()[i] = "value";
+      meta.getAggregateType()[i] = types[i];
+    }
+    meta.setDirectory( tempFolder.getRoot().getAbsolutePath() );
+
+    MemoryGroupByData data = new MemoryGroupByData();
+    data.maxGroups = maxGroups;
+
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( "Memory group by", meta );
+    when( transMeta.findStep( "Memory group by" ) ).thenReturn( stepMeta );
+
+    MemoryGroupBy step = spy( new MemoryGroupBy( stepMeta, data, 0, transMeta, mock( Trans.class ) ) );
+    final Map<String, Object[]> output = new HashMap<>();
+    doAnswer( invocation -> {
+      Object[] row = invocation.getArgument( 1 );
+      assertFalse( output.containsKey( row[0] ) );
+      output.put( (String) row[0], row );
+      return null;
+    } ).when( step ).putRow( any(), any() );
+    doNothing().when( step ).setOutputDone();
+    doReturn( rowMeta ).when( step ).getInputRowMeta();
+
+    for ( long i = 0; i < NR_ROWS; i++ ) {
+      doReturn( new Object[] { "key" + ( i * 7 % NR_KEYS ), i } ).when( step ).getRow();
+      assertTrue( step.processRow( meta, data ) );
+    }
+    doReturn( null ).when( step ).getRow();
+    assertFalse( step.processRow( meta, data ) );
+    step.dispose( meta, data );
+
+    return output;
+  }
+}
@@ -0,0 +1,202 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.mergejoin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.QueueRowSet;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+
+public class MergeJoinTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final int NR_ONE_ROWS = 1200;
+  private static final int NR_TWO_ROWS = 700;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  @Test
+  public void testJoinTypesWithGroupsInMemory() throws Exception {
+    for ( String joinType : MergeJoinMeta.join_types ) {
+      assertEquals( joinType, getExpectedRows( joinType, false ), runStep( joinType, 100000, false ) );
+      assertEquals( joinType, getExpectedRows( joinType, true ), runStep( joinType, 100000, true ) );
+    }
+  }
+
+  @Test
+  public void testJoinTypesWithGroupsSpilled() throws Exception {
+    for ( String joinType : MergeJoinMeta.join_types ) {
+      assertEquals( joinType, getExpectedRows( joinType, false ), runStep( joinType, 7, false ) );
+      assertEquals( joinType, getExpectedRows( joinType, true ), runStep( joinType, 7, true ) );
+      assertEquals( joinType, getExpectedRows( joinType, true ), runStep( joinType, 1, true ) );
+    }
+  }
+
+  /**
+   * Sorted keys: a few nulls, a large group of 7s, then groups of 3 rows from 133 to 399.
+   */
+  private static Object[] getOneRow( long i, boolean stringKeys ) {
+    return new Object[] { getKey( i < 5 ? null : i < 400 ? 7L : i / 3, stringKeys ), i };
+  }
+
+  /**
+   * Sorted keys: a few nulls, a large group of 7s, then groups of 2 rows from 225 to 449.
+   */
+  private static Object[] getTwoRow( long i, boolean stringKeys ) {
+    return new Object[] { getKey( i < 3 ? null : i < 250 ? 7L : i / 2 + 100, stringKeys ), -i };
+  }
+
+  private static Object getKey( Long key, boolean stringKeys ) {
+    return key == null || !stringKeys ? key : String.format( "key%05d", key );
+  }
+
+  /**
+   * Joins the rows with nested loops.
+   */
+  private List<String> getExpectedRows( String joinType, boolean stringKeys ) {
+    int type = Arrays.asList( MergeJoinMeta.join_types ).indexOf( joinType );
+    boolean[] twoMatched = new boolean[NR_TWO_ROWS];
+    List<String> rows = new ArrayList<>();
+    for ( long i = 0; i < NR_ONE_ROWS; i++ ) {
+      Object[] one = getOneRow( i, stringKeys );
+      boolean matched = false;
+      for ( int j = 0; j < NR_TWO_ROWS; j++ ) {
+        Object[] two = getTwoRow( j, stringKeys );
+        if ( one[0] == null ? two[0] == null : one[0].equals( two[0] ) ) {
+          matched = true;
+          twoMatched[j] = true;
+          rows.add( Arrays.toString( new Object[] { one[0], one[1], two[0], two[1] } ) );
+        }
+      }
+      if ( MergeJoinMeta.two_optionals[type] && !matched ) {
+        rows.add( Arrays.toString( new Object[] { one[0], one[1], null, null } ) );
+      }
+    }
+    for ( int j = 0; j < NR_TWO_ROWS; j++ ) {
+      if ( MergeJoinMeta.one_optionals[type] && !twoMatched[j] ) {
+        Object[] two = getTwoRow( j, stringKeys );
+        rows.add( Arrays.toString( new Object[] { null, null, two[0], two[1] } ) );
+      }
+    }
+    Collections.sort( rows );
+    return rows;
+  }
+
+  private List<String> runStep( String joinType, int maxGroupRows, boolean stringKeys ) throws Exception {
+    RowMetaInterface oneMeta = new RowMeta();
+    oneMeta.addValueMeta( createKeyValueMeta( stringKeys, false ) );
+    oneMeta.addValueMeta( new ValueMetaInteger( "one" ) );
+    RowMetaInterface twoMeta = new RowMeta();
+    twoMeta.addValueMeta( createKeyValueMeta( stringKeys, true ) );
+    twoMeta.addValueMeta( new ValueMetaInteger( "two" ) );
+
+    RowSet oneRows = new QueueRowSet();
+    for ( long i = 0; i < NR_ONE_ROWS; i++ ) {
+      oneRows.putRow( oneMeta, getOneRow( i, stringKeys ) );
+    }
+    oneRows.setDone();
+    RowSet twoRows = new QueueRowSet();
+    for ( long i = 0; i < NR_TWO_ROWS; i++ ) {
+      twoRows.putRow( twoMeta, getTwoRow( i, stringKeys ) );
+    }
+    twoRows.setDone();
+
+    MergeJoinMeta meta = new MergeJoinMeta();
+    meta.setDefault();
+    meta.setJoinType( joinType );
+    meta.setKeyFields1( new String[] { "key" } );
+    meta.setKeyFields2( new String[] { "key" } );
+    meta.getStepIOMeta().getInfoStreams().get( 0 ).setStepMeta( new StepMeta( "one", new DummyTransMeta() ) );
+    meta.getStepIOMeta().getInfoStreams().get( 1 ).setStepMeta( new StepMeta( "two", new DummyTransMeta() ) );
+
+    int type = Arrays.asList( MergeJoinMeta.join_types ).indexOf( joinType );
+    MergeJoinData data = new MergeJoinData();
+    data.one_optional = MergeJoinMeta.one_optionals[type];
+    data.two_optional = MergeJoinMeta.two_optionals[type];
+    data.maxGroupRows = maxGroupRows;
+    data.twoGroup = new RowGroup( maxGroupRows, false );
+
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( "Merge join", meta );
+    when( transMeta.findStep( "Merge join" ) ).thenReturn( stepMeta );
+
+    MergeJoin step = spy( new MergeJoin( stepMeta, data, 0, transMeta, mock( Trans.class ) ) );
+    step.initializeVariablesFrom( null ); // the large groups are written to %%java.io.tmpdir%%
+    doReturn( oneRows ).when( step ).findInputRowSet( "one" );
+    doReturn( twoRows ).when( step ).findInputRowSet( "two" );
+    doAnswer( invocation -> ( (RowSet) invocation.getArgument( 0 ) ).getRowImmediate() )
+      .when( step ).getRowFrom( any() );
+    final List<String> output = new ArrayList<>();
+    doAnswer( invocation -> {
+      RowMetaInterface rowMeta = invocation.getArgument( 0 );
+      Object[] row = invocation.getArgument( 1 );
+      output.add( Arrays.toString( Arrays.copyOf( row, rowMeta.size() ) ) );
+      return null;
+    } ).when( step ).putRow( any(), any() );
+    doNothing().when( step ).setOutputDone();
+
+    while ( step.processRow( meta, data ) ) {
+      assertFalse( output.size() > NR_ONE_ROWS * NR_TWO_ROWS );
+    }
+    assertEquals( !stringKeys, data.keyEncoder != null );
+    step.dispose( meta, data );
+
+    Collections.sort( output );
+    return output;
+  }
+
+  /**
+   * The integer keys are compared as normalized keys, the string keys field by field since only one of them is case
+   * insensitive.
+   */
+  private static ValueMetaInterface createKeyValueMeta( boolean stringKeys, boolean caseInsensitive ) {
+    if ( !stringKeys ) {
+      return new ValueMetaInteger( "key" );
+    }
+    ValueMetaInterface valueMeta = new ValueMetaString( "key" );
+    valueMeta.setCaseInsensitive( caseInsensitive );
+    return valueMeta;
+  }
+}
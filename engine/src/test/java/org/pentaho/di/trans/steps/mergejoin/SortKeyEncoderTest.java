@@ -0,0 +1,172 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.mergejoin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+
+public class SortKeyEncoderTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String CHARACTERS = " aAbBz\u007f\u0080\u00e9\u00c9\u407e\u407f\u4e00\uffff";
+
+  private final Random random = new Random( 42 );
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  @Test
+  public void testKeysCompareLikeRowMeta() throws Exception {
+    for ( int round = 0; round < 500; round++ ) {
+      RowMetaInterface rowMeta = new RowMeta();
+      int nrKeys = 1 + random.nextInt( 3 );
+      int[] keyNrs = new int[nrKeys];
+      for ( int i = 0; i < nrKeys; i++ ) {
+        ValueMetaInterface valueMeta = createValueMeta( random.nextInt( 6 ), "key" + i );
+        valueMeta.setSortedDescending( random.nextBoolean() );
+        valueMeta.setCaseInsensitive( random.nextBoolean() );
+        valueMeta.setIgnoreWhitespace( random.nextBoolean() );
+        rowMeta.addValueMeta( valueMeta );
+        keyNrs[i] = i;
+      }
+      SortKeyEncoder encoder = SortKeyEncoder.create( rowMeta, keyNrs, rowMeta, keyNrs );
+      assertNotNull( encoder );
+
+      for ( int j = 0; j < 100; j++ ) {
+        Object[] one = new Object[nrKeys];
+        Object[] two = new Object[nrKeys];
+        for ( int i = 0; i < nrKeys; i++ ) {
+          int type = rowMeta.getValueMeta( i ).getType();
+          one[i] = createValue( type );
+          two[i] = random.nextInt( 3 ) == 0 ? one[i] : createValue( type );
+        }
+        int expected = Integer.signum( rowMeta.compare( one, two, keyNrs ) );
+        int actual = Integer.signum( Arrays.compareUnsigned( encoder.getKey1( one ), encoder.getKey2( two ) ) );
+        assertEquals( Arrays.toString( one ) + " vs " + Arrays.toString( two ), expected, actual );
+      }
+    }
+  }
+
+  @Test
+  public void testKeysAreCachedPerRow() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    int[] keyNrs = { 0 };
+    SortKeyEncoder encoder = SortKeyEncoder.create( rowMeta, keyNrs, rowMeta, keyNrs );
+
+    Object[] current = { "a" };
+    byte[] key = encoder.getKey1( current );
+    for ( int i = 0; i < 3; i++ ) {
+      encoder.getKey1( new Object[] { "b" + i } );
+      assertSame( key, encoder.getKey1( current ) );
+    }
+  }
+
+  @Test
+  public void testUnsupportedKeys() {
+    int[] keyNrs = { 0 };
+    assertNull( SortKeyEncoder.create( createRowMeta( new ValueMetaBigNumber( "key" ) ), keyNrs,
+      createRowMeta( new ValueMetaBigNumber( "key" ) ), keyNrs ) );
+
+    ValueMetaInterface withCollator = new ValueMetaString( "key" );
+    withCollator.setCollatorDisabled( false );
+    assertNull( SortKeyEncoder.create( createRowMeta( withCollator ), keyNrs,
+      createRowMeta( new ValueMetaString( "key" ) ), keyNrs ) );
+
+    ValueMetaInterface descending = new ValueMetaInteger( "key" );
+    descending.setSortedDescending( true );
+    assertNull( SortKeyEncoder.create( createRowMeta( descending ), keyNrs,
+      createRowMeta( new ValueMetaInteger( "key" ) ), keyNrs ) );
+
+    assertNull( SortKeyEncoder.create( createRowMeta( new ValueMetaInteger( "key" ) ), keyNrs,
+      createRowMeta( new ValueMetaNumber( "key" ) ), keyNrs ) );
+  }
+
+  private static RowMetaInterface createRowMeta( ValueMetaInterface valueMeta ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( valueMeta );
+    return rowMeta;
+  }
+
+  private static ValueMetaInterface createValueMeta( int type, String name ) {
+    switch ( type ) {
+      case 0:
+        return new ValueMetaString( name );
+      case 1:
+        return new ValueMetaInteger( name );
+      case 2:
+        return new ValueMetaNumber( name );
+      case 3:
+        return new ValueMetaDate( name );
+      case 4:
+        return new ValueMetaBoolean( name );
+      default:
+        return new ValueMetaBinary( name );
+    }
+  }
+
+  private Object createValue( int type ) {
+    if ( random.nextInt( 8 ) == 0 ) {
+      return null;
+    }
+    switch ( type ) {
+      case ValueMetaInterface.TYPE_STRING:
+        StringBuilder string = new StringBuilder();
+        for ( int i = random.nextInt( 5 ); i > 0; i-- ) {
+          string.append( CHARACTERS.charAt( random.nextInt( CHARACTERS.length() ) ) );
+        }
+        return string.toString();
+      case ValueMetaInterface.TYPE_INTEGER:
+        return new long[] { Long.MIN_VALUE, -1L, 0L, 1L, 5L, Long.MAX_VALUE }[random.nextInt( 6 )];
+      case ValueMetaInterface.TYPE_NUMBER:
+        return new double[] { Double.NEGATIVE_INFINITY, -1.5, -0.0, 0.0, 1e-300, 2.5, Double.POSITIVE_INFINITY,
+          Double.NaN }[random.nextInt( 8 )];
+      case ValueMetaInterface.TYPE_DATE:
+        return new Date( random.nextInt( 5 ) - 2 );
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        return random.nextBoolean();
+      default:
+        byte[] bytes = new byte[random.nextInt( 3 )];
+        for ( int i = 0; i < bytes.length; i++ ) {
+          bytes[i] = (byte) ( random.nextInt( 5 ) - 2 + ( random.nextBoolean() ? 127 : 0 ) );
+        }
+        return bytes;
+    }
+  }
+}
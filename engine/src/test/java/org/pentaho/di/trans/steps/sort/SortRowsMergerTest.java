@@ -0,0 +1,138 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class SortRowsMergerTest {
+
+  private static final Comparator<Object[]> KEY_ORDER = new Comparator<Object[]>() {
+    @Override
+    public int compare( Object[] o1, Object[] o2 ) {
+      return ( (Long) o1[0] ).compareTo( (Long) o2[0] );
+    }
+  };
+
+  @Test
+  public void testMergeOnCallingThread() throws Exception {
+    checkMerge( null );
+  }
+
+  @Test
+  public void testMergeWithReadAhead() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool( 3 );
+    try {
+      checkMerge( executor );
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testNoRuns() throws Exception {
+    SortRowsMerger merger = new SortRowsMerger( new ArrayList<ListRun>(), KEY_ORDER, null );
+    assertNull( merger.next() );
+    merger.close();
+  }
+
+  @Test
+  public void testCloseClosesRuns() throws Exception {
+    List<ListRun> runs = new ArrayList<ListRun>();
+    for ( int r = 0; r < 3; r++ ) {
+      runs.add( new ListRun( sortedRun( new Random( r ), SortRowsMerger.BLOCK_SIZE * 3, r ) ) );
+    }
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      SortRowsMerger merger = new SortRowsMerger( runs, KEY_ORDER, executor );
+      merger.next();
+      merger.close();
+    } finally {
+      executor.shutdownNow();
+    }
+    for ( ListRun run : runs ) {
+      assertTrue( run.closed );
+    }
+  }
+
+  private void checkMerge( ExecutorService executor ) throws Exception {
+    Random random = new Random( 42 );
+    int[] sizes = { 0, 1, SortRowsMerger.BLOCK_SIZE, SortRowsMerger.BLOCK_SIZE + 1, 5000, 17, 0, 3 * SortRowsMerger.BLOCK_SIZE };
+    List<ListRun> runs = new ArrayList<ListRun>();
+    int total = 0;
+    for ( int r = 0; r < sizes.length; r++ ) {
+      runs.add( new ListRun( sortedRun( random, sizes[r], r ) ) );
+      total += sizes[r];
+    }
+
+    SortRowsMerger merger = new SortRowsMerger( runs, KEY_ORDER, executor );
+    Object[] previous = null;
+    int count = 0;
+    Object[] row;
+    while ( ( row = merger.next() ) != null ) {
+      if ( previous != null ) {
+        int cmp = KEY_ORDER.compare( previous, row );
+        assertTrue( cmp <= 0 );
+        if ( cmp == 0 ) {
+          // Equal keys keep the order of the runs
+          assertTrue( (Integer) previous[1] <= (Integer) row[1] );
+        }
+      }
+      previous = row;
+      count++;
+    }
+    assertNull( merger.next() );
+    merger.close();
+    assertEquals( total, count );
+  }
+
+  private static List<Object[]> sortedRun( Random random, int size, int runNr ) {
+    List<Object[]> rows = new ArrayList<Object[]>( size );
+    for ( int i = 0; i < size; i++ ) {
+      rows.add( new Object[] { (long) random.nextInt( 1000 ), runNr } );
+    }
+    rows.sort( KEY_ORDER );
+    return rows;
+  }
+
+  private static class ListRun implements SortRowsMerger.Run {
+    private final Iterator<Object[]> rows;
+    private boolean closed;
+
+    ListRun( List<Object[]> rows ) {
+      this.rows = rows.iterator();
+    }
+
+    @Override
+    public Object[] readRow() {
+      return rows.hasNext() ? rows.next() : null;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -52,6 +52,12 @@ public class SortRowsMetaInjectionTest extends BaseMetadataInjectionTest<SortRow
         return meta.getFreeMemoryLimit();
       }
     } );
+    check( "COMPRESSION_TYPE", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getCompressionType();
+      }
+    } );
     check( "ONLY_PASS_UNIQUE_ROWS", new BooleanGetter() {
       @Override
       public boolean get() {
@@ -52,8 +52,8 @@ public class StreamLookupMetaTest implements InitializerInterface<StepMetaInterf
     KettleEnvironment.init();
     PluginRegistry.init( false );
     List<String> attributes =
-        Arrays.asList( "inputSorted", "memoryPreservationActive", "usingSortedList", "usingIntegerPair", "keystream",
-            "keylookup", "value", "valueName", "valueDefault", "valueDefaultType" );
+        Arrays.asList( "inputSorted", "memoryPreservationActive", "usingSortedList", "usingIntegerPair",
+            "usingOffHeapStore", "keystream", "keylookup", "value", "valueName", "valueDefault", "valueDefaultType" );
 
     FieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
         new ArrayLoadSaveValidator<String>( new StringLoadSaveValidator(), 5 );
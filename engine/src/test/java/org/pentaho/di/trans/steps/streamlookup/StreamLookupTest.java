@@ -129,7 +129,8 @@ public class StreamLookupTest {
     return dataRowSet;
   }
 
-  private StreamLookupMeta mockProcessRowMeta( boolean memoryPreservationActive ) throws KettleStepException {
+  private StreamLookupMeta mockProcessRowMeta( boolean memoryPreservationActive, boolean offHeap )
+    throws KettleStepException {
     StreamLookupMeta meta = smh.processRowsStepMetaInterface;
 
     StepMeta lookupStepMeta = when( mock( StepMeta.class ).getName() ).thenReturn( "Lookup" ).getMock();
@@ -145,6 +146,7 @@ public class StreamLookupTest {
     doReturn( memoryPreservationActive ).when( meta ).isMemoryPreservationActive();
     doReturn( false ).when( meta ).isUsingSortedList();
     doReturn( false ).when( meta ).isUsingIntegerPair();
+    doReturn( offHeap ).when( meta ).isUsingOffHeapStore();
     doReturn( new int[] { -1 } ).when( meta ).getValueDefaultType();
     doReturn( new String[] { "" } ).when( meta ).getValueDefault();
     doReturn( new String[] { "Value" } ).when( meta ).getValueName();
@@ -156,13 +158,18 @@ public class StreamLookupTest {
   }
 
   private void doTest( boolean memoryPreservationActive, boolean binaryLookupStream, boolean binaryDataStream ) throws KettleException {
+    doTest( memoryPreservationActive, false, binaryLookupStream, binaryDataStream );
+  }
+
+  private void doTest( boolean memoryPreservationActive, boolean offHeap, boolean binaryLookupStream,
+    boolean binaryDataStream ) throws KettleException {
     StreamLookup step = new StreamLookup( smh.stepMeta, smh.stepDataInterface, 0, smh.transMeta, smh.trans );
     step.init( smh.initStepMetaInterface, smh.initStepDataInterface );
     step.addRowSetToInputRowSets( mockLookupRowSet( binaryLookupStream ) );
     step.addRowSetToInputRowSets( mockDataRowSet( binaryDataStream ) );
     step.addRowSetToOutputRowSets( new QueueRowSet() );
 
-    StreamLookupMeta meta = mockProcessRowMeta( memoryPreservationActive );
+    StreamLookupMeta meta = mockProcessRowMeta( memoryPreservationActive, offHeap );
     StreamLookupData data = new StreamLookupData();
     data.readLookupValues = true;
 
@@ -188,6 +195,10 @@ public class StreamLookupTest {
     }
 
     Assert.assertEquals( "Incorrect output row number", 2, rowNumber );
+    if ( offHeap ) {
+      Assert.assertEquals( 2, data.offHeapMap.getSize() );
+      data.offHeapMap.close();
+    }
   }
 
   @Test
@@ -229,4 +240,14 @@ public class StreamLookupTest {
   public void testMemoryPreservationWithBinaryStreams() throws KettleException {
     doTest( true, false, true );
   }
+
+  @Test
+  public void testOffHeapWithNormalStreams() throws KettleException {
+    doTest( false, true, false, false );
+  }
+
+  @Test
+  public void testOffHeapWithBinaryStreams() throws KettleException {
+    doTest( false, true, true, true );
+  }
 }
@@ -0,0 +1,153 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class ParallelReadTest {
+
+  private static final String SQL = "SELECT id, name FROM customer WHERE country = ?";
+
+  @Test
+  public void testRangeSQL() {
+    assertEquals( "SELECT * FROM ( " + SQL + " ) pdi_parallel_read WHERE ( id < ? ) OR id IS NULL",
+      ParallelRead.getRangeSQL( SQL, "id", false, true, true, false ) );
+    assertEquals( "SELECT * FROM ( " + SQL + " ) pdi_parallel_read WHERE id >= ? AND id < ?",
+      ParallelRead.getRangeSQL( SQL, "id", true, true, false, false ) );
+    assertEquals( "SELECT * FROM ( " + SQL + " ) pdi_parallel_read WHERE id >= ? ORDER BY id",
+      ParallelRead.getRangeSQL( SQL, "id", true, false, false, true ) );
+  }
+
+  @Test
+  public void testSingleRangeKeepsQuery() {
+    assertEquals( SQL, ParallelRead.getRangeSQL( SQL, "id", false, false, true, false ) );
+    assertEquals( "SELECT * FROM ( " + SQL + " ) pdi_parallel_read ORDER BY id",
+      ParallelRead.getRangeSQL( SQL + " ;", "id", false, false, true, true ) );
+  }
+
+  @Test
+  public void testModuloSQL() {
+    assertEquals( "SELECT * FROM ( " + SQL + " ) pdi_parallel_read WHERE MOD( id, 4 ) = 0 OR id IS NULL",
+      ParallelRead.getModuloSQL( SQL, "id", 0, 4, false ) );
+    assertEquals(
+      "SELECT * FROM ( " + SQL + " ) pdi_parallel_read WHERE MOD( id, 4 ) = 3 OR MOD( id, 4 ) = -3 ORDER BY id",
+      ParallelRead.getModuloSQL( SQL, "id", 3, 4, true ) );
+    assertEquals( SQL, ParallelRead.getModuloSQL( SQL, "id", 0, 1, false ) );
+  }
+
+  @Test
+  public void testMinMaxSQL() {
+    assertEquals( "SELECT MIN( id ), MAX( id ) FROM ( " + SQL + " ) pdi_parallel_read",
+      ParallelRead.getMinMaxSQL( SQL + ";", "id" ) );
+  }
+
+  @Test
+  public void testIntegerBoundaries() throws Exception {
+    ValueMetaInterface valueMeta = new ValueMetaInteger( "id" );
+    assertArrayEquals( new Object[] { 25L, 50L, 75L }, ParallelRead.getBoundaries( valueMeta, 0L, 99L, 4 ) );
+    assertArrayEquals( new Object[] { 25L, 50L, 75L }, ParallelRead.getBoundaries( valueMeta, 99L, 0L, 4 ) );
+    assertArrayEquals( new Object[] { -5L }, ParallelRead.getBoundaries( valueMeta, -10L, -1L, 2 ) );
+    assertArrayEquals( new Object[] {}, ParallelRead.getBoundaries( valueMeta, 0L, 99L, 1 ) );
+  }
+
+  @Test
+  public void testIntegerBoundariesDontOverflow() throws Exception {
+    Object[] boundaries =
+      ParallelRead.getBoundaries( new ValueMetaInteger( "id" ), Long.MIN_VALUE, Long.MAX_VALUE, 2 );
+    assertArrayEquals( new Object[] { 0L }, boundaries );
+  }
+
+  @Test
+  public void testNarrowRangeGivesEmptyRanges() throws Exception {
+    Object[] boundaries = ParallelRead.getBoundaries( new ValueMetaInteger( "id" ), 1L, 2L, 4 );
+    assertArrayEquals( new Object[] { 1L, 2L, 2L }, boundaries );
+  }
+
+  @Test
+  public void testNumberAndBigNumberBoundaries() throws Exception {
+    assertArrayEquals( new Object[] { 2.5, 5.0, 7.5 },
+      ParallelRead.getBoundaries( new ValueMetaNumber( "amount" ), 0.0, 10.0, 4 ) );
+    Object[] boundaries = ParallelRead.getBoundaries( new ValueMetaBigNumber( "amount" ), new BigDecimal( "1.5" ),
+      new BigDecimal( "2.5" ), 2 );
+    assertEquals( 0, new BigDecimal( "2" ).compareTo( (BigDecimal) boundaries[0] ) );
+  }
+
+  @Test
+  public void testDateBoundaries() throws Exception {
+    Object[] boundaries =
+      ParallelRead.getBoundaries( new ValueMetaDate( "created" ), new Date( 0L ), new Date( 3999L ), 4 );
+    assertArrayEquals( new Object[] { new Date( 1000L ), new Date( 2000L ), new Date( 3000L ) }, boundaries );
+  }
+
+  @Test
+  public void testSplittableTypes() {
+    assertTrue( ParallelRead.isSplittable( new ValueMetaInteger( "id" ) ) );
+    assertTrue( ParallelRead.isSplittable( new ValueMetaDate( "created" ) ) );
+    assertFalse( ParallelRead.isSplittable( new ValueMetaString( "name" ) ) );
+  }
+
+  @Test
+  public void testParseBoundaries() throws Exception {
+    assertEquals( ValueMetaInterface.TYPE_INTEGER, ParallelRead.getBoundaryMeta( "id", " 42 " ).getType() );
+    assertEquals( ValueMetaInterface.TYPE_NUMBER, ParallelRead.getBoundaryMeta( "id", "4.2" ).getType() );
+    assertEquals( ValueMetaInterface.TYPE_DATE,
+      ParallelRead.getBoundaryMeta( "id", "2024/01/01 00:00:00" ).getType() );
+
+    assertEquals( 42L, ParallelRead.parseBoundary( new ValueMetaInteger( "id" ), "42" ) );
+    assertEquals( 42.0, ParallelRead.parseBoundary( new ValueMetaNumber( "id" ), "42" ) );
+    Date date = (Date) ParallelRead.parseBoundary( new ValueMetaDate( "created" ), "2024/01/02 03:04:05" );
+    assertEquals( "2024/01/02 03:04:05",
+      new java.text.SimpleDateFormat( ParallelRead.BOUNDARY_DATE_FORMAT ).format( date ) );
+  }
+
+  @Test
+  public void testSplitRangeQueriedOncePerParameters() throws Exception {
+    SplitRange.Shared shared = new SplitRange.Shared();
+    AtomicInteger queries = new AtomicInteger();
+    SplitRange.Query query = () -> {
+      queries.incrementAndGet();
+      return new SplitRange( new ValueMetaInteger( "id" ), 1L, 100L );
+    };
+
+    SplitRange range = shared.get( yearParameter( 2024L ), query );
+    assertSame( range, shared.get( yearParameter( 2024L ), query ) );
+    assertEquals( 1, queries.get() );
+
+    shared.get( yearParameter( 2025L ), query );
+    assertEquals( 2, queries.get() );
+  }
+
+  private static RowMetaAndData yearParameter( long year ) {
+    RowMetaAndData parameters = new RowMetaAndData();
+    parameters.addValue( new ValueMetaInteger( "year" ), year );
+    return parameters;
+  }
+}
@@ -59,6 +59,31 @@ public class TableInputMetaInjectionTest extends BaseMetadataInjectionTest<Table
         return meta.isCachedRowMetaActive();
       }
     } );
+    check( "PARALLEL_READ_FIELD", new StringGetter() {
+      public String get() {
+        return meta.getParallelReadField();
+      }
+    } );
+    check( "PARALLEL_READ_MODULO", new BooleanGetter() {
+      public boolean get() {
+        return meta.isParallelReadModulo();
+      }
+    } );
+    check( "PARALLEL_READ_LOW_VALUE", new StringGetter() {
+      public String get() {
+        return meta.getParallelReadLowValue();
+      }
+    } );
+    check( "PARALLEL_READ_HIGH_VALUE", new StringGetter() {
+      public String get() {
+        return meta.getParallelReadHighValue();
+      }
+    } );
+    check( "PARALLEL_READ_SORTED", new BooleanGetter() {
+      public boolean get() {
+        return meta.isParallelReadSorted();
+      }
+    } );
     skipPropertyTest( "CONNECTIONNAME" );
   }
 }
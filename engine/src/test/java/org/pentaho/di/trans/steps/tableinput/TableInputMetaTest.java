@@ -66,7 +66,8 @@ public class TableInputMetaTest {
     PluginRegistry.init( false );
     List<String> attributes =
       Arrays.asList( "databaseMeta", "sQL", "rowLimit", "executeEachInputRow", "variableReplacementActive",
-        "lazyConversionActive", "cachedRowMetaActive" );
+        "lazyConversionActive", "cachedRowMetaActive", "parallelReadField", "parallelReadModulo",
+        "parallelReadLowValue", "parallelReadHighValue", "parallelReadSorted" );
 
     Map<String, String> getterMap = new HashMap<String, String>();
     Map<String, String> setterMap = new HashMap<String, String>();
@@ -0,0 +1,156 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncBatchWriterTest {
+
+  private static final String INSERT = "INSERT INTO t (id) VALUES ( ? )";
+
+  private RowMetaInterface insertRowMeta;
+  private Database db;
+  private PreparedStatement statement;
+
+  @Before
+  public void setUp() throws Exception {
+    insertRowMeta = new RowMeta();
+    insertRowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    statement = mock( PreparedStatement.class );
+    db = newDatabase( statement );
+  }
+
+  @Test
+  public void writesAndCommitsOneBatchAtATime() throws Exception {
+    AsyncBatchWriter writer = newWriter( 2, false, db );
+    try {
+      writer.add( row( 1L ), row( 1L ) );
+      assertEquals( 0, writer.getBatchesInFlight() );
+      writer.add( row( 2L ), row( 2L ) );
+      writer.add( row( 3L ), row( 3L ) );
+      writer.flush();
+      assertEquals( 2, writer.getBatchesInFlight() );
+
+      AsyncBatchWriter.Batch batch = writer.take( true );
+      assertNull( batch.getError() );
+      assertEquals( 2, batch.getOutputRows().size() );
+      batch = writer.take( true );
+      assertArrayEquals( row( 3L ), batch.getOutputRows().get( 0 ) );
+      assertNull( writer.take( true ) );
+
+      verify( db, times( 1 ) ).prepareSQL( INSERT );
+      verify( db, times( 3 ) ).insertRow( statement, true, false );
+      verify( statement, times( 2 ) ).executeBatch();
+      verify( db, times( 2 ) ).commit();
+    } finally {
+      writer.close();
+    }
+    verify( db ).closePreparedStatement( statement );
+  }
+
+  @Test
+  public void batchesAreHandedBackInTheOrderTheyWereAdded() throws Exception {
+    Database db2 = newDatabase( mock( PreparedStatement.class ) );
+    AsyncBatchWriter writer = newWriter( 1, false, db, db2 );
+    try {
+      for ( long id = 1; id <= 4; id++ ) {
+        writer.add( row( id ), row( id ) );
+      }
+      for ( long id = 1; id <= 4; id++ ) {
+        assertArrayEquals( row( id ), writer.take( true ).getOutputRows().get( 0 ) );
+      }
+      assertNull( writer.take( true ) );
+      assertEquals( Arrays.asList( db, db2 ), writer.getConnections() );
+    } finally {
+      writer.close();
+    }
+  }
+
+  @Test
+  public void rollsBackAFailedBatch() throws Exception {
+    when( statement.executeBatch() ).thenThrow( new SQLException( "duplicate key" ) );
+    AsyncBatchWriter writer = newWriter( 1, false, db );
+    try {
+      writer.add( row( 1L ), row( 1L ) );
+
+      AsyncBatchWriter.Batch batch = writer.take( true );
+      assertNotNull( batch.getError() );
+      assertArrayEquals( row( 1L ), batch.getOutputRows().get( 0 ) );
+      verify( db ).clearBatch( statement );
+      verify( db ).rollback();
+      verify( db, never() ).commit();
+    } finally {
+      writer.close();
+    }
+  }
+
+  @Test
+  public void commitsTheGoodRowsOfAFailedBatch() throws Exception {
+    when( statement.executeBatch() ).thenThrow( new SQLException( "duplicate key" ) );
+    AsyncBatchWriter writer = newWriter( 1, true, db );
+    try {
+      writer.add( row( 1L ), row( 1L ) );
+
+      assertNotNull( writer.take( true ).getError() );
+      verify( db ).commit( true );
+      verify( db, never() ).rollback();
+    } finally {
+      writer.close();
+    }
+  }
+
+  private AsyncBatchWriter newWriter( int batchSize, boolean keepingGoodRows, Database... connections ) {
+    List<BatchInserter> inserters = new ArrayList<>();
+    for ( Database connection : connections ) {
+      inserters.add( new JdbcBatchInserter( connection, INSERT, insertRowMeta ) );
+    }
+    return new AsyncBatchWriter( inserters, batchSize, keepingGoodRows, "test" );
+  }
+
+  private static Database newDatabase( PreparedStatement statement ) throws KettleDatabaseException {
+    Database db = mock( Database.class );
+    when( db.prepareSQL( any() ) ).thenReturn( statement );
+    when( db.getUseBatchInsert( anyBoolean() ) ).thenReturn( true );
+    return db;
+  }
+
+  private static Object[] row( long id ) {
+    return new Object[] { id };
+  }
+}
@@ -0,0 +1,91 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CopyInserterTest {
+
+  private RowMetaInterface insertRowMeta;
+  private Database db;
+
+  @Before
+  public void setUp() {
+    insertRowMeta = new RowMeta();
+    insertRowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    insertRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    insertRowMeta.addValueMeta( new ValueMetaNumber( "ratio" ) );
+    insertRowMeta.addValueMeta( new ValueMetaBigNumber( "amount" ) );
+    insertRowMeta.addValueMeta( new ValueMetaBoolean( "flag" ) );
+    insertRowMeta.addValueMeta( new ValueMetaDate( "created" ) );
+    insertRowMeta.addValueMeta( new ValueMetaBinary( "data" ) );
+
+    DatabaseMeta databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.getQuotedSchemaTableCombination( any(), anyString() ) ).thenReturn( "s.t" );
+    when( databaseMeta.quoteField( anyString() ) ).then( invocation -> invocation.getArgument( 0 ) );
+    when( databaseMeta.supportsBooleanDataType() ).thenReturn( true );
+    db = mock( Database.class );
+    when( db.getDatabaseMeta() ).thenReturn( databaseMeta );
+  }
+
+  @Test
+  public void copiesTheFieldsFromStdinAsCsv() {
+    CopyInserter inserter = new CopyInserter( db, "s", "t", insertRowMeta );
+    assertEquals( "COPY s.t (id, name, ratio, amount, flag, created, data) FROM STDIN WITH CSV", inserter.getSql() );
+  }
+
+  @Test
+  public void writesTheValuesOfARowAsACsvLine() throws Exception {
+    CopyInserter inserter = new CopyInserter( db, "s", "t", insertRowMeta );
+    Date created = new Date( Timestamp.valueOf( "2024-01-02 03:04:05.123" ).getTime() );
+
+    assertEquals( "42,\"say \"\"hi\"\",\nbye\",1.5,12.50,true,2024-01-02 03:04:05.123,\\x01ab\n",
+      inserter.getLine( new Object[] { 42L, "say \"hi\",\nbye", 1.5, new BigDecimal( "12.50" ), true, created,
+        new byte[] { 0x01, (byte) 0xAB } } ) );
+  }
+
+  @Test
+  public void leavesNullsEmpty() throws Exception {
+    CopyInserter inserter = new CopyInserter( db, "s", "t", insertRowMeta );
+    assertEquals( ",,,,,,\n", inserter.getLine( new Object[7] ) );
+  }
+
+  @Test
+  public void isNotSupportedWithoutAPostgreSQLConnection() {
+    assertFalse( CopyInserter.isSupported( db ) );
+  }
+}
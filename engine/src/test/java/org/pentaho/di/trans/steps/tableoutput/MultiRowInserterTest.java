@@ -0,0 +1,120 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseInterface;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseBatchException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MultiRowInserterTest {
+
+  private RowMetaInterface insertRowMeta;
+  private Database db;
+
+  @Before
+  public void setUp() {
+    insertRowMeta = new RowMeta();
+    insertRowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    insertRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    DatabaseMeta databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.getQuotedSchemaTableCombination( any(), anyString() ) ).thenReturn( "s.t" );
+    when( databaseMeta.quoteField( anyString() ) ).then( invocation -> invocation.getArgument( 0 ) );
+    db = mock( Database.class );
+    when( db.getDatabaseMeta() ).thenReturn( databaseMeta );
+  }
+
+  @Test
+  public void rowsPerStatementStayWithinTheLimitsOfTheDatabase() {
+    DatabaseInterface databaseInterface = mock( DatabaseInterface.class );
+    when( databaseInterface.getMaxInsertRowsPerStatement() ).thenReturn( 1000 );
+    when( databaseInterface.getMaxStatementParameters() ).thenReturn( 2000 );
+
+    assertEquals( 666, MultiRowInserter.getRowsPerStatement( databaseInterface, 3 ) );
+    assertEquals( 1000, MultiRowInserter.getRowsPerStatement( databaseInterface, 1 ) );
+    assertEquals( 1, MultiRowInserter.getRowsPerStatement( databaseInterface, 3000 ) );
+  }
+
+  @Test
+  public void insertsSeveralRowsPerStatement() throws Exception {
+    PreparedStatement full = mock( PreparedStatement.class );
+    PreparedStatement last = mock( PreparedStatement.class );
+    when( db.prepareSQL( "INSERT INTO s.t (id, name) VALUES (?, ?), (?, ?)" ) ).thenReturn( full );
+    when( db.prepareSQL( "INSERT INTO s.t (id, name) VALUES (?, ?)" ) ).thenReturn( last );
+    MultiRowInserter inserter = new MultiRowInserter( db, "s", "t", insertRowMeta, 2 );
+
+    inserter.write( rows( 5 ), false );
+
+    verify( full, times( 2 ) ).executeUpdate();
+    verify( last, times( 1 ) ).executeUpdate();
+    verify( db ).setValue( eq( full ), any(), eq( "row 2" ), eq( 4 ) );
+    verify( db ).setValue( eq( last ), any(), eq( 5L ), eq( 1 ) );
+    verify( db ).commit();
+
+    inserter.close();
+    verify( db ).closePreparedStatement( full );
+    verify( db ).closePreparedStatement( last );
+  }
+
+  @Test
+  public void failsTheRowsOfTheFailedStatementAndAfter() throws Exception {
+    PreparedStatement statement = mock( PreparedStatement.class );
+    SQLException error = new SQLException( "duplicate key" );
+    when( statement.executeUpdate() ).thenReturn( 2 ).thenThrow( error );
+    when( db.prepareSQL( anyString() ) ).thenReturn( statement );
+    MultiRowInserter inserter = new MultiRowInserter( db, "s", "t", insertRowMeta, 2 );
+
+    try {
+      inserter.write( rows( 5 ), true );
+      fail( "The second statement failed" );
+    } catch ( KettleDatabaseBatchException e ) {
+      int failed = Statement.EXECUTE_FAILED;
+      assertArrayEquals( new int[] { 1, 1, failed, failed, failed }, e.getUpdateCounts() );
+      assertEquals( Arrays.asList( error ), e.getExceptionsList() );
+    }
+    verify( db ).commit( true );
+  }
+
+  private static List<Object[]> rows( int nrRows ) {
+    Object[][] rows = new Object[nrRows][];
+    for ( int i = 0; i < nrRows; i++ ) {
+      rows[i] = new Object[] { (long) i + 1, "row " + ( i + 1 ) };
+    }
+    return Arrays.asList( rows );
+  }
+}
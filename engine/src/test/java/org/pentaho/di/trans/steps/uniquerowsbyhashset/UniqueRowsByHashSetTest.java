@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.uniquerowsbyhashset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+
+public class UniqueRowsByHashSetTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  @Test
+  public void testUniqueOnCompareFields() throws Exception {
+    List<Object[]> output = runStep( new String[] { "key" }, true,
+      new Object[] { "a", 1L }, new Object[] { "b", 2L }, new Object[] { "a", 3L }, new Object[] { null, 4L },
+      new Object[] { null, 5L }, new Object[] { "b", 6L } );
+
+    assertEquals( 3, output.size() );
+    assertEquals( 1L, output.get( 0 )[1] );
+    assertEquals( 2L, output.get( 1 )[1] );
+    assertEquals( 4L, output.get( 2 )[1] );
+  }
+
+  @Test
+  public void testUniqueOnEntireRowWithoutStoringValues() throws Exception {
+    List<Object[]> output = runStep( new String[0], false,
+      new Object[] { "a", 1L }, new Object[] { "a", 1L }, new Object[] { "a", 2L }, new Object[] { "b", 1L } );
+
+    assertEquals( 3, output.size() );
+  }
+
+  private List<Object[]> runStep( String[] compareFields, boolean storeValues, Object[]... rows ) throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+
+    UniqueRowsByHashSetMeta meta = new UniqueRowsByHashSetMeta();
+    meta.setDefault();
+    meta.setCompareFields( compareFields );
+    meta.setStoreValues( storeValues );
+    UniqueRowsByHashSetData data = new UniqueRowsByHashSetData();
+
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( "Unique rows (HashSet)", meta );
+    when( transMeta.findStep( "Unique rows (HashSet)" ) ).thenReturn( stepMeta );
+
+    UniqueRowsByHashSet step = spy( new UniqueRowsByHashSet( stepMeta, data, 0, transMeta, mock( Trans.class ) ) );
+    final List<Object[]> output = new ArrayList<>();
+    doAnswer( invocation -> {
+      output.add( invocation.getArgument( 1 ) );
+      return null;
+    } ).when( step ).putRow( any(), any() );
+    doNothing().when( step ).setOutputDone();
+    doReturn( rowMeta ).when( step ).getInputRowMeta();
+
+    for ( Object[] row : rows ) {
+      doReturn( row ).when( step ).getRow();
+      assertTrue( step.processRow( meta, data ) );
+    }
+    doReturn( null ).when( step ).getRow();
+    assertFalse( step.processRow( meta, data ) );
+
+    return output;
+  }
+}
@@ -53,6 +53,11 @@ public class UpdateMetaInjectionTest extends BaseMetadataInjectionTest<UpdateMet
         return meta.isSkipLookup();
       }
     } );
+    check( "BATCH_LOOKUP", new BooleanGetter() {
+      public boolean get() {
+        return meta.isBatchLookup();
+      }
+    } );
     check( "IGNORE_LOOKUP_FAILURE", new BooleanGetter() {
       public boolean get() {
         return meta.isErrorIgnored();
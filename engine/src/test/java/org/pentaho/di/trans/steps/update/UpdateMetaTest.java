@@ -106,7 +106,7 @@ public class UpdateMetaTest implements InitializerInterface<StepMetaInterface> {
 
     List<String> attributes =
         Arrays.asList( "schemaName", "tableName", "commitSize", "errorIgnored", "ignoreFlagField",
-            "skipLookup", "useBatchUpdate", "keyStream", "keyLookup", "keyCondition", "keyStream2",
+            "skipLookup", "batchLookup", "useBatchUpdate", "keyStream", "keyLookup", "keyCondition", "keyStream2",
             "updateLookup", "updateStream", "databaseMeta" );
 
     Map<String, String> getterMap = new HashMap<>() {
@@ -117,6 +117,7 @@ public class UpdateMetaTest implements InitializerInterface<StepMetaInterface> {
         put( "errorIgnored", "isErrorIgnored" );
         put( "ignoreFlagField", "getIgnoreFlagField" );
         put( "skipLookup", "isSkipLookup" );
+        put( "batchLookup", "isBatchLookup" );
         put( "useBatchUpdate", "useBatchUpdate" );
         put( "keyStream", "getKeyStream" );
         put( "keyLookup", "getKeyLookup" );
@@ -135,6 +136,7 @@ public class UpdateMetaTest implements InitializerInterface<StepMetaInterface> {
         put( "errorIgnored", "setErrorIgnored" );
         put( "ignoreFlagField", "setIgnoreFlagField" );
         put( "skipLookup", "setSkipLookup" );
+        put( "batchLookup", "setBatchLookup" );
         put( "useBatchUpdate", "setUseBatchUpdate" );
         put( "keyStream", "setKeyStream" );
         put( "keyLookup", "setKeyLookup" );
@@ -0,0 +1,242 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.update;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseInterface;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.trans.steps.mock.StepMockHelper;
+
+/**
+ * Tests the Update step looking up its rows in batches, against a mocked database.
+ */
+public class UpdateTest {
+  private static final String BATCH_LOOKUP_SQL = "SELECT ID, NAME FROM t WHERE ID IN (?, ?, ?)";
+
+  private StepMockHelper<UpdateMeta, UpdateData> smh;
+  private UpdateMeta meta;
+  private UpdateData data;
+  private Database db;
+  private PreparedStatement lookupStatement;
+  private PreparedStatement updateStatement;
+  private PreparedStatement batchLookupStatement;
+
+  @Before
+  public void setUp() throws Exception {
+    smh = new StepMockHelper<UpdateMeta, UpdateData>( "Update", UpdateMeta.class, UpdateData.class );
+    when( smh.logChannelInterfaceFactory.create( any(), any( LoggingObjectInterface.class ) ) ).thenReturn(
+      smh.logChannelInterface );
+    when( smh.trans.isRunning() ).thenReturn( true );
+
+    DatabaseInterface databaseInterface = mock( DatabaseInterface.class );
+    when( databaseInterface.getMaxStatementParameters() ).thenReturn( 2000 );
+    DatabaseMeta databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.getDatabaseInterface() ).thenReturn( databaseInterface );
+    when( databaseMeta.getQuotedSchemaTableCombination( any(), any() ) ).thenReturn( "t" );
+    when( databaseMeta.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+    when( databaseMeta.stripCR( anyString() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+
+    meta = new UpdateMeta();
+    meta.setDefault();
+    meta.allocate( 1, 1 );
+    meta.setDatabaseMeta( databaseMeta );
+    meta.setTableName( "t" );
+    meta.setKeyStream( new String[] { "id" } );
+    meta.setKeyLookup( new String[] { "ID" } );
+    meta.setKeyCondition( new String[] { "=" } );
+    meta.setKeyStream2( new String[] { null } );
+    meta.setUpdateStream( new String[] { "name" } );
+    meta.setUpdateLookup( new String[] { "NAME" } );
+    meta.setBatchLookup( true );
+
+    lookupStatement = mock( PreparedStatement.class );
+    updateStatement = mock( PreparedStatement.class );
+    batchLookupStatement = mock( PreparedStatement.class );
+    Connection connection = mock( Connection.class );
+    when( connection.prepareStatement( anyString() ) ).thenAnswer( invocation ->
+      invocation.<String>getArgument( 0 ).startsWith( "SELECT" ) ? lookupStatement : updateStatement );
+    db = mock( Database.class );
+    when( db.getConnection() ).thenReturn( connection );
+    when( db.prepareSQL( anyString() ) ).thenReturn( batchLookupStatement );
+    when( batchLookupStatement.executeQuery() ).thenReturn( mock( ResultSet.class ) );
+
+    data = new UpdateData();
+    data.db = db;
+  }
+
+  @After
+  public void cleanUp() {
+    smh.cleanUp();
+  }
+
+  @Test
+  public void updatesTheRowsMatchedByTheBatchLookup() throws Exception {
+    foundInTable( new Object[] { 1L, "a" }, new Object[] { 2L, "b" }, new Object[] { 3L, "c" } );
+
+    Update step = runStep( new Object[] { 1L, "a" }, new Object[] { 2L, "b2" }, new Object[] { 3L, "c" } );
+
+    verify( db ).prepareSQL( BATCH_LOOKUP_SQL );
+    verify( db, never() ).getLookup( any( PreparedStatement.class ) );
+    assertArrayEquals( new Object[][] { { "b2", 2L } }, updatedRows().toArray() );
+    verify( step, times( 3 ) ).putRow( any(), any() );
+    assertEquals( 1, step.getLinesUpdated() );
+    assertEquals( 2, step.getLinesSkipped() );
+    assertEquals( 0, step.getErrors() );
+  }
+
+  @Test
+  public void looksUpTheRowsWithoutMatchOneByOne() throws Exception {
+    // The single row lookup finds a key the batch didn't match, like a case insensitive collation can
+    foundInTable( new Object[] { 1L, "a" } );
+    RowMeta returnRowMeta = new RowMeta();
+    returnRowMeta.addValueMeta( new ValueMetaString( "NAME" ) );
+    when( db.getLookup( lookupStatement ) ).thenReturn( new Object[] { "c" } );
+    when( db.getReturnRowMeta() ).thenReturn( returnRowMeta );
+
+    Update step = runStep( new Object[] { 1L, "a2" }, new Object[] { 3L, "c2" } );
+
+    ArgumentCaptor<Object[]> lookupRow = ArgumentCaptor.forClass( Object[].class );
+    verify( db ).setValues( any( RowMetaInterface.class ), lookupRow.capture(), same( lookupStatement ) );
+    assertArrayEquals( new Object[] { 3L }, lookupRow.getValue() );
+    assertArrayEquals( new Object[][] { { "a2", 1L }, { "c2", 3L } }, updatedRows().toArray() );
+    assertEquals( 2, step.getLinesUpdated() );
+    assertEquals( 0, step.getErrors() );
+  }
+
+  @Test
+  public void comparesARepeatedKeyWithTheValuesOfTheRowBefore() throws Exception {
+    foundInTable( new Object[] { 1L, "a" } );
+
+    Update step = runStep( new Object[] { 1L, "x" }, new Object[] { 1L, "x" }, new Object[] { 1L, "y" } );
+
+    verify( db, never() ).getLookup( any( PreparedStatement.class ) );
+    assertArrayEquals( new Object[][] { { "x", 1L }, { "y", 1L } }, updatedRows().toArray() );
+    assertEquals( 2, step.getLinesUpdated() );
+    assertEquals( 1, step.getLinesSkipped() );
+  }
+
+  @Test
+  public void looksUpTheRowsWithANullKeyOneByOne() throws Exception {
+    // A null key never equals the null key of a row found
+    foundInTable( new Object[] { null, "n" } );
+    meta.setErrorIgnored( true );
+
+    Update step = runStep( new Object[] { null, "n" } );
+
+    ArgumentCaptor<Object[]> lookupRow = ArgumentCaptor.forClass( Object[].class );
+    verify( db ).setValues( any( RowMetaInterface.class ), lookupRow.capture(), same( lookupStatement ) );
+    assertArrayEquals( new Object[] { null }, lookupRow.getValue() );
+    verify( db ).getLookup( lookupStatement );
+    assertEquals( 0, updatedRows().size() );
+    verify( step ).putRow( any(), any() );
+    assertEquals( 0, step.getErrors() );
+  }
+
+  @Test
+  public void sendsTheBatchToTheErrorStreamWhenTheLookupFails() throws Exception {
+    when( batchLookupStatement.executeQuery() ).thenThrow( new SQLException( "Lookup failed" ) );
+    when( smh.stepMeta.isDoingErrorHandling() ).thenReturn( true );
+
+    Update step = runStep( new Object[] { 1L, "a" }, new Object[] { 2L, "b" } );
+
+    verify( step, times( 2 ) ).putError( any(), any(), eq( 1L ), anyString(), isNull(), eq( "UPD001" ) );
+    verify( step, never() ).putRow( any(), any() );
+    assertEquals( 0, updatedRows().size() );
+    assertEquals( 0, step.getErrors() );
+  }
+
+  @Test
+  public void failsWhenTheLookupFailsWithoutErrorHandling() throws Exception {
+    when( batchLookupStatement.executeQuery() ).thenThrow( new SQLException( "Lookup failed" ) );
+
+    Update step = runStep( new Object[] { 1L, "a" }, new Object[] { 2L, "b" } );
+
+    verify( step, never() ).putError( any(), any(), anyLong(), any(), any(), any() );
+    verify( step, never() ).putRow( any(), any() );
+    assertEquals( 0, updatedRows().size() );
+    assertEquals( 1, step.getErrors() );
+  }
+
+  /**
+   * Makes the batch lookup find the rows with the given key and name.
+   */
+  private void foundInTable( Object[]... rows ) throws Exception {
+    Iterator<Object[]> found = Arrays.asList( rows ).iterator();
+    when( db.getRow( any( ResultSet.class ), isNull(), any( RowMetaInterface.class ) ) ).thenAnswer(
+      invocation -> found.hasNext() ? found.next() : null );
+  }
+
+  private Update runStep( Object[]... rows ) throws Exception {
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    inputRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    Update step = spy( new Update( smh.stepMeta, smh.stepDataInterface, 0, smh.transMeta, smh.trans ) );
+    step.setInputRowMeta( inputRowMeta );
+    Iterator<Object[]> input = Arrays.asList( rows ).iterator();
+    doAnswer( invocation -> input.hasNext() ? input.next() : null ).when( step ).getRow();
+    doNothing().when( step ).putRow( any(), any() );
+    doNothing().when( step ).putError( any(), any(), anyLong(), any(), any(), any() );
+
+    while ( step.processRow( meta, data ) ) {
+      // process the next row
+    }
+    return step;
+  }
+
+  /**
+   * @return the parameters of the updates: the new name followed by the key
+   */
+  private List<Object[]> updatedRows() throws Exception {
+    ArgumentCaptor<Object[]> updateRow = ArgumentCaptor.forClass( Object[].class );
+    verify( db, atLeast( 0 ) )
+      .setValues( any( RowMetaInterface.class ), updateRow.capture(), same( updateStatement ) );
+    return updateRow.getAllValues();
+  }
+}
@@ -0,0 +1,159 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.logging.KettleLogStore;
+import org.pentaho.di.core.logging.LogLevel;
+import org.pentaho.di.core.plugins.PluginRegistry;
+import org.pentaho.di.core.plugins.StepPluginType;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+import org.pentaho.di.trans.steps.rowgenerator.RowGeneratorMeta;
+
+/**
+ * Compares platform and virtual step threads when many transformations run in the same JVM, as on a busy Carte
+ * server. For each thread type it reports the number of live threads and the heap used per running (mostly idle)
+ * transformation, and the throughput of a batch of short transformations running concurrently.
+ *
+ * The number of transformations and rows can be changed with the benchmark.trans.count and benchmark.trans.rows system
+ * properties.
+ */
+public class StepThreadTypeBenchmarkIT extends TestCase {
+
+  private static final int NR_TRANS = Integer.getInteger( "benchmark.trans.count", 200 );
+  private static final int NR_ROWS = Integer.getInteger( "benchmark.trans.rows", 20000 );
+  private static final int NR_DUMMIES = 4;
+
+  protected void setUp() throws Exception {
+    KettleEnvironment.init();
+    KettleLogStore.getAppender().setMaxNrLines( 100 );
+  }
+
+  public void testIdleTransformations() throws Exception {
+    for ( String threadType : getThreadTypes() ) {
+      ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+      MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+      int threadsBefore = threadBean.getThreadCount();
+      long heapBefore = usedHeap( memoryBean );
+
+      List<Trans> transList = startTransformations( createTransMeta( "idle", true ), threadType );
+      try {
+        long heapRunning = usedHeap( memoryBean );
+        int threadsRunning = threadBean.getThreadCount();
+
+        System.out.println( String.format( "[%s] %d idle transformations: %d platform threads, %d KB heap each",
+          threadType, NR_TRANS, threadsRunning - threadsBefore, ( heapRunning - heapBefore ) / NR_TRANS / 1024 ) );
+      } finally {
+        for ( Trans trans : transList ) {
+          trans.stopAll();
+        }
+        for ( Trans trans : transList ) {
+          trans.waitUntilFinished();
+        }
+      }
+    }
+  }
+
+  public void testThroughput() throws Exception {
+    for ( String threadType : getThreadTypes() ) {
+      TransMeta transMeta = createTransMeta( "throughput", false );
+
+      long start = System.nanoTime();
+      List<Trans> transList = startTransformations( transMeta, threadType );
+      long rows = 0;
+      for ( Trans trans : transList ) {
+        trans.waitUntilFinished();
+        assertEquals( 0, trans.getErrors() );
+        rows += trans.findRunThread( "dummy" + NR_DUMMIES ).getLinesWritten();
+      }
+      long millis = Math.max( 1, TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+
+      assertEquals( (long) NR_TRANS * NR_ROWS, rows );
+      System.out.println( String.format( "[%s] %d transformations, %d rows in %d ms: %d rows/s",
+        threadType, NR_TRANS, rows, millis, rows * 1000 / millis ) );
+    }
+  }
+
+  private List<String> getThreadTypes() {
+    List<String> threadTypes = new ArrayList<>();
+    threadTypes.add( StepThreadFactory.THREAD_TYPE_PLATFORM );
+    if ( StepThreadFactory.isVirtualThreadSupported() ) {
+      threadTypes.add( StepThreadFactory.THREAD_TYPE_VIRTUAL );
+    } else {
+      System.out.println( "Virtual threads are not supported by this Java runtime, skipping" );
+    }
+    return threadTypes;
+  }
+
+  private List<Trans> startTransformations( TransMeta transMeta, String threadType ) throws Exception {
+    List<Trans> transList = new ArrayList<>( NR_TRANS );
+    for ( int i = 0; i < NR_TRANS; i++ ) {
+      Trans trans = new Trans( transMeta );
+      trans.setLogLevel( LogLevel.MINIMAL );
+      trans.setVariable( Const.KETTLE_STEP_THREAD_TYPE, threadType );
+      trans.prepareExecution( null );
+      trans.startThreads();
+      transList.add( trans );
+    }
+    return transList;
+  }
+
+  private TransMeta createTransMeta( String name, boolean idle ) {
+    TransMeta transMeta = new TransMeta();
+    transMeta.setName( name );
+
+    RowGeneratorMeta generatorMeta = new RowGeneratorMeta();
+    generatorMeta.setDefault();
+    if ( idle ) {
+      generatorMeta.setNeverEnding( true );
+      generatorMeta.setIntervalInMs( "1000" );
+    } else {
+      generatorMeta.setRowLimit( Integer.toString( NR_ROWS ) );
+    }
+    StepMeta previous = addStep( transMeta, "generator", generatorMeta );
+
+    for ( int i = 1; i <= NR_DUMMIES; i++ ) {
+      StepMeta dummy = addStep( transMeta, "dummy" + i, new DummyTransMeta() );
+      transMeta.addTransHop( new TransHopMeta( previous, dummy ) );
+      previous = dummy;
+    }
+    return transMeta;
+  }
+
+  private StepMeta addStep( TransMeta transMeta, String stepName, StepMetaInterface meta ) {
+    String pluginId = PluginRegistry.getInstance().getPluginId( StepPluginType.class, meta );
+    StepMeta stepMeta = new StepMeta( pluginId, stepName, meta );
+    transMeta.addStep( stepMeta );
+    return stepMeta;
+  }
+
+  private static long usedHeap( MemoryMXBean memoryBean ) throws InterruptedException {
+    System.gc();
+    Thread.sleep( 200 );
+    return memoryBean.getHeapMemoryUsage().getUsed();
+  }
+}
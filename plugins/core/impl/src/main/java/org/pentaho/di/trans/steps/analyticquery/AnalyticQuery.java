@@ -13,12 +13,15 @@
 
 package org.pentaho.di.trans.steps.analyticquery;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Arrays;
 
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
-import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -29,7 +32,9 @@ import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 
 /**
- * Performs analytic queries (LEAD/LAG, etc) based on a group
+ * Performs analytic queries (LEAD/LAG, etc) based on a group. The rows of a group pass through a window of the rows
+ * needed around the current row; the frame aggregates are updated as rows enter and leave their frame. Only a frame
+ * ending with UNBOUNDED FOLLOWING needs the whole group, which is then buffered and spilled to disk when it is large.
  *
  * @author ngoodman
  * @since 27-jan-2009
@@ -84,42 +89,77 @@ public class AnalyticQuery extends BaseStep implements StepInterface {
         }
       }
 
-      // Setup of "window size" and "queue_size"
-      int max_offset = 0;
+      // Setup of the window: the rows needed before and after the current row
+      data.subjectnrs = new int[meta.getNumberOfFields()];
+      data.aggregates = new FrameAggregate[meta.getNumberOfFields()];
+      data.rowsBehind = 0;
+      data.rowsAhead = 0;
+      boolean unboundedFollowing = false;
       for ( int i = 0; i < meta.getNumberOfFields(); i++ ) {
-        if ( meta.getValueField()[i] > max_offset ) {
-          max_offset = meta.getValueField()[i];
+        int aggregateType = meta.getAggregateType()[i];
+        data.subjectnrs[i] = data.inputRowMeta.indexOfValue( meta.getSubjectField()[i] );
+        if ( data.subjectnrs[i] < 0 && aggregateType != AnalyticQueryMeta.TYPE_FUNCT_ROW_NUMBER ) {
+          logError( BaseMessages.getString(
+            PKG, "AnalyticQuery.Log.AggregateSubjectFieldCouldNotFound", meta.getSubjectField()[i] ) );
+          setErrors( 1 );
+          stopAll();
+          return false;
+        }
+        switch ( aggregateType ) {
+          case AnalyticQueryMeta.TYPE_FUNCT_LAG:
+            data.rowsBehind = Math.max( data.rowsBehind, meta.getValueField()[i] );
+            break;
+          case AnalyticQueryMeta.TYPE_FUNCT_LEAD:
+            data.rowsAhead = Math.max( data.rowsAhead, meta.getValueField()[i] );
+            break;
+          default:
+            if ( AnalyticQueryMeta.isFrameAggregate( aggregateType ) ) {
+              FrameAggregate aggregate = new FrameAggregate( aggregateType,
+                data.inputRowMeta.getValueMeta( data.subjectnrs[i] ), data.subjectnrs[i],
+                meta.getFramePreceding()[i], meta.getFrameFollowing()[i] );
+              if ( !aggregate.isUnboundedPreceding() ) {
+                // The row before the frame start is needed to remove it from the frame
+                data.rowsBehind = Math.max( data.rowsBehind, aggregate.getPreceding() + 1 );
+              }
+              if ( aggregate.isUnboundedFollowing() ) {
+                unboundedFollowing = true;
+              } else {
+                data.rowsAhead = Math.max( data.rowsAhead, aggregate.getFollowing() );
+              }
+              data.aggregates[i] = aggregate;
+            }
+            break;
         }
       }
-      data.window_size = max_offset;
-      data.queue_size = ( max_offset * 2 ) + 1;
+      data.window = new Object[data.rowsBehind + data.rowsAhead + 1][];
+      if ( unboundedFollowing ) {
+        data.partition = new PartitionBuffer( data.maxPartitionRows, data.compactRows );
+      }
+      resetGroup();
 
       // After we've processed the metadata we're all set
       first = false;
 
     }
 
-    /* If our row is null we're done, clear the queue and end otherwise process the row */
+    /* If our row is null we're done, flush the group and end otherwise process the row */
     if ( r == null ) {
-      clearQueue();
+      finishGroup();
       setOutputDone();
       return false;
     } else {
       /* First with every group change AND the first row */
       if ( !sameGroup( this.data.previous, r ) ) {
-        clearQueue();
+        finishGroup();
         resetGroup();
       }
-      /* Add this row to the end of the queue */
-      data.data.add( r );
-      /* Push the extra records off the end of the queue */
-      while ( data.data.size() > data.queue_size ) {
-        data.data.poll();
+      if ( data.partition != null ) {
+        addToPartition( r );
+      } else {
+        addToWindow( r );
       }
 
       data.previous = r.clone();
-
-      processQueue();
     }
 
     if ( log.isBasic() && checkFeedback( getLinesRead() ) ) {
@@ -129,80 +169,128 @@ public class AnalyticQuery extends BaseStep implements StepInterface {
     return true;
   }
 
-  public void processQueue() throws KettleStepException {
+  /**
+   * Adds the next row of the group to the window and outputs the rows that have all the rows they need after them.
+   */
+  private void addToWindow( Object[] r ) throws KettleException {
+    data.window[(int) ( data.windowRows % data.window.length )] = r;
+    data.windowRows++;
+    while ( data.windowRows - 1 - data.cursor >= data.rowsAhead ) {
+      processRowAt( data.cursor++ );
+    }
+  }
 
-    // If we've filled up our queue for processing
-    if ( data.data.size() == data.queue_size ) {
-      // Bring current cursor "up to current"
-      if ( data.queue_cursor <= data.window_size ) {
-        while ( data.queue_cursor <= data.window_size ) {
-          processQueueObjectAt( data.queue_cursor + 1 );
-          data.queue_cursor++;
+  private void addToPartition( Object[] r ) throws KettleException {
+    try {
+      if ( data.partition.isFull() ) {
+        FileObject file = KettleVFS.createTempFile( "analytic", ".tmp",
+          environmentSubstitute( "%%java.io.tmpdir%%" ), getTransMeta() );
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "AnalyticQuery.Log.SpillingPartition",
+            String.valueOf( data.partition.getNrRows() ), file.getName().getURI() ) );
         }
-      } else {
-        processQueueObjectAt( data.window_size + 1 );
+        data.partition.spill( file, data.inputRowMeta );
       }
+      data.partition.add( r );
+    } catch ( KettleFileException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "AnalyticQuery.Exception.ErrorUsingTemporaryFile" ), e );
     }
   }
 
-  public void clearQueue() throws KettleStepException {
-
-    if ( data.data == null ) {
-      return;
+  /**
+   * Outputs the remaining rows of the group. A buffered group is read twice: first all its rows are added to the
+   * frames ending with UNBOUNDED FOLLOWING, then the rows pass through the window as they would without buffering.
+   */
+  public void finishGroup() throws KettleException {
+    if ( data.partition != null ) {
+      try {
+        data.partition.rewind();
+        for ( Object[] r = data.partition.readRow(); r != null && !isStopped(); r = data.partition.readRow() ) {
+          for ( FrameAggregate aggregate : data.aggregates ) {
+            if ( aggregate != null && aggregate.isUnboundedFollowing() ) {
+              aggregate.add( r );
+            }
+          }
+        }
+        data.partition.rewind();
+        for ( Object[] r = data.partition.readRow(); r != null && !isStopped(); r = data.partition.readRow() ) {
+          addToWindow( r );
+        }
+      } catch ( KettleFileException e ) {
+        throw new KettleException( BaseMessages.getString( PKG, "AnalyticQuery.Exception.ErrorUsingTemporaryFile" ),
+          e );
+      } finally {
+        data.partition.clear();
+      }
     }
-
-    int number_of_rows = data.data.size();
-
-    for ( int i = data.queue_cursor; i < number_of_rows; i++ ) {
-      processQueueObjectAt( i + 1 );
+    while ( data.cursor < data.windowRows && !isStopped() ) {
+      processRowAt( data.cursor++ );
     }
-
   }
 
-  public void processQueueObjectAt( int i ) throws KettleStepException {
-    int index = i - 1;
-    Object[] rows = data.data.toArray();
-
+  /**
+   * Outputs the row of the group at the given position with its analytic fields.
+   */
+  private void processRowAt( long position ) throws KettleException {
     Object[] fields = new Object[meta.getNumberOfFields()];
     for ( int j = 0; j < meta.getNumberOfFields(); j++ ) {
-      // field_index is the location inside a row of the subject of this
-      // ie, ORDERTOTAL might be the subject ofthis field lag or lead
-      // so we determine that ORDERTOTAL's index in the row
-      int field_index = data.inputRowMeta.indexOfValue( meta.getSubjectField()[j] );
-      int row_index = 0;
       switch ( meta.getAggregateType()[j] ) {
         case AnalyticQueryMeta.TYPE_FUNCT_LAG:
-          row_index = index - meta.getValueField()[j];
+          fields[j] = getSubjectAt( position - meta.getValueField()[j], j );
           break;
         case AnalyticQueryMeta.TYPE_FUNCT_LEAD:
-          row_index = index + meta.getValueField()[j];
+          fields[j] = getSubjectAt( position + meta.getValueField()[j], j );
+          break;
+        case AnalyticQueryMeta.TYPE_FUNCT_ROW_NUMBER:
+          fields[j] = position + 1;
           break;
         default:
+          FrameAggregate aggregate = data.aggregates[j];
+          if ( aggregate != null ) {
+            // Slide the frame: add the rows up to its end, then remove the rows before its start
+            //
+            long end = Math.min( aggregate.getFrameEnd( position ), data.windowRows - 1 );
+            while ( aggregate.getNextAdd() <= end ) {
+              aggregate.add( getRowAt( aggregate.getNextAdd() ) );
+            }
+            long start = aggregate.getFrameStart( position );
+            while ( aggregate.getNextRemove() < start ) {
+              aggregate.remove( getRowAt( aggregate.getNextRemove() ) );
+            }
+            fields[j] = aggregate.getValue();
+          }
           break;
       }
-      if ( row_index < rows.length && row_index >= 0 ) {
-        Object[] singleRow = (Object[]) rows[row_index];
-        if ( singleRow != null && singleRow[field_index] != null ) {
-          fields[j] = ( (Object[]) rows[row_index] )[field_index];
-        } else {
-          // set default
-          fields[j] = null;
-        }
-      } else {
-        // set default
-        fields[j] = null;
-      }
     }
 
-    Object[] newRow = RowDataUtil.addRowData( (Object[]) rows[index], data.inputRowMeta.size(), fields );
+    Object[] newRow = RowDataUtil.addRowData( getRowAt( position ), data.inputRowMeta.size(), fields );
 
     putRow( data.outputRowMeta, newRow );
+  }
 
+  private Object[] getRowAt( long position ) {
+    return data.window[(int) ( position % data.window.length )];
+  }
+
+  /**
+   * @return the subject of a field in the row at the given position or null if there is no such row in the group
+   */
+  private Object getSubjectAt( long position, int fieldNr ) {
+    if ( position < 0 || position >= data.windowRows ) {
+      return null;
+    }
+    return getRowAt( position )[data.subjectnrs[fieldNr]];
   }
 
   public void resetGroup() {
-    data.data = new ConcurrentLinkedQueue<Object[]>();
-    data.queue_cursor = 0;
+    Arrays.fill( data.window, null );
+    data.windowRows = 0;
+    data.cursor = 0;
+    for ( FrameAggregate aggregate : data.aggregates ) {
+      if ( aggregate != null ) {
+        aggregate.reset();
+      }
+    }
   }
 
   // Is the row r of the same group as previous?
@@ -221,6 +309,9 @@ public class AnalyticQuery extends BaseStep implements StepInterface {
     data = (AnalyticQueryData) sdi;
 
     if ( super.init( smi, sdi ) ) {
+      data.maxPartitionRows = Math.max( 1, Const.toInt( getVariable(
+        Const.KETTLE_ANALYTIC_QUERY_PARTITION_ROWS_IN_MEMORY, "100000" ), 100000 ) );
+      data.compactRows = "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COMPACT_ROW_FORMAT, "N" ) );
       return true;
     } else {
       return false;
@@ -228,4 +319,13 @@ public class AnalyticQuery extends BaseStep implements StepInterface {
 
   }
 
+  @Override
+  public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    data = (AnalyticQueryData) sdi;
+    if ( data.partition != null ) {
+      data.partition.clear();
+    }
+    super.dispose( smi, sdi );
+  }
+
 }
@@ -13,8 +13,6 @@
 
 package org.pentaho.di.trans.steps.analyticquery;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
-
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -27,22 +25,31 @@ import org.pentaho.di.trans.step.StepDataInterface;
 public class AnalyticQueryData extends BaseStepData implements StepDataInterface {
   // Grouped Field Indexes (faster than looking up by strings)
   public int[] groupnrs;
+  // Subject Field Indexes, -1 for ROW_NUMBER
+  public int[] subjectnrs;
 
   public RowMetaInterface inputRowMeta;
   public RowMetaInterface outputRowMeta;
 
-  // Two Integers for our processing
-  // Window Size (the largest N we need to skip forward/back)
-  public int window_size;
-  // Queue Size (the size of our data queue (Window Size * 2 ) + 1)
-  public int queue_size;
-  // / Queue Cursor (the current processing location in the queue) reset with every group
-  public int queue_cursor;
-
-  // Queue for keeping the data. We will push data onto the queue
-  // and pop it off as we process rows. The queue of data is required
-  // to get the second previous row and the second ahead row, etc.
-  public ConcurrentLinkedQueue<Object[]> data;
+  // The largest number of rows we need to look back (LAG, frames starting N PRECEDING)
+  public int rowsBehind;
+  // The largest number of rows we need to look ahead (LEAD, frames ending N FOLLOWING)
+  public int rowsAhead;
+
+  // Ring buffer with the rows of the current group around the cursor: rowsBehind + rowsAhead + 1 rows
+  public Object[][] window;
+  // The number of rows of the current group added to the window
+  public long windowRows;
+  // The position in the group of the next row to output
+  public long cursor;
+
+  // The SUM, AVERAGE, COUNT, MIN and MAX functions, null for the other functions
+  public FrameAggregate[] aggregates;
+
+  // All rows of the current group, only when a frame ends with UNBOUNDED FOLLOWING
+  public PartitionBuffer partition;
+  public int maxPartitionRows;
+  public boolean compactRows;
 
   public Object[] previous;
 
@@ -29,6 +29,9 @@ import org.pentaho.di.core.injection.InjectionSupported;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.core.xml.XMLHandler;
@@ -59,13 +62,28 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
 
   public static final int TYPE_FUNCT_LEAD = 0;
   public static final int TYPE_FUNCT_LAG = 1;
+  public static final int TYPE_FUNCT_ROW_NUMBER = 2;
+  public static final int TYPE_FUNCT_SUM = 3;
+  public static final int TYPE_FUNCT_AVERAGE = 4;
+  public static final int TYPE_FUNCT_COUNT = 5;
+  public static final int TYPE_FUNCT_MIN = 6;
+  public static final int TYPE_FUNCT_MAX = 7;
 
   public static final String[] typeGroupCode = /* WARNING: DO NOT TRANSLATE THIS. WE ARE SERIOUS, DON'T TRANSLATE! */
-  { "LEAD", "LAG", };
+  { "LEAD", "LAG", "ROW_NUMBER", "SUM", "AVERAGE", "COUNT", "MIN", "MAX", };
 
   public static final String[] typeGroupLongDesc = {
     BaseMessages.getString( PKG, "AnalyticQueryMeta.TypeGroupLongDesc.LEAD" ),
-    BaseMessages.getString( PKG, "AnalyticQueryMeta.TypeGroupLongDesc.LAG" ) };
+    BaseMessages.getString( PKG, "AnalyticQueryMeta.TypeGroupLongDesc.LAG" ),
+    BaseMessages.getString( PKG, "AnalyticQueryMeta.TypeGroupLongDesc.ROW_NUMBER" ),
+    BaseMessages.getString( PKG, "AnalyticQueryMeta.TypeGroupLongDesc.SUM" ),
+    BaseMessages.getString( PKG, "AnalyticQueryMeta.TypeGroupLongDesc.AVERAGE" ),
+    BaseMessages.getString( PKG, "AnalyticQueryMeta.TypeGroupLongDesc.COUNT" ),
+    BaseMessages.getString( PKG, "AnalyticQueryMeta.TypeGroupLongDesc.MIN" ),
+    BaseMessages.getString( PKG, "AnalyticQueryMeta.TypeGroupLongDesc.MAX" ) };
+
+  /** The value of a frame bound without a limit: ROWS BETWEEN UNBOUNDED PRECEDING or UNBOUNDED FOLLOWING */
+  public static final int FRAME_UNBOUNDED = -1;
 
   /** Fields to partition by ie, CUSTOMER, PRODUCT */
   @Injection( name = "GROUP_FIELDS" )
@@ -86,6 +104,12 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
   /** Offset "N" of how many rows to go forward/back */
   @Injection( name = "OUTPUT.VALUE_FIELD" )
   private int[] valueField;
+  /** Number of rows before the current row in the frame of SUM, AVERAGE, COUNT, MIN and MAX, -1 for unbounded */
+  @Injection( name = "OUTPUT.FRAME_PRECEDING" )
+  private int[] framePreceding;
+  /** Number of rows after the current row in the frame of SUM, AVERAGE, COUNT, MIN and MAX, -1 for unbounded */
+  @Injection( name = "OUTPUT.FRAME_FOLLOWING" )
+  private int[] frameFollowing;
 
   /** END arrays are one for each configured analytic function */
 
@@ -168,6 +192,43 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
     this.valueField = valueField;
   }
 
+  /**
+   * @return Returns the number of rows before the current row in the window frame of every field, -1 for unbounded.
+   */
+  public int[] getFramePreceding() {
+    return framePreceding;
+  }
+
+  /**
+   * @param framePreceding
+   *          The number of rows before the current row in the window frame of every field, -1 for unbounded.
+   */
+  public void setFramePreceding( int[] framePreceding ) {
+    this.framePreceding = framePreceding;
+  }
+
+  /**
+   * @return Returns the number of rows after the current row in the window frame of every field, -1 for unbounded.
+   */
+  public int[] getFrameFollowing() {
+    return frameFollowing;
+  }
+
+  /**
+   * @param frameFollowing
+   *          The number of rows after the current row in the window frame of every field, -1 for unbounded.
+   */
+  public void setFrameFollowing( int[] frameFollowing ) {
+    this.frameFollowing = frameFollowing;
+  }
+
+  /**
+   * @return true if the function aggregates the subject over a frame of rows: SUM, AVERAGE, COUNT, MIN or MAX
+   */
+  public static boolean isFrameAggregate( int aggregateType ) {
+    return aggregateType >= TYPE_FUNCT_SUM && aggregateType <= TYPE_FUNCT_MAX;
+  }
+
   public void loadXML( Node stepnode, List<DatabaseMeta> databases, IMetaStore metaStore ) throws KettleXMLException {
     readData( stepnode );
   }
@@ -178,6 +239,8 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
     subjectField = new String[nrfields];
     aggregateType = new int[nrfields];
     valueField = new int[nrfields];
+    framePreceding = new int[nrfields];
+    frameFollowing = new int[nrfields];
 
     number_of_fields = nrfields;
   }
@@ -209,6 +272,8 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
         aggregateType[i] = getType( XMLHandler.getTagValue( fnode, "type" ) );
 
         valueField[i] = Integer.parseInt( XMLHandler.getTagValue( fnode, "valuefield" ) );
+        framePreceding[i] = Const.toInt( XMLHandler.getTagValue( fnode, "frame_preceding" ), FRAME_UNBOUNDED );
+        frameFollowing[i] = Const.toInt( XMLHandler.getTagValue( fnode, "frame_following" ), 0 );
       }
 
     } catch ( Exception e ) {
@@ -265,12 +330,20 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
     // add analytic values
     for ( int i = 0; i < number_of_fields; i++ ) {
 
+      if ( aggregateType[i] == TYPE_FUNCT_ROW_NUMBER ) {
+        ValueMetaInterface vmi = new ValueMetaInteger( aggregateField[i] );
+        vmi.setLength( ValueMetaInterface.DEFAULT_INTEGER_LENGTH, 0 );
+        vmi.setOrigin( origin );
+        fields.addValueMeta( r.size() + i, vmi );
+        continue;
+      }
+
       int index_of_subject = -1;
       index_of_subject = r.indexOfValue( subjectField[i] );
 
       // if we found the subjectField in the RowMetaInterface, and we should....
       if ( index_of_subject > -1 ) {
-        ValueMetaInterface vmi = r.getValueMeta( index_of_subject ).clone();
+        ValueMetaInterface vmi = getAggregateValueMeta( aggregateType[i], r.getValueMeta( index_of_subject ) );
         vmi.setOrigin( origin );
         vmi.setName( aggregateField[i] );
         fields.addValueMeta( r.size() + i, vmi );
@@ -292,6 +365,36 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
     r.addRowMeta( fields );
   }
 
+  /**
+   * LEAD, LAG, MIN and MAX return values of the subject. SUM returns an integer or big number for those subjects and a
+   * number otherwise, AVERAGE a big number or a number. COUNT returns an integer.
+   */
+  private static ValueMetaInterface getAggregateValueMeta( int aggregateType, ValueMetaInterface subject ) {
+    ValueMetaInterface vmi;
+    switch ( aggregateType ) {
+      case TYPE_FUNCT_SUM:
+        if ( subject.getType() == ValueMetaInterface.TYPE_INTEGER ) {
+          vmi = new ValueMetaInteger();
+          vmi.setLength( ValueMetaInterface.DEFAULT_INTEGER_LENGTH, 0 );
+        } else if ( subject.getType() == ValueMetaInterface.TYPE_BIGNUMBER ) {
+          vmi = new ValueMetaBigNumber();
+        } else {
+          vmi = new ValueMetaNumber();
+        }
+        break;
+      case TYPE_FUNCT_AVERAGE:
+        vmi = subject.getType() == ValueMetaInterface.TYPE_BIGNUMBER ? new ValueMetaBigNumber() : new ValueMetaNumber();
+        break;
+      case TYPE_FUNCT_COUNT:
+        vmi = new ValueMetaInteger();
+        vmi.setLength( ValueMetaInterface.DEFAULT_INTEGER_LENGTH, 0 );
+        break;
+      default:
+        return subject.clone();
+    }
+    return vmi;
+  }
+
   public String getXML() {
     StringBuilder retval = new StringBuilder( 500 );
 
@@ -310,6 +413,8 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
       retval.append( "          " ).append( XMLHandler.addTagValue( "subject", subjectField[i] ) );
       retval.append( "          " ).append( XMLHandler.addTagValue( "type", getTypeDesc( aggregateType[i] ) ) );
       retval.append( "          " ).append( XMLHandler.addTagValue( "valuefield", valueField[i] ) );
+      retval.append( "          " ).append( XMLHandler.addTagValue( "frame_preceding", framePreceding[i] ) );
+      retval.append( "          " ).append( XMLHandler.addTagValue( "frame_following", frameFollowing[i] ) );
       retval.append( "        </field>" ).append( Const.CR );
     }
     retval.append( "      </fields>" ).append( Const.CR );
@@ -334,6 +439,8 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
         subjectField[i] = rep.getStepAttributeString( id_step, i, "aggregate_subject" );
         aggregateType[i] = getType( rep.getStepAttributeString( id_step, i, "aggregate_type" ) );
         valueField[i] = (int) rep.getStepAttributeInteger( id_step, i, "aggregate_value_field" );
+        framePreceding[i] = (int) rep.getStepAttributeInteger( id_step, i, "aggregate_frame_preceding" );
+        frameFollowing[i] = (int) rep.getStepAttributeInteger( id_step, i, "aggregate_frame_following" );
       }
 
     } catch ( Exception e ) {
@@ -354,6 +461,8 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
         rep.saveStepAttribute( id_transformation, id_step, i, "aggregate_subject", subjectField[i] );
         rep.saveStepAttribute( id_transformation, id_step, i, "aggregate_type", getTypeDesc( aggregateType[i] ) );
         rep.saveStepAttribute( id_transformation, id_step, i, "aggregate_value_field", valueField[i] );
+        rep.saveStepAttribute( id_transformation, id_step, i, "aggregate_frame_preceding", framePreceding[i] );
+        rep.saveStepAttribute( id_transformation, id_step, i, "aggregate_frame_following", frameFollowing[i] );
       }
     } catch ( Exception e ) {
       throw new KettleException( BaseMessages.getString(
@@ -414,9 +523,11 @@ public class AnalyticQueryMeta extends BaseStepMeta implements StepMetaInterface
     String[][] rtn = Utils.normalizeArrays( nrFields, aggregateField );
     aggregateField = rtn[ 0 ];
 
-    int[][] rtnInt = Utils.normalizeArrays( nrFields, aggregateType, valueField );
+    int[][] rtnInt = Utils.normalizeArrays( nrFields, aggregateType, valueField, framePreceding, frameFollowing );
     aggregateType = rtnInt[ 0 ];
     valueField = rtnInt[ 1 ];
+    framePreceding = rtnInt[ 2 ];
+    frameFollowing = rtnInt[ 3 ];
   }
 
 }
@@ -0,0 +1,230 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.analyticquery;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayDeque;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * A SUM, AVERAGE, COUNT, MIN or MAX over the frame of rows around the current row. The frame slides forward: rows are
+ * added at its end and removed from its start, in the order of the partition. Each row is added and removed once, so
+ * the aggregate costs O(1) per row: running totals for SUM, AVERAGE and COUNT, a monotonic queue of candidates for MIN
+ * and MAX.
+ *
+ * @since 10.3
+ */
+class FrameAggregate {
+  private final int aggregateType;
+  private final ValueMetaInterface subjectMeta;
+  private final int subjectIndex;
+  private final int preceding;
+  private final int following;
+
+  /** Position in the partition of the next row to add to the frame */
+  private long nextAdd;
+  /** Position in the partition of the next row to remove from the frame */
+  private long nextRemove;
+
+  private long count;
+  private long longSum;
+  private double doubleSum;
+  private BigDecimal bigSum;
+
+  /** MIN/MAX candidates: positions and values, the first one is the result */
+  private final ArrayDeque<Long> positions = new ArrayDeque<Long>();
+  private final ArrayDeque<Object> values = new ArrayDeque<Object>();
+
+  FrameAggregate( int aggregateType, ValueMetaInterface subjectMeta, int subjectIndex, int preceding,
+                  int following ) {
+    this.aggregateType = aggregateType;
+    this.subjectMeta = subjectMeta;
+    this.subjectIndex = subjectIndex;
+    this.preceding = preceding;
+    this.following = following;
+    reset();
+  }
+
+  /**
+   * @return the number of rows the frame extends before the current row, negative for unbounded
+   */
+  int getPreceding() {
+    return preceding;
+  }
+
+  /**
+   * @return the number of rows the frame extends after the current row, negative for unbounded
+   */
+  int getFollowing() {
+    return following;
+  }
+
+  boolean isUnboundedPreceding() {
+    return preceding < 0;
+  }
+
+  boolean isUnboundedFollowing() {
+    return following < 0;
+  }
+
+  /**
+   * @return the position of the first row of the frame of the row at the given position
+   */
+  long getFrameStart( long position ) {
+    return isUnboundedPreceding() ? 0 : position - preceding;
+  }
+
+  /**
+   * @return the position of the last row of the frame of the row at the given position
+   */
+  long getFrameEnd( long position ) {
+    return isUnboundedFollowing() ? Long.MAX_VALUE : position + following;
+  }
+
+  long getNextAdd() {
+    return nextAdd;
+  }
+
+  long getNextRemove() {
+    return nextRemove;
+  }
+
+  void reset() {
+    nextAdd = 0;
+    nextRemove = 0;
+    count = 0;
+    longSum = 0;
+    doubleSum = 0;
+    bigSum = BigDecimal.ZERO;
+    positions.clear();
+    values.clear();
+  }
+
+  /**
+   * Adds the row at position {@link #getNextAdd()} to the end of the frame.
+   */
+  void add( Object[] row ) throws KettleValueException {
+    long position = nextAdd++;
+    Object value = row[subjectIndex];
+    if ( subjectMeta.isNull( value ) ) {
+      return;
+    }
+    count++;
+    switch ( aggregateType ) {
+      case AnalyticQueryMeta.TYPE_FUNCT_SUM:
+      case AnalyticQueryMeta.TYPE_FUNCT_AVERAGE:
+        switch ( subjectMeta.getType() ) {
+          case ValueMetaInterface.TYPE_INTEGER:
+            longSum += subjectMeta.getInteger( value );
+            break;
+          case ValueMetaInterface.TYPE_BIGNUMBER:
+            bigSum = bigSum.add( subjectMeta.getBigNumber( value ) );
+            break;
+          default:
+            doubleSum += subjectMeta.getNumber( value );
+            break;
+        }
+        break;
+      case AnalyticQueryMeta.TYPE_FUNCT_MIN:
+      case AnalyticQueryMeta.TYPE_FUNCT_MAX:
+        // Candidates that are no better than the new value can never be the result again
+        //
+        int sign = aggregateType == AnalyticQueryMeta.TYPE_FUNCT_MIN ? 1 : -1;
+        while ( !values.isEmpty() && sign * subjectMeta.compare( values.peekLast(), value ) >= 0 ) {
+          values.pollLast();
+          positions.pollLast();
+        }
+        values.addLast( value );
+        positions.addLast( position );
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Removes the row at position {@link #getNextRemove()} from the start of the frame.
+   */
+  void remove( Object[] row ) throws KettleValueException {
+    long position = nextRemove++;
+    Object value = row[subjectIndex];
+    if ( subjectMeta.isNull( value ) ) {
+      return;
+    }
+    count--;
+    switch ( aggregateType ) {
+      case AnalyticQueryMeta.TYPE_FUNCT_SUM:
+      case AnalyticQueryMeta.TYPE_FUNCT_AVERAGE:
+        switch ( subjectMeta.getType() ) {
+          case ValueMetaInterface.TYPE_INTEGER:
+            longSum -= subjectMeta.getInteger( value );
+            break;
+          case ValueMetaInterface.TYPE_BIGNUMBER:
+            bigSum = bigSum.subtract( subjectMeta.getBigNumber( value ) );
+            break;
+          default:
+            doubleSum -= subjectMeta.getNumber( value );
+            break;
+        }
+        break;
+      case AnalyticQueryMeta.TYPE_FUNCT_MIN:
+      case AnalyticQueryMeta.TYPE_FUNCT_MAX:
+        if ( !positions.isEmpty() && positions.peekFirst() == position ) {
+          positions.pollFirst();
+          values.pollFirst();
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * @return the aggregate of the rows in the frame, in the data type of {@link AnalyticQueryMeta}
+   */
+  Object getValue() {
+    switch ( aggregateType ) {
+      case AnalyticQueryMeta.TYPE_FUNCT_COUNT:
+        return count;
+      case AnalyticQueryMeta.TYPE_FUNCT_MIN:
+      case AnalyticQueryMeta.TYPE_FUNCT_MAX:
+        return values.peekFirst();
+      default:
+        break;
+    }
+    if ( count == 0 ) {
+      return null;
+    }
+    switch ( subjectMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        if ( aggregateType == AnalyticQueryMeta.TYPE_FUNCT_SUM ) {
+          return longSum;
+        }
+        return (double) longSum / count;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        if ( aggregateType == AnalyticQueryMeta.TYPE_FUNCT_SUM ) {
+          return bigSum;
+        }
+        return bigSum.divide( BigDecimal.valueOf( count ), MathContext.DECIMAL128 );
+      default:
+        if ( aggregateType == AnalyticQueryMeta.TYPE_FUNCT_SUM ) {
+          return doubleSum;
+        }
+        return doubleSum / count;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.analyticquery;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.CompactRowReader;
+import org.pentaho.di.core.row.CompactRowWriter;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.trans.step.BaseStep;
+
+/**
+ * The rows of a partition that need to be read more than once. Up to a maximum number of rows are kept in memory, the
+ * rows of a larger partition are all written to a temp file.
+ *
+ * @since 10.3
+ */
+class PartitionBuffer {
+  private final int maxRowsInMemory;
+  private final boolean compact;
+  private final List<Object[]> rows = new ArrayList<Object[]>();
+
+  private RowMetaInterface rowMeta;
+  private FileObject file;
+  private DataOutputStream outputStream;
+  private CompactRowWriter compactWriter;
+  private DataInputStream inputStream;
+  private CompactRowReader compactReader;
+  private long nrRows;
+  private long rowsRead;
+
+  PartitionBuffer( int maxRowsInMemory, boolean compact ) {
+    this.maxRowsInMemory = maxRowsInMemory;
+    this.compact = compact;
+  }
+
+  /**
+   * @return true if the next row doesn't fit in memory: {@link #spill(FileObject, RowMetaInterface)} needs to be called
+   *         first
+   */
+  boolean isFull() {
+    return file == null && rows.size() >= maxRowsInMemory;
+  }
+
+  /**
+   * Writes the rows in memory to a temp file, the rows added later go to the file as well.
+   */
+  void spill( FileObject file, RowMetaInterface rowMeta ) throws KettleFileException {
+    this.file = file;
+    this.rowMeta = rowMeta;
+    try {
+      outputStream = new DataOutputStream( new BufferedOutputStream( KettleVFS.getOutputStream( file, false ),
+        65536 ) );
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+    if ( compact ) {
+      compactWriter = new CompactRowWriter( rowMeta, outputStream );
+    }
+    for ( Object[] row : rows ) {
+      writeRow( row );
+    }
+    rows.clear();
+  }
+
+  void add( Object[] row ) throws KettleFileException {
+    if ( file == null ) {
+      rows.add( row );
+    } else {
+      writeRow( row );
+    }
+  }
+
+  private void writeRow( Object[] row ) throws KettleFileException {
+    if ( compactWriter != null ) {
+      compactWriter.writeRow( row );
+    } else {
+      rowMeta.writeData( outputStream, row );
+    }
+    nrRows++;
+  }
+
+  long getNrRows() {
+    return file == null ? rows.size() : nrRows;
+  }
+
+  /**
+   * Starts reading the partition from the first row, finishing the temp file first if there is one.
+   */
+  void rewind() throws KettleFileException {
+    rowsRead = 0;
+    if ( file == null ) {
+      return;
+    }
+    try {
+      if ( outputStream != null ) {
+        if ( compactWriter != null ) {
+          compactWriter.finish();
+          compactWriter = null;
+        }
+        outputStream.close();
+        outputStream = null;
+      }
+      if ( inputStream != null ) {
+        inputStream.close();
+      }
+      inputStream = new DataInputStream( new BufferedInputStream( KettleVFS.getInputStream( file ), 65536 ) );
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+    compactReader = compact ? new CompactRowReader( rowMeta, inputStream ) : null;
+  }
+
+  /**
+   * @return the next row of the partition or null if all rows were read
+   */
+  Object[] readRow() throws KettleFileException {
+    if ( rowsRead >= getNrRows() ) {
+      return null;
+    }
+    if ( file == null ) {
+      return rows.get( (int) rowsRead++ );
+    }
+    rowsRead++;
+    if ( compactReader != null ) {
+      return compactReader.readRow();
+    }
+    try {
+      return rowMeta.readData( inputStream );
+    } catch ( SocketTimeoutException e ) {
+      throw new KettleFileException( e ); // Shouldn't happen on files
+    }
+  }
+
+  /**
+   * Removes all rows, deleting the temp file if there is one.
+   */
+  void clear() {
+    rows.clear();
+    BaseStep.closeQuietly( outputStream );
+    BaseStep.closeQuietly( inputStream );
+    outputStream = null;
+    inputStream = null;
+    compactWriter = null;
+    compactReader = null;
+    if ( file != null ) {
+      try {
+        file.delete();
+      } catch ( IOException e ) {
+        // It's a temp file
+      }
+      file = null;
+    }
+    nrRows = 0;
+    rowsRead = 0;
+  }
+}
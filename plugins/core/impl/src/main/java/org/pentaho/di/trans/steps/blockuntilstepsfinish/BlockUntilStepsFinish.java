@@ -20,6 +20,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.ForkJoinStepScheduler;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStep;
@@ -111,7 +112,7 @@ public class BlockUntilStepsFinish extends BaseStep implements StepInterface {
 
       if ( data.continueLoop ) {
         try {
-          Thread.sleep( 200 );
+          ForkJoinStepScheduler.sleep( 200 );
         } catch ( Exception e ) {
           // ignore
         }
@@ -17,14 +17,18 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.cache.LookupCacheRegistry;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleConfigException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
@@ -107,6 +111,11 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
 
     // try to find the row in the cache...
     //
+    if ( data.sharedCache != null ) {
+      RowMetaAndData key = new RowMetaAndData( rowMeta, row );
+      Long tk = data.uncommittedKeys == null ? null : data.uncommittedKeys.get( key );
+      return tk != null ? tk : (Long) data.sharedCache.get( key );
+    }
     Long tk = data.cache.get( new RowMetaAndData( rowMeta, row ) );
     return tk;
   }
@@ -129,6 +138,12 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
     }
 
     // store it in the cache if needed.
+    // The shared cache keeps the key stored first and evicts its oldest entries by itself.
+    //
+    if ( data.sharedCache != null ) {
+      data.sharedCache.putIfAbsent( new RowMetaAndData( rowMeta, row ), tk );
+      return;
+    }
     data.cache.put( new RowMetaAndData( rowMeta, row ), tk );
 
     // check if the size is not too big...
@@ -197,6 +212,32 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
     }
   }
 
+  /**
+   * Adds the technical key of a row this step inserted to the cache. With a shared cache the key stays with the step
+   * until it is committed: other steps could hand out a key that is rolled back otherwise.
+   */
+  private void addInsertedToCache( Object[] hashRow, Long tk ) throws KettleValueException {
+    if ( data.uncommittedKeys == null ) {
+      addToCache( data.hashRowMeta, hashRow, tk );
+      return;
+    }
+    data.uncommittedKeys.put( new RowMetaAndData( data.hashRowMeta, hashRow ), tk );
+    if ( data.db.getNrExecutedCommits() != data.nrCommits ) {
+      publishCommittedKeys();
+    }
+  }
+
+  /**
+   * Moves the technical keys inserted by this step to the shared cache once they are committed.
+   */
+  private void publishCommittedKeys() {
+    for ( Map.Entry<RowMetaAndData, Long> entry : data.uncommittedKeys.entrySet() ) {
+      data.sharedCache.putIfAbsent( entry.getKey(), entry.getValue() );
+    }
+    data.uncommittedKeys.clear();
+    data.nrCommits = data.db.getNrExecutedCommits();
+  }
+
   protected boolean isAutoIncrement() {
     return techKeyCreation == CREATION_METHOD_AUTOINC;
   }
@@ -282,7 +323,7 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
         }
 
         // Also store it in our Hashtable...
-        addToCache( data.hashRowMeta, hashRow, val_key );
+        addInsertedToCache( hashRow, val_key );
       } else {
         // Entry already exists...
         //
@@ -368,7 +409,26 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
       }
 
       setCombiLookup( getInputRowMeta() );
-      preloadCache( data.hashRowMeta );
+      if ( meta.getCacheSize() >= 0 && !Utils.isEmpty( meta.getSharedCacheName() ) ) {
+        attachSharedCache();
+      }
+      if ( data.sharedCache != null ) {
+        if ( !data.db.isAutoCommit() ) {
+          data.uncommittedKeys = new HashMap<>();
+          data.nrCommits = data.db.getNrExecutedCommits();
+        }
+
+        // Only the first step using the shared cache pre-loads it
+        //
+        synchronized ( data.sharedCache ) {
+          if ( !data.sharedCache.isComplete() ) {
+            preloadCache( data.hashRowMeta );
+            data.sharedCache.setComplete( true );
+          }
+        }
+      } else {
+        preloadCache( data.hashRowMeta );
+      }
     }
 
     try {
@@ -677,11 +737,13 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
     meta = (CombinationLookupMeta) smi;
     data = (CombinationLookupData) sdi;
 
+    boolean committed = false;
     if ( data.db != null ) {
       try {
         if ( !data.db.isAutoCommit() ) {
           if ( getErrors() == 0 ) {
             data.db.commit();
+            committed = true;
           } else {
             data.db.rollback();
           }
@@ -691,9 +753,60 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
       }
     }
 
+    if ( data.sharedCache != null ) {
+      // The technical keys of rows that were rolled back are simply dropped
+      //
+      if ( committed && data.uncommittedKeys != null ) {
+        publishCommittedKeys();
+      }
+      data.uncommittedKeys = null;
+      LookupCacheRegistry.getInstance().detach( data.sharedCache );
+      data.sharedCache = null;
+    }
+
     super.dispose( smi, sdi );
   }
 
+  /**
+   * Attaches to the shared lookup cache named in the step. The keys of the cache are the natural keys, the values the
+   * technical keys, like in the private cache.
+   */
+  private void attachSharedCache() {
+    String name = environmentSubstitute( meta.getSharedCacheName() );
+    long timeToLive = Const.toLong( getVariable( Const.KETTLE_SHARED_LOOKUP_CACHE_TTL ), 0L );
+    if ( !Utils.isEmpty( data.db.getConnectionGroup() ) ) {
+      // The transformation commits the connection once all steps are done, too late to share the keys of new rows
+      //
+      logBasic( BaseMessages.getString( PKG, "CombinationLookup.Log.SharedCacheNotUsed", name,
+        BaseMessages.getString( PKG, "CombinationLookup.Log.SharedCacheUniqueConnection" ) ) );
+      return;
+    }
+    try {
+      data.sharedCache = LookupCacheRegistry.getInstance().attach( name, getSharedCacheLayout(),
+        meta.getCacheSize(), TimeUnit.SECONDS.toMillis( timeToLive ) );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "CombinationLookup.Log.UsingSharedCache", name ) );
+      }
+    } catch ( KettleException e ) {
+      logBasic( BaseMessages.getString( PKG, "CombinationLookup.Log.SharedCacheNotUsed", name, e.getMessage() ) );
+    }
+  }
+
+  /**
+   * Describes where the technical keys of the cache come from: only steps that would look up the same keys can share a
+   * cache.
+   */
+  private String getSharedCacheLayout() throws KettleException {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    StringBuilder layout = new StringBuilder( "Combination lookup in " );
+    layout.append( databaseMeta.getURL( getPartitionID() ) ).append( " as " )
+      .append( environmentSubstitute( databaseMeta.getUsername() ) ).append( ", table " ).append( data.schemaTable );
+    layout.append( ", keys " ).append( Arrays.toString( meta.getKeyLookup() ) );
+    layout.append( ", technical key " ).append( meta.getTechnicalKeyField() );
+    layout.append( ", key types " ).append( data.hashRowMeta.toStringMeta() );
+    return layout.toString();
+  }
+
   /**
    * Preload the cache
    *
@@ -17,6 +17,7 @@ import java.sql.PreparedStatement;
 import java.util.Map;
 
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.cache.SharedLookupCache;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
@@ -31,6 +32,12 @@ public class CombinationLookupData extends BaseDatabaseStepData implements StepD
   public int[] keynrs; // nrs in row of the keys
 
   public Map<RowMetaAndData, Long> cache;
+  /** The lookup cache shared with other steps, if any, used instead of {@link #cache} */
+  public SharedLookupCache sharedCache;
+  /** The technical keys this step inserted since its last commit, moved to {@link #sharedCache} once committed */
+  public Map<RowMetaAndData, Long> uncommittedKeys;
+  /** The number of commits on the connection when the inserted keys were last moved to the shared cache */
+  public int nrCommits;
 
   public RowMetaInterface outputRowMeta;
   public RowMetaInterface lookupRowMeta;
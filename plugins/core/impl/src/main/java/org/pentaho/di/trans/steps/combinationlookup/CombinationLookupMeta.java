@@ -145,6 +145,12 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
   @Injection( name = "PRELOAD_CACHE" )
   private boolean preloadCache = false;
 
+  /**
+   * The name of the lookup cache shared with other steps, empty for a cache of this step only
+   */
+  @Injection( name = "SHARED_CACHE_NAME" )
+  private String sharedCacheName;
+
   /**
    * Limit the cache size to this!
    */
@@ -306,6 +312,20 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     return preloadCache;
   }
 
+  /**
+   * @return the name of the lookup cache shared with other steps, empty for a cache of this step only
+   */
+  public String getSharedCacheName() {
+    return sharedCacheName;
+  }
+
+  /**
+   * @param sharedCacheName the name of the lookup cache shared with other steps, empty for a cache of this step only
+   */
+  public void setSharedCacheName( String sharedCacheName ) {
+    this.sharedCacheName = sharedCacheName;
+  }
+
   /**
    * @return Returns the sequenceFrom.
    */
@@ -416,6 +436,7 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
 
       replaceFields = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "replace" ) );
       preloadCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "preloadCache" ) );
+      sharedCacheName = XMLHandler.getTagValue( stepnode, "shared_cache_name" );
       useHash = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "crc" ) );
 
       hashField = XMLHandler.getTagValue( stepnode, "crcfield" );
@@ -457,6 +478,7 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     cacheSize = DEFAULT_CACHE_SIZE;
     replaceFields = false;
     preloadCache = false;
+    sharedCacheName = null;
     useHash = false;
     hashField = "hashcode";
     int nrkeys = 0;
@@ -504,6 +526,7 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     retval.append( "      " ).append( XMLHandler.addTagValue( "cache_size", cacheSize ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "replace", replaceFields ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "preloadCache", preloadCache ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "shared_cache_name", sharedCacheName ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "crc", useHash ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "crcfield", hashField ) );
 
@@ -543,6 +566,7 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
       cacheSize = (int) rep.getStepAttributeInteger( id_step, "cache_size" );
       replaceFields = rep.getStepAttributeBoolean( id_step, "replace" );
       preloadCache = rep.getStepAttributeBoolean( id_step, "preloadCache" );
+      sharedCacheName = rep.getStepAttributeString( id_step, "shared_cache_name" );
       useHash = rep.getStepAttributeBoolean( id_step, "crc" );
       hashField = rep.getStepAttributeString( id_step, "crcfield" );
 
@@ -577,6 +601,7 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
       rep.saveStepAttribute( id_transformation, id_step, "cache_size", cacheSize );
       rep.saveStepAttribute( id_transformation, id_step, "replace", replaceFields );
       rep.saveStepAttribute( id_transformation, id_step, "preloadCache", preloadCache );
+      rep.saveStepAttribute( id_transformation, id_step, "shared_cache_name", sharedCacheName );
 
       rep.saveStepAttribute( id_transformation, id_step, "crc", useHash );
       rep.saveStepAttribute( id_transformation, id_step, "crcfield", hashField );
@@ -1073,6 +1098,9 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     if ( getPreloadCache() != o.getPreloadCache() ) {
       return false;
     }
+    if ( !Objects.equals( getSharedCacheName(), o.getSharedCacheName() ) ) {
+      return false;
+    }
     if ( ( getSequenceFrom() == null && o.getSequenceFrom() != null )
       || ( getSequenceFrom() != null && o.getSequenceFrom() == null )
       || ( getSequenceFrom() != null && o.getSequenceFrom() != null && !getSequenceFrom().equals(
@@ -1116,7 +1144,8 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
   @Override
   public int hashCode() {
     return Objects.hash( getCommitSize(), getCacheSize(), getTechKeyCreation(), replaceFields(), useHash(),
-      getPreloadCache(), getSequenceFrom(), getSchemaName(), getTableName(), getHashField(), getTechnicalKeyField() );
+      getPreloadCache(), getSharedCacheName(), getSequenceFrom(), getSchemaName(), getTableName(), getHashField(),
+      getTechnicalKeyField() );
   }
 
   /**
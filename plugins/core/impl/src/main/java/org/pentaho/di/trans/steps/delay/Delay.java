@@ -16,6 +16,7 @@ package org.pentaho.di.trans.steps.delay;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.ForkJoinStepScheduler;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStep;
@@ -90,7 +91,7 @@ public class Delay extends BaseStep implements StepInterface {
     if ( ( data.Multiple < 1000 ) && ( data.timeout > 0 ) ) {
       // handle the milliseconds delays here
       try {
-        Thread.sleep( data.timeout );
+        ForkJoinStepScheduler.sleep( data.timeout );
       } catch ( Exception e ) {
         // nothing
       }
@@ -110,7 +111,7 @@ public class Delay extends BaseStep implements StepInterface {
           continueLoop = false;
         } else {
           try {
-            Thread.sleep( 1000 );
+            ForkJoinStepScheduler.sleep( 1000 );
           } catch ( Exception e ) {
             // handling this exception would be kind of silly.
           }
@@ -54,5 +54,15 @@ public class AnalyticQueryMetaInjectionTest extends BaseMetadataInjectionTest<An
         return meta.getValueField()[ 0 ];
       }
     } );
+    check( "OUTPUT.FRAME_PRECEDING", new IntGetter() {
+      public int get() {
+        return meta.getFramePreceding()[ 0 ];
+      }
+    } );
+    check( "OUTPUT.FRAME_FOLLOWING", new IntGetter() {
+      public int get() {
+        return meta.getFrameFollowing()[ 0 ];
+      }
+    } );
   }
 }
@@ -41,7 +41,7 @@ public class AnalyticQueryMetaTest {
   @Test
   public void testRoundTrip() throws KettleException {
     List<String> attributes = Arrays.asList( "groupField", "aggregateField", "subjectField",
-      "aggregateType", "valueField" );
+      "aggregateType", "valueField", "framePreceding", "frameFollowing" );
 
     Map<String, String> getterMap = new HashMap<String, String>();
     Map<String, String> setterMap = new HashMap<String, String>();
@@ -53,6 +53,8 @@ public class AnalyticQueryMetaTest {
     fieldValidators.put( "aggregateType", new PrimitiveIntArrayLoadSaveValidator(
       new IntLoadSaveValidator( AnalyticQueryMeta.typeGroupCode.length ), 50 ) );
     fieldValidators.put( "valueField", new PrimitiveIntArrayLoadSaveValidator( new IntLoadSaveValidator(), 50 ) );
+    fieldValidators.put( "framePreceding", new PrimitiveIntArrayLoadSaveValidator( new IntLoadSaveValidator(), 50 ) );
+    fieldValidators.put( "frameFollowing", new PrimitiveIntArrayLoadSaveValidator( new IntLoadSaveValidator(), 50 ) );
 
     LoadSaveTester loadSaveTester =
       new LoadSaveTester( AnalyticQueryMeta.class, attributes, getterMap, setterMap, fieldValidators, typeValidators );
@@ -87,6 +89,8 @@ public class AnalyticQueryMetaTest {
     Assert.assertEquals( targetSz, analyticQuery.getAggregateField().length );
     Assert.assertEquals( targetSz, analyticQuery.getAggregateType().length );
     Assert.assertEquals( targetSz, analyticQuery.getValueField().length );
+    Assert.assertEquals( targetSz, analyticQuery.getFramePreceding().length );
+    Assert.assertEquals( targetSz, analyticQuery.getFrameFollowing().length );
 
   }
 }
@@ -0,0 +1,198 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.analyticquery;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+
+public class AnalyticQueryTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final int NR_ROWS = 500;
+
+  private static final int[] TYPES = { AnalyticQueryMeta.TYPE_FUNCT_LAG, AnalyticQueryMeta.TYPE_FUNCT_LEAD,
+    AnalyticQueryMeta.TYPE_FUNCT_ROW_NUMBER, AnalyticQueryMeta.TYPE_FUNCT_SUM, AnalyticQueryMeta.TYPE_FUNCT_AVERAGE,
+    AnalyticQueryMeta.TYPE_FUNCT_COUNT, AnalyticQueryMeta.TYPE_FUNCT_MIN, AnalyticQueryMeta.TYPE_FUNCT_MAX,
+    AnalyticQueryMeta.TYPE_FUNCT_SUM, AnalyticQueryMeta.TYPE_FUNCT_MIN };
+  private static final int[] OFFSETS = { 1, 2, 0, 0, 0, 0, 0, 0, 0, 0 };
+  private static final int[] PRECEDING = { 0, 0, 0, -1, 2, 1, 2, -1, 3, 0 };
+  private static final int[] FOLLOWING = { 0, 0, 0, 0, 0, 1, 1, -1, -1, -1 };
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  @Test
+  public void testBoundedFrames() throws Exception {
+    int nrFields = 8; // without the frames ending with UNBOUNDED FOLLOWING
+    assertEquals( getExpectedRows( nrFields ), runStep( nrFields, 100000 ) );
+  }
+
+  @Test
+  public void testUnboundedFollowingFramesInMemory() throws Exception {
+    assertEquals( getExpectedRows( TYPES.length ), runStep( TYPES.length, 100000 ) );
+  }
+
+  @Test
+  public void testUnboundedFollowingFramesSpilled() throws Exception {
+    assertEquals( getExpectedRows( TYPES.length ), runStep( TYPES.length, 3 ) );
+  }
+
+  /**
+   * Groups of 15 rows getting smaller down to single rows, with every 7th value null.
+   */
+  private static List<Object[]> getInputRows() {
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 0; i < NR_ROWS; i++ ) {
+      rows.add( new Object[] { i * i / 200, i % 7 == 0 ? null : ( i * 37 ) % 23 - 11 } );
+    }
+    return rows;
+  }
+
+  /**
+   * Computes every function over the whole frame of every row.
+   */
+  private List<String> getExpectedRows( int nrFields ) {
+    List<Object[]> rows = getInputRows();
+    List<String> expected = new ArrayList<>();
+    for ( int start = 0, end; start < rows.size(); start = end ) {
+      end = start;
+      while ( end < rows.size() && rows.get( end )[0].equals( rows.get( start )[0] ) ) {
+        end++;
+      }
+      for ( int i = start; i < end; i++ ) {
+        Object[] row = Arrays.copyOf( rows.get( i ), 2 + nrFields );
+        for ( int j = 0; j < nrFields; j++ ) {
+          switch ( TYPES[j] ) {
+            case AnalyticQueryMeta.TYPE_FUNCT_LAG:
+              row[2 + j] = i - OFFSETS[j] >= start ? rows.get( i - OFFSETS[j] )[1] : null;
+              break;
+            case AnalyticQueryMeta.TYPE_FUNCT_LEAD:
+              row[2 + j] = i + OFFSETS[j] < end ? rows.get( i + OFFSETS[j] )[1] : null;
+              break;
+            case AnalyticQueryMeta.TYPE_FUNCT_ROW_NUMBER:
+              row[2 + j] = (long) ( i - start + 1 );
+              break;
+            default:
+              int from = PRECEDING[j] < 0 ? start : Math.max( start, i - PRECEDING[j] );
+              int to = FOLLOWING[j] < 0 ? end - 1 : Math.min( end - 1, i + FOLLOWING[j] );
+              row[2 + j] = aggregate( TYPES[j], rows.subList( from, to + 1 ) );
+              break;
+          }
+        }
+        expected.add( Arrays.toString( row ) );
+      }
+    }
+    return expected;
+  }
+
+  private static Object aggregate( int type, List<Object[]> frame ) {
+    long count = 0;
+    long sum = 0;
+    Long min = null;
+    Long max = null;
+    for ( Object[] row : frame ) {
+      Long value = (Long) row[1];
+      if ( value != null ) {
+        count++;
+        sum += value;
+        min = min == null || value < min ? value : min;
+        max = max == null || value > max ? value : max;
+      }
+    }
+    switch ( type ) {
+      case AnalyticQueryMeta.TYPE_FUNCT_SUM:
+        return count == 0 ? null : (Object) sum;
+      case AnalyticQueryMeta.TYPE_FUNCT_AVERAGE:
+        return count == 0 ? null : (Object) ( (double) sum / count );
+      case AnalyticQueryMeta.TYPE_FUNCT_COUNT:
+        return count;
+      case AnalyticQueryMeta.TYPE_FUNCT_MIN:
+        return min;
+      default:
+        return max;
+    }
+  }
+
+  private List<String> runStep( int nrFields, int maxPartitionRows ) throws Exception {
+    RowMetaInterface inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "group" ) );
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+
+    AnalyticQueryMeta meta = new AnalyticQueryMeta();
+    meta.allocate( 1, nrFields );
+    meta.getGroupField()[0] = "group";
+    for ( int j = 0; j < nrFields; j++ ) {
+      meta.getAggregateField()[j] = "field" + j;
+      meta.getSubjectField()[j] = "value";
+      meta.getAggregateType()[j] = TYPES[j];
+      meta.getValueField()[j] = OFFSETS[j];
+      meta.getFramePreceding()[j] = PRECEDING[j];
+      meta.getFrameFollowing()[j] = FOLLOWING[j];
+    }
+
+    AnalyticQueryData data = new AnalyticQueryData();
+    data.maxPartitionRows = maxPartitionRows;
+
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( "Analytic query", meta );
+    when( transMeta.findStep( "Analytic query" ) ).thenReturn( stepMeta );
+
+    AnalyticQuery step = spy( new AnalyticQuery( stepMeta, data, 0, transMeta, mock( Trans.class ) ) );
+    step.initializeVariablesFrom( null ); // the large groups are written to %%java.io.tmpdir%%
+    final Iterator<Object[]> input = getInputRows().iterator();
+    doAnswer( invocation -> input.hasNext() ? input.next() : null ).when( step ).getRow();
+    doReturn( inputRowMeta ).when( step ).getInputRowMeta();
+    final List<String> output = new ArrayList<>();
+    doAnswer( invocation -> {
+      RowMetaInterface rowMeta = invocation.getArgument( 0 );
+      Object[] row = invocation.getArgument( 1 );
+      output.add( Arrays.toString( Arrays.copyOf( row, rowMeta.size() ) ) );
+      return null;
+    } ).when( step ).putRow( any(), any() );
+    doNothing().when( step ).setOutputDone();
+
+    while ( step.processRow( meta, data ) ) {
+      // Keep going
+    }
+    step.dispose( meta, data );
+
+    return output;
+  }
+}
@@ -84,6 +84,11 @@ public class CombinationLookupMetaInjectionTest extends BaseMetadataInjectionTes
         return meta.getPreloadCache();
       }
     } );
+    check( "SHARED_CACHE_NAME", new StringGetter() {
+      public String get() {
+        return meta.getSharedCacheName();
+      }
+    } );
     check( "CACHE_SIZE", new IntGetter() {
       public int get() {
         return meta.getCacheSize();
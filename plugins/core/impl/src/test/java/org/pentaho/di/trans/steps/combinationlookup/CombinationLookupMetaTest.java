@@ -53,7 +53,7 @@ public class CombinationLookupMetaTest implements InitializerInterface<StepMetaI
     List<String> attributes =
       Arrays.asList( "schemaName", "tableName", "databaseMeta", "replaceFields", "keyField", "keyLookup",
         "useHash", "hashField", "technicalKeyField", "sequenceFrom", "commitSize", "preloadCache", "cacheSize",
-        "useAutoinc", "techKeyCreation", "lastUpdateField" );
+        "sharedCacheName", "useAutoinc", "techKeyCreation", "lastUpdateField" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
@@ -13,12 +13,19 @@
 
 package org.pentaho.di.trans.steps.combinationlookup;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.cache.LookupCacheRegistry;
+import org.pentaho.di.core.cache.SharedLookupCache;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.junit.rules.RestorePDIEnvironment;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -26,19 +33,28 @@ import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepPartitioningMeta;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class CombinationLookupTest {
   @ClassRule public static RestorePDIEnvironment env = new RestorePDIEnvironment();
+  private static final String SHARED_CACHE = "combination-lookup-test";
+
   private DatabaseMeta databaseMeta;
 
   private StepMeta stepMeta;
@@ -84,4 +100,144 @@ public class CombinationLookupTest {
     combinationLookup.combiInsert( any( RowMetaInterface.class ), any( Object[].class ), anyLong(), anyLong() );
     verify( databaseMeta, times( 2 ) ).supportsAutoGeneratedKeys();
   }
+
+  @After
+  public void tearDown() {
+    LookupCacheRegistry.getInstance().invalidate( SHARED_CACHE );
+  }
+
+  @Test
+  public void testInsertedKeysAreSharedOnceCommitted() throws Exception {
+    Database db = mockDatabase();
+    CombinationLookup step = createSharedCacheStep( db );
+    CombinationLookupMeta meta = (CombinationLookupMeta) step.getStepMeta().getStepMetaInterface();
+    CombinationLookupData data = (CombinationLookupData) step.getStepDataInterface();
+
+    doReturn( 1L, 2L ).when( db ).getNextValue( any(), any(), any(), any() );
+    doReturn( new Object[] { "a" } ).when( step ).getRow();
+    assertTrue( step.processRow( meta, data ) );
+    SharedLookupCache cache = LookupCacheRegistry.getInstance().getCache( SHARED_CACHE );
+    assertNull( cache.get( key( "a" ) ) );
+
+    // The step itself finds its uncommitted key without going to the database
+    //
+    assertTrue( step.processRow( meta, data ) );
+    verify( db, times( 1 ) ).getLookup( any( PreparedStatement.class ) );
+
+    doReturn( 1 ).when( db ).getNrExecutedCommits();
+    doReturn( new Object[] { "b" } ).when( step ).getRow();
+    assertTrue( step.processRow( meta, data ) );
+    assertEquals( 1L, cache.get( key( "a" ) ) );
+    assertEquals( 2L, cache.get( key( "b" ) ) );
+
+    step.dispose( meta, data );
+  }
+
+  @Test
+  public void testInsertedKeysAreSharedOnCommitAtTheEnd() throws Exception {
+    Database db = mockDatabase();
+    CombinationLookup step = createSharedCacheStep( db );
+    CombinationLookupMeta meta = (CombinationLookupMeta) step.getStepMeta().getStepMetaInterface();
+    CombinationLookupData data = (CombinationLookupData) step.getStepDataInterface();
+
+    doReturn( 1L ).when( db ).getNextValue( any(), any(), any(), any() );
+    doReturn( new Object[] { "a" } ).when( step ).getRow();
+    assertTrue( step.processRow( meta, data ) );
+    SharedLookupCache cache = LookupCacheRegistry.getInstance().getCache( SHARED_CACHE );
+
+    step.dispose( meta, data );
+    verify( db ).commit();
+    assertEquals( 1L, cache.get( key( "a" ) ) );
+  }
+
+  @Test
+  public void testRolledBackKeysAreNotShared() throws Exception {
+    Database db = mockDatabase();
+    CombinationLookup step = createSharedCacheStep( db );
+    CombinationLookupMeta meta = (CombinationLookupMeta) step.getStepMeta().getStepMetaInterface();
+    CombinationLookupData data = (CombinationLookupData) step.getStepDataInterface();
+
+    doReturn( 1L ).when( db ).getNextValue( any(), any(), any(), any() );
+    doReturn( new Object[] { "a" } ).when( step ).getRow();
+    assertTrue( step.processRow( meta, data ) );
+    SharedLookupCache cache = LookupCacheRegistry.getInstance().getCache( SHARED_CACHE );
+
+    step.setErrors( 1 );
+    step.dispose( meta, data );
+    verify( db ).rollback();
+    verify( db, never() ).commit();
+    assertNull( cache.get( key( "a" ) ) );
+  }
+
+  @Test
+  public void testKeysFoundInTheDatabaseAreSharedRightAway() throws Exception {
+    Database db = mockDatabase();
+    CombinationLookup step = createSharedCacheStep( db );
+    CombinationLookupMeta meta = (CombinationLookupMeta) step.getStepMeta().getStepMetaInterface();
+    CombinationLookupData data = (CombinationLookupData) step.getStepDataInterface();
+
+    RowMetaInterface returnRowMeta = new RowMeta();
+    returnRowMeta.addValueMeta( new ValueMetaInteger( "tk" ) );
+    doReturn( returnRowMeta ).when( db ).getReturnRowMeta();
+    doReturn( new Object[] { 5L } ).when( db ).getLookup( any( PreparedStatement.class ) );
+    doReturn( new Object[] { "a" } ).when( step ).getRow();
+    assertTrue( step.processRow( meta, data ) );
+
+    assertEquals( 5L, LookupCacheRegistry.getInstance().getCache( SHARED_CACHE ).get( key( "a" ) ) );
+    step.dispose( meta, data );
+  }
+
+  private Database mockDatabase() throws Exception {
+    Connection connection = mock( Connection.class );
+    doReturn( mock( PreparedStatement.class ) ).when( connection ).prepareStatement( anyString() );
+    doReturn( mock( PreparedStatement.class ) ).when( connection ).prepareStatement( anyString(), anyInt() );
+    Database db = mock( Database.class );
+    doReturn( connection ).when( db ).getConnection();
+    doReturn( false ).when( db ).isAutoCommit();
+    doReturn( 0 ).when( db ).getNrExecutedCommits();
+    return db;
+  }
+
+  private CombinationLookup createSharedCacheStep( Database db ) throws Exception {
+    DatabaseMeta dbMeta = mock( DatabaseMeta.class );
+    doReturn( "" ).when( dbMeta ).quoteField( anyString() );
+    doReturn( "dim" ).when( dbMeta ).getQuotedSchemaTableCombination( any(), any() );
+    doReturn( "" ).when( dbMeta ).stripCR( anyString() );
+
+    CombinationLookupMeta meta = mock( CombinationLookupMeta.class );
+    doReturn( dbMeta ).when( meta ).getDatabaseMeta();
+    doReturn( "tk" ).when( meta ).getTechnicalKeyField();
+    doReturn( new String[] { "key" } ).when( meta ).getKeyField();
+    doReturn( new String[] { "key" } ).when( meta ).getKeyLookup();
+    doReturn( 0 ).when( meta ).getCacheSize();
+    doReturn( SHARED_CACHE ).when( meta ).getSharedCacheName();
+    doAnswer( invocation -> {
+      ( (RowMetaInterface) invocation.getArgument( 0 ) ).addValueMeta( new ValueMetaInteger( "tk" ) );
+      return null;
+    } ).when( meta ).getFields( any( RowMetaInterface.class ), any(), any(), any(), any(), any(), any() );
+
+    StepMeta sharedStepMeta = mock( StepMeta.class );
+    doReturn( "step" ).when( sharedStepMeta ).getName();
+    doReturn( mock( StepPartitioningMeta.class ) ).when( sharedStepMeta ).getTargetStepPartitioningMeta();
+    doReturn( meta ).when( sharedStepMeta ).getStepMetaInterface();
+
+    CombinationLookupData data = new CombinationLookupData();
+    data.db = db;
+
+    TransMeta transMeta = mock( TransMeta.class );
+    doReturn( sharedStepMeta ).when( transMeta ).findStep( anyString() );
+
+    CombinationLookup step = spy( new CombinationLookup( sharedStepMeta, data, 0, transMeta, mock( Trans.class ) ) );
+    RowMetaInterface inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    doReturn( inputRowMeta ).when( step ).getInputRowMeta();
+    doNothing().when( step ).putRow( any(), any() );
+    return step;
+  }
+
+  private static RowMetaAndData key( String value ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    return new RowMetaAndData( rowMeta, value );
+  }
 }
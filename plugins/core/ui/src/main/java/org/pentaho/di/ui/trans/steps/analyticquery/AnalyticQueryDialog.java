@@ -62,6 +62,8 @@ public class AnalyticQueryDialog extends BaseStepDialog implements StepDialogInt
   private static Class<?> PKG = AnalyticQueryDialog.class; // for i18n purposes, needed by Translator2!!
 
   public static final String STRING_SORT_WARNING_PARAMETER = "AnalyticQuerySortWarning";
+  private static final String FRAME_UNBOUNDED = "UNBOUNDED";
+
   private Label wlGroup;
   private TableView wGroup;
   private FormData fdlGroup, fdGroup;
@@ -175,7 +177,7 @@ public class AnalyticQueryDialog extends BaseStepDialog implements StepDialogInt
     fdlAgg.top = new FormAttachment( wGroup, margin );
     wlAgg.setLayoutData( fdlAgg );
 
-    int UpInsCols = 4;
+    int UpInsCols = 6;
     int UpInsRows = ( input.getAggregateField() != null ? input.getAggregateField().length : 1 );
 
     ciReturn = new ColumnInfo[UpInsCols];
@@ -196,6 +198,16 @@ public class AnalyticQueryDialog extends BaseStepDialog implements StepDialogInt
         BaseMessages.getString( PKG, "AnalyticQueryDialog.ColumnInfo.Value" ), ColumnInfo.COLUMN_TYPE_TEXT,
         false );
     ciReturn[3].setToolTip( BaseMessages.getString( PKG, "AnalyticQueryDialog.ColumnInfo.Value.Tooltip" ) );
+    ciReturn[4] =
+      new ColumnInfo(
+        BaseMessages.getString( PKG, "AnalyticQueryDialog.ColumnInfo.FramePreceding" ),
+        ColumnInfo.COLUMN_TYPE_TEXT, false );
+    ciReturn[4].setToolTip( BaseMessages.getString( PKG, "AnalyticQueryDialog.ColumnInfo.FramePreceding.Tooltip" ) );
+    ciReturn[5] =
+      new ColumnInfo(
+        BaseMessages.getString( PKG, "AnalyticQueryDialog.ColumnInfo.FrameFollowing" ),
+        ColumnInfo.COLUMN_TYPE_TEXT, false );
+    ciReturn[5].setToolTip( BaseMessages.getString( PKG, "AnalyticQueryDialog.ColumnInfo.FrameFollowing.Tooltip" ) );
 
     wAgg =
       new TableView(
@@ -354,6 +366,8 @@ public class AnalyticQueryDialog extends BaseStepDialog implements StepDialogInt
         if ( valuetext != null ) {
           item.setText( 4, valuetext );
         }
+        item.setText( 5, getFrameText( input.getFramePreceding()[i] ) );
+        item.setText( 6, getFrameText( input.getFrameFollowing()[i] ) );
       }
     }
 
@@ -366,6 +380,23 @@ public class AnalyticQueryDialog extends BaseStepDialog implements StepDialogInt
     wStepname.setFocus();
   }
 
+  private static String getFrameText( int rows ) {
+    return rows < 0 ? FRAME_UNBOUNDED : Integer.toString( rows );
+  }
+
+  /**
+   * @return the number of rows of a frame bound, -1 for UNBOUNDED or the default if the text is empty
+   */
+  private static int getFrameValue( String text, int defaultRows ) {
+    if ( Utils.isEmpty( text ) ) {
+      return defaultRows;
+    }
+    if ( FRAME_UNBOUNDED.equalsIgnoreCase( text.trim() ) ) {
+      return AnalyticQueryMeta.FRAME_UNBOUNDED;
+    }
+    return Math.max( AnalyticQueryMeta.FRAME_UNBOUNDED, Const.toInt( text.trim(), defaultRows ) );
+  }
+
   private void cancel() {
     stepname = null;
     input.setChanged( backupChanged );
@@ -395,6 +426,8 @@ public class AnalyticQueryDialog extends BaseStepDialog implements StepDialogInt
       input.getSubjectField()[i] = item.getText( 2 );
       input.getAggregateType()[i] = AnalyticQueryMeta.getType( item.getText( 3 ) );
       input.getValueField()[i] = Const.toInt( item.getText( 4 ), 1 );
+      input.getFramePreceding()[i] = getFrameValue( item.getText( 5 ), AnalyticQueryMeta.FRAME_UNBOUNDED );
+      input.getFrameFollowing()[i] = getFrameValue( item.getText( 6 ), 0 );
     }
 
     stepname = wStepname.getText();
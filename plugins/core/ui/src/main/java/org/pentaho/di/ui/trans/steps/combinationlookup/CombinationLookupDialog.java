@@ -95,6 +95,9 @@ public class CombinationLookupDialog extends BaseStepDialog implements StepDialo
   private Label wlPreloadCache;
   private Button wPreloadCache;
 
+  private Label wlSharedCache;
+  private TextVar wSharedCache;
+
   private Label wlTk;
   private Text wTk;
 
@@ -331,6 +334,25 @@ public class CombinationLookupDialog extends BaseStepDialog implements StepDialo
     fdPreloadCache.right = new FormAttachment( 100, 0 );
     wPreloadCache.setLayoutData( fdPreloadCache );
 
+    // Shared cache name
+    wlSharedCache = new Label( shell, SWT.RIGHT );
+    wlSharedCache.setText( BaseMessages.getString( PKG, "CombinationLookupDialog.SharedCache.Label" ) );
+    props.setLook( wlSharedCache );
+    FormData fdlSharedCache = new FormData();
+    fdlSharedCache.left = new FormAttachment( 0, 0 );
+    fdlSharedCache.right = new FormAttachment( middle, -margin );
+    fdlSharedCache.top = new FormAttachment( wlPreloadCache, margin );
+    wlSharedCache.setLayoutData( fdlSharedCache );
+    wSharedCache = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wSharedCache.setToolTipText( BaseMessages.getString( PKG, "CombinationLookupDialog.SharedCache.ToolTip" ) );
+    props.setLook( wSharedCache );
+    wSharedCache.addModifyListener( lsMod );
+    FormData fdSharedCache = new FormData();
+    fdSharedCache.top = new FormAttachment( wlPreloadCache, margin );
+    fdSharedCache.left = new FormAttachment( middle, 0 );
+    fdSharedCache.right = new FormAttachment( 100, 0 );
+    wSharedCache.setLayoutData( fdSharedCache );
+
     //
     // The Lookup fields: usually the (business) key
     //
@@ -339,7 +361,7 @@ public class CombinationLookupDialog extends BaseStepDialog implements StepDialo
     props.setLook( wlKey );
     FormData fdlKey = new FormData();
     fdlKey.left = new FormAttachment( 0, 0 );
-    fdlKey.top = new FormAttachment( wlPreloadCache, margin );
+    fdlKey.top = new FormAttachment( wSharedCache, margin );
     fdlKey.right = new FormAttachment( 100, 0 );
     wlKey.setLayoutData( fdlKey );
 
@@ -780,6 +802,7 @@ public class CombinationLookupDialog extends BaseStepDialog implements StepDialo
     }
 
     wPreloadCache.setSelection( input.getPreloadCache() );
+    wSharedCache.setText( Const.NVL( input.getSharedCacheName(), "" ) );
     wReplace.setSelection( input.replaceFields() );
     wHashcode.setSelection( input.useHash() );
     wHashfield.setEnabled( input.useHash() );
@@ -899,6 +922,7 @@ public class CombinationLookupDialog extends BaseStepDialog implements StepDialo
     }
 
     in.setPreloadCache( wPreloadCache.getSelection() );
+    in.setSharedCacheName( wSharedCache.getText() );
     in.setUseAutoinc( wAutoinc.getSelection() && wAutoinc.isEnabled() );
     in.setReplaceFields( wReplace.getSelection() );
     in.setUseHash( wHashcode.getSelection() );
@@ -13,18 +13,14 @@
 
 package org.pentaho.di.trans.steps.gpbulkloader;
 
-import java.io.BufferedWriter;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import org.pentaho.di.core.Const;
-import org.pentaho.di.core.util.Utils;
+import org.pentaho.di.core.util.StreamingLoader;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -32,16 +28,17 @@ import org.pentaho.di.core.variables.VariableSpace;
 
 /**
  * Does the opening of the output "stream". It's either a file or inter process communication which is transparant to
- * users of this class.
+ * users of this class. The rows are encoded into the pooled buffers of a {@link StreamingLoader}, written to the file
+ * or to the standard input of psql by a thread of its own.
  *
  * Copied from Sven Boden's Oracle version
  *
  * @author Luke Lonergan
  * @since 28-mar-2008
  */
-public class GPBulkDataOutput {
+public class GPBulkDataOutput extends StreamingLoader {
   private GPBulkLoaderMeta meta;
-  private PrintWriter output = null;
+  private StringBuilder outbuf = null;
   private boolean first = true;
   private int[] fieldNumbers = null;
   private String enclosure = null;
@@ -49,53 +46,28 @@ public class GPBulkDataOutput {
   private SimpleDateFormat sdfDateTime = null;
 
   public GPBulkDataOutput( GPBulkLoaderMeta meta ) {
+    super( meta.getEncoding() );
     this.meta = meta;
   }
 
-  public void open( VariableSpace space, Process sqlldrProcess ) throws KettleException {
-    // String loadMethod = meta.getLoadMethod();
+  public void open( VariableSpace space, Process psqlProcess ) throws KettleException {
+    String loadMethod = meta.getLoadMethod();
     try {
-      OutputStream os = null;
-
-      // if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals(loadMethod))
-      // {
-      // String dataFile = meta.getControlFile();
-      // dataFile = StringUtil.environmentSubstitute(dataFile);
-
-      // os = new FileOutputStream(dataFile, true);
-      // }
-      // else
-      // {
-      // Else open the data file filled in.
-      String dataFile = meta.getDataFile();
-      dataFile = space.environmentSubstitute( dataFile );
-
-      os = new FileOutputStream( dataFile, false );
-      // }
-
-      String encoding = meta.getEncoding();
-      if ( Utils.isEmpty( encoding ) ) {
-        // Use the default encoding.
-        output = new PrintWriter( new BufferedWriter( new OutputStreamWriter( os ) ) );
+      if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals( loadMethod ) ) {
+        // psql copies its standard input (pstdin) while the next rows are formatted
+        open( psqlProcess.getOutputStream(), "psql feeder" );
       } else {
-        // Use the specified encoding
-        output = new PrintWriter( new BufferedWriter( new OutputStreamWriter( os, encoding ) ) );
+        // Else open the data file filled in.
+        String dataFile = meta.getDataFile();
+        dataFile = space.environmentSubstitute( dataFile );
+
+        open( new FileOutputStream( dataFile, false ), "psql data file writer" );
       }
     } catch ( IOException e ) {
       throw new KettleException( "IO exception occured: " + e.getMessage(), e );
     }
   }
 
-  public void close() throws IOException {
-    if ( output != null ) {
-      output.close();
-    }
-  }
-
-  PrintWriter getOutput() {
-    return output;
-  }
-
   private String createEscapedString( String orig, String enclosure ) {
     StringBuffer buf = new StringBuffer( orig );
 
@@ -104,6 +76,16 @@ public class GPBulkDataOutput {
   }
 
   public void writeLine( RowMetaInterface mi, Object[] row ) throws KettleException {
+    try {
+      writeRow( mi, row );
+    } catch ( IOException e ) {
+      throw new KettleException( "IO exception occured: " + e.getMessage(), e );
+    }
+  }
+
+  @Override
+  @SuppressWarnings( "ArrayToString" )
+  protected void formatRow( RowMetaInterface mi, Object[] row ) throws KettleException, IOException {
     if ( first ) {
       first = false;
 
@@ -121,21 +103,24 @@ public class GPBulkDataOutput {
 
       sdfDate = new SimpleDateFormat( "yyyy-MM-dd" );
       sdfDateTime = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss.SSS" );
+
+      outbuf = new StringBuilder();
     }
+    outbuf.setLength( 0 );
 
     // Write the data to the output
     ValueMetaInterface v = null;
     int number = 0;
     for ( int i = 0; i < fieldNumbers.length; i++ ) {
       if ( i != 0 ) {
-        output.print( "," );
+        outbuf.append( "," );
       }
       number = fieldNumbers[i];
       v = mi.getValueMeta( number );
       if ( row[number] == null ) {
         // TODO (SB): special check for null in case of Strings.
-        output.print( enclosure );
-        output.print( enclosure );
+        outbuf.append( enclosure );
+        outbuf.append( enclosure );
       } else {
         switch ( v.getType() ) {
           case ValueMetaInterface.TYPE_STRING:
@@ -143,61 +128,62 @@ public class GPBulkDataOutput {
             if ( s.indexOf( enclosure ) >= 0 ) {
               s = createEscapedString( s, enclosure );
             }
-            output.print( enclosure );
-            output.print( s );
-            output.print( enclosure );
+            outbuf.append( enclosure );
+            outbuf.append( s );
+            outbuf.append( enclosure );
             break;
           case ValueMetaInterface.TYPE_INTEGER:
             Long l = mi.getInteger( row, number );
-            output.print( enclosure );
-            output.print( l );
-            output.print( enclosure );
+            outbuf.append( enclosure );
+            outbuf.append( l );
+            outbuf.append( enclosure );
             break;
           case ValueMetaInterface.TYPE_NUMBER:
             Double d = mi.getNumber( row, number );
-            output.print( enclosure );
-            output.print( d );
-            output.print( enclosure );
+            outbuf.append( enclosure );
+            outbuf.append( d );
+            outbuf.append( enclosure );
             break;
           case ValueMetaInterface.TYPE_BIGNUMBER:
             BigDecimal bd = mi.getBigNumber( row, number );
-            output.print( enclosure );
-            output.print( bd );
-            output.print( enclosure );
+            outbuf.append( enclosure );
+            outbuf.append( bd );
+            outbuf.append( enclosure );
             break;
           case ValueMetaInterface.TYPE_DATE:
             Date dt = mi.getDate( row, number );
-            output.print( enclosure );
+            outbuf.append( enclosure );
             String mask = meta.getDateMask()[i];
             if ( GPBulkLoaderMeta.DATE_MASK_DATETIME.equals( mask ) ) {
-              output.print( sdfDateTime.format( dt ) );
+              outbuf.append( sdfDateTime.format( dt ) );
             } else {
               // Default is date format
-              output.print( sdfDate.format( dt ) );
+              outbuf.append( sdfDate.format( dt ) );
             }
-            output.print( enclosure );
+            outbuf.append( enclosure );
             break;
           case ValueMetaInterface.TYPE_BOOLEAN:
             Boolean b = mi.getBoolean( row, number );
-            output.print( enclosure );
+            outbuf.append( enclosure );
             if ( b.booleanValue() ) {
-              output.print( "Y" );
+              outbuf.append( "Y" );
             } else {
-              output.print( "N" );
+              outbuf.append( "N" );
             }
-            output.print( enclosure );
+            outbuf.append( enclosure );
             break;
           case ValueMetaInterface.TYPE_BINARY:
             byte[] byt = mi.getBinary( row, number );
-            output.print( "<startlob>" );
-            output.print( byt );
-            output.print( "<endlob>" );
+            outbuf.append( "<startlob>" );
+            outbuf.append( byt );
+            outbuf.append( "<endlob>" );
             break;
           default:
             throw new KettleException( "Unsupported type" );
         }
       }
     }
-    output.print( Const.CR );
+    outbuf.append( Const.CR );
+    write( outbuf );
   }
 }
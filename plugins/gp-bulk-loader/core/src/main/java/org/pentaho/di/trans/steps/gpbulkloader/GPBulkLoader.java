@@ -64,7 +64,7 @@ public class GPBulkLoader extends BaseStep implements StepInterface {
 
   private GPBulkLoaderMeta meta;
   protected GPBulkLoaderData data;
-  private GPBulkDataOutput output = null;
+  private volatile GPBulkDataOutput output = null;
   private String enclosure;
 
   /*
@@ -127,12 +127,10 @@ public class GPBulkLoader extends BaseStep implements StepInterface {
     DatabaseMeta dm = meta.getDatabaseMeta();
     String inputName = "'" + environmentSubstitute( meta.getDataFile() ) + "'";
 
-    // if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals(meta.getLoadMethod()) )
-    // {
-    // // if loading is concurrent, the filename has to be a * as sqlldr will
-    // // read from stdin.
-    // inputName = "*";
-    // }
+    if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals( meta.getLoadMethod() ) ) {
+      // if loading is concurrent, psql copies the rows written to its standard input
+      inputName = "pstdin";
+    }
 
     String loadAction = meta.getLoadAction();
 
@@ -449,26 +447,20 @@ public class GPBulkLoader extends BaseStep implements StepInterface {
           String loadMethod = meta.getLoadMethod();
           if ( GPBulkLoaderMeta.METHOD_AUTO_END.equals( loadMethod ) ) {
             execute( meta, true );
+            psqlProcess = null;
+          } else if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals( loadMethod ) && !first ) {
+            try {
+              if ( psqlProcess != null ) {
+                int exitVal = psqlProcess.waitFor();
+                psqlProcess = null;
+                logBasic( BaseMessages.getString( PKG, "GPBulkLoader.Log.ExitValuePsqlPath", "" + exitVal ) );
+              } else {
+                throw new KettleException( "Internal error: no psql process running" );
+              }
+            } catch ( InterruptedException ex ) {
+              throw new KettleException( "Error while executing psql", ex );
+            }
           }
-          // else if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals(meta.getLoadMethod()) )
-          // {
-          // try
-          // {
-          // if ( psqlProcess != null )
-          // {
-          // int exitVal = psqlProcess.waitFor();
-          // logBasic(BaseMessages.getString(PKG, "GPBulkLoader.Log.ExitValueSqlldr", "" + exitVal));
-          // }
-          // else
-          // {
-          // throw new KettleException("Internal error: no sqlldr process running");
-          // }
-          // }
-          // catch ( Exception ex )
-          // {
-          // throw new KettleException("Error while executing sqlldr", ex);
-          // }
-          // }
         }
         return false;
       }
@@ -479,10 +471,9 @@ public class GPBulkLoader extends BaseStep implements StepInterface {
           createControlFile( environmentSubstitute( meta.getControlFile() ), r, meta );
           output = new GPBulkDataOutput( meta );
 
-          // if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals(meta.getLoadMethod()) )
-          // {
-          // execute(meta, false);
-          // }
+          if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals( meta.getLoadMethod() ) ) {
+            execute( meta, false );
+          }
           output.open( this, psqlProcess );
         }
         output.writeLine( getInputRowMeta(), r );
@@ -492,6 +483,7 @@ public class GPBulkLoader extends BaseStep implements StepInterface {
 
     } catch ( KettleException e ) {
       logError( BaseMessages.getString( PKG, "GPBulkLoader.Log.ErrorInStep" ) + e.getMessage() );
+      abortOutput();
       setErrors( 1 );
       stopAll();
       setOutputDone(); // signal end to receiver(s)
@@ -501,6 +493,23 @@ public class GPBulkLoader extends BaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * Closes the data file or the input of psql without waiting for the rows not written yet.
+   */
+  private void abortOutput() {
+    GPBulkDataOutput dataOutput = output;
+    if ( dataOutput != null ) {
+      dataOutput.abort();
+    }
+  }
+
+  @Override
+  public void stopRunning( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
+    // Don't let the step wait for a psql that doesn't read anymore
+    abortOutput();
+    super.stopRunning( smi, sdi );
+  }
+
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (GPBulkLoaderMeta) smi;
     data = (GPBulkLoaderData) sdi;
@@ -520,6 +529,20 @@ public class GPBulkLoader extends BaseStep implements StepInterface {
 
     super.dispose( smi, sdi );
 
+    // The rows were all written unless the step failed or was stopped
+    abortOutput();
+    output = null;
+    // a running psql ends once its input is closed
+    if ( psqlProcess != null ) {
+      try {
+        int exitVal = psqlProcess.waitFor();
+        psqlProcess = null;
+        logBasic( BaseMessages.getString( PKG, "GPBulkLoader.Log.ExitValuePsqlPath", "" + exitVal ) );
+      } catch ( InterruptedException e ) {
+        psqlProcess.destroy();
+      }
+    }
+
     if ( !preview && meta.isEraseFiles() ) {
       // Erase the created cfg/dat files if requested. We don't erase
       // the rest of the files because it would be "stupid" to erase them
@@ -528,8 +551,8 @@ public class GPBulkLoader extends BaseStep implements StepInterface {
 
       String method = meta.getLoadMethod();
 
-      // GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals(method) ||
-      if ( GPBulkLoaderMeta.METHOD_AUTO_END.equals( method ) ) {
+      if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals( method )
+        || GPBulkLoaderMeta.METHOD_AUTO_END.equals( method ) ) {
 
         if ( meta.getControlFile() != null ) {
           try {
@@ -544,7 +567,7 @@ public class GPBulkLoader extends BaseStep implements StepInterface {
       }
 
       if ( GPBulkLoaderMeta.METHOD_AUTO_END.equals( method ) ) {
-        // In concurrent mode the data is written to the control file.
+        // In concurrent mode the data is written to psql, there is no data file.
         if ( meta.getDataFile() != null ) {
           try {
             fileObject = KettleVFS.getFileObject( environmentSubstitute( meta.getDataFile() ), getTransMeta() );
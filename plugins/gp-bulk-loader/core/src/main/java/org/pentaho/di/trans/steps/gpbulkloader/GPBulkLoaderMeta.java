@@ -123,7 +123,7 @@ public class GPBulkLoaderMeta extends BaseStepMeta implements StepMetaInterface,
   /*
    * Do not translate following values!!! They are will end up in the job export.
    */
-  // final static public String METHOD_AUTO_CONCURRENT = "AUTO_CONCURRENT";
+  public static final String METHOD_AUTO_CONCURRENT = "AUTO_CONCURRENT";
   public static final String METHOD_AUTO_END = "AUTO_END";
   public static final String METHOD_MANUAL = "MANUAL";
 
@@ -311,10 +311,10 @@ public class GPBulkLoaderDialog extends BaseStepDialog implements StepDialogInte
     fdlLoadMethod.top = new FormAttachment( wPsqlPath, margin );
     wlLoadMethod.setLayoutData( fdlLoadMethod );
     wLoadMethod = new CCombo( shell, SWT.SINGLE | SWT.READ_ONLY | SWT.BORDER );
-    // wLoadMethod.add(BaseMessages.getString(PKG, "GPBulkLoaderDialog.AutoConcLoadMethod.Label"));
+    wLoadMethod.add( BaseMessages.getString( PKG, "GPBulkLoaderDialog.AutoConcLoadMethod.Label" ) );
     wLoadMethod.add( BaseMessages.getString( PKG, "GPBulkLoaderDialog.AutoEndLoadMethod.Label" ) );
     wLoadMethod.add( BaseMessages.getString( PKG, "GPBulkLoaderDialog.ManualLoadMethod.Label" ) );
-    wLoadMethod.select( 0 ); // +1: starts at -1
+    wLoadMethod.select( 1 ); // +1: starts at -1
     wLoadMethod.addModifyListener( lsMod );
 
     props.setLook( wLoadMethod );
@@ -988,19 +988,17 @@ public class GPBulkLoaderDialog extends BaseStepDialog implements StepDialogInte
     wEraseFiles.setSelection( input.isEraseFiles() );
 
     String method = input.getLoadMethod();
-    // if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals(method) )
-    // {
-    // wLoadMethod.select(0);
-    // }
-    if ( GPBulkLoaderMeta.METHOD_AUTO_END.equals( method ) ) {
+    if ( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals( method ) ) {
       wLoadMethod.select( 0 );
-    } else if ( GPBulkLoaderMeta.METHOD_MANUAL.equals( method ) ) {
+    } else if ( GPBulkLoaderMeta.METHOD_AUTO_END.equals( method ) ) {
       wLoadMethod.select( 1 );
+    } else if ( GPBulkLoaderMeta.METHOD_MANUAL.equals( method ) ) {
+      wLoadMethod.select( 2 );
     } else {
       if ( log.isDebug() ) {
         logDebug( "Internal error: load_method set to default 'auto at end'" );
       }
-      wLoadMethod.select( 0 );
+      wLoadMethod.select( 1 );
     }
 
     String action = input.getLoadAction();
@@ -1069,11 +1067,9 @@ public class GPBulkLoaderDialog extends BaseStepDialog implements StepDialogInte
      * Set the loadmethod
      */
     String method = wLoadMethod.getText();
-    // if ( BaseMessages.getString(PKG, "GPBulkLoaderDialog.AutoConcLoadMethod.Label").equals(method) )
-    // {
-    // inf.setLoadMethod(GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT);
-    // }
-    if ( BaseMessages.getString( PKG, "GPBulkLoaderDialog.AutoEndLoadMethod.Label" ).equals( method ) ) {
+    if ( BaseMessages.getString( PKG, "GPBulkLoaderDialog.AutoConcLoadMethod.Label" ).equals( method ) ) {
+      inf.setLoadMethod( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT );
+    } else if ( BaseMessages.getString( PKG, "GPBulkLoaderDialog.AutoEndLoadMethod.Label" ).equals( method ) ) {
       inf.setLoadMethod( GPBulkLoaderMeta.METHOD_AUTO_END );
     } else if ( BaseMessages.getString( PKG, "GPBulkLoaderDialog.ManualLoadMethod.Label" ).equals( method ) ) {
       inf.setLoadMethod( GPBulkLoaderMeta.METHOD_MANUAL );
@@ -16,10 +16,20 @@ package org.pentaho.di.trans.steps.gpbulkloader;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.Assert;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.trans.steps.mock.StepMockHelper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static org.mockito.Mockito.*;
 
 public class GPBulkLoaderTest {
@@ -68,4 +78,146 @@ public class GPBulkLoaderTest {
     }
 
   }
+
+  @Test
+  public void testConcurrentLoadCopiesFromTheInputOfPsql() throws Exception {
+    loader =
+      new GPBulkLoader( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+
+    DatabaseMeta dbMetaMock = mock( DatabaseMeta.class );
+    doReturn( "" ).when( dbMetaMock ).getQuotedSchemaTableCombination( anyString(), anyString() );
+    doReturn( "" ).when( dbMetaMock ).quoteField( anyString() );
+
+    GPBulkLoaderMeta meta = new GPBulkLoaderMeta();
+    meta.setLoadAction( "" );
+    meta.setLoadMethod( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT );
+    meta.setFieldStream( new String[] { "" } );
+    meta.setFieldTable( new String[] { "" } );
+    meta.setDatabaseMeta( dbMetaMock );
+    meta.setDataFile( "test-data-file" );
+
+    String actual = loader.getControlFileContents( meta, null, null );
+
+    Assert.assertTrue( actual, actual.contains( " FROM pstdin " ) );
+    Assert.assertFalse( actual, actual.contains( "test-data-file" ) );
+  }
+
+  @Test( timeout = 30000 )
+  public void testConcurrentLoadStreamsTheRowsToPsql() throws Exception {
+    ByteArrayOutputStream input = new ByteArrayOutputStream();
+    GPBulkLoaderMeta meta = createConcurrentLoad( input );
+    GPBulkLoaderData data = new GPBulkLoaderData();
+
+    Process psql = loader.psqlProcess;
+
+    Assert.assertTrue( loader.processRow( meta, data ) );
+    doReturn( null ).when( loader ).getRow();
+    Assert.assertFalse( loader.processRow( meta, data ) );
+
+    Assert.assertEquals( 0, loader.getErrors() );
+    Assert.assertEquals( "\"a row of data\"" + Const.CR, input.toString() );
+    // The rows are written before waiting for psql
+    verify( psql ).waitFor();
+  }
+
+  @Test( timeout = 30000 )
+  public void testFailedLoadAbortsTheInputOfPsql() throws Exception {
+    PsqlInput input = new PsqlInput() {
+      @Override
+      public void write( byte[] b, int off, int len ) throws IOException {
+        throw new IOException( "Broken pipe" );
+      }
+    };
+    GPBulkLoaderMeta meta = createConcurrentLoad( input );
+    GPBulkLoaderData data = new GPBulkLoaderData();
+
+    boolean running = true;
+    while ( running ) {
+      running = loader.processRow( meta, data );
+    }
+
+    Assert.assertEquals( 1, loader.getErrors() );
+    Assert.assertTrue( input.closed );
+  }
+
+  @Test( timeout = 30000 )
+  public void testStopWakesUpTheStepWaitingForPsql() throws Exception {
+    PsqlInput input = new PsqlInput();
+    GPBulkLoaderMeta meta = createConcurrentLoad( input );
+    GPBulkLoaderData data = new GPBulkLoaderData();
+
+    Thread stepThread = new Thread( () -> {
+      try {
+        boolean running = true;
+        while ( running ) {
+          running = loader.processRow( meta, data );
+        }
+      } catch ( KettleException e ) {
+        // The step fails to write
+      }
+    } );
+    stepThread.start();
+    // psql stopped reading its input
+    Assert.assertTrue( input.writing.await( 10, TimeUnit.SECONDS ) );
+
+    loader.stopRunning( meta, data );
+    stepThread.join( 10000 );
+
+    Assert.assertFalse( stepThread.isAlive() );
+    Assert.assertTrue( input.closed );
+    input.release.countDown();
+  }
+
+  private GPBulkLoaderMeta createConcurrentLoad( OutputStream input ) throws Exception {
+    loader = spy( new GPBulkLoader(
+      mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans ) );
+
+    GPBulkLoaderMeta meta = new GPBulkLoaderMeta();
+    meta.setDefault();
+    meta.setLoadMethod( GPBulkLoaderMeta.METHOD_AUTO_CONCURRENT );
+    meta.setFieldStream( new String[] { "name" } );
+    meta.setFieldTable( new String[] { "name" } );
+    meta.setDateMask( new String[] { "" } );
+
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    doReturn( rowMeta ).when( loader ).getInputRowMeta();
+    doReturn( new Object[] { "a row of data" } ).when( loader ).getRow();
+    doNothing().when( loader ).createControlFile( any(), any(), any() );
+    doReturn( true ).when( loader ).execute( any(), anyBoolean() );
+
+    Process psql = mock( Process.class );
+    when( psql.getOutputStream() ).thenReturn( input );
+    loader.psqlProcess = psql;
+    return meta;
+  }
+
+  /**
+   * The input of a psql that stopped reading: writing blocks until released.
+   */
+  private static class PsqlInput extends OutputStream {
+    private final CountDownLatch writing = new CountDownLatch( 1 );
+    private final CountDownLatch release = new CountDownLatch( 1 );
+    private volatile boolean closed;
+
+    @Override
+    public void write( int b ) throws IOException {
+      write( new byte[] { (byte) b }, 0, 1 );
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException {
+      writing.countDown();
+      try {
+        release.await();
+      } catch ( InterruptedException e ) {
+        throw new IOException( e );
+      }
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
 }
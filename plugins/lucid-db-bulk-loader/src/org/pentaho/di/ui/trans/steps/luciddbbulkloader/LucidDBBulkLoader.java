@@ -13,7 +13,6 @@
 
 package org.pentaho.di.trans.steps.luciddbbulkloader;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
@@ -24,7 +23,6 @@ import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Types;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 import org.apache.commons.vfs2.FileObject;
@@ -157,7 +155,7 @@ public class LucidDBBulkLoader extends BaseStep implements StepInterface {
       executeLoadCommand( tableName );
 
       // 8) We have to write rows to the FIFO file later on.
-      data.fifoStream = new BufferedOutputStream( new FileOutputStream( fifoFile ) );
+      data.loader.open( new FileOutputStream( fifoFile ), getStepname() + " - FIFO feeder" );
     } catch ( Exception ex ) {
       throw new KettleException( ex );
     }
@@ -308,10 +306,9 @@ public class LucidDBBulkLoader extends BaseStep implements StepInterface {
 
         setOutputDone();
 
-        // Close the fifo file...
+        // Close the fifo file once all the rows are written...
         //
-        data.fifoStream.close();
-        data.fifoStream = null;
+        data.loader.close();
 
         // wait for the INSERT statement to finish and check for any
         // error and/or warning...
@@ -365,6 +362,7 @@ public class LucidDBBulkLoader extends BaseStep implements StepInterface {
       return true;
     } catch ( Exception e ) {
       logError( BaseMessages.getString( PKG, "LucidDBBulkLoader.Log.ErrorInStep" ), e );
+      abortOutput();
       setErrors( 1 );
       stopAll();
       setOutputDone(); // signal end to receiver(s)
@@ -373,92 +371,27 @@ public class LucidDBBulkLoader extends BaseStep implements StepInterface {
   }
 
   private void writeRowToBulk( RowMetaInterface rowMeta, Object[] r ) throws KettleException {
-
     try {
-      // So, we have this output stream to which we can write CSV data to.
-      // Basically, what we need to do is write the binary data (from strings to it as part of this proof of concept)
-      //
-      // The data format required is essentially:
-      //
-      for ( int i = 0; i < data.keynrs.length; i++ ) {
-        if ( i > 0 ) {
-          // Write a separator
-          //
-          data.fifoStream.write( data.separator );
-        }
-
-        int index = data.keynrs[i];
-        ValueMetaInterface valueMeta = rowMeta.getValueMeta( index );
-        Object valueData = r[index];
-
-        if ( valueData != null ) {
-          switch ( valueMeta.getType() ) {
-            case ValueMetaInterface.TYPE_STRING:
-              data.fifoStream.write( data.quote );
-              if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
-                // We had a string, just dump it back.
-                data.fifoStream.write( (byte[]) valueData );
-              } else {
-                data.fifoStream.write( valueMeta.getString( valueData ).getBytes() );
-              }
-              data.fifoStream.write( data.quote );
-              break;
-            case ValueMetaInterface.TYPE_INTEGER:
-              if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
-                data.fifoStream.write( (byte[]) valueData );
-              } else {
-                data.fifoStream.write( Long.toString( valueMeta.getInteger( valueData ) ).getBytes() );
-              }
-              break;
-            case ValueMetaInterface.TYPE_DATE:
-              // REVIEW jvs 13-Dec-2008: Is it OK to ignore
-              // FieldFormatOk like this?
-              /*
-               * if (false && valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i]) {
-               * data.fifoStream.write((byte[])valueData); } else {
-               */
-              Date date = valueMeta.getDate( valueData );
-              // Convert it to the ISO timestamp format
-              // "yyyy-MM-dd HH:mm:ss" // or date format
-              // "yyyy-MM-dd" as appropriate, since LucidDB
-              // follows SQL:2003 here
-              data.fifoStream.write( data.bulkFormatMeta[i].getString( date ).getBytes() );
-              // }
-              break;
-            case ValueMetaInterface.TYPE_BOOLEAN:
-              if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
-                data.fifoStream.write( (byte[]) valueData );
-              } else {
-                data.fifoStream.write( Boolean.toString( valueMeta.getBoolean( valueData ) ).getBytes() );
-              }
-              break;
-            case ValueMetaInterface.TYPE_NUMBER:
-              if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
-                data.fifoStream.write( (byte[]) valueData );
-              } else {
-                data.fifoStream.write( Double.toString( valueMeta.getNumber( valueData ) ).getBytes() );
-              }
-              break;
-            case ValueMetaInterface.TYPE_BIGNUMBER:
-              if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
-                data.fifoStream.write( (byte[]) valueData );
-              } else {
-                data.fifoStream.write( valueMeta.getString( valueData ).getBytes() );
-              }
-              break;
-            default:
-              break;
-          }
-        }
-      }
-
-      // finally write a newline
-      //
-      data.fifoStream.write( data.newline );
+      data.loader.writeRow( rowMeta, r );
     } catch ( Exception e ) {
       throw new KettleException( "Error serializing rows of data to the fifo file", e );
     }
+  }
+
+  /**
+   * Closes the fifo file without waiting for the rows not written yet, LucidDB may not read them anymore.
+   */
+  private void abortOutput() {
+    if ( data != null && data.loader != null ) {
+      data.loader.abort();
+    }
+  }
 
+  @Override
+  public void stopRunning( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
+    // Don't let the step wait for a FIFO that nobody reads anymore
+    abortOutput();
+    super.stopRunning( smi, sdi );
   }
 
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
@@ -490,6 +423,7 @@ public class LucidDBBulkLoader extends BaseStep implements StepInterface {
       //
       data.rowBuffer = new byte[data.bufferSize][];
       data.bufferIndex = 0;
+      data.loader = new LucidDBStreamingLoader( meta, data );
 
       // Schema-table combination...
       data.schemaTable =
@@ -505,13 +439,10 @@ public class LucidDBBulkLoader extends BaseStep implements StepInterface {
     meta = (LucidDBBulkLoaderMeta) smi;
     data = (LucidDBBulkLoaderData) sdi;
 
-    // Close the output streams if still needed.
+    // The rows were all written unless the step failed or was stopped: don't wait for LucidDB to read the others.
     //
+    abortOutput();
     try {
-      if ( data.fifoStream != null ) {
-        data.fifoStream.close();
-      }
-
       // Stop the SQL execution thread
       if ( data.sqlRunner != null ) {
         data.sqlRunner.join();
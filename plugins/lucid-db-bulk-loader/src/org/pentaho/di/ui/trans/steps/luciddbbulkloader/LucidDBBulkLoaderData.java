@@ -13,8 +13,6 @@
 
 package org.pentaho.di.trans.steps.luciddbbulkloader;
 
-import java.io.OutputStream;
-
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.util.StreamLogger;
@@ -57,7 +55,7 @@ public class LucidDBBulkLoaderData extends BaseStepData implements StepDataInter
 
   public String bcpFilename;
 
-  public OutputStream fifoStream;
+  public LucidDBStreamingLoader loader;
 
   public LucidDBBulkLoader.SqlRunner sqlRunner;
 
@@ -0,0 +1,115 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.luciddbbulkloader;
+
+import java.io.IOException;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.StreamingLoader;
+
+/**
+ * Formats the rows of the LucidDB bulk loader the way the flat file wrapper reads them from the FIFO: separated
+ * fields, quoted strings, nothing for null values and a newline after every row.
+ */
+public class LucidDBStreamingLoader extends StreamingLoader {
+
+  private final LucidDBBulkLoaderMeta meta;
+  private final LucidDBBulkLoaderData data;
+
+  /**
+   * Formats the rows in the default encoding.
+   */
+  public LucidDBStreamingLoader( LucidDBBulkLoaderMeta meta, LucidDBBulkLoaderData data ) {
+    super( null );
+    this.meta = meta;
+    this.data = data;
+  }
+
+  @Override
+  protected void formatRow( RowMetaInterface rowMeta, Object[] r ) throws KettleException, IOException {
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      if ( i > 0 ) {
+        // Write a separator
+        //
+        write( data.separator );
+      }
+
+      int index = data.keynrs[i];
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( index );
+      Object valueData = r[index];
+
+      if ( valueData != null ) {
+        switch ( valueMeta.getType() ) {
+          case ValueMetaInterface.TYPE_STRING:
+            write( data.quote );
+            if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
+              // We had a string, just dump it back.
+              write( (byte[]) valueData );
+            } else {
+              write( valueMeta.getString( valueData ) );
+            }
+            write( data.quote );
+            break;
+          case ValueMetaInterface.TYPE_INTEGER:
+            if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
+              write( (byte[]) valueData );
+            } else {
+              write( Long.toString( valueMeta.getInteger( valueData ) ) );
+            }
+            break;
+          case ValueMetaInterface.TYPE_DATE:
+            // REVIEW jvs 13-Dec-2008: Is it OK to ignore
+            // FieldFormatOk like this?
+            Date date = valueMeta.getDate( valueData );
+            // Convert it to the ISO timestamp format
+            // "yyyy-MM-dd HH:mm:ss" // or date format
+            // "yyyy-MM-dd" as appropriate, since LucidDB
+            // follows SQL:2003 here
+            write( data.bulkFormatMeta[i].getString( date ) );
+            break;
+          case ValueMetaInterface.TYPE_BOOLEAN:
+            if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
+              write( (byte[]) valueData );
+            } else {
+              write( Boolean.toString( valueMeta.getBoolean( valueData ) ) );
+            }
+            break;
+          case ValueMetaInterface.TYPE_NUMBER:
+            if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
+              write( (byte[]) valueData );
+            } else {
+              write( Double.toString( valueMeta.getNumber( valueData ) ) );
+            }
+            break;
+          case ValueMetaInterface.TYPE_BIGNUMBER:
+            if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
+              write( (byte[]) valueData );
+            } else {
+              write( valueMeta.getString( valueData ) );
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    }
+
+    // finally write a newline
+    //
+    write( data.newline );
+  }
+}
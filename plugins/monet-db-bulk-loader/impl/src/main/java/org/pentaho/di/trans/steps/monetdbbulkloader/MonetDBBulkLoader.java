@@ -20,11 +20,9 @@ import org.pentaho.di.core.Const;
 import org.pentaho.di.core.SQLStatement;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
-import org.pentaho.di.core.database.MonetDBDatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.row.RowMetaInterface;
-import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaDate;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.util.StreamLogger;
@@ -39,7 +37,7 @@ import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 import org.pentaho.di.trans.steps.tableagilemart.AgileMartUtil;
 
-import java.util.Date;
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 
 /**
@@ -59,7 +57,6 @@ public class MonetDBBulkLoader extends BaseStep implements StepInterface {
   private TransMeta localTransMeta;
   protected long rowsWritten = -1;
   private AgileMartUtil util = new AgileMartUtil();
-  private RowMetaInterface physicalTableRowMeta;
 
   public String getMessage() {
     return message;
@@ -135,11 +132,11 @@ public class MonetDBBulkLoader extends BaseStep implements StepInterface {
 
         db = new Database( meta.getParent(), dm );
         db.connect( user, password );
-        physicalTableRowMeta = db.getTableFields( data.schemaTable );
+        data.loader.setPhysicalTableRowMeta( db.getTableFields( data.schemaTable ) );
       } catch ( Exception e ) {
         // try again, with the unquoted table...
         try {
-          physicalTableRowMeta = db.getTableFields( meta.getTableName() );
+          data.loader.setPhysicalTableRowMeta( db.getTableFields( meta.getTableName() ) );
         } catch ( Exception e1 ) {
           logBasic( "Could not get metadata for the physical table " + data.schemaTable + "." );
         }
@@ -149,6 +146,9 @@ public class MonetDBBulkLoader extends BaseStep implements StepInterface {
         }
       }
       meta.setCompatibilityDbVersionMode();
+
+      // The rows are formatted into the buffer, sent to MonetDB once the number of rows is known
+      data.loader.open( data.rowBuffer );
     } catch ( Exception ex ) {
       throw new KettleException( ex );
     }
@@ -170,10 +170,9 @@ public class MonetDBBulkLoader extends BaseStep implements StepInterface {
           try {
             writeBufferToMonetDB();
             data.out.flush();
-          } catch ( KettleException ke ) {
-            throw ke;
+            data.loader.close();
           } finally {
-            data.mserver.close();
+            closeConnection();
           }
           util.updateMetadata( meta, rowsWritten );
         }
@@ -208,6 +207,7 @@ public class MonetDBBulkLoader extends BaseStep implements StepInterface {
       return true;
     } catch ( Exception e ) {
       logError( BaseMessages.getString( PKG, "MonetDBBulkLoader.Log.ErrorInStep" ), e );
+      abortOutput();
       setErrors( 1 );
       stopAll();
       setOutputDone(); // signal end to receiver(s)
@@ -223,159 +223,12 @@ public class MonetDBBulkLoader extends BaseStep implements StepInterface {
   }
 
   protected void addRowToBuffer( RowMetaInterface rowMeta, Object[] r ) throws KettleException {
-
-    StringBuilder line = new StringBuilder();
-
     try {
-      for ( int i = 0; i < data.keynrs.length; i++ ) {
-        if ( i > 0 ) {
-          line.append( data.separator );
-        }
-
-        int index = data.keynrs[i];
-        ValueMetaInterface valueMeta = rowMeta.getValueMeta( index );
-        Object valueData = r[index];
-        String nullRep = new String( data.nullrepresentation );
-        if ( valueData != null ) {
-          switch ( valueMeta.getType() ) {
-            case ValueMetaInterface.TYPE_STRING:
-              String str = valueMeta.getString( valueData );
-              if ( str == null || str.equals( nullRep ) ) {
-                // don't quote our null representation
-                line.append( str );
-                break;
-              }
-              line.append( data.quote );
-
-              // escape any backslashes
-              //
-              str = str.replace( "\\", "\\\\" );
-              str = str.replace( "\"", "\\\"" );
-              if ( meta.isAutoStringWidths() ) {
-                int len = valueMeta.getLength();
-                if ( len < 1 ) {
-                  len = MonetDBDatabaseMeta.DEFAULT_VARCHAR_LENGTH;
-                }
-                if ( str.length() > len ) {
-                  // TODO log this event
-                  str = str.substring( 0, len );
-                }
-                line.append( str );
-              } else {
-                line.append( str );
-              }
-
-              line.append( data.quote );
-              break;
-            case ValueMetaInterface.TYPE_INTEGER:
-              if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
-                line.append( valueMeta.getString( valueData ) );
-              } else {
-                Long value = valueMeta.getInteger( valueData );
-                if ( value == null ) {
-                  line.append( data.nullrepresentation );
-                } else {
-                  line.append( Long.toString( value ) );
-                }
-              }
-              break;
-            //
-            // TODO: Check MonetDB API for true column types and help set or suggest the correct formatter pattern to
-            // the user.
-            //
-            case ValueMetaInterface.TYPE_TIMESTAMP:
-            case ValueMetaInterface.TYPE_DATE:
-              // Keep the data format as indicated.
-              if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
-                line.append( valueMeta.getString( valueData ) );
-              } else {
-
-                ValueMetaInterface colMeta = null;
-                if ( physicalTableRowMeta != null ) {
-                  colMeta = physicalTableRowMeta.getValueMeta( index );
-                }
-
-                Date value = valueMeta.getDate( valueData );
-                if ( value == null ) {
-                  line.append( data.nullrepresentation );
-                } else {
-
-                  // MonetDB makes a distinction between the acceptable incoming string formats for
-                  // the type DATE and TIMESTAMP.
-                  //
-                  // DATE - for date values (e.g., 2012-12-21)
-                  // TIME - for time values (e.g., 15:51:36)
-                  // TIMESTAMP - DATE and TIME put together (e.g., 2012-12-21 15:51:36)
-
-                  if ( colMeta != null && colMeta.getOriginalColumnTypeName().equalsIgnoreCase( "date" ) ) {
-                    line.append( data.monetDateMeta.getString( value ) );
-                  } else if ( colMeta != null && colMeta.getOriginalColumnTypeName().equalsIgnoreCase( "time" ) ) {
-                    line.append( data.monetTimeMeta.getString( value ) );
-                  } else {
-                    // colMeta.getOriginalColumnTypeName().equalsIgnoreCase("timestamp")
-                    line.append( data.monetTimestampMeta.getString( value ) );
-                  }
-                }
-              }
-              break;
-            case ValueMetaInterface.TYPE_BOOLEAN:
-              Boolean value = valueMeta.getBoolean( valueData );
-              if ( value == null ) {
-                line.append( data.nullrepresentation );
-              } else {
-                if ( value.booleanValue() ) {
-                  line.append( true );
-                } else {
-                  line.append( false );
-                }
-              }
-              break;
-
-            case ValueMetaInterface.TYPE_NUMBER:
-              if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
-                line.append( valueMeta.getString( valueData ) );
-              } else {
-                Double dbl = valueMeta.getNumber( valueData );
-                if ( dbl == null ) {
-                  line.append( data.nullrepresentation );
-                } else {
-                  line.append( Double.toString( dbl ) );
-                }
-              }
-              break;
-
-            case ValueMetaInterface.TYPE_BIGNUMBER:
-              if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
-                line.append( valueMeta.getString( valueData ) );
-              } else {
-                String string = valueMeta.getString( valueData );
-                if ( string == null ) {
-                  line.append( data.nullrepresentation );
-                } else {
-                  line.append( string );
-                }
-              }
-              break;
-            default:
-              break;
-          }
-        } else {
-          line.append( data.nullrepresentation );
-        }
-      }
-
-      // finally write a newline
-      //
-      line.append( data.newline );
-
-      // Now that we have the line, grab the content and store it in the buffer...
-      //
-      data.rowBuffer[data.bufferIndex] = line.toString(); // line.toByteArray();
+      data.loader.writeRow( rowMeta, r );
       data.bufferIndex++;
     } catch ( Exception e ) {
       throw new KettleException( "Error serializing rows of data to the MonetDB API (MAPI).", e );
     }
-
   }
 
   public void truncate() throws KettleException {
@@ -475,13 +328,11 @@ public class MonetDBBulkLoader extends BaseStep implements StepInterface {
       data.out.write( 's' );
       data.out.write( cmdBuff.toString() );
       data.out.newLine();
-
-      for ( int i = 0; i < data.bufferIndex; i++ ) {
-        String buffer = data.rowBuffer[i];
-        data.out.write( buffer );
-        if ( log.isRowLevel() ) {
-          logRowlevel( buffer );
-        }
+      // The rows are encoded already, write them after the command to the stream under the writer
+      data.out.flush();
+      data.rowBuffer.writeTo( data.mserver.getOutputStream() );
+      if ( log.isRowLevel() ) {
+        logRowlevel( data.rowBuffer.toString( "UTF-8" ) );
       }
 
       // wait for the prompt
@@ -515,6 +366,7 @@ public class MonetDBBulkLoader extends BaseStep implements StepInterface {
 
       // reset the buffer pointer...
       //
+      data.rowBuffer.reset();
       data.bufferIndex = 0;
     } catch ( Exception e ) {
       throw new KettleException( "An error occurred writing data to the MonetDB API (MAPI) process", e );
@@ -577,8 +429,9 @@ public class MonetDBBulkLoader extends BaseStep implements StepInterface {
 
       // Allocate the buffer
       //
-      data.rowBuffer = new String[data.bufferSize]; // new byte[data.bufferSize][];
+      data.rowBuffer = new ByteArrayOutputStream();
       data.bufferIndex = 0;
+      data.loader = new MonetDBStreamingLoader( meta, data );
 
       // Make sure our database connection settings are consistent with our dialog settings by
       // altering the connection with an updated answer depending on the dialog setting.
@@ -600,11 +453,40 @@ public class MonetDBBulkLoader extends BaseStep implements StepInterface {
     return false;
   }
 
+  /**
+   * Drops the rows not sent yet and closes the connection to MonetDB, which wakes up a step waiting for the prompt.
+   */
+  private void abortOutput() {
+    if ( data != null ) {
+      if ( data.loader != null ) {
+        data.loader.abort();
+      }
+      closeConnection();
+    }
+  }
+
+  private void closeConnection() {
+    MapiSocket mserver = data.mserver;
+    if ( mserver != null ) {
+      data.mserver = null;
+      mserver.close();
+    }
+  }
+
+  @Override
+  public void stopRunning( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
+    // Don't let the step wait for MonetDB to load a batch that isn't wanted anymore
+    abortOutput();
+    super.stopRunning( smi, sdi );
+  }
+
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (MonetDBBulkLoaderMeta) smi;
     data = (MonetDBBulkLoaderData) sdi;
 
+    // The rows were all loaded unless the step failed or was stopped
+    abortOutput();
     super.dispose( smi, sdi );
   }
 
@@ -17,6 +17,8 @@ import nl.cwi.monetdb.mcl.io.BufferedMCLReader;
 import nl.cwi.monetdb.mcl.io.BufferedMCLWriter;
 import nl.cwi.monetdb.mcl.net.MapiSocket;
 
+import java.io.ByteArrayOutputStream;
+
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.util.StreamLogger;
@@ -40,7 +42,7 @@ public class MonetDBBulkLoaderData extends BaseStepData implements StepDataInter
   public StreamLogger outputLogger;
 
   // MonetDB API
-  public MapiSocket mserver;
+  public volatile MapiSocket mserver;
   public BufferedMCLReader in;
   public BufferedMCLWriter out;
 
@@ -57,9 +59,11 @@ public class MonetDBBulkLoaderData extends BaseStepData implements StepDataInter
 
   public int bufferSize;
 
-  public String[] rowBuffer;
+  public ByteArrayOutputStream rowBuffer; // the encoded rows not sent yet
+
+  public int bufferIndex; // the number of rows in rowBuffer
 
-  public int bufferIndex;
+  public MonetDBStreamingLoader loader;
 
   public String schemaTable;
 
@@ -0,0 +1,192 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.monetdbbulkloader;
+
+import java.io.IOException;
+import java.util.Date;
+
+import org.pentaho.di.core.database.MonetDBDatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.StreamingLoader;
+
+/**
+ * Formats the rows of the MonetDB bulk loader the way COPY INTO reads them: separated fields, quoted and escaped
+ * strings, the NULL representation for null values and a newline after every row. The rows are encoded in UTF-8, the
+ * encoding of the MonetDB API (MAPI).
+ */
+public class MonetDBStreamingLoader extends StreamingLoader {
+
+  private final MonetDBBulkLoaderMeta meta;
+  private final MonetDBBulkLoaderData data;
+
+  private final StringBuilder line = new StringBuilder();
+
+  /** The columns of the target table, used to tell the DATE, TIME and TIMESTAMP columns apart */
+  private RowMetaInterface physicalTableRowMeta;
+
+  public MonetDBStreamingLoader( MonetDBBulkLoaderMeta meta, MonetDBBulkLoaderData data ) {
+    super( "UTF-8" );
+    this.meta = meta;
+    this.data = data;
+  }
+
+  /**
+   * @param physicalTableRowMeta the columns of the target table, null if they couldn't be read
+   */
+  public void setPhysicalTableRowMeta( RowMetaInterface physicalTableRowMeta ) {
+    this.physicalTableRowMeta = physicalTableRowMeta;
+  }
+
+  @Override
+  protected void formatRow( RowMetaInterface rowMeta, Object[] r ) throws KettleException, IOException {
+    line.setLength( 0 );
+
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      if ( i > 0 ) {
+        line.append( data.separator );
+      }
+
+      int index = data.keynrs[i];
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( index );
+      Object valueData = r[index];
+      if ( valueData != null ) {
+        switch ( valueMeta.getType() ) {
+          case ValueMetaInterface.TYPE_STRING:
+            String str = valueMeta.getString( valueData );
+            if ( str == null || str.equals( data.nullrepresentation ) ) {
+              // don't quote our null representation
+              line.append( str );
+              break;
+            }
+            line.append( data.quote );
+
+            // escape any backslashes
+            //
+            str = str.replace( "\\", "\\\\" );
+            str = str.replace( "\"", "\\\"" );
+            if ( meta.isAutoStringWidths() ) {
+              int len = valueMeta.getLength();
+              if ( len < 1 ) {
+                len = MonetDBDatabaseMeta.DEFAULT_VARCHAR_LENGTH;
+              }
+              if ( str.length() > len ) {
+                // TODO log this event
+                str = str.substring( 0, len );
+              }
+            }
+            line.append( str );
+
+            line.append( data.quote );
+            break;
+          case ValueMetaInterface.TYPE_INTEGER:
+            if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
+              line.append( valueMeta.getString( valueData ) );
+            } else {
+              Long value = valueMeta.getInteger( valueData );
+              if ( value == null ) {
+                line.append( data.nullrepresentation );
+              } else {
+                line.append( value.longValue() );
+              }
+            }
+            break;
+          //
+          // TODO: Check MonetDB API for true column types and help set or suggest the correct formatter pattern to
+          // the user.
+          //
+          case ValueMetaInterface.TYPE_TIMESTAMP:
+          case ValueMetaInterface.TYPE_DATE:
+            // Keep the data format as indicated.
+            if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
+              line.append( valueMeta.getString( valueData ) );
+            } else {
+
+              ValueMetaInterface colMeta = null;
+              if ( physicalTableRowMeta != null ) {
+                colMeta = physicalTableRowMeta.getValueMeta( index );
+              }
+
+              Date value = valueMeta.getDate( valueData );
+              if ( value == null ) {
+                line.append( data.nullrepresentation );
+              } else {
+
+                // MonetDB makes a distinction between the acceptable incoming string formats for
+                // the type DATE and TIMESTAMP.
+                //
+                // DATE - for date values (e.g., 2012-12-21)
+                // TIME - for time values (e.g., 15:51:36)
+                // TIMESTAMP - DATE and TIME put together (e.g., 2012-12-21 15:51:36)
+
+                if ( colMeta != null && colMeta.getOriginalColumnTypeName().equalsIgnoreCase( "date" ) ) {
+                  line.append( data.monetDateMeta.getString( value ) );
+                } else if ( colMeta != null && colMeta.getOriginalColumnTypeName().equalsIgnoreCase( "time" ) ) {
+                  line.append( data.monetTimeMeta.getString( value ) );
+                } else {
+                  // colMeta.getOriginalColumnTypeName().equalsIgnoreCase("timestamp")
+                  line.append( data.monetTimestampMeta.getString( value ) );
+                }
+              }
+            }
+            break;
+          case ValueMetaInterface.TYPE_BOOLEAN:
+            Boolean value = valueMeta.getBoolean( valueData );
+            if ( value == null ) {
+              line.append( data.nullrepresentation );
+            } else {
+              line.append( value.booleanValue() );
+            }
+            break;
+
+          case ValueMetaInterface.TYPE_NUMBER:
+            if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
+              line.append( valueMeta.getString( valueData ) );
+            } else {
+              Double dbl = valueMeta.getNumber( valueData );
+              if ( dbl == null ) {
+                line.append( data.nullrepresentation );
+              } else {
+                line.append( dbl.doubleValue() );
+              }
+            }
+            break;
+
+          case ValueMetaInterface.TYPE_BIGNUMBER:
+            if ( valueMeta.isStorageBinaryString() && meta.getFieldFormatOk()[i] ) {
+              line.append( valueMeta.getString( valueData ) );
+            } else {
+              String string = valueMeta.getString( valueData );
+              if ( string == null ) {
+                line.append( data.nullrepresentation );
+              } else {
+                line.append( string );
+              }
+            }
+            break;
+          default:
+            break;
+        }
+      } else {
+        line.append( data.nullrepresentation );
+      }
+    }
+
+    // finally write a newline
+    //
+    line.append( data.newline );
+    write( line );
+  }
+}
@@ -13,24 +13,45 @@
 
 package org.pentaho.di.trans.steps.monetdbbulkloader;
 
+import nl.cwi.monetdb.mcl.io.BufferedMCLReader;
+import nl.cwi.monetdb.mcl.io.BufferedMCLWriter;
+import nl.cwi.monetdb.mcl.net.MapiSocket;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
 import org.pentaho.di.trans.steps.mock.StepMockHelper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -79,4 +100,125 @@ public class MonetDBBulkLoaderTest {
       assertThat( aKettleException.getMessage(), containsString( "There is no connection defined in this step." ) );
     }
   }
+
+  @Test
+  public void testSendsTheBatchesOfRowsAfterTheCopyCommand() throws Exception {
+    ByteArrayOutputStream sent = new ByteArrayOutputStream();
+    MapiSocket mserver = createConnection( sent );
+    when( mserver.getReader().waitForPrompt() ).thenReturn( null );
+    MonetDBBulkLoaderMeta meta = createMeta( "2" );
+    MonetDBBulkLoaderData data = new MonetDBBulkLoaderData();
+    MonetDBBulkLoader loader = createLoader( meta, data, mserver,
+      new Object[] { "caf\u00e9", 1L }, new Object[] { "a \"quote\"", null }, new Object[] { null, 3L } );
+
+    while ( loader.processRow( meta, data ) ) {
+      // load the next row
+    }
+
+    assertEquals( 0, loader.getErrors() );
+    String copy = " RECORDS INTO t FROM STDIN USING DELIMITERS ',','" + Const.CR + "','\"' NULL AS '';" + Const.CR;
+    String output = new String( sent.toByteArray(), StandardCharsets.UTF_8 );
+    assertThat( output, containsString( "sCOPY 2" + copy
+      + "\"caf\u00e9\",1" + Const.CR + "\"a \\\"quote\\\"\"," + Const.CR ) );
+    assertThat( output, containsString( "sCOPY 1" + copy + ",3" + Const.CR ) );
+    assertFalse( data.loader.isOpen() );
+    verify( mserver ).close();
+  }
+
+  @Test
+  public void testFailedLoadClosesTheConnection() throws Exception {
+    MapiSocket mserver = createConnection( new ByteArrayOutputStream() );
+    when( mserver.getReader().waitForPrompt() ).thenReturn( null, "!COPY failed" );
+    MonetDBBulkLoaderMeta meta = createMeta( "1" );
+    MonetDBBulkLoaderData data = new MonetDBBulkLoaderData();
+    MonetDBBulkLoader loader = createLoader( meta, data, mserver,
+      new Object[] { "a", 1L }, new Object[] { "b", 2L } );
+
+    while ( loader.processRow( meta, data ) ) {
+      // load the next row
+    }
+
+    assertEquals( 1, loader.getErrors() );
+    assertFalse( data.loader.isOpen() );
+    verify( mserver ).close();
+  }
+
+  @Test( timeout = 30000 )
+  public void testStopWakesUpTheStepWaitingForMonetDB() throws Exception {
+    MapiSocket mserver = createConnection( new ByteArrayOutputStream() );
+    CountDownLatch waiting = new CountDownLatch( 1 );
+    CountDownLatch closed = new CountDownLatch( 1 );
+    doAnswer( invocation -> {
+      closed.countDown();
+      return null;
+    } ).when( mserver ).close();
+    BufferedMCLReader reader = mserver.getReader();
+    doReturn( null ).doAnswer( invocation -> {
+      // MonetDB doesn't answer until the connection is closed
+      waiting.countDown();
+      closed.await();
+      throw new IOException( "Connection closed" );
+    } ).when( reader ).waitForPrompt();
+    MonetDBBulkLoaderMeta meta = createMeta( "1" );
+    MonetDBBulkLoaderData data = new MonetDBBulkLoaderData();
+    MonetDBBulkLoader loader = createLoader( meta, data, mserver,
+      new Object[] { "a", 1L }, new Object[] { "b", 2L } );
+
+    Thread step = new Thread( () -> {
+      try {
+        while ( loader.processRow( meta, data ) ) {
+          // load the next row
+        }
+      } catch ( KettleException e ) {
+        // checked below
+      }
+    } );
+    step.start();
+    assertTrue( waiting.await( 10, TimeUnit.SECONDS ) );
+
+    loader.stopRunning( meta, data );
+    step.join( 10000 );
+
+    assertFalse( step.isAlive() );
+    assertEquals( 1, loader.getErrors() );
+    assertFalse( data.loader.isOpen() );
+  }
+
+  private MapiSocket createConnection( ByteArrayOutputStream sent ) throws Exception {
+    MapiSocket mserver = mock( MapiSocket.class );
+    when( mserver.getReader() ).thenReturn( mock( BufferedMCLReader.class ) );
+    when( mserver.getWriter() ).thenReturn( new BufferedMCLWriter( sent, "UTF-8" ) );
+    when( mserver.getOutputStream() ).thenReturn( sent );
+    return mserver;
+  }
+
+  private MonetDBBulkLoaderMeta createMeta( String bufferSize ) {
+    DatabaseMeta dbMeta = mock( DatabaseMeta.class );
+    when( dbMeta.getName() ).thenReturn( "monetdb" );
+    when( dbMeta.getQuotedSchemaTableCombination( any(), any() ) ).thenReturn( "t" );
+    MonetDBBulkLoaderMeta meta = mock( MonetDBBulkLoaderMeta.class );
+    when( meta.getDatabaseMeta() ).thenReturn( dbMeta );
+    when( meta.getDatabaseMeta( any() ) ).thenReturn( dbMeta );
+    when( meta.getTableName() ).thenReturn( "t" );
+    when( meta.getFieldEnclosure() ).thenReturn( "\"" );
+    when( meta.getFieldSeparator() ).thenReturn( "," );
+    when( meta.getBufferSize() ).thenReturn( bufferSize );
+    when( meta.getFieldStream() ).thenReturn( new String[] { "name", "count" } );
+    when( meta.getFieldFormatOk() ).thenReturn( new boolean[] { false, false } );
+    return meta;
+  }
+
+  private MonetDBBulkLoader createLoader( MonetDBBulkLoaderMeta meta, MonetDBBulkLoaderData data,
+    MapiSocket mserver, Object[]... rows ) throws Exception {
+    MonetDBBulkLoader loader = spy( monetDbBulkLoader );
+    assertTrue( loader.init( meta, data ) );
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "count" ) );
+    doReturn( rowMeta ).when( loader ).getInputRowMeta();
+    Iterator<Object[]> input = Arrays.asList( rows ).iterator();
+    doAnswer( invocation -> input.hasNext() ? input.next() : null ).when( loader ).getRow();
+    doReturn( mserver ).when( loader ).getMonetDBConnection();
+    return loader;
+  }
 }
@@ -19,8 +19,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.util.Date;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
@@ -215,7 +213,8 @@ public class MySQLBulkLoader extends BaseStep implements StepInterface {
           throw e;
         }
       }
-      data.fifoStream = openFifo.getFifoStream();
+      // Feed the FIFO from a thread of its own, the rows are formatted while MySQL loads the previous ones
+      data.loader.open( openFifo.getFifoStream(), getStepname() + " - FIFO feeder" );
     }
 
   }
@@ -285,6 +284,7 @@ public class MySQLBulkLoader extends BaseStep implements StepInterface {
       return true;
     } catch ( Exception e ) {
       logError( BaseMessages.getString( PKG, "MySQLBulkLoader.Log.ErrorInStep" ), e );
+      abortOutput();
       setErrors( 1 );
       stopAll();
       setOutputDone(); // signal end to receiver(s)
@@ -294,11 +294,10 @@ public class MySQLBulkLoader extends BaseStep implements StepInterface {
 
   private void closeOutput() throws Exception {
 
-    if ( data.fifoStream != null ) {
-      // Close the fifo file...
+    if ( data.loader != null && data.loader.isOpen() ) {
+      // Close the fifo file once all the rows are written...
       //
-      data.fifoStream.close();
-      data.fifoStream = null;
+      data.loader.close();
     }
 
     if ( data.sqlRunner != null ) {
@@ -312,120 +311,26 @@ public class MySQLBulkLoader extends BaseStep implements StepInterface {
     }
   }
 
-  private void writeRowToBulk( RowMetaInterface rowMeta, Object[] r ) throws KettleException {
-
-    try {
-      // So, we have this output stream to which we can write CSV data to.
-      // Basically, what we need to do is write the binary data (from strings to it as part of this proof of concept)
-      //
-      // The data format required is essentially:
-      //
-      for ( int i = 0; i < data.keynrs.length; i++ ) {
-        if ( i > 0 ) {
-          // Write a separator
-          //
-          data.fifoStream.write( data.separator );
-        }
+  /**
+   * Closes the fifo file without waiting for the rows not written yet, MySQL may not read them anymore.
+   */
+  private void abortOutput() {
+    if ( data != null && data.loader != null ) {
+      data.loader.abort();
+    }
+  }
 
-        int index = data.keynrs[i];
-        ValueMetaInterface valueMeta = rowMeta.getValueMeta( index );
-        Object valueData = r[index];
-
-        if ( valueData == null ) {
-          data.fifoStream.write( "NULL".getBytes() );
-        } else {
-          switch ( valueMeta.getType() ) {
-            case ValueMetaInterface.TYPE_STRING:
-              data.fifoStream.write( data.quote );
-              if ( valueMeta.isStorageBinaryString()
-                  && meta.getFieldFormatType()[i] == MySQLBulkLoaderMeta.FIELD_FORMAT_TYPE_OK ) {
-                // We had a string, just dump it back.
-                data.fifoStream.write( (byte[]) valueData );
-              } else {
-                String string = valueMeta.getString( valueData );
-                if ( string != null ) {
-                  if ( meta.getFieldFormatType()[i] == MySQLBulkLoaderMeta.FIELD_FORMAT_TYPE_STRING_ESCAPE ) {
-                    string = Const.replace( string, meta.getEscapeChar(), meta.getEscapeChar() + meta.getEscapeChar() );
-                    string = Const.replace( string, meta.getEnclosure(), meta.getEscapeChar() + meta.getEnclosure() );
-                  }
-                  data.fifoStream.write( string.getBytes() );
-                }
-              }
-              data.fifoStream.write( data.quote );
-              break;
-            case ValueMetaInterface.TYPE_INTEGER:
-              if ( valueMeta.isStorageBinaryString() && data.bulkFormatMeta[i] == null ) {
-                data.fifoStream.write( valueMeta.getBinaryString( valueData ) );
-              } else {
-                Long integer = valueMeta.getInteger( valueData );
-                if ( integer != null ) {
-                  data.fifoStream.write( data.bulkFormatMeta[i].getString( integer ).getBytes() );
-                }
-              }
-              break;
-            case ValueMetaInterface.TYPE_DATE:
-              if ( valueMeta.isStorageBinaryString() && data.bulkFormatMeta[i] == null ) {
-                data.fifoStream.write( valueMeta.getBinaryString( valueData ) );
-              } else {
-                Date date = valueMeta.getDate( valueData );
-                if ( date != null ) {
-                  data.fifoStream.write( data.bulkFormatMeta[i].getString( date ).getBytes() );
-                }
-              }
-              break;
-            case ValueMetaInterface.TYPE_BOOLEAN:
-              if ( valueMeta.isStorageBinaryString() && data.bulkFormatMeta[i] == null ) {
-                data.fifoStream.write( valueMeta.getBinaryString( valueData ) );
-              } else {
-                Boolean b = valueMeta.getBoolean( valueData );
-                if ( b != null ) {
-                  data.fifoStream.write( data.bulkFormatMeta[i].getString( b ).getBytes() );
-                }
-              }
-              break;
-            case ValueMetaInterface.TYPE_NUMBER:
-              if ( valueMeta.isStorageBinaryString() && data.bulkFormatMeta[i] == null ) {
-                data.fifoStream.write( (byte[]) valueData );
-              } else {
-                /**
-                 * If this is the first line, reset default conversion mask for Number type (#.#;-#.#).
-                 * This will make conversion mask to be calculated according to meta data (length, precision).
-                 *
-                 * http://jira.pentaho.com/browse/PDI-11421
-                 */
-                if ( getLinesWritten() == 0 ) {
-                  data.bulkFormatMeta[i].setConversionMask( null );
-                }
-
-                Double d = valueMeta.getNumber( valueData );
-                if ( d != null ) {
-                  data.fifoStream.write( data.bulkFormatMeta[i].getString( d ).getBytes() );
-                }
-              }
-              break;
-            case ValueMetaInterface.TYPE_BIGNUMBER:
-              if ( valueMeta.isStorageBinaryString() && data.bulkFormatMeta[i] == null ) {
-                data.fifoStream.write( (byte[]) valueData );
-              } else {
-                BigDecimal bn = valueMeta.getBigNumber( valueData );
-                if ( bn != null ) {
-                  data.fifoStream.write( data.bulkFormatMeta[i].getString( bn ).getBytes() );
-                }
-              }
-              break;
-            default:
-              break;
-          }
-        }
-      }
+  @Override
+  public void stopRunning( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
+    // Don't let the step wait for a FIFO that nobody reads anymore
+    abortOutput();
+    super.stopRunning( smi, sdi );
+  }
 
-      // finally write a newline
-      //
-      data.fifoStream.write( data.newline );
+  private void writeRowToBulk( RowMetaInterface rowMeta, Object[] r ) throws KettleException {
 
-      if ( ( getLinesOutput() % 5000 ) == 0 ) {
-        data.fifoStream.flush();
-      }
+    try {
+      data.loader.writeRow( rowMeta, r );
     } catch ( IOException e ) {
       // If something went wrong with writing to the fifo, get the underlying error from MySQL
       try {
@@ -499,6 +404,7 @@ public class MySQLBulkLoader extends BaseStep implements StepInterface {
       data.bulkNumberMeta.setStringEncoding( realEncoding );
 
       data.bulkSize = Const.toLong( environmentSubstitute( meta.getBulkSize() ), -1L );
+      data.loader = new MySQLStreamingLoader( meta, data );
 
       // Schema-table combination...
       data.schemaTable =
@@ -515,12 +421,10 @@ public class MySQLBulkLoader extends BaseStep implements StepInterface {
     meta = (MySQLBulkLoaderMeta) smi;
     data = (MySQLBulkLoaderData) sdi;
 
-    // Close the output streams if still needed.
+    // The rows were all written unless the step failed or was stopped: don't wait for MySQL to read the others.
     //
+    abortOutput();
     try {
-      if ( data.fifoStream != null ) {
-        data.fifoStream.close();
-      }
 
       // Stop the SQL execution thread
       //
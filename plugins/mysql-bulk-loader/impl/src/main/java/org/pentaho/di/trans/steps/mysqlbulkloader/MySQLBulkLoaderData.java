@@ -13,8 +13,6 @@
 
 package org.pentaho.di.trans.steps.mysqlbulkloader;
 
-import java.io.OutputStream;
-
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.util.StreamLogger;
@@ -49,7 +47,7 @@ public class MySQLBulkLoaderData extends BaseStepData implements StepDataInterfa
 
   public String fifoFilename;
 
-  public OutputStream fifoStream;
+  public MySQLStreamingLoader loader;
 
   public MySQLBulkLoader.SqlRunner sqlRunner;
 
@@ -0,0 +1,156 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.mysqlbulkloader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.StreamingLoader;
+
+/**
+ * Formats the rows of the MySQL bulk loader the way LOAD DATA reads them from the FIFO: separated fields, enclosed
+ * strings, NULL for null values and a newline after every row.
+ */
+public class MySQLStreamingLoader extends StreamingLoader {
+
+  private static final byte[] NULL = "NULL".getBytes();
+
+  private final MySQLBulkLoaderMeta meta;
+  private final MySQLBulkLoaderData data;
+
+  /** The number fields of which the default conversion mask was reset */
+  private boolean[] maskReset;
+
+  /**
+   * Formats the rows in the default encoding.
+   */
+  public MySQLStreamingLoader( MySQLBulkLoaderMeta meta, MySQLBulkLoaderData data ) {
+    super( null );
+    this.meta = meta;
+    this.data = data;
+  }
+
+  @Override
+  protected void formatRow( RowMetaInterface rowMeta, Object[] r ) throws KettleException, IOException {
+    if ( maskReset == null ) {
+      maskReset = new boolean[data.keynrs.length];
+    }
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      if ( i > 0 ) {
+        write( data.separator );
+      }
+
+      int index = data.keynrs[i];
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( index );
+      Object valueData = r[index];
+
+      if ( valueData == null ) {
+        write( NULL );
+      } else {
+        switch ( valueMeta.getType() ) {
+          case ValueMetaInterface.TYPE_STRING:
+            write( data.quote );
+            if ( valueMeta.isStorageBinaryString()
+                && meta.getFieldFormatType()[i] == MySQLBulkLoaderMeta.FIELD_FORMAT_TYPE_OK ) {
+              // We had a string, just dump it back.
+              write( (byte[]) valueData );
+            } else {
+              String string = valueMeta.getString( valueData );
+              if ( string != null ) {
+                if ( meta.getFieldFormatType()[i] == MySQLBulkLoaderMeta.FIELD_FORMAT_TYPE_STRING_ESCAPE ) {
+                  string = Const.replace( string, meta.getEscapeChar(), meta.getEscapeChar() + meta.getEscapeChar() );
+                  string = Const.replace( string, meta.getEnclosure(), meta.getEscapeChar() + meta.getEnclosure() );
+                }
+                write( string );
+              }
+            }
+            write( data.quote );
+            break;
+          case ValueMetaInterface.TYPE_INTEGER:
+            if ( valueMeta.isStorageBinaryString() && data.bulkFormatMeta[i] == null ) {
+              write( valueMeta.getBinaryString( valueData ) );
+            } else {
+              Long integer = valueMeta.getInteger( valueData );
+              if ( integer != null ) {
+                write( data.bulkFormatMeta[i].getString( integer ) );
+              }
+            }
+            break;
+          case ValueMetaInterface.TYPE_DATE:
+            if ( valueMeta.isStorageBinaryString() && data.bulkFormatMeta[i] == null ) {
+              write( valueMeta.getBinaryString( valueData ) );
+            } else {
+              Date date = valueMeta.getDate( valueData );
+              if ( date != null ) {
+                write( data.bulkFormatMeta[i].getString( date ) );
+              }
+            }
+            break;
+          case ValueMetaInterface.TYPE_BOOLEAN:
+            if ( valueMeta.isStorageBinaryString() && data.bulkFormatMeta[i] == null ) {
+              write( valueMeta.getBinaryString( valueData ) );
+            } else {
+              Boolean b = valueMeta.getBoolean( valueData );
+              if ( b != null ) {
+                write( data.bulkFormatMeta[i].getString( b ) );
+              }
+            }
+            break;
+          case ValueMetaInterface.TYPE_NUMBER:
+            if ( valueMeta.isStorageBinaryString() && data.bulkFormatMeta[i] == null ) {
+              write( (byte[]) valueData );
+            } else {
+              /**
+               * On the first value, reset default conversion mask for Number type (#.#;-#.#).
+               * This will make conversion mask to be calculated according to meta data (length, precision).
+               *
+               * http://jira.pentaho.com/browse/PDI-11421
+               */
+              if ( !maskReset[i] ) {
+                data.bulkFormatMeta[i].setConversionMask( null );
+                maskReset[i] = true;
+              }
+
+              Double d = valueMeta.getNumber( valueData );
+              if ( d != null ) {
+                write( data.bulkFormatMeta[i].getString( d ) );
+              }
+            }
+            break;
+          case ValueMetaInterface.TYPE_BIGNUMBER:
+            if ( valueMeta.isStorageBinaryString() && data.bulkFormatMeta[i] == null ) {
+              write( (byte[]) valueData );
+            } else {
+              BigDecimal bn = valueMeta.getBigNumber( valueData );
+              if ( bn != null ) {
+                write( data.bulkFormatMeta[i].getString( bn ) );
+              }
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    }
+
+    // finally write a newline
+    //
+    write( data.newline );
+  }
+}
@@ -13,16 +13,20 @@
 
 package org.pentaho.di.trans.steps.mysqlbulkloader;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.database.MySQLDatabaseMeta;
@@ -48,12 +52,12 @@ import org.hamcrest.core.StringContains;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class MySQLBulkLoaderTest {
@@ -186,13 +190,14 @@ public class MySQLBulkLoaderTest {
     MySQLBulkLoaderData sdi = new MySQLBulkLoaderData();
     sdi.keynrs = new int[1];
     sdi.keynrs[0] = 0;
-    sdi.fifoStream = mock( OutputStream.class );
     loader.init( smi, sdi );
+    ByteArrayOutputStream fifo = new ByteArrayOutputStream();
+    sdi.loader.open( fifo );
     loader.first = false;
 
     when( loader.getRow() ).thenReturn( new String[] { "test\"Escape\\" } );
     loader.processRow( smi, sdi );
-    verify( sdi.fifoStream, times( 1 ) ).write( "test\\\"Escape\\\\".getBytes() );
+    assertEquals( "\"test\\\"Escape\\\\\"" + Const.CR, fifo.toString() );
   }
 
   /**
@@ -239,15 +244,142 @@ public class MySQLBulkLoaderTest {
     MySQLBulkLoaderData sdi = new MySQLBulkLoaderData();
     sdi.keynrs = new int[1];
     sdi.keynrs[0] = 0;
-    sdi.fifoStream = mock( OutputStream.class );
     sdi.bulkFormatMeta = new ValueMetaInterface[] { vmn };
 
     loader.init( smi, sdi );
+    ByteArrayOutputStream fifo = new ByteArrayOutputStream();
+    sdi.loader.open( fifo );
     loader.first = false;
 
     when( loader.getRow() ).thenReturn( new Double[] { 1.023 } );
     loader.processRow( smi, sdi );
-    verify( sdi.fifoStream, times( 1 ) ).write( " 001.023".getBytes() );
+    assertEquals( " 001.023" + Const.CR, fifo.toString() );
     assertEquals( " #000.000;-#000.000", vmn.getDecimalFormat().toPattern() );
   }
+
+  @Test( timeout = 30000 )
+  public void testFailedLoadAbortsTheFifo() throws Exception {
+    FifoOutputStream fifo = new FifoOutputStream() {
+      @Override
+      public void write( byte[] b, int off, int len ) throws IOException {
+        throw new IOException( "Broken pipe" );
+      }
+    };
+    MySQLBulkLoaderMeta smi = new MySQLBulkLoaderMeta();
+    MySQLBulkLoaderData sdi = new MySQLBulkLoaderData();
+    MySQLBulkLoader loader = createStringLoader( smi, sdi );
+    sdi.loader.open( fifo, "test", 4, 2 );
+
+    boolean running = true;
+    while ( running ) {
+      running = loader.processRow( smi, sdi );
+    }
+
+    assertEquals( 1, loader.getErrors() );
+    assertFalse( sdi.loader.isOpen() );
+    assertTrue( fifo.closed );
+  }
+
+  @Test( timeout = 30000 )
+  public void testStopWakesUpTheStepWaitingForTheFifo() throws Exception {
+    FifoOutputStream fifo = new FifoOutputStream();
+    MySQLBulkLoaderMeta smi = new MySQLBulkLoaderMeta();
+    MySQLBulkLoaderData sdi = new MySQLBulkLoaderData();
+    MySQLBulkLoader loader = createStringLoader( smi, sdi );
+    sdi.loader.open( fifo, "test", 4, 2 );
+
+    Thread stepThread = new Thread( () -> {
+      try {
+        boolean running = true;
+        while ( running ) {
+          running = loader.processRow( smi, sdi );
+        }
+      } catch ( KettleException e ) {
+        // The step fails to write
+      }
+    } );
+    stepThread.start();
+    // MySQL stopped reading the FIFO
+    assertTrue( fifo.writing.await( 10, TimeUnit.SECONDS ) );
+
+    loader.stopRunning( smi, sdi );
+    stepThread.join( 10000 );
+
+    assertFalse( stepThread.isAlive() );
+    assertTrue( fifo.closed );
+    fifo.release.countDown();
+  }
+
+  @Test( timeout = 30000 )
+  public void testDisposeDoesNotWaitForTheFifo() throws Exception {
+    FifoOutputStream fifo = new FifoOutputStream();
+    MySQLBulkLoaderMeta smi = new MySQLBulkLoaderMeta();
+    MySQLBulkLoaderData sdi = new MySQLBulkLoaderData();
+    MySQLBulkLoader loader = createStringLoader( smi, sdi );
+    sdi.loader.open( fifo, "test", 8, 4 );
+
+    loader.processRow( smi, sdi );
+    assertTrue( fifo.writing.await( 10, TimeUnit.SECONDS ) );
+    loader.dispose( smi, sdi );
+
+    assertFalse( sdi.loader.isOpen() );
+    assertTrue( fifo.closed );
+    fifo.release.countDown();
+  }
+
+  private MySQLBulkLoader createStringLoader( MySQLBulkLoaderMeta smi, MySQLBulkLoaderData sdi ) throws Exception {
+    PluginRegistry.addPluginType( ValueMetaPluginType.getInstance() );
+    PluginRegistry.init( false );
+
+    TransMeta transMeta = new TransMeta();
+    transMeta.setName( "loader" );
+    StepMeta stepMeta =
+      new StepMeta( PluginRegistry.getInstance().getPluginId( StepPluginType.class, smi ), "loader", smi );
+    Trans trans = new Trans( transMeta );
+    transMeta.addStep( stepMeta );
+    trans.setRunning( true );
+
+    MySQLBulkLoader loader = spy( new MySQLBulkLoader( stepMeta, sdi, 1, transMeta, trans ) );
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    loader.setInputRowMeta( rowMeta );
+    doReturn( new Object[] { "a row of data" } ).when( loader ).getRow();
+
+    smi.setFieldStream( new String[] { "name" } );
+    smi.setFieldFormatType( new int[] { MySQLBulkLoaderMeta.FIELD_FORMAT_TYPE_OK } );
+    smi.setDatabaseMeta( mock( DatabaseMeta.class ) );
+    sdi.keynrs = new int[] { 0 };
+    assertTrue( loader.init( smi, sdi ) );
+    loader.first = false;
+    return loader;
+  }
+
+  /**
+   * A FIFO that MySQL stopped reading: writing blocks until released.
+   */
+  private static class FifoOutputStream extends OutputStream {
+    private final CountDownLatch writing = new CountDownLatch( 1 );
+    private final CountDownLatch release = new CountDownLatch( 1 );
+    private volatile boolean closed;
+
+    @Override
+    public void write( int b ) throws IOException {
+      write( new byte[] { (byte) b }, 0, 1 );
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException {
+      writing.countDown();
+      try {
+        release.await();
+      } catch ( InterruptedException e ) {
+        throw new IOException( e );
+      }
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
 }
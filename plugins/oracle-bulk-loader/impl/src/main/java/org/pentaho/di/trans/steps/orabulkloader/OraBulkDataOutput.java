@@ -17,19 +17,15 @@ import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleFileException;
-import org.pentaho.di.core.util.Utils;
+import org.pentaho.di.core.util.StreamingLoader;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.core.vfs.KettleVFS;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
@@ -37,14 +33,14 @@ import java.util.Date;
 
 /**
  * Does the opening of the output "stream". It's either a file or inter process communication which is transparant to
- * users of this class.
+ * users of this class. The rows are encoded into the pooled buffers of a {@link StreamingLoader}, written to the file
+ * or to sqlldr by a thread of its own.
  *
  * @author Sven Boden
  * @since 20-feb-2007
  */
-public class OraBulkDataOutput {
+public class OraBulkDataOutput extends StreamingLoader {
   private OraBulkLoaderMeta meta;
-  private Writer output = null;
   private StringBuilder outbuf = null;
   private boolean first = true;
   private int[] fieldNumbers = null;
@@ -54,6 +50,7 @@ public class OraBulkDataOutput {
   private String recTerm;
 
   public OraBulkDataOutput( OraBulkLoaderMeta meta, String recTerm ) {
+    super( meta.getEncoding() );
     this.meta = meta;
     this.recTerm = recTerm;
   }
@@ -61,42 +58,22 @@ public class OraBulkDataOutput {
   public void open( VariableSpace space, Process sqlldrProcess ) throws KettleException {
     String loadMethod = meta.getLoadMethod();
     try {
-      OutputStream os;
-
       if ( OraBulkLoaderMeta.METHOD_AUTO_CONCURRENT.equals( loadMethod ) ) {
-        os = sqlldrProcess.getOutputStream();
+        // Feed sqlldr from a thread of its own, the rows are formatted while it loads the previous ones
+        open( sqlldrProcess.getOutputStream(), "sqlldr feeder" );
       } else {
         // Else open the data file filled in.
         String dataFilePath = getFilename( getFileObject( space.environmentSubstitute( meta.getDataFile() ), space ) );
         File dataFile = new File( dataFilePath );
         // Make sure the parent directory exists
         dataFile.getParentFile().mkdirs();
-        os = new FileOutputStream( dataFile, false );
-      }
-
-      String encoding = meta.getEncoding();
-      if ( Utils.isEmpty( encoding ) ) {
-        // Use the default encoding.
-        output = new BufferedWriter( new OutputStreamWriter( os ) );
-      } else {
-        // Use the specified encoding
-        output = new BufferedWriter( new OutputStreamWriter( os, encoding ) );
+        open( new FileOutputStream( dataFile, false ), "sqlldr data file writer" );
       }
     } catch ( IOException e ) {
       throw new KettleException( "IO exception occured: " + e.getMessage(), e );
     }
   }
 
-  public void close() throws IOException {
-    if ( output != null ) {
-      output.close();
-    }
-  }
-
-  Writer getOutput() {
-    return output;
-  }
-
   private String createEscapedString( String orig, String enclosure ) {
     StringBuilder buf = new StringBuilder( orig );
 
@@ -104,8 +81,17 @@ public class OraBulkDataOutput {
     return buf.toString();
   }
 
-  @SuppressWarnings( "ArrayToString" )
   public void writeLine( RowMetaInterface mi, Object[] row ) throws KettleException {
+    try {
+      writeRow( mi, row );
+    } catch ( IOException e ) {
+      throw new KettleException( "IO exception occured: " + e.getMessage(), e );
+    }
+  }
+
+  @Override
+  @SuppressWarnings( "ArrayToString" )
+  protected void formatRow( RowMetaInterface mi, Object[] row ) throws KettleException, IOException {
     if ( first ) {
       first = false;
 
@@ -225,11 +211,7 @@ public class OraBulkDataOutput {
       }
     }
     outbuf.append( recTerm );
-    try {
-      output.append( outbuf );
-    } catch ( IOException e ) {
-      throw new KettleException( "IO exception occured: " + e.getMessage(), e );
-    }
+    write( outbuf );
   }
 
   @VisibleForTesting
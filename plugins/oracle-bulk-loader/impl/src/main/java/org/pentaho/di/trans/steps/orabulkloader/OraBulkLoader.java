@@ -72,7 +72,7 @@ public class OraBulkLoader extends BaseStep implements StepInterface {
 
   private OraBulkLoaderMeta meta;
   protected OraBulkLoaderData data;
-  private OraBulkDataOutput output = null;
+  private volatile OraBulkDataOutput output = null;
 
   /*
    * Local copy of the transformation "preview" property. We only forward the rows upon previewing, we don't do any of
@@ -564,6 +564,7 @@ public class OraBulkLoader extends BaseStep implements StepInterface {
 
     } catch ( KettleException e ) {
       logError( BaseMessages.getString( PKG, "OraBulkLoader.Log.ErrorInStep" ) + e.getMessage() );
+      abortOutput();
       setErrors( 1 );
       stopAll();
       setOutputDone(); // signal end to receiver(s)
@@ -573,6 +574,23 @@ public class OraBulkLoader extends BaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * Closes the data file or the input of sqlldr without waiting for the rows not written yet.
+   */
+  private void abortOutput() {
+    OraBulkDataOutput dataOutput = output;
+    if ( dataOutput != null ) {
+      dataOutput.abort();
+    }
+  }
+
+  @Override
+  public void stopRunning( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
+    // Don't let the step wait for a sqlldr that doesn't read anymore
+    abortOutput();
+    super.stopRunning( smi, sdi );
+  }
+
   protected void verifyDatabaseConnection() throws KettleException {
     if ( meta.getDatabaseMeta() == null ) {
       throw new KettleException( BaseMessages.getString( PKG, "OraBulkLoaderMeta.GetSQL.NoConnectionDefined" ) );
@@ -604,17 +622,10 @@ public class OraBulkLoader extends BaseStep implements StepInterface {
 
     super.dispose( smi, sdi );
 
-    // close output stream (may terminate running sqlldr)
-    if ( output != null ) {
-      // Close the output
-      try {
-        output.close();
-      } catch ( IOException e ) {
-        logError( "Error while closing output", e );
-      }
-
-      output = null;
-    }
+    // close output stream (may terminate running sqlldr), the rows were all written unless the step failed or
+    // was stopped
+    abortOutput();
+    output = null;
     // running sqlldr process must be terminated
     if ( sqlldrProcess != null ) {
       try {
@@ -20,12 +20,17 @@ import org.junit.Test;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doReturn;
@@ -95,4 +100,24 @@ public class OraBulkDataOutputTest {
       assertTrue( kex.getMessage().contains( "IO exception occured:" ) );
     }
   }
+
+  @Test
+  public void testConcurrentLoadStreamsTheRowsToSqlldr() throws Exception {
+    ByteArrayOutputStream sqlldrInput = new ByteArrayOutputStream();
+    when( sqlldrProcess.getOutputStream() ).thenReturn( sqlldrInput );
+    when( oraBulkLoaderMeta.getLoadMethod() ).thenReturn( OraBulkLoaderMeta.METHOD_AUTO_CONCURRENT );
+    when( oraBulkLoaderMeta.getEnclosure() ).thenReturn( "\"" );
+    when( oraBulkLoaderMeta.getFieldStream() ).thenReturn( new String[] { "name", "id" } );
+    when( oraBulkLoaderMeta.getDateMask() ).thenReturn( new String[] { "", "" } );
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    oraBulkDataOutput.open( space, sqlldrProcess );
+    oraBulkDataOutput.writeLine( rowMeta, new Object[] { "say \"hi\"", 1L } );
+    oraBulkDataOutput.writeLine( rowMeta, new Object[] { null, 2L } );
+    oraBulkDataOutput.close();
+
+    assertEquals( "\"say \"\"hi\"\"\",\"1\"" + Const.CR + "\"\",\"2\"" + Const.CR, sqlldrInput.toString() );
+  }
 }
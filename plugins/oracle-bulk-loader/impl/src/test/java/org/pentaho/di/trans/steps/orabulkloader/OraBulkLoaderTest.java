@@ -22,6 +22,7 @@ import org.pentaho.di.core.KettleClientEnvironment;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
@@ -31,9 +32,13 @@ import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.steps.mock.StepMockHelper;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.core.StringContains.containsString;
 import static org.junit.Assert.assertEquals;
@@ -42,6 +47,8 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -199,4 +206,116 @@ public class OraBulkLoaderTest {
       assertThat( aKettleException.getMessage(), containsString( "There is no connection defined in this step." ) );
     }
   }
+
+  @Test( timeout = 30000 )
+  public void testFailedLoadAbortsTheInputOfSqlldr() throws Exception {
+    SqlldrInput input = new SqlldrInput() {
+      @Override
+      public void write( byte[] b, int off, int len ) throws IOException {
+        throw new IOException( "Broken pipe" );
+      }
+    };
+    OraBulkLoaderMeta meta = createConcurrentLoad( input );
+    OraBulkLoaderData data = new OraBulkLoaderData();
+
+    boolean running = true;
+    while ( running ) {
+      running = oraBulkLoader.processRow( meta, data );
+    }
+
+    assertEquals( 1, oraBulkLoader.getErrors() );
+    assertTrue( input.closed );
+  }
+
+  @Test( timeout = 30000 )
+  public void testStopWakesUpTheStepWaitingForSqlldr() throws Exception {
+    SqlldrInput input = new SqlldrInput();
+    OraBulkLoaderMeta meta = createConcurrentLoad( input );
+    OraBulkLoaderData data = new OraBulkLoaderData();
+
+    Thread stepThread = new Thread( () -> {
+      try {
+        boolean running = true;
+        while ( running ) {
+          running = oraBulkLoader.processRow( meta, data );
+        }
+      } catch ( KettleException e ) {
+        // The step fails to write
+      }
+    } );
+    stepThread.start();
+    // sqlldr stopped reading its input
+    assertTrue( input.writing.await( 10, TimeUnit.SECONDS ) );
+
+    oraBulkLoader.stopRunning( meta, data );
+    stepThread.join( 10000 );
+
+    assertFalse( stepThread.isAlive() );
+    assertTrue( input.closed );
+    input.release.countDown();
+  }
+
+  @Test( timeout = 30000 )
+  public void testDisposeDoesNotWaitForSqlldr() throws Exception {
+    SqlldrInput input = new SqlldrInput();
+    OraBulkLoaderMeta meta = createConcurrentLoad( input );
+    OraBulkLoaderData data = new OraBulkLoaderData();
+
+    assertTrue( oraBulkLoader.processRow( meta, data ) );
+    oraBulkLoader.dispose( meta, data );
+
+    assertTrue( input.closed );
+    input.release.countDown();
+  }
+
+  private OraBulkLoaderMeta createConcurrentLoad( SqlldrInput input ) throws Exception {
+    OraBulkLoaderMeta meta = new OraBulkLoaderMeta();
+    meta.setDefault();
+    meta.setLoadMethod( OraBulkLoaderMeta.METHOD_AUTO_CONCURRENT );
+    meta.setControlFile( tempControlVfsFilepath );
+    meta.setFieldStream( new String[] { "name" } );
+    meta.setFieldTable( new String[] { "name" } );
+    meta.setDateMask( new String[] { "" } );
+
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    doReturn( rowMeta ).when( oraBulkLoader ).getInputRowMeta();
+    doReturn( new Object[] { "a row of data" } ).when( oraBulkLoader ).getRow();
+    doNothing().when( oraBulkLoader ).createControlFile( any(), any(), any() );
+    doReturn( true ).when( oraBulkLoader ).execute( any(), anyBoolean() );
+
+    Process sqlldr = mock( Process.class );
+    when( sqlldr.getOutputStream() ).thenReturn( input );
+    oraBulkLoader.sqlldrProcess = sqlldr;
+    return meta;
+  }
+
+  /**
+   * The input of a sqlldr that stopped reading: writing blocks until released.
+   */
+  private static class SqlldrInput extends OutputStream {
+    private final CountDownLatch writing = new CountDownLatch( 1 );
+    private final CountDownLatch release = new CountDownLatch( 1 );
+    private volatile boolean closed;
+
+    @Override
+    public void write( int b ) throws IOException {
+      write( new byte[] { (byte) b }, 0, 1 );
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException {
+      writing.countDown();
+      try {
+        release.await();
+      } catch ( InterruptedException e ) {
+        throw new IOException( e );
+      }
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
 }
@@ -23,6 +23,7 @@ import org.pentaho.di.cluster.SlaveServer;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.NotePadMeta;
+import org.pentaho.di.core.RowSetWaitStrategy;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LogTableInterface;
@@ -88,6 +89,8 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
 
   private static final String PROP_TRANSFORMATION_TYPE = "TRANSFORMATION_TYPE";
 
+  private static final String PROP_ROWSET_WAIT_STRATEGY = "ROWSET_WAIT_STRATEGY";
+
   public static final String PROP_TRANS_DATA_SERVICE_NAME = "DATA_SERVICE_NAME";
 
   private static final String PROP_STEP_PERFORMANCE_LOG_TABLE = "STEP_PERFORMANCE_LOG_TABLE";
@@ -580,6 +583,8 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
     transMeta.setSharedObjectsFile( getString( rootNode, PROP_SHARED_FILE ) );
     String transTypeCode = getString( rootNode, PROP_TRANSFORMATION_TYPE );
     transMeta.setTransformationType( TransformationType.getTransformationTypeByCode( transTypeCode ) );
+    String waitStrategyCode = getString( rootNode, PROP_ROWSET_WAIT_STRATEGY );
+    transMeta.setRowSetWaitStrategy( RowSetWaitStrategy.getWaitStrategyByCode( waitStrategyCode ) );
 
     // Performance monitoring for steps...
     //
@@ -839,6 +844,7 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
     rootNode.setProperty( PROP_LOG_INTERVAL, transMeta.getTransLogTable().getLogInterval() );
 
     rootNode.setProperty( PROP_TRANSFORMATION_TYPE, transMeta.getTransformationType().getCode() );
+    rootNode.setProperty( PROP_ROWSET_WAIT_STRATEGY, transMeta.getRowSetWaitStrategy().getCode() );
 
     // Save the logging tables too..
     //
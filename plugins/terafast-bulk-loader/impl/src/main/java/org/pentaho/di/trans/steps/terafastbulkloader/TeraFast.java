@@ -14,15 +14,17 @@
 package org.pentaho.di.trans.steps.terafastbulkloader;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintStream;
-import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -59,16 +61,15 @@ public class TeraFast extends AbstractStep implements StepInterface {
 
   private OutputStream fastload;
 
-  private OutputStream dataFile;
+  private final TeraFastDataOutput dataOutput = new TeraFastDataOutput();
 
-  private PrintStream dataFilePrintStream;
+  /** The named pipe the rows are streamed through, null if they are written to the data file */
+  private String fifoFileName;
 
   private List<Integer> columnSortOrder;
 
   private RowMetaInterface tableRowMeta;
 
-  private SimpleDateFormat simpleDateFormat;
-
   /**
    * Constructor.
    *
@@ -139,7 +140,6 @@ public class TeraFast extends AbstractStep implements StepInterface {
   @Override
   public boolean init( final StepMetaInterface smi, final StepDataInterface sdi ) {
     this.meta = (TeraFastMeta) smi;
-    simpleDateFormat = new SimpleDateFormat( FastloadControlBuilder.DEFAULT_DATE_FORMAT );
     if ( super.init( smi, sdi ) ) {
       try {
         verifyDatabaseConnection();
@@ -165,13 +165,19 @@ public class TeraFast extends AbstractStep implements StepInterface {
     Object[] row = getRow();
     if ( row == null ) {
 
-      /* In case we have no data, we need to ensure that the printstream was ever initialized. It will if there is
-      *  data. So we check for a null printstream, then we close the dataFile and execute only if it existed.
+      /* In case we have no data, we need to ensure that the data file was ever opened. It will if there is
+      *  data. So we check for an open data file, then we close it and execute only if it existed. When the rows are
+      *  streamed, fastload is running already and loads them once the named pipe is closed.
       */
-      if ( this.dataFilePrintStream != null ) {
-        this.dataFilePrintStream.close();
-        IOUtils.closeQuietly( this.dataFile );
-        this.execute();
+      if ( this.dataOutput.isOpen() ) {
+        try {
+          this.dataOutput.close();
+        } catch ( IOException e ) {
+          throw new KettleException( "Error while closing the data file", e );
+        }
+        if ( this.fifoFileName == null ) {
+          this.execute();
+        }
       }
 
       setOutputDone();
@@ -196,13 +202,6 @@ public class TeraFast extends AbstractStep implements StepInterface {
 
     if ( this.first ) {
       this.first = false;
-      try {
-        final File tempDataFile = new File( resolveFileName( this.meta.getDataFile().getValue() ) );
-        this.dataFile = FileUtils.openOutputStream( tempDataFile );
-        this.dataFilePrintStream = new PrintStream( dataFile );
-      } catch ( IOException e ) {
-        throw new KettleException( "Cannot open data file [path=" + this.dataFile + "]", e );
-      }
 
       // determine column sort order according to field mapping
       // thus the columns in the generated datafile are always in the same order and have the same size as in the
@@ -218,6 +217,8 @@ public class TeraFast extends AbstractStep implements StepInterface {
           this.columnSortOrder.add( streamRowMeta.indexOfValue( streamField ) );
         }
       }
+
+      openDataFile();
     }
 
     writeToDataFile( getInputRowMeta(), row );
@@ -235,71 +236,108 @@ public class TeraFast extends AbstractStep implements StepInterface {
    * @throws KettleException
    *           ...
    */
-  @SuppressWarnings( "ArrayToString" )
   public void writeToDataFile( RowMetaInterface rowMetaInterface, Object[] row ) throws KettleException {
-    // Write the data to the output
-    ValueMetaInterface valueMeta = null;
+    try {
+      this.dataOutput.writeRow( rowMetaInterface, row );
+    } catch ( IOException e ) {
+      this.dataOutput.abort();
+      throw new KettleException( "Error while writing to the data file", e );
+    }
+  }
 
-    for ( int i = 0; i < row.length; i++ ) {
-      if ( row[i] == null ) {
-        break; // no more rows
-      }
-      valueMeta = rowMetaInterface.getValueMeta( i );
-      if ( row[i] != null ) {
-        switch ( valueMeta.getType() ) {
-          case ValueMetaInterface.TYPE_STRING:
-            String s = rowMetaInterface.getString( row, i );
-            dataFilePrintStream.print( pad( valueMeta, s ) );
-            break;
-          case ValueMetaInterface.TYPE_INTEGER:
-            Long l = rowMetaInterface.getInteger( row, i );
-            dataFilePrintStream.print( pad( valueMeta, l.toString() ) );
-            break;
-          case ValueMetaInterface.TYPE_NUMBER:
-            Double d = rowMetaInterface.getNumber( row, i );
-            dataFilePrintStream.print( pad( valueMeta, d.toString() ) );
-            break;
-          case ValueMetaInterface.TYPE_BIGNUMBER:
-            BigDecimal bd = rowMetaInterface.getBigNumber( row, i );
-            dataFilePrintStream.print( pad( valueMeta, bd.toString() ) );
-            break;
-          case ValueMetaInterface.TYPE_DATE:
-            Date dt = rowMetaInterface.getDate( row, i );
-            dataFilePrintStream.print( simpleDateFormat.format( dt ) );
-            break;
-          case ValueMetaInterface.TYPE_BOOLEAN:
-            Boolean b = rowMetaInterface.getBoolean( row, i );
-            if ( b.booleanValue() ) {
-              dataFilePrintStream.print( "Y" );
-            } else {
-              dataFilePrintStream.print( "N" );
-            }
-            break;
-          case ValueMetaInterface.TYPE_BINARY:
-            byte[] byt = rowMetaInterface.getBinary( row, i );
-            // REVIEW - this does an implicit byt.toString, which can't be what was intended.
-            dataFilePrintStream.print( byt );
-            break;
-          default:
-            throw new KettleException( BaseMessages.getString(
-              PKG, "TeraFast.Exception.TypeNotSupported", valueMeta.getType() ) );
-        }
+  /**
+   * Opens the data file. When the data file is streamed, it is made a named pipe and fastload is started to read the
+   * rows while they are written.
+   *
+   * @throws KettleException
+   *           ...
+   */
+  private void openDataFile() throws KettleException {
+    final String dataFileName = resolveFileName( this.meta.getDataFile().getValue() );
+    if ( isStreamingDataFile() ) {
+      createFifo( dataFileName );
+      this.fifoFileName = dataFileName;
+      this.execute();
+      this.dataOutput.open( openFifo( dataFileName ), getStepname() + " - fastload feeder" );
+    } else {
+      try {
+        this.dataOutput.open( FileUtils.openOutputStream( new File( dataFileName ) ),
+          getStepname() + " - data file writer" );
+      } catch ( IOException e ) {
+        throw new KettleException( "Cannot open data file [path=" + dataFileName + "]", e );
       }
-      dataFilePrintStream.print( FastloadControlBuilder.DATAFILE_COLUMN_SEPERATOR );
     }
-    dataFilePrintStream.print( Const.CR );
   }
 
-  private String pad( ValueMetaInterface valueMetaInterface, String data ) {
-    StringBuilder padding = new StringBuilder( data );
-    int padLength = valueMetaInterface.getLength() - data.length();
-    int currentPadLength = 0;
-    while ( currentPadLength < padLength ) {
-      padding.append( " " );
-      currentPadLength++;
+  /**
+   * @return true if the rows are streamed to fastload through a named pipe. Only done for the generated loading
+   *         commands, which define the data file, and where named pipes exist.
+   */
+  private boolean isStreamingDataFile() {
+    return Boolean.TRUE.equals( this.meta.getStreamDataFile().getValue() )
+      && !Boolean.TRUE.equals( this.meta.getUseControlFile().getValue() ) && !Const.isWindows();
+  }
 
+  /**
+   * Makes the data file a named pipe.
+   *
+   * @param fifoFileName
+   *          the path of the data file.
+   * @throws KettleException
+   *           ...
+   */
+  private void createFifo( final String fifoFileName ) throws KettleException {
+    final File fifoFile = new File( fifoFileName );
+    // A data file written by an earlier load would be read while the rows are written to it
+    fifoFile.delete();
+    if ( fifoFile.getParentFile() != null ) {
+      fifoFile.getParentFile().mkdirs();
+    }
+    final String[] command = { "mkfifo", fifoFileName };
+    try {
+      final Process mkfifo = Runtime.getRuntime().exec( command );
+      new Thread( new ConfigurableStreamLogger(
+        getLogChannel(), mkfifo.getErrorStream(), LogLevel.ERROR, "ERROR" ) ).start();
+      new Thread( new ConfigurableStreamLogger(
+        getLogChannel(), mkfifo.getInputStream(), LogLevel.DETAILED, "OUTPUT" ) ).start();
+      final int exitVal = mkfifo.waitFor();
+      if ( exitVal != 0 ) {
+        throw new KettleException( "Cannot create named pipe [path=" + fifoFileName + ", exitValue=" + exitVal + "]" );
+      }
+    } catch ( IOException | InterruptedException e ) {
+      throw new KettleException( "Cannot create named pipe [path=" + fifoFileName + "]", e );
+    }
+  }
+
+  /**
+   * Opens the named pipe for writing. That blocks until fastload opens it for reading, so the pipe is opened by a
+   * thread of its own while the step checks that fastload is still running.
+   *
+   * @param fifoFileName
+   *          the path of the named pipe.
+   * @return the stream to write the rows to.
+   * @throws KettleException
+   *           ...
+   */
+  private OutputStream openFifo( final String fifoFileName ) throws KettleException {
+    final FutureTask<OutputStream> openFifo = new FutureTask<>( () -> new FileOutputStream( fifoFileName ) );
+    new Thread( openFifo, getStepname() + " - open named pipe" ).start();
+    try {
+      while ( true ) {
+        try {
+          return openFifo.get( 200, TimeUnit.MILLISECONDS );
+        } catch ( TimeoutException e ) {
+          if ( !this.process.isAlive() || isStopped() ) {
+            // Nobody will read the named pipe: open it for reading to unblock the thread opening it
+            new FileInputStream( fifoFileName ).close();
+            IOUtils.closeQuietly( openFifo.get() );
+            throw new KettleException( "Fastload didn't open the data file [path=" + fifoFileName + "]" );
+          }
+        }
+      }
+    } catch ( IOException | InterruptedException | ExecutionException e ) {
+      throw new KettleException( "Cannot open data file [path=" + fifoFileName + "]", e );
     }
-    return padding.toString();
   }
 
   /**
@@ -412,6 +450,19 @@ public class TeraFast extends AbstractStep implements StepInterface {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.pentaho.di.trans.step.BaseStep#stopRunning(org.pentaho.di.trans.step.StepMetaInterface,
+   *      org.pentaho.di.trans.step.StepDataInterface)
+   */
+  @Override
+  public void stopRunning( final StepMetaInterface smi, final StepDataInterface sdi ) throws KettleException {
+    // Don't let the step wait for a fastload that doesn't read anymore
+    this.dataOutput.abort();
+    super.stopRunning( smi, sdi );
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -429,7 +480,8 @@ public class TeraFast extends AbstractStep implements StepInterface {
     } catch ( IOException e ) {
       logError( "Unexpected error encountered while issuing END LOADING", e );
     }
-    IOUtils.closeQuietly( this.dataFile );
+    // The rows were all written unless the step failed or was stopped
+    this.dataOutput.abort();
     IOUtils.closeQuietly( this.fastload );
     try {
       if ( this.process != null ) {
@@ -444,6 +496,9 @@ public class TeraFast extends AbstractStep implements StepInterface {
       setErrors( DEFAULT_ERROR_CODE );
       logError( "Unexpected error encountered while finishing the fastload process", e );
     }
+    if ( this.fifoFileName != null ) {
+      new File( this.fifoFileName ).delete();
+    }
 
     super.dispose( smi, sdi );
   }
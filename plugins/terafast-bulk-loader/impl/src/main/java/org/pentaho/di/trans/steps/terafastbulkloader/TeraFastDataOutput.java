@@ -0,0 +1,113 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.terafastbulkloader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.StreamingLoader;
+import org.pentaho.di.i18n.BaseMessages;
+
+/**
+ * Formats the rows of the fastload data file: the padded values, each followed by the column separator. The rows are
+ * written to the data file or to the named pipe fastload reads.
+ */
+public class TeraFastDataOutput extends StreamingLoader {
+
+  private static Class<?> PKG = TeraFastMeta.class; // for i18n purposes, needed by Translator2!!
+
+  private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat( FastloadControlBuilder.DEFAULT_DATE_FORMAT );
+
+  private final StringBuilder outbuf = new StringBuilder();
+
+  /**
+   * Formats the rows in the default encoding.
+   */
+  public TeraFastDataOutput() {
+    super( null );
+  }
+
+  @Override
+  @SuppressWarnings( "ArrayToString" )
+  protected void formatRow( RowMetaInterface rowMetaInterface, Object[] row ) throws KettleException, IOException {
+    outbuf.setLength( 0 );
+
+    // Write the data to the output
+    ValueMetaInterface valueMeta = null;
+
+    for ( int i = 0; i < row.length; i++ ) {
+      if ( row[i] == null ) {
+        break; // no more rows
+      }
+      valueMeta = rowMetaInterface.getValueMeta( i );
+      if ( row[i] != null ) {
+        switch ( valueMeta.getType() ) {
+          case ValueMetaInterface.TYPE_STRING:
+            String s = rowMetaInterface.getString( row, i );
+            pad( valueMeta, s );
+            break;
+          case ValueMetaInterface.TYPE_INTEGER:
+            Long l = rowMetaInterface.getInteger( row, i );
+            pad( valueMeta, l.toString() );
+            break;
+          case ValueMetaInterface.TYPE_NUMBER:
+            Double d = rowMetaInterface.getNumber( row, i );
+            pad( valueMeta, d.toString() );
+            break;
+          case ValueMetaInterface.TYPE_BIGNUMBER:
+            BigDecimal bd = rowMetaInterface.getBigNumber( row, i );
+            pad( valueMeta, bd.toString() );
+            break;
+          case ValueMetaInterface.TYPE_DATE:
+            Date dt = rowMetaInterface.getDate( row, i );
+            outbuf.append( simpleDateFormat.format( dt ) );
+            break;
+          case ValueMetaInterface.TYPE_BOOLEAN:
+            Boolean b = rowMetaInterface.getBoolean( row, i );
+            if ( b.booleanValue() ) {
+              outbuf.append( "Y" );
+            } else {
+              outbuf.append( "N" );
+            }
+            break;
+          case ValueMetaInterface.TYPE_BINARY:
+            byte[] byt = rowMetaInterface.getBinary( row, i );
+            // REVIEW - this does an implicit byt.toString, which can't be what was intended.
+            outbuf.append( byt );
+            break;
+          default:
+            throw new KettleException( BaseMessages.getString(
+              PKG, "TeraFast.Exception.TypeNotSupported", valueMeta.getType() ) );
+        }
+      }
+      outbuf.append( FastloadControlBuilder.DATAFILE_COLUMN_SEPERATOR );
+    }
+    outbuf.append( Const.CR );
+    write( outbuf );
+  }
+
+  private void pad( ValueMetaInterface valueMetaInterface, String data ) {
+    outbuf.append( data );
+    int padLength = valueMetaInterface.getLength() - data.length();
+    for ( int currentPadLength = 0; currentPadLength < padLength; currentPadLength++ ) {
+      outbuf.append( ' ' );
+    }
+  }
+}
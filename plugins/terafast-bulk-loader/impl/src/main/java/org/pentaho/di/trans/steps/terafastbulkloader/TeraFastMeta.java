@@ -75,6 +75,8 @@ public class TeraFastMeta extends AbstractStepMeta {
 
   public static final boolean DEFAULT_VARIABLE_SUBSTITUTION = true;
 
+  public static final boolean DEFAULT_STREAM_DATA_FILE = false;
+
   /**
    * Default error limit.
    */
@@ -105,6 +107,8 @@ public class TeraFastMeta extends AbstractStepMeta {
 
   private static final String VARIABLE_SUBSTITUTION = "variable_substitution";
 
+  private static final String STREAM_DATA_FILE = "stream_data_file";
+
   /** available options. **/
   private StringPluginProperty fastloadPath;
 
@@ -124,6 +128,8 @@ public class TeraFastMeta extends AbstractStepMeta {
 
   private BooleanPluginProperty truncateTable;
 
+  private BooleanPluginProperty streamDataFile;
+
   private StringPluginProperty targetTable;
 
   private StringListPluginProperty tableFieldList;
@@ -147,6 +153,7 @@ public class TeraFastMeta extends AbstractStepMeta {
     this.tableFieldList = this.getPropertyFactory().createStringList( TABLE_FIELD_LIST );
     this.streamFieldList = this.getPropertyFactory().createStringList( STREAM_FIELD_LIST );
     this.variableSubstitution = this.getPropertyFactory().createBoolean( VARIABLE_SUBSTITUTION );
+    this.streamDataFile = this.getPropertyFactory().createBoolean( STREAM_DATA_FILE );
   }
 
   /**
@@ -272,6 +279,7 @@ public class TeraFastMeta extends AbstractStepMeta {
     this.errorLimit.setValue( DEFAULT_ERROR_LIMIT );
     this.truncateTable.setValue( DEFAULT_TRUNCATETABLE );
     this.variableSubstitution.setValue( DEFAULT_VARIABLE_SUBSTITUTION );
+    this.streamDataFile.setValue( DEFAULT_STREAM_DATA_FILE );
     this.targetTable.setValue( DEFAULT_TARGET_TABLE );
     this.useControlFile.setValue( true );
   }
@@ -493,4 +501,20 @@ public class TeraFastMeta extends AbstractStepMeta {
     this.variableSubstitution = variableSubstitution;
   }
 
+  /**
+   * @return the streamDataFile, true to make the data file a named pipe that fastload reads while the rows are
+   *         written
+   */
+  public BooleanPluginProperty getStreamDataFile() {
+    return this.streamDataFile;
+  }
+
+  /**
+   * @param streamDataFile
+   *          the streamDataFile to set
+   */
+  public void setStreamDataFile( final BooleanPluginProperty streamDataFile ) {
+    this.streamDataFile = streamDataFile;
+  }
+
 }
@@ -17,20 +17,38 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.core.util.GenericStepData;
 import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.steps.mock.StepMockHelper;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+
 import static org.hamcrest.core.StringContains.containsString;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -85,4 +103,109 @@ public class TeraFastTest {
       assertThat( aKettleException.getMessage(), containsString( "There is no connection defined in this step." ) );
     }
   }
+
+  @Test
+  public void testWritesThePaddedRowsToTheDataFile() throws Exception {
+    File dataFile = File.createTempFile( "terafast", ".dat" );
+    dataFile.deleteOnExit();
+    TeraFastMeta meta = createMeta( dataFile, false );
+    TeraFast loader = createLoader( meta );
+    doNothing().when( loader ).execute();
+
+    processRows( loader, meta, new Object[] { "abc" }, new Object[] { "de" } );
+
+    verify( loader ).execute();
+    assertEquals( "abc     |" + Const.CR + "de      |" + Const.CR,
+      new String( Files.readAllBytes( dataFile.toPath() ), StandardCharsets.UTF_8 ) );
+  }
+
+  @Test( timeout = 30000 )
+  public void testStreamsTheRowsToFastloadThroughANamedPipe() throws Exception {
+    assumeFalse( Const.isWindows() );
+    File dir = Files.createTempDirectory( "terafast" ).toFile();
+    File fifo = new File( dir, "data.fifo" );
+    File loaded = new File( dir, "loaded.dat" );
+    // fastload reads its commands, then the data file
+    createFastload( dir, "cat > /dev/null; cat '" + fifo + "' > '" + loaded + "'" );
+    TeraFastMeta meta = createMeta( fifo, true );
+    meta.getFastloadPath().setValue( new File( dir, "fastload" ).getAbsolutePath() );
+    TeraFast loader = createLoader( meta );
+
+    processRows( loader, meta, new Object[] { "abc" }, new Object[] { "de" } );
+
+    assertEquals( 0, loader.getErrors() );
+    assertEquals( "abc     |" + Const.CR + "de      |" + Const.CR,
+      new String( Files.readAllBytes( loaded.toPath() ), StandardCharsets.UTF_8 ) );
+    loader.dispose( meta, stepMockHelper.processRowsStepDataInterface );
+    assertFalse( fifo.exists() );
+  }
+
+  @Test( timeout = 30000 )
+  public void testDoesNotWaitForAFastloadThatEndedWithoutReading() throws Exception {
+    assumeFalse( Const.isWindows() );
+    File dir = Files.createTempDirectory( "terafast" ).toFile();
+    File fifo = new File( dir, "data.fifo" );
+    createFastload( dir, "cat > /dev/null; exit 8" );
+    TeraFastMeta meta = createMeta( fifo, true );
+    meta.getFastloadPath().setValue( new File( dir, "fastload" ).getAbsolutePath() );
+    TeraFast loader = createLoader( meta );
+    doReturn( new Object[] { "abc" } ).when( loader ).getRow();
+
+    try {
+      loader.processRow( meta, stepMockHelper.processRowsStepDataInterface );
+      fail( "Fastload didn't read the rows" );
+    } catch ( KettleException e ) {
+      assertThat( e.getMessage(), containsString( "Fastload didn't open the data file" ) );
+    }
+    loader.dispose( meta, stepMockHelper.processRowsStepDataInterface );
+    assertFalse( fifo.exists() );
+  }
+
+  private TeraFastMeta createMeta( File dataFile, boolean streamDataFile ) throws Exception {
+    DatabaseMeta dbMeta = mock( DatabaseMeta.class );
+    when( dbMeta.getHostname() ).thenReturn( "localtd" );
+    when( dbMeta.getUsername() ).thenReturn( "user" );
+    when( dbMeta.getPassword() ).thenReturn( "password" );
+
+    TeraFastMeta meta = spy( new TeraFastMeta() );
+    meta.setDefault();
+    meta.setDbMeta( dbMeta );
+    meta.getUseControlFile().setValue( false );
+    meta.getTruncateTable().setValue( false );
+    meta.getStreamDataFile().setValue( streamDataFile );
+    meta.getDataFile().setValue( dataFile.getAbsolutePath() );
+    meta.getTargetTable().setValue( "target" );
+    meta.getTableFieldList().getValue().add( "name" );
+    meta.getStreamFieldList().getValue().add( "name" );
+    doReturn( createRowMeta() ).when( meta ).getRequiredFields( any() );
+    return meta;
+  }
+
+  private TeraFast createLoader( TeraFastMeta meta ) throws Exception {
+    when( stepMockHelper.transMeta.getPrevStepFields( any( StepMeta.class ) ) ).thenReturn( createRowMeta() );
+    TeraFast loader = spy( new TeraFast( stepMockHelper.stepMeta, stepMockHelper.stepDataInterface, 0,
+      stepMockHelper.transMeta, stepMockHelper.trans ) );
+    doReturn( createRowMeta() ).when( loader ).getInputRowMeta();
+    return loader;
+  }
+
+  private RowMeta createRowMeta() {
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name", 8, -1 ) );
+    return rowMeta;
+  }
+
+  private void processRows( TeraFast loader, TeraFastMeta meta, Object[]... rows ) throws Exception {
+    Iterator<Object[]> input = Arrays.asList( rows ).iterator();
+    doAnswer( invocation -> input.hasNext() ? input.next() : null ).when( loader ).getRow();
+    while ( loader.processRow( meta, stepMockHelper.processRowsStepDataInterface ) ) {
+      // load the next row
+    }
+  }
+
+  private void createFastload( File dir, String script ) throws Exception {
+    File fastload = new File( dir, "fastload" );
+    Files.write( fastload.toPath(), ( "#!/bin/sh\n" + script + "\n" ).getBytes( StandardCharsets.UTF_8 ) );
+    assertTrue( fastload.setExecutable( true ) );
+  }
 }
@@ -145,6 +145,10 @@ public class TeraFastDialog extends BaseStepDialog implements StepDialogInterfac
 
   private Button wbTruncateTable;
 
+  private Label wlStreamDataFile;
+
+  private Button wStreamDataFile;
+
   private Link wAscLink;
 
   private Label wlReturn;
@@ -316,6 +320,7 @@ public class TeraFastDialog extends BaseStepDialog implements StepDialogInterfac
     this.wbTruncateTable.setSelection( this.meta.getTruncateTable().getValue() );
     this.wUseControlFile.setSelection( this.meta.getUseControlFile().getValue() );
     this.wVariableSubstitution.setSelection( this.meta.getVariableSubstitution().getValue() );
+    this.wStreamDataFile.setSelection( this.meta.getStreamDataFile().getValue() );
 
     if ( this.meta.getTableFieldList().getValue().size() == this.meta.getStreamFieldList().getValue().size() ) {
       for ( int i = 0; i < this.meta.getTableFieldList().getValue().size(); i++ ) {
@@ -527,6 +532,7 @@ public class TeraFastDialog extends BaseStepDialog implements StepDialogInterfac
     this.meta.getConnectionName().setValue( this.wConnection.getText() );
     this.meta.getTruncateTable().setValue(
       this.wbTruncateTable.getSelection() && this.wbTruncateTable.getEnabled() );
+    this.meta.getStreamDataFile().setValue( this.wStreamDataFile.getSelection() );
     this.meta.setDbMeta( this.transMeta.findDatabase( this.wConnection.getText() ) );
 
     this.meta.getTableFieldList().getValue().clear();
@@ -565,6 +571,7 @@ public class TeraFastDialog extends BaseStepDialog implements StepDialogInterfac
     this.buildTableLine( factory );
     this.buildTruncateTableLine( factory );
     this.buildDataFileLine( factory );
+    this.buildStreamDataFileLine( factory );
     this.buildSessionsLine( factory );
     this.buildErrorLimitLine( factory );
     this.buildFieldTable( factory );
@@ -777,9 +784,27 @@ public class TeraFastDialog extends BaseStepDialog implements StepDialogInterfac
    * @param factory
    *          factory to use.
    */
-  protected void buildSessionsLine( final PluginWidgetFactory factory ) {
+  protected void buildStreamDataFileLine( final PluginWidgetFactory factory ) {
     final Control topControl = this.wDataFile;
 
+    this.wlStreamDataFile =
+      factory.createRightLabel( BaseMessages.getString( PKG, "TeraFastDialog.StreamDataFile.Label" ) );
+    this.props.setLook( this.wlStreamDataFile );
+    this.wlStreamDataFile.setLayoutData( factory.createLabelLayoutData( topControl ) );
+
+    this.wStreamDataFile = new Button( this.shell, SWT.CHECK );
+    this.wStreamDataFile.setToolTipText( BaseMessages.getString( PKG, "TeraFastDialog.StreamDataFile.Tooltip" ) );
+    this.props.setLook( this.wStreamDataFile );
+    this.wStreamDataFile.setLayoutData( factory.createControlLayoutData( topControl ) );
+  }
+
+  /**
+   * @param factory
+   *          factory to use.
+   */
+  protected void buildSessionsLine( final PluginWidgetFactory factory ) {
+    final Control topControl = this.wStreamDataFile;
+
     this.wlSessions = factory.createRightLabel( BaseMessages.getString( PKG, "TeraFastDialog.Sessions.Label" ) );
     this.props.setLook( this.wlSessions );
     this.wlSessions.setLayoutData( factory.createLabelLayoutData( topControl ) );
@@ -897,6 +922,7 @@ public class TeraFastDialog extends BaseStepDialog implements StepDialogInterfac
     this.wbTruncateTable.addSelectionListener( lsSel );
     this.wUseControlFile.addSelectionListener( lsSel );
     this.wVariableSubstitution.addSelectionListener( lsSel );
+    this.wStreamDataFile.addSelectionListener( lsSel );
     this.wReturn.addModifyListener( lsMod );
   }
 
@@ -909,6 +935,7 @@ public class TeraFastDialog extends BaseStepDialog implements StepDialogInterfac
     this.wControlFile.setEnabled( useControlFile );
     this.wDataFile.setEnabled( !useControlFile );
     this.wbDataFile.setEnabled( !useControlFile );
+    this.wStreamDataFile.setEnabled( !useControlFile );
     this.wSessions.setEnabled( !useControlFile );
     this.wErrLimit.setEnabled( !useControlFile );
     this.wReturn.setEnabled( !useControlFile );
@@ -44,6 +44,7 @@ import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.Props;
+import org.pentaho.di.core.RowSetWaitStrategy;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.ChannelLogTable;
@@ -197,6 +198,8 @@ public class TransDialog extends Dialog {
 
   private CCombo wTransformationType;
 
+  private CCombo wRowSetWaitStrategy;
+
   private Tabs currentTab = null;
 
   protected boolean changed;
@@ -1963,6 +1966,29 @@ public class TransDialog extends Dialog {
     wTransformationType.setLayoutData( fdTransformationType );
     wTransformationType.setItems( TransformationType.getTransformationTypesDescriptions() );
 
+    // How steps wait on empty or full row sets...
+    Label wlRowSetWaitStrategy = new Label( wMiscComp, SWT.RIGHT );
+    wlRowSetWaitStrategy.setText( BaseMessages.getString( PKG, "TransDialog.RowSetWaitStrategy.Label" ) );
+    wlRowSetWaitStrategy.setToolTipText( BaseMessages.getString(
+      PKG, "TransDialog.RowSetWaitStrategy.Tooltip", Const.CR ) );
+    props.setLook( wlRowSetWaitStrategy );
+    FormData fdlRowSetWaitStrategy = new FormData();
+    fdlRowSetWaitStrategy.left = new FormAttachment( 0, 0 );
+    fdlRowSetWaitStrategy.right = new FormAttachment( middle, -margin );
+    fdlRowSetWaitStrategy.top = new FormAttachment( wTransformationType, margin );
+    wlRowSetWaitStrategy.setLayoutData( fdlRowSetWaitStrategy );
+    wRowSetWaitStrategy = new CCombo( wMiscComp, SWT.NORMAL );
+    wRowSetWaitStrategy.setToolTipText( BaseMessages.getString(
+      PKG, "TransDialog.RowSetWaitStrategy.Tooltip", Const.CR ) );
+    wRowSetWaitStrategy.addSelectionListener( lsModSel );
+    props.setLook( wRowSetWaitStrategy );
+    FormData fdRowSetWaitStrategy = new FormData();
+    fdRowSetWaitStrategy.left = new FormAttachment( middle, 0 );
+    fdRowSetWaitStrategy.top = new FormAttachment( wTransformationType, margin );
+    fdRowSetWaitStrategy.right = new FormAttachment( 100, 0 );
+    wRowSetWaitStrategy.setLayoutData( fdRowSetWaitStrategy );
+    wRowSetWaitStrategy.setItems( RowSetWaitStrategy.getWaitStrategyDescriptions() );
+
     FormData fdMiscComp = new FormData();
     fdMiscComp.left = new FormAttachment( 0, 0 );
     fdMiscComp.top = new FormAttachment( 0, 0 );
@@ -2167,6 +2193,7 @@ public class TransDialog extends Dialog {
     wSharedObjectsFile.setText( Const.NVL( transMeta.getSharedObjectsFile(), "" ) );
     wManageThreads.setSelection( transMeta.isUsingThreadPriorityManagment() );
     wTransformationType.setText( transMeta.getTransformationType().getDescription() );
+    wRowSetWaitStrategy.setText( transMeta.getRowSetWaitStrategy().getDescription() );
 
     wFields.setRowNums();
     wFields.optWidth( true );
@@ -2306,6 +2333,10 @@ public class TransDialog extends Dialog {
     transMeta.setUsingThreadPriorityManagment( wManageThreads.getSelection() );
     transMeta.setTransformationType( TransformationType.values()[Const.indexOfString( wTransformationType
       .getText(), TransformationType.getTransformationTypesDescriptions() )] );
+    int waitStrategyIndex =
+      Const.indexOfString( wRowSetWaitStrategy.getText(), RowSetWaitStrategy.getWaitStrategyDescriptions() );
+    transMeta.setRowSetWaitStrategy( waitStrategyIndex < 0
+      ? RowSetWaitStrategy.TIMED : RowSetWaitStrategy.values()[waitStrategyIndex] );
 
     if ( directoryChangeAllowed && transMeta.getObjectId() != null ) {
       if ( newDirectory != null ) {
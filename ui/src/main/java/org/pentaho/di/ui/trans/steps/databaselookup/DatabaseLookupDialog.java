@@ -78,6 +78,14 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
   private Text wCachesize;
   private FormData fdlCachesize, fdCachesize;
 
+  private Label wlSharedCache;
+  private TextVar wSharedCache;
+  private FormData fdlSharedCache, fdSharedCache;
+
+  private Label wlLookupBatchSize;
+  private Text wLookupBatchSize;
+  private FormData fdlLookupBatchSize, fdLookupBatchSize;
+
   private Label wlKey;
   private TableView wKey;
   private FormData fdlKey, fdKey;
@@ -324,12 +332,51 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
       }
     } );
 
+    // Cache : shared with other steps?
+    wlSharedCache = new Label( shell, SWT.RIGHT );
+    wlSharedCache.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.SharedCache.Label" ) );
+    props.setLook( wlSharedCache );
+    fdlSharedCache = new FormData();
+    fdlSharedCache.left = new FormAttachment( 0, 0 );
+    fdlSharedCache.right = new FormAttachment( middle, -margin );
+    fdlSharedCache.top = new FormAttachment( wCacheLoadAll, margin );
+    wlSharedCache.setLayoutData( fdlSharedCache );
+    wSharedCache = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wSharedCache.setToolTipText( BaseMessages.getString( PKG, "DatabaseLookupDialog.SharedCache.Tooltip" ) );
+    props.setLook( wSharedCache );
+    wSharedCache.addModifyListener( lsMod );
+    fdSharedCache = new FormData();
+    fdSharedCache.left = new FormAttachment( middle, 0 );
+    fdSharedCache.right = new FormAttachment( 100, 0 );
+    fdSharedCache.top = new FormAttachment( wCacheLoadAll, margin );
+    wSharedCache.setLayoutData( fdSharedCache );
+
+    // Look up the cache misses in batches?
+    wlLookupBatchSize = new Label( shell, SWT.RIGHT );
+    wlLookupBatchSize.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.LookupBatchSize.Label" ) );
+    props.setLook( wlLookupBatchSize );
+    fdlLookupBatchSize = new FormData();
+    fdlLookupBatchSize.left = new FormAttachment( 0, 0 );
+    fdlLookupBatchSize.right = new FormAttachment( middle, -margin );
+    fdlLookupBatchSize.top = new FormAttachment( wSharedCache, margin );
+    wlLookupBatchSize.setLayoutData( fdlLookupBatchSize );
+    wLookupBatchSize = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wLookupBatchSize.setToolTipText(
+      BaseMessages.getString( PKG, "DatabaseLookupDialog.LookupBatchSize.Tooltip" ) );
+    props.setLook( wLookupBatchSize );
+    wLookupBatchSize.addModifyListener( lsMod );
+    fdLookupBatchSize = new FormData();
+    fdLookupBatchSize.left = new FormAttachment( middle, 0 );
+    fdLookupBatchSize.right = new FormAttachment( 100, 0 );
+    fdLookupBatchSize.top = new FormAttachment( wSharedCache, margin );
+    wLookupBatchSize.setLayoutData( fdLookupBatchSize );
+
     wlKey = new Label( shell, SWT.NONE );
     wlKey.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.Keys.Label" ) );
     props.setLook( wlKey );
     fdlKey = new FormData();
     fdlKey.left = new FormAttachment( 0, 0 );
-    fdlKey.top = new FormAttachment( wCacheLoadAll, margin );
+    fdlKey.top = new FormAttachment( wLookupBatchSize, margin );
     wlKey.setLayoutData( fdlKey );
 
     int nrKeyCols = 4;
@@ -521,6 +568,7 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
     wTable.addSelectionListener( lsDef );
     wOrderBy.addSelectionListener( lsDef );
     wCachesize.addSelectionListener( lsDef );
+    wLookupBatchSize.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -634,6 +682,10 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
     wlCachesize.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
     wCacheLoadAll.setEnabled( wCache.getSelection() );
     wlCacheLoadAll.setEnabled( wCache.getSelection() );
+    wSharedCache.setEnabled( wCache.getSelection() );
+    wlSharedCache.setEnabled( wCache.getSelection() );
+    wLookupBatchSize.setEnabled( !( wCache.getSelection() && wCacheLoadAll.getSelection() ) );
+    wlLookupBatchSize.setEnabled( !( wCache.getSelection() && wCacheLoadAll.getSelection() ) );
     wFailMultiple.setEnabled( !wCache.getSelection() );
     wlFailMultiple.setEnabled( !wCache.getSelection() );
   }
@@ -647,6 +699,8 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
     wCache.setSelection( input.isCached() );
     wCachesize.setText( "" + input.getCacheSize() );
     wCacheLoadAll.setSelection( input.isLoadingAllDataInCache() );
+    wSharedCache.setText( Const.NVL( input.getSharedCacheName(), "" ) );
+    wLookupBatchSize.setText( "" + input.getLookupBatchSize() );
 
     if ( input.getStreamKeyField1() != null ) {
       for ( int i = 0; i < input.getStreamKeyField1().length; i++ ) {
@@ -731,6 +785,8 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
     input.setCached( wCache.getSelection() );
     input.setCacheSize( Const.toInt( wCachesize.getText(), 0 ) );
     input.setLoadingAllDataInCache( wCacheLoadAll.getSelection() );
+    input.setSharedCacheName( wSharedCache.getText() );
+    input.setLookupBatchSize( Const.toInt( wLookupBatchSize.getText(), 0 ) );
 
     logDebug( BaseMessages.getString( PKG, "DatabaseLookupDialog.Log.FoundKeys", String.valueOf( nrkeys ) ) );
     //CHECKSTYLE:Indentation:OFF
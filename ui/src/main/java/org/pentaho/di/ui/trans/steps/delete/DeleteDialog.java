@@ -91,6 +91,10 @@ public class DeleteDialog extends BaseStepDialog implements StepDialogInterface
   private TextVar wCommit;
   private FormData fdlCommit, fdCommit;
 
+  private Label wlBatch;
+  private Button wBatch;
+  private FormData fdlBatch, fdBatch;
+
   private DeleteMeta input;
 
   private Map<String, Integer> inputFields;
@@ -244,12 +248,35 @@ public class DeleteDialog extends BaseStepDialog implements StepDialogInterface
     fdCommit.right = new FormAttachment( 100, 0 );
     wCommit.setLayoutData( fdCommit );
 
+    // Batch delete
+    wlBatch = new Label( shell, SWT.RIGHT );
+    wlBatch.setText( BaseMessages.getString( PKG, "DeleteDialog.Batch.Label" ) );
+    props.setLook( wlBatch );
+    fdlBatch = new FormData();
+    fdlBatch.left = new FormAttachment( 0, 0 );
+    fdlBatch.top = new FormAttachment( wCommit, margin );
+    fdlBatch.right = new FormAttachment( middle, -margin );
+    wlBatch.setLayoutData( fdlBatch );
+    wBatch = new Button( shell, SWT.CHECK );
+    wBatch.setToolTipText( BaseMessages.getString( PKG, "DeleteDialog.Batch.Tooltip" ) );
+    props.setLook( wBatch );
+    fdBatch = new FormData();
+    fdBatch.left = new FormAttachment( middle, 0 );
+    fdBatch.top = new FormAttachment( wCommit, margin );
+    fdBatch.right = new FormAttachment( 100, 0 );
+    wBatch.setLayoutData( fdBatch );
+    wBatch.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+      }
+    } );
+
     wlKey = new Label( shell, SWT.NONE );
     wlKey.setText( BaseMessages.getString( PKG, "DeleteDialog.Key.Label" ) );
     props.setLook( wlKey );
     fdlKey = new FormData();
     fdlKey.left = new FormAttachment( 0, 0 );
-    fdlKey.top = new FormAttachment( wCommit, margin );
+    fdlKey.top = new FormAttachment( wBatch, margin );
     wlKey.setLayoutData( fdlKey );
 
     int nrKeyCols = 4;
@@ -416,6 +443,7 @@ public class DeleteDialog extends BaseStepDialog implements StepDialogInterface
     }
 
     wCommit.setText( input.getCommitSizeVar() );
+    wBatch.setSelection( input.useBatchDelete() );
     KeyFields[] keyFields = input.getKeyFields();
 
     if ( keyFields != null && keyFields.length > 0 && keyFields[0].getKeyStream() != null ) {
@@ -522,6 +550,7 @@ public class DeleteDialog extends BaseStepDialog implements StepDialogInterface
     inf.allocate( nrkeys );
 
     inf.setCommitSize( wCommit.getText() );
+    inf.setUseBatchDelete( wBatch.getSelection() );
 
     if ( log.isDebug() ) {
       logDebug( BaseMessages.getString( PKG, "DeleteDialog.Log.FoundKeys", String.valueOf( nrkeys ) ) );
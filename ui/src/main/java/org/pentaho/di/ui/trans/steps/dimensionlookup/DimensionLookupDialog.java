@@ -121,6 +121,9 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
   private Label wlCacheSize;
   private Text wCacheSize;
 
+  private Label wlSharedCache;
+  private TextVar wSharedCache;
+
   private Label wlTk;
   private CCombo wTk;
 
@@ -473,6 +476,25 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     fdCacheSize.right = new FormAttachment( 100, 0 );
     wCacheSize.setLayoutData( fdCacheSize );
 
+    // Shared cache name ...
+    wlSharedCache = new Label( comp, SWT.RIGHT );
+    wlSharedCache.setText( BaseMessages.getString( PKG, "DimensionLookupDialog.SharedCache.Label" ) );
+    props.setLook( wlSharedCache );
+    FormData fdlSharedCache = new FormData();
+    fdlSharedCache.left = new FormAttachment( 0, 0 );
+    fdlSharedCache.right = new FormAttachment( middle, -margin );
+    fdlSharedCache.top = new FormAttachment( wCacheSize, margin );
+    wlSharedCache.setLayoutData( fdlSharedCache );
+    wSharedCache = new TextVar( transMeta, comp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wSharedCache.setToolTipText( BaseMessages.getString( PKG, "DimensionLookupDialog.SharedCache.Tooltip" ) );
+    props.setLook( wSharedCache );
+    wSharedCache.addModifyListener( lsMod );
+    FormData fdSharedCache = new FormData();
+    fdSharedCache.left = new FormAttachment( middle, 0 );
+    fdSharedCache.top = new FormAttachment( wCacheSize, margin );
+    fdSharedCache.right = new FormAttachment( 100, 0 );
+    wSharedCache.setLayoutData( fdSharedCache );
+
     wlTkRename = new Label( comp, SWT.RIGHT );
 
     wTabFolder = new CTabFolder( comp, SWT.BORDER );
@@ -630,7 +652,7 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
 
     fdTabFolder = new FormData();
     fdTabFolder.left = new FormAttachment( 0, 0 );
-    fdTabFolder.top = new FormAttachment( wCacheSize, margin );
+    fdTabFolder.top = new FormAttachment( wSharedCache, margin );
     fdTabFolder.right = new FormAttachment( 100, 0 );
     fdTabFolder.height = 200;
     wTabFolder.setLayoutData( fdTabFolder );
@@ -1195,6 +1217,10 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     wlCacheSize.setEnabled( wUseCache.getSelection() && !wPreloadCache.getSelection() );
     wCacheSize.setEnabled( wUseCache.getSelection() && !wPreloadCache.getSelection() );
 
+    boolean sharedCache = wUseCache.getSelection() && !wUpdate.getSelection() && !wPreloadCache.getSelection();
+    wlSharedCache.setEnabled( sharedCache );
+    wSharedCache.setEnabled( sharedCache );
+
   }
 
   protected void setComboBoxes() {
@@ -1365,6 +1391,7 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     if ( input.getCacheSize() >= 0 ) {
       wCacheSize.setText( "" + input.getCacheSize() );
     }
+    wSharedCache.setText( Const.NVL( input.getSharedCacheName(), "" ) );
 
     wMinyear.setText( "" + input.getMinYear() );
     wMaxyear.setText( "" + input.getMaxYear() );
@@ -1486,6 +1513,7 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
       in.setCacheSize( -1 );
     }
     in.setPreloadingCache( wPreloadCache.getSelection() );
+    in.setSharedCacheName( wSharedCache.getText() );
     if ( wPreloadCache.getSelection() ) {
       in.setCacheSize( 0 );
     }
@@ -41,6 +41,7 @@ import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -56,6 +57,7 @@ import org.pentaho.di.ui.core.events.dialog.SelectionAdapterOptions;
 import org.pentaho.di.ui.core.events.dialog.SelectionOperation;
 import org.pentaho.di.ui.core.gui.GUIResource;
 import org.pentaho.di.ui.core.widget.ColumnInfo;
+import org.pentaho.di.ui.core.widget.ComboVar;
 import org.pentaho.di.ui.core.widget.TableView;
 import org.pentaho.di.ui.core.widget.TextVar;
 import org.pentaho.di.ui.trans.step.BaseStepDialog;
@@ -98,6 +100,10 @@ public class GroupByDialog extends BaseStepDialog implements StepDialogInterface
 
   private FormData fdlPrefix, fdPrefix;
 
+  private Label wlCompressionType;
+  private ComboVar wCompressionType;
+  private FormData fdlCompressionType, fdCompressionType;
+
   private Label wlAddLineNr;
 
   private Button wAddLineNr;
@@ -261,20 +267,39 @@ public class GroupByDialog extends BaseStepDialog implements StepDialogInterface
     fdPrefix.right = new FormAttachment( 100, 0 );
     wPrefix.setLayoutData( fdPrefix );
 
+    // Compression of the temp files, empty for none
+    wlCompressionType = new Label( shell, SWT.RIGHT );
+    wlCompressionType.setText( BaseMessages.getString( PKG, "GroupByDialog.CompressionType.Label" ) );
+    props.setLook( wlCompressionType );
+    fdlCompressionType = new FormData();
+    fdlCompressionType.left = new FormAttachment( 0, 0 );
+    fdlCompressionType.right = new FormAttachment( middle, -margin );
+    fdlCompressionType.top = new FormAttachment( wPrefix, margin );
+    wlCompressionType.setLayoutData( fdlCompressionType );
+    wCompressionType = new ComboVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wCompressionType.setItems( CompressionProviderFactory.getInstance().getCompressionProviderNames() );
+    props.setLook( wCompressionType );
+    wCompressionType.addModifyListener( lsMod );
+    fdCompressionType = new FormData();
+    fdCompressionType.left = new FormAttachment( middle, 0 );
+    fdCompressionType.top = new FormAttachment( wPrefix, margin );
+    fdCompressionType.right = new FormAttachment( 100, 0 );
+    wCompressionType.setLayoutData( fdCompressionType );
+
     // Include all rows?
     wlAddLineNr = new Label( shell, SWT.RIGHT );
     wlAddLineNr.setText( BaseMessages.getString( PKG, "GroupByDialog.AddLineNr.Label" ) );
     props.setLook( wlAddLineNr );
     fdlAddLineNr = new FormData();
     fdlAddLineNr.left = new FormAttachment( 0, 0 );
-    fdlAddLineNr.top = new FormAttachment( wPrefix, margin );
+    fdlAddLineNr.top = new FormAttachment( wCompressionType, margin );
     fdlAddLineNr.right = new FormAttachment( middle, -margin );
     wlAddLineNr.setLayoutData( fdlAddLineNr );
     wAddLineNr = new Button( shell, SWT.CHECK );
     props.setLook( wAddLineNr );
     fdAddLineNr = new FormData();
     fdAddLineNr.left = new FormAttachment( middle, 0 );
-    fdAddLineNr.top = new FormAttachment( wPrefix, margin );
+    fdAddLineNr.top = new FormAttachment( wCompressionType, margin );
     fdAddLineNr.right = new FormAttachment( 100, 0 );
     wAddLineNr.setLayoutData( fdAddLineNr );
     wAddLineNr.addSelectionListener( new SelectionAdapter() {
@@ -526,6 +551,8 @@ public class GroupByDialog extends BaseStepDialog implements StepDialogInterface
     wSortDir.setEnabled( wAllRows.getSelection() );
     wlPrefix.setEnabled( wAllRows.getSelection() );
     wPrefix.setEnabled( wAllRows.getSelection() );
+    wlCompressionType.setEnabled( wAllRows.getSelection() );
+    wCompressionType.setEnabled( wAllRows.getSelection() );
     wlAddLineNr.setEnabled( wAllRows.getSelection() );
     wAddLineNr.setEnabled( wAllRows.getSelection() );
 
@@ -547,6 +574,7 @@ public class GroupByDialog extends BaseStepDialog implements StepDialogInterface
     if ( input.getDirectory() != null ) {
       wSortDir.setText( input.getDirectory() );
     }
+    wCompressionType.setText( Const.NVL( input.getCompressionType(), "" ) );
     wAddLineNr.setSelection( input.isAddingLineNrInGroup() );
     if ( input.getLineNrInGroupField() != null ) {
       wLineNrField.setText( input.getLineNrInGroupField() );
@@ -606,6 +634,7 @@ public class GroupByDialog extends BaseStepDialog implements StepDialogInterface
     int nrfields = wAgg.nrNonEmpty();
     input.setPrefix( wPrefix.getText() );
     input.setDirectory( wSortDir.getText() );
+    input.setCompressionType( wCompressionType.getText() );
 
     input.setLineNrInGroupField( wLineNrField.getText() );
     input.setAlwaysGivingBackOneRow( wAlwaysAddResult.getSelection() );
@@ -102,6 +102,10 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
   private Button wUpdateBypassed;
   private FormData fdlUpdateBypassed, fdUpdateBypassed;
 
+  private Label wlUseUpsert;
+  private Button wUseUpsert;
+  private FormData fdlUseUpsert, fdUseUpsert;
+
   private Button wGetLU;
   private FormData fdGetLU;
   private Listener lsGetLU;
@@ -282,12 +286,32 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
     wUpdateBypassed.setLayoutData( fdUpdateBypassed );
     wUpdateBypassed.addSelectionListener( new ComponentSelectionListener( input ) );
 
+    // UseUpsert line
+    wlUseUpsert = new Label( shell, SWT.RIGHT );
+    wlUseUpsert.setText( BaseMessages.getString( PKG, "InsertUpdateDialog.UseUpsert.Label" ) );
+    wlUseUpsert.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.UseUpsert.Tooltip" ) );
+    props.setLook( wlUseUpsert );
+    fdlUseUpsert = new FormData();
+    fdlUseUpsert.left = new FormAttachment( 0, 0 );
+    fdlUseUpsert.top = new FormAttachment( wUpdateBypassed, margin );
+    fdlUseUpsert.right = new FormAttachment( middle, -margin );
+    wlUseUpsert.setLayoutData( fdlUseUpsert );
+    wUseUpsert = new Button( shell, SWT.CHECK );
+    wUseUpsert.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.UseUpsert.Tooltip" ) );
+    props.setLook( wUseUpsert );
+    fdUseUpsert = new FormData();
+    fdUseUpsert.left = new FormAttachment( middle, 0 );
+    fdUseUpsert.top = new FormAttachment( wUpdateBypassed, margin );
+    fdUseUpsert.right = new FormAttachment( 100, 0 );
+    wUseUpsert.setLayoutData( fdUseUpsert );
+    wUseUpsert.addSelectionListener( new ComponentSelectionListener( input ) );
+
     wlKey = new Label( shell, SWT.NONE );
     wlKey.setText( BaseMessages.getString( PKG, "InsertUpdateDialog.Keys.Label" ) );
     props.setLook( wlKey );
     fdlKey = new FormData();
     fdlKey.left = new FormAttachment( 0, 0 );
-    fdlKey.top = new FormAttachment( wUpdateBypassed, margin );
+    fdlKey.top = new FormAttachment( wUseUpsert, margin );
     wlKey.setLayoutData( fdlKey );
 
     int nrKeyCols = 4;
@@ -656,6 +680,7 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
 
     wCommit.setText( input.getCommitSizeVar() );
     wUpdateBypassed.setSelection( input.isUpdateBypassed() );
+    wUseUpsert.setSelection( input.isUseUpsert() );
 
     if ( input.getKeyFields() != null ) {
       for ( int i = 0; i < input.getKeyFields().length; i++ ) {
@@ -728,6 +753,7 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
 
     inf.setCommitSize( wCommit.getText() );
     inf.setUpdateBypassed( wUpdateBypassed.getSelection() );
+    inf.setUseUpsert( wUseUpsert.getSelection() );
 
     if ( log.isDebug() ) {
       logDebug( BaseMessages.getString( PKG, "InsertUpdateDialog.Log.FoundKeys", nrkeys + "" ) );
@@ -49,8 +49,12 @@ import org.pentaho.di.trans.step.StepDialogInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByMeta;
 import org.pentaho.di.ui.core.dialog.ErrorDialog;
+import org.pentaho.di.ui.core.events.dialog.SelectionAdapterFileDialogTextVar;
+import org.pentaho.di.ui.core.events.dialog.SelectionAdapterOptions;
+import org.pentaho.di.ui.core.events.dialog.SelectionOperation;
 import org.pentaho.di.ui.core.widget.ColumnInfo;
 import org.pentaho.di.ui.core.widget.TableView;
+import org.pentaho.di.ui.core.widget.TextVar;
 import org.pentaho.di.ui.trans.step.BaseStepDialog;
 
 public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInterface {
@@ -68,6 +72,23 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
   private Button wAlwaysAddResult;
   private FormData fdlAlwaysAddResult, fdAlwaysAddResult;
 
+  private Label wlMergeCopies;
+  private Button wMergeCopies;
+  private FormData fdlMergeCopies, fdMergeCopies;
+
+  private Label wlMaxGroups;
+  private TextVar wMaxGroups;
+  private FormData fdlMaxGroups, fdMaxGroups;
+
+  private Label wlTempDir;
+  private Button wbTempDir;
+  private TextVar wTempDir;
+  private FormData fdlTempDir, fdbTempDir, fdTempDir;
+
+  private Label wlPrefix;
+  private Text wPrefix;
+  private FormData fdlPrefix, fdPrefix;
+
   private Button wGet, wGetAgg;
   private FormData fdGet, fdGetAgg;
   private Listener lsGet, lsGetAgg;
@@ -159,12 +180,100 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
     wAlwaysAddResult.setLayoutData( fdAlwaysAddResult );
     wAlwaysAddResult.addSelectionListener( lsSel );
 
+    // Merge the groups of the step copies
+    //
+    wlMergeCopies = new Label( shell, SWT.RIGHT );
+    wlMergeCopies.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MergeCopies.Label" ) );
+    wlMergeCopies.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MergeCopies.ToolTip" ) );
+    props.setLook( wlMergeCopies );
+    fdlMergeCopies = new FormData();
+    fdlMergeCopies.left = new FormAttachment( 0, 0 );
+    fdlMergeCopies.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdlMergeCopies.right = new FormAttachment( middle, -margin );
+    wlMergeCopies.setLayoutData( fdlMergeCopies );
+    wMergeCopies = new Button( shell, SWT.CHECK );
+    wMergeCopies.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MergeCopies.ToolTip" ) );
+    props.setLook( wMergeCopies );
+    fdMergeCopies = new FormData();
+    fdMergeCopies.left = new FormAttachment( middle, 0 );
+    fdMergeCopies.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdMergeCopies.right = new FormAttachment( 100, 0 );
+    wMergeCopies.setLayoutData( fdMergeCopies );
+    wMergeCopies.addSelectionListener( lsSel );
+
+    // Maximum number of groups kept in memory, the others are spilled to disk
+    //
+    wlMaxGroups = new Label( shell, SWT.RIGHT );
+    wlMaxGroups.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MaxGroupsInMemory.Label" ) );
+    wlMaxGroups.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MaxGroupsInMemory.ToolTip" ) );
+    props.setLook( wlMaxGroups );
+    fdlMaxGroups = new FormData();
+    fdlMaxGroups.left = new FormAttachment( 0, 0 );
+    fdlMaxGroups.top = new FormAttachment( wMergeCopies, margin );
+    fdlMaxGroups.right = new FormAttachment( middle, -margin );
+    wlMaxGroups.setLayoutData( fdlMaxGroups );
+    wMaxGroups = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wMaxGroups.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MaxGroupsInMemory.ToolTip" ) );
+    props.setLook( wMaxGroups );
+    wMaxGroups.addModifyListener( lsMod );
+    fdMaxGroups = new FormData();
+    fdMaxGroups.left = new FormAttachment( middle, 0 );
+    fdMaxGroups.top = new FormAttachment( wMergeCopies, margin );
+    fdMaxGroups.right = new FormAttachment( 100, 0 );
+    wMaxGroups.setLayoutData( fdMaxGroups );
+
+    wlTempDir = new Label( shell, SWT.RIGHT );
+    wlTempDir.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.TempDir.Label" ) );
+    props.setLook( wlTempDir );
+    fdlTempDir = new FormData();
+    fdlTempDir.left = new FormAttachment( 0, 0 );
+    fdlTempDir.right = new FormAttachment( middle, -margin );
+    fdlTempDir.top = new FormAttachment( wMaxGroups, margin );
+    wlTempDir.setLayoutData( fdlTempDir );
+
+    wbTempDir = new Button( shell, SWT.PUSH | SWT.CENTER );
+    props.setLook( wbTempDir );
+    wbTempDir.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.Browse.Button" ) );
+    fdbTempDir = new FormData();
+    fdbTempDir.right = new FormAttachment( 100, 0 );
+    fdbTempDir.top = new FormAttachment( wMaxGroups, margin );
+    wbTempDir.setLayoutData( fdbTempDir );
+
+    wTempDir = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wTempDir );
+    wTempDir.addModifyListener( lsMod );
+    fdTempDir = new FormData();
+    fdTempDir.left = new FormAttachment( middle, 0 );
+    fdTempDir.top = new FormAttachment( wMaxGroups, margin );
+    fdTempDir.right = new FormAttachment( wbTempDir, -margin );
+    wTempDir.setLayoutData( fdTempDir );
+
+    wbTempDir.addSelectionListener( new SelectionAdapterFileDialogTextVar( log, wTempDir, transMeta,
+      new SelectionAdapterOptions( SelectionOperation.FOLDER ) ) );
+
+    wlPrefix = new Label( shell, SWT.RIGHT );
+    wlPrefix.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.FilePrefix.Label" ) );
+    props.setLook( wlPrefix );
+    fdlPrefix = new FormData();
+    fdlPrefix.left = new FormAttachment( 0, 0 );
+    fdlPrefix.right = new FormAttachment( middle, -margin );
+    fdlPrefix.top = new FormAttachment( wbTempDir, margin * 2 );
+    wlPrefix.setLayoutData( fdlPrefix );
+    wPrefix = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wPrefix );
+    wPrefix.addModifyListener( lsMod );
+    fdPrefix = new FormData();
+    fdPrefix.left = new FormAttachment( middle, 0 );
+    fdPrefix.top = new FormAttachment( wbTempDir, margin * 2 );
+    fdPrefix.right = new FormAttachment( 100, 0 );
+    wPrefix.setLayoutData( fdPrefix );
+
     wlGroup = new Label( shell, SWT.NONE );
     wlGroup.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.Group.Label" ) );
     props.setLook( wlGroup );
     fdlGroup = new FormData();
     fdlGroup.left = new FormAttachment( 0, 0 );
-    fdlGroup.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdlGroup.top = new FormAttachment( wPrefix, margin );
     wlGroup.setLayoutData( fdlGroup );
 
     int nrKeyCols = 1;
@@ -366,6 +475,10 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
     logDebug( BaseMessages.getString( PKG, "MemoryGroupByDialog.Log.GettingKeyInfo" ) );
 
     wAlwaysAddResult.setSelection( input.isAlwaysGivingBackOneRow() );
+    wMergeCopies.setSelection( input.isMergingCopies() );
+    wMaxGroups.setText( Const.NVL( input.getMaxGroupsInMemory(), "" ) );
+    wTempDir.setText( Const.NVL( input.getDirectory(), "" ) );
+    wPrefix.setText( Const.NVL( input.getPrefix(), "" ) );
 
     if ( input.getGroupField() != null ) {
       for ( int i = 0; i < input.getGroupField().length; i++ ) {
@@ -416,6 +529,10 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
     int nrfields = wAgg.nrNonEmpty();
 
     input.setAlwaysGivingBackOneRow( wAlwaysAddResult.getSelection() );
+    input.setMergingCopies( wMergeCopies.getSelection() );
+    input.setMaxGroupsInMemory( wMaxGroups.getText() );
+    input.setDirectory( wTempDir.getText() );
+    input.setPrefix( wPrefix.getText() );
 
     input.allocate( sizegroup, nrfields );
 
@@ -41,6 +41,7 @@ import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -57,6 +58,7 @@ import org.pentaho.di.ui.core.events.dialog.SelectionAdapterOptions;
 import org.pentaho.di.ui.core.events.dialog.SelectionOperation;
 import org.pentaho.di.ui.core.widget.CheckBoxVar;
 import org.pentaho.di.ui.core.widget.ColumnInfo;
+import org.pentaho.di.ui.core.widget.ComboVar;
 import org.pentaho.di.ui.core.widget.TableView;
 import org.pentaho.di.ui.core.widget.TextVar;
 import org.pentaho.di.ui.trans.step.BaseStepDialog;
@@ -87,6 +89,10 @@ public class SortRowsDialog extends BaseStepDialog implements StepDialogInterfac
   private CheckBoxVar wCompress;
   private FormData fdlCompress, fdCompress;
 
+  private Label wlCompressionType;
+  private ComboVar wCompressionType;
+  private FormData fdlCompressionType, fdCompressionType;
+
   private Label wlUniqueRows;
   private Button wUniqueRows;
   private FormData fdlUniqueRows, fdUniqueRows;
@@ -271,6 +277,25 @@ public class SortRowsDialog extends BaseStepDialog implements StepDialogInterfac
       }
     } );
 
+    // Which compression provider? Empty is the default one.
+    wlCompressionType = new Label( shell, SWT.RIGHT );
+    wlCompressionType.setText( BaseMessages.getString( PKG, "SortRowsDialog.CompressionType.Label" ) );
+    props.setLook( wlCompressionType );
+    fdlCompressionType = new FormData();
+    fdlCompressionType.left = new FormAttachment( 0, 0 );
+    fdlCompressionType.right = new FormAttachment( middle, -margin );
+    fdlCompressionType.top = new FormAttachment( wCompress, margin );
+    wlCompressionType.setLayoutData( fdlCompressionType );
+    wCompressionType = new ComboVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wCompressionType.setItems( CompressionProviderFactory.getInstance().getCompressionProviderNames() );
+    props.setLook( wCompressionType );
+    wCompressionType.addModifyListener( lsMod );
+    fdCompressionType = new FormData();
+    fdCompressionType.left = new FormAttachment( middle, 0 );
+    fdCompressionType.top = new FormAttachment( wCompress, margin );
+    fdCompressionType.right = new FormAttachment( 100, 0 );
+    wCompressionType.setLayoutData( fdCompressionType );
+
     // Using compression for temporary files?
     wlUniqueRows = new Label( shell, SWT.RIGHT );
     wlUniqueRows.setText( BaseMessages.getString( PKG, "SortRowsDialog.UniqueRows.Label" ) );
@@ -278,14 +303,14 @@ public class SortRowsDialog extends BaseStepDialog implements StepDialogInterfac
     fdlUniqueRows = new FormData();
     fdlUniqueRows.left = new FormAttachment( 0, 0 );
     fdlUniqueRows.right = new FormAttachment( middle, -margin );
-    fdlUniqueRows.top = new FormAttachment( wCompress, margin );
+    fdlUniqueRows.top = new FormAttachment( wCompressionType, margin );
     wlUniqueRows.setLayoutData( fdlUniqueRows );
     wUniqueRows = new Button( shell, SWT.CHECK );
     wUniqueRows.setToolTipText( BaseMessages.getString( PKG, "SortRowsDialog.UniqueRows.Tooltip" ) );
     props.setLook( wUniqueRows );
     fdUniqueRows = new FormData();
     fdUniqueRows.left = new FormAttachment( middle, 0 );
-    fdUniqueRows.top = new FormAttachment( wCompress, margin );
+    fdUniqueRows.top = new FormAttachment( wCompressionType, margin );
     fdUniqueRows.right = new FormAttachment( 100, 0 );
     wUniqueRows.setLayoutData( fdUniqueRows );
     wUniqueRows.addSelectionListener( new ComponentSelectionListener( input ) );
@@ -480,6 +505,7 @@ public class SortRowsDialog extends BaseStepDialog implements StepDialogInterfac
     wFreeMemory.setText( Const.NVL( input.getFreeMemoryLimit(), "" ) );
     wCompress.setSelection( input.getCompressFiles() );
     wCompress.setVariableName( input.getCompressFilesVariable() );
+    wCompressionType.setText( Const.NVL( input.getCompressionType(), "" ) );
     wUniqueRows.setSelection( input.isOnlyPassingUniqueRows() );
 
     Table table = wFields.table;
@@ -530,6 +556,7 @@ public class SortRowsDialog extends BaseStepDialog implements StepDialogInterfac
     log.logDetailed( "Sort rows", "Compression is set to " + wCompress.getSelection() );
     input.setCompressFiles( wCompress.getSelection() );
     input.setCompressFilesVariable( wCompress.getVariableName() );
+    input.setCompressionType( wCompressionType.getText() );
     input.setOnlyPassingUniqueRows( wUniqueRows.getSelection() );
 
     // Table table = wFields.table;
@@ -84,6 +84,10 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
   private Button wIntegerPair;
   private FormData fdlIntegerPair, fdIntegerPair;
 
+  private Label wlOffHeap;
+  private Button wOffHeap;
+  private FormData fdlOffHeap, fdOffHeap;
+
   private StreamLookupMeta input;
 
   private Button wGetLU;
@@ -249,7 +253,7 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
     fdReturn.left = new FormAttachment( 0, 0 );
     fdReturn.top = new FormAttachment( wlReturn, margin );
     fdReturn.right = new FormAttachment( 100, 0 );
-    fdReturn.bottom = new FormAttachment( 100, -125 );
+    fdReturn.bottom = new FormAttachment( 100, -150 );
     wReturn.setLayoutData( fdReturn );
 
     wlPreserveMemory = new Label( shell, SWT.RIGHT );
@@ -316,6 +320,29 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
         input.setChanged();
       }
     } );
+
+    wlOffHeap = new Label( shell, SWT.RIGHT );
+    wlOffHeap.setText( BaseMessages.getString( PKG, "StreamLookupDialog.OffHeap.Label" ) );
+    wlOffHeap.setToolTipText( BaseMessages.getString( PKG, "StreamLookupDialog.OffHeap.Tooltip" ) );
+    props.setLook( wlOffHeap );
+    fdlOffHeap = new FormData();
+    fdlOffHeap.left = new FormAttachment( 0, 0 );
+    fdlOffHeap.top = new FormAttachment( wSortedList, margin );
+    fdlOffHeap.right = new FormAttachment( middle, -margin );
+    wlOffHeap.setLayoutData( fdlOffHeap );
+    wOffHeap = new Button( shell, SWT.CHECK );
+    wOffHeap.setToolTipText( BaseMessages.getString( PKG, "StreamLookupDialog.OffHeap.Tooltip" ) );
+    props.setLook( wOffHeap );
+    fdOffHeap = new FormData();
+    fdOffHeap.left = new FormAttachment( middle, 0 );
+    fdOffHeap.top = new FormAttachment( wSortedList, margin );
+    fdOffHeap.right = new FormAttachment( 100, 0 );
+    wOffHeap.setLayoutData( fdOffHeap );
+    wOffHeap.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+      }
+    } );
     // PDI-2107 preserve memory should be enabled to have this options on.
     wPreserveMemory.addListener( SWT.Selection, new Listener() {
       @Override
@@ -528,6 +555,7 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
     // but user will be forced to choose only one option later.
     wSortedList.setSelection( input.isUsingSortedList() );
     wIntegerPair.setSelection( input.isUsingIntegerPair() );
+    wOffHeap.setSelection( input.isUsingOffHeapStore() );
 
     wKey.setRowNums();
     wKey.optWidth( true );
@@ -555,6 +583,7 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
     input.setMemoryPreservationActive( wPreserveMemory.getSelection() );
     input.setUsingSortedList( wSortedList.getSelection() );
     input.setUsingIntegerPair( wIntegerPair.getSelection() );
+    input.setUsingOffHeapStore( wOffHeap.getSelection() );
 
     if ( log.isDebug() ) {
       logDebug( BaseMessages.getString( PKG, "StreamLookupDialog.Log.FoundKeys", nrkeys + "" ) );
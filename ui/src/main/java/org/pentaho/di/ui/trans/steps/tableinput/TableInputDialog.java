@@ -101,6 +101,26 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
   private Button wCachedRowMeta;
   private FormData fdlCachedRowMeta, fdCachedRowMeta;
 
+  private Label wlParallelReadField;
+  private TextVar wParallelReadField;
+  private FormData fdlParallelReadField, fdParallelReadField;
+
+  private Label wlParallelReadModulo;
+  private Button wParallelReadModulo;
+  private FormData fdlParallelReadModulo, fdParallelReadModulo;
+
+  private Label wlParallelReadLowValue;
+  private TextVar wParallelReadLowValue;
+  private FormData fdlParallelReadLowValue, fdParallelReadLowValue;
+
+  private Label wlParallelReadHighValue;
+  private TextVar wParallelReadHighValue;
+  private FormData fdlParallelReadHighValue, fdParallelReadHighValue;
+
+  private Label wlParallelReadSorted;
+  private Button wParallelReadSorted;
+  private FormData fdlParallelReadSorted, fdParallelReadSorted;
+
   private Button wbTable;
   private FormData fdbTable;
   private Listener lsbTable;
@@ -315,12 +335,122 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
       }
     } );
 
+    // Sort the rows of every copy on the split field?
+    //
+    wlParallelReadSorted = new Label( shell, SWT.RIGHT );
+    wlParallelReadSorted.setText( BaseMessages.getString( PKG, "TableInputDialog.ParallelReadSorted" ) );
+    props.setLook( wlParallelReadSorted );
+    fdlParallelReadSorted = new FormData();
+    fdlParallelReadSorted.left = new FormAttachment( 0, 0 );
+    fdlParallelReadSorted.right = new FormAttachment( middle, -margin );
+    fdlParallelReadSorted.bottom = new FormAttachment( wCachedRowMeta, -margin );
+    wlParallelReadSorted.setLayoutData( fdlParallelReadSorted );
+    wParallelReadSorted = new Button( shell, SWT.CHECK );
+    props.setLook( wParallelReadSorted );
+    fdParallelReadSorted = new FormData();
+    fdParallelReadSorted.left = new FormAttachment( middle, 0 );
+    fdParallelReadSorted.right = new FormAttachment( 100, 0 );
+    fdParallelReadSorted.bottom = new FormAttachment( wCachedRowMeta, -margin );
+    wParallelReadSorted.setLayoutData( fdParallelReadSorted );
+    wParallelReadSorted.addSelectionListener( lsSelMod );
+
+    // Highest value of the split field
+    //
+    wlParallelReadHighValue = new Label( shell, SWT.RIGHT );
+    wlParallelReadHighValue.setText( BaseMessages.getString( PKG, "TableInputDialog.ParallelReadHighValue" ) );
+    props.setLook( wlParallelReadHighValue );
+    fdlParallelReadHighValue = new FormData();
+    fdlParallelReadHighValue.left = new FormAttachment( 0, 0 );
+    fdlParallelReadHighValue.right = new FormAttachment( middle, -margin );
+    fdlParallelReadHighValue.bottom = new FormAttachment( wParallelReadSorted, -margin );
+    wlParallelReadHighValue.setLayoutData( fdlParallelReadHighValue );
+    wParallelReadHighValue = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wParallelReadHighValue.setToolTipText(
+      BaseMessages.getString( PKG, "TableInputDialog.ParallelReadBoundary.Tooltip" ) );
+    props.setLook( wParallelReadHighValue );
+    wParallelReadHighValue.addModifyListener( lsMod );
+    fdParallelReadHighValue = new FormData();
+    fdParallelReadHighValue.left = new FormAttachment( middle, 0 );
+    fdParallelReadHighValue.right = new FormAttachment( 100, 0 );
+    fdParallelReadHighValue.bottom = new FormAttachment( wParallelReadSorted, -margin );
+    wParallelReadHighValue.setLayoutData( fdParallelReadHighValue );
+
+    // Lowest value of the split field
+    //
+    wlParallelReadLowValue = new Label( shell, SWT.RIGHT );
+    wlParallelReadLowValue.setText( BaseMessages.getString( PKG, "TableInputDialog.ParallelReadLowValue" ) );
+    props.setLook( wlParallelReadLowValue );
+    fdlParallelReadLowValue = new FormData();
+    fdlParallelReadLowValue.left = new FormAttachment( 0, 0 );
+    fdlParallelReadLowValue.right = new FormAttachment( middle, -margin );
+    fdlParallelReadLowValue.bottom = new FormAttachment( wParallelReadHighValue, -margin );
+    wlParallelReadLowValue.setLayoutData( fdlParallelReadLowValue );
+    wParallelReadLowValue = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wParallelReadLowValue.setToolTipText(
+      BaseMessages.getString( PKG, "TableInputDialog.ParallelReadBoundary.Tooltip" ) );
+    props.setLook( wParallelReadLowValue );
+    wParallelReadLowValue.addModifyListener( lsMod );
+    fdParallelReadLowValue = new FormData();
+    fdParallelReadLowValue.left = new FormAttachment( middle, 0 );
+    fdParallelReadLowValue.right = new FormAttachment( 100, 0 );
+    fdParallelReadLowValue.bottom = new FormAttachment( wParallelReadHighValue, -margin );
+    wParallelReadLowValue.setLayoutData( fdParallelReadLowValue );
+
+    // Split on the remainder of the split field?
+    //
+    wlParallelReadModulo = new Label( shell, SWT.RIGHT );
+    wlParallelReadModulo.setText( BaseMessages.getString( PKG, "TableInputDialog.ParallelReadModulo" ) );
+    props.setLook( wlParallelReadModulo );
+    fdlParallelReadModulo = new FormData();
+    fdlParallelReadModulo.left = new FormAttachment( 0, 0 );
+    fdlParallelReadModulo.right = new FormAttachment( middle, -margin );
+    fdlParallelReadModulo.bottom = new FormAttachment( wParallelReadLowValue, -margin );
+    wlParallelReadModulo.setLayoutData( fdlParallelReadModulo );
+    wParallelReadModulo = new Button( shell, SWT.CHECK );
+    props.setLook( wParallelReadModulo );
+    fdParallelReadModulo = new FormData();
+    fdParallelReadModulo.left = new FormAttachment( middle, 0 );
+    fdParallelReadModulo.right = new FormAttachment( 100, 0 );
+    fdParallelReadModulo.bottom = new FormAttachment( wParallelReadLowValue, -margin );
+    wParallelReadModulo.setLayoutData( fdParallelReadModulo );
+    wParallelReadModulo.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent arg0 ) {
+        input.setChanged();
+        setFlags();
+      }
+    } );
+
+    // The field to split the rows of the step copies on
+    //
+    wlParallelReadField = new Label( shell, SWT.RIGHT );
+    wlParallelReadField.setText( BaseMessages.getString( PKG, "TableInputDialog.ParallelReadField" ) );
+    props.setLook( wlParallelReadField );
+    fdlParallelReadField = new FormData();
+    fdlParallelReadField.left = new FormAttachment( 0, 0 );
+    fdlParallelReadField.right = new FormAttachment( middle, -margin );
+    fdlParallelReadField.bottom = new FormAttachment( wParallelReadModulo, -margin );
+    wlParallelReadField.setLayoutData( fdlParallelReadField );
+    wParallelReadField = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wParallelReadField.setToolTipText( BaseMessages.getString( PKG, "TableInputDialog.ParallelReadField.Tooltip" ) );
+    props.setLook( wParallelReadField );
+    wParallelReadField.addModifyListener( lsMod );
+    wParallelReadField.addModifyListener( new ModifyListener() {
+      public void modifyText( ModifyEvent e ) {
+        setFlags();
+      }
+    } );
+    fdParallelReadField = new FormData();
+    fdParallelReadField.left = new FormAttachment( middle, 0 );
+    fdParallelReadField.right = new FormAttachment( 100, 0 );
+    fdParallelReadField.bottom = new FormAttachment( wParallelReadModulo, -margin );
+    wParallelReadField.setLayoutData( fdParallelReadField );
+
     wlPosition = new Label( shell, SWT.NONE );
     props.setLook( wlPosition );
     fdlPosition = new FormData();
     fdlPosition.left = new FormAttachment( 0, 0 );
     fdlPosition.right = new FormAttachment( 100, 0 );
-    fdlPosition.bottom = new FormAttachment( wCachedRowMeta, -margin );
+    fdlPosition.bottom = new FormAttachment( wParallelReadField, -margin );
     wlPosition.setLayoutData( fdlPosition );
 
     // Table line...
@@ -504,6 +634,11 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     wVariables.setSelection( input.isVariableReplacementActive() );
     wLazyConversion.setSelection( input.isLazyConversionActive() );
     wCachedRowMeta.setSelection( input.isCachedRowMetaActive() );
+    wParallelReadField.setText( Const.NVL( input.getParallelReadField(), "" ) );
+    wParallelReadModulo.setSelection( input.isParallelReadModulo() );
+    wParallelReadLowValue.setText( Const.NVL( input.getParallelReadLowValue(), "" ) );
+    wParallelReadHighValue.setText( Const.NVL( input.getParallelReadHighValue(), "" ) );
+    wParallelReadSorted.setSelection( input.isParallelReadSorted() );
 
     setSQLToolTip();
     setFlags();
@@ -543,6 +678,11 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     meta.setVariableReplacementActive( wVariables.getSelection() );
     meta.setLazyConversionActive( wLazyConversion.getSelection() );
     meta.setCachedRowMetaActive( wCachedRowMeta.getSelection() );
+    meta.setParallelReadField( wParallelReadField.getText() );
+    meta.setParallelReadModulo( wParallelReadModulo.getSelection() );
+    meta.setParallelReadLowValue( wParallelReadLowValue.getText() );
+    meta.setParallelReadHighValue( wParallelReadHighValue.getText() );
+    meta.setParallelReadSorted( wParallelReadSorted.getSelection() );
   }
 
   private void ok() {
@@ -658,6 +798,17 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
       wPreview.setEnabled( true );
     }
 
+    // The parallel read options...
+    boolean parallelRead = !Utils.isEmpty( wParallelReadField.getText() );
+    boolean ranges = parallelRead && !wParallelReadModulo.getSelection();
+    wlParallelReadModulo.setEnabled( parallelRead );
+    wParallelReadModulo.setEnabled( parallelRead );
+    wlParallelReadLowValue.setEnabled( ranges );
+    wParallelReadLowValue.setEnabled( ranges );
+    wlParallelReadHighValue.setEnabled( ranges );
+    wParallelReadHighValue.setEnabled( ranges );
+    wlParallelReadSorted.setEnabled( parallelRead );
+    wParallelReadSorted.setEnabled( parallelRead );
   }
 
   /**
@@ -126,6 +126,18 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
   private Button wBatch;
   private FormData fdlBatch, fdBatch;
 
+  private Label wlFastInsert;
+  private Button wFastInsert;
+  private FormData fdlFastInsert, fdFastInsert;
+
+  private Label wlAsyncWrites;
+  private Button wAsyncWrites;
+  private FormData fdlAsyncWrites, fdAsyncWrites;
+
+  private Label wlAsyncConnections;
+  private TextVar wAsyncConnections;
+  private FormData fdlAsyncConnections, fdAsyncConnections;
+
   private Label wlUsePart;
   private Button wUsePart;
   private FormData fdlUsePart, fdUsePart;
@@ -557,20 +569,82 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
       }
     } );
 
+    // Insert the batches the fastest way of the database
+    wlFastInsert = new Label( wMainComp, SWT.RIGHT );
+    wlFastInsert.setText( BaseMessages.getString( PKG, "TableOutputDialog.FastInsert.Label" ) );
+    props.setLook( wlFastInsert );
+    fdlFastInsert = new FormData();
+    fdlFastInsert.left = new FormAttachment( 0, 0 );
+    fdlFastInsert.top = new FormAttachment( wBatch, margin );
+    fdlFastInsert.right = new FormAttachment( middle, -margin );
+    wlFastInsert.setLayoutData( fdlFastInsert );
+    wFastInsert = new Button( wMainComp, SWT.CHECK );
+    wFastInsert.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.FastInsert.Tooltip" ) );
+    props.setLook( wFastInsert );
+    fdFastInsert = new FormData();
+    fdFastInsert.left = new FormAttachment( middle, 0 );
+    fdFastInsert.top = new FormAttachment( wBatch, margin );
+    fdFastInsert.right = new FormAttachment( 100, 0 );
+    wFastInsert.setLayoutData( fdFastInsert );
+    wFastInsert.addSelectionListener( lsSelMod );
+
+    // Write the batches in the background
+    wlAsyncWrites = new Label( wMainComp, SWT.RIGHT );
+    wlAsyncWrites.setText( BaseMessages.getString( PKG, "TableOutputDialog.AsyncWrites.Label" ) );
+    props.setLook( wlAsyncWrites );
+    fdlAsyncWrites = new FormData();
+    fdlAsyncWrites.left = new FormAttachment( 0, 0 );
+    fdlAsyncWrites.top = new FormAttachment( wFastInsert, margin );
+    fdlAsyncWrites.right = new FormAttachment( middle, -margin );
+    wlAsyncWrites.setLayoutData( fdlAsyncWrites );
+    wAsyncWrites = new Button( wMainComp, SWT.CHECK );
+    wAsyncWrites.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.AsyncWrites.Tooltip" ) );
+    props.setLook( wAsyncWrites );
+    fdAsyncWrites = new FormData();
+    fdAsyncWrites.left = new FormAttachment( middle, 0 );
+    fdAsyncWrites.top = new FormAttachment( wFastInsert, margin );
+    fdAsyncWrites.right = new FormAttachment( 100, 0 );
+    wAsyncWrites.setLayoutData( fdAsyncWrites );
+    wAsyncWrites.addSelectionListener( lsSelMod );
+    wAsyncWrites.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent arg0 ) {
+        setFlags();
+      }
+    } );
+
+    // The number of connections to write on
+    wlAsyncConnections = new Label( wMainComp, SWT.RIGHT );
+    wlAsyncConnections.setText( BaseMessages.getString( PKG, "TableOutputDialog.AsyncConnections.Label" ) );
+    props.setLook( wlAsyncConnections );
+    fdlAsyncConnections = new FormData();
+    fdlAsyncConnections.left = new FormAttachment( 0, 0 );
+    fdlAsyncConnections.top = new FormAttachment( wAsyncWrites, margin );
+    fdlAsyncConnections.right = new FormAttachment( middle, -margin );
+    wlAsyncConnections.setLayoutData( fdlAsyncConnections );
+    wAsyncConnections = new TextVar( transMeta, wMainComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wAsyncConnections.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.AsyncConnections.Tooltip" ) );
+    props.setLook( wAsyncConnections );
+    wAsyncConnections.addModifyListener( lsMod );
+    fdAsyncConnections = new FormData();
+    fdAsyncConnections.left = new FormAttachment( middle, 0 );
+    fdAsyncConnections.top = new FormAttachment( wAsyncWrites, margin );
+    fdAsyncConnections.right = new FormAttachment( 100, 0 );
+    wAsyncConnections.setLayoutData( fdAsyncConnections );
+
     // NameInField
     wlNameInField = new Label( wMainComp, SWT.RIGHT );
     wlNameInField.setText( BaseMessages.getString( PKG, "TableOutputDialog.NameInField.Label" ) );
     props.setLook( wlNameInField );
     fdlNameInField = new FormData();
     fdlNameInField.left = new FormAttachment( 0, 0 );
-    fdlNameInField.top = new FormAttachment( wBatch, margin * 5 );
+    fdlNameInField.top = new FormAttachment( wAsyncConnections, margin * 5 );
     fdlNameInField.right = new FormAttachment( middle, -margin );
     wlNameInField.setLayoutData( fdlNameInField );
     wNameInField = new Button( wMainComp, SWT.CHECK );
     props.setLook( wNameInField );
     fdNameInField = new FormData();
     fdNameInField.left = new FormAttachment( middle, 0 );
-    fdNameInField.top = new FormAttachment( wBatch, margin * 5 );
+    fdNameInField.top = new FormAttachment( wAsyncConnections, margin * 5 );
     fdNameInField.right = new FormAttachment( 100, 0 );
     wNameInField.setLayoutData( fdNameInField );
     wNameInField.addSelectionListener( new SelectionAdapter() {
@@ -1235,6 +1309,15 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     wlBatch.setEnabled( enableBatch );
     wBatch.setEnabled( enableBatch );
 
+    // Only batches of a single table are written in the background or with the fastest insert
+    boolean enableAsync = useBatch && !usePartitioning && !isTableNameInField;
+    wlFastInsert.setEnabled( enableAsync );
+    wFastInsert.setEnabled( enableAsync );
+    wlAsyncWrites.setEnabled( enableAsync );
+    wAsyncWrites.setEnabled( enableAsync );
+    wlAsyncConnections.setEnabled( enableAsync && wAsyncWrites.getSelection() );
+    wAsyncConnections.setEnabled( enableAsync && wAsyncWrites.getSelection() );
+
     boolean specifyFields = wSpecifyFields.getSelection();
     wFields.setEnabled( specifyFields );
     wGetFields.setEnabled( specifyFields );
@@ -1280,6 +1363,9 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     wTruncate.setSelection( input.truncateTable() );
     wIgnore.setSelection( input.ignoreErrors() );
     wBatch.setSelection( input.useBatchUpdate() );
+    wFastInsert.setSelection( input.isFastInsert() );
+    wAsyncWrites.setSelection( input.isAsyncWrites() );
+    wAsyncConnections.setText( Const.NVL( input.getAsyncConnections(), "" ) );
 
     wCommit.setText( input.getCommitSize() );
 
@@ -1333,6 +1419,9 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     info.setTruncateTable( wTruncate.getSelection() );
     info.setIgnoreErrors( wIgnore.getSelection() );
     info.setUseBatchUpdate( wBatch.getSelection() );
+    info.setFastInsert( wFastInsert.getSelection() );
+    info.setAsyncWrites( wAsyncWrites.getSelection() );
+    info.setAsyncConnections( wAsyncConnections.getText() );
     info.setPartitioningEnabled( wUsePart.getSelection() );
     info.setPartitioningField( wPartField.getText() );
     info.setPartitioningDaily( wPartDaily.getSelection() );
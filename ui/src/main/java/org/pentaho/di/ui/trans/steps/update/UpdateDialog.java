@@ -120,6 +120,10 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
   private Button wSkipLookup;
   private FormData fdlSkipLookup, fdSkipLookup;
 
+  private Label wlBatchLookup;
+  private Button wBatchLookup;
+  private FormData fdlBatchLookup, fdBatchLookup;
+
   /**
    * List of ColumnInfo that should have the field names of the selected database table
    */
@@ -314,12 +318,34 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
       }
     } );
 
+    wlBatchLookup = new Label( shell, SWT.RIGHT );
+    wlBatchLookup.setText( BaseMessages.getString( PKG, "UpdateDialog.BatchLookup.Label" ) );
+    props.setLook( wlBatchLookup );
+    fdlBatchLookup = new FormData();
+    fdlBatchLookup.left = new FormAttachment( 0, 0 );
+    fdlBatchLookup.top = new FormAttachment( wSkipLookup, margin );
+    fdlBatchLookup.right = new FormAttachment( middle, -margin );
+    wlBatchLookup.setLayoutData( fdlBatchLookup );
+    wBatchLookup = new Button( shell, SWT.CHECK );
+    wBatchLookup.setToolTipText( BaseMessages.getString( PKG, "UpdateDialog.BatchLookup.Tooltip" ) );
+    props.setLook( wBatchLookup );
+    fdBatchLookup = new FormData();
+    fdBatchLookup.left = new FormAttachment( middle, 0 );
+    fdBatchLookup.top = new FormAttachment( wSkipLookup, margin );
+    fdBatchLookup.right = new FormAttachment( 100, 0 );
+    wBatchLookup.setLayoutData( fdBatchLookup );
+    wBatchLookup.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+      }
+    } );
+
     wlErrorIgnored = new Label( shell, SWT.RIGHT );
     wlErrorIgnored.setText( BaseMessages.getString( PKG, "UpdateDialog.ErrorIgnored.Label" ) );
     props.setLook( wlErrorIgnored );
     fdlErrorIgnored = new FormData();
     fdlErrorIgnored.left = new FormAttachment( 0, 0 );
-    fdlErrorIgnored.top = new FormAttachment( wSkipLookup, margin );
+    fdlErrorIgnored.top = new FormAttachment( wBatchLookup, margin );
     fdlErrorIgnored.right = new FormAttachment( middle, -margin );
     wlErrorIgnored.setLayoutData( fdlErrorIgnored );
 
@@ -328,7 +354,7 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
     wErrorIgnored.setToolTipText( BaseMessages.getString( PKG, "UpdateDialog.ErrorIgnored.ToolTip" ) );
     fdErrorIgnored = new FormData();
     fdErrorIgnored.left = new FormAttachment( middle, 0 );
-    fdErrorIgnored.top = new FormAttachment( wSkipLookup, margin );
+    fdErrorIgnored.top = new FormAttachment( wBatchLookup, margin );
     wErrorIgnored.setLayoutData( fdErrorIgnored );
     wErrorIgnored.addSelectionListener( new SelectionAdapter() {
       public void widgetSelected( SelectionEvent e ) {
@@ -342,14 +368,14 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
     props.setLook( wlIgnoreFlagField );
     fdlIgnoreFlagField = new FormData();
     fdlIgnoreFlagField.left = new FormAttachment( wErrorIgnored, margin );
-    fdlIgnoreFlagField.top = new FormAttachment( wSkipLookup, margin );
+    fdlIgnoreFlagField.top = new FormAttachment( wBatchLookup, margin );
     wlIgnoreFlagField.setLayoutData( fdlIgnoreFlagField );
     wIgnoreFlagField = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
     props.setLook( wIgnoreFlagField );
     wIgnoreFlagField.addModifyListener( lsMod );
     fdIgnoreFlagField = new FormData();
     fdIgnoreFlagField.left = new FormAttachment( wlIgnoreFlagField, margin );
-    fdIgnoreFlagField.top = new FormAttachment( wSkipLookup, margin );
+    fdIgnoreFlagField.top = new FormAttachment( wBatchLookup, margin );
     fdIgnoreFlagField.right = new FormAttachment( 100, 0 );
     wIgnoreFlagField.setLayoutData( fdIgnoreFlagField );
 
@@ -563,6 +589,8 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
     }
     wErrorIgnored.setEnabled( !wSkipLookup.getSelection() );
     wlErrorIgnored.setEnabled( !wSkipLookup.getSelection() );
+    wBatchLookup.setEnabled( !wSkipLookup.getSelection() );
+    wlBatchLookup.setEnabled( !wSkipLookup.getSelection() );
     wlIgnoreFlagField.setEnabled( !wSkipLookup.getSelection() && wErrorIgnored.getSelection() );
     wIgnoreFlagField.setEnabled( !wSkipLookup.getSelection() && wErrorIgnored.getSelection() );
 
@@ -670,6 +698,7 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
     wCommit.setText( input.getCommitSizeVar() );
     wBatch.setSelection( input.useBatchUpdate() );
     wSkipLookup.setSelection( input.isSkipLookup() );
+    wBatchLookup.setSelection( input.isBatchLookup() );
     wErrorIgnored.setSelection( input.isErrorIgnored() );
     if ( input.getIgnoreFlagField() != null ) {
       wIgnoreFlagField.setText( input.getIgnoreFlagField() );
@@ -744,6 +773,7 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
     inf.setCommitSize(  wCommit.getText() );
     inf.setUseBatchUpdate( wBatch.getSelection() );
     inf.setSkipLookup( wSkipLookup.getSelection() );
+    inf.setBatchLookup( wBatchLookup.getSelection() );
 
     if ( log.isDebug() ) {
       logDebug( BaseMessages.getString( PKG, "UpdateDialog.Log.FoundKeys", nrkeys + "" ) );